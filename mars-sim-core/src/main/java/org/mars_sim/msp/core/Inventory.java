@@ -9,8 +9,12 @@ package org.mars_sim.msp.core;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -18,6 +22,8 @@ import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -35,6 +41,8 @@ import org.mars_sim.msp.core.resource.AmountResourceStorage;
 import org.mars_sim.msp.core.resource.ItemResource;
 import org.mars_sim.msp.core.resource.ItemResourceUtil;
 import org.mars_sim.msp.core.resource.PhaseType;
+import org.mars_sim.msp.core.resource.ResourceCache;
+import org.mars_sim.msp.core.resource.ResourceTable;
 import org.mars_sim.msp.core.resource.ResourceUtil;
 import org.mars_sim.msp.core.robot.Robot;
 import org.mars_sim.msp.core.structure.Settlement;
@@ -72,15 +80,15 @@ public class Inventory implements Serializable {
 	private Map<Integer, Integer> containedItemResources = null;
 	
 	// Cache capacity variables.
-	private transient Map<Integer, Double> capacityCache = null;
-	private transient Map<Integer, Boolean> capacityCacheDirty = null;
-	private transient Map<Integer, Double> containersCapacityCache = null;
-	private transient Map<Integer, Boolean> containersCapacityCacheDirty = null;
-	private transient Map<Integer, Double> storedCache = null;
-	private transient Map<Integer, Boolean> storedCacheDirty = null;
-	private transient Map<Integer, Double> containersStoredCache = null;
-	private transient Map<Integer, Boolean> containersStoredCacheDirty = null;
+	private transient ResourceCache capacityCache = null;
+	private transient ResourceCache containersCapacityCache = null;
+	private transient ResourceCache storedCache = null;
+	private transient ResourceCache containersStoredCache = null;
 	private transient Set<Integer> allStoredARCache = null;
+	/** The contained units by class, in the order they were stored. */
+	private transient Map<Class<? extends Unit>, Set<Unit>> unitIndex = null;
+	/** The contained units of each class or interface asked for, kept along with the index. */
+	private transient Map<Class<?>, UnitsOfType> unitsByType = null;
 
 	private transient boolean allStoredAmountResourcesCacheDirty = true;
 	private transient double totalAmountResourcesStoredCache;
@@ -95,22 +103,31 @@ public class Inventory implements Serializable {
 	private transient boolean totalInventoryMassCacheDirty = true;
 
 	// Add 4 amount resource demand maps
-	private Map<Integer, Integer> amountDemandTotalRequestMap = new ConcurrentHashMap<>();
-	private Map<Integer, Integer> amountDemandMetRequestMap = new ConcurrentHashMap<>();
-	private Map<Integer, Double> amountDemandMap = new ConcurrentHashMap<>();
-	private Map<Integer, Double> amountDemandEstimatedMap = new ConcurrentHashMap<>();
+	private ResourceTable amountDemandTotalRequestMap = createAmountTable(true);
+	private ResourceTable amountDemandMetRequestMap = createAmountTable(true);
+	private ResourceTable amountDemandMap = createAmountTable(false);
+	private ResourceTable amountDemandEstimatedMap = createAmountTable(false);
 	// Add 2 amount resource supply maps
-	private Map<Integer, Double> amountSupplyMap = new ConcurrentHashMap<>();
-	private Map<Integer, Integer> amountSupplyRequestMap = new ConcurrentHashMap<>();
+	private ResourceTable amountSupplyMap = createAmountTable(false);
+	private ResourceTable amountSupplyRequestMap = createAmountTable(true);
 	// Add 4 item resource demand maps
-	private Map<Integer, Integer> itemDemandTotalRequestMap = new ConcurrentHashMap<>();
-	private Map<Integer, Integer> itemDemandMetRequestMap = new ConcurrentHashMap<>();
-	private Map<Integer, Integer> itemDemandMap = new ConcurrentHashMap<>();
-	private Map<Integer, Integer> itemDemandEstimatedMap = new ConcurrentHashMap<>();
+	private ResourceTable itemDemandTotalRequestMap = createItemTable();
+	private ResourceTable itemDemandMetRequestMap = createItemTable();
+	private ResourceTable itemDemandMap = createItemTable();
+	private ResourceTable itemDemandEstimatedMap = createItemTable();
 	// Add 2 item resource supply maps
-	private Map<Integer, Integer> itemSupplyMap = new ConcurrentHashMap<>();
-	private Map<Integer, Integer> itemSupplyRequestMap = new ConcurrentHashMap<>();
+	private ResourceTable itemSupplyMap = createItemTable();
+	private ResourceTable itemSupplyRequestMap = createItemTable();
 	
+	/**
+	 * The lock of the containment tree this inventory is the root of. The units
+	 * of a settlement are updated concurrently, so every access to an inventory
+	 * takes the lock of the root of its tree : the settlement, the vehicle away
+	 * or the unit out on the surface. The inventories of a tree call into each
+	 * other freely, hence the one lock for all of them.
+	 */
+	private transient ReentrantLock treeLock = new ReentrantLock();
+
 	/** The unit that owns this inventory. */
 	private transient Unit owner;
 	private Integer ownerID;
@@ -143,186 +160,91 @@ public class Inventory implements Serializable {
 //		allStoredARCache = getAllARStored(false);//new HashSet<Integer>();
 	}
 
-	public int getAmountSupplyRequest(Integer r) {
-		int result;
+	/**
+	 * Creates a table of values for the amount resources.
+	 * 
+	 * @param integral true if the table holds counts.
+	 * @return the table.
+	 */
+	private static ResourceTable createAmountTable(boolean integral) {
+		return new ResourceTable(ResourceUtil.FIRST_AMOUNT_RESOURCE_ID, ResourceUtil.getAmountResourceCount(), integral);
+	}
 
-		if (amountSupplyRequestMap.containsKey(r)) {
-			result = amountSupplyRequestMap.get(r);
-		} else {
-			amountSupplyRequestMap.put(r, 0);
-			result = 0;
-		}
-		return result;
+	/**
+	 * Creates a table of counts for the item resources.
+	 * 
+	 * @return the table.
+	 */
+	private static ResourceTable createItemTable() {
+		return new ResourceTable(ResourceUtil.FIRST_ITEM_RESOURCE_ID, ItemResourceUtil.getItemResourceCount(), true);
 	}
 
-	public int getItemSupplyRequest(Integer r) {
-		int result;
+	public int getAmountSupplyRequest(int r) {
+		return (int) amountSupplyRequestMap.get(r);
+	}
 
-		if (itemSupplyRequestMap.containsKey(r)) {
-			result = itemSupplyRequestMap.get(r);
-		} else {
-			itemSupplyRequestMap.put(r, 0);
-			result = 0;
-		}
-		return result;
+	public int getItemSupplyRequest(int r) {
+		return (int) itemSupplyRequestMap.get(r);
 	}
 	
-	public double getAmountSupply(Integer r) {
-		double result;
-		
-		if (amountSupplyMap.containsKey(r)) {
-			result = amountSupplyMap.get(r);
-		} else {
-			amountSupplyMap.put(r, 0.0);
-			result = 0.0;
-		}
-		return result;
+	public double getAmountSupply(int r) {
+		return amountSupplyMap.get(r);
 	}
 
-	public double getItemSupply(Integer r) {
-		double result;
-		
-		if (itemSupplyMap.containsKey(r)) {
-			result = itemSupplyMap.get(r);
-		} else {
-			itemSupplyMap.put(r, 0);
-			result = 0.0;
-		}
-		return result;
+	public double getItemSupply(int r) {
+		return itemSupplyMap.get(r);
 	}
 	
-	public void addAmountSupply(Integer r, double amount) {
-		if (amountSupplyMap.containsKey(r)) {
-			double oldAmount = amountSupplyMap.get(r);
-			amountSupplyMap.put(r, amount + oldAmount);
-		} else {
-			amountSupplyMap.put(r, amount);
-		}
+	public void addAmountSupply(int r, double amount) {
+		amountSupplyMap.add(r, amount);
 
 		addAmountSupplyRequest(r);
 	}
 
-	public void addItemSupply(Integer r, int amount) {
-		if (itemSupplyMap.containsKey(r)) {
-			int oldAmount = itemSupplyMap.get(r);
-			itemSupplyMap.put(r, amount + oldAmount);
-		} else {
-			itemSupplyMap.put(r, amount);
-		}
+	public void addItemSupply(int r, int amount) {
+		itemSupplyMap.add(r, amount);
 
 		addItemSupplyRequest(r);
 	}
 	
-	public void addAmountSupplyRequest(Integer r) {
-		if (amountSupplyRequestMap.containsKey(r)) {
-			int oldNum = amountSupplyRequestMap.get(r);
-			amountSupplyRequestMap.put(r, oldNum + 1);
-		}
-		else {
-			amountSupplyRequestMap.put(r, 1);
-		}
+	public void addAmountSupplyRequest(int r) {
+		amountSupplyRequestMap.add(r, 1);
 	}
 
-	public void addItemSupplyRequest(Integer r) {
-		if (itemSupplyRequestMap.containsKey(r)) {
-			int oldNum = itemSupplyRequestMap.get(r);
-			itemSupplyRequestMap.put(r, oldNum + 1);
-		}
-		else {
-			itemSupplyRequestMap.put(r, 1);
-		}
+	public void addItemSupplyRequest(int r) {
+		itemSupplyRequestMap.add(r, 1);
 	}
 	
-	public double getAmountDemand(Integer r) {
-		double result;
-
-		if (amountDemandMap.containsKey(r)) {
-			result = amountDemandMap.get(r);
-		} else {
-			amountDemandMap.put(r, 0.0);
-			result = 0.0;
-		}
-		return result;
+	public double getAmountDemand(int r) {
+		return amountDemandMap.get(r);
 	}
 
-	public double getItemDemand(Integer r) {
-		double result;
-
-		if (itemDemandMap.containsKey(r)) {
-			result = itemDemandMap.get(r);
-		} else {
-			itemDemandMap.put(r, 0);
-			result = 0.0;
-		}
-		return result;
+	public double getItemDemand(int r) {
+		return itemDemandMap.get(r);
 	}
 	
-	public double getAmountDemandEstimated(Integer r) {
-		double result;
-
-		if (amountDemandEstimatedMap.containsKey(r)) {
-			result = amountDemandEstimatedMap.get(r);
-		} else {
-			amountDemandEstimatedMap.put(r, 0.0);
-			result = 0.0;
-		}
-		return result;
+	public double getAmountDemandEstimated(int r) {
+		return amountDemandEstimatedMap.get(r);
 	}
 
-	public double getItemDemandEstimated(Integer r) {
-		double result;
-
-		if (itemDemandEstimatedMap.containsKey(r)) {
-			result = itemDemandEstimatedMap.get(r);
-		} else {
-			itemDemandEstimatedMap.put(r, 0);
-			result = 0.0;
-		}
-		return result;
+	public double getItemDemandEstimated(int r) {
+		return itemDemandEstimatedMap.get(r);
 	}
 	
-	public int getAmountDemandTotalRequest(Integer r) {
-		int result;
-		if (amountDemandTotalRequestMap.containsKey(r)) {
-			result = amountDemandTotalRequestMap.get(r);
-		} else {
-			amountDemandTotalRequestMap.put(r, 0);
-			result = 0;
-		}
-		return result;
+	public int getAmountDemandTotalRequest(int r) {
+		return (int) amountDemandTotalRequestMap.get(r);
 	}
 
-	public int getItemDemandTotalRequest(Integer r) {
-		int result;
-		if (itemDemandTotalRequestMap.containsKey(r)) {
-			result = itemDemandTotalRequestMap.get(r);
-		} else {
-			itemDemandTotalRequestMap.put(r, 0);
-			result = 0;
-		}
-		return result;
+	public int getItemDemandTotalRequest(int r) {
+		return (int) itemDemandTotalRequestMap.get(r);
 	}
 
-	public int getAmountDemandMetRequest(Integer r) {
-		int result;
-		if (amountDemandMetRequestMap.containsKey(r)) {
-			result = amountDemandMetRequestMap.get(r);
-		} else {
-			amountDemandMetRequestMap.put(r, 0);
-			result = 0;
-		}
-		return result;
+	public int getAmountDemandMetRequest(int r) {
+		return (int) amountDemandMetRequestMap.get(r);
 	}
 
-	public int getItemDemandMetRequest(Integer r) {
-		int result;
-		if (itemDemandMetRequestMap.containsKey(r)) {
-			result = itemDemandMetRequestMap.get(r);
-		} else {
-			itemDemandMetRequestMap.put(r, 0);
-			result = 0;
-		}
-		return result;
+	public int getItemDemandMetRequest(int r) {
+		return (int) itemDemandMetRequestMap.get(r);
 	}
 	
 	public int getAmountDemandMapSize() {
@@ -350,11 +272,11 @@ public class Inventory implements Serializable {
 	}
 
 	public void compactAmountSupplyMap(int sol) {
-		compactAMap(amountSupplyMap, sol);
+		amountSupplyMap.divideAll(sol);
 	}
 
 	public void compactItemSupplyMap(int sol) {
-		compactIMap(itemSupplyMap, sol);
+		itemSupplyMap.divideAll(sol);
 	}
 
 	public void clearAmountSupplyRequestMap() {
@@ -366,35 +288,11 @@ public class Inventory implements Serializable {
 	}
 
 	public void compactAmountDemandMap(int sol) {
-		compactAMap(amountDemandMap, sol);
+		amountDemandMap.divideAll(sol);
 	}
 
 	public void compactItemDemandMap(int sol) {
-		compactIMap(itemDemandMap, sol);
-	}
-	
-	public void compactAMap(Map<Integer, Double> amountMap, int sol) {
-
-		Map<Integer, Double> map = amountMap;
-
-		for (Map.Entry<Integer, Double> entry : map.entrySet()) {
-			Integer key = entry.getKey();
-			double value = entry.getValue();
-			value = value / sol;
-			map.put(key, value);
-		}
-	}
-
-	public void compactIMap(Map<Integer, Integer> amountMap, int sol) {
-
-		Map<Integer, Integer> map = amountMap;
-
-		for (Map.Entry<Integer, Integer> entry : map.entrySet()) {
-			Integer key = entry.getKey();
-			Integer value = entry.getValue();
-			value = value / sol;
-			map.put(key, value);
-		}
+		itemDemandMap.divideAll(sol);
 	}
 	
 	public void clearAmountDemandTotalRequestMap() {
@@ -415,40 +313,24 @@ public class Inventory implements Serializable {
 
 	public void addAmountDemandTotalRequest(int r, double amount) {
 		// Record this demand request 
-		if (amountDemandTotalRequestMap.containsKey(r)) {
-			int oldNum = amountDemandTotalRequestMap.get(r);
-			amountDemandTotalRequestMap.put(r, oldNum + 1);
-		} else
-			amountDemandTotalRequestMap.put(r, 1);
+		amountDemandTotalRequestMap.add(r, 1);
 		// Record estimated demand
-		if (amountDemandEstimatedMap.containsKey(r)) {
-			double oldAmount = amountDemandEstimatedMap.get(r);
-			amountDemandEstimatedMap.put(r, oldAmount + amount);
-		} else
-			amountDemandEstimatedMap.put(r, amount);
+		amountDemandEstimatedMap.add(r, amount);
 	}
 
 	public void addItemDemandTotalRequest(int r, int num) {
 		// Record this demand request 
-		if (itemDemandTotalRequestMap.containsKey(r)) {
-			int oldNum = itemDemandTotalRequestMap.get(r);
-			itemDemandTotalRequestMap.put(r, oldNum + 1);
-		} else
-			itemDemandTotalRequestMap.put(r, 1);
+		itemDemandTotalRequestMap.add(r, 1);
 		// Record estimated demand		
-		if (itemDemandEstimatedMap.containsKey(r)) {
-			int oldNum = itemDemandEstimatedMap.get(r);
-			itemDemandEstimatedMap.put(r, oldNum + num);
-		} else
-			itemDemandEstimatedMap.put(r, num);
+		itemDemandEstimatedMap.add(r, num);
 	}
 
 	public void compactAmountDemandEstimatedMap(int sol) {
-		compactAMap(amountDemandEstimatedMap, sol);
+		amountDemandEstimatedMap.divideAll(sol);
 	}
 
 	public void compactItemDemandEstimatedMap(int sol) {
-		compactIMap(itemDemandEstimatedMap, sol);
+		itemDemandEstimatedMap.divideAll(sol);
 	}
 	
 	/**
@@ -459,49 +341,23 @@ public class Inventory implements Serializable {
 	 * @param amount
 	 */
 	public void addAmountDemand(int r, double amount) {
-		if (amountDemandMap.containsKey(r)) {
-			double oldAmount = amountDemandMap.get(r);
-			amountDemandMap.put(r, amount + oldAmount);
-
-		} else {
-			amountDemandMap.put(r, amount);
-		}
+		amountDemandMap.add(r, amount);
 
 		addAmountDemandMetRequest(r, amount);
 	}
 
 	public void addItemDemand(int r, int number) {
-		if (itemDemandMap.containsKey(r)) {
-			int oldNumber = itemDemandMap.get(r);
-			itemDemandMap.put(r, number + oldNumber);
-
-		} else {
-			itemDemandMap.put(r, number);
-		}
+		itemDemandMap.add(r, number);
 
 		addItemDemandMetRequest(r, number);
 	}
 	
 	public void addAmountDemandMetRequest(int r, double amount) {
-		if (amountDemandMetRequestMap.containsKey(r)) {
-			int oldNum = amountDemandMetRequestMap.get(r);
-			amountDemandMetRequestMap.put(r, oldNum + 1);
-		}
-
-		else {
-			amountDemandMetRequestMap.put(r, 1);
-		}
+		amountDemandMetRequestMap.add(r, 1);
 	}
 
 	public void addItemDemandMetRequest(int r, double number) {
-		if (itemDemandMetRequestMap.containsKey(r)) {
-			int oldNum = itemDemandMetRequestMap.get(r);
-			itemDemandMetRequestMap.put(r, oldNum + 1);
-		}
-
-		else {
-			itemDemandMetRequestMap.put(r, 1);
-		}
+		itemDemandMetRequestMap.add(r, 1);
 	}
 	
 	/**
@@ -511,7 +367,12 @@ public class Inventory implements Serializable {
 	 * @param capacity the extra capacity amount (kg).
 	 */
 	public void addAmountResourceTypeCapacity(AmountResource resource, double capacity) {
-		addAmountResourceTypeCapacity(resource.getID(), capacity);  
+		ReentrantLock lock = lock();
+		try {
+			addAmountResourceTypeCapacity(resource.getID(), capacity);  
+		} finally {
+			lock.unlock();
+		}
 	}
 
 	/**
@@ -521,17 +382,22 @@ public class Inventory implements Serializable {
 	 * @param capacity the extra capacity amount (kg).
 	 */
 	public void addAmountResourceTypeCapacity(int resource, double capacity) {
-		// Initialize amount resource capacity cache if necessary.
-		if (capacityCache == null) {
-			initializeAmountResourceCapacityCache();
-		}
-		// Set capacity cache to dirty because capacity values are changing.
-		setAmountResourceCapacityCacheDirty(resource);
-		// Initialize resource storage if necessary.
-		if (resourceStorage == null) {
-			resourceStorage = new AmountResourceStorage();
+		ReentrantLock lock = lock();
+		try {
+			// Initialize amount resource capacity cache if necessary.
+			if (capacityCache == null) {
+				initializeAmountResourceCapacityCache();
+			}
+			// Set capacity cache to dirty because capacity values are changing.
+			setAmountResourceCapacityCacheDirty(resource);
+			// Initialize resource storage if necessary.
+			if (resourceStorage == null) {
+				resourceStorage = new AmountResourceStorage();
+			}
+			resourceStorage.addAmountResourceTypeCapacity(resource, capacity);
+		} finally {
+			lock.unlock();
 		}
-		resourceStorage.addAmountResourceTypeCapacity(resource, capacity);
 	}
 
 	/**
@@ -541,7 +407,12 @@ public class Inventory implements Serializable {
 	 * @param capacity the extra capacity amount (kg).
 	 */
 	public void removeAmountResourceTypeCapacity(AmountResource resource, double capacity) {
-		removeAmountResourceTypeCapacity(resource.getID(), capacity);  
+		ReentrantLock lock = lock();
+		try {
+			removeAmountResourceTypeCapacity(resource.getID(), capacity);  
+		} finally {
+			lock.unlock();
+		}
 	}
 
 	
@@ -552,17 +423,22 @@ public class Inventory implements Serializable {
 	 * @param capacity the capacity amount (kg).
 	 */
 	public void removeAmountResourceTypeCapacity(int resource, double capacity) {
-		// Initialize amount resource capacity cache if necessary.
-		if (capacityCache == null) {
-			initializeAmountResourceCapacityCache();
-		}
-		// Set capacity cache to dirty because capacity values are changing.
-		setAmountResourceCapacityCacheDirty(resource);
-		// Initialize resource storage if necessary.
-		if (resourceStorage == null) {
-			resourceStorage = new AmountResourceStorage();
+		ReentrantLock lock = lock();
+		try {
+			// Initialize amount resource capacity cache if necessary.
+			if (capacityCache == null) {
+				initializeAmountResourceCapacityCache();
+			}
+			// Set capacity cache to dirty because capacity values are changing.
+			setAmountResourceCapacityCacheDirty(resource);
+			// Initialize resource storage if necessary.
+			if (resourceStorage == null) {
+				resourceStorage = new AmountResourceStorage();
+			}
+			resourceStorage.removeAmountResourceTypeCapacity(resource, capacity);
+		} finally {
+			lock.unlock();
 		}
-		resourceStorage.removeAmountResourceTypeCapacity(resource, capacity);
 	}
 
 	/**
@@ -572,13 +448,18 @@ public class Inventory implements Serializable {
 	 * @param capacity the capacity amount (kg).
 	 */
 	public void addAmountResourcePhaseCapacity(PhaseType phase, double capacity) {
-		// Set capacity cache to all dirty because capacity values are changing.
-		setAmountResourceCapacityCacheAllDirty(false);
-		// Initialize resource storage if necessary.
-		if (resourceStorage == null) {
-			resourceStorage = new AmountResourceStorage();
+		ReentrantLock lock = lock();
+		try {
+			// Set capacity cache to all dirty because capacity values are changing.
+			setAmountResourceCapacityCacheAllDirty(false);
+			// Initialize resource storage if necessary.
+			if (resourceStorage == null) {
+				resourceStorage = new AmountResourceStorage();
+			}
+			resourceStorage.addAmountResourcePhaseCapacity(phase, capacity);
+		} finally {
+			lock.unlock();
 		}
-		resourceStorage.addAmountResourcePhaseCapacity(phase, capacity);
 	}
 
 	/**
@@ -589,10 +470,15 @@ public class Inventory implements Serializable {
 	 * @return true if storage capacity.
 	 */
 	public boolean hasAmountResourceCapacity(AmountResource resource, boolean allowDirty) {
-		if (resource == null) {
-			throw new IllegalArgumentException("resource cannot be null.");
+		ReentrantLock lock = lock();
+		try {
+			if (resource == null) {
+				throw new IllegalArgumentException("resource cannot be null.");
+			}
+			return (getAmountResourceCapacityCacheValue(resource, allowDirty) > 0D);
+		} finally {
+			lock.unlock();
 		}
-		return (getAmountResourceCapacityCacheValue(resource, allowDirty) > 0D);
 	}
 
 	/**
@@ -604,7 +490,12 @@ public class Inventory implements Serializable {
 	 * @return true if storage capacity.
 	 */
 	public boolean hasAmountResourceCapacity(AmountResource resource, double amount, boolean allowDirty) {
-		return hasAmountResourceCapacity(resource.getID(), amount, allowDirty);
+		ReentrantLock lock = lock();
+		try {
+			return hasAmountResourceCapacity(resource.getID(), amount, allowDirty);
+		} finally {
+			lock.unlock();
+		}
 	}
 
 	/**
@@ -616,11 +507,15 @@ public class Inventory implements Serializable {
 	 * @return true if storage capacity.
 	 */
 	public boolean hasAmountResourceCapacity(int resource, double amount, boolean allowDirty) {
-
-		if (amount < 0D) {
-			throw new IllegalArgumentException("amount cannot be a negative value.");
+		ReentrantLock lock = lock();
+		try {
+			if (amount < 0D) {
+				throw new IllegalArgumentException("amount cannot be a negative value.");
+			}
+			return (getAmountResourceCapacityCacheValue(resource, allowDirty) >= amount);
+		} finally {
+			lock.unlock();
 		}
-		return (getAmountResourceCapacityCacheValue(resource, allowDirty) >= amount);
 	}
 
 	/**
@@ -631,7 +526,12 @@ public class Inventory implements Serializable {
 	 * @return capacity amount (kg).
 	 */
 	public double getAmountResourceCapacity(AmountResource resource, boolean allowDirty) {
-		return getAmountResourceCapacityCacheValue(resource, allowDirty);
+		ReentrantLock lock = lock();
+		try {
+			return getAmountResourceCapacityCacheValue(resource, allowDirty);
+		} finally {
+			lock.unlock();
+		}
 	}
 
 	/**
@@ -642,7 +542,12 @@ public class Inventory implements Serializable {
 	 * @return capacity amount (kg).
 	 */
 	public double getAmountResourceCapacity(int resource, boolean allowDirty) {
-		return getAmountResourceCapacityCacheValue(resource, allowDirty);
+		ReentrantLock lock = lock();
+		try {
+			return getAmountResourceCapacityCacheValue(resource, allowDirty);
+		} finally {
+			lock.unlock();
+		}
 	}
 
 	/**
@@ -652,13 +557,18 @@ public class Inventory implements Serializable {
 	 * @return capacity amount (kg).
 	 */
 	public double getAmountResourceCapacityNoContainers(AmountResource resource) {
-		double result = 0D;
+		ReentrantLock lock = lock();
+		try {
+			double result = 0D;
 
-		if (resourceStorage != null) {
-			result = resourceStorage.getAmountResourceCapacity(resource);
-		}
+			if (resourceStorage != null) {
+				result = resourceStorage.getAmountResourceCapacity(resource);
+			}
 
-		return result;
+			return result;
+		} finally {
+			lock.unlock();
+		}
 	}
 
 	/**
@@ -669,7 +579,12 @@ public class Inventory implements Serializable {
 	 * @return stored amount (kg).
 	 */
 	public double getAmountResourceStored(AmountResource resource, boolean allowDirty) {
-		return getAmountResourceStoredCacheValue(resource, allowDirty);
+		ReentrantLock lock = lock();
+		try {
+			return getAmountResourceStoredCacheValue(resource, allowDirty);
+		} finally {
+			lock.unlock();
+		}
 	}
 
 	/**
@@ -680,7 +595,12 @@ public class Inventory implements Serializable {
 	 * @return stored amount (kg).
 	 */
 	public double getAmountResourceStored(int resource, boolean allowDirty) {
-		return getAmountResourceStoredCacheValue(resource, allowDirty);
+		ReentrantLock lock = lock();
+		try {
+			return getAmountResourceStoredCacheValue(resource, allowDirty);
+		} finally {
+			lock.unlock();
+		}
 	}
 
 	/**
@@ -690,9 +610,14 @@ public class Inventory implements Serializable {
 	 * @return set of amount resources.
 	 */
 	public Set<AmountResource> getAllAmountResourcesStored(boolean allowDirty) {
-		Set<AmountResource> s = ConcurrentHashMap.newKeySet();
-		s.addAll(getAllStoredAmountResourcesCache(allowDirty));
-		return s;
+		ReentrantLock lock = lock();
+		try {
+			Set<AmountResource> s = ConcurrentHashMap.newKeySet();
+			s.addAll(getAllStoredAmountResourcesCache(allowDirty));
+			return s;
+		} finally {
+			lock.unlock();
+		}
 	}
 
 	/**
@@ -702,10 +627,15 @@ public class Inventory implements Serializable {
 	 * @return set of amount resource id's.
 	 */
 	public Set<Integer> getAllARStored(boolean allowDirty) {
-//		return new HashSet<Integer>(getAllStoredARCache(allowDirty));
-		Set<Integer> s = ConcurrentHashMap.newKeySet();
-		s.addAll(getAllStoredARCache(allowDirty));
-		return s;
+		ReentrantLock lock = lock();
+		try {
+	//		return new HashSet<Integer>(getAllStoredARCache(allowDirty));
+			Set<Integer> s = ConcurrentHashMap.newKeySet();
+			s.addAll(getAllStoredARCache(allowDirty));
+			return s;
+		} finally {
+			lock.unlock();
+		}
 	}
 
 	/**
@@ -727,25 +657,29 @@ public class Inventory implements Serializable {
 	 * @return remaining capacity amount (kg).
 	 */
 	public double getAmountResourceRemainingCapacity(int resource, boolean useContainedUnits, boolean allowDirty) {
+		ReentrantLock lock = lock();
+		try {
+			double result = 0D;
 
-		double result = 0D;
+			if (useContainedUnits) {
+				double capacity = getAmountResourceCapacity(resource, allowDirty);
+				double stored = getAmountResourceStored(resource, allowDirty);
+				result += capacity - stored;
+			} else if (resourceStorage != null) {
+				result += resourceStorage.getARRemainingCapacity(resource);
+			}
 
-		if (useContainedUnits) {
-			double capacity = getAmountResourceCapacity(resource, allowDirty);
-			double stored = getAmountResourceStored(resource, allowDirty);
-			result += capacity - stored;
-		} else if (resourceStorage != null) {
-			result += resourceStorage.getARRemainingCapacity(resource);
-		}
+			// Check if remaining capacity exceeds container unit's remaining general
+			// capacity.
+			double containerUnitLimit = getContainerUnitGeneralCapacityLimit(allowDirty);
+			if (result > containerUnitLimit) {
+				result = containerUnitLimit;
+			}
 
-		// Check if remaining capacity exceeds container unit's remaining general
-		// capacity.
-		double containerUnitLimit = getContainerUnitGeneralCapacityLimit(allowDirty);
-		if (result > containerUnitLimit) {
-			result = containerUnitLimit;
+			return result;
+		} finally {
+			lock.unlock();
 		}
-
-		return result;
 	}
 
 	/**
@@ -758,25 +692,29 @@ public class Inventory implements Serializable {
 	 */
 	public double getAmountResourceRemainingCapacity(AmountResource resource, boolean useContainedUnits,
 			boolean allowDirty) {
+		ReentrantLock lock = lock();
+		try {
+			double result = 0D;
 
-		double result = 0D;
+			if (useContainedUnits) {
+				double capacity = getAmountResourceCapacity(resource, allowDirty);
+				double stored = getAmountResourceStored(resource, allowDirty);
+				result += capacity - stored;
+			} else if (resourceStorage != null) {
+				result += resourceStorage.getAmountResourceRemainingCapacity(resource);
+			}
 
-		if (useContainedUnits) {
-			double capacity = getAmountResourceCapacity(resource, allowDirty);
-			double stored = getAmountResourceStored(resource, allowDirty);
-			result += capacity - stored;
-		} else if (resourceStorage != null) {
-			result += resourceStorage.getAmountResourceRemainingCapacity(resource);
-		}
+			// Check if remaining capacity exceeds container unit's remaining general
+			// capacity.
+			double containerUnitLimit = getContainerUnitGeneralCapacityLimit(allowDirty);
+			if (result > containerUnitLimit) {
+				result = containerUnitLimit;
+			}
 
-		// Check if remaining capacity exceeds container unit's remaining general
-		// capacity.
-		double containerUnitLimit = getContainerUnitGeneralCapacityLimit(allowDirty);
-		if (result > containerUnitLimit) {
-			result = containerUnitLimit;
+			return result;
+		} finally {
+			lock.unlock();
 		}
-
-		return result;
 	}
 
 	/**
@@ -787,88 +725,11 @@ public class Inventory implements Serializable {
 	 * @param useContainedUnits
 	 */
 	public void storeAmountResource(AmountResource resource, double amount, boolean useContainedUnits) {
-
-		if (amount < 0D) {
-			LogConsolidated.log(logger, Level.SEVERE, 30_000, sourceName, 
-					"[" + getOwner() + "] Cannot store negative amount of resource: " 
-					+ Math.round(amount*100.0)/100.0);
-		}
-
-		if (amount > 0D) {
-
-			if (amount <= getAmountResourceRemainingCapacity(resource, useContainedUnits, false)) {
-
-				// Set modified cache values as dirty.
-				setAmountResourceCapacityCacheAllDirty(false);
-				setAmountResourceStoredCacheAllDirty(false);
-				setAllStoredAmountResourcesCacheDirty();
-				setTotalAmountResourcesStoredCacheDirty();
-
-				double remainingAmount = amount;
-				double remainingStorageCapacity = 0D;
-				if (resourceStorage != null) {
-					remainingStorageCapacity += resourceStorage.getAmountResourceRemainingCapacity(resource);
-				}
-
-				// Check if local resource storage can hold resources if not using contained
-				// units.
-				if (!useContainedUnits && (remainingAmount > remainingStorageCapacity)) {
-					LogConsolidated.log(logger, Level.WARNING, 10_000, sourceName, 
-							"[" + getOwner() + "] " + resource.getName() 
-							+ " could not be totally stored. Remaining: "
-							+ Math.round(remainingAmount - remainingStorageCapacity)*100.0/100.0);
-				}
-
-				// Store resource in local resource storage.
-				double storageAmount = remainingAmount;
-				if (storageAmount > remainingStorageCapacity) {
-					storageAmount = remainingStorageCapacity;
-				}
-				if ((storageAmount > 0D) && (resourceStorage != null)) {
-					resourceStorage.storeAmountResource(resource, storageAmount);
-					remainingAmount -= storageAmount;
-				}
-
-				// Store remaining resource in contained units in general capacity.
-				if (useContainedUnits && (remainingAmount > 0D) && (containedUnitIDs != null)) {
-					for (Integer id : containedUnitIDs) {
-						Unit unit = unitManager.getUnitByID(id);
-						// Use only contained units that implement container interface.
-						if (unit instanceof Container) {
-							Inventory unitInventory = unit.getInventory();
-							double remainingUnitCapacity = unitInventory.getAmountResourceRemainingCapacity(resource,
-									false, false);
-							double unitStorageAmount = remainingAmount;
-							if (unitStorageAmount > remainingUnitCapacity) {
-								unitStorageAmount = remainingUnitCapacity;
-							}
-							if (unitStorageAmount > 0D) {
-								unitInventory.storeAmountResource(resource, unitStorageAmount, false);
-								remainingAmount -= unitStorageAmount;
-							}
-						}
-					}
-				}
-
-				if (remainingAmount > SMALL_AMOUNT_COMPARISON) {
-					LogConsolidated.log(logger, Level.WARNING, 10_000, sourceName, 
-							"[" + getOwner() + "] " + resource.getName() 
-							+ " could not be totally stored. Remaining: " 
-							+ Math.round(remainingAmount*100.0)/100.0);
-				}
-
-				// Fire inventory event.
-				Unit o = getOwner();
-				if (o != null) {
-					o.fireUnitUpdate(UnitEventType.INVENTORY_RESOURCE_EVENT, resource);
-				}
-			} else {
-				LogConsolidated.log(logger, Level.SEVERE, 30_000, sourceName, 
-						"[" + getOwner() + "] Insufficient capacity to store " 
-						+ resource.getName() + ", capacity: "
-						+ Math.round(getAmountResourceRemainingCapacity(resource, useContainedUnits, false)*100.0)/100.0 
-						+ ", attempted: " + Math.round(amount*1000.0)/1000.0);
-			}
+		ReentrantLock lock = lock();
+		try {
+			storeAmountResource(resource.getID(), amount, useContainedUnits);
+		} finally {
+			lock.unlock();
 		}
 	}
 
@@ -880,91 +741,91 @@ public class Inventory implements Serializable {
 	 * @param useContainedUnits
 	 */
 	public void storeAmountResource(int resource, double amount, boolean useContainedUnits) {
+		ReentrantLock lock = lock();
+		try {
+			if (amount < 0D) {
+				LogConsolidated.log(logger, Level.SEVERE, 30_000, sourceName, 
+						"[" + getOwner() + "] Cannot store negative amount of resource: " 
+						+ Math.round(amount*100.0)/100.0);
+			}
 
-		if (amount < 0D) {
-			LogConsolidated.log(logger, Level.SEVERE, 30_000, sourceName, 
-					"[" + getOwner() + "] Cannot store negative amount of resource: " 
-					+ Math.round(amount*100.0)/100.0);
-		}
-
-		if (amount > 0D) {
-//            AmountResource ar = ResourceUtil.findAmountResource(resource);
-
-			if (amount <= getAmountResourceRemainingCapacity(resource, useContainedUnits, false)) {
+			if (amount > 0D) {
+	//            AmountResource ar = ResourceUtil.findAmountResource(resource);
 
-				// Set modified cache values as dirty.
-				setAmountResourceCapacityCacheAllDirty(false);
-				setAmountResourceStoredCacheAllDirty(false);
-				setAllStoredAmountResourcesCacheDirty();
-				setTotalAmountResourcesStoredCacheDirty();
+				if (amount <= getAmountResourceRemainingCapacity(resource, useContainedUnits, false)) {
 
-				double remainingAmount = amount;
-				double remainingStorageCapacity = 0D;
-				if (resourceStorage != null) {
-					remainingStorageCapacity += resourceStorage.getARRemainingCapacity(resource);
-				}
+					// Note: the cached totals are updated as the resource goes in, here and
+					// in the containers, see addStoredDelta()
+					double remainingAmount = amount;
+					double remainingStorageCapacity = 0D;
+					if (resourceStorage != null) {
+						remainingStorageCapacity += resourceStorage.getARRemainingCapacity(resource);
+					}
 
-				// Check if local resource storage can hold resources if not using contained
-				// units.
-				if (!useContainedUnits && (remainingAmount > remainingStorageCapacity)) {
-					LogConsolidated.log(logger, Level.WARNING, 30_000, sourceName, 
-							"[" + getOwner() + "] " 
-							+ ResourceUtil.findAmountResourceName(resource) 
-							+ " could not be totally stored. Remaining: "
-							+ Math.round((remainingAmount - remainingStorageCapacity)*100.0)/100.0);
-				}
+					// Check if local resource storage can hold resources if not using contained
+					// units.
+					if (!useContainedUnits && (remainingAmount > remainingStorageCapacity)) {
+						LogConsolidated.log(logger, Level.WARNING, 30_000, sourceName, 
+								"[" + getOwner() + "] " 
+								+ ResourceUtil.findAmountResourceName(resource) 
+								+ " could not be totally stored. Remaining: "
+								+ Math.round((remainingAmount - remainingStorageCapacity)*100.0)/100.0);
+					}
 
-				// Store resource in local resource storage.
-				double storageAmount = remainingAmount;
-				if (storageAmount > remainingStorageCapacity) {
-					storageAmount = remainingStorageCapacity;
-				}
-				if ((storageAmount > 0D) && (resourceStorage != null)) {
-					resourceStorage.storeAmountResource(resource, storageAmount);
-					remainingAmount -= storageAmount;
-				}
+					// Store resource in local resource storage.
+					double storageAmount = remainingAmount;
+					if (storageAmount > remainingStorageCapacity) {
+						storageAmount = remainingStorageCapacity;
+					}
+					if ((storageAmount > 0D) && (resourceStorage != null)) {
+						storeLocal(resource, storageAmount);
+						remainingAmount -= storageAmount;
+					}
 
-				// Store remaining resource in contained units in general capacity.
-				if (useContainedUnits && (remainingAmount > 0D) && (containedUnitIDs != null)) {
-					for (Integer id : containedUnitIDs) {
-						Unit unit = unitManager.getUnitByID(id);
-						// Use only contained units that implement container interface.
-						if (unit instanceof Container) {
-							Inventory unitInventory = unit.getInventory();
-							double remainingUnitCapacity = unitInventory.getAmountResourceRemainingCapacity(resource,
-									false, false);
-							double unitStorageAmount = remainingAmount;
-							if (unitStorageAmount > remainingUnitCapacity) {
-								unitStorageAmount = remainingUnitCapacity;
-							}
-							if (unitStorageAmount > 0D) {
-								unitInventory.storeAmountResource(resource, unitStorageAmount, false);
-								remainingAmount -= unitStorageAmount;
+					// Store remaining resource in contained units in general capacity.
+					if (useContainedUnits && (remainingAmount > 0D) && (containedUnitIDs != null)) {
+						for (Integer id : containedUnitIDs) {
+							Unit unit = unitManager.getUnitByID(id);
+							// Use only contained units that implement container interface.
+							if (unit instanceof Container) {
+								Inventory unitInventory = unit.getInventory();
+								double remainingUnitCapacity = unitInventory.getAmountResourceRemainingCapacity(resource,
+										false, false);
+								double unitStorageAmount = remainingAmount;
+								if (unitStorageAmount > remainingUnitCapacity) {
+									unitStorageAmount = remainingUnitCapacity;
+								}
+								if (unitStorageAmount > 0D) {
+									unitInventory.storeAmountResource(resource, unitStorageAmount, false);
+									remainingAmount -= unitStorageAmount;
+								}
 							}
 						}
 					}
-				}
 
-				if (remainingAmount > SMALL_AMOUNT_COMPARISON) {
-					LogConsolidated.log(logger, Level.WARNING, 30_000, sourceName, 
-							"[" + getOwner() + "] " + ResourceUtil.findAmountResourceName(resource)
-							+ " could not be totally stored. Remaining: " 
-							+ Math.round(remainingAmount*100.0)/100.0);
-				}
+					if (remainingAmount > SMALL_AMOUNT_COMPARISON) {
+						LogConsolidated.log(logger, Level.WARNING, 30_000, sourceName, 
+								"[" + getOwner() + "] " + ResourceUtil.findAmountResourceName(resource)
+								+ " could not be totally stored. Remaining: " 
+								+ Math.round(remainingAmount*100.0)/100.0);
+					}
 
-				// Fire inventory event.
-				Unit o = getOwner();
-				if (o != null) {
-					o.fireUnitUpdate(UnitEventType.INVENTORY_RESOURCE_EVENT, resource);
-//							ResourceUtil.findAmountResourceName(resource));
+					// Fire inventory event.
+					Unit o = getOwner();
+					if (o != null) {
+						o.fireUnitUpdate(UnitEventType.INVENTORY_RESOURCE_EVENT, resource);
+	//							ResourceUtil.findAmountResourceName(resource));
+					}
+				} else {
+					LogConsolidated.log(logger, Level.SEVERE, 30_000, sourceName, 
+							"[" + getOwner() + "] Insufficient capacity to store "
+							+ ResourceUtil.findAmountResourceName(resource) + ", capacity: "
+							+ Math.round(getAmountResourceRemainingCapacity(resource, useContainedUnits, false)*100.0)/100.0 
+							+ ", attempted: " + Math.round(amount*1000.0)/1000.0);
 				}
-			} else {
-				LogConsolidated.log(logger, Level.SEVERE, 30_000, sourceName, 
-						"[" + getOwner() + "] Insufficient capacity to store "
-						+ ResourceUtil.findAmountResourceName(resource) + ", capacity: "
-						+ Math.round(getAmountResourceRemainingCapacity(resource, useContainedUnits, false)*100.0)/100.0 
-						+ ", attempted: " + Math.round(amount*1000.0)/1000.0);
 			}
+		} finally {
+			lock.unlock();
 		}
 	}
 
@@ -975,7 +836,12 @@ public class Inventory implements Serializable {
 	 * @param amount   the amount (kg).
 	 */
 	public void retrieveAllAmountResource(int resource) {
-		retrieveAmountResource(resource, getAmountResourceStored(resource, false));
+		ReentrantLock lock = lock();
+		try {
+			retrieveAmountResource(resource, getAmountResourceStored(resource, false));
+		} finally {
+			lock.unlock();
+		}
 	}
 	
 	/**
@@ -985,81 +851,82 @@ public class Inventory implements Serializable {
 	 * @param amount   the amount (kg).
 	 */
 	public void retrieveAmountResource(int resource, double amount) {
-		if (amount < 0D) {
-			LogConsolidated.log(logger, Level.SEVERE, 30_000, sourceName, 
-					"[" + getOwner() + "] Cannot retrieve negative amount of resource: " + amount);
-		}
-
-		if (amount > 0D) {
+		ReentrantLock lock = lock();
+		try {
+			if (amount < 0D) {
+				LogConsolidated.log(logger, Level.SEVERE, 30_000, sourceName, 
+						"[" + getOwner() + "] Cannot retrieve negative amount of resource: " + amount);
+			}
 
-			if (amount <= getAmountResourceStored(resource, false)) {
+			if (amount > 0D) {
 
-				// Set modified cache values as dirty.
-				setAmountResourceCapacityCacheAllDirty(false);
-				setAmountResourceStoredCacheAllDirty(false);
-				setAllStoredAmountResourcesCacheDirty();
-				setTotalAmountResourcesStoredCacheDirty();
+				if (amount <= getAmountResourceStored(resource, false)) {
 
-				double remainingAmount = amount;
+					// Note: the cached totals are updated as the resource goes out, here and
+					// in the containers, see addStoredDelta()
+					double remainingAmount = amount;
 
-				// Retrieve from local resource storage.
-				double resourceStored = 0D;
-				if (resourceStorage != null) {
-					resourceStored += resourceStorage.getAmountResourceStored(resource);
-				}
-				double retrieveAmount = remainingAmount;
-				if (retrieveAmount > resourceStored) {
-					retrieveAmount = resourceStored;
-				}
-				if ((retrieveAmount > 0D) && (resourceStorage != null)) {
-					resourceStorage.retrieveAmountResource(resource, retrieveAmount);
-					remainingAmount -= retrieveAmount;
-				}
+					// Retrieve from local resource storage.
+					double resourceStored = 0D;
+					if (resourceStorage != null) {
+						resourceStored += resourceStorage.getAmountResourceStored(resource);
+					}
+					double retrieveAmount = remainingAmount;
+					if (retrieveAmount > resourceStored) {
+						retrieveAmount = resourceStored;
+					}
+					if ((retrieveAmount > 0D) && (resourceStorage != null)) {
+						retrieveLocal(resource, retrieveAmount);
+						remainingAmount -= retrieveAmount;
+					}
 
-				// Retrieve remaining resource from contained units.
-				if ((remainingAmount > 0D) && (containedUnitIDs != null)) {
-					for (Integer id : containedUnitIDs) {
-						Unit unit = unitManager.getUnitByID(id);					
-						if (unit instanceof Container) {
-							Inventory unitInventory = unit.getInventory();
-							double unitResourceStored = unitInventory.getAmountResourceStored(resource, false);
-							double unitRetrieveAmount = remainingAmount;
-							if (unitRetrieveAmount > unitResourceStored) {
-								unitRetrieveAmount = unitResourceStored;
-							}
-							if (unitRetrieveAmount > 0D) {
-								unitInventory.retrieveAmountResource(resource, unitRetrieveAmount);
-								remainingAmount -= unitRetrieveAmount;
+					// Retrieve remaining resource from contained units.
+					if ((remainingAmount > 0D) && (containedUnitIDs != null)) {
+						for (Integer id : containedUnitIDs) {
+							Unit unit = unitManager.getUnitByID(id);					
+							if (unit instanceof Container) {
+								Inventory unitInventory = unit.getInventory();
+								double unitResourceStored = unitInventory.getAmountResourceStored(resource, false);
+								double unitRetrieveAmount = remainingAmount;
+								if (unitRetrieveAmount > unitResourceStored) {
+									unitRetrieveAmount = unitResourceStored;
+								}
+								if (unitRetrieveAmount > 0D) {
+									unitInventory.retrieveAmountResource(resource, unitRetrieveAmount);
+									remainingAmount -= unitRetrieveAmount;
+								}
 							}
 						}
 					}
-				}
 
-				if (remainingAmount > SMALL_AMOUNT_COMPARISON) {
-					LogConsolidated.log(logger, Level.SEVERE, 30_000, sourceName,
-							"[" + getOwner() + "] " 
-							+ ResourceUtil.findAmountResourceName(resource)
-							+ " could not be totally retrieved. Remaining: " + remainingAmount);
-//					throw new IllegalStateException(ResourceUtil.findAmountResourceName(resource)
-//							+ " could not be totally retrieved. Remaining: " + remainingAmount);
-				}
+					if (remainingAmount > SMALL_AMOUNT_COMPARISON) {
+						LogConsolidated.log(logger, Level.SEVERE, 30_000, sourceName,
+								"[" + getOwner() + "] " 
+								+ ResourceUtil.findAmountResourceName(resource)
+								+ " could not be totally retrieved. Remaining: " + remainingAmount);
+	//					throw new IllegalStateException(ResourceUtil.findAmountResourceName(resource)
+	//							+ " could not be totally retrieved. Remaining: " + remainingAmount);
+					}
 
-				// Update caches.
-				updateAmountResourceCapacityCache(resource);
-				updateAmountResourceStoredCache(resource);
+					// Update caches.
+					updateAmountResourceCapacityCache(resource);
+					updateAmountResourceStoredCache(resource);
 
-				// Fire inventory event.
-				Unit o = getOwner();
-				if (o != null) {
-					o.fireUnitUpdate(UnitEventType.INVENTORY_RESOURCE_EVENT, resource);
-//							ResourceUtil.findAmountResource(resource));
+					// Fire inventory event.
+					Unit o = getOwner();
+					if (o != null) {
+						o.fireUnitUpdate(UnitEventType.INVENTORY_RESOURCE_EVENT, resource);
+	//							ResourceUtil.findAmountResource(resource));
+					}
+				} else {
+					LogConsolidated.log(logger, Level.SEVERE, 30_000, sourceName, 
+							"[" + getOwner() + "] Insufficient stored amount to retrieve "
+							+ ResourceUtil.findAmountResourceName(resource) + ". Storage Amount : "
+							+ getAmountResourceStored(resource, false) + " kg. Attempted Amount : " + amount + " kg");
 				}
-			} else {
-				LogConsolidated.log(logger, Level.SEVERE, 30_000, sourceName, 
-						"[" + getOwner() + "] Insufficient stored amount to retrieve "
-						+ ResourceUtil.findAmountResourceName(resource) + ". Storage Amount : "
-						+ getAmountResourceStored(resource, false) + " kg. Attempted Amount : " + amount + " kg");
 			}
+		} finally {
+			lock.unlock();
 		}
 	}
 
@@ -1070,129 +937,404 @@ public class Inventory implements Serializable {
 	 * @param amount   the amount (kg).
 	 */
 	public void retrieveAmountResource(AmountResource resource, double amount) {
-		retrieveAmountResource(resource.getID(), amount);
+		ReentrantLock lock = lock();
+		try {
+			retrieveAmountResource(resource.getID(), amount);
+		} finally {
+			lock.unlock();
+		}
 	}
 
 	/**
-	 * Adds a capacity to general capacity.
+	 * Stores an amount of a resource in the local resource storage and updates the
+	 * cached totals.
 	 * 
-	 * @param capacity amount capacity (kg).
+	 * @param resource the resource.
+	 * @param amount   the amount (kg).
 	 */
-	public void addGeneralCapacity(double capacity) {
-		generalCapacity += capacity;
-		// Mark amount resource capacity cache as dirty.
-		setAmountResourceCapacityCacheAllDirty(false);
+	private void storeLocal(int resource, double amount) {
+		AmountResource phaseResource = resourceStorage.getPhaseResourceStored(resource);
+		resourceStorage.storeAmountResource(resource, amount);
+		boolean capacityChanged = phaseResource != resourceStorage.getPhaseResourceStored(resource);
+		addStoredDelta(resource, amount, false, capacityChanged);
+		addMassDelta(amount);
 	}
 
 	/**
-	 * Gets the general capacity.
+	 * Retrieves an amount of a resource from the local resource storage and
+	 * updates the cached totals.
 	 * 
-	 * @return amount capacity (kg).
+	 * @param resource the resource.
+	 * @param amount   the amount (kg).
 	 */
-	public double getGeneralCapacity() {
-		return generalCapacity;
+	private void retrieveLocal(int resource, double amount) {
+		AmountResource phaseResource = resourceStorage.getPhaseResourceStored(resource);
+		resourceStorage.retrieveAmountResource(resource, amount);
+		boolean capacityChanged = phaseResource != resourceStorage.getPhaseResourceStored(resource);
+		addStoredDelta(resource, -amount, false, capacityChanged);
+		addMassDelta(-amount);
 	}
 
 	/**
-	 * Gets the mass stored in general capacity.
+	 * Applies a change in the amount of a resource held by this inventory, or by
+	 * one of its containers, to the cached totals and passes it on to the inventory
+	 * holding the owner if the owner is a container. The totals of a settlement
+	 * thus stay up to date without walking through its bags and barrels after
+	 * each transfer. The caches add atomically and the running totals are added
+	 * to under the lock of their inventory, one inventory at a time, so that
+	 * transfers made at once from different threads are all counted.
 	 * 
-	 * @param allowDirty will allow dirty (possibly out of date) results.
-	 * @return stored mass (kg).
+	 * @param resource        the resource.
+	 * @param delta           the change in the amount stored (kg).
+	 * @param inContainer     true if the change happened in a contained container.
+	 * @param capacityChanged true if the capacity for other resources has changed.
 	 */
-	public double getGeneralStoredMass(boolean allowDirty) {
-		return getItemResourceTotalMass(allowDirty) + getUnitTotalMass(allowDirty);
+	private void addStoredDelta(int resource, double delta, boolean inContainer, boolean capacityChanged) {
+
+		// Initialize amount resource caches if necessary.
+		if (storedCache == null) {
+			initializeAmountResourceStoredCache();
+		}
+		if (capacityCache == null) {
+			initializeAmountResourceCapacityCache();
+		}
+
+		storedCache.addIfClean(resource, delta);
+		if (inContainer) {
+			containersStoredCache.addIfClean(resource, delta);
+			if (capacityChanged) {
+				containersCapacityCache.setAllDirty();
+			}
+		}
+		else {
+			synchronized (this) {
+				if (!totalAmountResourcesStoredCacheDirty) {
+					totalAmountResourcesStoredCache += delta;
+				}
+			}
+		}
+
+		if (capacityChanged) {
+			capacityCache.setAllDirty();
+		}
+
+		if (delta < 0D) {
+			// The resource may have run out
+			allStoredAmountResourcesCacheDirty = true;
+		}
+		else if (allStoredARCache != null && !allStoredAmountResourcesCacheDirty) {
+			allStoredARCache.add(resource);
+		}
+
+		Inventory holder = getHoldingInventory();
+		if (holder != null && getOwner() instanceof Container) {
+			holder.addStoredDelta(resource, delta, true, capacityChanged);
+		}
 	}
 
 	/**
-	 * Gets the remaining general capacity available.
+	 * Applies a change in the mass held by this inventory to its total mass and to
+	 * the unit mass of the inventories holding it, all the way up. Only one
+	 * inventory is locked at a time.
 	 * 
-	 * @param allowDirty will allow dirty (possibly out of date) results.
-	 * @return amount capacity (kg).
+	 * @param delta the change in mass (kg).
 	 */
-	public double getRemainingGeneralCapacity(boolean allowDirty) {
-		double result = generalCapacity - getGeneralStoredMass(allowDirty);
-		double containerUnitGeneralCapacityLimit = getContainerUnitGeneralCapacityLimit(allowDirty);
-		if (result > containerUnitGeneralCapacityLimit) {
-			result = containerUnitGeneralCapacityLimit;
+	private void addMassDelta(double delta) {
+		synchronized (this) {
+			if (!totalInventoryMassCacheDirty) {
+				totalInventoryMassCache += delta;
+			}
 		}
-		return result;
-	}
 
-	public boolean hasItemResource(int id) {
-//		return hasItemResource(ItemResourceUtil.findItemResource(id));
-		boolean result = false;
-		if ((containedItemResources != null) && containedItemResources.containsKey(id)) {
-			if (containedItemResources.get(id) > 0) {
-				result = true;
-			}
-		} else if (containedUnitIDs != null) {
-			Iterator<Integer> i = containedUnitIDs.iterator();
-			while (!result && i.hasNext()) {
-				if (unitManager.getUnitByID(i.next()).getInventory().hasItemResource(id)) {
-					result = true;
+		Inventory holder = getHoldingInventory();
+		if (holder != null) {
+			synchronized (holder) {
+				if (!holder.unitTotalMassCacheDirty) {
+					holder.unitTotalMassCache += delta;
 				}
 			}
+			// The general capacity left bounds the capacity of every resource
+			if (holder.capacityCache != null) {
+				holder.capacityCache.setAllDirty();
+			}
+			holder.addMassDelta(delta);
 		}
-		return result;
 	}
 
 	/**
-	 * Gets the number of an item resource in storage.
+	 * Gets the inventory holding the owner of this inventory.
 	 * 
-	 * @param resource the resource.
-	 * @return number of resources.
+	 * @return the inventory or null if the owner is not held by anything.
 	 */
-	public int getItemResourceNum(int id) {
-		int result = 0;
-		if ((containedItemResources != null) && containedItemResources.containsKey(id)) {
-			result += containedItemResources.get(id);
+	private Inventory getHoldingInventory() {
+		Unit o = getOwner();
+		if (o == null || o instanceof MarsSurface) {
+			return null;
 		}
-		return result;
+		Unit cu = o.getContainerUnit();
+		if (cu == null) {
+			return null;
+		}
+		Inventory inv = cu.getInventory();
+		// The owner may have been retrieved without its container being reset
+		if (inv == null || !inv.isIndexed(o)) {
+			return null;
+		}
+		return inv;
 	}
 
 	/**
-	 * Gets the number of an item resource in storage.
+	 * Gets the unit at the root of the containment tree of this inventory, i.e.
+	 * the topmost unit holding its owner short of the surface of Mars.
 	 * 
-	 * @param resource the resource.
-	 * @return number of resources.
+	 * @return the root unit or null if there is no owner.
 	 */
-	public int getItemResourceNum(ItemResource resource) {
-		int result = 0;
-		if ((containedItemResources != null) && containedItemResources.containsKey(resource.getID())) {
-			result += containedItemResources.get(resource.getID());
+	private Unit getTreeRoot() {
+		Unit root = getOwner();
+		if (root == null) {
+			return null;
 		}
-		return result;
-	}
-
-    /**
-     * Gets a set of all the item resources in storage.
-     * 
-     * @return set of item resources.
-     */
-    public Set<ItemResource> getAllItemRsStored() {
-		Set<ItemResource> set = ConcurrentHashMap.newKeySet();
-		if (containedItemResources != null
-				&& !containedItemResources.isEmpty()) {
-			for (int ir : containedItemResources.keySet()) {
-				set.add(ItemResourceUtil.findItemResource(ir));
-			}
+		Unit cu = root.getContainerUnit();
+		while (cu != null && cu != root && !(cu instanceof MarsSurface)) {
+			root = cu;
+			cu = root.getContainerUnit();
 		}
-		return set;
-    }
+		return root;
+	}
 
 	/**
-	 * Gets a set of all the item resources in storage.
+	 * Gets the lock of the containment tree of this inventory.
+	 * 
+	 * @return the lock of the root inventory.
+	 */
+	private ReentrantLock getTreeLock() {
+		Unit root = getTreeRoot();
+		Inventory inv = (root != null) ? root.getInventory() : null;
+		return (inv != null) ? inv.treeLock : treeLock;
+	}
+
+	/**
+	 * Locks the containment tree of this inventory. The owner may be moved to
+	 * another tree while waiting, in which case the lock of the new tree is taken
+	 * instead.
+	 * 
+	 * @return the lock held, to be released by the caller.
+	 */
+	private ReentrantLock lock() {
+		while (true) {
+			ReentrantLock lock = getTreeLock();
+			lock.lock();
+			if (lock == getTreeLock()) {
+				return lock;
+			}
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Locks the containment trees of this inventory and of another one when a unit
+	 * moves between them. The two locks are always taken in the order of the
+	 * identifiers of the roots, so that two moves the other way round cannot
+	 * deadlock.
+	 * 
+	 * @param other the other inventory.
+	 * @return the locks held, to be released with {@link #unlock(ReentrantLock[])}.
+	 */
+	private ReentrantLock[] lock(Inventory other) {
+		if (other == null) {
+			return new ReentrantLock[] { lock() };
+		}
+		while (true) {
+			Unit a = getTreeRoot();
+			Unit b = other.getTreeRoot();
+			ReentrantLock first = getTreeLock();
+			ReentrantLock second = other.getTreeLock();
+			if (a != null && b != null && a.getIdentifier() > b.getIdentifier()) {
+				ReentrantLock l = first;
+				first = second;
+				second = l;
+			}
+			first.lock();
+			second.lock();
+			if (getTreeRoot() == a && other.getTreeRoot() == b) {
+				return new ReentrantLock[] { first, second };
+			}
+			second.unlock();
+			first.unlock();
+		}
+	}
+
+	/**
+	 * Releases the locks taken by {@link #lock(Inventory)}.
+	 * 
+	 * @param locks the locks held.
+	 */
+	private static void unlock(ReentrantLock[] locks) {
+		for (int i = locks.length - 1; i >= 0; i--) {
+			locks[i].unlock();
+		}
+	}
+
+	/**
+	 * Adds a capacity to general capacity.
+	 * 
+	 * @param capacity amount capacity (kg).
+	 */
+	public void addGeneralCapacity(double capacity) {
+		ReentrantLock lock = lock();
+		try {
+			generalCapacity += capacity;
+			// Mark amount resource capacity cache as dirty.
+			setAmountResourceCapacityCacheAllDirty(false);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Gets the general capacity.
+	 * 
+	 * @return amount capacity (kg).
+	 */
+	public double getGeneralCapacity() {
+		ReentrantLock lock = lock();
+		try {
+			return generalCapacity;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Gets the mass stored in general capacity.
+	 * 
+	 * @param allowDirty will allow dirty (possibly out of date) results.
+	 * @return stored mass (kg).
+	 */
+	public double getGeneralStoredMass(boolean allowDirty) {
+		ReentrantLock lock = lock();
+		try {
+			return getItemResourceTotalMass(allowDirty) + getUnitTotalMass(allowDirty);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Gets the remaining general capacity available.
+	 * 
+	 * @param allowDirty will allow dirty (possibly out of date) results.
+	 * @return amount capacity (kg).
+	 */
+	public double getRemainingGeneralCapacity(boolean allowDirty) {
+		ReentrantLock lock = lock();
+		try {
+			double result = generalCapacity - getGeneralStoredMass(allowDirty);
+			double containerUnitGeneralCapacityLimit = getContainerUnitGeneralCapacityLimit(allowDirty);
+			if (result > containerUnitGeneralCapacityLimit) {
+				result = containerUnitGeneralCapacityLimit;
+			}
+			return result;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	public boolean hasItemResource(int id) {
+		ReentrantLock lock = lock();
+		try {
+	//		return hasItemResource(ItemResourceUtil.findItemResource(id));
+			boolean result = false;
+			if ((containedItemResources != null) && containedItemResources.containsKey(id)) {
+				if (containedItemResources.get(id) > 0) {
+					result = true;
+				}
+			} else if (containedUnitIDs != null) {
+				Iterator<Integer> i = containedUnitIDs.iterator();
+				while (!result && i.hasNext()) {
+					if (unitManager.getUnitByID(i.next()).getInventory().hasItemResource(id)) {
+						result = true;
+					}
+				}
+			}
+			return result;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Gets the number of an item resource in storage.
+	 * 
+	 * @param resource the resource.
+	 * @return number of resources.
+	 */
+	public int getItemResourceNum(int id) {
+		ReentrantLock lock = lock();
+		try {
+			int result = 0;
+			if ((containedItemResources != null) && containedItemResources.containsKey(id)) {
+				result += containedItemResources.get(id);
+			}
+			return result;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Gets the number of an item resource in storage.
+	 * 
+	 * @param resource the resource.
+	 * @return number of resources.
+	 */
+	public int getItemResourceNum(ItemResource resource) {
+		ReentrantLock lock = lock();
+		try {
+			int result = 0;
+			if ((containedItemResources != null) && containedItemResources.containsKey(resource.getID())) {
+				result += containedItemResources.get(resource.getID());
+			}
+			return result;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+    /**
+     * Gets a set of all the item resources in storage.
+     * 
+     * @return set of item resources.
+     */
+    public Set<ItemResource> getAllItemRsStored() {
+		Set<ItemResource> set = ConcurrentHashMap.newKeySet();
+		if (containedItemResources != null
+				&& !containedItemResources.isEmpty()) {
+			for (int ir : containedItemResources.keySet()) {
+				set.add(ItemResourceUtil.findItemResource(ir));
+			}
+		}
+		return set;
+    }
+
+	/**
+	 * Gets a set of all the item resources in storage.
 	 * 
 	 * @return set of item resources.
 	 */
 	public Set<Integer> getAllItemResourcesStored() {
-		Set<Integer> result = null;
-		if (containedItemResources != null) {
-			result = containedItemResources.keySet();
-		} else {
-			result = ConcurrentHashMap.newKeySet();
+		ReentrantLock lock = lock();
+		try {
+			Set<Integer> result = null;
+			if (containedItemResources != null) {
+				result = containedItemResources.keySet();
+			} else {
+				result = ConcurrentHashMap.newKeySet();
+			}
+			return result;
+		} finally {
+			lock.unlock();
 		}
-		return result;
 	}
 
 	/**
@@ -1212,38 +1354,43 @@ public class Inventory implements Serializable {
 	 * @param number   the number of resources to store.
 	 */
 	public void storeItemResources(int resource, int number) {
+		ReentrantLock lock = lock();
+		try {
+			if (number < 0) {
+				throw new IllegalStateException("Cannot store negative number of resources.");
+			}
 
-		if (number < 0) {
-			throw new IllegalStateException("Cannot store negative number of resources.");
-		}
-
-		double totalMass = ItemResourceUtil.findItemResource(resource).getMassPerItem() * number;
+			double totalMass = ItemResourceUtil.findItemResource(resource).getMassPerItem() * number;
 
-		if (number > 0) {
-			if (totalMass <= getRemainingGeneralCapacity(false)) {
+			if (number > 0) {
+				if (totalMass <= getRemainingGeneralCapacity(false)) {
 
-				// Mark caches as dirty.
-				setAmountResourceCapacityCacheAllDirty(false);
-				setItemResourceTotalMassCacheDirty();
+					// Mark caches as dirty.
+					setAmountResourceCapacityCacheAllDirty(false);
+					itemResourceTotalMassCacheDirty = true;
+					addMassDelta(totalMass);
 
-				// Initialize contained item resources if necessary.
-				if (containedItemResources == null) {
-					containedItemResources = new ConcurrentHashMap<Integer, Integer>();
-				}
+					// Initialize contained item resources if necessary.
+					if (containedItemResources == null) {
+						containedItemResources = new ConcurrentHashMap<Integer, Integer>();
+					}
 
-				int totalNum = number + getItemResourceNum(resource);
-				if (totalNum > 0) {
-					containedItemResources.put(resource, totalNum);
-				}
+					int totalNum = number + getItemResourceNum(resource);
+					if (totalNum > 0) {
+						containedItemResources.put(resource, totalNum);
+					}
 
-				// Fire inventory event.
-				Unit o = getOwner();
-				if (o != null) {
-					o.fireUnitUpdate(UnitEventType.INVENTORY_RESOURCE_EVENT, resource);
+					// Fire inventory event.
+					Unit o = getOwner();
+					if (o != null) {
+						o.fireUnitUpdate(UnitEventType.INVENTORY_RESOURCE_EVENT, resource);
+					}
+				} else {
+					throw new IllegalStateException("Could not store item resources.");
 				}
-			} else {
-				throw new IllegalStateException("Could not store item resources.");
 			}
+		} finally {
+			lock.unlock();
 		}
 	}
 
@@ -1255,54 +1402,59 @@ public class Inventory implements Serializable {
 	 * @param number   the number of resources to retrieve.
 	 */
 	public void retrieveItemResources(int resource, int number) {
-
-		if (number < 0) {
-			throw new IllegalStateException("Cannot retrieve negative number of resources.");
-		}
+		ReentrantLock lock = lock();
+		try {
+			if (number < 0) {
+				throw new IllegalStateException("Cannot retrieve negative number of resources.");
+			}
 		
-//		String name = ItemResourceUtil.findItemResource(resource).getName();
+	//		String name = ItemResourceUtil.findItemResource(resource).getName();
 		
-		if (number > 0) {
-			if (number <= getItemResourceNum(resource)) {
-
-				int remainingNum = number;
-
-				// Mark caches as dirty.
-				setAmountResourceCapacityCacheAllDirty(false);
-				setItemResourceTotalMassCacheDirty();
-
-				// Retrieve resources from local storage.
-				if ((containedItemResources != null) && containedItemResources.containsKey(resource)) {
-					int storedLocal = containedItemResources.get(resource);
-					int retrieveNum = remainingNum;
-					if (retrieveNum > storedLocal) {
-						retrieveNum = storedLocal;
-					}
-					int remainingLocal = storedLocal - retrieveNum;
-					if (remainingLocal > 0) {
-						containedItemResources.put(resource, remainingLocal);
-					} else {
-						containedItemResources.remove(resource);
+			if (number > 0) {
+				if (number <= getItemResourceNum(resource)) {
+
+					int remainingNum = number;
+
+					// Mark caches as dirty.
+					setAmountResourceCapacityCacheAllDirty(false);
+					itemResourceTotalMassCacheDirty = true;
+					addMassDelta(-ItemResourceUtil.findItemResource(resource).getMassPerItem() * number);
+
+					// Retrieve resources from local storage.
+					if ((containedItemResources != null) && containedItemResources.containsKey(resource)) {
+						int storedLocal = containedItemResources.get(resource);
+						int retrieveNum = remainingNum;
+						if (retrieveNum > storedLocal) {
+							retrieveNum = storedLocal;
+						}
+						int remainingLocal = storedLocal - retrieveNum;
+						if (remainingLocal > 0) {
+							containedItemResources.put(resource, remainingLocal);
+						} else {
+							containedItemResources.remove(resource);
+						}
+						remainingNum -= retrieveNum;
 					}
-					remainingNum -= retrieveNum;
-				}
 
-				// Fire inventory event.
-				Unit o = getOwner();
-				if (o != null) {
-					o.fireUnitUpdate(UnitEventType.INVENTORY_RESOURCE_EVENT, resource);//ItemResourceUtil.findItemResource(resource));
-				}
+					// Fire inventory event.
+					Unit o = getOwner();
+					if (o != null) {
+						o.fireUnitUpdate(UnitEventType.INVENTORY_RESOURCE_EVENT, resource);//ItemResourceUtil.findItemResource(resource));
+					}
 
-				if (remainingNum > 0) {
-					throw new IllegalStateException(
-							ItemResourceUtil.findItemResource(resource).getName() 
-							+ " could not be totally retrieved. Remaining: " + remainingNum);
+					if (remainingNum > 0) {
+						throw new IllegalStateException(
+								ItemResourceUtil.findItemResource(resource).getName() 
+								+ " could not be totally retrieved. Remaining: " + remainingNum);
+					}
+				} else {
+					throw new IllegalStateException("Insufficient stored number to retrieve " 
+							+ ItemResourceUtil.findItemResource(resource).getName() 
+							+ ", stored: " + getItemResourceNum(resource) + ", attempted: " + number);
 				}
-			} else {
-				throw new IllegalStateException("Insufficient stored number to retrieve " 
-						+ ItemResourceUtil.findItemResource(resource).getName() 
-						+ ", stored: " + getItemResourceNum(resource) + ", attempted: " + number);
 			}
+		} finally {
+			lock.unlock();
 		}
 	}
 
@@ -1313,7 +1465,12 @@ public class Inventory implements Serializable {
 	 * @return total mass (kg).
 	 */
 	public double getUnitTotalMass(boolean allowDirty) {
-		return getUnitTotalMassCache(allowDirty);
+		ReentrantLock lock = lock();
+		try {
+			return getUnitTotalMassCache(allowDirty);
+		} finally {
+			lock.unlock();
+		}
 	}
 
 	/**
@@ -1322,15 +1479,12 @@ public class Inventory implements Serializable {
 	 * @return Collection
 	 */
 	public Collection<EVASuit> getContainedEVASuits() {
-		List<EVASuit> result = new CopyOnWriteArrayList<>();
-		if (containedUnitIDs != null) {
-			for (Integer id : containedUnitIDs) {
-				Equipment e = unitManager.getEquipmentByID(id);
-				if (e instanceof EVASuit)
-					result.add((EVASuit)e);
-			}
+		ReentrantLock lock = lock();
+		try {
+			return collectUnits(EVASuit.class);
+		} finally {
+			lock.unlock();
 		}
-		return result;
 	}
 	
 	/**
@@ -1339,15 +1493,12 @@ public class Inventory implements Serializable {
 	 * @return Collection
 	 */
 	public Collection<Bag> getContainedBags() {
-		List<Bag> result = new CopyOnWriteArrayList<>();
-		if (containedUnitIDs != null) {
-			for (Integer id : containedUnitIDs) {
-				Equipment e = unitManager.getEquipmentByID(id);
-				if (e instanceof Bag)
-					result.add((Bag)e);
-			}
+		ReentrantLock lock = lock();
+		try {
+			return collectUnits(Bag.class);
+		} finally {
+			lock.unlock();
 		}
-		return result;
 	}
 	
 	/**
@@ -1356,15 +1507,12 @@ public class Inventory implements Serializable {
 	 * @return Collection
 	 */
 	public Collection<SpecimenBox> getContainedSpecimenBoxes() {
-		List<SpecimenBox> result = new CopyOnWriteArrayList<>();
-		if (containedUnitIDs != null) {
-			for (Integer id : containedUnitIDs) {
-				Equipment e = unitManager.getEquipmentByID(id);
-				if (e instanceof SpecimenBox)
-					result.add((SpecimenBox)e);
-			}
+		ReentrantLock lock = lock();
+		try {
+			return collectUnits(SpecimenBox.class);
+		} finally {
+			lock.unlock();
 		}
-		return result;
 	}
 	
 	/**
@@ -1373,13 +1521,18 @@ public class Inventory implements Serializable {
 	 * @return Collection of all units
 	 */ 
 	public Collection<Unit> getContainedUnits() {
-		List<Unit> result = new CopyOnWriteArrayList<>();
-		if (containedUnitIDs != null) {
-			for (Integer id : containedUnitIDs) {
-				result.add(unitManager.getUnitByID(id));
+		ReentrantLock lock = lock();
+		try {
+			List<Unit> result = new CopyOnWriteArrayList<>();
+			if (containedUnitIDs != null) {
+				for (Integer id : containedUnitIDs) {
+					result.add(unitManager.getUnitByID(id));
+				}
 			}
+			return result;
+		} finally {
+			lock.unlock();
 		}
-		return result;
 	}
 
 	/**
@@ -1388,15 +1541,12 @@ public class Inventory implements Serializable {
 	 * @return Collection of all people
 	 */
 	public Collection<Person> getContainedPeople() {
-		List<Person> result = new CopyOnWriteArrayList<>();
-		if (containedUnitIDs != null) {
-			for (Integer id : containedUnitIDs) {
-				Person p = unitManager.getPersonByID(id);
-				if (p != null)
-					result.add(p);
-			}
+		ReentrantLock lock = lock();
+		try {
+			return collectUnits(Person.class);
+		} finally {
+			lock.unlock();
 		}
-		return result;
 	}
 
 	/**
@@ -1405,15 +1555,12 @@ public class Inventory implements Serializable {
 	 * @return the number of people contained
 	 */
 	public int getNumContainedPeople() {
-		int result = 0;
-		if (containedUnitIDs != null) {
-			for (Integer id : containedUnitIDs) {
-				Person p = unitManager.getPersonByID(id);
-				if (p != null)
-					result++;
-			}
+		ReentrantLock lock = lock();
+		try {
+			return countUnits(Person.class);
+		} finally {
+			lock.unlock();
 		}
-		return result;
 	}
 	
 	/**
@@ -1422,15 +1569,12 @@ public class Inventory implements Serializable {
 	 * @return Collection of all robots
 	 */
 	public Collection<Robot> getContainedRobots() {
-		List<Robot> result = new CopyOnWriteArrayList<>();
-		if (containedUnitIDs != null) {
-			for (Integer id : containedUnitIDs) {
-				Robot r = unitManager.getRobotByID(id);
-				if (r != null)
-					result.add(r);
-			}
+		ReentrantLock lock = lock();
+		try {
+			return collectUnits(Robot.class);
+		} finally {
+			lock.unlock();
 		}
-		return result;
 	}
 	
 	/**
@@ -1439,15 +1583,12 @@ public class Inventory implements Serializable {
 	 * @return a number of robots contained
 	 */
 	public int getNumContainedRobots() {
-		int result = 0;
-		if (containedUnitIDs != null) {
-			for (Integer id : containedUnitIDs) {
-				Robot r = unitManager.getRobotByID(id);
-				if (r != null)
-					result++;
-			}
+		ReentrantLock lock = lock();
+		try {
+			return countUnits(Robot.class);
+		} finally {
+			lock.unlock();
 		}
-		return result;
 	}
 	
 	/**
@@ -1456,15 +1597,12 @@ public class Inventory implements Serializable {
 	 * @return Collection of all vehicles
 	 */
 	public Collection<Vehicle> getContainedVehicles() {
-		List<Vehicle> result = new CopyOnWriteArrayList<>();
-		if (containedUnitIDs != null) {
-			for (Integer id : containedUnitIDs) {
-				Vehicle v = unitManager.getVehicleByID(id);
-				if (v != null)
-					result.add(v);
-			}
+		ReentrantLock lock = lock();
+		try {
+			return collectUnits(Vehicle.class);
+		} finally {
+			lock.unlock();
 		}
-		return result;
 	}
 	
 	/**
@@ -1473,15 +1611,12 @@ public class Inventory implements Serializable {
 	 * @return number of vehicles
 	 */
 	public int getNumContainedVehicles() {
-		int result = 0;
-		if (containedUnitIDs != null) {
-			for (Integer id : containedUnitIDs) {
-				Vehicle v = unitManager.getVehicleByID(id);
-				if (v != null)
-					result++;
-			}
+		ReentrantLock lock = lock();
+		try {
+			return countUnits(Vehicle.class);
+		} finally {
+			lock.unlock();
 		}
-		return result;
 	}
 	
 	/**
@@ -1490,30 +1625,58 @@ public class Inventory implements Serializable {
 	 * @return Collection of all units
 	 */
 	public Collection<Integer> getContainedUnitIDs() {
-		Collection<Integer> result = null;
-		if (containedUnitIDs != null) {
-			result = new CopyOnWriteArrayList<>(containedUnitIDs);
-		} else {
-			result = new CopyOnWriteArrayList<>();
+		ReentrantLock lock = lock();
+		try {
+			Collection<Integer> result = null;
+			if (containedUnitIDs != null) {
+				result = new CopyOnWriteArrayList<>(containedUnitIDs);
+			} else {
+				result = new CopyOnWriteArrayList<>();
+			}
+			return result;
+		} finally {
+			lock.unlock();
 		}
-		return result;
 	}
 	
 	public Collection<Unit> getAllContainedUnits() {
-		return getContainedUnits();
+		ReentrantLock lock = lock();
+		try {
+			return getContainedUnits();
+		} finally {
+			lock.unlock();
+		}
 	}
 
 	public Collection<Integer> getAllContainedUnitIDs() {
-		return containedUnitIDs;
+		ReentrantLock lock = lock();
+		try {
+			return containedUnitIDs;
+		} finally {
+			lock.unlock();
+		}
 	}
 	
 	public void addAContainedUnitID(Integer id) {
-		// Initialize containedUnitIDs if necessary.
-		if (containedUnitIDs == null) {
-			containedUnitIDs = new ConcurrentLinkedQueue<>();
-		}
-		if (!containedUnitIDs.contains(id)) {
-			containedUnitIDs.add(id);
+		ReentrantLock lock = lock();
+		try {
+			// Initialize containedUnitIDs if necessary.
+			if (containedUnitIDs == null) {
+				containedUnitIDs = new ConcurrentLinkedQueue<>();
+			}
+			if (!containedUnitIDs.contains(id)) {
+				containedUnitIDs.add(id);
+				Unit unit = unitManager.getUnitByID(id);
+				if (unit != null) {
+					indexUnit(unit);
+				}
+				else {
+					// Rebuild it once the unit is known
+					clearUnitIndex();
+				}
+			}
+		} finally {
+			lock.unlock();
 		}
 	}
 	
@@ -1524,26 +1687,21 @@ public class Inventory implements Serializable {
 	 * @return true if unit is in storage.
 	 */
 	public boolean containsUnit(Unit unit) {
-		Integer id = unit.getIdentifier();
-		boolean result = false;
-		if (containedUnitIDs != null) {
-			result = containedUnitIDs.contains(id);
+		ReentrantLock lock = lock();
+		try {
+			Integer id = unit.getIdentifier();
+			boolean result = false;
+			if (containedUnitIDs != null) {
+				result = containedUnitIDs.contains(id);
+			}
+			return result;
+		} finally {
+			lock.unlock();
 		}
-		return result;
 	}
 
 	private boolean containsUnitClassLocal(int typeID) {
-		Class<? extends Unit> unitClass = EquipmentFactory.getEquipmentClass(typeID);
-		if (containedUnitIDs != null && !containedUnitIDs.isEmpty()) {
-			Iterator<Unit> i = getContainedUnits().iterator();
-			while (i.hasNext()) {
-				Unit unit = i.next();
-				if (unitClass.isInstance(unit)) {
-					return true;
-				}
-			}
-		}
-		return false;
+		return countUnits(EquipmentFactory.getEquipmentClass(typeID)) > 0;
 	}
 
 	/**
@@ -1553,25 +1711,21 @@ public class Inventory implements Serializable {
 	 * @return true if class of unit is in storage.
 	 */
 	private boolean containsUnitClassLocal(Class<? extends Unit> unitClass) {
-		boolean result = false;
-		if (containedUnitIDs != null) {
-			Iterator<Unit> i = getContainedUnits().iterator();
-			while (!result && i.hasNext()) {
-				if (unitClass.isInstance(i.next())) {
-					return true;
-				}
-			}
-		}
-		return result;
+		return countUnits(unitClass) > 0;
 	}
 
 	public boolean containsUnitClass(int typeID) {
-		boolean result = false;
-		// Check if unit of class is in inventory.
-		if (containsUnitClassLocal(typeID)) {
-			return true;
+		ReentrantLock lock = lock();
+		try {
+			boolean result = false;
+			// Check if unit of class is in inventory.
+			if (containsUnitClassLocal(typeID)) {
+				return true;
+			}
+			return result;
+		} finally {
+			lock.unlock();
 		}
-		return result;
 	}
 
 	/**
@@ -1581,12 +1735,17 @@ public class Inventory implements Serializable {
 	 * @return if class of unit is in storage.
 	 */
 	public boolean containsUnitClass(Class<? extends Unit> unitClass) {
-		boolean result = false;
-		// Check if unit of class is in inventory.
-		if (containsUnitClassLocal(unitClass)) {
-			return true;
+		ReentrantLock lock = lock();
+		try {
+			boolean result = false;
+			// Check if unit of class is in inventory.
+			if (containsUnitClassLocal(unitClass)) {
+				return true;
+			}
+			return result;
+		} finally {
+			lock.unlock();
 		}
-		return result;
 	}
 
 //	public Unit findUnitOfClass(int id) {
@@ -1607,9 +1766,9 @@ public class Inventory implements Serializable {
 //	}
 
 	public Equipment findAnEmptyEquipment(Class<? extends Unit> unitClass) {
-		if (containedUnitIDs != null) {
-			for (Integer id : containedUnitIDs) {
-				Equipment unit = unitManager.getEquipmentByID(id);
+		ReentrantLock lock = lock();
+		try {
+			for (Equipment unit : collectUnits(Equipment.class)) {
 				if (unitClass.isInstance(unit)) {
 					Inventory inv = unit.getInventory();
 					// It must be empty inside
@@ -1618,39 +1777,26 @@ public class Inventory implements Serializable {
 					}
 				}
 			}
-		}	
-		return null;
+			return null;
+		} finally {
+			lock.unlock();
+		}
 	}
 	
 	/**
-	 * Finds an unit of a given class in storage.
+	 * Finds an unit of a given class in storage. See {@link #firstUnit(Class)}
+	 * for which one is picked when several match.
 	 * 
 	 * @param unitClass the unit class.
 	 * @return the instance of the unit class or null if none.
 	 */
 	public Unit findUnitOfClass(Class<? extends Unit> unitClass) {
-		if (containedUnitIDs != null) {
-			for (Integer id : containedUnitIDs) {
-				Unit unit = unitManager.getUnitByID(id);
-				if (unitClass.isInstance(unit)) {
-					return unit;
-				}
-			}
+		ReentrantLock lock = lock();
+		try {
+			return firstUnit(unitClass);
+		} finally {
+			lock.unlock();
 		}
-		return null;
-		
-//		Unit result = null;
-////		if (containsUnitClass(unitClass)) {
-//			Iterator<Unit> i = getContainedUnits().iterator();
-//			while ((result == null) && i.hasNext()) {
-//				Unit unit = i.next();
-//				if (unitClass.isInstance(unit)) {
-//					result = unit;
-//					break;
-//				}
-//			}
-////		}
-//		return result;
 	}
 
 	/**
@@ -1659,26 +1805,12 @@ public class Inventory implements Serializable {
 	 * @return the instance of EVAsuit or null if none.
 	 */
 	public EVASuit findAnEVAsuit() {
-		if (containedUnitIDs != null) {
-			for (Integer id : containedUnitIDs) {
-				Equipment e = unitManager.getEquipmentByID(id);
-				if (e instanceof EVASuit)
-					return (EVASuit)e;
-			}
+		ReentrantLock lock = lock();
+		try {
+			return firstUnit(EVASuit.class);
+		} finally {
+			lock.unlock();
 		}
-		return null;
-		
-//		EVASuit result = null;
-////		if (containsUnitClass(EVASuit.class)) {
-//			Iterator<Unit> i = getContainedUnits().iterator();
-//			while ((result == null) && i.hasNext()) {
-//				Unit unit = i.next();
-//				if (EVASuit.class.isInstance(unit)) {
-//					return result;
-//				}
-//			}
-////		}
-//		return result;
 	}
 
 	/**
@@ -1687,28 +1819,13 @@ public class Inventory implements Serializable {
 	 * @return the instance of SpecimenBox or null if none.
 	 */
 	public SpecimenBox findASpecimenBox() {
-//		List<SpecimenBox> result = new CopyOnWriteArrayList<>();
-		if (containedUnitIDs != null) {
-			for (Integer id : containedUnitIDs) {
-				Equipment e = unitManager.getEquipmentByID(id);
-				if (e instanceof SpecimenBox)
-					return (SpecimenBox)e;
-			}
+		ReentrantLock lock = lock();
+		try {
+			return firstUnit(SpecimenBox.class);
+		} finally {
+			lock.unlock();
 		}
-		return null;
-		
-//		SpecimenBox result = null;
-////		if (containsUnitClass(SpecimenBox.class)) {
-//			Iterator<SpecimenBox> i = getContainedSpecimenBoxes().iterator();
-//			while ((result == null) && i.hasNext()) {
-//				SpecimenBox unit = i.next();
-//				if (SpecimenBox.class.isInstance(unit)) {
-//					return result;
-//				}
-//			}
-////		}
-//		return result;
-	}	
+	}
 	
 	/**
 	 * Finds a bag in storage.
@@ -1717,41 +1834,23 @@ public class Inventory implements Serializable {
 	 * @return the instance of SpecimenBox or null if none.
 	 */
 	public Bag findABag(boolean empty) {
-//		List<Bag> result = new CopyOnWriteArrayList<>();
-		if (containedUnitIDs != null) {
-			for (Integer id : containedUnitIDs) {
-				Equipment e = unitManager.getEquipmentByID(id);
-				if (e instanceof Bag) {
-					if (empty) {
-						Inventory inv = e.getInventory();
-						// It must be empty inside
-						if ((inv != null) && inv.isEmpty(false)) {
-							return (Bag)e;
-						}
-					}
-					else
-						return (Bag)e;
+		ReentrantLock lock = lock();
+		try {
+			if (!empty) {
+				return firstUnit(Bag.class);
+			}
+			for (Bag b : collectUnits(Bag.class)) {
+				Inventory inv = b.getInventory();
+				// It must be empty inside
+				if ((inv != null) && inv.isEmpty(false)) {
+					return b;
 				}
 			}
+			return null;
+		} finally {
+			lock.unlock();
 		}
-		return null;
-							
-//		Bag result = null;
-////		if (containsUnitClass(Bag.class)) {
-//			Iterator<Bag> i = getContainedBags().iterator();
-//			while ((result == null) && i.hasNext()) {
-//				Bag b = i.next();
-////				if (Bag.class.isInstance(b)) {
-//					Inventory inv = b.getInventory();
-//					// It must be empty inside
-//					if ((inv != null) && inv.isEmpty(false)) {
-//						return result;
-//					}
-////				}
-//			}
-////		}
-//		return result;
-	}	
+	}
 	
 	
 	/**
@@ -1762,20 +1861,19 @@ public class Inventory implements Serializable {
 	 * @return
 	 */
 	public Collection<Unit> findAllUnitsOfClass(int typeID) {	
-		Collection<Unit> result = new ConcurrentLinkedQueue<Unit>();
-		if (containedUnitIDs != null && !containedUnitIDs.isEmpty()) {
-			Iterator<Unit> i = getContainedUnits().iterator();
-			while (i.hasNext()) {
-				Unit unit = i.next();
-				if (unit instanceof Equipment) {
-					if (((Equipment)unit).getEquipmentType() == EquipmentType.convertID2Enum(typeID)) {
-						result.add(unit);
-					}
+		ReentrantLock lock = lock();
+		try {
+			EquipmentType type = EquipmentType.convertID2Enum(typeID);
+			Collection<Unit> result = new ArrayList<>();
+			for (Equipment e : collectUnits(Equipment.class)) {
+				if (e.getEquipmentType() == type) {
+					result.add(e);
 				}
 			}
+			return result;
+		} finally {
+			lock.unlock();
 		}
-		
-		return result;
 	}
 
 	/**
@@ -1785,15 +1883,12 @@ public class Inventory implements Serializable {
 	 * @return collection of units or empty collection if none.
 	 */
 	public <T extends Unit> Collection<Unit> findAllUnitsOfClass(Class<T> unitClass) {
-		Collection<Unit> result = new ConcurrentLinkedQueue<Unit>();
-		if (containsUnitClass(unitClass)) {
-			for (Unit unit : getContainedUnits()) {
-				if (unitClass.isInstance(unit)) {
-					result.add(unit);
-				}
-			}
+		ReentrantLock lock = lock();
+		try {
+			return new ArrayList<>(collectUnits(unitClass));
+		} finally {
+			lock.unlock();
 		}
-		return result;
 	}
 
 	/**
@@ -1802,15 +1897,12 @@ public class Inventory implements Serializable {
 	 * @return collection of equipment or empty collection if none.
 	 */
 	public Collection<Equipment> findAllEquipment() {
-		Collection<Equipment> result = new ConcurrentLinkedQueue<>();
-		if (containedUnitIDs != null) {
-			for (Integer id : containedUnitIDs) {
-				Equipment e = unitManager.getEquipmentByID(id);
-				if (e != null) 
-					result.add(e);
-			}
+		ReentrantLock lock = lock();
+		try {
+			return collectUnits(Equipment.class);
+		} finally {
+			lock.unlock();
 		}
-		return result;
 	}
 	
 	/**
@@ -1819,15 +1911,17 @@ public class Inventory implements Serializable {
 	 * @return collection of containers or empty collection if none.
 	 */
 	public Collection<Equipment> findAllContainers() {
-		Collection<Equipment> result = new ConcurrentLinkedQueue<>();
-		if (containedUnitIDs != null) {
-			for (Integer id : containedUnitIDs) {
-				Equipment e = unitManager.getEquipmentByID(id);
-				if (e != null && e instanceof Container) 
+		ReentrantLock lock = lock();
+		try {
+			Collection<Equipment> result = new ArrayList<>();
+			for (Equipment e : collectUnits(Equipment.class)) {
+				if (e instanceof Container) 
 					result.add(e);
 			}
+			return result;
+		} finally {
+			lock.unlock();
 		}
-		return result;
 	}
 	
 	/**
@@ -1836,16 +1930,12 @@ public class Inventory implements Serializable {
 	 * @return collection of specimen boxes or empty collection if none.
 	 */
 	public Collection<SpecimenBox> findAllSpecimenBoxes() {
-		Collection<SpecimenBox> result = new ConcurrentLinkedQueue<>();
-		if (containedUnitIDs != null) {
-			for (Integer id : containedUnitIDs) {
-				Equipment e = unitManager.getEquipmentByID(id);
-				if (e != null && e instanceof SpecimenBox) {
-					result.add((SpecimenBox)e);
-				}	
-			}
+		ReentrantLock lock = lock();
+		try {
+			return collectUnits(SpecimenBox.class);
+		} finally {
+			lock.unlock();
 		}
-		return result;
 	}
 	
 	/**
@@ -1854,16 +1944,12 @@ public class Inventory implements Serializable {
 	 * @return collection of EVA suits or empty collection if none.
 	 */
 	public Collection<EVASuit> findAllEVASuits() {
-		Collection<EVASuit> result = new ConcurrentLinkedQueue<>();
-		if (containedUnitIDs != null) {
-			for (Integer id : containedUnitIDs) {
-				Equipment e = unitManager.getEquipmentByID(id);
-				if (e != null && e instanceof EVASuit) {
-					result.add((EVASuit)e);
-				}	
-			}
+		ReentrantLock lock = lock();
+		try {
+			return collectUnits(EVASuit.class);
+		} finally {
+			lock.unlock();
 		}
-		return result;
 	}
 	
 	
@@ -1873,26 +1959,12 @@ public class Inventory implements Serializable {
 	 * @return collection of bags or empty collection if none.
 	 */
 	public Collection<Bag> findAllBags() {
-		Collection<Bag> result = new ConcurrentLinkedQueue<>();
-		if (containedUnitIDs != null) {
-			for (Integer id : containedUnitIDs) {
-				Equipment e = unitManager.getEquipmentByID(id);
-				if (e != null && e instanceof Bag) {
-					result.add((Bag)e);
-				}	
-			}
+		ReentrantLock lock = lock();
+		try {
+			return collectUnits(Bag.class);
+		} finally {
+			lock.unlock();
 		}
-		return result;
-		
-//		Collection<Bag> result = new ConcurrentLinkedQueue<>();
-//		if (containsUnitClass(Bag.class)) {
-//			for (Unit unit : getContainedUnits()) {
-//				if (Bag.class.isInstance(unit)) {
-//					result.add((Bag)unit);
-//				}
-//			}
-//		}
-//		return result;
 	}
 
 
@@ -1903,29 +1975,19 @@ public class Inventory implements Serializable {
 	 * @return
 	 */
 	public int findNumEquipment(int typeID) {
-		int result = 0;
-//		if (containedUnitIDs != null && !containedUnitIDs.isEmpty()) {
-//			Iterator<Unit> i = getContainedUnits().iterator();
-//			while (i.hasNext()) {
-//				Unit unit = i.next();
-//				if (unit instanceof Equipment) {
-//					if (((Equipment)unit).getEquipmentType() == EquipmentType.convertID2Enum(typeID)) {
-//						result++;
-//					}
-//				}
-//			}
-//		}
-		
-		if (containedUnitIDs != null) {
-			for (Integer id : containedUnitIDs) {
-				Equipment e = unitManager.getEquipmentByID(id);
-				if (e != null && e.getEquipmentType() == EquipmentType.convertID2Enum(typeID)) {
+		ReentrantLock lock = lock();
+		try {
+			EquipmentType type = EquipmentType.convertID2Enum(typeID);
+			int result = 0;
+			for (Equipment e : collectUnits(Equipment.class)) {
+				if (e.getEquipmentType() == type) {
 					result++;
 				}
 			}
+			return result;
+		} finally {
+			lock.unlock();
 		}
-
-		return result;
 	}
 
 	/**
@@ -1935,15 +1997,12 @@ public class Inventory implements Serializable {
 	 * @return number of units
 	 */
 	public <T extends Unit> int findNumUnitsOfClass(Class<T> unitClass) {
-		int result = 0;
-		if (containsUnitClass(unitClass)) {
-			for (Unit unit : getContainedUnits()) {
-				if (unitClass.isInstance(unit)) {
-					result++;
-				}
-			}
+		ReentrantLock lock = lock();
+		try {
+			return countUnits(unitClass);
+		} finally {
+			lock.unlock();
 		}
-		return result;
 	}
 
 	
@@ -1955,24 +2014,12 @@ public class Inventory implements Serializable {
 	 * @return number of specimen box
 	 */
 	public int findNumSpecimenBoxes(boolean isEmpty, boolean allowDirty) {
-		int result = 0;
-		if (containedUnitIDs != null) {
-			for (Integer id : containedUnitIDs) {
-				Equipment e = unitManager.getEquipmentByID(id);
-				if (e instanceof SpecimenBox) {
-					if (isEmpty) {
-						Inventory inv = e.getInventory();
-						// It must be empty inside
-						if ((inv != null) && inv.isEmpty(allowDirty)) {
-							result++;
-						}
-					}
-					else
-						result++;
-				}	
-			}
+		ReentrantLock lock = lock();
+		try {
+			return findNumContained(SpecimenBox.class, isEmpty, allowDirty);
+		} finally {
+			lock.unlock();
 		}
-		return result;
 	}
 	
 	/**
@@ -1983,24 +2030,12 @@ public class Inventory implements Serializable {
 	 * @return number of bags
 	 */
 	public int findNumBags(boolean isEmpty, boolean allowDirty) {
-		int result = 0;
-		if (containedUnitIDs != null) {
-			for (Integer id : containedUnitIDs) {
-				Equipment e = unitManager.getEquipmentByID(id);
-				if (e instanceof Bag) {
-					if (isEmpty) {
-						Inventory inv = e.getInventory();
-						// It must be empty inside
-						if ((inv != null) && inv.isEmpty(allowDirty)) {
-							result++;
-						}
-					}
-					else
-						result++;
-				}	
-			}
+		ReentrantLock lock = lock();
+		try {
+			return findNumContained(Bag.class, isEmpty, allowDirty);
+		} finally {
+			lock.unlock();
 		}
-		return result;
 	}
 		
 	/**
@@ -2011,21 +2046,32 @@ public class Inventory implements Serializable {
 	 * @return number of EVA suits
 	 */
 	public int findNumEVASuits(boolean isEmpty, boolean allowDirty) {
+		ReentrantLock lock = lock();
+		try {
+			return findNumContained(EVASuit.class, isEmpty, allowDirty);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Finds the number of units of a class that are contained in storage.
+	 * 
+	 * @param unitClass  the unit class.
+	 * @param isEmpty    does it need to be empty ?
+	 * @param allowDirty will allow dirty (possibly out of date) results.
+	 * @return number of units
+	 */
+	private int findNumContained(Class<? extends Unit> unitClass, boolean isEmpty, boolean allowDirty) {
+		if (!isEmpty) {
+			return countUnits(unitClass);
+		}
 		int result = 0;
-		if (containedUnitIDs != null) {
-			for (Integer id : containedUnitIDs) {
-				Equipment e = unitManager.getEquipmentByID(id);
-				if (e instanceof EVASuit) {
-					if (isEmpty) {
-						Inventory inv = e.getInventory();
-						// It must be empty inside
-						if ((inv != null) && inv.isEmpty(allowDirty)) {
-							result++;
-						}
-					}
-					else
-						result++;
-				}	
+		for (Unit unit : collectUnits(unitClass)) {
+			Inventory inv = unit.getInventory();
+			// It must be empty inside
+			if ((inv != null) && inv.isEmpty(allowDirty)) {
+				result++;
 			}
 		}
 		return result;
@@ -2048,95 +2094,207 @@ public class Inventory implements Serializable {
 //	}
 	
 	/**
-	 * Finds the number of units of a class that are contained in storage and have
-	 * an empty inventory.
+	 * Finds the number of units of a class that are contained in storage and have
+	 * an empty inventory.
+	 * 
+	 * @param unitClass  the unit class.
+	 * @param allowDirty will allow dirty (possibly out of date) results.
+	 * @return number of empty units.
+	 */
+	public <T extends Unit> int findNumEmptyUnitsOfClass(Class<T> unitClass, boolean allowDirty) {
+		ReentrantLock lock = lock();
+		try {
+			return findNumContained(unitClass, true, allowDirty);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Finds the number of empty containers of a class that are contained in storage and have
+	 * an empty inventory.
+	 * 
+	 * @param containerClass  the unit class.
+	 * @param allowDirty will allow dirty (possibly out of date) results.
+	 * @return number of empty containers.
+	 */
+	public <T extends Equipment> int findNumEmptyContainersOfClass(Class<T> containerClass, boolean allowDirty) {
+		ReentrantLock lock = lock();
+		try {
+			return findNumContained(containerClass, true, allowDirty);
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	public int findNumEmptyUnitsOfClass(int typeID, boolean allowDirty) {
+		ReentrantLock lock = lock();
+		try {
+			return findNumContained(EquipmentFactory.getEquipmentClass(typeID), true, allowDirty);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Gets the index of the contained units by class, building it if needed.
+	 * 
+	 * @return the index.
+	 */
+	private Map<Class<? extends Unit>, Set<Unit>> getUnitIndex() {
+		if (unitIndex == null) {
+			Map<Class<? extends Unit>, Set<Unit>> index = new LinkedHashMap<>();
+			boolean complete = true;
+			if (containedUnitIDs != null) {
+				for (Integer id : containedUnitIDs) {
+					Unit unit = unitManager.getUnitByID(id);
+					if (unit != null) {
+						index.computeIfAbsent(unit.getClass(), c -> new LinkedHashSet<>()).add(unit);
+					}
+					else {
+						complete = false;
+					}
+				}
+			}
+			// Keep trying until all the units are known, e.g. while loading a saved sim
+			if (!complete) {
+				return index;
+			}
+			unitIndex = index;
+			unitsByType = new ConcurrentHashMap<>();
+		}
+		return unitIndex;
+	}
+
+	/**
+	 * Drops the index of the contained units so it is rebuilt when next used.
+	 */
+	private synchronized void clearUnitIndex() {
+		unitIndex = null;
+		unitsByType = null;
+	}
+
+	/**
+	 * Adds a unit to the index of the contained units.
+	 * 
+	 * @param unit the unit.
+	 */
+	private synchronized void indexUnit(Unit unit) {
+		if (unitIndex != null) {
+			unitIndex.computeIfAbsent(unit.getClass(), c -> new LinkedHashSet<>()).add(unit);
+			for (UnitsOfType units : unitsByType.values()) {
+				if (units.type.isInstance(unit)) {
+					units.units.add(unit);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Removes a unit from the index of the contained units.
+	 * 
+	 * @param unit the unit.
+	 */
+	private synchronized void unindexUnit(Unit unit) {
+		if (unitIndex != null) {
+			Set<Unit> units = unitIndex.get(unit.getClass());
+			if (units != null) {
+				units.remove(unit);
+			}
+			for (UnitsOfType u : unitsByType.values()) {
+				u.units.remove(unit);
+			}
+		}
+	}
+
+	/**
+	 * Checks if a unit is in the index of the contained units.
+	 * 
+	 * @param unit the unit.
+	 * @return true if contained.
+	 */
+	private synchronized boolean isIndexed(Unit unit) {
+		Set<Unit> units = getUnitIndex().get(unit.getClass());
+		return units != null && units.contains(unit);
+	}
+
+	/**
+	 * Gets the contained units of a class or interface, in the order they were
+	 * stored. The set is built from the index on first use and then kept up to
+	 * date as units are stored and retrieved.
 	 * 
-	 * @param unitClass  the unit class.
-	 * @param allowDirty will allow dirty (possibly out of date) results.
-	 * @return number of empty units.
+	 * @param type the class or interface.
+	 * @return the units.
 	 */
-	public <T extends Unit> int findNumEmptyUnitsOfClass(Class<T> unitClass, boolean allowDirty) {
-		int result = 0;
-		if (containedUnitIDs != null) {
-			for (Integer id : containedUnitIDs) {
-				Unit unit = unitManager.getUnitByID(id);
-				if (unitClass.isInstance(unit)) {
-					Inventory inv = unit.getInventory();
-					// It must be empty inside
-					if ((inv != null) && inv.isEmpty(allowDirty)) {
-						result++;
+	private synchronized UnitsOfType getUnitsOfType(Class<?> type) {
+		getUnitIndex();
+		UnitsOfType result = (unitIndex != null ? unitsByType.get(type) : null);
+		if (result == null) {
+			// Walk the contained units to keep the storage order across classes
+			List<Unit> found = new ArrayList<>();
+			if (containedUnitIDs != null) {
+				for (Integer id : containedUnitIDs) {
+					Unit unit = unitManager.getUnitByID(id);
+					if (type.isInstance(unit)) {
+						found.add(unit);
 					}
 				}
 			}
+			result = new UnitsOfType(type, found);
+			if (unitIndex != null) {
+				unitsByType.put(type, result);
+			}
 		}
 		return result;
-				
-//		int result = 0;
-////		if (containsUnitClass(unitClass)) {
-//			for (Unit unit : getContainedUnits()) {
-//				if (unitClass.isInstance(unit)) {
-//					Inventory inv = unit.getInventory();
-//					// It must be empty inside
-//					if ((inv != null) && inv.isEmpty(allowDirty)) {
-//						result++;
-//					}
-//				}
-//			}
-////		}
-//		return result;
 	}
 
 	/**
-	 * Finds the number of empty containers of a class that are contained in storage and have
-	 * an empty inventory.
+	 * Collects the contained units of a class, in the order they were stored.
 	 * 
-	 * @param containerClass  the unit class.
-	 * @param allowDirty will allow dirty (possibly out of date) results.
-	 * @return number of empty containers.
+	 * @param type the class or interface.
+	 * @return a read-only view of the units that follows later changes. Iterating
+	 *         it is safe while units are stored and retrieved.
 	 */
-	public <T extends Equipment> int findNumEmptyContainersOfClass(Class<T> containerClass, boolean allowDirty) {
-		int result = 0;
-		if (containedUnitIDs != null) {
-			for (Integer id : containedUnitIDs) {
-				Equipment unit = unitManager.getEquipmentByID(id);
-				if (containerClass.isInstance(unit)) {
-					Inventory inv = unit.getInventory();
-					// It must be empty inside
-					if ((inv != null) && inv.isEmpty(allowDirty)) {
-						result++;
-					}
-				}
-			}
-		}
-		
-//		if (containsUnitClass(unitClass)) {
-//			for (Unit unit : getContainedUnits()) {
-//				if (unitClass.isInstance(unit)) {
-//					Inventory inv = unit.getInventory();
-//					// It must be empty inside
-//					if ((inv != null) && inv.isEmpty(allowDirty)) {
-//						result++;
-//					}
-//				}
-//			}
-//		}
-		return result;
+	@SuppressWarnings("unchecked")
+	private <T> Collection<T> collectUnits(Class<T> type) {
+		return (Collection<T>) getUnitsOfType(type).view;
 	}
-	
-	public int findNumEmptyUnitsOfClass(int typeID, boolean allowDirty) {
-		Class<? extends Unit> unitClass = EquipmentFactory.getEquipmentClass(typeID);	
-		int result = 0;
-		if (containsUnitClass(typeID)) {
-			for (Unit unit : getContainedUnits()) {
-				if (unitClass.isInstance(unit)) {
-					Inventory inv = unit.getInventory();
-					if ((inv != null) && inv.isEmpty(allowDirty)) {
-						result++;
-					}
-				}
-			}
+
+	/**
+	 * Counts the contained units of a class.
+	 * 
+	 * @param type the class or interface.
+	 * @return number of units.
+	 */
+	private int countUnits(Class<?> type) {
+		return getUnitsOfType(type).units.size();
+	}
+
+	/**
+	 * Finds the earliest stored of the contained units of a class.
+	 * 
+	 * @param type the class or interface.
+	 * @return the unit or null if none.
+	 */
+	@SuppressWarnings("unchecked")
+	private <T> T firstUnit(Class<T> type) {
+		Iterator<Unit> i = getUnitsOfType(type).units.iterator();
+		return (i.hasNext() ? (T) i.next() : null);
+	}
+
+	/**
+	 * The contained units of one class or interface.
+	 */
+	private static final class UnitsOfType {
+		private final Class<?> type;
+		private final Set<Unit> units;
+		private final Collection<Unit> view;
+
+		private UnitsOfType(Class<?> type, Collection<Unit> units) {
+			this.type = type;
+			this.units = new CopyOnWriteArraySet<>(units);
+			this.view = Collections.unmodifiableSet(this.units);
 		}
-		return result;
 	}
 
 	/**
@@ -2147,57 +2305,62 @@ public class Inventory implements Serializable {
 	 * @return true if unit can be added to inventory
 	 */
 	public boolean canStoreUnit(Unit unit, boolean allowDirty) {
-		boolean result = false;
-		Integer unitID = unit.getIdentifier();
-		if (unit != null) {
-			Unit owner = getOwner();
+		ReentrantLock lock = lock();
+		try {
+			boolean result = false;
+			Integer unitID = unit.getIdentifier();
+			if (unit != null) {
+				Unit owner = getOwner();
 			
-			if (unit.getMass() <= getRemainingGeneralCapacity(allowDirty)) {
-				return true;
-			} 
+				if (unit.getMass() <= getRemainingGeneralCapacity(allowDirty)) {
+					return true;
+				} 
 			
-			else {
+				else {
 
-				LogConsolidated.log(logger, Level.SEVERE, 30_000, sourceName + "::canStoreUnit",
-						  unit.getName() + " had a mass of " + Math.round(unit.getMass()*10.0)/10.0 
-						  + " kg - too much to put on '"
-						  + owner.getName() 
-						  + "' to carry. Remaining Cap : " 
-						  +  Math.round(getRemainingGeneralCapacity(allowDirty)*10.0)/10.0
-						  + " kg. (Gen Cap : " 
-						  +  Math.round(this.getGeneralCapacity()*10.0)/10.0
-						  + " kg)"
-						);
+					LogConsolidated.log(logger, Level.SEVERE, 30_000, sourceName + "::canStoreUnit",
+							  unit.getName() + " had a mass of " + Math.round(unit.getMass()*10.0)/10.0 
+							  + " kg - too much to put on '"
+							  + owner.getName() 
+							  + "' to carry. Remaining Cap : " 
+							  +  Math.round(getRemainingGeneralCapacity(allowDirty)*10.0)/10.0
+							  + " kg. (Gen Cap : " 
+							  +  Math.round(this.getGeneralCapacity()*10.0)/10.0
+							  + " kg)"
+							);
 				
-				result = false;
-			}
+					result = false;
+				}
 
-			if (unitID == ownerID) {
-				LogConsolidated.log(logger, Level.SEVERE, 30_000, sourceName + "::canStoreUnit",
-						  unit.getName() + " was the same as its owner.");
-				result = false;
-			}
+				if (unitID == ownerID) {
+					LogConsolidated.log(logger, Level.SEVERE, 30_000, sourceName + "::canStoreUnit",
+							  unit.getName() + " was the same as its owner.");
+					result = false;
+				}
 			
-			if (containsUnit(unit)) {
-				String ownerName = owner.getName();
+				if (containsUnit(unit)) {
+					String ownerName = owner.getName();
 				
-				if (ownerName.equalsIgnoreCase("Mars Surface"))
-					LogConsolidated.log(logger, Level.SEVERE, 30_000, sourceName + "::canStoreUnit",
-						  unit.getName() + " was already on " + ownerName);
-				else
-					LogConsolidated.log(logger, Level.SEVERE, 30_000, sourceName + "::canStoreUnit",
-							  unit.getName() + " was already inside " + ownerName);
-				// TODO: see if there is a better way to deal with this
-				result = true;
-			}
+					if (ownerName.equalsIgnoreCase("Mars Surface"))
+						LogConsolidated.log(logger, Level.SEVERE, 30_000, sourceName + "::canStoreUnit",
+							  unit.getName() + " was already on " + ownerName);
+					else
+						LogConsolidated.log(logger, Level.SEVERE, 30_000, sourceName + "::canStoreUnit",
+								  unit.getName() + " was already inside " + ownerName);
+					// TODO: see if there is a better way to deal with this
+					result = true;
+				}
 					
-			if (owner != null && unit.getInventory().containsUnit(owner)) {
-				LogConsolidated.log(logger, Level.SEVERE, 30_000, sourceName + "::canStoreUnit",
-						owner.getName() + " was owned by " + unit);
-				result = false;
+				if (owner != null && unit.getInventory().containsUnit(owner)) {
+					LogConsolidated.log(logger, Level.SEVERE, 30_000, sourceName + "::canStoreUnit",
+							owner.getName() + " was owned by " + unit);
+					result = false;
+				}
 			}
+			return result;
+		} finally {
+			lock.unlock();
 		}
-		return result;
 	}
 
 	/**
@@ -2206,83 +2369,89 @@ public class Inventory implements Serializable {
 	 * @param unit the unit
 	 */
 	public boolean storeUnit(Unit unit) {
-		boolean stored = true;
+		ReentrantLock[] locks = lock(unit.getInventory());
+		try {
+			boolean stored = true;
 		
-		if (canStoreUnit(unit, false)) {
+			if (canStoreUnit(unit, false)) {
 
-			setUnitTotalMassCacheDirty();
+				setUnitTotalMassCacheDirty();
 
-			// Initialize containedUnitIDs if necessary.
-			if (containedUnitIDs == null) {
-				containedUnitIDs = new ConcurrentLinkedQueue<>();
-			}
+				// Initialize containedUnitIDs if necessary.
+				if (containedUnitIDs == null) {
+					containedUnitIDs = new ConcurrentLinkedQueue<>();
+				}
 
-			containedUnitIDs.add(unit.getIdentifier());
+				containedUnitIDs.add(unit.getIdentifier());
+				indexUnit(unit);
 
-			Unit newOwner = getOwner();
-//			System.out.println("Inventory::storeUnit - " + unit + "'s ownerID : " + ownerID + "   owner : " + owner);
+				Unit newOwner = getOwner();
+	//			System.out.println("Inventory::storeUnit - " + unit + "'s ownerID : " + ownerID + "   owner : " + owner);
 
-			if (newOwner != null) {
-				if (!(newOwner instanceof MarsSurface)) {
-					// Set modified cache values as dirty.
-					setAmountResourceCapacityCacheAllDirty(true);
-					setAmountResourceStoredCacheAllDirty(true);
-					setAllStoredAmountResourcesCacheDirty();
-					setTotalAmountResourcesStoredCacheDirty();
+				if (newOwner != null) {
+					if (!(newOwner instanceof MarsSurface)) {
+						// Set modified cache values as dirty.
+						setAmountResourceCapacityCacheAllDirty(true);
+						setAmountResourceStoredCacheAllDirty(true);
+						setAllStoredAmountResourcesCacheDirty();
+						setTotalAmountResourcesStoredCacheDirty();
 					
-					// Note: MarsSurface represents the whole surface of Mars does not have coordinates
-					// If MarsSurface is a container of an unit, that unit may keep its own coordinates
-					unit.setCoordinates(newOwner.getCoordinates());
+						// Note: MarsSurface represents the whole surface of Mars does not have coordinates
+						// If MarsSurface is a container of an unit, that unit may keep its own coordinates
+						unit.setCoordinates(newOwner.getCoordinates());
 					
-					newOwner.fireUnitUpdate(UnitEventType.INVENTORY_STORING_UNIT_EVENT, unit);
-					for (Integer resource : unit.getInventory().getAllARStored(false)) {
-						updateAmountResourceCapacityCache(resource);
-						updateAmountResourceStoredCache(resource);
-						newOwner.fireUnitUpdate(UnitEventType.INVENTORY_RESOURCE_EVENT, resource);
-					}
-					for (Integer itemResource : unit.getInventory().getAllItemResourcesStored()) {
-						newOwner.fireUnitUpdate(UnitEventType.INVENTORY_RESOURCE_EVENT, itemResource);
+						newOwner.fireUnitUpdate(UnitEventType.INVENTORY_STORING_UNIT_EVENT, unit);
+						for (Integer resource : unit.getInventory().getAllARStored(false)) {
+							updateAmountResourceCapacityCache(resource);
+							updateAmountResourceStoredCache(resource);
+							newOwner.fireUnitUpdate(UnitEventType.INVENTORY_RESOURCE_EVENT, resource);
+						}
+						for (Integer itemResource : unit.getInventory().getAllItemResourcesStored()) {
+							newOwner.fireUnitUpdate(UnitEventType.INVENTORY_RESOURCE_EVENT, itemResource);
+						}
 					}
-				}
 				
-				if (newOwner instanceof Settlement) {
-					// Try to empty amount resources into parent if container.
-					if (unit instanceof Container) {
-						Inventory containerInv = unit.getInventory();
-						for (Integer resource : containerInv.getAllARStored(false)) {
-							double containerAmount = containerInv.getAmountResourceStored(resource, false);
-							if (getAmountResourceRemainingCapacity(resource, false, false) >= containerAmount) {
-								containerInv.retrieveAmountResource(resource, containerAmount);
-								storeAmountResource(resource, containerAmount, false);
+					if (newOwner instanceof Settlement) {
+						// Try to empty amount resources into parent if container.
+						if (unit instanceof Container) {
+							Inventory containerInv = unit.getInventory();
+							for (Integer resource : containerInv.getAllARStored(false)) {
+								double containerAmount = containerInv.getAmountResourceStored(resource, false);
+								if (getAmountResourceRemainingCapacity(resource, false, false) >= containerAmount) {
+									containerInv.retrieveAmountResource(resource, containerAmount);
+									storeAmountResource(resource, containerAmount, false);
+								}
 							}
 						}
-					}
 	
-					else if (unit instanceof Person) {
-						((Settlement) newOwner).addPeopleWithin((Person)unit);
+						else if (unit instanceof Person) {
+							((Settlement) newOwner).addPeopleWithin((Person)unit);
+						}
+	//					else if (unit instanceof Robot) {
+	//						((Settlement) owner).addOwnedRobot((Robot)unit);
+	//					}
+	//					else if (unit instanceof Vehicle) {
+	//						((Settlement) owner).addOwnedVehicle((Vehicle)unit);
+	//					}
 					}
-//					else if (unit instanceof Robot) {
-//						((Settlement) owner).addOwnedRobot((Robot)unit);
-//					}
-//					else if (unit instanceof Vehicle) {
-//						((Settlement) owner).addOwnedVehicle((Vehicle)unit);
-//					}
-				}
 
-				unit.setContainerUnit(newOwner);
-//				System.out.println("Inventory::storeUnit - " + unit + " owned by " + owner + " (" + ownerID + ")");
+					unit.setContainerUnit(newOwner);
+	//				System.out.println("Inventory::storeUnit - " + unit + " owned by " + owner + " (" + ownerID + ")");
 
-			}
+				}
 			
-		} else {
-			 LogConsolidated.log(logger, Level.SEVERE, 30_000, sourceName + "::storeUnit",
-					  unit + " could not be stored.");
-			 stored = false;
-			// The statement below is needed for maven test in testInventoryUnitStoredNull() in TestInventory
-			throw new IllegalStateException("Unit: " + unit + " could not be stored in/on " + getOwner().getName()); 
-		}
+			} else {
+				 LogConsolidated.log(logger, Level.SEVERE, 30_000, sourceName + "::storeUnit",
+						  unit + " could not be stored.");
+				 stored = false;
+				// The statement below is needed for maven test in testInventoryUnitStoredNull() in TestInventory
+				throw new IllegalStateException("Unit: " + unit + " could not be stored in/on " + getOwner().getName()); 
+			}
 		
-		return stored;
+			return stored;
+		} finally {
+			unlock(locks);
+		}
 	}
 
 	/**
@@ -2292,8 +2461,12 @@ public class Inventory implements Serializable {
 	 * @return true if successful
 	 */
 	public boolean transferUnit(Unit unit, Unit newOwner) {
-		
-		return retrieveUnit(unit, false) && newOwner.getInventory().storeUnit(unit);
+		ReentrantLock[] locks = lock(newOwner.getInventory());
+		try {
+			return retrieveUnit(unit, false) && newOwner.getInventory().storeUnit(unit);
+		} finally {
+			unlock(locks);
+		}
 	}
 
 	/**
@@ -2302,8 +2475,12 @@ public class Inventory implements Serializable {
 	 * @param unit the unit.
 	 */
 	public void retrieveUnit(Unit unit) {
-		
-		retrieveUnit(unit, true);	
+		ReentrantLock lock = lock();
+		try {
+			retrieveUnit(unit, true);	
+		} finally {
+			lock.unlock();
+		}
 	}
 	
 	/**
@@ -2313,67 +2490,72 @@ public class Inventory implements Serializable {
 	 * @param retrieveOnly is it just a retrieval
 	 */
 	public boolean retrieveUnit(Unit unit, boolean retrieveOnly) {
+		ReentrantLock lock = lock();
+		try {
+			boolean retrieved = true;
 		
-		boolean retrieved = true;
-		
-		Integer id = unit.getIdentifier();
+			Integer id = unit.getIdentifier();
 
-		if (containedUnitIDs.contains(id)) {
+			if (containedUnitIDs.contains(id)) {
 			
-			setUnitTotalMassCacheDirty();
-
-			containedUnitIDs.remove(id);
-
-			// Update owner
-			Unit owner = getOwner();
-			if (owner != null) {
-				owner.fireUnitUpdate(UnitEventType.INVENTORY_RETRIEVING_UNIT_EVENT, unit);
-
-				if (!(owner instanceof MarsSurface)) {
-					// Set modified cache values as dirty.
-					setAmountResourceCapacityCacheAllDirty(true);
-					setAmountResourceStoredCacheAllDirty(true);
-					setAllStoredAmountResourcesCacheDirty();
-					setTotalAmountResourcesStoredCacheDirty();
+				setUnitTotalMassCacheDirty();
+
+				containedUnitIDs.remove(id);
+				unindexUnit(unit);
+
+				// Update owner
+				Unit owner = getOwner();
+				if (owner != null) {
+					owner.fireUnitUpdate(UnitEventType.INVENTORY_RETRIEVING_UNIT_EVENT, unit);
+
+					if (!(owner instanceof MarsSurface)) {
+						// Set modified cache values as dirty.
+						setAmountResourceCapacityCacheAllDirty(true);
+						setAmountResourceStoredCacheAllDirty(true);
+						setAllStoredAmountResourcesCacheDirty();
+						setTotalAmountResourcesStoredCacheDirty();
 					
-					for (Integer resource : unit.getInventory().getAllARStored(false)) {
-						updateAmountResourceCapacityCache(resource);
-						updateAmountResourceStoredCache(resource);
-						owner.fireUnitUpdate(UnitEventType.INVENTORY_RESOURCE_EVENT, resource);
-					}
+						for (Integer resource : unit.getInventory().getAllARStored(false)) {
+							updateAmountResourceCapacityCache(resource);
+							updateAmountResourceStoredCache(resource);
+							owner.fireUnitUpdate(UnitEventType.INVENTORY_RESOURCE_EVENT, resource);
+						}
 					
-					for (Integer resource : unit.getInventory().getAllItemResourcesStored()) {
-						owner.fireUnitUpdate(UnitEventType.INVENTORY_RESOURCE_EVENT, resource);
+						for (Integer resource : unit.getInventory().getAllItemResourcesStored()) {
+							owner.fireUnitUpdate(UnitEventType.INVENTORY_RESOURCE_EVENT, resource);
+						}
 					}
-				}
 				
-				if (owner instanceof Settlement) {
-					if (unit instanceof Person) {
-						((Settlement) owner).removePeopleWithin((Person)unit);
+					if (owner instanceof Settlement) {
+						if (unit instanceof Person) {
+							((Settlement) owner).removePeopleWithin((Person)unit);
+						}
 					}
 				}
-			}
 			
-			if (!retrieveOnly) {
-	            unit.setContainerUnit(null);
+				if (!retrieveOnly) {
+		            unit.setContainerUnit(null);
+				}
 			}
-		}
 
-		else {
-			Unit owner = getOwner();
-			logger.warning(unit + " (" + id + ") "  
-			+ owner  
-			+ " (" 
-			+ owner.getIdentifier() + ") : "  + containedUnitIDs);
+			else {
+				Unit owner = getOwner();
+				logger.warning(unit + " (" + id + ") "  
+				+ owner  
+				+ " (" 
+				+ owner.getIdentifier() + ") : "  + containedUnitIDs);
 			
-			LogConsolidated.log(logger, Level.SEVERE, 30_000, sourceName +
-					"::retrieveUnit", "'" + unit + "' could not be retrieved.");
-			retrieved = false;
-			// TODO: how to get rid of the throw statement below needed for maven test
-			throw new IllegalStateException("'" + unit + "' could not be retrieved from '" + owner.getName() + "'");
-		}
+				LogConsolidated.log(logger, Level.SEVERE, 30_000, sourceName +
+						"::retrieveUnit", "'" + unit + "' could not be retrieved.");
+				retrieved = false;
+				// TODO: how to get rid of the throw statement below needed for maven test
+				throw new IllegalStateException("'" + unit + "' could not be retrieved from '" + owner.getName() + "'");
+			}
 		
-		return retrieved;
+			return retrieved;
+		} finally {
+			lock.unlock();
+		}
 	}
 
 	/**
@@ -2382,11 +2564,15 @@ public class Inventory implements Serializable {
 	 * @param newLocation the new coordinate location
 	 */
 	public void setCoordinates(Coordinates newLocation) {
-
-		if (containedUnitIDs != null && newLocation != null && !newLocation.equals(new Coordinates(0D, 0D))) {
-			for (Unit unit : getContainedUnits()) {
-				unit.setCoordinates(newLocation);
+		ReentrantLock lock = lock();
+		try {
+			if (containedUnitIDs != null && newLocation != null && !newLocation.equals(new Coordinates(0D, 0D))) {
+				for (Unit unit : getContainedUnits()) {
+					unit.setCoordinates(newLocation);
+				}
 			}
+		} finally {
+			lock.unlock();
 		}
 	}
 
@@ -2397,8 +2583,12 @@ public class Inventory implements Serializable {
 	 * @return stored mass (kg).
 	 */
 	public double getTotalInventoryMass(boolean allowDirty) {
-
-		return getTotalInventoryMassCache(allowDirty);
+		ReentrantLock lock = lock();
+		try {
+			return getTotalInventoryMassCache(allowDirty);
+		} finally {
+			lock.unlock();
+		}
 	}
 
 	/**
@@ -2408,8 +2598,12 @@ public class Inventory implements Serializable {
 	 * @return true if empty.
 	 */
 	public boolean isEmpty(boolean allowDirty) {
-
-		return (getTotalInventoryMass(allowDirty) == 0D);
+		ReentrantLock lock = lock();
+		try {
+			return (getTotalInventoryMass(allowDirty) == 0D);
+		} finally {
+			lock.unlock();
+		}
 	}
 
 	/**
@@ -2449,18 +2643,13 @@ public class Inventory implements Serializable {
 	 * Initializes the amount resource capacity cache.
 	 */
 	public void initializeAmountResourceCapacityCache() {
-		Collection<Integer> resources = ResourceUtil.getIDs(); // allStoredARCache;
-		capacityCache = new ConcurrentHashMap<Integer, Double>();
-		capacityCacheDirty = new ConcurrentHashMap<Integer, Boolean>();
-		containersCapacityCache = new ConcurrentHashMap<Integer, Double>();
-		containersCapacityCacheDirty = new ConcurrentHashMap<Integer, Boolean>();
-
-		if (resources != null )
-		for (int resource : resources) {
-			capacityCache.put(resource, 0D);
-			capacityCacheDirty.put(resource, true);
-			containersCapacityCache.put(resource, 0D);
-			containersCapacityCacheDirty.put(resource, true);
+		ReentrantLock lock = lock();
+		try {
+			int size = ResourceUtil.getAmountResourceCount();
+			containersCapacityCache = new ResourceCache(ResourceUtil.FIRST_AMOUNT_RESOURCE_ID, size);
+			capacityCache = new ResourceCache(ResourceUtil.FIRST_AMOUNT_RESOURCE_ID, size);
+		} finally {
+			lock.unlock();
 		}
 	}
 
@@ -2476,14 +2665,8 @@ public class Inventory implements Serializable {
 		if (capacityCache == null) {
 			initializeAmountResourceCapacityCache();
 		}
-		// Check if amountResourceCapacityCacheDirty contains the resource
-		if (capacityCacheDirty.containsKey(resource)) {
-			boolean value = capacityCacheDirty.get(resource);
-			return value;
-		}
-		else
-			return true;
 
+		return capacityCache.isDirty(resource);
 	}
 
 	/**
@@ -2492,13 +2675,7 @@ public class Inventory implements Serializable {
 	 * @param resource the dirty resource.
 	 */
 	private void setAmountResourceCapacityCacheDirty(int resource) {
-
-//		// Initialize amount resource capacity cache if necessary.
-//		if (capacityCache == null) {
-//			initializeAmountResourceCapacityCache();
-//		}
-
-		capacityCacheDirty.put(resource, true);
+		capacityCache.setDirty(resource);
 	}
 
 	/**
@@ -2514,12 +2691,10 @@ public class Inventory implements Serializable {
 			initializeAmountResourceCapacityCache();
 		}
 		
-		for (int amountResource : ResourceUtil.getIDs()) { //allStoredARCache
-			setAmountResourceCapacityCacheDirty(amountResource);
+		capacityCache.setAllDirty();
 
-			if (containersDirty) {
-				containersCapacityCacheDirty.put(amountResource, true);
-			}
+		if (containersDirty) {
+			containersCapacityCache.setAllDirty();
 		}
 
 		Unit owner = getOwner();
@@ -2557,24 +2732,12 @@ public class Inventory implements Serializable {
 	 */
 	private double getAmountResourceCapacityCacheValue(int resource, boolean allowDirty) {
 
-		// Initialize amount resource capacity cache if necessary.
-		if (capacityCache == null) {
-			initializeAmountResourceCapacityCache();
-		}
-
 		// Update amount resource capacity cache if it is dirty.
 		if (isAmountResourceCapacityCacheDirty(resource) && !allowDirty) {
 			updateAmountResourceCapacityCache(resource);
 		}
 
-		// Check if amountResourceCapacityCache contains the resource
-		if (capacityCache.containsKey(resource))
-			return capacityCache.get(resource);
-		else {
-			capacityCache.put(resource, 0D);
-			return 0;
-		}
-		// return amountResourceCapacityCache.get(resource);
+		return capacityCache.get(resource);
 	}
 
 	/**
@@ -2597,63 +2760,22 @@ public class Inventory implements Serializable {
 
 		// Determine capacity for all contained units.
 		double containedCapacity = 0D;
-		// Check for null
-		if (containersCapacityCacheDirty.containsKey(resource)) {
-			if (containersCapacityCacheDirty.get((Integer)resource)) {
-				if (containedUnitIDs != null) {
-					for (Unit unit : getContainedUnits()) {
-						if (unit instanceof Container) {
-							containedCapacity += unit.getInventory().getAmountResourceCapacity(resource, false);
-						}
+		if (containersCapacityCache.isDirty(resource)) {
+			if (containedUnitIDs != null) {
+				for (Unit unit : getContainedUnits()) {
+					if (unit instanceof Container) {
+						containedCapacity += unit.getInventory().getAmountResourceCapacity(resource, false);
 					}
 				}
-				containersCapacityCache.put(resource, containedCapacity);
-				containersCapacityCacheDirty.put(resource, false);
-			}
-			// Check for null
-			else if (containersCapacityCache.containsKey(resource)) {
-				containedCapacity = containersCapacityCache.get(resource);
 			}
+			containersCapacityCache.set(resource, containedCapacity);
 		}
-		// Check for null
-		else if (containersCapacityCache.containsKey(resource)) {
+		else {
 			containedCapacity = containersCapacityCache.get(resource);
 		}
 
 		// Determine stored resources for all contained units.
-		double containedStored = 0D;
-		if (containersStoredCache == null) {
-			initializeAmountResourceStoredCache();
-		}
-
-		// Add checking for amountResourceContainersStoredCacheDirty and add if else
-		// clause
-//		logger.config(ResourceUtil.findAmountResource(resource) + " (id : " + resource + ")"); 
-		
-		if (containersStoredCacheDirty == null)
-			containersStoredCacheDirty = new ConcurrentHashMap<>();
-		
-		if (containersStoredCacheDirty.containsKey(resource)) {
-			// Check if containersStoredCacheDirty is null from another thread
-//			if (containersStoredCacheDirty != null && containersStoredCacheDirty.get(resource)) {
-			if (containersStoredCacheDirty.get(resource)) {				
-				if (containedUnitIDs != null) {
-					for (Unit unit : getContainedUnits()) {
-						if (unit instanceof Container) {
-							containedStored += unit.getInventory().getAmountResourceStored(resource, false);
-						}
-					}
-				}
-				containersStoredCache.put(resource, containedStored);
-				containersStoredCacheDirty.put(resource, false);
-			} else {
-				containedStored = containersStoredCache.get(resource);
-			}
-		} 
-//		else {
-			// amountResourceContainersStoredCacheDirty.put(resource, false);
-			// containedStored = amountResourceContainersStoredCache.get(resource);
-//		}
+		double containedStored = getContainersStored(resource);
 
 		// Limit container capacity to this inventory's remaining general capacity.
 		// Add container's resource stored as this is already factored into inventory's
@@ -2665,26 +2787,16 @@ public class Inventory implements Serializable {
 
 		capacity += containedCapacity;
 
-		capacityCache.put(resource, capacity);
-		capacityCacheDirty.put(resource, false);
+		capacityCache.set(resource, capacity);
 	}
 
 	/**
 	 * Initializes the amount resource stored cache.
 	 */
 	private void initializeAmountResourceStoredCache() {
-		Collection<Integer> resources = ResourceUtil.getIDs(); // allStoredARCache
-		storedCache = new ConcurrentHashMap<Integer, Double>();
-		storedCacheDirty = new ConcurrentHashMap<Integer, Boolean>();
-		containersStoredCache = new ConcurrentHashMap<Integer, Double>();
-		containersStoredCacheDirty = new ConcurrentHashMap<Integer, Boolean>();
-
-		for (int resource : resources) {
-			storedCache.put(resource, 0D);
-			storedCacheDirty.put(resource, true);
-			containersStoredCache.put(resource, 0D);
-			containersStoredCacheDirty.put(resource, true);
-		}
+		int size = ResourceUtil.getAmountResourceCount();
+		containersStoredCache = new ResourceCache(ResourceUtil.FIRST_AMOUNT_RESOURCE_ID, size);
+		storedCache = new ResourceCache(ResourceUtil.FIRST_AMOUNT_RESOURCE_ID, size);
 	}
 
 	/**
@@ -2694,31 +2806,12 @@ public class Inventory implements Serializable {
 	 * @return true if resource is dirty in cache.
 	 */
 	private boolean isAmountResourceStoredCacheDirty(int resource) {
-		// Initialize amount resource stored cache if necessary.
-		if (storedCacheDirty == null) {
-			initializeAmountResourceStoredCache();
-		}
-
-		// Check if amountResourceStoredCacheDirty contains the resource
-		if (storedCacheDirty.containsKey(resource))
-			return storedCacheDirty.get(resource);
-		else
-			return true;
-	}
-
-	/**
-	 * Sets a resource in the amount resource stored cache to dirty.
-	 * 
-	 * @param resource the dirty resource.
-	 */
-	private void setAmountResourceStoredCacheDirty(int resource) {
-
 		// Initialize amount resource stored cache if necessary.
 		if (storedCache == null) {
 			initializeAmountResourceStoredCache();
 		}
 
-		storedCacheDirty.put(resource, true);
+		return storedCache.isDirty(resource);
 	}
 
 	/**
@@ -2734,12 +2827,10 @@ public class Inventory implements Serializable {
 			initializeAmountResourceStoredCache();
 		}
 
-		for (int id : ResourceUtil.getIDs()) { //allStoredARCache
-			setAmountResourceStoredCacheDirty(id);
+		storedCache.setAllDirty();
 
-			if (containersDirty) {
-				containersStoredCacheDirty.put(id, true);
-			}
+		if (containersDirty) {
+			containersStoredCache.setAllDirty();
 		}
 		
 		// Set owner unit's amount resource stored cache as dirty (if any).
@@ -2766,26 +2857,12 @@ public class Inventory implements Serializable {
 	 */
 	private double getAmountResourceStoredCacheValue(final int resource, final boolean allowDirty) {
 
-		// Initialize amount resource stored cache if necessary.
-		if (storedCache == null) {
-			initializeAmountResourceStoredCache();
-		}
-
 		// Update amount resource stored cache if it is dirty.
-		if (!allowDirty && isAmountResourceStoredCacheDirty(resource)) {
+		if (isAmountResourceStoredCacheDirty(resource) && !allowDirty) {
 			updateAmountResourceStoredCache(resource);
 		}
 
-		// Check if amountResourceStoredCache contains the resource
-		if (storedCache.containsKey(resource))
-			return storedCache.get(resource);
-		else {
-			capacityCache.put(resource, 0D);
-			return 0;
-		}
-
-		// return amountResourceStoredCache.get(resource);
-
+		return storedCache.get(resource);
 	}
 
 	/**
@@ -2801,35 +2878,62 @@ public class Inventory implements Serializable {
 			stored += resourceStorage.getAmountResourceStored(resource);
 		}
 
+		stored += getContainersStored(resource);
+
+		storedCache.set(resource, stored);
+	}
+
+	/**
+	 * Gets the amount of a resource stored in the contained containers, from the
+	 * cache if it is clean.
+	 * 
+	 * @param resource the resource.
+	 * @return stored amount (kg) in the containers.
+	 */
+	private double getContainersStored(int resource) {
+
+		// Initialize amount resource stored cache if necessary.
+		if (containersStoredCache == null) {
+			initializeAmountResourceStoredCache();
+		}
+
+		if (!containersStoredCache.isDirty(resource)) {
+			return containersStoredCache.get(resource);
+		}
+
 		double containerStored = 0D;
-		if (containersStoredCacheDirty == null)
-			containersStoredCacheDirty = new ConcurrentHashMap<>();
-		else if (containersStoredCacheDirty.containsKey(resource)) {
-			if (containersStoredCacheDirty.get(resource)) {
-				if (containedUnitIDs != null) {
-					for (Unit unit : getContainedUnits()) {
-						if (unit instanceof Container) {
-							containerStored += unit.getInventory().getAmountResourceStored(resource, false);
-						}
-					}
+		if (containedUnitIDs != null) {
+			for (Unit unit : getContainedUnits()) {
+				if (unit instanceof Container) {
+					containerStored += unit.getInventory().getAmountResourceStored(resource, false);
 				}
-				containersStoredCache.put(resource, containerStored);
-				containersStoredCacheDirty.put(resource, false);
-			} else {
-				containerStored = containersStoredCache.get(resource);
 			}
 		}
-		// Add checking amountResourceContainersStoredCache
-		else if (containersStoredCache.containsKey(resource)) {
-			containerStored = containersStoredCache.get(resource);
-		} else {
-			// containerStored = amountResourceContainersStoredCache.get(resource);
-		}
+		containersStoredCache.set(resource, containerStored);
 
-		stored += containerStored;
+		return containerStored;
+	}
 
-		storedCache.put(resource, stored);
-		storedCacheDirty.put(resource, false);
+	/**
+	 * Gets the approximate number of bytes taken on the heap by the resource caches
+	 * and the demand and supply tables of this inventory.
+	 * 
+	 * @return the footprint in bytes.
+	 */
+	public long getMemoryFootprint() {
+		long bytes = 0;
+		for (ResourceCache c : new ResourceCache[] { capacityCache, containersCapacityCache, storedCache,
+				containersStoredCache }) {
+			if (c != null)
+				bytes += c.getMemoryFootprint();
+		}
+		for (ResourceTable t : new ResourceTable[] { amountDemandTotalRequestMap, amountDemandMetRequestMap,
+				amountDemandMap, amountDemandEstimatedMap, amountSupplyMap, amountSupplyRequestMap,
+				itemDemandTotalRequestMap, itemDemandMetRequestMap, itemDemandMap, itemDemandEstimatedMap,
+				itemSupplyMap, itemSupplyRequestMap }) {
+			bytes += t.getMemoryFootprint();
+		}
+		return bytes;
 	}
 
 	/**
@@ -2956,13 +3060,17 @@ public class Inventory implements Serializable {
 	 * @return total amount resources stored cache value.
 	 */
 	public double getTotalAmountResourcesStoredCache(boolean allowDirty) {
+		ReentrantLock lock = lock();
+		try {
+			// Update total amount resources stored cache if it is dirty.
+			if (!allowDirty && totalAmountResourcesStoredCacheDirty) {
+				updateTotalAmountResourcesStoredCache();
+			}
 
-		// Update total amount resources stored cache if it is dirty.
-		if (!allowDirty && totalAmountResourcesStoredCacheDirty) {
-			updateTotalAmountResourcesStoredCache();
+			return totalAmountResourcesStoredCache;
+		} finally {
+			lock.unlock();
 		}
-
-		return totalAmountResourcesStoredCache;
 	}
 
 	/**
@@ -2971,32 +3079,16 @@ public class Inventory implements Serializable {
 	 */
 	private void updateTotalAmountResourcesStoredCache() {
 
+		// Note: the resources held by the containers are part of their unit mass
 		double tempStored = 0D;
 		if (resourceStorage != null) {
 			tempStored += resourceStorage.getTotalAmountResourcesStored(false);
 		}
 
-		if (containedUnitIDs != null) {
-			for (Unit unit : getContainedUnits()) {
-				tempStored = unit.getInventory().getTotalAmountResourcesStored(false);
-			}
-		}
-
 		totalAmountResourcesStoredCache = tempStored;
 		totalAmountResourcesStoredCacheDirty = false;
 	}
 
-	/**
-	 * Sets the item resource total mass cache as dirty.
-	 */
-	private void setItemResourceTotalMassCacheDirty() {
-
-		itemResourceTotalMassCacheDirty = true;
-
-		// Set total inventory mass cache dirty as well.
-		setTotalInventoryMassCacheDirty();
-	}
-
 	/**
 	 * Gets the total amount resource stored cache value.
 	 * 
@@ -3164,8 +3256,13 @@ public class Inventory implements Serializable {
 	}
 	
 	public void restoreARs(AmountResource[] ars) {
-		if (resourceStorage != null)
-			resourceStorage.restoreARs(ars);
+		ReentrantLock lock = lock();
+		try {
+			if (resourceStorage != null)
+				resourceStorage.restoreARs(ars);
+		} finally {
+			lock.unlock();
+		}
 	}
 
 	/**
@@ -3187,35 +3284,61 @@ public class Inventory implements Serializable {
 	}
 
 	public void setCacheDirty(int type) {
-		// Set owner unit's amount resource stored cache as dirty (if any).	
-		Unit owner = getOwner();
-		if (owner != null 
-				&& (owner.getIdentifier() != Unit.MARS_SURFACE_UNIT_ID 
-				|| owner.getContainerID() != Unit.OUTER_SPACE_UNIT_ID)) {
-			Unit cu = owner.getContainerUnit();
-			if (cu != null) {
+		ReentrantLock lock = lock();
+		try {
+			// Set owner unit's amount resource stored cache as dirty (if any).	
+			Unit owner = getOwner();
+			if (owner != null 
+					&& (owner.getIdentifier() != Unit.MARS_SURFACE_UNIT_ID 
+					|| owner.getContainerID() != Unit.OUTER_SPACE_UNIT_ID)) {
+				Unit cu = owner.getContainerUnit();
+				if (cu != null) {
 		
-				if (type == 0)
-					cu.getInventory().setAmountResourceCapacityCacheAllDirty(true);
-				else if (type == 1)
-					cu.getInventory().setAmountResourceStoredCacheAllDirty(true);
-				else if (type == 2)
-					cu.getInventory().setAllStoredARCacheDirty();
-				else if (type == 3)
-					cu.getInventory().setTotalAmountResourcesStoredCacheDirty();
-				else if (type == 4)
-					cu.getInventory().setUnitTotalMassCacheDirty();
+					if (type == 0)
+						cu.getInventory().setAmountResourceCapacityCacheAllDirty(true);
+					else if (type == 1)
+						cu.getInventory().setAmountResourceStoredCacheAllDirty(true);
+					else if (type == 2)
+						cu.getInventory().setAllStoredARCacheDirty();
+					else if (type == 3)
+						cu.getInventory().setTotalAmountResourcesStoredCacheDirty();
+					else if (type == 4)
+						cu.getInventory().setUnitTotalMassCacheDirty();
+				}
 			}
-		}
 		
 		
-//		Unit container = owner.getContainerUnit();
-//		if (owner.getContainerID() != 0 && owner.getContainerUnit() != null) { 
-//		// Note : still need (container != null) since MarsSurface may not have been initiated
-//			owner.getContainerUnit().getInventory().setAmountResourceCapacityCacheAllDirty(true);
-//		}
+	//		Unit container = owner.getContainerUnit();
+	//		if (owner.getContainerID() != 0 && owner.getContainerUnit() != null) { 
+	//		// Note : still need (container != null) since MarsSurface may not have been initiated
+	//			owner.getContainerUnit().getInventory().setAmountResourceCapacityCacheAllDirty(true);
+	//		}
+		} finally {
+			lock.unlock();
+		}
 	}
 	
+	/**
+	 * Marks every cache of this inventory as dirty so that the next reads count
+	 * everything again, e.g. to check the running totals against a recount.
+	 */
+	void setAllCachesDirty() {
+		ReentrantLock lock = lock();
+		try {
+			setAmountResourceCapacityCacheAllDirty(true);
+			setAmountResourceStoredCacheAllDirty(true);
+			synchronized (this) {
+				allStoredAmountResourcesCacheDirty = true;
+				totalAmountResourcesStoredCacheDirty = true;
+				itemResourceTotalMassCacheDirty = true;
+				unitTotalMassCacheDirty = true;
+				totalInventoryMassCacheDirty = true;
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
 	public static void initializeInstances(UnitManager um, MarsSurface ms) {
 		unitManager = um;
 		marsSurface = ms;
@@ -3230,6 +3353,7 @@ public class Inventory implements Serializable {
         if (containedUnitIDs != null) 
         	containedUnitIDs.clear();
 		containedUnitIDs = null;
+		clearUnitIndex();
         if (containedItemResources != null) 
         	containedItemResources.clear();
 		containedItemResources = null;
@@ -3248,15 +3372,11 @@ public class Inventory implements Serializable {
 //        if (allStoredAmountResourcesCache != null) allStoredAmountResourcesCache.clear();
 //        allStoredAmountResourcesCache = null;
 		capacityCache = null;
-		capacityCacheDirty = null;
-		storedCacheDirty = null;
 		allStoredARCache = null;
 
 		containersCapacityCache = null;
-		containersCapacityCacheDirty = null;
 		storedCache = null;
 		containersStoredCache = null;
-		containersStoredCacheDirty = null;
 	}
 
 	/**
@@ -3270,6 +3390,7 @@ public class Inventory implements Serializable {
 
 		in.defaultReadObject();
 		
+		treeLock = new ReentrantLock();
 		// Initialize transient variables that need it.
 		allStoredAmountResourcesCacheDirty = true;
 		totalAmountResourcesStoredCacheDirty = true;
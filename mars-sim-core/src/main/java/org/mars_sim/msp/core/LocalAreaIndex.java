@@ -0,0 +1,369 @@
+/**
+ * Mars Simulation Project
+ * LocalAreaIndex.java
+ * @version 3.1.2 2026-10-17
+ * @author agent
+ */
+package org.mars_sim.msp.core;
+
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Area;
+import java.awt.geom.Path2D;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.mars_sim.msp.core.structure.Settlement;
+import org.mars_sim.msp.core.structure.building.Building;
+import org.mars_sim.msp.core.structure.construction.ConstructionSite;
+import org.mars_sim.msp.core.vehicle.Vehicle;
+
+/**
+ * A uniform grid of the footprints of the buildings, construction sites and
+ * vehicles at a settlement, so that a collision query only looks at the
+ * objects in the cells it overlaps. The index of a settlement is built the
+ * first time its local area is queried, then kept up to date as the objects
+ * are added, moved or removed.
+ */
+public final class LocalAreaIndex {
+
+	/** The vehicles. */
+	public static final int VEHICLES = 1;
+	/** The buildings, including the ones in transport. */
+	public static final int BUILDINGS = 2;
+	/** The construction sites. */
+	public static final int SITES = 4;
+	/** The buildings not in transport and the construction sites. */
+	public static final int IMMOVABLES = 8;
+	/** All the objects. */
+	public static final int ALL = VEHICLES | BUILDINGS | SITES;
+
+	/** The size of a cell (meters). */
+	private static final double CELL_SIZE = 10D;
+
+	/** The indexes by the coordinates of their settlement. */
+	private static final Map<Coordinates, LocalAreaIndex> indexes = new ConcurrentHashMap<>();
+	/** The index each object is in. */
+	private static final Map<LocalBoundedObject, LocalAreaIndex> owners = Collections
+			.synchronizedMap(new IdentityHashMap<>());
+
+	/** The footprints overlapping each cell. */
+	private final Map<Long, List<Footprint>> cells = new HashMap<>();
+	/** The footprint of each object. */
+	private final Map<LocalBoundedObject, Footprint> footprints = new IdentityHashMap<>();
+
+	private int queryCount;
+
+	/**
+	 * Private constructor.
+	 */
+	private LocalAreaIndex() {
+	}
+
+	/**
+	 * Gets the index of the settlement at a location, building it if needed.
+	 *
+	 * @param coordinates the location.
+	 * @return the index or null if there is no settlement there.
+	 */
+	static LocalAreaIndex getIndex(Coordinates coordinates) {
+		LocalAreaIndex result = indexes.get(coordinates);
+		if (result == null) {
+			UnitManager unitManager = Simulation.instance().getUnitManager();
+			if (unitManager == null)
+				return null;
+			Settlement settlement = null;
+			for (Settlement s : unitManager.getSettlements()) {
+				if (s.getCoordinates().equals(coordinates)) {
+					settlement = s;
+					break;
+				}
+			}
+			if (settlement == null)
+				return null;
+
+			synchronized (indexes) {
+				result = indexes.get(coordinates);
+				if (result == null) {
+					result = new LocalAreaIndex();
+					// Hold the index while it is built so the objects added meanwhile wait
+					synchronized (result) {
+						indexes.put(new Coordinates(coordinates), result);
+						result.build(settlement, unitManager);
+					}
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Adds an object to the index of the settlement at a location, if built.
+	 *
+	 * @param object      the building, construction site or vehicle.
+	 * @param coordinates the location of the object.
+	 */
+	public static void add(LocalBoundedObject object, Coordinates coordinates) {
+		LocalAreaIndex index = indexes.get(coordinates);
+		LocalAreaIndex old = owners.get(object);
+		if (old != null && old != index)
+			old.delete(object);
+		if (index != null)
+			index.put(object);
+	}
+
+	/**
+	 * Updates the footprint of an object that has moved or changed size.
+	 *
+	 * @param object the object.
+	 */
+	public static void update(LocalBoundedObject object) {
+		LocalAreaIndex index = owners.get(object);
+		if (index != null)
+			index.put(object);
+	}
+
+	/**
+	 * Removes an object from the index it is in, if any.
+	 *
+	 * @param object the object.
+	 */
+	public static void remove(LocalBoundedObject object) {
+		LocalAreaIndex index = owners.get(object);
+		if (index != null)
+			index.delete(object);
+	}
+
+	/**
+	 * Discards all the indexes, e.g. when a simulation is loaded.
+	 */
+	public static void clear() {
+		synchronized (indexes) {
+			indexes.clear();
+			owners.clear();
+		}
+	}
+
+	/**
+	 * Adds the buildings, construction sites and vehicles of a settlement.
+	 */
+	private void build(Settlement settlement, UnitManager unitManager) {
+		for (Building b : settlement.getBuildingManager().getACopyOfBuildings()) {
+			put(b);
+		}
+		for (ConstructionSite site : settlement.getConstructionManager().getConstructionSites()) {
+			put(site);
+		}
+		Coordinates coordinates = settlement.getCoordinates();
+		for (Vehicle vehicle : unitManager.getVehicles()) {
+			if (vehicle.getCoordinates().equals(coordinates))
+				put(vehicle);
+		}
+	}
+
+	/**
+	 * Adds an object or moves its footprint.
+	 */
+	private synchronized void put(LocalBoundedObject object) {
+		Footprint footprint = footprints.get(object);
+		if (footprint != null) {
+			removeFromCells(footprint);
+			footprint.update();
+		} else {
+			owners.put(object, this);
+			footprint = new Footprint(object);
+			footprints.put(object, footprint);
+		}
+
+		for (int x = footprint.minCellX; x <= footprint.maxCellX; x++) {
+			for (int y = footprint.minCellY; y <= footprint.maxCellY; y++) {
+				cells.computeIfAbsent(getCellKey(x, y), k -> new ArrayList<>(4)).add(footprint);
+			}
+		}
+	}
+
+	/**
+	 * Removes an object.
+	 */
+	private synchronized void delete(LocalBoundedObject object) {
+		Footprint footprint = footprints.remove(object);
+		if (footprint != null) {
+			removeFromCells(footprint);
+			owners.remove(object, this);
+		}
+	}
+
+	private void removeFromCells(Footprint footprint) {
+		for (int x = footprint.minCellX; x <= footprint.maxCellX; x++) {
+			for (int y = footprint.minCellY; y <= footprint.maxCellY; y++) {
+				Long key = getCellKey(x, y);
+				List<Footprint> cell = cells.get(key);
+				if (cell != null) {
+					cell.remove(footprint);
+					if (cell.isEmpty())
+						cells.remove(key);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Gets the objects of some kinds.
+	 *
+	 * @param kinds the kinds of objects, e.g. {@link #VEHICLES}.
+	 * @return the objects.
+	 */
+	synchronized List<LocalBoundedObject> getObjects(int kinds) {
+		List<LocalBoundedObject> result = new ArrayList<>();
+		for (Footprint footprint : footprints.values()) {
+			if (isKind(footprint.object, kinds))
+				result.add(footprint.object);
+		}
+		return result;
+	}
+
+	/**
+	 * Checks if a point is within any object of some kinds.
+	 *
+	 * @param xLoc  the X location.
+	 * @param yLoc  the Y location.
+	 * @param kinds the kinds of objects.
+	 * @return true if the point is within an object.
+	 */
+	synchronized boolean contains(double xLoc, double yLoc, int kinds) {
+		List<Footprint> cell = cells.get(getCellKey(getCell(xLoc), getCell(yLoc)));
+		if (cell != null) {
+			for (Footprint footprint : cell) {
+				if (isKind(footprint.object, kinds) && footprint.area.contains(xLoc, yLoc))
+					return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Gets the objects of some kinds whose bounds intersect a rectangle. The
+	 * caller checks their actual footprint.
+	 *
+	 * @param bounds the rectangle.
+	 * @param kinds  the kinds of objects.
+	 * @return the objects.
+	 */
+	synchronized List<LocalBoundedObject> getObjects(Rectangle2D bounds, int kinds) {
+		List<LocalBoundedObject> result = new ArrayList<>();
+		Iterator<Footprint> i = getCandidates(bounds);
+		while (i.hasNext()) {
+			Footprint footprint = i.next();
+			if (isKind(footprint.object, kinds))
+				result.add(footprint.object);
+		}
+		return result;
+	}
+
+	/**
+	 * Checks if an area intersects any object of some kinds.
+	 *
+	 * @param area    the area, e.g. a path.
+	 * @param exclude the object to leave out, or null.
+	 * @param kinds   the kinds of objects.
+	 * @return true if the area intersects an object.
+	 */
+	synchronized boolean intersects(Area area, Object exclude, int kinds) {
+		Rectangle2D bounds = area.getBounds2D();
+		Iterator<Footprint> i = getCandidates(bounds);
+		while (i.hasNext()) {
+			Footprint footprint = i.next();
+			if (footprint.object != exclude && isKind(footprint.object, kinds)
+					&& footprint.bounds.intersects(bounds)) {
+				Area collide = new Area(area);
+				collide.intersect(footprint.area);
+				if (!collide.isEmpty())
+					return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Gets the footprints in the cells a rectangle overlaps, each once.
+	 */
+	private Iterator<Footprint> getCandidates(Rectangle2D bounds) {
+		int stamp = ++queryCount;
+		List<Footprint> result = new ArrayList<>();
+		int maxX = getCell(bounds.getMaxX());
+		int maxY = getCell(bounds.getMaxY());
+		for (int x = getCell(bounds.getMinX()); x <= maxX; x++) {
+			for (int y = getCell(bounds.getMinY()); y <= maxY; y++) {
+				List<Footprint> cell = cells.get(getCellKey(x, y));
+				if (cell != null) {
+					for (Footprint footprint : cell) {
+						if (footprint.stamp != stamp) {
+							footprint.stamp = stamp;
+							result.add(footprint);
+						}
+					}
+				}
+			}
+		}
+		return result.iterator();
+	}
+
+	private static boolean isKind(LocalBoundedObject object, int kinds) {
+		if (object instanceof Vehicle)
+			return (kinds & VEHICLES) != 0;
+		if (object instanceof Building)
+			return ((kinds & BUILDINGS) != 0)
+					|| (((kinds & IMMOVABLES) != 0) && !((Building) object).getInTransport());
+		return (kinds & (SITES | IMMOVABLES)) != 0;
+	}
+
+	private static int getCell(double location) {
+		return (int) Math.floor(location / CELL_SIZE);
+	}
+
+	private static Long getCellKey(int x, int y) {
+		return ((long) x << 32) | (y & 0xffffffffL);
+	}
+
+	/**
+	 * The area and bounds an object covers, and the cells they overlap.
+	 */
+	private static final class Footprint {
+
+		private final LocalBoundedObject object;
+		private Area area;
+		private Rectangle2D bounds;
+		private int minCellX;
+		private int maxCellX;
+		private int minCellY;
+		private int maxCellY;
+		private int stamp;
+
+		private Footprint(LocalBoundedObject object) {
+			this.object = object;
+			update();
+		}
+
+		private void update() {
+			double width = object.getWidth();
+			double length = object.getLength();
+			Rectangle2D rect = new Rectangle2D.Double(object.getXLocation() - (width / 2D),
+					object.getYLocation() - (length / 2D), width, length);
+			AffineTransform at = AffineTransform.getRotateInstance(object.getFacing() * (Math.PI / 180D),
+					rect.getCenterX(), rect.getCenterY());
+			Path2D path = new Path2D.Double(rect, at);
+			area = new Area(path);
+			bounds = path.getBounds2D();
+			minCellX = getCell(bounds.getMinX());
+			maxCellX = getCell(bounds.getMaxX());
+			minCellY = getCell(bounds.getMinY());
+			maxCellY = getCell(bounds.getMaxY());
+		}
+	}
+}
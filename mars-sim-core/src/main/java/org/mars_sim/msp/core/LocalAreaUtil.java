@@ -13,6 +13,7 @@ import java.awt.geom.Line2D;
 import java.awt.geom.Path2D;
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
+import java.util.Collection;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
@@ -42,7 +43,8 @@ public class LocalAreaUtil {
 	private static final double VERY_SMALL_DISTANCE = .00001D;
 
 	/**
-	 * Cache for total area containing obstacles for a given coordinate location.
+	 * Cache for total area containing obstacles for a given coordinate location
+	 * without a settlement, i.e. not in a {@link LocalAreaIndex}.
 	 */
 	private static final Map<Coordinates, Area> obstacleAreaCache = new ConcurrentHashMap<Coordinates, Area>();
 
@@ -210,6 +212,10 @@ public class LocalAreaUtil {
 	 */
 	public static boolean isLocationCollisionFree(double xLoc, double yLoc, Coordinates coordinates) {
 
+		LocalAreaIndex index = LocalAreaIndex.getIndex(coordinates);
+		if (index != null)
+			return !index.contains(xLoc, yLoc, LocalAreaIndex.ALL);
+
 		boolean result = true;
 
 		Iterator<LocalBoundedObject> i = getAllLocalBoundedObjectsAtLocation(coordinates).iterator();
@@ -238,6 +244,10 @@ public class LocalAreaUtil {
 	 */
 	public static boolean checkImmovableCollision(double xLoc, double yLoc, Coordinates coordinates) {
 
+		LocalAreaIndex index = LocalAreaIndex.getIndex(coordinates);
+		if (index != null)
+			return !index.contains(xLoc, yLoc, LocalAreaIndex.IMMOVABLES);
+
 		boolean result = true;
 
 		Iterator<LocalBoundedObject> i = getAllImmovableBoundedObjectsAtLocation(coordinates).iterator();
@@ -268,7 +278,8 @@ public class LocalAreaUtil {
 			boolean needToMove) {
 		boolean result = false;
 
-		Iterator<LocalBoundedObject> i = getAllVehicleBoundedObjectsAtLocation(coordinates).iterator();
+		Iterator<LocalBoundedObject> i = getVehicleBoundedObjectsNear(getBoundingRectangle(object), coordinates)
+				.iterator();
 		while (i.hasNext()) {
 			LocalBoundedObject vehicle = i.next();
 
@@ -301,7 +312,8 @@ public class LocalAreaUtil {
 
 		boolean result = true;
 
-		Iterator<LocalBoundedObject> i = getAllVehicleBoundedObjectsAtLocation(coordinates).iterator();
+		Iterator<LocalBoundedObject> i = getVehicleBoundedObjectsNear(new Rectangle2D.Double(xLoc, yLoc, 0D, 0D),
+				coordinates).iterator();
 		while (i.hasNext()) {
 			LocalBoundedObject object = i.next();
 			if (isLocationWithinLocalBoundedObject(xLoc, yLoc, object)) {
@@ -351,6 +363,12 @@ public class LocalAreaUtil {
 
 		Set<LocalBoundedObject> result = ConcurrentHashMap.newKeySet();
 
+		LocalAreaIndex index = LocalAreaIndex.getIndex(coordinates);
+		if (index != null) {
+			result.addAll(index.getObjects(LocalAreaIndex.VEHICLES));
+			return result;
+		}
+
 		// Add all vehicles at location.
 		Iterator<Vehicle> i = unitManager.getVehicles().iterator();
 		while (i.hasNext()) {
@@ -363,6 +381,22 @@ public class LocalAreaUtil {
 		return result;
 	}
 
+	/**
+	 * Gets the vehicles at a given coordinate location that may overlap an area,
+	 * i.e. only the ones near it if the location is indexed.
+	 * 
+	 * @param bounds      the bounds of the area.
+	 * @param coordinates the coordinate location.
+	 * @return the vehicles.
+	 */
+	private static Collection<LocalBoundedObject> getVehicleBoundedObjectsNear(Rectangle2D bounds,
+			Coordinates coordinates) {
+		LocalAreaIndex index = LocalAreaIndex.getIndex(coordinates);
+		if (index != null)
+			return index.getObjects(bounds, LocalAreaIndex.VEHICLES);
+		return getAllVehicleBoundedObjectsAtLocation(coordinates);
+	}
+
 	/**
 	 * Checks for collisions with any immovable objects
 	 * 
@@ -374,6 +408,10 @@ public class LocalAreaUtil {
 																													// boolean
 																													// needToMove)
 																													// {
+		LocalAreaIndex index = LocalAreaIndex.getIndex(coordinates);
+		if (index != null)
+			return index.intersects(getBoundedObjectArea(object), null, LocalAreaIndex.IMMOVABLES);
+
 		Iterator<LocalBoundedObject> i = getAllImmovableBoundedObjectsAtLocation(coordinates).iterator();
 		while (i.hasNext()) {
 			LocalBoundedObject immovable = i.next();
@@ -398,6 +436,12 @@ public class LocalAreaUtil {
 
 		Set<LocalBoundedObject> result = ConcurrentHashMap.newKeySet();
 
+		LocalAreaIndex index = LocalAreaIndex.getIndex(coordinates);
+		if (index != null) {
+			result.addAll(index.getObjects(LocalAreaIndex.IMMOVABLES));
+			return result;
+		}
+
 		// Check for any settlements at coordinates.
 		Iterator<Settlement> l = unitManager.getSettlements().iterator();
 		while (l.hasNext()) {
@@ -434,6 +478,12 @@ public class LocalAreaUtil {
 
 		Set<LocalBoundedObject> result = ConcurrentHashMap.newKeySet();
 
+		LocalAreaIndex index = LocalAreaIndex.getIndex(coordinates);
+		if (index != null) {
+			result.addAll(index.getObjects(LocalAreaIndex.ALL));
+			return result;
+		}
+
 		// Add all vehicles at location.
 		Iterator<Vehicle> i = unitManager.getVehicles().iterator();
 		while (i.hasNext()) {
@@ -751,6 +801,11 @@ public class LocalAreaUtil {
 	 */
 	private static boolean isPathCollisionFree(Object object, Path2D path, Coordinates coordinates, boolean useCache) {
 
+		// At a settlement, only check the objects in the cells the path overlaps.
+		LocalAreaIndex index = LocalAreaIndex.getIndex(coordinates);
+		if (index != null)
+			return !index.intersects(new Area(path), object, LocalAreaIndex.ALL);
+
 		boolean result = true;
 
 		// Check if obstacle area has been cached for this coordinate location if using
@@ -7,11 +7,15 @@
 
 package org.mars_sim.msp.core;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.function.Supplier;
 
 import org.mars_sim.msp.core.time.EarthClock;
 import org.mars_sim.msp.core.time.MarsClock;
@@ -22,6 +26,13 @@ import com.google.common.flogger.FluentLogger;
 // 		LogConsolidated.log(logger, Level.WARN, 5000, "File: " + f + " not found.", e);
 //	Instead of:
 //		logger.warn("File: " + f + " not found.", e);
+//	On a hot path, register a key once and pass the message lazily
+//		private static final int NOT_FOUND_LOG = LogConsolidated.key("FileReader.notFound");
+//		LogConsolidated.log(logger, Level.WARN, 5000, NOT_FOUND_LOG, sourceName, "File: %s not found.", f);
+//	or, for a message with more arguments, acquire the key before building it
+//		int count = LogConsolidated.acquire(logger, Level.WARN, 5000, NOT_FOUND_LOG);
+//		if (count > 0)
+//			LogConsolidated.logAcquired(logger, Level.WARN, count, sourceName, "File: " + f + " not found.", e);
 
 public class LogConsolidated {
 
@@ -30,6 +41,12 @@ public class LogConsolidated {
 	
 	private static Map<String, TimeAndCount> lastLogged = new ConcurrentHashMap<>();
 
+	/** The keyed rate limits, by key. */
+	private static volatile RateLimit[] rateLimits = new RateLimit[64];
+	/** The keys, by name. */
+	private static Map<String, Integer> keys = new ConcurrentHashMap<>();
+	private static int keyCount;
+
 	private static final String OPEN_BRACKET = " [x";
 	private static final String CLOSED_BRACKET = "]";
 	private static final String COLON = " : ";
@@ -90,12 +107,12 @@ public class LogConsolidated {
 			Throwable t) {
 		long dTime = timeBetweenLogs;
 //		System.out.print(sourceName + " - ");
-		String className = sourceName;
-		if (sourceName.contains("."))
-			className = sourceName.substring(sourceName.lastIndexOf(PERIOD) + 1, sourceName.length());
+		String className = getClassName(sourceName);
 //		System.out.println(className);
 		
-//		if (logger.isEnabledFor(level)) {
+		// Skip the stack walk if the message would not be shown anyway
+		if (!logger.isLoggable(level))
+			return;
 		String uniqueIdentifier = getFileAndLine();
 		TimeAndCount lastTimeAndCount = lastLogged.get(uniqueIdentifier);
 		if (lastTimeAndCount != null) {
@@ -104,6 +121,7 @@ public class LogConsolidated {
 				if (now - lastTimeAndCount.startTime < dTime) {
 					// Increment count only since the message in the same and is within the time prescribed
 					lastTimeAndCount.count++;
+					lastTimeAndCount.suppressed++;
 					return;
 				} else {
 					// Print the log statement with counts
@@ -111,6 +129,9 @@ public class LogConsolidated {
 							className	 
 							+ OPEN_BRACKET + lastTimeAndCount.count + CLOSED_BRACKET
 							+ COLON + message, t);
+					lastTimeAndCount.startTime = now;
+					lastTimeAndCount.count = 1;
+					lastTimeAndCount.logged++;
 				}
 			}
 		}
@@ -118,10 +139,275 @@ public class LogConsolidated {
 		else {
 			// Print the log statement
 			log(logger, level, className + ONCE + COLON + message, t);
+			// Register the message
+			lastLogged.put(uniqueIdentifier, new TimeAndCount(uniqueIdentifier));
+		}
+	}
+
+	/**
+	 * Registers a message key for the keyed log methods. The same name always
+	 * gives the same key, so this is meant to be kept in a static constant of
+	 * the calling class.
+	 * 
+	 * @param name A stable name of the message, e.g. "Farming.cropIssue".
+	 * @return the key.
+	 */
+	public static int key(String name) {
+		Integer result = keys.get(name);
+		if (result == null) {
+			synchronized (keys) {
+				result = keys.get(name);
+				if (result == null) {
+					result = keyCount++;
+					RateLimit[] limits = rateLimits;
+					if (result >= limits.length) {
+						limits = Arrays.copyOf(limits, limits.length * 2);
+					}
+					limits[result] = new RateLimit(name);
+					rateLimits = limits;
+					keys.put(name, result);
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Logs the message of a key as long as the level is active for the logger
+	 * and the same key has not been logged within the past
+	 * <code>timeBetweenLogs</code>. The check is done before the message is
+	 * built, so a skipped message costs no string at all.
+	 * 
+	 * @param logger          Where to log.
+	 * @param level           Level to log.
+	 * @param timeBetweenLogs Milliseconds to wait between logs of the key.
+	 * @param key             The message key from {@link #key(String)}.
+	 * @param sourceName      The name of the calling class.
+	 * @param message         Builds the actual message to log.
+	 */
+	public static void log(Logger logger, Level level, long timeBetweenLogs, int key, String sourceName,
+			Supplier<String> message) {
+		log(logger, level, timeBetweenLogs, key, sourceName, message, null);
+	}
+
+	/**
+	 * Logs the message of a key as long as the level is active for the logger
+	 * and the same key has not been logged within the past
+	 * <code>timeBetweenLogs</code>.
+	 * 
+	 * @param logger          Where to log.
+	 * @param level           Level to log.
+	 * @param timeBetweenLogs Milliseconds to wait between logs of the key.
+	 * @param key             The message key from {@link #key(String)}.
+	 * @param sourceName      The name of the calling class.
+	 * @param message         Builds the actual message to log.
+	 * @param t               Can be null. Will log stack trace if not null.
+	 */
+	public static void log(Logger logger, Level level, long timeBetweenLogs, int key, String sourceName,
+			Supplier<String> message, Throwable t) {
+		int count = acquire(logger, level, timeBetweenLogs, key);
+		if (count > 0) {
+			logAcquired(logger, level, count, sourceName, message.get(), t);
+		}
+	}
+
+	/**
+	 * Logs the message of a key as long as the level is active for the logger
+	 * and the same key has not been logged within the past
+	 * <code>timeBetweenLogs</code>. The message is only formatted, with
+	 * {@link String#format(String, Object...)}, when it is logged.
+	 * 
+	 * @param logger          Where to log.
+	 * @param level           Level to log.
+	 * @param timeBetweenLogs Milliseconds to wait between logs of the key.
+	 * @param key             The message key from {@link #key(String)}.
+	 * @param sourceName      The name of the calling class.
+	 * @param format          The format of the message.
+	 * @param args            The arguments of the format.
+	 */
+	public static void log(Logger logger, Level level, long timeBetweenLogs, int key, String sourceName,
+			String format, Object... args) {
+		int count = acquire(logger, level, timeBetweenLogs, key);
+		if (count > 0) {
+			logAcquired(logger, level, count, sourceName, String.format(format, args), null);
+		}
+	}
+
+	/**
+	 * Logs the message of a key with one argument. Unlike the varargs method,
+	 * nothing is allocated when the message is not logged.
+	 * 
+	 * @see #log(Logger, Level, long, int, String, String, Object...)
+	 */
+	public static void log(Logger logger, Level level, long timeBetweenLogs, int key, String sourceName,
+			String format, Object arg1) {
+		int count = acquire(logger, level, timeBetweenLogs, key);
+		if (count > 0) {
+			logAcquired(logger, level, count, sourceName, String.format(format, arg1), null);
 		}
+	}
 
-		// Register the message
-		lastLogged.put(uniqueIdentifier, new TimeAndCount());
+	/**
+	 * Logs the message of a key with two arguments. Unlike the varargs method,
+	 * nothing is allocated when the message is not logged.
+	 * 
+	 * @see #log(Logger, Level, long, int, String, String, Object...)
+	 */
+	public static void log(Logger logger, Level level, long timeBetweenLogs, int key, String sourceName,
+			String format, Object arg1, Object arg2) {
+		int count = acquire(logger, level, timeBetweenLogs, key);
+		if (count > 0) {
+			logAcquired(logger, level, count, sourceName, String.format(format, arg1, arg2), null);
+		}
+	}
+
+	/**
+	 * Logs the message of a key with a number between two arguments. Unlike the
+	 * varargs method, the number is not boxed when the message is not logged.
+	 * 
+	 * @see #log(Logger, Level, long, int, String, String, Object...)
+	 */
+	public static void log(Logger logger, Level level, long timeBetweenLogs, int key, String sourceName,
+			String format, Object arg1, double arg2, Object arg3) {
+		int count = acquire(logger, level, timeBetweenLogs, key);
+		if (count > 0) {
+			logAcquired(logger, level, count, sourceName, String.format(format, arg1, arg2, arg3), null);
+		}
+	}
+
+	/**
+	 * Logs the message of a key with two arguments and a number. Unlike the
+	 * varargs method, the number is not boxed when the message is not logged.
+	 * 
+	 * @see #log(Logger, Level, long, int, String, String, Object...)
+	 */
+	public static void log(Logger logger, Level level, long timeBetweenLogs, int key, String sourceName,
+			String format, Object arg1, Object arg2, double arg3) {
+		int count = acquire(logger, level, timeBetweenLogs, key);
+		if (count > 0) {
+			logAcquired(logger, level, count, sourceName, String.format(format, arg1, arg2, arg3), null);
+		}
+	}
+
+	/**
+	 * Logs a message of a key acquired with
+	 * {@link #acquire(Logger, Level, long, int)}.
+	 * 
+	 * @param logger     Where to log.
+	 * @param level      Level to log.
+	 * @param count      The count returned by the acquire.
+	 * @param sourceName The name of the calling class.
+	 * @param message    The actual message to log.
+	 * @param t          Can be null. Will log stack trace if not null.
+	 */
+	public static void logAcquired(Logger logger, Level level, int count, String sourceName, String message,
+			Throwable t) {
+		log(logger, level, getClassName(sourceName) + OPEN_BRACKET + count + CLOSED_BRACKET + COLON + message, t);
+	}
+
+	/**
+	 * Checks the rate limit of a key and counts the message in. A call site
+	 * whose message takes more than the arguments of the log methods acquires
+	 * the key first, and only builds the message and calls
+	 * {@link #logAcquired(Logger, Level, int, String, String, Throwable)} if the
+	 * count is not 0.
+	 * 
+	 * @param logger          Where to log.
+	 * @param level           Level to log.
+	 * @param timeBetweenLogs Milliseconds to wait between logs of the key.
+	 * @param key             The message key from {@link #key(String)}.
+	 * @return the number of messages since the key was last logged, including
+	 *         this one, or 0 if it is not to be logged.
+	 */
+	public static int acquire(Logger logger, Level level, long timeBetweenLogs, int key) {
+		if (!logger.isLoggable(level))
+			return 0;
+		RateLimit limit = rateLimits[key];
+		synchronized (limit) {
+			long now = System.currentTimeMillis();
+			if (limit.logged > 0 && now - limit.lastTime < timeBetweenLogs) {
+				limit.suppressed++;
+				limit.totalSuppressed++;
+				return 0;
+			}
+			int result = limit.suppressed + 1;
+			limit.lastTime = now;
+			limit.suppressed = 0;
+			limit.logged++;
+			return result;
+		}
+	}
+
+	/**
+	 * Gets the number of messages of a key that have been suppressed so far.
+	 * 
+	 * @param key The message key from {@link #key(String)}.
+	 * @return the number of messages.
+	 */
+	public static long getSuppressedCount(int key) {
+		RateLimit limit = rateLimits[key];
+		synchronized (limit) {
+			return limit.totalSuppressed;
+		}
+	}
+
+	/**
+	 * Gets the number of messages of a key that have been logged so far.
+	 * 
+	 * @param key The message key from {@link #key(String)}.
+	 * @return the number of messages.
+	 */
+	public static long getLoggedCount(int key) {
+		RateLimit limit = rateLimits[key];
+		synchronized (limit) {
+			return limit.logged;
+		}
+	}
+
+	/**
+	 * Gets a report of the messages suppressed the most, from both the keyed
+	 * and the call site rate limits. A message that keeps being suppressed is
+	 * a sign of a hot spot that keeps failing.
+	 * 
+	 * @param maxLines The maximum number of messages to list.
+	 * @return the report, one message per line.
+	 */
+	public static String getSuppressionReport(int maxLines) {
+		List<long[]> counts = new ArrayList<>();
+		List<String> names = new ArrayList<>();
+		RateLimit[] limits = rateLimits;
+		for (RateLimit limit : limits) {
+			if (limit != null) {
+				synchronized (limit) {
+					counts.add(new long[] { limit.totalSuppressed, limit.logged, names.size() });
+				}
+				names.add(limit.name);
+			}
+		}
+		for (TimeAndCount tac : lastLogged.values()) {
+			synchronized (tac) {
+				counts.add(new long[] { tac.suppressed, tac.logged, names.size() });
+			}
+			names.add(tac.name);
+		}
+		counts.sort((a, b) -> Long.compare(b[0], a[0]));
+
+		StringBuilder result = new StringBuilder();
+		for (int i = 0; i < Math.min(maxLines, counts.size()); i++) {
+			long[] c = counts.get(i);
+			if (c[0] == 0)
+				break;
+			result.append(names.get((int) c[2])).append(COLON).append(c[0]).append(" suppressed, ").append(c[1])
+					.append(" logged").append(System.lineSeparator());
+		}
+		return result.toString();
+	}
+
+	private static String getClassName(String sourceName) {
+		int index = sourceName.lastIndexOf(PERIOD);
+		if (index >= 0)
+			return sourceName.substring(index + 1);
+		return sourceName;
 	}
 
 	private static void log(Logger logger, Level level, String message, Throwable t) {
@@ -235,12 +521,33 @@ public class LogConsolidated {
 	 * TimeAndCount keeps track of the between time and the number of times the message has appeared
 	 */
 	private static class TimeAndCount {
+		protected String name;
 		protected long startTime;
 		protected int count;
+		protected long suppressed;
+		protected long logged;
 
-		TimeAndCount() {
+		TimeAndCount(String name) {
+			this.name = name;
 			this.startTime = System.currentTimeMillis();
 			this.count = 1;
+			this.logged = 1;
+		}
+	}
+
+	/**
+	 * RateLimit keeps track of the last time a message key was logged and of how
+	 * many of its messages have been suppressed.
+	 */
+	private static class RateLimit {
+		private final String name;
+		private long lastTime;
+		private int suppressed;
+		private long totalSuppressed;
+		private long logged;
+
+		RateLimit(String name) {
+			this.name = name;
 		}
 	}
 }
@@ -8,11 +8,8 @@ package org.mars_sim.msp.core;
 
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.EOFException;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
@@ -24,18 +21,20 @@ import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.ObjectStreamException;
 import java.io.OptionalDataException;
+import java.io.OutputStream;
 import java.io.Serializable;
 import java.io.StreamCorruptedException;
 import java.io.WriteAbortedException;
-import java.nio.file.FileSystem;
-import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -45,6 +44,7 @@ import org.mars_sim.msp.core.equipment.Equipment;
 import org.mars_sim.msp.core.events.HistoricalEventManager;
 import org.mars_sim.msp.core.interplanetary.transport.TransportManager;
 import org.mars_sim.msp.core.interplanetary.transport.resupply.Resupply;
+import org.mars_sim.msp.core.malfunction.MaintenanceIndex;
 import org.mars_sim.msp.core.malfunction.MalfunctionFactory;
 import org.mars_sim.msp.core.malfunction.MalfunctionManager;
 import org.mars_sim.msp.core.manufacture.ManufactureUtil;
@@ -62,6 +62,8 @@ import org.mars_sim.msp.core.person.ai.job.Job;
 import org.mars_sim.msp.core.person.ai.mission.Mission;
 import org.mars_sim.msp.core.person.ai.mission.MissionManager;
 import org.mars_sim.msp.core.person.ai.mission.MissionPlanning;
+import org.mars_sim.msp.core.person.ai.mission.MissionPlanningContext;
+import org.mars_sim.msp.core.person.ai.mission.TradeMarket;
 import org.mars_sim.msp.core.person.ai.role.Role;
 import org.mars_sim.msp.core.person.ai.social.RelationshipManager;
 import org.mars_sim.msp.core.person.ai.task.Walk;
@@ -101,14 +103,17 @@ import org.mars_sim.msp.core.time.MarsClock;
 import org.mars_sim.msp.core.time.MasterClock;
 import org.mars_sim.msp.core.time.SystemDateTime;
 import org.mars_sim.msp.core.tool.CheckSerializedSize;
+import org.mars_sim.msp.core.tool.ChunkedSaveInputStream;
+import org.mars_sim.msp.core.tool.ChunkedSaveOutputStream;
+import org.mars_sim.msp.core.tool.ParallelXZInputStream;
+import org.mars_sim.msp.core.tool.ParallelXZOutputStream;
+import org.mars_sim.msp.core.tool.SegmentedByteArrayOutputStream;
 import org.mars_sim.msp.core.vehicle.Vehicle;
 import org.tukaani.xz.FilterOptions;
 import org.tukaani.xz.LZMA2Options;
 import org.tukaani.xz.XZFormatException;
-import org.tukaani.xz.XZInputStream;
-import org.tukaani.xz.XZOutputStream;
 
-import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 /**
  * The Simulation class is the primary singleton class in the MSP simulation.
@@ -168,6 +173,14 @@ public class Simulation implements ClockListener, Serializable {
 
 	/** The minimum size of heap space in bytes */
 	public final static int MIN_HEAP_SPACE = 64*1024*1024;
+	/** The longest wait for a background save to be written on exit, in seconds. */
+	private final static int SAVE_WAIT_TIMEOUT = 120;
+	/** The xz preset of the save file. For mid sized archives (>8mb), 7 works better. */
+	private final static int SAVE_PRESET = 4;
+	/** The maximum payload size of a chunk in the save file in bytes */
+	public final static int SAVE_CHUNK_SIZE = 1024*1024;
+	/** The size of the file buffers used when saving and loading in bytes */
+	private final static int SAVE_BUFFER_SIZE = 64*1024;
 	
 	/** true if displaying graphic user interface. */
 	private transient boolean useGUI = true;
@@ -195,6 +208,16 @@ public class Simulation implements ClockListener, Serializable {
 
 	/** The simulation thread executor service. */
 	private transient ExecutorService simExecutor;
+	/** The low priority executor for writing background saves. */
+	private transient ExecutorService saveExecutor;
+	/** The pool for compressing and decompressing the blocks of save files. */
+	private transient ForkJoinPool savePool;
+	/** The background save in progress. */
+	private transient volatile Future<?> backgroundSave;
+	/** The time the clock was held up by the last background save in millis. */
+	private transient volatile long lastSaveSnapshotTime;
+	/** The total time taken by the last background save in millis. */
+	private transient volatile long lastSaveWriteTime;
 
 	// Intransient data members (stored in save file)
 	/** Planet Mars. */
@@ -364,6 +387,9 @@ public class Simulation implements ClockListener, Serializable {
 		
 		mars = new Mars(marsClock);
 		unitManager = new UnitManager();
+		LocalAreaIndex.clear();
+		MaintenanceIndex.clear();
+		MissionPlanningContext.clear();
 		
 		// Gets the SurfaceFeatures instance
 		SurfaceFeatures surfaceFeatures = mars.getSurfaceFeatures();
@@ -387,6 +413,7 @@ public class Simulation implements ClockListener, Serializable {
 		Unit.setUnitManager(unitManager);
 		Unit.initializeInstances(masterClock, marsClock, earthClock, sim, mars, 
 				marsSurface, mars.getWeather(), surfaceFeatures, new MissionManager());
+		TradeMarket.initializeInstances(marsClock, creditManager, unitManager);
 
 	}
 	
@@ -435,6 +462,9 @@ public class Simulation implements ClockListener, Serializable {
 
 		// Initialize serializable managers
 		unitManager = new UnitManager(); 
+		LocalAreaIndex.clear();
+		MaintenanceIndex.clear();
+		MissionPlanningContext.clear();
 		
 //		logger.config("Done with UnitManager");
 		
@@ -493,6 +523,7 @@ public class Simulation implements ClockListener, Serializable {
 				surfaceFeatures, missionManager, relationshipManager, pc, creditManager);
 		Task.initializeInstances(marsClock, eventManager, relationshipManager, unitManager, 
 				scientificStudyManager, surfaceFeatures, missionManager, pc);
+		TradeMarket.initializeInstances(marsClock, creditManager, unitManager);
 
 		doneInitializing = true;
 //		logger.config("Done initializing intransient data.");
@@ -629,24 +660,17 @@ public class Simulation implements ClockListener, Serializable {
     public void deserialize(File file) throws IOException, ClassNotFoundException {
 //		logger.config("deserialize() is on " + Thread.currentThread().getName());
 		
-//		byte[] buf = new byte[8192];
-		FileInputStream in = null;
-	    XZInputStream xzin = null;
-		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+	    InputStream xzin = null;
 	    InputStream is = null;
 	    ObjectInputStream ois = null;
 
 		try {
-			in = new FileInputStream(file);
 			// Replace gzip with xz compression (based on LZMA2)
-			// Since XZInputStream does some buffering internally
-			// anyway, BufferedInputStream doesn't seem to be
-			// needed here to improve performance.
-			// in = new BufferedInputStream(in);
 			
 			try {
-				// Limit memory usage to 256 MB
-				xzin = new XZInputStream(new BufferedInputStream(in), 256 * 1024);
+				// Limit memory usage to 256 MB per decoder. 
+				// Note: the blocks of a multi-block save are decoded in parallel
+				xzin = ParallelXZInputStream.open(file, 256 * 1024, getSavePool());
 			} catch (XZFormatException e) {
 				e.printStackTrace();
 				// Thrown when reading a stream terminated by an exception that occurred while the stream was being written.
@@ -654,23 +678,17 @@ public class Simulation implements ClockListener, Serializable {
 				System.exit(1);	
 			}
 			
-//			int size;
-//			while ((size = xzin.read(buf)) != -1)
-//				baos.write(buf, 0, size);			
-			ByteStreams.copy(xzin, baos);
-			
-			//see https://stackoverflow.com/questions/26960997/convert-outputstream-to-bytearrayoutputstream
-//			byte[] bytes = new byte[8];
-//			baos.write(bytes);
-//			baos.writeTo(os);
-
-//			is = new ByteArrayInputStream(baos.toByteArray());
-//			ois = new ObjectInputStream(is);
-			ois = new ObjectInputStream(new ByteArrayInputStream(baos.toByteArray()));
-
-			// Load intransient objects.
-//			SimulationConfig.setInstance((SimulationConfig) ois.readObject());	
-//			ResourceUtil.setInstance((ResourceUtil) ois.readObject());
+			// Stream the objects straight out of the decompressor instead of 
+			// copying the whole decompressed image into a byte array first
+			is = new BufferedInputStream(xzin, SAVE_BUFFER_SIZE);
+			if (ChunkedSaveInputStream.isChunked(is)) {
+				is = new ChunkedSaveInputStream(is);
+			}
+			else {
+				// Saved by an older build as one raw object stream
+				logger.config("Loading " + file.getName() + " in the legacy (unchunked) save format.");
+			}
+			ois = new ObjectInputStream(is);
 
 			// Load remaining serialized objects
 			malfunctionFactory = (MalfunctionFactory) ois.readObject();
@@ -684,6 +702,9 @@ public class Simulation implements ClockListener, Serializable {
 			eventManager = (HistoricalEventManager) ois.readObject();
 			relationshipManager = (RelationshipManager) ois.readObject();		
 			unitManager = (UnitManager) ois.readObject();		
+			LocalAreaIndex.clear();
+			MaintenanceIndex.clear();
+			MissionPlanningContext.clear();
 			masterClock = (MasterClock) ois.readObject();	
 	
 		// Note: see https://docs.oracle.com/javase/7/docs/platform/serialization/spec/exceptions.html
@@ -765,10 +786,6 @@ public class Simulation implements ClockListener, Serializable {
 				ois.close();
 			}
 
-			if (in != null) {
-				in.close();
-			}
-
 			if (xzin != null) {
 				xzin.close();
 			}
@@ -776,10 +793,6 @@ public class Simulation implements ClockListener, Serializable {
 			if (is != null) {
 				is.close();
 			}
-
-			if (baos != null) {
-				baos.close();
-			}
 		}
     }
     
@@ -1016,6 +1029,7 @@ public class Simulation implements ClockListener, Serializable {
 //		VehicleMission.justReloaded(missionManager); // missionmgr
 //		RescueSalvageVehicle.justReloaded(eventManager);  // eventManager
 		MissionPlanning.initializeInstances(marsClock);
+		TradeMarket.initializeInstances(marsClock, creditManager, unitManager);
 
 		// Start a chain of calls to set instances
 		unitManager.reinit(marsClock);
@@ -1074,6 +1088,9 @@ public class Simulation implements ClockListener, Serializable {
 	 */
 	public synchronized void saveSimulation(SaveType type, File file) throws IOException {
 //		logger.config("saveSimulation(" + type + ", " + file + ")");
+		// Do not write over a background save still in progress
+		waitForBackgroundSave();
+		
 		// Checks to see if the simulation is on pause
 		boolean isPause = masterClock.isPaused();
 		
@@ -1087,69 +1104,9 @@ public class Simulation implements ClockListener, Serializable {
 		lastSaveTimeStamp = new SystemDateTime().getDateTimeStr();
 		changed = true;
 
-		File backupFile = new File(SimulationFiles.getSaveDir(), "previous" + SAVE_FILE_EXTENSION);
-		FileSystem fileSys = null;
-		Path destPath = null;
-		Path srcPath = null;
-
-		// Use type to differentiate in what name/dir it is saved
-		if (type == SaveType.SAVE_DEFAULT) {
-
-			file = new File(SimulationFiles.getSaveDir(), SAVE_FILE + SAVE_FILE_EXTENSION);
-
-			if (file.exists() && !file.isDirectory()) {
-				fileSys = FileSystems.getDefault();
-				destPath = fileSys.getPath(backupFile.getPath());
-				srcPath = fileSys.getPath(file.getPath());
-				// Backup the existing default.sim
-				Files.move(srcPath, destPath, StandardCopyOption.REPLACE_EXISTING);
-			}
-
-			logger.config("Saving the simulation as " + SAVE_FILE + SAVE_FILE_EXTENSION + ".");
-
-		}
-
-		else if (type == SaveType.SAVE_AS) {
-			String f = file.getName();
-			String dir = file.getParentFile().getAbsolutePath();
-			if (!f.contains(".sim"))
-				file = new File(dir, f + SAVE_FILE_EXTENSION);
-			logger.config("Saving the simulation as " + file + "...");
-		}
-
-		else if (type == SaveType.AUTOSAVE_AS_DEFAULT) {
-
-//            file = new File(DEFAULT_DIR, DEFAULT_FILE + DEFAULT_EXTENSION);
-//            logger.config("Autosaving as " + DEFAULT_FILE + DEFAULT_EXTENSION);
-
-			file = new File(SimulationFiles.getSaveDir(), SAVE_FILE + SAVE_FILE_EXTENSION);
-
-			if (file.exists() && !file.isDirectory()) {
-				fileSys = FileSystems.getDefault();
-				destPath = fileSys.getPath(backupFile.getPath());
-				srcPath = fileSys.getPath(file.getPath());
-				// Backup the existing default.sim
-				Files.move(srcPath, destPath, StandardCopyOption.REPLACE_EXISTING);
-			}
-
-			logger.config("Autosaving the simulation as " + SAVE_FILE + SAVE_FILE_EXTENSION + ".");
-
-		}
-
-		else if (type == SaveType.AUTOSAVE) {
-			int missionSol = masterClock.getMarsClock().getMissionSol();
-			
-			String autosaveFilename = lastSaveTimeStamp + "_sol" + missionSol + "_r" + BUILD
-					+ SAVE_FILE_EXTENSION;
-			file = new File(SimulationFiles.getAutoSaveDir(), autosaveFilename);
-			logger.config("Autosaving the simulation as " + autosaveFilename + ".");
-
-		}
-
-		// if the autosave/default save directory does not exist, create one now
-		if (!file.getParentFile().exists()) {
-			file.getParentFile().mkdirs();
-		}
+		file = getSaveFile(type, file);
+		Path destPath = backupDefaultSave(type, file);
+		Path srcPath = (destPath == null) ? null : file.toPath();
 		
 		// Get current size of heap in bytes
 		long heapSize = Runtime.getRuntime().totalMemory();
@@ -1202,12 +1159,330 @@ public class Simulation implements ClockListener, Serializable {
 			// Call up garbage collector. But it's up to the gc what to do
 			System.gc();
 			logger.config("Not enough free memory in Heap Space. Please try saving the sim later.");
+			// Put back the previous default.sim
+			restoreDefaultSave(file, srcPath, destPath);
 		}
 		
 		// Restarts the master clock and adds back the Simulation clock listener
 		sim.proceed(isPause);
 	}
 
+	/**
+	 * Saves a simulation instance in the background. Only a point-in-time snapshot
+	 * of the simulation is serialized on the calling thread, which is the clock
+	 * thread at the end of a pulse. The snapshot is then compressed and written to
+	 * the save file on a low priority thread while the clock keeps running.
+	 * 
+	 * @param type the save type
+	 * @param file the file to be saved to
+	 * @throws IOException
+	 */
+	public synchronized void saveSimulationInBackground(SaveType type, File file) throws IOException {
+		if (isBackgroundSaving()) {
+			logger.config("The previous background save is still being written. Skipping this save.");
+			return;
+		}
+		
+		lastSaveTimeStamp = new SystemDateTime().getDateTimeStr();
+		changed = true;
+		
+		file = getSaveFile(type, file);
+		Path destPath = backupDefaultSave(type, file);
+		Path srcPath = (destPath == null) ? null : file.toPath();
+		
+		long start = System.currentTimeMillis();
+		
+		// Take the snapshot. This is the only part that holds up the clock
+		SegmentedByteArrayOutputStream snapshot = new SegmentedByteArrayOutputStream(SAVE_CHUNK_SIZE,
+				getSnapshotLimit());
+		try (ObjectOutputStream oos = writeSections(snapshot)) {
+			// All the sections are in the snapshot
+		} catch (SegmentedByteArrayOutputStream.LimitExceededException e) {
+			// Not enough heap to hold the snapshot, so stream the save straight to the file
+			snapshot.reset();
+			logger.config(e.getMessage() + " Saving without a snapshot instead.");
+			serialize(type, file, srcPath, destPath);
+			return;
+		} catch (IOException e) {
+			logger.log(Level.SEVERE, "Could not take a snapshot of the simulation : " + e.getMessage(), e);
+			restoreDefaultSave(file, srcPath, destPath);
+			return;
+		}
+		
+		lastSaveSnapshotTime = System.currentTimeMillis() - start;
+		logger.config("Took a snapshot of " + formatSize(snapshot.size()) + " in " 
+				+ lastSaveSnapshotTime + " ms. Writing it in the background.");
+		
+		final File saveFile = file;
+		backgroundSave = getSaveExecutor().submit(() -> {
+			try (OutputStream xzout = createSaveOutputStream(saveFile)) {
+				snapshot.writeTo(xzout);
+			} catch (Exception e) {
+				logger.log(Level.SEVERE, Msg.getString("Simulation.log.saveError"), e); //$NON-NLS-1$
+				restoreDefaultSave(saveFile, srcPath, destPath);
+				logger.severe("Could not write " + saveFile.getName() + " in the background after " 
+						+ (System.currentTimeMillis() - start) + " ms. The previous save was put back.");
+				return;
+			} finally {
+				snapshot.reset();
+				lastSaveWriteTime = System.currentTimeMillis() - start;
+				justSaved = true;
+			}
+			logger.config("Done saving " + saveFile.getName() + " (" + computeFileSize(saveFile) 
+					+ ") in the background. Clock paused for " + lastSaveSnapshotTime 
+					+ " ms out of " + lastSaveWriteTime + " ms in total.");
+		});
+	}
+	
+	/**
+	 * Gets the most bytes a background save snapshot may take, i.e. half of the
+	 * heap left over the minimum free heap space.
+	 * 
+	 * @return size in bytes
+	 */
+	private static long getSnapshotLimit() {
+		Runtime runtime = Runtime.getRuntime();
+		long available = runtime.maxMemory() - (runtime.totalMemory() - runtime.freeMemory());
+		return Math.max(0, (available - MIN_HEAP_SPACE) / 2);
+	}
+
+	/**
+	 * Checks if a background save is still being written.
+	 * 
+	 * @return true if in progress
+	 */
+	public boolean isBackgroundSaving() {
+		return (backgroundSave != null) && !backgroundSave.isDone();
+	}
+	
+	/**
+	 * Waits for the background save in progress, if any, to be fully written.
+	 */
+	public void waitForBackgroundSave() {
+		if (isBackgroundSaving()) {
+			logger.config("Waiting for the background save to complete.");
+			try {
+				backgroundSave.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} catch (ExecutionException e) {
+				logger.log(Level.SEVERE, "Background save failed", e);
+			}
+		}
+	}
+	
+	/**
+	 * Gets the time the clock was held up by the last background save, i.e. the
+	 * time taken to snapshot the simulation.
+	 * 
+	 * @return time in milliseconds
+	 */
+	public long getLastSaveSnapshotTime() {
+		return lastSaveSnapshotTime;
+	}
+	
+	/**
+	 * Gets the total time taken by the last background save, from the start of
+	 * the snapshot till the save file was written.
+	 * 
+	 * @return time in milliseconds
+	 */
+	public long getLastSaveWriteTime() {
+		return lastSaveWriteTime;
+	}
+	
+	/**
+	 * Gets the low priority executor for writing background saves.
+	 * 
+	 * @return the executor
+	 */
+	private synchronized ExecutorService getSaveExecutor() {
+		if (saveExecutor == null) {
+			saveExecutor = Executors.newSingleThreadExecutor(
+					new ThreadFactoryBuilder().setNameFormat("background-save-%d")
+						.setPriority(Thread.MIN_PRIORITY).build());
+		}
+		return saveExecutor;
+	}
+	
+	/**
+	 * Resolves the file to save to for a save type.
+	 * 
+	 * @param type the save type
+	 * @param file the file requested by the user, if any
+	 * @return the file to save to
+	 */
+	private File getSaveFile(SaveType type, File file) {
+		// Use type to differentiate in what name/dir it is saved
+		if (type == SaveType.SAVE_DEFAULT) {
+			file = new File(SimulationFiles.getSaveDir(), SAVE_FILE + SAVE_FILE_EXTENSION);
+			logger.config("Saving the simulation as " + SAVE_FILE + SAVE_FILE_EXTENSION + ".");
+		}
+
+		else if (type == SaveType.SAVE_AS) {
+			String f = file.getName();
+			String dir = file.getParentFile().getAbsolutePath();
+			if (!f.contains(".sim"))
+				file = new File(dir, f + SAVE_FILE_EXTENSION);
+			logger.config("Saving the simulation as " + file + "...");
+		}
+
+		else if (type == SaveType.AUTOSAVE_AS_DEFAULT) {
+			file = new File(SimulationFiles.getSaveDir(), SAVE_FILE + SAVE_FILE_EXTENSION);
+			logger.config("Autosaving the simulation as " + SAVE_FILE + SAVE_FILE_EXTENSION + ".");
+		}
+
+		else if (type == SaveType.AUTOSAVE) {
+			int missionSol = masterClock.getMarsClock().getMissionSol();
+			
+			String autosaveFilename = lastSaveTimeStamp + "_sol" + missionSol + "_r" + BUILD
+					+ SAVE_FILE_EXTENSION;
+			file = new File(SimulationFiles.getAutoSaveDir(), autosaveFilename);
+			logger.config("Autosaving the simulation as " + autosaveFilename + ".");
+		}
+
+		// if the autosave/default save directory does not exist, create one now
+		if (!file.getParentFile().exists()) {
+			file.getParentFile().mkdirs();
+		}
+		
+		return file;
+	}
+	
+	/**
+	 * Backs up the existing default.sim as previous.sim before it gets overwritten.
+	 * 
+	 * @param type the save type
+	 * @param file the file to save to
+	 * @return the path of the backup or null if there was nothing to back up
+	 * @throws IOException
+	 */
+	private Path backupDefaultSave(SaveType type, File file) throws IOException {
+		if ((type == SaveType.SAVE_DEFAULT || type == SaveType.AUTOSAVE_AS_DEFAULT)
+				&& file.exists() && !file.isDirectory()) {
+			File backupFile = new File(SimulationFiles.getSaveDir(), "previous" + SAVE_FILE_EXTENSION);
+			Path destPath = backupFile.toPath();
+			// Backup the existing default.sim
+			Files.move(file.toPath(), destPath, StandardCopyOption.REPLACE_EXISTING);
+			return destPath;
+		}
+		return null;
+	}
+	
+	/**
+	 * Puts back the backed up default.sim after a failed save.
+	 * 
+	 * @param file the file that failed to be saved
+	 * @param srcPath the path of the default.sim
+	 * @param destPath the path of the backup
+	 */
+	private void restoreDefaultSave(File file, Path srcPath, Path destPath) {
+		if (destPath != null && destPath.toFile().exists()) {
+			try {
+				Files.move(destPath, srcPath, StandardCopyOption.REPLACE_EXISTING);
+			} catch (IOException e) {
+				logger.log(Level.SEVERE, "Could not restore " + file + " from its backup", e);
+			}
+		}
+	}
+	
+	/**
+	 * Creates the filter options of the xz encoder of each block.
+	 * 
+	 * @return the filter options
+	 * @throws IOException
+	 */
+	private static FilterOptions[] getSaveFilterOptions() throws IOException {
+		// Using the default settings and the default integrity check type (CRC64)
+		LZMA2Options lzma2 = new LZMA2Options(SAVE_PRESET);
+		return new FilterOptions[] {lzma2};
+	}
+	
+	/**
+	 * Opens the compressed stream of a save file. The stream is split into 
+	 * independent xz blocks that are compressed in parallel on the save pool.
+	 * 
+	 * @param file the save file
+	 * @return the stream to write the serialized simulation to
+	 * @throws IOException
+	 */
+	private OutputStream createSaveOutputStream(File file) throws IOException {
+		return new ParallelXZOutputStream(new BufferedOutputStream(new FileOutputStream(file), SAVE_BUFFER_SIZE),
+				SAVE_PRESET, getSaveBlockSize(), getSavePool());
+	}
+	
+	/**
+	 * Gets the uncompressed size of the xz blocks of a save file.
+	 * 
+	 * @return size in bytes
+	 */
+	private static int getSaveBlockSize() {
+		return SimulationConfig.instance().getSaveBlockSize() * 1024;
+	}
+	
+	/**
+	 * Gets the fork-join pool for compressing and decompressing save files.
+	 * 
+	 * @return the pool
+	 */
+	private synchronized ForkJoinPool getSavePool() {
+		if (savePool == null) {
+			int threads = SimulationConfig.instance().getSaveThreads();
+			if (threads <= 0)
+				threads = NUM_THREADS;
+			savePool = new ForkJoinPool(threads);
+		}
+		return savePool;
+	}
+	
+	/**
+	 * Serializes all the sections of the simulation into a chunked stream.
+	 * 
+	 * @param out the destination of the chunked stream
+	 * @return the object stream with all the sections written, to be closed by the caller
+	 * @throws IOException
+	 */
+	private ObjectOutputStream writeSections(OutputStream out) throws IOException {
+		ChunkedSaveOutputStream chunkOut = new ChunkedSaveOutputStream(out, SAVE_CHUNK_SIZE);
+		ObjectOutputStream oos = new ObjectOutputStream(chunkOut);
+		
+		// Store the in-transient objects, one section per manager.
+		// Note: the order must match the one in deserialize()
+		Serializable[] sections = getSaveSections();
+		for (int i = 0; i < sections.length; i++) {
+			// Push the pending block data of the previous section into its chunk
+			oos.flush();
+			chunkOut.beginSection(i);
+			oos.writeObject(sections[i]);
+		}
+		oos.flush();
+		// Only a complete save gets the terminating chunk
+		chunkOut.finish();
+		return oos;
+	}
+	
+	/**
+	 * Gets the objects to be saved, one section per manager, in the order 
+	 * they are read back in {@link #deserialize(File)}.
+	 * 
+	 * @return the array of serializable managers
+	 */
+	private Serializable[] getSaveSections() {
+		return new Serializable[] {
+				malfunctionFactory,
+				mars, // java.util.ConcurrentModificationException, infinite ObjectOutputStream.java:1510)
+				missionManager,
+				medicalManager,
+				scientificStudyManager,
+				transportManager,
+				creditManager,
+				eventManager,
+				relationshipManager,
+				unitManager,
+				masterClock
+		};
+	}
+	
 	/**
 	 * Delays for a period of time in millis
 	 * 
@@ -1237,47 +1512,18 @@ public class Simulation implements ClockListener, Serializable {
 		// (1) http://stackoverflow.com/questions/5481487/how-to-use-lzma-sdk-to-compress-decompress-in-java
 		// (2) http://tukaani.org/xz/xz-javadoc/
 
-		// STEP 1: combine all objects into one single uncompressed file, namely
-		// "default"
+		// Stream each manager through the chunked container directly into the 
+		// xz encoder so that only bounded buffers are held in memory
 		
-		ByteArrayOutputStream baos = new ByteArrayOutputStream();
-	    ObjectOutputStream oos = new ObjectOutputStream(baos);
-	    InputStream is = null;
-		XZOutputStream xzout = null;
+		ObjectOutputStream oos = null;
+		OutputStream xzout = null;
 		
 		try {
 	
 			// Set a delay for 200 millis to avoid java.util.ConcurrentModificationException
 			delay(500L);
 			
-			// Store the in-transient objects.
-//			oos.writeObject(SimulationConfig.instance());
-//			oos.writeObject(ResourceUtil.getInstance());
-			oos.writeObject(malfunctionFactory);
-			oos.writeObject(mars); // java.util.ConcurrentModificationException, infinite ObjectOutputStream.java:1510)
-			oos.writeObject(missionManager);
-			oos.writeObject(medicalManager);
-			oos.writeObject(scientificStudyManager);
-			oos.writeObject(transportManager);
-			oos.writeObject(creditManager);
-			oos.writeObject(eventManager);
-			oos.writeObject(relationshipManager);
-			oos.writeObject(unitManager);
-			oos.writeObject(masterClock);
-			
-			oos.flush();
-			oos.close();
-
-		    is = new ByteArrayInputStream(baos.toByteArray());
-		    
-			// Print the size of each serializable object
-//			System.out.println(printObjectSize(0).toString());
-			
-			// Using the default settings and the default integrity check type (CRC64)
-			LZMA2Options lzma2 = new LZMA2Options(4);
-			// Set to 4. For mid sized archives (>8mb), 7 works better.
-			//lzma2.setPreset(8);
-			FilterOptions[] options = {lzma2};
+			FilterOptions[] options = getSaveFilterOptions();
 			
 			// Using the x86 BCJ filter // 424KB
 //			X86Options x86 = new X86Options();
@@ -1287,13 +1533,17 @@ public class Simulation implements ClockListener, Serializable {
 		              + Math.round(FilterOptions.getEncoderMemoryUsage(options)/1_024*100.00)/100.00 + " MB");
 			logger.config("Decoder memory usage : "
 		              + Math.round(FilterOptions.getDecoderMemoryUsage(options)/1_024*100.00)/100.00 + " MB");
+			logger.config("Compressing in blocks of " + formatSize(getSaveBlockSize()) 
+					+ " on " + getSavePool().getParallelism() + " thread(s)");
 	
+			xzout = createSaveOutputStream(file);
+			oos = writeSections(xzout);
 			
-			xzout = new XZOutputStream(new BufferedOutputStream(new FileOutputStream(file)), options);
-			
-			ByteStreams.copy(is, xzout);
+			// Close the whole chain so that the xz footer reaches the file
+			oos.close();
+			oos = null;
+			xzout = null;
 			
-			xzout.finish();
 			// Print the size of the saved sim
 			logger.config("           File size : " + computeFileSize(file));
 			logger.config("Done saving. The simulation resumes.");
@@ -1301,80 +1551,57 @@ public class Simulation implements ClockListener, Serializable {
 		// Note: see https://docs.oracle.com/javase/7/docs/platform/serialization/spec/exceptions.html
 		} catch (WriteAbortedException e) {
 			// Thrown when reading a stream terminated by an exception that occurred while the stream was being written.
-			logger.log(Level.SEVERE, oos.getClass().getSimpleName() + ": Quitting mars-sim with WriteAbortedException when saving " + file + " : " + e.getMessage());
+			logger.log(Level.SEVERE, "ObjectOutputStream: Quitting mars-sim with WriteAbortedException when saving " + file + " : " + e.getMessage());
 			e.printStackTrace();		
 
 		} catch (OptionalDataException e) {
 			// Thrown by readObject when there is primitive data in the stream and an object is expected. The length field of the exception indicates the number of bytes that are available in the current block.
-			logger.log(Level.SEVERE, oos.getClass().getSimpleName() + ": Quitting mars-sim with OptionalDataException when saving " + file + " : " + e.getMessage());
+			logger.log(Level.SEVERE, "ObjectOutputStream: Quitting mars-sim with OptionalDataException when saving " + file + " : " + e.getMessage());
 			e.printStackTrace();	
 		
 		} catch (InvalidObjectException e) {
 			// Thrown when a restored object cannot be made valid.
-			logger.log(Level.SEVERE, oos.getClass().getSimpleName() + ": Quitting mars-sim with InvalidObjectException when saving " + file + " : " + e.getMessage());
+			logger.log(Level.SEVERE, "ObjectOutputStream: Quitting mars-sim with InvalidObjectException when saving " + file + " : " + e.getMessage());
 			e.printStackTrace();	
 
 		} catch (NotActiveException e) {
-			logger.log(Level.SEVERE, oos.getClass().getSimpleName() + ": Quitting mars-sim with NotActiveException when saving " + file + " : " + e.getMessage());
+			logger.log(Level.SEVERE, "ObjectOutputStream: Quitting mars-sim with NotActiveException when saving " + file + " : " + e.getMessage());
 			e.printStackTrace();	
 
 		} catch (StreamCorruptedException e) {
-			logger.log(Level.SEVERE, oos.getClass().getSimpleName() + ": Quitting mars-sim with StreamCorruptedException when saving " + file + " : " + e.getMessage());
+			logger.log(Level.SEVERE, "ObjectOutputStream: Quitting mars-sim with StreamCorruptedException when saving " + file + " : " + e.getMessage());
 			e.printStackTrace();	
 		
 		} catch (NotSerializableException e) {
-			logger.log(Level.SEVERE, oos.getClass().getSimpleName() + ": Quitting mars-sim with NotSerializableException when saving " + file + " : " + e.getMessage());
+			logger.log(Level.SEVERE, "ObjectOutputStream: Quitting mars-sim with NotSerializableException when saving " + file + " : " + e.getMessage());
 			e.printStackTrace();	
 			
 		} catch (ObjectStreamException e) {
-			logger.log(Level.SEVERE, oos.getClass().getSimpleName() + ": Quitting mars-sim with ObjectStreamException when saving " + file + " : " + e.getMessage());
+			logger.log(Level.SEVERE, "ObjectOutputStream: Quitting mars-sim with ObjectStreamException when saving " + file + " : " + e.getMessage());
 			e.printStackTrace();
 
 		} catch (IOException e0) {
-			logger.log(Level.SEVERE, oos.getClass().getSimpleName() + ": " + Msg.getString("Simulation.log.saveError"), e0); //$NON-NLS-1$
+			logger.log(Level.SEVERE, "ObjectOutputStream: " + Msg.getString("Simulation.log.saveError"), e0); //$NON-NLS-1$
 			e0.printStackTrace();
 
-			if (type == SaveType.AUTOSAVE_AS_DEFAULT || type == SaveType.SAVE_DEFAULT) {
-//	            backupFile = new File(DEFAULT_DIR, DEFAULT_FILE + DEFAULT_EXTENSION);
-//	            backupFile.renameTo(file);
-
-				if (file.exists() && !file.isDirectory()) {
-					// Backup the existing default.sim
-					Files.move(destPath, srcPath, StandardCopyOption.REPLACE_EXISTING);
-				}
-			}
+			// Put back the previous default.sim
+			restoreDefaultSave(file, srcPath, destPath);
 
 		} catch (Exception e) {
-			logger.log(Level.SEVERE, oos.getClass().getSimpleName() + ": " + Msg.getString("Simulation.log.saveError"), e); //$NON-NLS-1$
+			logger.log(Level.SEVERE, "ObjectOutputStream: " + Msg.getString("Simulation.log.saveError"), e); //$NON-NLS-1$
 			e.printStackTrace();
 
-			if (type == SaveType.AUTOSAVE_AS_DEFAULT || type == SaveType.SAVE_DEFAULT) {
-//	            backupFile = new File(DEFAULT_DIR, DEFAULT_FILE + DEFAULT_EXTENSION);
-//	            backupFile.renameTo(file);
-
-				if (file.exists() && !file.isDirectory()) {
-					// backup the existing default.sim
-					Files.move(destPath, srcPath, StandardCopyOption.REPLACE_EXISTING);
-				}
-			}
+			// Put back the previous default.sim
+			restoreDefaultSave(file, srcPath, destPath);
 
 		}
 
 		finally {
 		
-			if (xzout != null) {
-				xzout.close();
-				xzout.finish();
-			}
-			
 			if (oos != null)
 				oos.close();
-			
-			if (is != null)
-				is.close();
-			
-			if (baos != null)
-				baos.close();
+			else if (xzout != null)
+				xzout.close();
 			
 			justSaved = true;
 
@@ -1562,6 +1789,27 @@ public class Simulation implements ClockListener, Serializable {
 		// Ends the simulation executor
 		if (simExecutor != null)
 			simExecutor.shutdown();
+		
+		// Lets the background save in progress complete before its pool goes
+		ExecutorService executor = saveExecutor;
+		if (executor != null) {
+			executor.shutdown();
+			try {
+				if (!executor.awaitTermination(SAVE_WAIT_TIMEOUT, TimeUnit.SECONDS))
+					logger.warning("The background save was not written within " + SAVE_WAIT_TIMEOUT + " seconds.");
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		
+		// Clears both so that the next simulation creates them again
+		synchronized (this) {
+			saveExecutor = null;
+			if (savePool != null) {
+				savePool.shutdown();
+				savePool = null;
+			}
+		}
 	}
 
 	public void endMasterClock() {
@@ -1790,8 +2038,7 @@ public class Simulation implements ClockListener, Serializable {
 			DataLogger.changeTime(pulse);
 			mars.timePassing(pulse);
 
-			missionManager.timePassing(pulse);
-
+			// Runs the units and then the missions
 			unitManager.timePassing(pulse);
 
 			transportManager.timePassing(pulse);
@@ -122,6 +122,14 @@ public class SimulationConfig implements Serializable {
 
 	private static final String DEFAULT_UNUSEDCORES = "unused-cores";
 
+	private static final String SAVE_CONFIGURATION = "save-configuration";
+	private static final String BACKGROUND_AUTOSAVE = "background-autosave";
+	private static final String XZ_BLOCK_SIZE = "xz-block-size";
+	private static final String XZ_THREADS = "xz-threads";
+	
+	/** The default uncompressed size of the xz blocks of a save file in KB. */
+	private static final int DEFAULT_XZ_BLOCK_SIZE = 4096;
+
 	private transient double tr = 0;
 
 	private transient int[] data = new int[] { 0, 0, 0, 0 };
@@ -490,6 +498,26 @@ public class SimulationConfig implements Serializable {
 		return str;
 	}
 	
+	/**
+	 * Find an optional string value.
+	 * @param parent Parent element
+	 * @param child Value element
+	 * @return String value found or null if the element is absent or blank
+	 */
+	private String findOptionalValue(String parent, String child) {
+		Element root = simulationDoc.getRootElement();
+		Element parentEL = root.getChild(parent);
+		if (parentEL == null)
+			return null;
+		Element childEL = parentEL.getChild(child);
+		if (childEL == null)
+			return null;
+		String str = childEL.getAttributeValue(VALUE);
+		if ((str == null) || str.trim().length() == 0)
+			return null;
+		return str.trim();
+	}
+	
 	private int loadIntValue(String parent, String child) {
 		String str = findValue(parent, child);
 		int i = 0;
@@ -681,6 +709,53 @@ public class SimulationConfig implements Serializable {
 		}
 	}
 
+	/**
+	 * Checks if autosaves are compressed and written in the background while
+	 * the clock keeps running. Defaults to true if absent from simulation.xml.
+	 * 
+	 * @return true if autosaves run in the background
+	 */
+	public boolean isBackgroundAutosave() {
+		String str = findOptionalValue(SAVE_CONFIGURATION, BACKGROUND_AUTOSAVE);
+		return (str == null) || Boolean.parseBoolean(str);
+	}
+	
+	/**
+	 * Gets the uncompressed size of the independent xz blocks of a save file.
+	 * Defaults to 4096 KB if absent from simulation.xml.
+	 * 
+	 * @return size in KB
+	 */
+	public int getSaveBlockSize() {
+		String str = findOptionalValue(SAVE_CONFIGURATION, XZ_BLOCK_SIZE);
+		if (str == null)
+			return DEFAULT_XZ_BLOCK_SIZE;
+		
+		int result = Integer.parseInt(str);
+		if (result < 64 || result > 65536)
+			throw new IllegalStateException(SAVE_CONFIGURATION + "->" + XZ_BLOCK_SIZE
+					                        + " must be between 64 and 65536");
+		return result;
+	}
+	
+	/**
+	 * Gets the number of threads compressing and decompressing the blocks of a 
+	 * save file. Defaults to 0 if absent from simulation.xml.
+	 * 
+	 * @return number of threads or 0 for one per cpu thread
+	 */
+	public int getSaveThreads() {
+		String str = findOptionalValue(SAVE_CONFIGURATION, XZ_THREADS);
+		if (str == null)
+			return 0;
+		
+		int result = Integer.parseInt(str);
+		if (result < 0)
+			throw new IllegalStateException(SAVE_CONFIGURATION + "->" + XZ_THREADS
+					                        + " cannot be negative");
+		return result;
+	}
+	
 	/**
 	 * Gets the AverageTransitTime when the simulation starts.
 	 * 
@@ -2,6 +2,8 @@ package org.mars_sim.msp.core;
 
 import java.io.File;
 
+import org.mars_sim.mapdata.MEGDRMapReader;
+
 /**
  * A singleton that controls where the simulation files reside on the file system
  */
@@ -16,6 +18,7 @@ public class SimulationFiles {
 	
 	public static void setDataDir(String newDir) {
 		dataDir = newDir;
+		MEGDRMapReader.setDataDir(newDir);
 	}
 	
 	public static String getDataDir() {
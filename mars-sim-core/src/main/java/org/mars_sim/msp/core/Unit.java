@@ -8,8 +8,11 @@ package org.mars_sim.msp.core;
 
 import java.io.Serializable;
 import java.util.Collections;
-import java.util.Iterator;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.logging.Logger;
 
@@ -91,6 +94,8 @@ public abstract class Unit implements Serializable, UnitIdentifer, Comparable<Un
 
 	/** Unit listeners. */
 	private transient List<UnitListener> listeners;// = Collections.synchronizedList(new ArrayList<UnitListener>());
+	/** The event types wanted by the unit listeners that do not want them all. */
+	private transient Map<UnitListener, Set<UnitEventType>> listenerTypes;
 
 	protected static Simulation sim = Simulation.instance();
 	protected static SimulationConfig simulationConfig = SimulationConfig.instance();
@@ -887,6 +892,19 @@ public abstract class Unit implements Serializable, UnitIdentifer, Comparable<Un
 		}
 	}
 
+	/**
+	 * Adds a unit listener to some event types only.
+	 * 
+	 * @param newListener the listener to add.
+	 * @param types       the event types to listen to.
+	 */
+	public synchronized final void addUnitListener(UnitListener newListener, Set<UnitEventType> types) {
+		addUnitListener(newListener);
+		if (listenerTypes == null)
+			listenerTypes = new ConcurrentHashMap<>();
+		listenerTypes.put(newListener, Collections.unmodifiableSet(EnumSet.copyOf(types)));
+	}
+
 	/**
 	 * Removes a unit listener
 	 * 
@@ -899,6 +917,8 @@ public abstract class Unit implements Serializable, UnitIdentifer, Comparable<Un
 		if (listeners == null) {
 			listeners = Collections.synchronizedList(new CopyOnWriteArrayList<UnitListener>());
 		}
+		if (listenerTypes != null)
+			listenerTypes.remove(oldListener);
 		if (listeners.size() < 1)
 			return;
 		listeners.remove(oldListener);
@@ -914,29 +934,39 @@ public abstract class Unit implements Serializable, UnitIdentifer, Comparable<Un
 	}
 
 	/**
-	 * Fire a unit update event.
+	 * Fire a unit update event. During a clock pulse the event is delivered at
+	 * the end of the pulse, see {@link UnitEventBus}.
 	 * 
 	 * @param updateType the update type.
 	 * @param target     the event target object or null if none.
 	 */
 	public final void fireUnitUpdate(UnitEventType updateType, Object target) {
-		// logger.info("Unit's fireUnitUpdate() is on " +
-		// Thread.currentThread().getName() + " Thread");
-
-		if (listeners == null || listeners.size() < 1) {
-			// listeners = Collections.synchronizedList(new ArrayList<UnitListener>());
+		UnitEventBus bus = UnitEventBus.getInstance();
+		if ((listeners == null || listeners.isEmpty()) && !bus.hasListeners(updateType)) {
 			// we don't do anything if there's no listeners attached
 			return;
 		}
-		final UnitEvent ue = new UnitEvent(this, updateType, target);
-		synchronized (listeners) {
-			 Iterator<UnitListener> i = listeners.iterator();
-				 while (i.hasNext()) {
-				 i.next().unitUpdate(ue);
-			 }
-//			for (UnitListener u : listeners) {
-//				u.unitUpdate(ue);
-//			}
+		bus.fire(this, updateType, target);
+	}
+
+	/**
+	 * Delivers a unit update event to the listeners of the unit that want its
+	 * type.
+	 * 
+	 * @param event the event.
+	 */
+	final void deliverUnitUpdate(UnitEvent event) {
+		List<UnitListener> current = listeners;
+		if (current == null)
+			return;
+		Map<UnitListener, Set<UnitEventType>> types = listenerTypes;
+		for (UnitListener listener : current) {
+			if (types != null) {
+				Set<UnitEventType> wanted = types.get(listener);
+				if (wanted != null && !wanted.contains(event.getType()))
+					continue;
+			}
+			UnitEventBus.notify(listener, event);
 		}
 	}
 
@@ -1336,6 +1366,7 @@ public abstract class Unit implements Serializable, UnitIdentifer, Comparable<Un
 //		containerUnit = null;
 		// if (listeners != null) listeners.clear();
 		listeners = null;
+		listenerTypes = null;
 	}
 
 }
@@ -0,0 +1,264 @@
+/**
+ * Mars Simulation Project
+ * UnitEventBus.java
+ * @version 3.1.2 2026-10-17
+ * @author agent
+ */
+package org.mars_sim.msp.core;
+
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Delivers the unit update events. During a clock pulse the events are
+ * collected rather than delivered, duplicates are coalesced, and the rest are
+ * delivered in one batch at the end of the pulse. Outside a pulse, e.g. when
+ * the simulation is paused, the events are delivered right away. Listeners may
+ * subscribe to a unit or, for some event types, to all the units.
+ */
+public final class UnitEventBus {
+
+	/** default logger. */
+	private static Logger logger = Logger.getLogger(UnitEventBus.class.getName());
+
+	/**
+	 * The events that only report the latest state of a unit, so that only the
+	 * latest one of a pulse matters whatever its target.
+	 */
+	private static final Set<UnitEventType> STATE_EVENTS = EnumSet.of(UnitEventType.NAME_EVENT,
+			UnitEventType.DESCRIPTION_EVENT, UnitEventType.MASS_EVENT, UnitEventType.LOCATION_EVENT,
+			UnitEventType.CONTAINER_UNIT_EVENT, UnitEventType.NOTES_EVENT, UnitEventType.CREW_CAPACITY_EVENT,
+			UnitEventType.FATIGUE_EVENT, UnitEventType.HUNGER_EVENT, UnitEventType.THIRST_EVENT,
+			UnitEventType.STRESS_EVENT, UnitEventType.EMOTION_EVENT, UnitEventType.PERFORMANCE_EVENT,
+			UnitEventType.TASK_NAME_EVENT, UnitEventType.TASK_DESCRIPTION_EVENT, UnitEventType.TASK_PHASE_EVENT,
+			UnitEventType.ROLE_EVENT, UnitEventType.SHIFT_EVENT, UnitEventType.JOB_EVENT,
+			UnitEventType.STATUS_EVENT, UnitEventType.SPEED_EVENT, UnitEventType.OPERATOR_EVENT,
+			UnitEventType.EMERGENCY_BEACON_EVENT, UnitEventType.RESERVED_EVENT, UnitEventType.POWER_MODE_EVENT,
+			UnitEventType.GENERATED_POWER_EVENT, UnitEventType.STORED_POWER_EVENT,
+			UnitEventType.STORED_POWER_CAPACITY_EVENT, UnitEventType.REQUIRED_POWER_EVENT,
+			UnitEventType.POWER_VALUE_EVENT, UnitEventType.HEAT_MODE_EVENT, UnitEventType.GENERATED_HEAT_EVENT,
+			UnitEventType.STORED_HEAT_EVENT, UnitEventType.STORED_HEAT_CAPACITY_EVENT,
+			UnitEventType.REQUIRED_HEAT_EVENT, UnitEventType.HEAT_VALUE_EVENT);
+
+	/**
+	 * The events that wait on the user, e.g. to place a building, and are always
+	 * delivered right away.
+	 */
+	private static final Set<UnitEventType> IMMEDIATE_EVENTS = EnumSet.of(
+			UnitEventType.START_CONSTRUCTION_SITE_EVENT, UnitEventType.START_CONSTRUCTION_WIZARD_EVENT,
+			UnitEventType.END_CONSTRUCTION_WIZARD_EVENT, UnitEventType.START_BUILDING_PLACEMENT_EVENT,
+			UnitEventType.START_TRANSPORT_WIZARD_EVENT, UnitEventType.END_TRANSPORT_WIZARD_EVENT,
+			UnitEventType.FINISH_BUILDING_PLACEMENT_EVENT);
+
+	private static final UnitEventBus instance = new UnitEventBus();
+
+	/** True while a pulse is running and the events are collected. */
+	private volatile boolean batching;
+	/** The events of the running pulse, in the order of their latest firing. */
+	private Map<EventKey, UnitEvent> pendingEvents = new LinkedHashMap<>();
+	/** The listeners to all the units, by event type. */
+	private final Map<UnitEventType, List<UnitListener>> typeListeners = new EnumMap<>(UnitEventType.class);
+
+	private final LongAdder firedCount = new LongAdder();
+	private final LongAdder deliveredCount = new LongAdder();
+
+	/**
+	 * Gets the unit event bus.
+	 *
+	 * @return the bus.
+	 */
+	public static UnitEventBus getInstance() {
+		return instance;
+	}
+
+	/**
+	 * Private constructor.
+	 */
+	private UnitEventBus() {
+		for (UnitEventType type : UnitEventType.values()) {
+			typeListeners.put(type, new CopyOnWriteArrayList<>());
+		}
+	}
+
+	/**
+	 * Adds a listener to the events of some types from all the units.
+	 *
+	 * @param listener the listener.
+	 * @param types    the event types.
+	 */
+	public void addUnitListener(UnitListener listener, UnitEventType... types) {
+		if (listener == null)
+			throw new IllegalArgumentException();
+		for (UnitEventType type : types) {
+			List<UnitListener> listeners = typeListeners.get(type);
+			if (!listeners.contains(listener))
+				listeners.add(listener);
+		}
+	}
+
+	/**
+	 * Removes a listener to the events from all the units.
+	 *
+	 * @param listener the listener.
+	 */
+	public void removeUnitListener(UnitListener listener) {
+		for (List<UnitListener> listeners : typeListeners.values()) {
+			listeners.remove(listener);
+		}
+	}
+
+	/**
+	 * Checks if any listener to all the units wants an event type.
+	 *
+	 * @param type the event type.
+	 * @return true if there is a listener.
+	 */
+	boolean hasListeners(UnitEventType type) {
+		return !typeListeners.get(type).isEmpty();
+	}
+
+	/**
+	 * Starts collecting the events of a pulse.
+	 */
+	public void startBatch() {
+		batching = true;
+	}
+
+	/**
+	 * Stops collecting the events and delivers the ones of the pulse.
+	 */
+	public void endBatch() {
+		Map<EventKey, UnitEvent> events;
+		synchronized (this) {
+			batching = false;
+			if (pendingEvents.isEmpty())
+				return;
+			events = pendingEvents;
+			pendingEvents = new LinkedHashMap<>();
+		}
+
+		for (UnitEvent event : events.values()) {
+			deliver(event);
+		}
+	}
+
+	/**
+	 * Checks if the events are being collected.
+	 *
+	 * @return true if in a pulse.
+	 */
+	public boolean isBatching() {
+		return batching;
+	}
+
+	/**
+	 * Fires an event, delivering it at the end of the pulse if one is running.
+	 *
+	 * @param unit   the unit the event is from.
+	 * @param type   the event type.
+	 * @param target the event target object or null if none.
+	 */
+	void fire(Unit unit, UnitEventType type, Object target) {
+		if (batching && !IMMEDIATE_EVENTS.contains(type)) {
+			EventKey key = new EventKey(unit, type, STATE_EVENTS.contains(type) ? null : target);
+			synchronized (this) {
+				// Check again as the pulse may have just ended
+				if (batching) {
+					firedCount.increment();
+					// A repeat takes the place of the earlier event
+					pendingEvents.remove(key);
+					pendingEvents.put(key, new UnitEvent(unit, type, target));
+					return;
+				}
+			}
+		}
+
+		firedCount.increment();
+		deliver(new UnitEvent(unit, type, target));
+	}
+
+	/**
+	 * Delivers an event to the listeners of the unit and of the event type.
+	 *
+	 * @param event the event.
+	 */
+	private void deliver(UnitEvent event) {
+		deliveredCount.increment();
+		((Unit) event.getSource()).deliverUnitUpdate(event);
+		for (UnitListener listener : typeListeners.get(event.getType())) {
+			notify(listener, event);
+		}
+	}
+
+	/**
+	 * Passes an event to a listener. A listener failing is logged and does not
+	 * keep the event from the other listeners.
+	 *
+	 * @param listener the listener.
+	 * @param event    the event.
+	 */
+	static void notify(UnitListener listener, UnitEvent event) {
+		try {
+			listener.unitUpdate(event);
+		} catch (RuntimeException e) {
+			logger.log(Level.SEVERE, "Problem delivering " + event + " from " + event.getSource() + " to " + listener, e);
+		}
+	}
+
+	/**
+	 * Gets the number of events fired.
+	 *
+	 * @return the number.
+	 */
+	public long getFiredCount() {
+		return firedCount.sum();
+	}
+
+	/**
+	 * Gets the number of events delivered, i.e. less the ones coalesced.
+	 *
+	 * @return the number.
+	 */
+	public long getDeliveredCount() {
+		return deliveredCount.sum();
+	}
+
+	/**
+	 * The unit, event type and target an event is coalesced by.
+	 */
+	private static final class EventKey {
+
+		private final Unit unit;
+		private final UnitEventType type;
+		private final Object target;
+
+		private EventKey(Unit unit, UnitEventType type, Object target) {
+			this.unit = unit;
+			this.type = type;
+			this.target = target;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (!(obj instanceof EventKey))
+				return false;
+			EventKey other = (EventKey) obj;
+			return (unit == other.unit) && (type == other.type) && (target == other.target);
+		}
+
+		@Override
+		public int hashCode() {
+			return (System.identityHashCode(unit) * 31 + type.hashCode()) * 31 + System.identityHashCode(target);
+		}
+	}
+}
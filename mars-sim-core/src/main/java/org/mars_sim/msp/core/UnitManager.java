@@ -13,14 +13,8 @@ import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
-import java.util.concurrent.ThreadPoolExecutor;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
@@ -42,10 +36,13 @@ import org.mars_sim.msp.core.person.ai.job.Job;
 import org.mars_sim.msp.core.person.ai.job.JobAssignmentType;
 import org.mars_sim.msp.core.person.ai.job.JobType;
 import org.mars_sim.msp.core.person.ai.job.JobUtil;
+import org.mars_sim.msp.core.person.ai.mission.MissionManager;
+import org.mars_sim.msp.core.person.ai.mission.MissionPlanningContext;
 import org.mars_sim.msp.core.person.ai.role.RoleType;
 import org.mars_sim.msp.core.person.ai.role.RoleUtil;
 import org.mars_sim.msp.core.person.ai.social.Relationship;
 import org.mars_sim.msp.core.person.ai.social.RelationshipManager;
+import org.mars_sim.msp.core.person.ai.task.utils.MetaTaskProfiler;
 import org.mars_sim.msp.core.reportingAuthority.ReportingAuthorityType;
 import org.mars_sim.msp.core.resource.AmountResource;
 import org.mars_sim.msp.core.resource.Part;
@@ -57,10 +54,14 @@ import org.mars_sim.msp.core.structure.Settlement;
 import org.mars_sim.msp.core.structure.SettlementConfig;
 import org.mars_sim.msp.core.structure.SettlementTemplate;
 import org.mars_sim.msp.core.structure.building.Building;
+import org.mars_sim.msp.core.structure.building.BuildingManager;
 import org.mars_sim.msp.core.structure.construction.ConstructionSite;
 import org.mars_sim.msp.core.time.ClockPulse;
 import org.mars_sim.msp.core.time.MarsClock;
+import org.mars_sim.msp.core.time.PulseScheduler;
+import org.mars_sim.msp.core.time.PulseScheduler.Phase;
 import org.mars_sim.msp.core.time.Temporal;
+import org.mars_sim.msp.core.tool.RandomStream;
 import org.mars_sim.msp.core.tool.RandomUtil;
 import org.mars_sim.msp.core.vehicle.LightUtilityVehicle;
 import org.mars_sim.msp.core.vehicle.Rover;
@@ -68,8 +69,6 @@ import org.mars_sim.msp.core.vehicle.Vehicle;
 import org.mars_sim.msp.core.vehicle.VehicleConfig;
 import org.mars_sim.msp.core.vehicle.VehicleType;
 
-import com.google.common.util.concurrent.ThreadFactoryBuilder;
-
 /**
  * The UnitManager class contains and manages all units in virtual Mars. It has
  * methods for getting information about units. It is also responsible for
@@ -112,9 +111,11 @@ public class UnitManager implements Serializable, Temporal {
 	/** List of unit manager listeners. */
 	private static CopyOnWriteArrayList<UnitManagerListener> listeners;
 
-	private static ExecutorService executor;
-	
-	private static List<SettlementTask> settlementTaskList = new CopyOnWriteArrayList<>();
+	/** The name of the random stream of the mission manager. */
+	private static final String MISSION_STREAM = "missions";
+
+	/** Runs the phases of each pulse on a work-stealing pool. */
+	private static PulseScheduler scheduler;
 
 	// Static members
 	/** A list of all units. */
@@ -167,22 +168,22 @@ public class UnitManager implements Serializable, Temporal {
 	
 	/** A map of all map display units (settlements and vehicles). */
 	private volatile List<Unit> displayUnits;
-	/** A map of all units with its unit identifier. */
-	private volatile Map<Integer, Unit> lookupUnit;// = new HashMap<>();
-	/** A map of settlements with its unit identifier. */
-	private volatile Map<Integer, Settlement> lookupSettlement;// = new HashMap<>();
-	/** A map of sites with its unit identifier. */
-	private volatile Map<Integer, ConstructionSite> lookupSite;
-	/** A map of persons with its unit identifier. */
-	private volatile Map<Integer, Person> lookupPerson;// = new HashMap<>();
-	/** A map of robots with its unit identifier. */
-	private volatile Map<Integer, Robot> lookupRobot;// = new HashMap<>();
-	/** A map of vehicle with its unit identifier. */
-	private volatile Map<Integer, Vehicle> lookupVehicle;// = new HashMap<>();
-	/** A map of equipment (excluding robots and vehicles) with its unit identifier. */
-	private volatile Map<Integer, Equipment> lookupEquipment;// = new HashMap<>();
-	/** A map of building with its unit identifier. */
-	private volatile Map<Integer, Building> lookupBuilding;// = new HashMap<>();
+	/** The other units by identifier. */
+	private volatile UnitRegistry<Unit> lookupUnit;
+	/** The settlements by identifier. */
+	private volatile UnitRegistry<Settlement> lookupSettlement;
+	/** The construction sites by identifier. */
+	private volatile UnitRegistry<ConstructionSite> lookupSite;
+	/** The persons by identifier. */
+	private volatile UnitRegistry<Person> lookupPerson;
+	/** The robots by identifier. */
+	private volatile UnitRegistry<Robot> lookupRobot;
+	/** The vehicles by identifier. */
+	private volatile UnitRegistry<Vehicle> lookupVehicle;
+	/** The equipment (excluding robots and vehicles) by identifier. */
+	private volatile UnitRegistry<Equipment> lookupEquipment;
+	/** The buildings by identifier. */
+	private volatile UnitRegistry<Building> lookupBuilding;
 	
 	private static SimulationConfig simulationConfig = SimulationConfig.instance();
 	private static Simulation sim = Simulation.instance();
@@ -204,14 +205,14 @@ public class UnitManager implements Serializable, Temporal {
 	 */
 	public UnitManager() {
 		// Initialize unit collection
-		lookupUnit       = new ConcurrentHashMap<>();
-		lookupSite       = new ConcurrentHashMap<>();
-		lookupSettlement = new ConcurrentHashMap<>();
-		lookupPerson     = new ConcurrentHashMap<>();
-		lookupRobot      = new ConcurrentHashMap<>();
-		lookupEquipment  = new ConcurrentHashMap<>();
-		lookupVehicle    = new ConcurrentHashMap<>();
-		lookupBuilding   = new ConcurrentHashMap<>();
+		lookupUnit       = new UnitRegistry<>(0);
+		lookupSite       = new UnitRegistry<>(Unit.FIRST_SITE_UNIT_ID);
+		lookupSettlement = new UnitRegistry<>(Unit.FIRST_SETTLEMENT_UNIT_ID);
+		lookupPerson     = new UnitRegistry<>(Unit.FIRST_PERSON_UNIT_ID);
+		lookupRobot      = new UnitRegistry<>(Unit.FIRST_ROBOT_UNIT_ID);
+		lookupEquipment  = new UnitRegistry<>(Unit.FIRST_EQUIPMENT_UNIT_ID);
+		lookupVehicle    = new UnitRegistry<>(Unit.FIRST_VEHICLE_UNIT_ID);
+		lookupBuilding   = new UnitRegistry<>(Unit.FIRST_BUILDING_UNIT_ID);
 		
 //		units = new CopyOnWriteArrayList<>();//ConcurrentLinkedQueue<Unit>();
 		listeners = new CopyOnWriteArrayList<>();//Collections.synchronizedList(new ArrayList<UnitManagerListener>());
@@ -436,11 +437,11 @@ public class UnitManager implements Serializable, Temporal {
 	 * @param id indentifier
 	 * @return
 	 */
-	public Unit getUnitByID(Integer id) {
-		if (id == (Integer) Unit.MARS_SURFACE_UNIT_ID)
+	public Unit getUnitByID(int id) {
+		if (id == Unit.MARS_SURFACE_UNIT_ID)
 			return marsSurface;
 			
-		// TODO : use the id range to figure out which lookup map to access
+		// Each lookup is an array read, so try them in turn
 		
 		Unit u = lookupSettlement.get(id);
 		
@@ -496,30 +497,27 @@ public class UnitManager implements Serializable, Temporal {
 	
 	public void addUnitID(Unit unit) {
 		if (lookupUnit == null)
-			lookupUnit = new ConcurrentHashMap<>();
+			lookupUnit = new UnitRegistry<>(0);
 		logger.config("UnitManager::addUnitID() :" + unit.getName());
-		if (unit != null && !lookupUnit.containsKey(unit.getIdentifier())) {
-			lookupUnit.put(unit.getIdentifier(), unit);
+		if (unit != null && lookupUnit.register(unit)) {
 			// Fire unit manager event.
 			fireUnitManagerUpdate(UnitManagerEventType.ADD_UNIT, unit);
 		}
 	}
 
 	public void removeUnitID(Unit unit) {
-		if (lookupUnit.containsKey(unit.getIdentifier()))
-			lookupUnit.remove((Integer)unit.getIdentifier());
+		lookupUnit.unregister(unit);
 	}
 	
-	public Settlement getSettlementByID(Integer id) {
+	public Settlement getSettlementByID(int id) {
 		return lookupSettlement.get(id);
 	}
 	
 	public void addSettlementID(Settlement s) {
 		if (lookupSettlement == null)
-			lookupSettlement = new ConcurrentHashMap<>();
-		if (s != null && !lookupSettlement.containsKey(s.getIdentifier())) {
+			lookupSettlement = new UnitRegistry<>(Unit.FIRST_SETTLEMENT_UNIT_ID);
+		if (s != null && lookupSettlement.register(s)) {
 //			System.out.println("Adding " + s + " (" + s.getIdentifier() + ") size : " + lookupSettlement.size());
-			lookupSettlement.put(s.getIdentifier(), s);
 			// Fire unit manager event.
 			fireUnitManagerUpdate(UnitManagerEventType.ADD_UNIT, s);
 			// Recompute the map display units
@@ -528,8 +526,7 @@ public class UnitManager implements Serializable, Temporal {
 	}
 
 	public void removeSettlementID(Settlement s) {
-		if (!lookupSettlement.containsKey(s.getIdentifier())) {
-			lookupSettlement.remove((Integer)s.getIdentifier());
+		if (lookupSettlement.unregister(s)) {
 			// Fire unit manager event.
 			fireUnitManagerUpdate(UnitManagerEventType.REMOVE_UNIT, s);
 			// Recompute the map display units
@@ -537,25 +534,23 @@ public class UnitManager implements Serializable, Temporal {
 		}
 	}
 
-	public ConstructionSite getSiteByID(Integer id) {
+	public ConstructionSite getSiteByID(int id) {
 //		System.out.println("Getting " + lookupSite.get(id) + " (" + id + ")");
 		return lookupSite.get(id);
 	}
 	
 	public void addSiteID(ConstructionSite s) {
 		if (lookupSite == null)
-			lookupSite = new ConcurrentHashMap<>();
-		if (s != null && !lookupSite.containsKey(s.getIdentifier())) {
+			lookupSite = new UnitRegistry<>(Unit.FIRST_SITE_UNIT_ID);
+		if (s != null && lookupSite.register(s)) {
 //			System.out.println("Adding " + s + " (" + s.getIdentifier() + ") size : " + lookupSite.size());
-			lookupSite.put(s.getIdentifier(), s);
 			// Fire unit manager event.
 			fireUnitManagerUpdate(UnitManagerEventType.ADD_UNIT, s);
 		}
 	}
 
 	public void removeSiteID(ConstructionSite s) {
-		if (!lookupSite.containsKey(s.getIdentifier())) {
-			lookupSite.remove((Integer)s.getIdentifier());
+		if (lookupSite.unregister(s)) {
 			// Fire unit manager event.
 			fireUnitManagerUpdate(UnitManagerEventType.REMOVE_UNIT, s);	
 		}
@@ -591,98 +586,82 @@ public class UnitManager implements Serializable, Temporal {
 		return settlements;
 	}
 	
-	public Person getPersonByID(Integer id) {
-		return getLookupPerson().get(id);
-//		if (lookupPerson.containsKey(id))
-//			return lookupPerson.get(id);
-//		return null;
-	}
-
-	public Map<Integer, Person> getLookupPerson() {
-		return lookupPerson; //new ConcurrentHashMap<>(lookupPerson);
+	public Person getPersonByID(int id) {
+		return lookupPerson.get(id);
 	}
 
 	public void addPersonID(Person p) {
 		if (lookupPerson == null)
-			lookupPerson = new ConcurrentHashMap<>();
-		if (p != null && !lookupPerson.containsKey(p.getIdentifier())) {
-			lookupPerson.put(p.getIdentifier(), p);
+			lookupPerson = new UnitRegistry<>(Unit.FIRST_PERSON_UNIT_ID);
+		if (p != null && lookupPerson.register(p)) {
 			// Fire unit manager event.
 			fireUnitManagerUpdate(UnitManagerEventType.ADD_UNIT, p);	
 		}
 	}
 
 	public void removePersonID(Person p) {
-		if (lookupPerson.containsKey(p.getIdentifier()))
-			lookupPerson.remove((Integer)p.getIdentifier());
+		lookupPerson.unregister(p);
 	}
 
-	public Robot getRobotByID(Integer id) {
+	public Robot getRobotByID(int id) {
 		return lookupRobot.get(id);
 	}
 
 	public void addRobotID(Robot r) {
 		if (lookupRobot == null)
-			lookupRobot = new ConcurrentHashMap<>();
-		if (r != null && !lookupRobot.containsKey(r.getIdentifier())) {
-			lookupRobot.put(r.getIdentifier(), r);
+			lookupRobot = new UnitRegistry<>(Unit.FIRST_ROBOT_UNIT_ID);
+		if (r != null && lookupRobot.register(r)) {
 			// Fire unit manager event.
 			fireUnitManagerUpdate(UnitManagerEventType.ADD_UNIT, r);
 		}
 	}
 
 	public void removeRobotID(Robot r) {
-		if (lookupRobot.containsKey(r.getIdentifier()))
-			lookupRobot.remove(r.getIdentifier());
+		lookupRobot.unregister(r);
 	}
 	
-	public Equipment getEquipmentByID(Integer id) {
+	public Equipment getEquipmentByID(int id) {
 		return lookupEquipment.get(id);
 	}
 
 	public void addEquipmentID(Equipment e) {
 		if (lookupEquipment == null)
-			lookupEquipment = new ConcurrentHashMap<>();
-		if (e != null && !lookupEquipment.containsKey(e.getIdentifier())) {
-			lookupEquipment.put(e.getIdentifier(), e);
+			lookupEquipment = new UnitRegistry<>(Unit.FIRST_EQUIPMENT_UNIT_ID);
+		if (e != null && lookupEquipment.register(e)) {
 			// Fire unit manager event.
 //			fireUnitManagerUpdate(UnitManagerEventType.ADD_UNIT, e);
 		}
 	}
 	
 	public void removeEquipmentID(Equipment e) {
-		if (lookupEquipment.containsKey(e.getIdentifier()))
-			lookupEquipment.remove((Integer)e.getIdentifier());
+		lookupEquipment.unregister(e);
 	}
 	
-	public Building getBuildingByID(Integer id) {
+	public Building getBuildingByID(int id) {
 		return lookupBuilding.get(id);
 	}
 	
 	public void addBuildingID(Building b) {
 		if (lookupBuilding == null)
-			lookupBuilding = new ConcurrentHashMap<>();
-		if (b != null && !lookupBuilding.containsKey(b.getIdentifier())) {
-			lookupBuilding.put(b.getIdentifier(), b);
+			lookupBuilding = new UnitRegistry<>(Unit.FIRST_BUILDING_UNIT_ID);
+		if (b != null && lookupBuilding.register(b)) {
 			// Fire unit manager event.
 			fireUnitManagerUpdate(UnitManagerEventType.ADD_UNIT, b);
 		}
 	}
 	
 	public void removeBuildingID(Building b) {
-		if (lookupBuilding.containsKey(b.getIdentifier()))
-			lookupBuilding.remove((Integer)b.getIdentifier());
+		lookupBuilding.unregister(b);
 	}
 
-	public Vehicle getVehicleByID(Integer id) {
+	public Vehicle getVehicleByID(int id) {
 		return lookupVehicle.get(id);
 	}
 
 	public void addVehicleID(Vehicle v) {
 		if (lookupVehicle == null)
-			lookupVehicle = new ConcurrentHashMap<>();
-		if (v != null && !lookupVehicle.containsKey(v.getIdentifier())) {
-			lookupVehicle.put(v.getIdentifier(), v);
+			lookupVehicle = new UnitRegistry<>(Unit.FIRST_VEHICLE_UNIT_ID);
+		if (v != null && lookupVehicle.register(v)) {
 			// Fire unit manager event.
 			fireUnitManagerUpdate(UnitManagerEventType.ADD_UNIT, v);
 			// Recompute the map display units
@@ -691,8 +670,7 @@ public class UnitManager implements Serializable, Temporal {
 	}
 
 	public void removeVehicleID(Vehicle v) {
-		if (lookupVehicle.containsKey(v.getIdentifier())) {
-			lookupVehicle.remove((Integer)v.getIdentifier());
+		if (lookupVehicle.unregister(v)) {
 			// Fire unit manager event.
 			fireUnitManagerUpdate(UnitManagerEventType.REMOVE_UNIT, v);
 			// Recompute the map display units
@@ -716,8 +694,10 @@ public class UnitManager implements Serializable, Temporal {
 				addPersonID((Person)unit);
 			else if (unit instanceof Robot)
 				addRobotID((Robot)unit);
-			else if (unit instanceof Vehicle)
+			else if (unit instanceof Vehicle) {
 				addVehicleID((Vehicle)unit);
+				LocalAreaIndex.add((Vehicle)unit, unit.getCoordinates());
+			}
 			else if (unit instanceof Equipment)
 				addEquipmentID((Equipment)unit);
 			else if (unit instanceof Building)
@@ -763,8 +743,10 @@ public class UnitManager implements Serializable, Temporal {
 				removePersonID((Person)unit);
 			else if (unit instanceof Robot)
 				removeRobotID((Robot)unit);
-			else if (unit instanceof Vehicle)
+			else if (unit instanceof Vehicle) {
 				removeVehicleID((Vehicle)unit);
+				LocalAreaIndex.remove((Vehicle)unit);
+			}
 			else if (unit instanceof Equipment)
 				removeEquipmentID((Equipment)unit);
 			else if (unit instanceof Building)
@@ -903,7 +885,7 @@ public class UnitManager implements Serializable, Temporal {
 
 		if (unitType == UnitType.SETTLEMENT) {
 			initialNameList = settlementNames;
-			Iterator<Settlement> si = lookupSettlement.values().iterator();
+			Iterator<Settlement> si = lookupSettlement.iterator();
 			while (si.hasNext()) {
 				usedNames.add(si.next().getName());
 			}
@@ -1047,7 +1029,7 @@ public class UnitManager implements Serializable, Temporal {
 	 */
 	private void createInitialVehicles() {
 
-		for (Settlement settlement : lookupSettlement.values()) {
+		for (Settlement settlement : lookupSettlement) {
 //				logger.config("settlement : " + settlement);
 			SettlementTemplate template = settlementConfig.getSettlementTemplate(settlement.getTemplate());
 			Map<String, Integer> vehicleMap = template.getVehicles();
@@ -1084,7 +1066,7 @@ public class UnitManager implements Serializable, Temporal {
 	 */
 	private void createInitialEquipment() {
 
-		for (Settlement settlement : lookupSettlement.values()) {
+		for (Settlement settlement : lookupSettlement) {
 			SettlementTemplate template = settlementConfig.getSettlementTemplate(settlement.getTemplate());
 			Map<String, Integer> equipmentMap = template.getEquipment();
 			for (String type : equipmentMap.keySet()) {
@@ -1113,7 +1095,7 @@ public class UnitManager implements Serializable, Temporal {
 	 */
 	private void createInitialResources() {
 
-		Iterator<Settlement> i = lookupSettlement.values().iterator();
+		Iterator<Settlement> i = lookupSettlement.iterator();
 		while (i.hasNext()) {
 			Settlement settlement = i.next();
 			SettlementTemplate template = settlementConfig.getSettlementTemplate(settlement.getTemplate());
@@ -1138,7 +1120,7 @@ public class UnitManager implements Serializable, Temporal {
 	 */
 	private void createInitialParts() {
 
-		Iterator<Settlement> i = lookupSettlement.values().iterator();
+		Iterator<Settlement> i = lookupSettlement.iterator();
 		while (i.hasNext()) {
 			Settlement settlement = i.next();
 			SettlementTemplate template = settlementConfig.getSettlementTemplate(settlement.getTemplate());
@@ -1236,7 +1218,7 @@ public class UnitManager implements Serializable, Temporal {
 			// Get person's settlement or randomly determine it if not configured.
 			String preConfigSettlementName = crewConfig.getConfiguredPersonDestination(x, crewID, false);
 			if (preConfigSettlementName != null) {
-				settlement = CollectionUtils.getSettlement(lookupSettlement.values(), preConfigSettlementName);
+				settlement = CollectionUtils.getSettlement(lookupSettlement, preConfigSettlementName);
 				if (settlement == null) {
 					// Note: if settlement cannot be found that matches the settlement name,
 					// do NOT use this member
@@ -1246,7 +1228,7 @@ public class UnitManager implements Serializable, Temporal {
 				}
 
 			} else {
-				Collection<Settlement> col = lookupSettlement.values();//CollectionUtils.getSettlement(units);
+				Collection<Settlement> col = lookupSettlement;//CollectionUtils.getSettlement(units);
 				settlement = CollectionUtils.getRandomSettlement(col);
 				logger.log(Level.INFO, name + " has no destination settlement specified and goes to "
 						+ preConfigSettlementName + " by random.");
@@ -1261,7 +1243,7 @@ public class UnitManager implements Serializable, Temporal {
 			// If settlement does not have initial population capacity, try
 			// another settlement.
 			if (settlement.getInitialPopulation() <= settlement.getIndoorPeopleCount()) {
-				Iterator<Settlement> i = lookupSettlement.values().iterator();
+				Iterator<Settlement> i = lookupSettlement.iterator();
 				Settlement newSettlement = null;
 				while (i.hasNext() && (newSettlement == null)) {
 					Settlement tempSettlement = i.next();
@@ -1389,7 +1371,7 @@ public class UnitManager implements Serializable, Temporal {
 
 		// Randomly create all remaining people to fill the settlements to capacity.
 		try {
-			Iterator<Settlement> i = lookupSettlement.values().iterator();
+			Iterator<Settlement> i = lookupSettlement.iterator();
 			while (i.hasNext()) {
 				Settlement settlement = i.next();
 				int initPop = settlement.getInitialPopulation();
@@ -1628,7 +1610,7 @@ public class UnitManager implements Serializable, Temporal {
 	 * Tunes up the job deficit on all settlements
 	 */
 	public void tuneJobDeficit() {
-		Collection<Settlement> col = lookupSettlement.values();//CollectionUtils.getSettlement(units);
+		Collection<Settlement> col = lookupSettlement;//CollectionUtils.getSettlement(units);
 		for (Settlement settlement : col) {
 			settlement.tuneJobDeficit();
 		}
@@ -1674,7 +1656,7 @@ public class UnitManager implements Serializable, Temporal {
 		String country = getCountryStr();
 		String sponsor = getSponsorStr();
 		
-		List<Settlement> list = new ArrayList<>(lookupSettlement.values());
+		List<Settlement> list = new ArrayList<>(lookupSettlement);
 		int size = list.size();
 		for (int j = 0; j < size; j++) {
 			Settlement s = list.get(j);		
@@ -1751,7 +1733,7 @@ public class UnitManager implements Serializable, Temporal {
 		int size = robotConfig.getNumberOfConfiguredRobots();
 		// If players choose # of bots less than what's being configured
 		// Create all configured robot.
-		Collection<Settlement> col = new CopyOnWriteArrayList<>(lookupSettlement.values());//CollectionUtils.getSettlement(units);
+		Collection<Settlement> col = new CopyOnWriteArrayList<>(lookupSettlement);//CollectionUtils.getSettlement(units);
 		for (int x = 0; x < size; x++) {
 			boolean isDestinationChange = false;
 			// Get robot's name (required)
@@ -1915,7 +1897,7 @@ public class UnitManager implements Serializable, Temporal {
 	private void createInitialRobots() {
 		// Randomly create all remaining robots to fill the settlements to capacity.
 		try {
-			Iterator<Settlement> i = lookupSettlement.values().iterator();
+			Iterator<Settlement> i = lookupSettlement.iterator();
 			while (i.hasNext()) {
 				Settlement settlement = i.next();
 				int initial = settlement.getProjectedNumOfRobots();
@@ -2235,7 +2217,7 @@ public class UnitManager implements Serializable, Temporal {
 		}
 
 		if (pulse.getElapsed() > 0) {
-			runExecutor(pulse);
+			runScheduler(pulse);
 		}
 		else {
 			logger.warning("Zero elapsed pulse #" + pulse.getId());
@@ -2245,70 +2227,154 @@ public class UnitManager implements Serializable, Temporal {
 	}
 	
 	/**
-	 * Sets up executive service
+	 * Sets up the pulse scheduler
 	 */
-	private void setupExecutor() {
-		if (executor == null) {
-			int size = getSettlementNum();
-			int num = Math.min(size, Simulation.NUM_THREADS - simulationConfig.getUnusedCores());
+	private void setupScheduler() {
+		if (scheduler == null) {
+			int num = Simulation.NUM_THREADS - simulationConfig.getUnusedCores();
 			if (num <= 0) num = 1;
-			logger.config("Setting up " + num + " threads for running the settlement update.");
-			executor = Executors.newFixedThreadPool(num,
-					new ThreadFactoryBuilder().setNameFormat("unitmanager-thread-%d").build());
+			logger.config("Setting up " + num + " threads for running the unit update.");
+			scheduler = new PulseScheduler(num, "unitmanager-thread-");
+		}
+	}
+	
+	/**
+	 * Splits the pulse into work items and runs them phase by phase : the
+	 * settlement environment, then the buildings, then the agents, then the
+	 * vitals of the people and lastly the missions. Within a phase every
+	 * building, person, robot, vehicle and piece of equipment is a work item of
+	 * its own, so the units of a settlement are spread over all the threads. The
+	 * settlement-wide processes are an item of the settlement itself.
+	 * <p>
+	 * The state the units really share is locked where it is kept : an inventory
+	 * takes the lock of its containment tree and a building takes the lock of
+	 * the person or robot moving in or out of it. A towed vehicle stays on the
+	 * lane of the vehicle towing it, since the two move as one.
+	 * <p>
+	 * The vitals of the citizens are advanced in a phase of their own, once all
+	 * the people have had their time.
+	 * 
+	 * @param pulse
+	 */
+	private void runScheduler(ClockPulse pulse) {
+		setupScheduler();
+
+		List<Settlement> settlements = new ArrayList<>(lookupSettlement);
+		settlements.sort((a, b) -> Integer.compare(a.getIdentifier(), b.getIdentifier()));
+		
+		List<Settlement> active = new ArrayList<>();
+		for (Settlement s : settlements) {
+			if (s.acceptPulse(pulse)) {
+				active.add(s);
+				BuildingManager manager = s.getBuildingManager();
+				scheduler.add(Phase.ENVIRONMENT, s, withStream(s, s::environmentTimePassing));
+				scheduler.add(Phase.ENVIRONMENT, s, withStream(s, manager::startTimePassing));
+				for (Building b : manager.getBuildings()) {
+					scheduler.add(Phase.BUILDINGS, b, withStream(b, b));
+				}
+				scheduler.add(Phase.AGENTS, s, withStream(s, s::settlementTimePassing));
+				scheduler.add(Phase.VITALS, s, withStream(s, s::physiologyTimePassing));
+			}
+		}
+		
+		for (Settlement s : active) {
+			for (Equipment e : s.getAllAssociatedEquipment()) {
+				scheduler.add(Phase.AGENTS, e, withStream(e, e));
+			}
+			for (Vehicle v : s.getAllAssociatedVehicles()) {
+				scheduler.add(Phase.AGENTS, getLane(v), withStream(v, v));
+			}
+			for (Person p : s.getAllAssociatedPeople()) {
+				scheduler.add(Phase.AGENTS, p, withStream(p, p));
+			}
+			for (Robot r : s.getAllAssociatedRobots()) {
+				scheduler.add(Phase.AGENTS, r, withStream(r, r));
+			}
+		}
+		
+		MissionManager missionManager = Simulation.instance().getMissionManager();
+		scheduler.add(Phase.MISSIONS, missionManager,
+				withStream(RandomUtil.getStream(MISSION_STREAM), missionManager::timePassing));
+
+		scheduler.runPulse(pulse);
+		
+		if (pulse.isNewSol()) {
+			logger.config(scheduler.getReport());
+			scheduler.resetStats();
+			logger.config(MissionPlanningContext.getReport());
+			MissionPlanningContext.resetStats();
+			logger.config(MetaTaskProfiler.getReport(10));
+			MetaTaskProfiler.reset();
+			for (Settlement s : settlements) {
+				logger.config("Inventory caches of " + s.getName() + " : " 
+						+ s.getInventoryFootprint() / 1024 + " KB");
+			}
 		}
 	}
 	
 	/**
-	 * Sets up settlement tasks for executive service
+	 * Makes a work item draw its random numbers from the stream of a unit when
+	 * the reproducible mode is on.
+	 * 
+	 * @param unit the unit owning the stream
+	 * @param work the work item
+	 * @return the work item to schedule
 	 */
-	private void setupTasks() {
-		if (settlementTaskList == null || settlementTaskList.isEmpty()) {
-			settlementTaskList = new CopyOnWriteArrayList<>();
-			lookupSettlement.values().forEach(s -> {
-				SettlementTask st = new SettlementTask(s);
-				settlementTaskList.add(st);
-			});
-		}
+	private static Temporal withStream(Unit unit, Temporal work) {
+		return withStream(RandomUtil.getStream(unit.getIdentifier()), work);
 	}
-	
+
 	/**
-	 * Fires the clock pulse to each clock listener
+	 * Makes a work item draw its random numbers from a stream.
 	 * 
-	 * @param pulse
+	 * @param stream the stream, or null if the reproducible mode is off
+	 * @param work   the work item
+	 * @return the work item to schedule
 	 */
-	private void runExecutor(ClockPulse pulse) {
-		setupExecutor();
-		setupTasks();
-		settlementTaskList.forEach(s -> {
-			s.setCurrentPulse(pulse);
-		});
-
-		// Execute all listener concurrently and wait for all to complete before advancing
-		// Ensure that Settlements stay synch'ed and some don't get ahead of others as tasks queue
-		try {
-			List<Future<String>> results = executor.invokeAll(settlementTaskList);
-			for (Future<String> future : results) {
-				future.get();
-			};
-		} 
-		catch (ExecutionException ee) {
-			// Problem running the pulse
-			ee.printStackTrace();
-		}
-		catch (InterruptedException ie) {
-			// Program probably exiting
-			if (executor.isShutdown()) {
-				Thread.currentThread().interrupt();
+	private static Temporal withStream(RandomStream stream, Temporal work) {
+		if (stream == null)
+			return work;
+		
+		return pulse -> {
+			RandomStream previous = RandomUtil.bindStream(stream);
+			try {
+				return work.timePassing(pulse);
+			} finally {
+				RandomUtil.bindStream(previous);
 			}
-		}
+		};
 	}
 	
 	/**
-	 * Ends the current executor
+	 * Gets the lane a vehicle is updated on : its own, or that of the vehicle
+	 * towing it.
+	 * 
+	 * @param v the vehicle
+	 * @return the key of the lane
+	 */
+	private static Unit getLane(Vehicle v) {
+		while (v.getTowingVehicle() != null && v.getTowingVehicle() != v)
+			v = v.getTowingVehicle();
+		return v;
+	}
+	
+	/**
+	 * Gets the timing of the phases of the pulses.
+	 * 
+	 * @return the pulse scheduler, or null if no pulse has been run yet
+	 */
+	public PulseScheduler getScheduler() {
+		return scheduler;
+	}
+	
+	/**
+	 * Ends the pulse scheduler
 	 */
 	public void endSimulation() {
-		if (executor != null)
-			executor.shutdownNow();
+		if (scheduler != null) {
+			scheduler.shutdown();
+			scheduler = null;
+		}
 	}
 	
 	/**
@@ -2327,7 +2393,7 @@ public class UnitManager implements Serializable, Temporal {
 	 */
 	public Collection<Settlement> getSettlements() {
 		if (lookupSettlement != null && !lookupSettlement.isEmpty()) {
-			return  Collections.unmodifiableCollection(lookupSettlement.values());//CollectionUtils.getSettlement(units); 
+			return lookupSettlement;
 		}
 		else {
 //			logger.severe("lookupSettlement is null.");
@@ -2350,7 +2416,7 @@ public class UnitManager implements Serializable, Temporal {
 	 * @return Collection of vehicles
 	 */
 	public Collection<Vehicle> getVehicles() {
-		return Collections.unmodifiableCollection(lookupVehicle.values());//CollectionUtils.getVehicle(units);
+		return lookupVehicle;//CollectionUtils.getVehicle(units);
 	}
 
 	/**
@@ -2368,7 +2434,7 @@ public class UnitManager implements Serializable, Temporal {
 	 * @return Collection of people
 	 */
 	public Collection<Person> getPeople() {
-		return Collections.unmodifiableCollection(lookupPerson.values());//CollectionUtils.getPerson(units);
+		return lookupPerson;//CollectionUtils.getPerson(units);
 	}
 
 	/**
@@ -2378,7 +2444,7 @@ public class UnitManager implements Serializable, Temporal {
 	 */
 	public Collection<Person> getOutsidePeople() {
 		return //CollectionUtils.getPerson(units)
-				lookupPerson.values()
+				lookupPerson
 				.stream()
 				.filter(p -> p.getLocationStateType() == LocationStateType.WITHIN_SETTLEMENT_VICINITY
 						|| p.getLocationStateType() == LocationStateType.OUTSIDE_ON_MARS)
@@ -2400,7 +2466,7 @@ public class UnitManager implements Serializable, Temporal {
 	 * @return Collection of Robots
 	 */
 	public Collection<Robot> getRobots() {
-		return Collections.unmodifiableCollection(lookupRobot.values());//CollectionUtils.getRobot(units);
+		return lookupRobot;//CollectionUtils.getRobot(units);
 	}
 
 	/**
@@ -2419,7 +2485,7 @@ public class UnitManager implements Serializable, Temporal {
 	 * @return collection
 	 */
 	public Collection<Equipment> getEquipment() {
-		return lookupEquipment.values();//CollectionUtils.getEquipment(units);
+		return lookupEquipment;//CollectionUtils.getEquipment(units);
 	}
 
 	/**
@@ -2437,7 +2503,7 @@ public class UnitManager implements Serializable, Temporal {
 	 * @return collection
 	 */
 	public Collection<Building> getBuildings() {
-		return Collections.unmodifiableCollection(lookupBuilding.values());
+		return lookupBuilding;
 	}
 	
 	/**
@@ -2455,7 +2521,7 @@ public class UnitManager implements Serializable, Temporal {
 	 * @return collection
 	 */
 	public Collection<ConstructionSite> getSites() {
-		return Collections.unmodifiableCollection(lookupSite.values());
+		return lookupSite;
 	}
 	
 //	/**
@@ -2489,8 +2555,8 @@ public class UnitManager implements Serializable, Temporal {
 	 */
 	public void computeDisplayUnits() {
 		displayUnits = Stream.of(
-				lookupSettlement.values(),
-				lookupVehicle.values())
+				lookupSettlement,
+				lookupVehicle)
 				.flatMap(Collection::stream).collect(Collectors.toList());	
 	}
 	
@@ -2508,32 +2574,32 @@ public class UnitManager implements Serializable, Temporal {
 //	 */
 //	public List<Unit> computeUnits() {
 //		return Stream.of(
-//		new ArrayList<>(lookupUnit.values()),
-//		new ArrayList<>(lookupSettlement.values()),
-//		new ArrayList<>(lookupPerson.values()),
-//		new ArrayList<>(lookupRobot.values()),
-//		new ArrayList<>(lookupEquipment.values()),
-//		new ArrayList<>(lookupVehicle.values())
+//		new ArrayList<>(lookupUnit),
+//		new ArrayList<>(lookupSettlement),
+//		new ArrayList<>(lookupPerson),
+//		new ArrayList<>(lookupRobot),
+//		new ArrayList<>(lookupEquipment),
+//		new ArrayList<>(lookupVehicle)
 //		)
 //		.flatMap(Collection::stream).collect(Collectors.toList());	
 		
 //		List<Unit> list = new ArrayList<>();
-//		list.addAll(lookupUnit.values());
-//		list.addAll(lookupSettlement.values());
-//		list.addAll(lookupBuilding.values());
-//		list.addAll(lookupPerson.values());
-//		list.addAll(lookupRobot.values());
-//		list.addAll(lookupEquipment.values());
-//		list.addAll(lookupVehicle.values());	
+//		list.addAll(lookupUnit);
+//		list.addAll(lookupSettlement);
+//		list.addAll(lookupBuilding);
+//		list.addAll(lookupPerson);
+//		list.addAll(lookupRobot);
+//		list.addAll(lookupEquipment);
+//		list.addAll(lookupVehicle);	
 //		return list;
 		
 //		return Stream.of(
-//				Arrays.asList(lookupUnit.values(),
-//				lookupSettlement.values(),
-//				lookupPerson.values(),
-//				lookupRobot.values(),
-//				lookupEquipment.values(),
-//				lookupVehicle.values())
+//				Arrays.asList(lookupUnit,
+//				lookupSettlement,
+//				lookupPerson,
+//				lookupRobot,
+//				lookupEquipment,
+//				lookupVehicle)
 //				)
 //				.flatMap(Collection::stream).collect(Collectors.toList());	
 		
@@ -2541,12 +2607,12 @@ public class UnitManager implements Serializable, Temporal {
 	
 //	public Collection<Unit>[] computeUnitArray() {
 //		return new Collection<Unit>[] {
-//				lookupUnit.values(),
-//				lookupSettlement.values(),
-//				lookupPerson.values(),
-//				lookupRobot.values(),
-//				lookupEquipment.values(),
-//				lookupVehicle.values()
+//				lookupUnit,
+//				lookupSettlement,
+//				lookupPerson,
+//				lookupRobot,
+//				lookupEquipment,
+//				lookupVehicle
 //		};
 //	}
 	
@@ -2824,23 +2890,21 @@ public class UnitManager implements Serializable, Temporal {
 	 */
 	public void reinit(MarsClock clock) {
 		
-		for (Person p: lookupPerson.values()) {
+		for (Person p: lookupPerson) {
 			p.reinit();
 		}
-		for (Robot r: lookupRobot.values()) {
+		for (Robot r: lookupRobot) {
 			r.reinit();
 		}
-		for (Building b: lookupBuilding.values()) {
+		for (Building b: lookupBuilding) {
 			b.reinit();
 		}
-		for (Settlement s: lookupSettlement.values()) {
+		for (Settlement s: lookupSettlement) {
 			s.reinit();
 		}
 		
-		// Sets up the executor
-		setupExecutor();
-		// Sets up the concurrent tasks
-		setupTasks();
+		// Sets up the pulse scheduler
+		setupScheduler();
 	}
 	
 	/**
@@ -2868,35 +2932,35 @@ public class UnitManager implements Serializable, Temporal {
 	 * Prepare object for garbage collection.
 	 */
 	public void destroy() {
-		Iterator<Unit> i = lookupUnit.values().iterator();
+		Iterator<Unit> i = lookupUnit.iterator();
 		while (i.hasNext()) {
 			i.next().destroy();
 		}
-		Iterator<Settlement> i1 = lookupSettlement.values().iterator();
+		Iterator<Settlement> i1 = lookupSettlement.iterator();
 		while (i1.hasNext()) {
 			i1.next().destroy();
 		}
-		Iterator<ConstructionSite> i0 = lookupSite.values().iterator();
+		Iterator<ConstructionSite> i0 = lookupSite.iterator();
 		while (i0.hasNext()) {
 			i0.next().destroy();
 		}
-		Iterator<Vehicle> i2 = lookupVehicle.values().iterator();
+		Iterator<Vehicle> i2 = lookupVehicle.iterator();
 		while (i2.hasNext()) {
 			i2.next().destroy();
 		}
-		Iterator<Building> i3 = lookupBuilding.values().iterator();
+		Iterator<Building> i3 = lookupBuilding.iterator();
 		while (i3.hasNext()) {
 			i3.next().destroy();
 		}
-		Iterator<Person> i4 = lookupPerson.values().iterator();
+		Iterator<Person> i4 = lookupPerson.iterator();
 		while (i4.hasNext()) {
 			i4.next().destroy();
 		}
-		Iterator<Robot> i5 = lookupRobot.values().iterator();
+		Iterator<Robot> i5 = lookupRobot.iterator();
 		while (i5.hasNext()) {
 			i5.next().destroy();
 		}
-		Iterator<Equipment> i6 = lookupEquipment.values().iterator();
+		Iterator<Equipment> i6 = lookupEquipment.iterator();
 		while (i6.hasNext()) {
 			i6.next().destroy();
 		}
@@ -2950,31 +3014,5 @@ public class UnitManager implements Serializable, Temporal {
 		// emotionJSONConfig = null;
 		factory = null;
 	}
-	
-	/**
-	 * Prepares the Settlement task for setting up its own thread.
-	 */
-	class SettlementTask implements Callable<String> {
-		private Settlement settlement;
-		private ClockPulse currentPulse;
-		
-		protected Settlement getSettlement() {
-			return settlement;
-		}
-		
-		public void setCurrentPulse(ClockPulse pulse) {
-			this.currentPulse = pulse;
-		}
-
-		private SettlementTask(Settlement settlement) {
-			this.settlement = settlement;
-		}
-
-		@Override
-		public String call() throws Exception {
-			settlement.timePassing(currentPulse);	
-			return settlement.getName() + " completed pulse #" + currentPulse.getId();
-		}
-	}
 
 }
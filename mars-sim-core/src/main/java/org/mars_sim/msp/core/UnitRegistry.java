@@ -0,0 +1,202 @@
+/**
+ * Mars Simulation Project
+ * UnitRegistry.java
+ * @version 3.1.2 2026-10-17
+ * @author agent
+ */
+package org.mars_sim.msp.core;
+
+import java.io.Serializable;
+import java.util.AbstractCollection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The units of one type by identifier, in an array indexed by the identifier
+ * less the first identifier of the type since they are handed out in sequence.
+ * A lookup is an array read with no boxing, hashing nor locking, and the
+ * changes are locked. The registry is also a read only view of its units, in
+ * the order of their identifiers, that the caller may iterate over without a
+ * copy. As with a concurrent map, an iteration sees the units added or
+ * removed meanwhile or not.
+ *
+ * @param <T> the unit type.
+ */
+final class UnitRegistry<T extends Unit> extends AbstractCollection<T> implements Serializable {
+
+	/** default serial id. */
+	private static final long serialVersionUID = 1L;
+
+	private static final int INITIAL_CAPACITY = 16;
+
+	/** The identifier of the first slot. */
+	private final int firstID;
+	/** The units by slot, replaced by a larger one when full. */
+	private volatile AtomicReferenceArray<T> slots = new AtomicReferenceArray<>(INITIAL_CAPACITY);
+	/** One past the last slot in use, so that the free slots at the end are not scanned. */
+	private volatile int limit;
+	/** The number of units. */
+	private volatile int count;
+	/** The number of free slots below the limit. */
+	private int freeSlots;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param firstID the identifier of the first unit of the type.
+	 */
+	UnitRegistry(int firstID) {
+		this.firstID = firstID;
+	}
+
+	/**
+	 * Gets a unit.
+	 *
+	 * @param id the unit identifier.
+	 * @return the unit or null if none.
+	 */
+	T get(int id) {
+		int slot = id - firstID;
+		AtomicReferenceArray<T> a = slots;
+		if ((slot < 0) || (slot >= a.length()))
+			return null;
+		return a.get(slot);
+	}
+
+	/**
+	 * Adds a unit if there is none with its identifier.
+	 *
+	 * @param unit the unit.
+	 * @return true if added.
+	 */
+	synchronized boolean register(T unit) {
+		int slot = unit.getIdentifier() - firstID;
+		if (slot < 0)
+			throw new IllegalArgumentException(unit + " has identifier " + unit.getIdentifier()
+					+ " below the first one " + firstID);
+
+		AtomicReferenceArray<T> a = slots;
+		if (slot >= a.length()) {
+			int capacity = a.length();
+			while (capacity <= slot) {
+				capacity *= 2;
+			}
+			AtomicReferenceArray<T> larger = new AtomicReferenceArray<>(capacity);
+			for (int i = 0; i < limit; i++) {
+				larger.set(i, a.get(i));
+			}
+			a = larger;
+			slots = larger;
+		} else if (a.get(slot) != null) {
+			return false;
+		}
+
+		a.set(slot, unit);
+		count++;
+		if (slot >= limit) {
+			freeSlots += slot - limit;
+			limit = slot + 1;
+		} else {
+			freeSlots--;
+		}
+		return true;
+	}
+
+	/**
+	 * Removes a unit.
+	 *
+	 * @param unit the unit.
+	 * @return true if removed.
+	 */
+	synchronized boolean unregister(T unit) {
+		int slot = unit.getIdentifier() - firstID;
+		AtomicReferenceArray<T> a = slots;
+		if ((slot < 0) || (slot >= a.length()) || (a.get(slot) != unit))
+			return false;
+
+		a.set(slot, null);
+		count--;
+		if (slot == limit - 1) {
+			// Give back the free slots at the end
+			int newLimit = slot;
+			while ((newLimit > 0) && (a.get(newLimit - 1) == null)) {
+				newLimit--;
+			}
+			freeSlots -= slot - newLimit;
+			limit = newLimit;
+		} else {
+			freeSlots++;
+		}
+		return true;
+	}
+
+	/**
+	 * Removes all the units.
+	 */
+	@Override
+	public synchronized void clear() {
+		slots = new AtomicReferenceArray<>(INITIAL_CAPACITY);
+		limit = 0;
+		count = 0;
+		freeSlots = 0;
+	}
+
+	/**
+	 * Gets the number of free slots among the ones in use, i.e. the units
+	 * removed and the identifiers not added.
+	 *
+	 * @return the number of slots.
+	 */
+	synchronized int getFreeSlots() {
+		return freeSlots;
+	}
+
+	@Override
+	public int size() {
+		return count;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return count == 0;
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		return (o instanceof Unit) && (get(((Unit) o).getIdentifier()) == o);
+	}
+
+	@Override
+	public Iterator<T> iterator() {
+		return new Iterator<T>() {
+			private final AtomicReferenceArray<T> a = slots;
+			private final int end = Math.min(limit, a.length());
+			private int slot = 0;
+			private T next = advance();
+
+			private T advance() {
+				while (slot < end) {
+					T unit = a.get(slot++);
+					if (unit != null)
+						return unit;
+				}
+				return null;
+			}
+
+			@Override
+			public boolean hasNext() {
+				return next != null;
+			}
+
+			@Override
+			public T next() {
+				if (next == null)
+					throw new NoSuchElementException();
+				T result = next;
+				next = advance();
+				return result;
+			}
+		};
+	}
+}
@@ -0,0 +1,244 @@
+/**
+ * Mars Simulation Project
+ * MaintenanceIndex.java
+ * @version 3.1.2 2026-10-17
+ * @author agent
+ */
+package org.mars_sim.msp.core.malfunction;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.mars_sim.msp.core.Unit;
+import org.mars_sim.msp.core.structure.Settlement;
+import org.mars_sim.msp.core.structure.building.Building;
+
+/**
+ * The malfunctionable entities of a settlement that the maintenance and repair
+ * tasks look for, i.e. the ones due for maintenance and the ones with a
+ * malfunction, so that the task probabilities need not go over all of them.
+ * The index of a settlement is built the first time it is asked for, then the
+ * malfunction manager of each entity keeps it up to date.
+ */
+public final class MaintenanceIndex {
+
+	/** The effective time (millisols) since the last maintenance an entity is due at. */
+	public static final double DUE_TIME = 1000D;
+
+	/** The indexes by settlement. */
+	private static final Map<Settlement, MaintenanceIndex> indexes = Collections
+			.synchronizedMap(new IdentityHashMap<>());
+
+	private final Settlement settlement;
+	/** The entities due for maintenance, the most overdue first. */
+	private final NavigableSet<DueEntry> due = new TreeSet<>();
+	/** The entries of the entities due for maintenance. */
+	private final Map<Malfunctionable, DueEntry> dueEntries = new IdentityHashMap<>();
+	/** The order the next entity to fall due gets, to break ties. */
+	private long nextOrder = 0;
+	/** The entities with a malfunction. */
+	private final Set<Malfunctionable> malfunctioning = Collections.newSetFromMap(new IdentityHashMap<>());
+
+	/**
+	 * Private constructor.
+	 */
+	private MaintenanceIndex(Settlement settlement) {
+		this.settlement = settlement;
+	}
+
+	/**
+	 * Gets the index of a settlement, building it if needed.
+	 *
+	 * @param settlement the settlement.
+	 * @return the index.
+	 */
+	public static MaintenanceIndex getIndex(Settlement settlement) {
+		MaintenanceIndex result = indexes.get(settlement);
+		if (result == null) {
+			synchronized (indexes) {
+				result = indexes.get(settlement);
+				if (result == null) {
+					result = new MaintenanceIndex(settlement);
+					// Hold the index while it is built so the updates meanwhile wait
+					synchronized (result) {
+						indexes.put(settlement, result);
+						for (Malfunctionable entity : MalfunctionFactory.getAssociatedMalfunctionables(settlement)) {
+							result.put(entity);
+						}
+					}
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Updates an entity in the index of its settlement, if built, after its
+	 * maintenance time or malfunctions have changed.
+	 *
+	 * @param entity the entity.
+	 */
+	static void update(Malfunctionable entity) {
+		Settlement associated = entity.getAssociatedSettlement();
+		MaintenanceIndex index = (associated != null) ? indexes.get(associated) : null;
+		if (index != null)
+			index.put(entity);
+	}
+
+	/**
+	 * Removes an entity from the index of its settlement, if built.
+	 *
+	 * @param entity the entity.
+	 */
+	public static void remove(Malfunctionable entity) {
+		Settlement associated = entity.getAssociatedSettlement();
+		MaintenanceIndex index = (associated != null) ? indexes.get(associated) : null;
+		if (index != null)
+			index.delete(entity);
+	}
+
+	/**
+	 * Discards all the indexes, e.g. when a simulation is loaded.
+	 */
+	public static void clear() {
+		indexes.clear();
+	}
+
+	private synchronized void put(Malfunctionable entity) {
+		MalfunctionManager manager = entity.getMalfunctionManager();
+		double time = manager.getEffectiveTimeSinceLastMaintenance();
+		DueEntry entry = dueEntries.get(entity);
+		if (time >= DUE_TIME) {
+			if (entry == null) {
+				entry = new DueEntry(entity, time, nextOrder++);
+				dueEntries.put(entity, entry);
+				due.add(entry);
+			} else if (entry.time != time) {
+				// Move it to its new place
+				due.remove(entry);
+				entry.time = time;
+				due.add(entry);
+			}
+		} else if (entry != null) {
+			due.remove(entry);
+			dueEntries.remove(entity);
+		}
+
+		if (manager.hasMalfunction())
+			malfunctioning.add(entity);
+		else
+			malfunctioning.remove(entity);
+	}
+
+	private synchronized void delete(Malfunctionable entity) {
+		DueEntry entry = dueEntries.remove(entity);
+		if (entry != null)
+			due.remove(entry);
+		malfunctioning.remove(entity);
+	}
+
+	/**
+	 * Gets the entities at the settlement that are due for maintenance. The
+	 * malfunction manager of a due entity reports each change of its time, so the
+	 * entities are kept in order as they go.
+	 *
+	 * @return the entities, the most overdue first.
+	 */
+	public synchronized List<Malfunctionable> getDueEntities() {
+		List<Malfunctionable> result = new ArrayList<>(due.size());
+		for (DueEntry entry : due) {
+			if (isLocal(entry.entity))
+				result.add(entry.entity);
+		}
+		return result;
+	}
+
+	/**
+	 * Gets the entities local to a person or robot that are due for maintenance,
+	 * as MalfunctionFactory gets the entities of a person: the ones at its
+	 * settlement, from the index, then the ones of the vehicle it is in and the
+	 * ones it carries.
+	 *
+	 * @param source the person or robot.
+	 * @return the entities.
+	 */
+	public static List<Malfunctionable> getDueEntities(Unit source) {
+		List<Malfunctionable> result = new ArrayList<>();
+		if (source.isInSettlement()) {
+			result.addAll(getIndex(source.getSettlement()).getDueEntities());
+		}
+
+		if (source.isInVehicle()) {
+			for (Malfunctionable entity : MalfunctionFactory.getMalfunctionables((Malfunctionable) source.getVehicle())) {
+				addIfDue(result, entity);
+			}
+		}
+
+		for (Unit unit : source.getInventory().getContainedUnits()) {
+			if (unit instanceof Malfunctionable) {
+				addIfDue(result, (Malfunctionable) unit);
+			}
+		}
+		return result;
+	}
+
+	private static void addIfDue(List<Malfunctionable> entities, Malfunctionable entity) {
+		if (entity.getMalfunctionManager().getEffectiveTimeSinceLastMaintenance() >= DUE_TIME)
+			entities.add(entity);
+	}
+
+	/**
+	 * Gets the entities at the settlement that have a malfunction.
+	 *
+	 * @return the entities.
+	 */
+	public synchronized List<Malfunctionable> getMalfunctioningEntities() {
+		return getLocal(malfunctioning);
+	}
+
+	/**
+	 * Gets the entities at the settlement, i.e. its buildings and the ones in
+	 * its inventory, as {@link MalfunctionFactory#getMalfunctionables(Settlement)}.
+	 */
+	private List<Malfunctionable> getLocal(Set<Malfunctionable> entities) {
+		List<Malfunctionable> result = new ArrayList<>(entities.size());
+		for (Malfunctionable entity : entities) {
+			if (isLocal(entity))
+				result.add(entity);
+		}
+		return result;
+	}
+
+	private boolean isLocal(Malfunctionable entity) {
+		if (entity instanceof Building)
+			return ((Building) entity).getSettlement() == settlement;
+		return (entity instanceof Unit) && (((Unit) entity).getContainerUnit() == settlement);
+	}
+
+	/**
+	 * An entity due for maintenance with the time it was last reported at.
+	 */
+	private static final class DueEntry implements Comparable<DueEntry> {
+		private final Malfunctionable entity;
+		private final long order;
+		private double time;
+
+		private DueEntry(Malfunctionable entity, double time, long order) {
+			this.entity = entity;
+			this.time = time;
+			this.order = order;
+		}
+
+		@Override
+		public int compareTo(DueEntry other) {
+			int result = Double.compare(other.time, time);
+			return (result != 0) ? result : Long.compare(order, other.order);
+		}
+	}
+}
@@ -151,8 +151,9 @@ public final class MalfunctionFactory implements Serializable {
 		// TODO: need to separate the malfunctionable in a vehicle ?
 		Collection<Unit> inventoryUnits = settlement.getInventory().getContainedUnits();
 		if (inventoryUnits.size() > 0) {
+			// The contained units are all different and none is a building
 			for (Unit unit : inventoryUnits) {
-				if ((unit instanceof Malfunctionable) && (!entities.contains((Malfunctionable)unit))) {
+				if (unit instanceof Malfunctionable) {
 					entities.add((Malfunctionable) unit);
 				}
 			}
@@ -441,6 +441,7 @@ public class MalfunctionManager implements Serializable, Temporal {
 	private void addMalfunction(Malfunction malfunction, boolean registerEvent, MissionMember actor) {
 		malfunctions.add(malfunction);
 		numberMalfunctions++;
+		MaintenanceIndex.update(entity);
 		
 		getUnit().fireUnitUpdate(UnitEventType.MALFUNCTION_EVENT, malfunction);
 
@@ -565,6 +566,9 @@ public class MalfunctionManager implements Serializable, Temporal {
 	public void activeTimePassing(double time) {
 
 		effectiveTimeSinceLastMaintenance += time;
+		// Once due, the index keeps the entity in order of its time
+		if (effectiveTimeSinceLastMaintenance >= MaintenanceIndex.DUE_TIME)
+			MaintenanceIndex.update(entity);
 
 		// Add time to wear condition.
 		wearCondition = wearCondition - (time / wearLifeTime) * 100D;
@@ -705,7 +709,11 @@ public class MalfunctionManager implements Serializable, Temporal {
 					+ loc1);
 		
 			// Remove the malfunction
-			malfunctions.remove(m);				
+			malfunctions.remove(m);
+		}
+
+		if (!fixedMalfunctions.isEmpty()) {
+			MaintenanceIndex.update(entity);
 		}
 	}
 	
@@ -952,6 +960,7 @@ public class MalfunctionManager implements Serializable, Temporal {
 			effectiveTimeSinceLastMaintenance = 0D;
 			determineNewMaintenanceParts();
 			numberMaintenances++;
+			MaintenanceIndex.update(entity);
 		}
 	}
 
@@ -1226,6 +1235,7 @@ public class MalfunctionManager implements Serializable, Temporal {
 	 * Prepare object for garbage collection.
 	 */
 	public void destroy() {
+		MaintenanceIndex.remove(entity);
 		entity = null;
 		scopes.clear();
 		scopes = null;
@@ -0,0 +1,275 @@
+/**
+ * Mars Simulation Project
+ * MineralConcentrationGrid.java
+ * @version 3.1.2 2026-10-17
+ * @author agent
+ */
+
+package org.mars_sim.msp.core.mars;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.mars_sim.msp.core.Coordinates;
+
+/**
+ * A latitude/longitude bucket index over the mineral concentrations of a
+ * {@link RandomMineralMap}. Each concentration is filed under every cell that
+ * it may have an effect in, so that a lookup only needs the cell of the
+ * location. Concentrations near the poles reach much further and are filed in
+ * a coarser grid of their own. The candidates are handed back as list indices
+ * in ascending order so that the map can sum up their effects in the same
+ * order, and with the same arithmetic, as a scan of the whole list.
+ */
+class MineralConcentrationGrid {
+
+	/** The cell size (radians). This is the effect limit away from the poles. */
+	static final double CELL = .04D;
+	/** The cell size (radians) of the grid for the concentrations near the poles. */
+	private static final double POLAR_CELL = .2D;
+	/** Concentrations closer to a pole than this have a wider effect limit. */
+	private static final double POLAR_PHI = Math.PI / 7D;
+	/** The slack (km) kept when pruning by distance, to absorb rounding. */
+	private static final double DISTANCE_MARGIN = .001D;
+
+	private static final int ROWS = (int) Math.ceil(Math.PI / CELL);
+	private static final int COLS = (int) Math.ceil(2D * Math.PI / CELL);
+	private static final int POLAR_ROWS = (int) Math.ceil(Math.PI / POLAR_CELL);
+	private static final int POLAR_COLS = (int) Math.ceil(2D * Math.PI / POLAR_CELL);
+
+	/** The indices of the concentrations away from the poles, by cell reached. */
+	private int[][] cells;
+	/** The indices of the concentrations near the poles, by polar cell reached. */
+	private int[][] polarCells;
+	/** The indices of all the concentrations, by row they are in. */
+	private int[][] rows;
+	private int size;
+	private double maxConcentration;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param concentrations the mineral concentrations of the map.
+	 */
+	MineralConcentrationGrid(List<MineralConcentration> concentrations) {
+		size = concentrations.size();
+
+		int[] cellCounts = new int[ROWS * COLS];
+		int[] polarCounts = new int[POLAR_ROWS * POLAR_COLS];
+		int[] rowCounts = new int[ROWS];
+		for (int pass = 0; pass < 2; pass++) {
+			if (pass == 1) {
+				cells = allocate(cellCounts);
+				polarCells = allocate(polarCounts);
+				rows = allocate(rowCounts);
+				Arrays.fill(cellCounts, 0);
+				Arrays.fill(polarCounts, 0);
+				Arrays.fill(rowCounts, 0);
+			}
+
+			// Filled in list order so every bucket is sorted
+			for (int i = 0; i < size; i++) {
+				MineralConcentration mc = concentrations.get(i);
+				double phi = mc.getLocation().getPhi();
+				double theta = mc.getLocation().getTheta();
+				double limit = getEffectLimit(phi);
+				double phiReach = getPhiReach(phi, mc.getConcentration());
+
+				int row = getRow(phi);
+				if (pass == 1)
+					rows[row][rowCounts[row]] = i;
+				rowCounts[row]++;
+
+				if (isPolar(phi)) {
+					file(i, phi, theta, phiReach, limit, POLAR_CELL, POLAR_ROWS, POLAR_COLS, polarCounts,
+							(pass == 1) ? polarCells : null);
+				} else {
+					file(i, phi, theta, phiReach, limit, CELL, ROWS, COLS, cellCounts, (pass == 1) ? cells : null);
+				}
+
+				if (pass == 0)
+					maxConcentration = Math.max(maxConcentration, mc.getConcentration());
+			}
+		}
+	}
+
+	/**
+	 * Files a concentration under all the cells of a grid that it reaches into,
+	 * or only counts them.
+	 */
+	private static void file(int index, double phi, double theta, double phiReach, double thetaReach,
+			double cellSize, int rowCount, int colCount, int[] counts, int[][] buckets) {
+		int maxRow = getIndex(phi + phiReach, cellSize, rowCount);
+		int minCol = getIndex(theta - thetaReach, cellSize, colCount);
+		int maxCol = getIndex(theta + thetaReach, cellSize, colCount);
+		for (int r = getIndex(phi - phiReach, cellSize, rowCount); r <= maxRow; r++) {
+			for (int c = minCol; c <= maxCol; c++) {
+				int cell = (r * colCount) + c;
+				if (buckets != null)
+					buckets[cell][counts[cell]] = index;
+				counts[cell]++;
+			}
+		}
+	}
+
+	/**
+	 * Checks if a concentration at a given latitude has a wider effect limit.
+	 *
+	 * @param phi the phi of the concentration.
+	 * @return true if near a pole.
+	 */
+	static boolean isPolar(double phi) {
+		return (phi < POLAR_PHI) || phi > Math.PI - POLAR_PHI;
+	}
+
+	/**
+	 * Gets the effect limit, in both phi and theta, of a concentration.
+	 *
+	 * @param phi the phi of the concentration.
+	 * @return the limit (radians).
+	 */
+	static double getEffectLimit(double phi) {
+		double result = CELL;
+		if (isPolar(phi))
+			result += Math.abs(Math.cos(phi));
+		return result;
+	}
+
+	/**
+	 * Gets how far in phi a concentration may have an effect. Past its effect
+	 * limit it has none, and as the distance is at least the radius times the
+	 * difference in phi, neither has it past its own concentration (km) in phi.
+	 * This matters near the poles, where the effect limit is much wider.
+	 *
+	 * @param phi           the phi of the concentration.
+	 * @param concentration the concentration.
+	 * @return the reach (radians).
+	 */
+	static double getPhiReach(double phi, double concentration) {
+		return Math.min(getEffectLimit(phi), (concentration + DISTANCE_MARGIN) / Mars.MARS_RADIUS_KM);
+	}
+
+	/**
+	 * Gets the concentrations that may have an effect on a location, i.e. all
+	 * the ones within their reach of it and possibly a few more.
+	 *
+	 * @param location the location.
+	 * @return the concentration indices in ascending order.
+	 */
+	int[] getCandidates(Coordinates location) {
+		double phi = location.getPhi();
+		double theta = location.getTheta();
+		int[] near = cells[(getRow(phi) * COLS) + getCol(theta)];
+		int[] polar = polarCells[(getIndex(phi, POLAR_CELL, POLAR_ROWS) * POLAR_COLS)
+				+ getIndex(theta, POLAR_CELL, POLAR_COLS)];
+		if (polar.length == 0)
+			return near;
+		if (near.length == 0)
+			return polar;
+
+		// Merge the two sorted lists
+		int[] result = new int[near.length + polar.length];
+		int i = 0;
+		int j = 0;
+		for (int k = 0; k < result.length; k++) {
+			if (j >= polar.length || (i < near.length && near[i] < polar[j]))
+				result[k] = near[i++];
+			else
+				result[k] = polar[j++];
+		}
+		return result;
+	}
+
+	/**
+	 * Gets the concentrations that may be within a range of a location, less
+	 * their own concentration, i.e. all the ones for which
+	 * {@code range > distance - concentration} and possibly a few more. This
+	 * only prunes by latitude since the distance is at least the radius times
+	 * the difference in phi.
+	 *
+	 * @param location the location.
+	 * @param range    the range (km).
+	 * @return the concentration indices in ascending order.
+	 */
+	int[] getCandidatesWithin(Coordinates location, double range) {
+		double phi = location.getPhi();
+		double reach = range + maxConcentration + DISTANCE_MARGIN;
+
+		IntBuffer result = new IntBuffer();
+		for (int r = 0; r < ROWS; r++) {
+			double phiDiff = Math.max(0D, Math.max((r * CELL) - phi, phi - ((r + 1) * CELL)));
+			// Rows at either end also hold anything clamped into them
+			if ((r == 0) || (r == ROWS - 1) || (Mars.MARS_RADIUS_KM * phiDiff < reach)) {
+				result.addAll(rows[r]);
+			}
+		}
+
+		return result.toSortedArray();
+	}
+
+	/**
+	 * Gets the number of concentrations indexed.
+	 *
+	 * @return the size.
+	 */
+	int size() {
+		return size;
+	}
+
+	static int getRow(double phi) {
+		return getIndex(phi, CELL, ROWS);
+	}
+
+	static int getCol(double theta) {
+		return getIndex(theta, CELL, COLS);
+	}
+
+	static int getRowCount() {
+		return ROWS;
+	}
+
+	static int getColCount() {
+		return COLS;
+	}
+
+	private static int getIndex(double angle, double cellSize, int count) {
+		int index = (int) Math.floor(angle / cellSize);
+		if (index < 0)
+			return 0;
+		if (index >= count)
+			return count - 1;
+		return index;
+	}
+
+	private static int[][] allocate(int[] counts) {
+		int[][] result = new int[counts.length][];
+		for (int i = 0; i < counts.length; i++) {
+			result[i] = new int[counts[i]];
+		}
+		return result;
+	}
+
+	/**
+	 * A growable list of int.
+	 */
+	private static class IntBuffer {
+		private int[] values = new int[32];
+		private int length;
+
+		private void addAll(int[] more) {
+			if (more.length == 0)
+				return;
+			if (length + more.length > values.length) {
+				values = Arrays.copyOf(values, Math.max(values.length * 2, length + more.length));
+			}
+			System.arraycopy(more, 0, values, length, more.length);
+			length += more.length;
+		}
+
+		private int[] toSortedArray() {
+			int[] result = Arrays.copyOf(values, length);
+			Arrays.sort(result);
+			return result;
+		}
+	}
+}
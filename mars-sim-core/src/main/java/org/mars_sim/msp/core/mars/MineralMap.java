@@ -9,6 +9,7 @@ package org.mars_sim.msp.core.mars;
 
 import org.mars_sim.msp.core.Coordinates;
 
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -33,6 +34,15 @@ public interface MineralMap {
 	 */
 	public Map<String, Double> getAllMineralConcentrations(Coordinates location);
 
+	/**
+	 * Gets all of the mineral concentrations at many locations in one pass.
+	 * 
+	 * @param locations the coordinate locations.
+	 * @return maps of mineral types and percentage concentration (0 to 100.0), in
+	 *         the order of the locations.
+	 */
+	public List<Map<String, Double>> getAllMineralConcentrations(List<Coordinates> locations);
+
 	/**
 	 * Gets an array of all mineral type names.
 	 * 
@@ -14,6 +14,7 @@ import java.awt.image.PixelGrabber;
 import java.io.Serializable;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -66,6 +67,8 @@ public class RandomMineralMap implements Serializable, MineralMap {
 
 	// List of all mineral concentrations.
 	private List<MineralConcentration> mineralConcentrations;
+	/** The spatial index of the mineral concentrations. */
+	private transient volatile MineralConcentrationGrid grid;
 
 	private static MineralMapConfig mineralMapConfig = SimulationConfig.instance().getMineralMapConfiguration();
 	
@@ -209,29 +212,103 @@ public class RandomMineralMap implements Serializable, MineralMap {
 	 */
 	public Map<String, Double> getAllMineralConcentrations(Coordinates location) {
 		Map<String, Double> result = Collections.emptyMap();
-		boolean emptyMap = true;
 
-		Iterator<MineralConcentration> i = mineralConcentrations.iterator();
-		while (i.hasNext()) {
-			MineralConcentration mineralConcentration = i.next();
+		for (int index : getGrid().getCandidates(location)) {
+			MineralConcentration mineralConcentration = mineralConcentrations.get(index);
 			double effect = getMineralConcentrationEffect(mineralConcentration, location);
 			if (effect > 0D) {
-				if (emptyMap) {
+				if (result.isEmpty()) {
 					result = new HashMap<String, Double>();
-					emptyMap = false;
 				}
-				double totalConcentration = 0D;
-				if (result.containsKey(mineralConcentration.getMineralType()))
-					totalConcentration = result.get(mineralConcentration.getMineralType());
-				totalConcentration += effect;
-				if (totalConcentration > 100D)
-					totalConcentration = 100D;
-				result.put(mineralConcentration.getMineralType(), totalConcentration);
+				addEffect(result, mineralConcentration.getMineralType(), effect);
 			}
 		}
 		return result;
 	}
 
+	/**
+	 * Gets all of the mineral concentrations at many locations in one pass over
+	 * the mineral concentrations. Each map is the same as the one
+	 * {@link #getAllMineralConcentrations(Coordinates)} gives for its location.
+	 * 
+	 * @param locations the coordinate locations.
+	 * @return maps of mineral types and percentage concentration (0 to 100.0), in
+	 *         the order of the locations.
+	 */
+	public List<Map<String, Double>> getAllMineralConcentrations(List<Coordinates> locations) {
+		int size = locations.size();
+		List<Map<String, Double>> result = new ArrayList<Map<String, Double>>(size);
+		for (int x = 0; x < size; x++)
+			result.add(Collections.<String, Double>emptyMap());
+
+		// Bucket the locations with the same cells as the concentrations
+		int cols = MineralConcentrationGrid.getColCount();
+		int[] cellCounts = new int[MineralConcentrationGrid.getRowCount() * cols];
+		int[] cellOf = new int[size];
+		for (int x = 0; x < size; x++) {
+			Coordinates location = locations.get(x);
+			cellOf[x] = (MineralConcentrationGrid.getRow(location.getPhi()) * cols)
+					+ MineralConcentrationGrid.getCol(location.getTheta());
+			cellCounts[cellOf[x]]++;
+		}
+		int[] cellStarts = new int[cellCounts.length + 1];
+		for (int c = 0; c < cellCounts.length; c++)
+			cellStarts[c + 1] = cellStarts[c] + cellCounts[c];
+		int[] sites = new int[size];
+		int[] fill = Arrays.copyOf(cellStarts, cellCounts.length);
+		for (int x = 0; x < size; x++)
+			sites[fill[cellOf[x]]++] = x;
+
+		// Visit the concentrations in list order so each location sums them up
+		// in the same order as a single lookup
+		for (MineralConcentration mineralConcentration : mineralConcentrations) {
+			Coordinates concentrationLocation = mineralConcentration.getLocation();
+			double phi = concentrationLocation.getPhi();
+			double theta = concentrationLocation.getTheta();
+			double limit = MineralConcentrationGrid.getEffectLimit(phi);
+			double phiReach = MineralConcentrationGrid.getPhiReach(phi, mineralConcentration.getConcentration());
+			int maxRow = MineralConcentrationGrid.getRow(phi + phiReach);
+			int minCol = MineralConcentrationGrid.getCol(theta - limit);
+			int maxCol = MineralConcentrationGrid.getCol(theta + limit);
+			for (int r = MineralConcentrationGrid.getRow(phi - phiReach); r <= maxRow; r++) {
+				for (int c = (r * cols) + minCol; c <= (r * cols) + maxCol; c++) {
+					for (int j = cellStarts[c]; j < cellStarts[c + 1]; j++) {
+						int x = sites[j];
+						double effect = getMineralConcentrationEffect(mineralConcentration, locations.get(x));
+						if (effect > 0D) {
+							Map<String, Double> siteMap = result.get(x);
+							if (siteMap.isEmpty()) {
+								siteMap = new HashMap<String, Double>();
+								result.set(x, siteMap);
+							}
+							addEffect(siteMap, mineralConcentration.getMineralType(), effect);
+						}
+					}
+				}
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Adds the effect of a mineral concentration to a map of mineral types and
+	 * percentage concentration.
+	 * 
+	 * @param concentrations the map of concentrations.
+	 * @param mineralType    the mineral type.
+	 * @param effect         the concentration effect.
+	 */
+	private static void addEffect(Map<String, Double> concentrations, String mineralType, double effect) {
+		double totalConcentration = 0D;
+		if (concentrations.containsKey(mineralType))
+			totalConcentration = concentrations.get(mineralType);
+		totalConcentration += effect;
+		if (totalConcentration > 100D)
+			totalConcentration = 100D;
+		concentrations.put(mineralType, totalConcentration);
+	}
+
 	/**
 	 * Gets the mineral concentration at a given location.
 	 * 
@@ -242,9 +319,8 @@ public class RandomMineralMap implements Serializable, MineralMap {
 	public double getMineralConcentration(String mineralType, Coordinates location) {
 		double result = 0D;
 
-		Iterator<MineralConcentration> i = mineralConcentrations.iterator();
-		while (i.hasNext()) {
-			MineralConcentration mineralConcentration = i.next();
+		for (int index : getGrid().getCandidates(location)) {
+			MineralConcentration mineralConcentration = mineralConcentrations.get(index);
 			if (mineralConcentration.getMineralType().equalsIgnoreCase(mineralType)) {
 				result += getMineralConcentrationEffect(mineralConcentration, location);
 				if (result > 100D)
@@ -269,9 +345,7 @@ public class RandomMineralMap implements Serializable, MineralMap {
 		double concentrationTheta = concentration.getLocation().getTheta();
 		double phiDiff = Math.abs(location.getPhi() - concentrationPhi);
 		double thetaDiff = Math.abs(location.getTheta() - concentrationTheta);
-		double diffLimit = .04D;
-		if ((concentrationPhi < Math.PI / 7D) || concentrationPhi > Math.PI - (Math.PI / 7D))
-			diffLimit += Math.abs(Math.cos(concentrationPhi));
+		double diffLimit = MineralConcentrationGrid.getEffectLimit(concentrationPhi);
 		if ((phiDiff < diffLimit) && (thetaDiff < diffLimit)) {
 			double distance = location.getDistance(concentration.getLocation());
 			double concentrationRange = concentration.getConcentration();
@@ -319,9 +393,8 @@ public class RandomMineralMap implements Serializable, MineralMap {
 
 		List<MineralConcentration> locales = new ArrayList<MineralConcentration>(0);
 
-		Iterator<MineralConcentration> i = mineralConcentrations.iterator();
-		while (i.hasNext()) {
-			MineralConcentration mineralConc = i.next();
+		for (int index : getGrid().getCandidatesWithin(startingLocation, range)) {
+			MineralConcentration mineralConc = mineralConcentrations.get(index);
 			double distance = Coordinates.computeDistance(startingLocation, mineralConc.getLocation());
 			if (range > (distance - mineralConc.getConcentration())) {
 				locales.add(mineralConc);
@@ -342,10 +415,40 @@ public class RandomMineralMap implements Serializable, MineralMap {
 		return result;
 	}
 
+	/**
+	 * Gets the mineral concentrations, e.g. to check the indexed lookups against.
+	 * 
+	 * @return the mineral concentrations.
+	 */
+	List<MineralConcentration> getMineralConcentrations() {
+		return mineralConcentrations;
+	}
+
+	/**
+	 * Gets the spatial index of the mineral concentrations, building it if
+	 * needed, e.g. after loading a saved simulation.
+	 * 
+	 * @return the index.
+	 */
+	private MineralConcentrationGrid getGrid() {
+		MineralConcentrationGrid result = grid;
+		if (result == null || result.size() != mineralConcentrations.size()) {
+			synchronized (this) {
+				result = grid;
+				if (result == null || result.size() != mineralConcentrations.size()) {
+					result = new MineralConcentrationGrid(mineralConcentrations);
+					grid = result;
+				}
+			}
+		}
+		return result;
+	}
+
 	@Override
 	public void destroy() {
 		mineralConcentrations.clear();
 		mineralConcentrations = null;
+		grid = null;
 	}
 
 }
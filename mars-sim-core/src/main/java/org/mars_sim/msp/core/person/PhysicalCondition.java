@@ -37,6 +37,7 @@ import org.mars_sim.msp.core.person.health.Medication;
 import org.mars_sim.msp.core.person.health.RadiationExposure;
 import org.mars_sim.msp.core.resource.ResourceUtil;
 import org.mars_sim.msp.core.science.ScientificStudy;
+import org.mars_sim.msp.core.structure.Settlement;
 import org.mars_sim.msp.core.structure.building.function.cooking.Cooking;
 import org.mars_sim.msp.core.time.ClockPulse;
 import org.mars_sim.msp.core.time.MarsClock;
@@ -82,16 +83,6 @@ public class PhysicalCondition implements Serializable {
 	public static final double ACCIDENT_STRESS = 10D;
 	/** The food reserve factor. */
 	public static final double FOOD_RESERVE_FACTOR = 1.5D;
-	/** Performance modifier for thirst. */
-	private static final double THIRST_PERFORMANCE_MODIFIER = .00015D;
-	/** Performance modifier for hunger. */
-	private static final double HUNGER_PERFORMANCE_MODIFIER = .0001D;
-	/** Performance modifier for fatigue. */
-	private static final double FATIGUE_PERFORMANCE_MODIFIER = .0005D;
-	/** Performance modifier for stress. */
-	private static final double STRESS_PERFORMANCE_MODIFIER = .005D;
-	/** Performance modifier for energy. */
-	private static final double ENERGY_PERFORMANCE_MODIFIER = .0001D;
 	/** The average maximum daily energy intake */
 	private static final double MAX_DAILY_ENERGY_INTAKE = 10100D;
 	/** The average kJ of a 1kg food. Assume each meal has 0.1550 kg and has 2525 kJ. */
@@ -158,20 +149,16 @@ public class PhysicalCondition implements Serializable {
 	 * health, muscle soreness).
 	 */
 	private double[] musculoskeletal = new double[] { 0, 0, 0 };
-	/** Person's thirst level. [in millisols]. */
-	private double thirst;
-	/** Person's fatigue level from 0 to infinity. */
-	private double fatigue;
-	/** Person's hunger level [in millisols]. */
-	private double hunger;
-	/** Person's stress level (0.0 % - 100.0 %). */
-	private double stress;
-	/** Performance factor 0.0 to 1.0. */
-	private double performance;
+	/**
+	 * The vitals of the person, i.e. the thirst and hunger levels [in millisols],
+	 * the fatigue level from 0 to infinity, the stress level (0.0 % - 100.0 %),
+	 * the energy level [in kJ] and the performance factor 0.0 to 1.0, in a row
+	 * of the kernel of the associated settlement. The kernel and the row are
+	 * replaced together when the person moves to another settlement.
+	 */
+	private volatile PhysiologyKernel.Row row;
 	/** Person's hygiene factor (0.0 - 100.0) */
 	// private double hygiene;
-	/** Person's energy level [in kJ] */
-	private double kJoules;
 	/** Person's food appetite (0.0 to 1.0) */
 	private double appetite;
 
@@ -341,28 +328,36 @@ public class PhysicalCondition implements Serializable {
 
 		dehydrationStartTime = 1000D * (personConfig.getDehydrationStartTime() * bodyMassDeviation);
 	
+		// Start in a kernel of its own until the person is with a settlement
+		row = new PhysiologyKernel().add(this);
+
 		isStarving = false;
 		isStressedOut = false;
 //		isCollapsed = false;
 		isDehydrated = false;
 		// Initially set performance to 1.0 (=100%) to avoid issues at startup
-		performance = 1.0D;
+		row.setPerformance(1.0D);
 		
 		initialize();
 	}
 
 	private void initializeHealthIndices() {
 		// Set up random physical healt index
-		thirst = RandomUtil.getRandomRegressionInteger(50);
+		double thirst = RandomUtil.getRandomRegressionInteger(50);
 		
-//		fatigue = RandomUtil.getRandomRegressionInteger(50);
-		stress = RandomUtil.getRandomRegressionInteger(30);
+//		double fatigue = RandomUtil.getRandomRegressionInteger(50);
+		double fatigue = getFatigue();
+		double stress = RandomUtil.getRandomRegressionInteger(30);
 		
-		hunger = RandomUtil.getRandomRegressionInteger(200);
+		double hunger = RandomUtil.getRandomRegressionInteger(200);
 		// kJoules somewhat co-relates with hunger
-		kJoules = 10000 + (200 - hunger) * 100;
+		double kJoules = 10000 + (200 - hunger) * 100;
 
-		performance = 1.0D - (50 - fatigue) * .002 - (50 - stress) * .002 - (200 - hunger) * .002;
+		row.setThirst(thirst);
+		row.setStress(stress);
+		row.setHunger(hunger);
+		row.setEnergy(kJoules);
+		row.setPerformance(1.0D - (50 - fatigue) * .002 - (50 - stress) * .002 - (200 - hunger) * .002);
 		
 	}
 	
@@ -447,13 +442,9 @@ public class PhysicalCondition implements Serializable {
 			// Update the existing health problems
 			checkHealth(pulse);
 			
-
-			// Build up fatigue & hunger for given time passing.
-			setThirst(thirst + time * bodyMassDeviation);
-//			System.out.println(person + " fatigue : " + fatigue);
-			setFatigue(fatigue + time);
-//			System.out.println(person + " fatigue : " + fatigue);
-			setHunger(hunger + time * bodyMassDeviation);
+			// Note: the fatigue, thirst and hunger build up and the starvation and
+			// dehydration checks are done by the physiology kernel of the settlement
+			// for all its residents at once, see checkVitals()
 
 			// normal bodily function consume a minute amount of energy
 			// even if a person does not perform any tasks
@@ -465,11 +456,6 @@ public class PhysicalCondition implements Serializable {
 			int msol = pulse.getMarsTime().getMillisolInt();
 			if (msol % 7 == 0) {
 
-//				if (!restingTask) {
-					checkStarvation(hunger);
-					checkDehydration(thirst);
-//				}
-
 //				// If person is at high stress, check for mental breakdown.
 //				if (!isStressedOut)
 //					if (stress > MENTAL_BREAKDOWN)
@@ -494,8 +480,36 @@ public class PhysicalCondition implements Serializable {
 
 			// Calculate performance and most serious illness.
 			recalculatePerformance();
+
+			// Advance the vitals with the other residents of the settlement
+			Settlement settlement = person.getAssociatedSettlement();
+			PhysiologyKernel kernel = (settlement != null) ? settlement.getPhysiology() : null;
+			PhysiologyKernel.Row r = row;
+			if (kernel == null) {
+				r.markDue(time);
+				r.getKernel().timePassing(pulse);
+			} else {
+				if (kernel != r.getKernel()) {
+					r = r.moveTo(kernel);
+					row = r;
+				}
+				r.markDue(time);
+			}
 		}
 	}
+
+	/**
+	 * Checks if the person is starving or dehydrated, or no longer, once the
+	 * physiology kernel has found the hunger or thirst past their threshold.
+	 */
+	void checkVitals() {
+		if (!alive)
+			return;
+		checkStarvation(getHunger());
+		checkDehydration(getThirst());
+		recalculatePerformance();
+		row.recalculatePerformance();
+	}
 		
 
 	 /**
@@ -550,6 +564,7 @@ public class PhysicalCondition implements Serializable {
 					// If nextPhase is not null, remove this problem so that it can 
 					// properly be transitioned into the next.
 					problems.remove(c);
+					markTasksDirty();
 	
 				}
 	
@@ -628,11 +643,11 @@ public class PhysicalCondition implements Serializable {
 	 * @return the value from 0 to infinity.
 	 */
 	public double getFatigue() {
-		return fatigue;
+		return row.getFatigue();
 	}
 
 	public double getThirst() {
-		return thirst;
+		return row.getThirst();
 	}
 
 	/**
@@ -642,7 +657,7 @@ public class PhysicalCondition implements Serializable {
 	 *         about 4.2 kilojoules
 	 */
 	public double getEnergy() {
-		return kJoules;
+		return row.getEnergy();
 	}
 
 	/**
@@ -651,6 +666,7 @@ public class PhysicalCondition implements Serializable {
 	 * @param time the amount of time (millisols).
 	 */
 	public void reduceEnergy(double time) {
+		double kJoules = getEnergy();
 		double xdelta = time * MAX_DAILY_ENERGY_INTAKE / 1000D;
 
 		// Changing this to a more linear reduction of energy.
@@ -676,6 +692,7 @@ public class PhysicalCondition implements Serializable {
 			// 100 kJ is the lowest possible energy level
 			kJoules = 100D;
 		}
+		row.setEnergy(kJoules);
 	}
 
 	/**
@@ -695,6 +712,7 @@ public class PhysicalCondition implements Serializable {
 		// Note: changing this to a more linear addition of energy.
 		// We may want to change it back to exponential. - Scott
 
+		double kJoules = getEnergy();
 		double xdelta = foodAmount * FOOD_COMPOSITION_ENERGY_RATIO / appetite;
 		// kJoules += foodAmount * xdelta * Math.log(FOOD_COMPOSITION_ENERGY_RATIO /
 		// kJoules) / ENERGY_FACTOR;
@@ -717,7 +735,7 @@ public class PhysicalCondition implements Serializable {
 		if (kJoules > personalMaxEnergy * 2) {
 			kJoules = personalMaxEnergy * 2;
 		}
-
+		row.setEnergy(kJoules);
 	}
 
 	/**
@@ -726,7 +744,7 @@ public class PhysicalCondition implements Serializable {
 	 * @return The value is between 0 -> 1.
 	 */
 	public double getPerformanceFactor() {
-		return performance;
+		return row.getPerformance();
 	}
 
 	/**
@@ -735,12 +753,7 @@ public class PhysicalCondition implements Serializable {
 	 * @param newPerformance new performance (between 0 and 1).
 	 */
 	public void setPerformanceFactor(double p) {
-		if (p > 1D)
-			p = 1D;
-		else if (p < 0)
-			p = 0;
-		if (performance != p)
-			performance = p;
+		row.setPerformance(p);
 		// person.fireUnitUpdate(UnitEventType.PERFORMANCE_EVENT);
 	}
 
@@ -751,18 +764,18 @@ public class PhysicalCondition implements Serializable {
 	 */
 	public void setFatigue(double f) {
 		if (f > 3000)
-			fatigue = 3000;
+			row.setFatigue(3000);
 		else if (f < 0)
 			f = 0;
 
-		fatigue = f;
+		row.setFatigue(f);
 		// person.fireUnitUpdate(UnitEventType.FATIGUE_EVENT);
 	}
 
 	public void setThirst(double t) {
 		if (t > 4000)
 			t = 4000;
-		thirst = t;
+		row.setThirst(t);
 //		if (t > THIRST_THRESHOLD && !isThirsty)
 //			isThirsty = true;
 //		else if (isThirsty)
@@ -776,7 +789,7 @@ public class PhysicalCondition implements Serializable {
 	 * @return person's hunger
 	 */
 	public double getHunger() {
-		return hunger;
+		return row.getHunger();
 	}
 
 	/**
@@ -785,6 +798,7 @@ public class PhysicalCondition implements Serializable {
 	 * @param hunger
 	 */
 	private void checkStarvation(double hunger) {
+		double kJoules = getEnergy();
 //		 LogConsolidated.log(logger, Level.SEVERE, 5000, sourceName,
 //				 person + "  Hunger: "
 //				 + Math.round(hunger*10.0)/10.0 
@@ -916,14 +930,15 @@ public class PhysicalCondition implements Serializable {
 	 * @param newStress the new stress level (0.0 to 100.0)
 	 */
 	public void setStress(double newStress) {
-		if (stress != newStress) {
-			stress = newStress;
+		if (getStress() != newStress) {
+			double stress = newStress;
 			if (stress > 100D)
 				stress = 100D;
 			else if (stress < 0D)
 				stress = 0D;
 			else if (Double.isNaN(stress))
 				stress = 0D;
+			row.setStress(stress);
 			// person.fireUnitUpdate(UnitEventType.STRESS_EVENT);
 		}
 	}
@@ -1192,6 +1207,16 @@ public class PhysicalCondition implements Serializable {
 		return result;
 	}
 
+	/**
+	 * Lets the task manager know that the task probabilities need to be worked
+	 * out again since the health problems have changed.
+	 */
+	private void markTasksDirty() {
+		if (taskMgr != null) {
+			taskMgr.markAllTasksDirty();
+		}
+	}
+
 	/**
 	 * Adds a new medical complaint to the person.
 	 * 
@@ -1202,6 +1227,7 @@ public class PhysicalCondition implements Serializable {
 			// Create a new health problem
 			HealthProblem problem = new HealthProblem(complaint, person);
 			problems.put(complaint, problem);
+			markTasksDirty();
 			ComplaintType type = complaint.getType();
 
 			// Record this complaint type
@@ -1491,9 +1517,7 @@ public class PhysicalCondition implements Serializable {
 	 * @param newHunger New hunger.
 	 */
 	public void setHunger(double newHunger) {
-		if (hunger != newHunger) {
-			hunger = newHunger;
-		}
+		row.setHunger(newHunger);
 	}
 
 	/**
@@ -1502,7 +1526,7 @@ public class PhysicalCondition implements Serializable {
 	 * @return stress (0.0 to 100.0)
 	 */
 	public double getStress() {
-		return stress;
+		return row.getStress();
 	}
 
 	public double getMassPerServing() {
@@ -1590,52 +1614,10 @@ public class PhysicalCondition implements Serializable {
 			}
 		}
 
-		// High thirst reduces performance.
-		if (thirst > 800D) {
-			tempPerformance -= (thirst - 800D) * THIRST_PERFORMANCE_MODIFIER / 2;
-		} else if (thirst > 400D) {
-			tempPerformance -= (thirst - 400D) * THIRST_PERFORMANCE_MODIFIER / 4;
-		}
-
-		// High hunger reduces performance.
-		if (hunger > 1600D) {
-			tempPerformance -= (hunger - 1600D) * HUNGER_PERFORMANCE_MODIFIER / 2;
-		} else if (hunger > 800D) {
-			tempPerformance -= (hunger - 800D) * HUNGER_PERFORMANCE_MODIFIER / 4;
-		}
-
-		// High fatigue reduces performance.
-		if (fatigue > 2000D) {
-			tempPerformance -= (fatigue - 2000D) * FATIGUE_PERFORMANCE_MODIFIER / 2;
-		} else if (fatigue > 1000D) {
-			tempPerformance -= (fatigue - 1000D) * FATIGUE_PERFORMANCE_MODIFIER / 4;
-			// e.g. f = 1000, p = 1.0 - 500 * .0001/4 = 1.0 - 0.05/4 = 1.0 - .0125 ->
-			// reduces by 1.25% on each frame
-		}
-
-		// High stress reduces performance.
-		if (stress > 90D) {
-			tempPerformance -= (stress - 90D) * STRESS_PERFORMANCE_MODIFIER / 2;
-		} else if (stress > 50D) {
-			tempPerformance -= (stress - 50D) * STRESS_PERFORMANCE_MODIFIER / 4;
-			// e.g. p = 100 - 10 * .005 /3 = 1 - .05/4 -> reduces by .0125 or 1.25% on each
-			// frame
-		}
-
-		// High kJoules improves performance and low kJoules hurts performance.
-		if (kJoules > 7500) {
-			// double old = tempPerformance;
-			tempPerformance += (kJoules - 7500) * ENERGY_PERFORMANCE_MODIFIER / 8;
-			// LogConsolidated.log(logger, Level.INFO, 200, sourceName,
-			// "kJ > 2000 " + old + " --> " + tempPerformance, null);
-		} else if (kJoules < 400) {
-			// double old = tempPerformance;
-			tempPerformance -= 400_000 / kJoules * ENERGY_PERFORMANCE_MODIFIER / 4;
-			// LogConsolidated.log(logger, Level.INFO, 200, sourceName,
-			// "kJ < 400 " + old + " --> " + tempPerformance, null);
-		}
-
-		setPerformanceFactor(tempPerformance);
+		// The physiology kernel works the performance out with the vitals when it
+		// next advances the row
+		row.setProblemFactor(tempPerformance);
+		row.setAlert(isStarving || isDehydrated);
 
 	}
 
@@ -1767,6 +1749,11 @@ public class PhysicalCondition implements Serializable {
 	}
 
 	public boolean isFit() {
+		double fatigue = getFatigue();
+		double stress = getStress();
+		double hunger = getHunger();
+		double thirst = getThirst();
+		double kJoules = getEnergy();
         if (fatigue > 1000 || stress > 50 || hunger > 1000 || thirst > 750 || kJoules < 1000
 	        	|| hasSeriousMedicalProblems())
         	return false;
@@ -1780,6 +1767,11 @@ public class PhysicalCondition implements Serializable {
 			return 0;
 		}
 		
+		double fatigue = getFatigue();
+		double stress = getStress();
+		double hunger = getHunger();
+		double thirst = getThirst();
+		double kJoules = getEnergy();
         if (fatigue > 300 || stress > 15 || hunger > 200 || thirst > 100 || kJoules < 12000)
         	level = 4;
         else if (fatigue > 500 || stress > 30 || hunger > 400 || thirst > 200 || kJoules < 6000)
@@ -1935,7 +1927,7 @@ public class PhysicalCondition implements Serializable {
 	 * @return
 	 */
 	public boolean isHungry() {
-		return hunger > HUNGER_THRESHOLD * 2 || kJoules < ENERGY_THRESHOLD / 2;
+		return getHunger() > HUNGER_THRESHOLD * 2 || getEnergy() < ENERGY_THRESHOLD / 2;
 	}
 	
 	/**
@@ -1944,7 +1936,7 @@ public class PhysicalCondition implements Serializable {
 	 * @return
 	 */
 	public boolean isThirsty() {
-		return thirst > THIRST_THRESHOLD * 2;
+		return getThirst() > THIRST_THRESHOLD * 2;
 	}
 	
 	/**
@@ -1953,7 +1945,7 @@ public class PhysicalCondition implements Serializable {
 	 * @return
 	 */
 	public boolean isSleepy() {
-		return fatigue > FATIGUE_THRESHOLD;
+		return getFatigue() > FATIGUE_THRESHOLD;
 	}
 	
 	/**
@@ -1962,7 +1954,7 @@ public class PhysicalCondition implements Serializable {
 	 * @return
 	 */
 	public boolean isStressed() {
-		return stress > STRESS_THRESHOLD;
+		return getStress() > STRESS_THRESHOLD;
 	}
 	
 	public double getStrengthMod() {
@@ -2011,6 +2003,7 @@ public class PhysicalCondition implements Serializable {
 	 */
 	public void destroy() {
 
+		row.remove();
 		deathDetails = null;
 		// problems.clear();
 		problems = null;
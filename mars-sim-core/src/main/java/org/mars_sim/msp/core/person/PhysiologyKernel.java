@@ -0,0 +1,467 @@
+/**
+ * Mars Simulation Project
+ * PhysiologyKernel.java
+ * @version 3.1.2 2026-10-17
+ * @author agent
+ */
+package org.mars_sim.msp.core.person;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+import org.mars_sim.msp.core.time.ClockPulse;
+
+/**
+ * The vitals of the residents of a settlement, i.e. their thirst, fatigue,
+ * hunger, stress, energy and performance, in arrays with one row per person.
+ * Each {@link PhysicalCondition} is a view over its {@link Row}. A person adds
+ * the time passed to its row when its time passes, then the settlement advances
+ * all the rows with time due in one loop once all the agents have run. Only the
+ * rows past the starvation or dehydration time, or already starving or
+ * dehydrated, go back to their physical condition to check their health
+ * problems.
+ * <p>
+ * The arrays are held together in {@link Columns}, which are replaced as a
+ * whole when they grow. The getters read the current columns without locking,
+ * so the people of a settlement updated on different threads do not contend
+ * for their own vitals. The setters and the growth take the lock of the
+ * kernel, so that no value is written into columns that are being copied.
+ */
+public final class PhysiologyKernel implements Serializable {
+
+	/** default serial id. */
+	private static final long serialVersionUID = 1L;
+
+	private static final int INITIAL_CAPACITY = 8;
+
+	/** The highest thirst [millisols]. */
+	private static final double MAX_THIRST = 4000D;
+
+	/** Performance modifier for thirst. */
+	private static final double THIRST_PERFORMANCE_MODIFIER = .00015D;
+	/** Performance modifier for hunger. */
+	private static final double HUNGER_PERFORMANCE_MODIFIER = .0001D;
+	/** Performance modifier for fatigue. */
+	private static final double FATIGUE_PERFORMANCE_MODIFIER = .0005D;
+	/** Performance modifier for stress. */
+	private static final double STRESS_PERFORMANCE_MODIFIER = .005D;
+	/** Performance modifier for energy. */
+	private static final double ENERGY_PERFORMANCE_MODIFIER = .0001D;
+
+	/**
+	 * The arrays of the vitals, one element per row. They are only ever replaced
+	 * as a whole.
+	 */
+	private static final class Columns implements Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		/** The physical condition of each row, or null if the row is free. */
+		private final PhysicalCondition[] conditions;
+
+		private final double[] thirst;
+		private final double[] fatigue;
+		private final double[] hunger;
+		private final double[] stress;
+		private final double[] energy;
+		private final double[] performance;
+		/** The lowest performance factor of the health problems. */
+		private final double[] problemFactor;
+		/** The rate thirst and hunger build up at, i.e. the body mass deviation. */
+		private final double[] growth;
+		private final double[] starvationTime;
+		private final double[] dehydrationTime;
+		/** Is the person starving or dehydrated. */
+		private final boolean[] alert;
+		/** The time passed for the person since the rows were last advanced [millisols]. */
+		private final double[] pending;
+
+		private Columns(int capacity) {
+			conditions = new PhysicalCondition[capacity];
+			thirst = new double[capacity];
+			fatigue = new double[capacity];
+			hunger = new double[capacity];
+			stress = new double[capacity];
+			energy = new double[capacity];
+			performance = new double[capacity];
+			problemFactor = new double[capacity];
+			growth = new double[capacity];
+			starvationTime = new double[capacity];
+			dehydrationTime = new double[capacity];
+			alert = new boolean[capacity];
+			pending = new double[capacity];
+		}
+
+		private Columns(Columns c, int capacity) {
+			conditions = Arrays.copyOf(c.conditions, capacity);
+			thirst = Arrays.copyOf(c.thirst, capacity);
+			fatigue = Arrays.copyOf(c.fatigue, capacity);
+			hunger = Arrays.copyOf(c.hunger, capacity);
+			stress = Arrays.copyOf(c.stress, capacity);
+			energy = Arrays.copyOf(c.energy, capacity);
+			performance = Arrays.copyOf(c.performance, capacity);
+			problemFactor = Arrays.copyOf(c.problemFactor, capacity);
+			growth = Arrays.copyOf(c.growth, capacity);
+			starvationTime = Arrays.copyOf(c.starvationTime, capacity);
+			dehydrationTime = Arrays.copyOf(c.dehydrationTime, capacity);
+			alert = Arrays.copyOf(c.alert, capacity);
+			pending = Arrays.copyOf(c.pending, capacity);
+		}
+	}
+
+	/**
+	 * The row of a person in a kernel. A person moving to another settlement gets
+	 * a new row, so the kernel and the row are published together.
+	 */
+	public static final class Row implements Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		private final PhysiologyKernel kernel;
+		private final int index;
+
+		private Row(PhysiologyKernel kernel, int index) {
+			this.kernel = kernel;
+			this.index = index;
+		}
+
+		/**
+		 * Gets the kernel of the row.
+		 *
+		 * @return the kernel.
+		 */
+		PhysiologyKernel getKernel() {
+			return kernel;
+		}
+
+		/**
+		 * Moves the row to another kernel, e.g. when a person moves to another
+		 * settlement.
+		 *
+		 * @param target the kernel to move to.
+		 * @return the row in the other kernel.
+		 */
+		Row moveTo(PhysiologyKernel target) {
+			return kernel.moveTo(index, target);
+		}
+
+		/**
+		 * Frees the row.
+		 */
+		void remove() {
+			kernel.remove(index);
+		}
+
+		/**
+		 * Adds the time passed, to be advanced with the next pulse.
+		 *
+		 * @param time the time passed [millisols].
+		 */
+		void markDue(double time) {
+			kernel.markDue(index, time);
+		}
+
+		/**
+		 * Works out the performance from the health problems and vitals.
+		 */
+		void recalculatePerformance() {
+			kernel.recalculatePerformance(index);
+		}
+
+		double getThirst() {
+			return kernel.columns.thirst[index];
+		}
+
+		void setThirst(double value) {
+			kernel.setThirst(index, value);
+		}
+
+		double getFatigue() {
+			return kernel.columns.fatigue[index];
+		}
+
+		void setFatigue(double value) {
+			kernel.setFatigue(index, value);
+		}
+
+		double getHunger() {
+			return kernel.columns.hunger[index];
+		}
+
+		void setHunger(double value) {
+			kernel.setHunger(index, value);
+		}
+
+		double getStress() {
+			return kernel.columns.stress[index];
+		}
+
+		void setStress(double value) {
+			kernel.setStress(index, value);
+		}
+
+		double getEnergy() {
+			return kernel.columns.energy[index];
+		}
+
+		void setEnergy(double value) {
+			kernel.setEnergy(index, value);
+		}
+
+		double getPerformance() {
+			return kernel.columns.performance[index];
+		}
+
+		void setPerformance(double value) {
+			kernel.setPerformance(index, value);
+		}
+
+		void setProblemFactor(double value) {
+			kernel.setProblemFactor(index, value);
+		}
+
+		void setAlert(boolean value) {
+			kernel.setAlert(index, value);
+		}
+	}
+
+	/** The vitals, replaced as a whole when they grow. */
+	private volatile Columns columns = new Columns(INITIAL_CAPACITY);
+
+	/** One past the last row in use. */
+	private int limit;
+
+	/**
+	 * Adds a row for a physical condition, reusing a free one if any.
+	 *
+	 * @param condition the physical condition.
+	 * @return the row.
+	 */
+	synchronized Row add(PhysicalCondition condition) {
+		Columns c = columns;
+		int row = 0;
+		while ((row < limit) && (c.conditions[row] != null)) {
+			row++;
+		}
+		if (row == c.conditions.length) {
+			c = new Columns(c, row * 2);
+			columns = c;
+		}
+		if (row == limit)
+			limit++;
+
+		c.conditions[row] = condition;
+		c.thirst[row] = 0D;
+		c.fatigue[row] = 0D;
+		c.hunger[row] = 0D;
+		c.stress[row] = 0D;
+		c.energy[row] = 0D;
+		c.performance[row] = 1D;
+		c.problemFactor[row] = 1D;
+		c.growth[row] = condition.getBodyMassDeviation();
+		c.starvationTime[row] = condition.getStarvationStartTime();
+		c.dehydrationTime[row] = condition.getDehydrationStartTime();
+		c.alert[row] = false;
+		c.pending[row] = 0D;
+		return new Row(this, row);
+	}
+
+	/**
+	 * Frees a row.
+	 *
+	 * @param row the row.
+	 */
+	private synchronized void remove(int row) {
+		Columns c = columns;
+		c.conditions[row] = null;
+		c.pending[row] = 0D;
+		while ((limit > 0) && (c.conditions[limit - 1] == null)) {
+			limit--;
+		}
+	}
+
+	/**
+	 * Moves a row to another kernel.
+	 *
+	 * @param row    the row.
+	 * @param target the kernel to move to.
+	 * @return the row in the other kernel.
+	 */
+	private Row moveTo(int row, PhysiologyKernel target) {
+		// Take one lock at a time so that two kernels moving rows to each other cannot deadlock
+		PhysicalCondition condition;
+		double[] values;
+		boolean isAlert;
+		synchronized (this) {
+			Columns c = columns;
+			condition = c.conditions[row];
+			values = new double[] { c.thirst[row], c.fatigue[row], c.hunger[row], c.stress[row], c.energy[row],
+					c.performance[row], c.problemFactor[row], c.pending[row] };
+			isAlert = c.alert[row];
+		}
+
+		Row result;
+		synchronized (target) {
+			result = target.add(condition);
+			Columns t = target.columns;
+			int i = result.index;
+			t.thirst[i] = values[0];
+			t.fatigue[i] = values[1];
+			t.hunger[i] = values[2];
+			t.stress[i] = values[3];
+			t.energy[i] = values[4];
+			t.performance[i] = values[5];
+			t.problemFactor[i] = values[6];
+			t.pending[i] = values[7];
+			t.alert[i] = isAlert;
+		}
+		remove(row);
+		return result;
+	}
+
+	private synchronized void markDue(int row, double time) {
+		columns.pending[row] += time;
+	}
+
+	/**
+	 * Advances the rows with time due, i.e. builds up their thirst, fatigue and
+	 * hunger, checks the ones that may be starving or dehydrated and works out
+	 * their performance.
+	 *
+	 * @param pulse the clock pulse.
+	 */
+	public void timePassing(ClockPulse pulse) {
+		// Starvation and dehydration are checked every 7 millisols
+		boolean checkVitals = (pulse.getMarsTime().getMillisolInt() % 7) == 0;
+		PhysicalCondition[] crossed = null;
+		int numCrossed = 0;
+
+		synchronized (this) {
+			Columns c = columns;
+			for (int i = 0; i < limit; i++) {
+				double time = c.pending[i];
+				if (time > 0D) {
+					c.thirst[i] = Math.min(c.thirst[i] + time * c.growth[i], MAX_THIRST);
+					c.fatigue[i] += time;
+					c.hunger[i] += time * c.growth[i];
+					c.pending[i] = 0D;
+
+					if (checkVitals && ((c.hunger[i] > c.starvationTime[i]) || (c.thirst[i] > c.dehydrationTime[i])
+							|| c.alert[i])) {
+						if (crossed == null)
+							crossed = new PhysicalCondition[limit];
+						crossed[numCrossed++] = c.conditions[i];
+					}
+					recalculatePerformance(i);
+				}
+			}
+		}
+
+		// The health problems are looked at outside of the lock as they fire
+		// events, then the performance of these rows is worked out again
+		for (int i = 0; i < numCrossed; i++) {
+			crossed[i].checkVitals();
+		}
+	}
+
+	/**
+	 * Works out the performance of a row from its health problems and vitals.
+	 *
+	 * @param row the row.
+	 */
+	private synchronized void recalculatePerformance(int row) {
+		Columns c = columns;
+		double result = c.problemFactor[row];
+
+		// High thirst reduces performance.
+		double t = c.thirst[row];
+		if (t > 800D)
+			result -= (t - 800D) * THIRST_PERFORMANCE_MODIFIER / 2;
+		else if (t > 400D)
+			result -= (t - 400D) * THIRST_PERFORMANCE_MODIFIER / 4;
+
+		// High hunger reduces performance.
+		double h = c.hunger[row];
+		if (h > 1600D)
+			result -= (h - 1600D) * HUNGER_PERFORMANCE_MODIFIER / 2;
+		else if (h > 800D)
+			result -= (h - 800D) * HUNGER_PERFORMANCE_MODIFIER / 4;
+
+		// High fatigue reduces performance.
+		double f = c.fatigue[row];
+		if (f > 2000D)
+			result -= (f - 2000D) * FATIGUE_PERFORMANCE_MODIFIER / 2;
+		else if (f > 1000D)
+			result -= (f - 1000D) * FATIGUE_PERFORMANCE_MODIFIER / 4;
+
+		// High stress reduces performance.
+		double s = c.stress[row];
+		if (s > 90D)
+			result -= (s - 90D) * STRESS_PERFORMANCE_MODIFIER / 2;
+		else if (s > 50D)
+			result -= (s - 50D) * STRESS_PERFORMANCE_MODIFIER / 4;
+
+		// High kJoules improves performance and low kJoules hurts performance.
+		double e = c.energy[row];
+		if (e > 7500)
+			result += (e - 7500) * ENERGY_PERFORMANCE_MODIFIER / 8;
+		else if (e < 400)
+			result -= 400_000 / e * ENERGY_PERFORMANCE_MODIFIER / 4;
+
+		setPerformance(row, result);
+	}
+
+	private synchronized void setThirst(int row, double value) {
+		columns.thirst[row] = value;
+	}
+
+	private synchronized void setFatigue(int row, double value) {
+		columns.fatigue[row] = value;
+	}
+
+	private synchronized void setHunger(int row, double value) {
+		columns.hunger[row] = value;
+	}
+
+	private synchronized void setStress(int row, double value) {
+		columns.stress[row] = value;
+	}
+
+	private synchronized void setEnergy(int row, double value) {
+		columns.energy[row] = value;
+	}
+
+	/**
+	 * Sets the performance of a row, between 0 and 1.
+	 */
+	private synchronized void setPerformance(int row, double value) {
+		if (value > 1D)
+			value = 1D;
+		else if (value < 0)
+			value = 0;
+		columns.performance[row] = value;
+	}
+
+	private synchronized void setProblemFactor(int row, double value) {
+		columns.problemFactor[row] = value;
+	}
+
+	private synchronized void setAlert(int row, boolean value) {
+		columns.alert[row] = value;
+	}
+
+	/**
+	 * Gets the number of rows in use.
+	 *
+	 * @return the number of rows.
+	 */
+	public synchronized int size() {
+		Columns c = columns;
+		int result = 0;
+		for (int i = 0; i < limit; i++) {
+			if (c.conditions[i] != null)
+				result++;
+		}
+		return result;
+	}
+}
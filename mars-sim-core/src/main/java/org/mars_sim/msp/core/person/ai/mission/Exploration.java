@@ -529,12 +529,14 @@ public class Exploration extends RoverMission implements Serializable {
 		String[] mineralTypes = mineralMap.getMineralTypeNames();
 		
 		List<Coordinates> coords = getSiteCoordinates();
-		for (Coordinates c: coords) {
+		List<Map<String, Double>> concentrations = mineralMap.getAllMineralConcentrations(coords);
+		for (int x = 0; x < coords.size(); x++) {
+			Coordinates c = coords.get(x);
 			Map<String, Double> initialMineralEstimations = new HashMap<String, Double>(mineralTypes.length);
 			for (String mineralType : mineralTypes) {
 				double estimation = RandomUtil.getRandomDouble(MINERAL_ESTIMATION_CEILING * 2D)
 						- MINERAL_ESTIMATION_CEILING;
-				double actualConcentration = mineralMap.getMineralConcentration(mineralType, c);//getCurrentMissionLocation());
+				double actualConcentration = concentrations.get(x).getOrDefault(mineralType, 0D);
 				estimation += actualConcentration;
 				if (estimation < 0D)
 					estimation = 0D - estimation;
@@ -593,12 +595,14 @@ public class Exploration extends RoverMission implements Serializable {
 		MineralMap mineralMap = surfaceFeatures.getMineralMap();
 		String[] mineralTypes = mineralMap.getMineralTypeNames();
 		
-		for (Coordinates c: coords) {
+		List<Map<String, Double>> concentrations = mineralMap.getAllMineralConcentrations(coords);
+		for (int x = 0; x < coords.size(); x++) {
+			Coordinates c = coords.get(x);
 			Map<String, Double> initialMineralEstimations = new HashMap<String, Double>(mineralTypes.length);
 			for (String mineralType : mineralTypes) {
 				double estimation = RandomUtil.getRandomDouble(MINERAL_ESTIMATION_CEILING * 2D)
 						- MINERAL_ESTIMATION_CEILING;
-				double actualConcentration = mineralMap.getMineralConcentration(mineralType, c);//getCurrentMissionLocation());
+				double actualConcentration = concentrations.get(x).getOrDefault(mineralType, 0D);
 				estimation += actualConcentration;
 				if (estimation < 0D)
 					estimation = 0D - estimation;
@@ -323,6 +323,7 @@ public class MissionManager implements Serializable, Temporal {
 
 		if (!onGoingMissions.contains(newMission)) {
 			onGoingMissions.add(newMission);
+			MissionPlanningContext.invalidate();
 
 			// Update listeners.
 			if (listeners == null) {
@@ -351,6 +352,7 @@ public class MissionManager implements Serializable, Temporal {
 
 		if (onGoingMissions.contains(oldMission)) {
 			onGoingMissions.remove(oldMission);
+			MissionPlanningContext.invalidate();
 
 			oldMission.fireMissionUpdate(MissionEventType.END_MISSION_EVENT);
 					
@@ -378,20 +380,21 @@ public class MissionManager implements Serializable, Temporal {
 	public Mission getNewMission(Person person) {
 		Mission result = null;
 		
-		// Probably must be calculated as a local otherwise method is not threadsafe using a shared cache
-		ConcurrentHashMap<MetaMission, Double> missionProbCache = new ConcurrentHashMap<MetaMission, Double>(MetaMissionUtil.getNumMetaMissions());
+		// The settlement parts of the probabilities are shared through its mission planning context
+		List<MetaMission> metaMissions = MetaMissionUtil.getMetaMissions();
+		double[] missionProbCache = new double[metaMissions.size()];
 		
 		// Get a random number from 0 to the total weight
 		double totalProbCache = 0D;
 
 		// Determine probabilities.
-		for (MetaMission metaMission : MetaMissionUtil.getMetaMissions()) {
+		for (int i = 0; i < missionProbCache.length; i++) {
+			MetaMission metaMission = metaMissions.get(i);
 			double probability = metaMission.getProbability(person);
 			if ((probability >= 0D) && (!Double.isNaN(probability)) && (!Double.isInfinite(probability))) {
-				missionProbCache.put(metaMission, probability);
+				missionProbCache[i] = probability;
 				totalProbCache += probability;
 			} else {
-				missionProbCache.put(metaMission, 0D);
 				logger.severe(person.getName() + " had bad mission probability on " + metaMission.getName() + " probability: "
 						+ probability);
 			}
@@ -411,12 +414,10 @@ public class MissionManager implements Serializable, Temporal {
 
 		// Determine which mission is selected.
 		MetaMission selectedMetaMission = null;
-		Iterator<MetaMission> m = missionProbCache.keySet().iterator();
-		while (m.hasNext() && (selectedMetaMission == null)) {
-			MetaMission metaMission = m.next();
-			double probWeight = missionProbCache.get(metaMission);
+		for (int i = 0; (i < missionProbCache.length) && (selectedMetaMission == null); i++) {
+			double probWeight = missionProbCache[i];
 			if (r <= probWeight && probWeight != 0) {
-				selectedMetaMission = metaMission;
+				selectedMetaMission = metaMissions.get(i);
 			} else {
 				r -= probWeight;
 			}
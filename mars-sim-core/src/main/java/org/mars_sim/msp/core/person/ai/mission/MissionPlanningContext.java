@@ -0,0 +1,185 @@
+/**
+ * Mars Simulation Project
+ * MissionPlanningContext.java
+ * @version 3.1.2 2026-10-17
+ * @author agent
+ */
+package org.mars_sim.msp.core.person.ai.mission;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+
+import org.mars_sim.msp.core.Simulation;
+import org.mars_sim.msp.core.structure.Settlement;
+import org.mars_sim.msp.core.time.MasterClock;
+
+/**
+ * The inputs of the mission probabilities that depend on the settlement only,
+ * e.g. the rovers available, the trade profit or the mineral value, worked out
+ * once per pulse for all the members of a settlement. A meta mission keeps its
+ * settlement part in the context of the settlement and applies the factors of
+ * each person to it. The values are dropped when the pulse changes and when a
+ * mission is added or removed, since the number of missions under way is one
+ * of the inputs.
+ */
+public final class MissionPlanningContext {
+
+	/** The contexts by settlement. */
+	private static final Map<Settlement, MissionPlanningContext> contexts = Collections
+			.synchronizedMap(new IdentityHashMap<>());
+
+	/** Bumped whenever a mission is added or removed. */
+	private static final AtomicInteger generation = new AtomicInteger();
+
+	private static final LongAdder evaluations = new LongAdder();
+	private static final LongAdder savedEvaluations = new LongAdder();
+
+	/** The pulse and generation the values were worked out in. */
+	private long pulse = -1;
+	private int valueGeneration;
+	/** The values by name. */
+	private final Map<String, Double> values = new HashMap<>();
+
+	/**
+	 * Private constructor.
+	 */
+	private MissionPlanningContext() {
+	}
+
+	/**
+	 * Gets the context of a settlement.
+	 *
+	 * @param settlement the settlement.
+	 * @return the context.
+	 */
+	public static MissionPlanningContext getContext(Settlement settlement) {
+		synchronized (contexts) {
+			MissionPlanningContext result = contexts.get(settlement);
+			if (result == null) {
+				result = new MissionPlanningContext();
+				contexts.put(settlement, result);
+			}
+			return result;
+		}
+	}
+
+	/**
+	 * Gets a value, working it out if it has not been in this pulse.
+	 *
+	 * @param name     the name of the value, e.g. the mission name.
+	 * @param supplier works out the value.
+	 * @return the value.
+	 */
+	public double getValue(String name, DoubleSupplier supplier) {
+		return getValue(name, supplier, getCurrentPulse());
+	}
+
+	/**
+	 * Gets a value, working it out if it has not been in the given pulse.
+	 *
+	 * @param name         the name of the value.
+	 * @param supplier     works out the value.
+	 * @param currentPulse the current pulse, or -1 not to keep the value.
+	 * @return the value.
+	 */
+	double getValue(String name, DoubleSupplier supplier, long currentPulse) {
+		int currentGeneration = generation.get();
+		synchronized (this) {
+			if ((pulse != currentPulse) || (valueGeneration != currentGeneration)) {
+				values.clear();
+				pulse = currentPulse;
+				valueGeneration = currentGeneration;
+			}
+			Double value = values.get(name);
+			if (value != null) {
+				savedEvaluations.increment();
+				return value;
+			}
+		}
+
+		// Work out the value outside of the lock as it goes through the settlement
+		double result = supplier.getAsDouble();
+		evaluations.increment();
+		if (currentPulse >= 0) {
+			synchronized (this) {
+				// Not if a mission was added or removed meanwhile as it may be out of date
+				if ((pulse == currentPulse) && (valueGeneration == currentGeneration)
+						&& (generation.get() == currentGeneration))
+					values.put(name, result);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Drops the values of all the contexts, e.g. after a mission has been added
+	 * or removed.
+	 */
+	static void invalidate() {
+		generation.incrementAndGet();
+	}
+
+	/**
+	 * Discards all the contexts and the counters, e.g. when a simulation is
+	 * loaded.
+	 */
+	public static void clear() {
+		contexts.clear();
+		invalidate();
+		resetStats();
+	}
+
+	/**
+	 * Gets the number of values worked out.
+	 *
+	 * @return the number of evaluations.
+	 */
+	public static long getEvaluations() {
+		return evaluations.sum();
+	}
+
+	/**
+	 * Gets the number of values taken from a context instead of being worked
+	 * out again.
+	 *
+	 * @return the number of evaluations saved.
+	 */
+	public static long getSavedEvaluations() {
+		return savedEvaluations.sum();
+	}
+
+	/**
+	 * Gets a report of the values worked out and saved.
+	 *
+	 * @return the report.
+	 */
+	public static String getReport() {
+		long worked = getEvaluations();
+		long saved = getSavedEvaluations();
+		long total = worked + saved;
+		return "Mission planning values : " + worked + " worked out, " + saved + " saved"
+				+ ((total > 0) ? " (" + Math.round(saved * 100D / total) + " %)" : "");
+	}
+
+	/**
+	 * Clears the counters.
+	 */
+	public static void resetStats() {
+		evaluations.reset();
+		savedEvaluations.reset();
+	}
+
+	/**
+	 * Gets the current pulse, or -1 if there is no clock to tell when the
+	 * values go out of date, in which case they are not kept.
+	 */
+	private static long getCurrentPulse() {
+		MasterClock masterClock = Simulation.instance().getMasterClock();
+		return (masterClock != null) ? masterClock.getTotalPulses() : -1;
+	}
+}
@@ -22,6 +22,7 @@ import org.mars_sim.msp.core.Msg;
 import org.mars_sim.msp.core.Simulation;
 import org.mars_sim.msp.core.equipment.EVASuit;
 import org.mars_sim.msp.core.person.Person;
+import org.mars_sim.msp.core.person.ai.mission.TradeMarket.TradeOpportunity;
 import org.mars_sim.msp.core.person.ai.SkillType;
 import org.mars_sim.msp.core.person.ai.task.EVAOperation;
 import org.mars_sim.msp.core.person.ai.task.LoadVehicleEVA;
@@ -74,10 +75,6 @@ public class Trade extends RoverMission implements Serializable {
 	// Static members
 	public static final double MAX_STARTING_PROBABILITY = 100D;
 
-	// Static cache for holding trade profit info.
-	public static final Map<Settlement, TradeProfitInfo> TRADE_PROFIT_CACHE = new HashMap<Settlement, TradeProfitInfo>();
-	public static final Map<Settlement, Settlement> TRADE_SETTLEMENT_CACHE = new HashMap<Settlement, Settlement>();
-
 	static final int MAX_MEMBERS = 2;
 
 	// Data members.
@@ -121,15 +118,12 @@ public class Trade extends RoverMission implements Serializable {
 			setStartingSettlement(s);
 
 			// Get trading settlement
-			tradingSettlement = TRADE_SETTLEMENT_CACHE.get(s);
+			tradingSettlement = TradeMarket.getInstance().getBestTradeSettlement(s);
 			if (tradingSettlement != null && !tradingSettlement.equals(s)) {
 				addNavpoint(new NavPoint(tradingSettlement.getCoordinates(), tradingSettlement,
 						tradingSettlement.getName()));
 				setDescription(Msg.getString("Mission.description.trade.detail", tradingSettlement.getName())); // $NON-NLS-1$
-				TRADE_PROFIT_CACHE.remove(getStartingSettlement());
-				TRADE_PROFIT_CACHE.remove(tradingSettlement);
-				TRADE_SETTLEMENT_CACHE.remove(getStartingSettlement());
-				TRADE_SETTLEMENT_CACHE.remove(tradingSettlement);
+				TradeMarket.getInstance().tradeChanged(s, tradingSettlement);
 			} else {
 				addMissionStatus(MissionStatus.NO_TRADING_SETTLEMENT);
 				endMission();
@@ -138,23 +132,11 @@ public class Trade extends RoverMission implements Serializable {
 			if (!isDone()) {
 				// Get the credit that the starting settlement has with the destination
 				// settlement.
-				double credit = creditManager.getCredit(s, tradingSettlement);
-
-				if (credit > (TradeUtil.SELL_CREDIT_LIMIT * -1D)) {
-					// Determine desired buy load,
-					desiredBuyLoad = TradeUtil.getDesiredBuyLoad(s, getRover(), tradingSettlement);
-				} else {
-					// Cannot buy from settlement due to credit limit.
-					desiredBuyLoad = new HashMap<Good, Integer>(0);
-				}
-
-				if (credit < TradeUtil.SELL_CREDIT_LIMIT) {
-					// Determine sell load.
-					sellLoad = TradeUtil.determineBestSellLoad(s, getRover(), tradingSettlement);
-				} else {
-					// Will not sell to settlement due to credit limit.
-					sellLoad = new HashMap<Good, Integer>(0);
-				}
+				// Use the loads of the trade market, within the credit limits
+				TradeOpportunity opportunity = TradeMarket.getInstance().getTradeOpportunity(s, tradingSettlement,
+						getRover());
+				desiredBuyLoad = new HashMap<Good, Integer>(opportunity.getBuyLoad());
+				sellLoad = new HashMap<Good, Integer>(opportunity.getSellLoad());
 
 				// Determine desired trade profit.
 				desiredProfit = estimateTradeProfit(desiredBuyLoad);
@@ -462,7 +444,7 @@ public class Trade extends RoverMission implements Serializable {
 			equipmentNeededCache = null;
 			addNavpoint(new NavPoint(getStartingSettlement().getCoordinates(), getStartingSettlement(),
 					getStartingSettlement().getName()));
-			TRADE_PROFIT_CACHE.remove(getStartingSettlement());
+			TradeMarket.getInstance().tradeChanged(getStartingSettlement(), tradingSettlement);
 		}
 	}
 
@@ -730,6 +712,10 @@ public class Trade extends RoverMission implements Serializable {
 				towed.setReservedForMission(false);
 			}
 		}
+
+		// The two settlements may trade again
+		if (getStartingSettlement() != null && tradingSettlement != null)
+			TradeMarket.getInstance().tradeChanged(getStartingSettlement(), tradingSettlement);
 	}
 
 	/**
@@ -1078,20 +1064,6 @@ public class Trade extends RoverMission implements Serializable {
 		negotiationTask = null;
 	}
 
-	/**
-	 * Inner class for storing trade profit info.
-	 */
-	public static class TradeProfitInfo {
-		
-		public double profit;
-		public MarsClock time;
-
-		public TradeProfitInfo(double profit, MarsClock time) {
-			this.profit = profit;
-			this.time = time;
-		}
-	}
-
 	@Override
 	public Map<Integer, Integer> getEquipmentNeededForRemainingMission(boolean useBuffer) {
 		if (equipmentNeededCache != null)
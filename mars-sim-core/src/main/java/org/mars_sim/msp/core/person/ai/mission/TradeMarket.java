@@ -0,0 +1,545 @@
+/**
+ * Mars Simulation Project
+ * TradeMarket.java
+ * @version 3.1.2 2026-10-17
+ * @author agent
+ */
+package org.mars_sim.msp.core.person.ai.mission;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.mars_sim.msp.core.Coordinates;
+import org.mars_sim.msp.core.Simulation;
+import org.mars_sim.msp.core.UnitManager;
+import org.mars_sim.msp.core.structure.Settlement;
+import org.mars_sim.msp.core.structure.goods.CreditManager;
+import org.mars_sim.msp.core.structure.goods.Good;
+import org.mars_sim.msp.core.time.MarsClock;
+import org.mars_sim.msp.core.vehicle.Rover;
+
+/**
+ * A settlement by settlement matrix of the best trade loads and profits. A
+ * cell is marked stale when the value of a good it trades moves at either of
+ * its settlements, and is worked out again when next asked for, but no more
+ * often than every {@link #REFRESH_TIME} millisols. A cell older than
+ * {@link #MAX_AGE} is worked out again anyway, so that goods not traded yet
+ * may come in.
+ * <p>
+ * The lock of the market only guards the matrix. The loads are worked out
+ * without it, and a cell being worked out by one thread is left to it by the
+ * others. The trade opportunities are immutable and the best trade of each
+ * settlement is published in an immutable map, so the missions and the UI read
+ * them without waiting on the market.
+ */
+public final class TradeMarket {
+
+	/** The minimum time (millisols) between two refreshes of a stale trade opportunity. */
+	static final double REFRESH_TIME = 2000D;
+	/** The time (millisols) after which a trade opportunity is worked out again. */
+	static final double MAX_AGE = 5000D;
+
+	private static TradeMarket instance;
+
+	private final Appraiser appraiser;
+
+	/** The index of each settlement in the matrix. */
+	private final Map<Settlement, Integer> indices = new HashMap<>();
+	private Settlement[] settlements = new Settlement[0];
+	/** The trade opportunities, by starting settlement and trading settlement. */
+	private Cell[][] matrix = new Cell[0][0];
+	/** True if the best trade of a starting settlement needs to be looked for again. */
+	private boolean[] bestTradeStale = new boolean[0];
+	/** The number of trade opportunities worked out. */
+	private long refreshCount;
+
+	/** The best trade opportunity of each starting settlement, if known. */
+	private volatile Map<Settlement, TradeOpportunity> bestTrades = Collections.emptyMap();
+
+	private static Simulation sim = Simulation.instance();
+	private static CreditManager creditManager = sim.getCreditManager();
+	private static UnitManager unitManager = sim.getUnitManager();
+	private static MarsClock marsClock = sim.getMasterClock().getMarsClock();
+
+	/**
+	 * Gets the trade market of the simulation.
+	 *
+	 * @return the trade market.
+	 */
+	public static synchronized TradeMarket getInstance() {
+		if (instance == null) {
+			instance = new TradeMarket(new TradeAppraiser());
+		}
+		return instance;
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param appraiser works out the trade opportunities.
+	 */
+	TradeMarket(Appraiser appraiser) {
+		this.appraiser = appraiser;
+	}
+
+	/**
+	 * Gets the best trade profit of a settlement, working out again the trade
+	 * opportunities that are due.
+	 *
+	 * @param startingSettlement the settlement to trade from.
+	 * @param rover              the rover to carry the trade.
+	 * @return the best profit (value points), or 0 if none.
+	 */
+	public double getBestTradeProfit(Settlement startingSettlement, Rover rover) {
+		List<Settlement> candidates = new ArrayList<>();
+		for (Settlement tradingSettlement : appraiser.getSettlements()) {
+			if (tradingSettlement != startingSettlement
+					&& appraiser.canTrade(startingSettlement, tradingSettlement, rover)) {
+				candidates.add(tradingSettlement);
+			}
+		}
+
+		double now = appraiser.getTime();
+		List<Cell> due = new ArrayList<>();
+		int start;
+		synchronized (this) {
+			start = getIndex(startingSettlement);
+			for (Settlement tradingSettlement : candidates) {
+				Cell cell = matrix[start][getIndex(tradingSettlement)];
+				if (!cell.refreshing && cell.isDue(rover, now)) {
+					cell.refreshing = true;
+					due.add(cell);
+				}
+			}
+		}
+
+		for (Cell cell : due) {
+			refresh(cell, rover);
+		}
+
+		synchronized (this) {
+			if (bestTradeStale[start]) {
+				findBestTrade(startingSettlement, start, rover, candidates);
+			}
+		}
+
+		return getBestTradeProfit(startingSettlement);
+	}
+
+	/**
+	 * Gets the settlement of the best trade of a settlement, as last worked out.
+	 *
+	 * @param startingSettlement the settlement to trade from.
+	 * @return the trading settlement, or null if none.
+	 */
+	public Settlement getBestTradeSettlement(Settlement startingSettlement) {
+		TradeOpportunity best = bestTrades.get(startingSettlement);
+		return (best != null) ? best.tradingSettlement : null;
+	}
+
+	/**
+	 * Gets the profit of the best trade of a settlement, as last worked out.
+	 *
+	 * @param startingSettlement the settlement to trade from.
+	 * @return the profit (value points), or 0 if none.
+	 */
+	public double getBestTradeProfit(Settlement startingSettlement) {
+		TradeOpportunity best = bestTrades.get(startingSettlement);
+		return (best != null) ? best.profit : 0D;
+	}
+
+	/**
+	 * Gets the trade opportunity between two settlements for a rover, working it
+	 * out again if stale.
+	 *
+	 * @param startingSettlement the settlement to trade from.
+	 * @param tradingSettlement  the settlement to trade with.
+	 * @param rover              the rover to carry the trade.
+	 * @return the trade opportunity.
+	 */
+	public TradeOpportunity getTradeOpportunity(Settlement startingSettlement, Settlement tradingSettlement,
+			Rover rover) {
+		Cell cell;
+		TradeOpportunity opportunity;
+		synchronized (this) {
+			cell = matrix[getIndex(startingSettlement)][getIndex(tradingSettlement)];
+			opportunity = cell.opportunity;
+			if (opportunity != null && opportunity.rover == rover && !cell.stale)
+				return opportunity;
+			cell.refreshing = true;
+		}
+		return refresh(cell, rover);
+	}
+
+	/**
+	 * Marks the trade opportunities from and to a settlement that trade any of
+	 * the goods whose values have moved as stale.
+	 *
+	 * @param settlement the settlement.
+	 * @param goods      the goods whose values have moved.
+	 */
+	public synchronized void goodsValuesChanged(Settlement settlement, Collection<Good> goods) {
+		int index = getIndex(settlement);
+		for (int i = 0; i < settlements.length; i++) {
+			if (matrix[index][i].trades(goods))
+				matrix[index][i].invalidate();
+			if (matrix[i][index].trades(goods))
+				matrix[i][index].invalidate();
+		}
+	}
+
+	/**
+	 * Makes the best trades of two settlements looked for again, e.g. after a
+	 * trade mission between them has started or ended.
+	 *
+	 * @param settlement1 the first settlement.
+	 * @param settlement2 the second settlement.
+	 */
+	public synchronized void tradeChanged(Settlement settlement1, Settlement settlement2) {
+		int index1 = getIndex(settlement1);
+		int index2 = getIndex(settlement2);
+		bestTradeStale[index1] = true;
+		bestTradeStale[index2] = true;
+		matrix[index1][index2].invalidate();
+		matrix[index2][index1].invalidate();
+	}
+
+	/**
+	 * Gets the number of trade opportunities worked out.
+	 *
+	 * @return the number.
+	 */
+	public synchronized long getRefreshCount() {
+		return refreshCount;
+	}
+
+	/**
+	 * Works out the trade opportunity of a cell claimed by the caller, without
+	 * the lock, and publishes it. The cell stays stale if it was marked so
+	 * meanwhile.
+	 */
+	private TradeOpportunity refresh(Cell cell, Rover rover) {
+		int version;
+		synchronized (this) {
+			version = cell.version;
+		}
+
+		TradeOpportunity opportunity = null;
+		try {
+			opportunity = appraiser.appraise(cell.startingSettlement, cell.tradingSettlement, rover);
+		} finally {
+			synchronized (this) {
+				cell.refreshing = false;
+				if (opportunity != null) {
+					cell.opportunity = opportunity;
+					cell.stale = (cell.version != version);
+					bestTradeStale[indices.get(cell.startingSettlement)] = true;
+					refreshCount++;
+				}
+			}
+		}
+		return opportunity;
+	}
+
+	/**
+	 * Looks for the best trade of a settlement among its trade opportunities and
+	 * publishes it.
+	 */
+	private void findBestTrade(Settlement startingSettlement, int start, Rover rover,
+			List<Settlement> candidates) {
+		TradeOpportunity best = null;
+		for (Settlement tradingSettlement : candidates) {
+			TradeOpportunity opportunity = matrix[start][getIndex(tradingSettlement)].opportunity;
+			if (opportunity == null || opportunity.rover != rover || opportunity.profit <= 0D)
+				continue;
+			if (best == null || opportunity.profit > best.profit) {
+				best = opportunity;
+			}
+		}
+
+		Map<Settlement, TradeOpportunity> published = new IdentityHashMap<>(bestTrades);
+		if (best != null)
+			published.put(startingSettlement, best);
+		else
+			published.remove(startingSettlement);
+		bestTrades = Collections.unmodifiableMap(published);
+		bestTradeStale[start] = false;
+	}
+
+	/**
+	 * Gets the index of a settlement in the matrix, adding it if needed.
+	 */
+	private int getIndex(Settlement settlement) {
+		Integer result = indices.get(settlement);
+		if (result == null) {
+			result = settlements.length;
+			indices.put(settlement, result);
+
+			int size = result + 1;
+			settlements = Arrays.copyOf(settlements, size);
+			settlements[result] = settlement;
+			matrix = Arrays.copyOf(matrix, size);
+			for (int i = 0; i < size; i++) {
+				matrix[i] = (i < result) ? Arrays.copyOf(matrix[i], size) : new Cell[size];
+			}
+			for (int i = 0; i < size; i++) {
+				matrix[i][result] = new Cell(settlements[i], settlement);
+				matrix[result][i] = new Cell(settlement, settlements[i]);
+			}
+			bestTradeStale = Arrays.copyOf(bestTradeStale, size);
+			bestTradeStale[result] = true;
+		}
+		return result;
+	}
+
+	/**
+	 * Reloads instances after loading from a saved sim or creating a new one, and
+	 * discards the trade market of the previous simulation.
+	 *
+	 * @param c  {@link MarsClock}
+	 * @param cm {@link CreditManager}
+	 * @param u  {@link UnitManager}
+	 */
+	public static void initializeInstances(MarsClock c, CreditManager cm, UnitManager u) {
+		marsClock = c;
+		creditManager = cm;
+		unitManager = u;
+		synchronized (TradeMarket.class) {
+			instance = null;
+		}
+	}
+
+	/**
+	 * Works out the trade opportunities, apart from the market so that it can be
+	 * replaced, e.g. in tests.
+	 */
+	interface Appraiser {
+
+		/**
+		 * Gets the settlements that may trade.
+		 *
+		 * @return the settlements.
+		 */
+		Collection<Settlement> getSettlements();
+
+		/**
+		 * Checks if a settlement can send a rover to trade with another.
+		 *
+		 * @param startingSettlement the settlement to trade from.
+		 * @param tradingSettlement  the settlement to trade with.
+		 * @param rover              the rover to carry the trade.
+		 * @return true if it can.
+		 */
+		boolean canTrade(Settlement startingSettlement, Settlement tradingSettlement, Rover rover);
+
+		/**
+		 * Works out the trade loads and profit from one settlement to another.
+		 *
+		 * @param startingSettlement the settlement to trade from.
+		 * @param tradingSettlement  the settlement to trade with.
+		 * @param rover              the rover to carry the trade.
+		 * @return the trade opportunity.
+		 */
+		TradeOpportunity appraise(Settlement startingSettlement, Settlement tradingSettlement, Rover rover);
+
+		/**
+		 * Gets the current time.
+		 *
+		 * @return the time (millisols).
+		 */
+		double getTime();
+	}
+
+	/**
+	 * Works out the trade opportunities from the goods values of the settlements.
+	 */
+	private static class TradeAppraiser implements Appraiser {
+
+		@Override
+		public Collection<Settlement> getSettlements() {
+			return unitManager.getSettlements();
+		}
+
+		@Override
+		public boolean canTrade(Settlement startingSettlement, Settlement tradingSettlement, Rover rover) {
+			double range = rover.getRange(Trade.missionType) * .8D;
+			return tradingSettlement.isMissionDisable(Trade.DEFAULT_DESCRIPTION)
+					&& Coordinates.computeDistance(tradingSettlement.getCoordinates(),
+							startingSettlement.getCoordinates()) <= range
+					&& !TradeUtil.hasCurrentTradeMission(startingSettlement, tradingSettlement);
+		}
+
+		@Override
+		public TradeOpportunity appraise(Settlement startingSettlement, Settlement tradingSettlement, Rover rover) {
+			// Get credit between starting settlement and trading settlement.
+			double credit = creditManager.getCredit(startingSettlement, tradingSettlement);
+
+			Map<Good, Integer> buyLoad = null;
+			if (credit > (TradeUtil.SELL_CREDIT_LIMIT * -1D)) {
+				// Determine desired buy load,
+				buyLoad = TradeUtil.getDesiredBuyLoad(startingSettlement, rover, tradingSettlement);
+			} else {
+				// Cannot buy from settlement due to credit limit.
+				buyLoad = new HashMap<Good, Integer>(0);
+			}
+
+			Map<Good, Integer> sellLoad = null;
+			if (credit < TradeUtil.SELL_CREDIT_LIMIT) {
+				// Determine sell load.
+				sellLoad = TradeUtil.determineBestSellLoad(startingSettlement, rover, tradingSettlement);
+			} else {
+				// Will not sell to settlement due to credit limit.
+				sellLoad = new HashMap<Good, Integer>(0);
+			}
+
+			double sellingValueHome = TradeUtil.determineLoadValue(sellLoad, startingSettlement, false);
+			double sellingValueRemote = TradeUtil.determineLoadValue(sellLoad, tradingSettlement, true);
+			double sellingProfit = sellingValueRemote - sellingValueHome;
+
+			double buyingValueHome = TradeUtil.determineLoadValue(buyLoad, startingSettlement, true);
+			double buyingValueRemote = TradeUtil.determineLoadValue(buyLoad, tradingSettlement, false);
+			double buyingProfit = buyingValueHome - buyingValueRemote;
+
+			// Determine estimated mission cost.
+			double distance = startingSettlement.getCoordinates().getDistance(tradingSettlement.getCoordinates())
+					* 2D;
+			double cost = TradeUtil.getEstimatedMissionCost(startingSettlement, rover, distance);
+
+			return new TradeOpportunity(startingSettlement, tradingSettlement, rover, buyLoad, sellLoad,
+					sellingProfit + buyingProfit - cost, getTime());
+		}
+
+		@Override
+		public double getTime() {
+			return marsClock.getTotalMillisols();
+		}
+	}
+
+	/**
+	 * A cell of the matrix, guarded by the lock of the market.
+	 */
+	private static final class Cell {
+
+		private final Settlement startingSettlement;
+		private final Settlement tradingSettlement;
+		private TradeOpportunity opportunity;
+		private boolean stale;
+		/** True while a thread works out the trade opportunity. */
+		private boolean refreshing;
+		/** Counts the times the cell was marked stale. */
+		private int version;
+
+		private Cell(Settlement startingSettlement, Settlement tradingSettlement) {
+			this.startingSettlement = startingSettlement;
+			this.tradingSettlement = tradingSettlement;
+		}
+
+		private void invalidate() {
+			stale = true;
+			version++;
+		}
+
+		/**
+		 * Checks if the trade opportunity trades any of some goods.
+		 */
+		private boolean trades(Collection<Good> goods) {
+			if (opportunity == null)
+				return false;
+			for (Good good : goods) {
+				if (opportunity.buyLoad.containsKey(good) || opportunity.sellLoad.containsKey(good))
+					return true;
+			}
+			return false;
+		}
+
+		/**
+		 * Checks if the trade opportunity needs to be worked out again.
+		 */
+		private boolean isDue(Rover rover, double now) {
+			if (opportunity == null || opportunity.rover != rover)
+				return true;
+			double age = now - opportunity.time;
+			return (age >= MAX_AGE) || (stale && (age >= REFRESH_TIME));
+		}
+	}
+
+	/**
+	 * The trade loads and profit from one settlement to another. It does not
+	 * change once made.
+	 */
+	public static final class TradeOpportunity {
+
+		private final Settlement startingSettlement;
+		private final Settlement tradingSettlement;
+		private final Rover rover;
+		private final Map<Good, Integer> buyLoad;
+		private final Map<Good, Integer> sellLoad;
+		private final double profit;
+		private final double time;
+
+		TradeOpportunity(Settlement startingSettlement, Settlement tradingSettlement, Rover rover,
+				Map<Good, Integer> buyLoad, Map<Good, Integer> sellLoad, double profit, double time) {
+			this.startingSettlement = startingSettlement;
+			this.tradingSettlement = tradingSettlement;
+			this.rover = rover;
+			this.buyLoad = Collections.unmodifiableMap(new HashMap<>(buyLoad));
+			this.sellLoad = Collections.unmodifiableMap(new HashMap<>(sellLoad));
+			this.profit = profit;
+			this.time = time;
+		}
+
+		public Settlement getStartingSettlement() {
+			return startingSettlement;
+		}
+
+		public Settlement getTradingSettlement() {
+			return tradingSettlement;
+		}
+
+		public Rover getRover() {
+			return rover;
+		}
+
+		/**
+		 * Gets the load the starting settlement wants to buy.
+		 *
+		 * @return a map of goods and numbers.
+		 */
+		public Map<Good, Integer> getBuyLoad() {
+			return buyLoad;
+		}
+
+		/**
+		 * Gets the load the starting settlement wants to sell.
+		 *
+		 * @return a map of goods and numbers.
+		 */
+		public Map<Good, Integer> getSellLoad() {
+			return sellLoad;
+		}
+
+		/**
+		 * Gets the estimated profit of the trade, less the mission cost.
+		 *
+		 * @return the profit (value points).
+		 */
+		public double getProfit() {
+			return profit;
+		}
+
+		/**
+		 * Gets when the trade opportunity was worked out.
+		 *
+		 * @return the time (millisols).
+		 */
+		public double getTime() {
+			return time;
+		}
+	}
+}
@@ -17,7 +17,6 @@ import org.mars_sim.msp.core.Coordinates;
 import org.mars_sim.msp.core.Inventory;
 import org.mars_sim.msp.core.Simulation;
 import org.mars_sim.msp.core.Unit;
-import org.mars_sim.msp.core.UnitManager;
 import org.mars_sim.msp.core.equipment.ContainerUtil;
 import org.mars_sim.msp.core.equipment.EVASuit;
 import org.mars_sim.msp.core.equipment.Equipment;
@@ -28,7 +27,6 @@ import org.mars_sim.msp.core.resource.ItemResourceUtil;
 import org.mars_sim.msp.core.resource.Part;
 import org.mars_sim.msp.core.resource.ResourceUtil;
 import org.mars_sim.msp.core.structure.Settlement;
-import org.mars_sim.msp.core.structure.goods.CreditManager;
 import org.mars_sim.msp.core.structure.goods.Good;
 import org.mars_sim.msp.core.structure.goods.GoodType;
 import org.mars_sim.msp.core.structure.goods.GoodsManager;
@@ -80,8 +78,6 @@ public final class TradeUtil {
 
 	private static Simulation sim = Simulation.instance();
 	private static MissionManager missionManager = sim.getMissionManager();
-	private static CreditManager creditManager = sim.getCreditManager();
-	private static UnitManager unitManager = sim.getUnitManager();
 
 			
 	/**
@@ -99,33 +95,11 @@ public final class TradeUtil {
 	 * @throws Exception if error while getting best trade profit.
 	 */
 	public static double getBestTradeProfit(Settlement startingSettlement, Rover rover) {
-		double bestProfit = 0D;
-		Settlement bestSettlement = null;
-
-		for (Settlement tradingSettlement : unitManager.getSettlements()) {
-			if (tradingSettlement != startingSettlement && tradingSettlement.isMissionDisable(Trade.DEFAULT_DESCRIPTION)) {
-
-				boolean hasCurrentTradeMission = hasCurrentTradeMission(startingSettlement, tradingSettlement);
-
-				double settlementRange = Coordinates.computeDistance(tradingSettlement.getCoordinates(), startingSettlement.getCoordinates());
-				boolean withinRange = (settlementRange <= (rover.getRange(Trade.missionType) * .8D));
-
-				if (!hasCurrentTradeMission && withinRange) {
-					// double startTime = System.currentTimeMillis();
-
-					double profit = getEstimatedTradeProfit(startingSettlement, rover, tradingSettlement);
-					// double endTime = System.currentTimeMillis();
-//					 logger.finest("getEstimatedTradeProfit " + (endTime - startTime));
-					if (profit > bestProfit) {
-						bestProfit = profit;
-						bestSettlement = tradingSettlement;
-					}
-				}
-			}
-		}
+		TradeMarket market = TradeMarket.getInstance();
+		double bestProfit = market.getBestTradeProfit(startingSettlement, rover);
 
 		// Set settlement cache.
-		bestTradeSettlementCache = bestSettlement;
+		bestTradeSettlementCache = market.getBestTradeSettlement(startingSettlement);
 
 		return bestProfit;
 	}
@@ -137,7 +111,7 @@ public final class TradeUtil {
 	 * @param settlement2 the second settlement.
 	 * @return true if current trade mission between settlements.
 	 */
-	private static boolean hasCurrentTradeMission(Settlement settlement1, Settlement settlement2) {
+	static boolean hasCurrentTradeMission(Settlement settlement1, Settlement settlement2) {
 		boolean result = false;
 
 		// MissionManager manager = Simulation.instance().getMissionManager();
@@ -161,74 +135,6 @@ public final class TradeUtil {
 		return result;
 	}
 
-	/**
-	 * Gets the estimated trade profit from one settlement to another.
-	 * 
-	 * @param startingSettlement the settlement to trade from.
-	 * @param rover              the rover to carry the trade goods.
-	 * @param tradingSettlement  the settlement to trade to.
-	 * @return the trade profit (value points)
-	 * @throws Exception if error getting the estimated trade profit.
-	 */
-	private static double getEstimatedTradeProfit(Settlement startingSettlement, Rover rover,
-			Settlement tradingSettlement) {
-
-		// Determine estimated trade revenue.
-		double revenue = getEstimatedTradeRevenue(startingSettlement, rover, tradingSettlement);
-
-		// Determine estimated mission cost.
-		double distance = startingSettlement.getCoordinates().getDistance(tradingSettlement.getCoordinates()) * 2D;
-		double cost = getEstimatedMissionCost(startingSettlement, rover, distance);
-
-		return revenue - cost;
-	}
-
-	/**
-	 * Gets the estimated trade revenue from one settlement to another.
-	 * 
-	 * @param startingSettlement the settlement to trade from.
-	 * @param rover              the rover to carry the trade goods.
-	 * @param tradingSettlement  the settlement to trade to.
-	 * @return the trade revenue (value points).
-	 * @throws Exception if error getting the estimated trade revenue.
-	 */
-	private static double getEstimatedTradeRevenue(Settlement startingSettlement, Rover rover,
-			Settlement tradingSettlement) {
-
-		// Get credit between starting settlement and trading settlement.
-		double credit = creditManager.getCredit(startingSettlement, tradingSettlement);
-
-		Map<Good, Integer> buyLoad = null;
-		if (credit > (TradeUtil.SELL_CREDIT_LIMIT * -1D)) {
-			// Determine desired buy load,
-			buyLoad = TradeUtil.getDesiredBuyLoad(startingSettlement, rover, tradingSettlement);
-		} else {
-			// Cannot buy from settlement due to credit limit.
-			buyLoad = new HashMap<Good, Integer>(0);
-		}
-
-		Map<Good, Integer> sellLoad = null;
-		if (credit < TradeUtil.SELL_CREDIT_LIMIT) {
-			// Determine sell load.
-			sellLoad = TradeUtil.determineBestSellLoad(startingSettlement, rover, tradingSettlement);
-		} else {
-			// Will not sell to settlement due to credit limit.
-			sellLoad = new HashMap<Good, Integer>(0);
-		}
-
-		double sellingValueHome = TradeUtil.determineLoadValue(sellLoad, startingSettlement, false);
-		double sellingValueRemote = TradeUtil.determineLoadValue(sellLoad, tradingSettlement, true);
-		double sellingProfit = sellingValueRemote - sellingValueHome;
-
-		double buyingValueHome = TradeUtil.determineLoadValue(buyLoad, startingSettlement, true);
-		double buyingValueRemote = TradeUtil.determineLoadValue(buyLoad, tradingSettlement, false);
-		double buyingProfit = buyingValueHome - buyingValueRemote;
-
-		double totalProfit = sellingProfit + buyingProfit;
-
-		return totalProfit;
-	}
-
 	/**
 	 * Gets the desired buy load from a trading settlement.
 	 * 
@@ -59,6 +59,8 @@ public abstract class VehicleMission extends TravelMission implements UnitListen
 	private static final String loggerName = logger.getName();
 	private static final String sourceName = loggerName.substring(loggerName.lastIndexOf(".") + 1, loggerName.length());
 
+	private static final int NOT_ENOUGH_RESOURCES_LOG = LogConsolidated.key("VehicleMission.notEnoughResources");
+
 	/** Mission phases. */
 	public static final MissionPhase REVIEWING = new MissionPhase(Msg.getString("Mission.phase.reviewing")); //$NON-NLS-1$
 	public static final MissionPhase EMBARKING = new MissionPhase(Msg.getString("Mission.phase.embarking")); //$NON-NLS-1$
@@ -1114,11 +1116,13 @@ public abstract class VehicleMission extends TravelMission implements UnitListen
 					double amountStored = inv.getAmountResourceStored(id, false);
 
 					if (amountStored < amount) {
-						String newLog = "[" + vehicle.getLocationTag().getLocale() + "] " + vehicle.getName() + " did not have enough " 
+						int count = LogConsolidated.acquire(logger, Level.WARNING, 10_000, NOT_ENOUGH_RESOURCES_LOG);
+						if (count > 0)
+							LogConsolidated.logAcquired(logger, Level.WARNING, count, sourceName,
+								"[" + vehicle.getLocationTag().getLocale() + "] " + vehicle.getName() + " did not have enough " 
 								+ ResourceUtil.findAmountResourceName(id) + " to continue with "
 								+ getName() + " (Required: " + Math.round(amount * 100D) / 100D + " kg  Stored: "
-								+ Math.round(amountStored * 100D) / 100D + " kg).";
-						LogConsolidated.log(logger, Level.WARNING, 10_000, sourceName, newLog);
+								+ Math.round(amountStored * 100D) / 100D + " kg).", null);
 						return false;
 					}
 				}
@@ -1128,10 +1132,12 @@ public abstract class VehicleMission extends TravelMission implements UnitListen
 					int numStored = inv.getItemResourceNum(id);
 
 					if (numStored < num) {
-						String newLog = "[" + vehicle.getLocationTag().getLocale() + "] " + vehicle.getName() + " did not have enough " 
+						int count = LogConsolidated.acquire(logger, Level.WARNING, 10_000, NOT_ENOUGH_RESOURCES_LOG);
+						if (count > 0)
+							LogConsolidated.logAcquired(logger, Level.WARNING, count, sourceName,
+								"[" + vehicle.getLocationTag().getLocale() + "] " + vehicle.getName() + " did not have enough " 
 								+ ItemResourceUtil.findItemResource(id).getName() + " to continue with "
-								+ getName() + " (Required: " + num + "  Stored: " + numStored + ").";
-						LogConsolidated.log(logger, Level.WARNING, 10_000, sourceName, newLog);
+								+ getName() + " (Required: " + num + "  Stored: " + numStored + ").", null);
 						return false;
 					}
 				}
@@ -11,6 +11,7 @@ import org.mars_sim.msp.core.person.Person;
 import org.mars_sim.msp.core.person.ai.job.Job;
 import org.mars_sim.msp.core.person.ai.mission.CollectRegolith;
 import org.mars_sim.msp.core.person.ai.mission.Mission;
+import org.mars_sim.msp.core.person.ai.mission.MissionPlanningContext;
 import org.mars_sim.msp.core.person.ai.mission.VehicleMission;
 import org.mars_sim.msp.core.robot.Robot;
 import org.mars_sim.msp.core.structure.Settlement;
@@ -56,25 +57,10 @@ public class CollectRegolithMeta implements MetaMission {
 
 			Settlement settlement = person.getSettlement();
 
-			missionProbability = settlement.getMissionBaseProbability(DEFAULT_DESCRIPTION) / VALUE;
-    		if (missionProbability <= 0)
+			missionProbability = MissionPlanningContext.getContext(settlement).getValue(DEFAULT_DESCRIPTION,
+					() -> getSettlementProbability(settlement));
+    		if (missionProbability < 0)
     			return 0;
-    	   		
-    		int numEmbarked = VehicleMission.numEmbarkingMissions(settlement);
-    		int numThisMission = missionManager.numParticularMissions(DEFAULT_DESCRIPTION, settlement);
-    	
-	   		// Check for # of embarking missions.
-    		if (Math.max(1, settlement.getNumCitizens() / 8.0) < numEmbarked + numThisMission) {
-    			return 0;
-    		}	
-    	
-    		if (numThisMission > 1)
-    			return 0;
-    		
-    		int f1 = 2*numEmbarked + 1;
-    		int f2 = 2*numThisMission + 1;
-    		
-    		missionProbability *= settlement.getNumCitizens() / f1 / f2 / 2D * ( 1 + settlement.getMissionDirectiveModifier(3));
     		
 			// Job modifier.
 			Job job = person.getMind().getJob();
@@ -104,6 +90,38 @@ public class CollectRegolithMeta implements MetaMission {
 		return missionProbability;
 	}
 
+	/**
+	 * Gets the part of the mission probability that is the same for all the
+	 * members of a settlement.
+	 * 
+	 * @param settlement the settlement.
+	 * @return the probability or -1 if the mission can not start from the settlement.
+	 */
+	public double getSettlementProbability(Settlement settlement) {
+
+		double missionProbability = settlement.getMissionBaseProbability(DEFAULT_DESCRIPTION) / VALUE;
+		if (missionProbability <= 0)
+			return -1;
+
+		int numEmbarked = VehicleMission.numEmbarkingMissions(settlement);
+		int numThisMission = missionManager.numParticularMissions(DEFAULT_DESCRIPTION, settlement);
+
+		// Check for # of embarking missions.
+		if (Math.max(1, settlement.getNumCitizens() / 8.0) < numEmbarked + numThisMission) {
+			return -1;
+		}
+
+		if (numThisMission > 1)
+			return -1;
+
+		int f1 = 2*numEmbarked + 1;
+		int f2 = 2*numThisMission + 1;
+
+		missionProbability *= settlement.getNumCitizens() / f1 / f2 / 2D * ( 1 + settlement.getMissionDirectiveModifier(3));
+
+		return missionProbability;
+	}
+
 	@Override
 	public Mission constructInstance(Robot robot) {
 		// TODO Auto-generated method stub
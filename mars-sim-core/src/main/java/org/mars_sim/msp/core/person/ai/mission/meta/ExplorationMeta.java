@@ -14,6 +14,7 @@ import org.mars_sim.msp.core.person.Person;
 import org.mars_sim.msp.core.person.ai.job.Job;
 import org.mars_sim.msp.core.person.ai.mission.Exploration;
 import org.mars_sim.msp.core.person.ai.mission.Mission;
+import org.mars_sim.msp.core.person.ai.mission.MissionPlanningContext;
 import org.mars_sim.msp.core.person.ai.mission.RoverMission;
 import org.mars_sim.msp.core.person.ai.mission.VehicleMission;
 import org.mars_sim.msp.core.robot.Robot;
@@ -53,52 +54,12 @@ public class ExplorationMeta implements MetaMission {
 		if (person.isInSettlement()) {
 
 			Settlement settlement = person.getSettlement();
-			
-			// 1. Check if there are enough specimen containers at the settlement for
-			// collecting rock samples.
-			if (settlement.getInventory().findNumSpecimenBoxes(true, true) < Exploration.REQUIRED_SPECIMEN_CONTAINERS) {
+
+			missionProbability = MissionPlanningContext.getContext(settlement).getValue(DEFAULT_DESCRIPTION,
+					() -> getSettlementProbability(settlement));
+			if (missionProbability < 0)
 				return 0;
-			}
-			
-			missionProbability = settlement.getMissionBaseProbability(DEFAULT_DESCRIPTION);
-	   		if (missionProbability <= 0)
-    			return 0;
-	   		
-			int numEmbarked = VehicleMission.numEmbarkingMissions(settlement);
-			int numThisMission = missionManager.numParticularMissions(DEFAULT_DESCRIPTION, settlement);
-	
-//			if (numThisMission > 1)	System.out.println(settlement + "  " + NAME + "'s numThisMission : " + numThisMission);
-//			if (numEmbarked > 1) System.out.println(settlement + "  " + NAME + "'s numEmbarked : " + numEmbarked);
-			
-	   		// Check for # of embarking missions.
-    		if (Math.max(1, settlement.getNumCitizens() / 8.0) < numEmbarked + numThisMission) {
-    			return 0;
-    		}	
-    		
-    		if (numThisMission > 1)
-    			return 0;	
-    		
-    		missionProbability = 0;
-
-			try {
-				// Get available rover.
-				Rover rover = (Rover) RoverMission.getVehicleWithGreatestRange(Exploration.missionType, settlement, false);
-				if (rover != null) {
-					// Check if any mineral locations within rover range and obtain their concentration
-					missionProbability = settlement.getTotalMineralValue(rover) / VALUE;
-					if (missionProbability < 0)
-						missionProbability = 0;
-				}
-				
-			} catch (Exception e) {
-				logger.log(Level.SEVERE, "Error determining mineral locations.", e);
-			}
 
-			int f1 = 2*numEmbarked + 1;
-			int f2 = 2*numThisMission + 1;
-			
-			missionProbability *= settlement.getNumCitizens() / f1 / f2 * ( 1 + settlement.getMissionDirectiveModifier(4));
-			
 			// Job modifier.
 			Job job = person.getMind().getJob();
 			if (job != null)
@@ -127,6 +88,63 @@ public class ExplorationMeta implements MetaMission {
 		return missionProbability;
 	}
 
+	/**
+	 * Gets the part of the mission probability that is the same for all the
+	 * members of a settlement.
+	 * 
+	 * @param settlement the settlement.
+	 * @return the probability or -1 if the mission can not start from the settlement.
+	 */
+	public double getSettlementProbability(Settlement settlement) {
+		
+		// 1. Check if there are enough specimen containers at the settlement for
+		// collecting rock samples.
+		if (settlement.getInventory().findNumSpecimenBoxes(true, true) < Exploration.REQUIRED_SPECIMEN_CONTAINERS) {
+			return -1;
+		}
+		
+		double missionProbability = settlement.getMissionBaseProbability(DEFAULT_DESCRIPTION);
+   		if (missionProbability <= 0)
+			return -1;
+   		
+		int numEmbarked = VehicleMission.numEmbarkingMissions(settlement);
+		int numThisMission = missionManager.numParticularMissions(DEFAULT_DESCRIPTION, settlement);
+
+//			if (numThisMission > 1)	System.out.println(settlement + "  " + NAME + "'s numThisMission : " + numThisMission);
+//			if (numEmbarked > 1) System.out.println(settlement + "  " + NAME + "'s numEmbarked : " + numEmbarked);
+		
+   		// Check for # of embarking missions.
+		if (Math.max(1, settlement.getNumCitizens() / 8.0) < numEmbarked + numThisMission) {
+			return -1;
+		}	
+		
+		if (numThisMission > 1)
+			return -1;	
+		
+		missionProbability = 0;
+
+		try {
+			// Get available rover.
+			Rover rover = (Rover) RoverMission.getVehicleWithGreatestRange(Exploration.missionType, settlement, false);
+			if (rover != null) {
+				// Check if any mineral locations within rover range and obtain their concentration
+				missionProbability = settlement.getTotalMineralValue(rover) / VALUE;
+				if (missionProbability < 0)
+					missionProbability = 0;
+			}
+			
+		} catch (Exception e) {
+			logger.log(Level.SEVERE, "Error determining mineral locations.", e);
+		}
+
+		int f1 = 2*numEmbarked + 1;
+		int f2 = 2*numThisMission + 1;
+		
+		missionProbability *= settlement.getNumCitizens() / f1 / f2 * ( 1 + settlement.getMissionDirectiveModifier(4));
+
+		return missionProbability;
+	}
+
 	@Override
 	public Mission constructInstance(Robot robot) {
 		// TODO Auto-generated method stub
@@ -15,6 +15,7 @@ import org.mars_sim.msp.core.person.Person;
 import org.mars_sim.msp.core.person.ai.job.Job;
 import org.mars_sim.msp.core.person.ai.mission.Mining;
 import org.mars_sim.msp.core.person.ai.mission.Mission;
+import org.mars_sim.msp.core.person.ai.mission.MissionPlanningContext;
 import org.mars_sim.msp.core.person.ai.mission.RoverMission;
 import org.mars_sim.msp.core.person.ai.mission.VehicleMission;
 import org.mars_sim.msp.core.robot.Robot;
@@ -56,70 +57,11 @@ public class MiningMeta implements MetaMission {
         	
         	Settlement settlement = person.getSettlement();
 
-            missionProbability = settlement.getMissionBaseProbability(DEFAULT_DESCRIPTION);
-       		if (missionProbability <= 0)
-    			return 0;
-       		
-            // Check if there are enough bags at the settlement for collecting minerals.
-            if (settlement.getInventory().findNumBags(true, true) < Mining.NUMBER_OF_LARGE_BAGS)
+            missionProbability = MissionPlanningContext.getContext(settlement).getValue(DEFAULT_DESCRIPTION,
+            		() -> getSettlementProbability(settlement));
+            if (missionProbability < 0)
             	return 0;
 
-            // Check if available light utility vehicles.
-            //boolean reservableLUV =
-            if (!Mining.isLUVAvailable(settlement))
-            	return 0;
-
-            // Check if LUV attachment parts available.
-            //boolean availableAttachmentParts =
-            if (!Mining.areAvailableAttachmentParts(settlement))
-            	return 0;
-
-			int numEmbarked = VehicleMission.numEmbarkingMissions(settlement);
-			int numThisMission = missionManager.numParticularMissions(DEFAULT_DESCRIPTION, settlement);
-	
-	   		// Check for # of embarking missions.
-    		if (Math.max(1, settlement.getNumCitizens() / 8.0) < numEmbarked + numThisMission) {
-    			return 0;
-    		}	
-    		
-    		if (numThisMission > 1)
-    			return 0;
-    		
-    		missionProbability = 0;
-    		
-            try {
-                // Get available rover.
-                Rover rover = (Rover) RoverMission.getVehicleWithGreatestRange(Mining.missionType,
-                        settlement, false);
-
-                if (rover != null) {
-                    // Find best mining site.
-                    ExploredLocation miningSite = Mining.determineBestMiningSite(
-                            rover, settlement);
-                    if (miningSite != null) {
-                        missionProbability = Mining.getMiningSiteValue(miningSite, settlement) / FACTOR;;
-    					if (missionProbability < 0)
-    						missionProbability = 0;
-                    }
-                    else // no mining site can be identified
-                    	return 0;
-                }
-            } catch (Exception e) {
-                logger.log(Level.SEVERE, "Error getting mining site.", e);
-            }
-
-            // Crowding modifier
-            int crowding = settlement.getIndoorPeopleCount()
-                    - settlement.getPopulationCapacity();
-            if (crowding > 0) {
-                missionProbability *= (crowding + 1);
-            }
-
-			int f1 = 2*numEmbarked + 1;
-			int f2 = 2*numThisMission + 1;
-			
-			missionProbability *= settlement.getNumCitizens() / f1 / f2 / 2D * ( 1 + settlement.getMissionDirectiveModifier(6));
-			
             // Job modifier.
             Job job = person.getMind().getJob();
             if (job != null) {
@@ -149,6 +91,82 @@ public class MiningMeta implements MetaMission {
         return missionProbability;
     }
 
+	/**
+	 * Gets the part of the mission probability that is the same for all the
+	 * members of a settlement.
+	 * 
+	 * @param settlement the settlement.
+	 * @return the probability or -1 if the mission can not start from the settlement.
+	 */
+	public double getSettlementProbability(Settlement settlement) {
+
+        double missionProbability = settlement.getMissionBaseProbability(DEFAULT_DESCRIPTION);
+   		if (missionProbability <= 0)
+			return -1;
+   		
+        // Check if there are enough bags at the settlement for collecting minerals.
+        if (settlement.getInventory().findNumBags(true, true) < Mining.NUMBER_OF_LARGE_BAGS)
+        	return -1;
+
+        // Check if available light utility vehicles.
+        //boolean reservableLUV =
+        if (!Mining.isLUVAvailable(settlement))
+        	return -1;
+
+        // Check if LUV attachment parts available.
+        //boolean availableAttachmentParts =
+        if (!Mining.areAvailableAttachmentParts(settlement))
+        	return -1;
+
+		int numEmbarked = VehicleMission.numEmbarkingMissions(settlement);
+		int numThisMission = missionManager.numParticularMissions(DEFAULT_DESCRIPTION, settlement);
+
+   		// Check for # of embarking missions.
+		if (Math.max(1, settlement.getNumCitizens() / 8.0) < numEmbarked + numThisMission) {
+			return -1;
+		}	
+		
+		if (numThisMission > 1)
+			return -1;
+		
+		missionProbability = 0;
+		
+        try {
+            // Get available rover.
+            Rover rover = (Rover) RoverMission.getVehicleWithGreatestRange(Mining.missionType,
+                    settlement, false);
+
+            if (rover != null) {
+                // Find best mining site.
+                ExploredLocation miningSite = Mining.determineBestMiningSite(
+                        rover, settlement);
+                if (miningSite != null) {
+                    missionProbability = Mining.getMiningSiteValue(miningSite, settlement) / FACTOR;;
+					if (missionProbability < 0)
+						missionProbability = 0;
+                }
+                else // no mining site can be identified
+                	return -1;
+            }
+        } catch (Exception e) {
+            logger.log(Level.SEVERE, "Error getting mining site.", e);
+        }
+
+        // Crowding modifier
+        int crowding = settlement.getIndoorPeopleCount()
+                - settlement.getPopulationCapacity();
+        if (crowding > 0) {
+            missionProbability *= (crowding + 1);
+        }
+
+		int f1 = 2*numEmbarked + 1;
+		int f2 = 2*numThisMission + 1;
+		
+		missionProbability *= settlement.getNumCitizens() / f1 / f2 / 2D * ( 1 + settlement.getMissionDirectiveModifier(6));
+
+		return missionProbability;
+	}
+
 	@Override
 	public Mission constructInstance(Robot robot) {
 		// TODO Auto-generated method stub
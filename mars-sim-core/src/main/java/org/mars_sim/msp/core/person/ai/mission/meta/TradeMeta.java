@@ -14,14 +14,13 @@ import org.mars_sim.msp.core.Simulation;
 import org.mars_sim.msp.core.person.Person;
 import org.mars_sim.msp.core.person.ai.job.Trader;
 import org.mars_sim.msp.core.person.ai.mission.Mission;
+import org.mars_sim.msp.core.person.ai.mission.MissionPlanningContext;
 import org.mars_sim.msp.core.person.ai.mission.RoverMission;
 import org.mars_sim.msp.core.person.ai.mission.Trade;
-import org.mars_sim.msp.core.person.ai.mission.Trade.TradeProfitInfo;
 import org.mars_sim.msp.core.person.ai.mission.TradeUtil;
 import org.mars_sim.msp.core.person.ai.mission.VehicleMission;
 import org.mars_sim.msp.core.robot.Robot;
 import org.mars_sim.msp.core.structure.Settlement;
-import org.mars_sim.msp.core.time.MarsClock;
 import org.mars_sim.msp.core.vehicle.Rover;
 
 /**
@@ -60,48 +59,26 @@ public class TradeMeta implements MetaMission {
 			// Check if mission is possible for person based on their circumstance.
 			Settlement settlement = person.getSettlement();
 
-			if (person.getMind().getJob() instanceof Trader) {
+			if (!(person.getMind().getJob() instanceof Trader))
+				return 0;
 
-				try {
-					// TODO: checkMission() gives rise to a NULLPOINTEREXCEPTION that points to
-					// Inventory
-					// It happens only when this sim is a loaded saved sim.
-					missionProbability = getSettlementProbability(settlement);
+			try {
+				// TODO: checkMission() gives rise to a NULLPOINTEREXCEPTION that points to
+				// Inventory
+				// It happens only when this sim is a loaded saved sim.
+				missionProbability = MissionPlanningContext.getContext(settlement).getValue(DEFAULT_DESCRIPTION,
+						() -> getPlanningProbability(settlement));
 
-				} catch (Exception e) {
-					logger.log(Level.SEVERE,
-							person + " can't compute the exact need for trading now at " + settlement + ". ", e);
-					e.printStackTrace();
+			} catch (Exception e) {
+				logger.log(Level.SEVERE,
+						person + " can't compute the exact need for trading now at " + settlement + ". ", e);
+				e.printStackTrace();
 
-					missionProbability = 0D;
-				}
-				
-			} else {
-				missionProbability = 0;
+				missionProbability = -1;
 			}
 			
-    		if (missionProbability <= 0)
-    			return 0;
-    		
-			int numEmbarked = VehicleMission.numEmbarkingMissions(settlement);
-			int numThisMission = Simulation.instance().getMissionManager().numParticularMissions(DEFAULT_DESCRIPTION, settlement);
-	
-	   		// Check for # of embarking missions.
-    		if (Math.max(1, settlement.getNumCitizens()) / 8.0 < numEmbarked + numThisMission) {
+    		if (missionProbability < 0)
     			return 0;
-    		}		
-    		
-    		if (numThisMission > 1)
-    			return 0;	
-    		
-
-			int f1 = 2*numEmbarked + 1;
-			int f2 = 2*numThisMission + 1;
-			
-			missionProbability *= settlement.getNumCitizens() / f1 / f2 / 2D * ( 1 + settlement.getMissionDirectiveModifier(7));
-		
-			if (missionProbability > Trade.MAX_STARTING_PROBABILITY)
-				missionProbability = Trade.MAX_STARTING_PROBABILITY;
 			
 			// if introvert, score  0 to  50 --> -2 to 0
 			// if extrovert, score 50 to 100 -->  0 to 2
@@ -121,6 +98,41 @@ public class TradeMeta implements MetaMission {
 		return missionProbability;
 	}
 
+	/**
+	 * Gets the part of the mission probability that is the same for all the
+	 * traders of a settlement.
+	 * 
+	 * @param settlement the settlement.
+	 * @return the probability or -1 if the mission can not start from the settlement.
+	 */
+	private double getPlanningProbability(Settlement settlement) {
+
+		double missionProbability = getSettlementProbability(settlement);
+		if (missionProbability <= 0)
+			return -1;
+
+		int numEmbarked = VehicleMission.numEmbarkingMissions(settlement);
+		int numThisMission = Simulation.instance().getMissionManager().numParticularMissions(DEFAULT_DESCRIPTION, settlement);
+
+		// Check for # of embarking missions.
+		if (Math.max(1, settlement.getNumCitizens()) / 8.0 < numEmbarked + numThisMission) {
+			return -1;
+		}
+
+		if (numThisMission > 1)
+			return -1;
+
+		int f1 = 2*numEmbarked + 1;
+		int f2 = 2*numThisMission + 1;
+
+		missionProbability *= settlement.getNumCitizens() / f1 / f2 / 2D * ( 1 + settlement.getMissionDirectiveModifier(7));
+
+		if (missionProbability > Trade.MAX_STARTING_PROBABILITY)
+			missionProbability = Trade.MAX_STARTING_PROBABILITY;
+
+		return missionProbability;
+	}
+
 	@Override
 	public Mission constructInstance(Robot robot) {
 		return null;// new Trade(robot);
@@ -145,34 +157,9 @@ public class TradeMeta implements MetaMission {
 		try {
 			Rover rover = (Rover) RoverMission.getVehicleWithGreatestRange(Trade.missionType, settlement, false);
 			if (rover != null) {
-				// Only check every couple of Sols, else use cache.
-				// Note: this method is very CPU intensive.
-				boolean useCache = false;
-
-				if (Trade.TRADE_PROFIT_CACHE.containsKey(settlement)) {
-					TradeProfitInfo profitInfo = Trade.TRADE_PROFIT_CACHE.get(settlement);
-					double timeDiff = MarsClock.getTimeDiff(marsClock, profitInfo.time);
-					if (timeDiff < 2000D) {
-						tradeProfit = profitInfo.profit;
-						useCache = true;
-					}
-				} else {
-					Trade.TRADE_PROFIT_CACHE.put(settlement,
-							new TradeProfitInfo(tradeProfit, (MarsClock) marsClock.clone()));
-					useCache = true;
-				}
-
-				if (!useCache) {
-//					double startTime = System.currentTimeMillis();
-					tradeProfit = TradeUtil.getBestTradeProfit(settlement, rover);
-//					double endTime = System.currentTimeMillis();
-//					logger.info("[" + settlement.getName() + "] " // getBestTradeProfit: " + (endTime - startTime)
-//					// + " milliseconds "
-//							+ " Profit: " + (int) tradeProfit + " VP");
-					Trade.TRADE_PROFIT_CACHE.put(settlement,
-							new TradeProfitInfo(tradeProfit, (MarsClock) marsClock.clone()));
-					Trade.TRADE_SETTLEMENT_CACHE.put(settlement, TradeUtil.bestTradeSettlementCache);
-				}
+				// Note: the trade market only works out again the trade
+				// opportunities whose goods values have changed.
+				tradeProfit = TradeUtil.getBestTradeProfit(settlement, rover);
 			}
 		} catch (Exception e) {
 			if (person != null)
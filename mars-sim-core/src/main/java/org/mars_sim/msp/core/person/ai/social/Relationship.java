@@ -17,6 +17,8 @@ import org.mars_sim.msp.core.tool.RandomUtil;
 
 /**
  * The Relationship class represents a social relationship between two people.
+ * It is a view over the opinions the two people hold of each other in the
+ * relationship matrix of the relationship manager.
  */
 public class Relationship implements Serializable {
 
@@ -38,38 +40,53 @@ public class Relationship implements Serializable {
 	private static final double SETTLER_MODIFIER = 20D;
 
 	// Data members
+	private RelationshipMatrix matrix;
 	private int person1;
-	private double person1Opinion;
 	private int person2;
-	private double person2Opinion;
 
 	/**
 	 * Constructor.
 	 * 
-	 * @param person1              the first person in the relationship (order
-	 *                             really isn't important)
+	 * @param matrix  the relationship matrix holding the opinions.
+	 * @param person1 the first person in the relationship (order really isn't
+	 *                important)
+	 * @param person2 the second person in the relationship
+	 */
+	Relationship(RelationshipMatrix matrix, int person1, int person2) {
+		this.matrix = matrix;
+		this.person1 = person1;
+		this.person2 = person2;
+	}
+
+	/**
+	 * Gets the starting opinions of two people of each other.
+	 * 
+	 * @param person1              the first person in the relationship
 	 * @param person2              the second person in the relationship
 	 * @param startingRelationship the type of starting relationship (see static
 	 *                             strings above)
+	 * @return person 1's opinion of person 2 and person 2's opinion of person 1,
+	 *         as values from 0 to 100.
 	 * @throws IllegalArgumentException if invalid parameters
 	 */
-	Relationship(Person person1, Person person2, String startingRelationship) throws IllegalArgumentException {
-
-		// Initialize data members
-		this.person1 = person1.getIdentifier();
-		this.person2 = person2.getIdentifier();
-
+	static double[] getStartingOpinions(Person person1, Person person2, String startingRelationship)
+			throws IllegalArgumentException {
+		double[] result = new double[2];
 		if (FIRST_IMPRESSION.equals(startingRelationship)) {
-			setPerson1Opinion(getFirstImpression(person1, person2));
-			setPerson2Opinion(getFirstImpression(person2, person1));
+			result[0] = getFirstImpression(person1, person2);
+			result[1] = getFirstImpression(person2, person1);
 		} else if (EXISTING_RELATIONSHIP.equals(startingRelationship)) {
-			setPerson1Opinion(getExistingRelationship(person1, person2));
-			setPerson2Opinion(getExistingRelationship(person2, person1));
+			result[0] = getExistingRelationship(person1, person2);
+			result[1] = getExistingRelationship(person2, person1);
 		} else if (COMMUNICATION_MEETING.equals(startingRelationship)) {
-			setPerson1Opinion(getCommunicationMeeting(person1, person2));
-			setPerson2Opinion(getCommunicationMeeting(person2, person1));
+			result[0] = getCommunicationMeeting(person1, person2);
+			result[1] = getCommunicationMeeting(person2, person1);
 		} else
 			throw new IllegalArgumentException("Invalid starting relationship type: " + startingRelationship);
+
+		result[0] = clampOpinion(result[0]);
+		result[1] = clampOpinion(result[1]);
+		return result;
 	}
 
 	/**
@@ -98,29 +115,17 @@ public class Relationship implements Serializable {
 	}
 
 	/**
-	 * Sets person 1's opinion of person 2
-	 * 
-	 * @param opinion person 1's opinion as a value from 0 to 100.
-	 */
-	private void setPerson1Opinion(double opinion) {
-		person1Opinion = opinion;
-		if (person1Opinion < 0D)
-			person1Opinion = 0D;
-		if (person1Opinion > 100D)
-			person1Opinion = 100D;
-	}
-
-	/**
-	 * Sets person 2's opinion of person 1
+	 * Keeps an opinion between 0 and 100.
 	 * 
-	 * @param opinion person 2's opinion as a value from 0 to 100.
+	 * @param opinion the opinion.
+	 * @return the opinion as a value from 0 to 100.
 	 */
-	private void setPerson2Opinion(double opinion) {
-		person2Opinion = opinion;
-		if (person2Opinion < 0D)
-			person2Opinion = 0D;
-		if (person2Opinion > 100D)
-			person2Opinion = 100D;
+	static double clampOpinion(double opinion) {
+		if (opinion < 0D)
+			return 0D;
+		if (opinion > 100D)
+			return 100D;
+		return opinion;
 	}
 
 	/**
@@ -133,9 +138,9 @@ public class Relationship implements Serializable {
 	 */
 	public double getPersonOpinion(Person person) throws IllegalArgumentException {
 		if (person.getIdentifier() == person1)
-			return person1Opinion;
+			return matrix.get(person1, person2);
 		else if (person.getIdentifier() == person2)
-			return person2Opinion;
+			return matrix.get(person2, person1);
 		else
 			throw new IllegalArgumentException("Invalid person: " + person);
 	}
@@ -151,9 +156,9 @@ public class Relationship implements Serializable {
 	 */
 	public void setPersonOpinion(Person person, double opinion) throws IllegalArgumentException {
 		if (person.getIdentifier() == person1)
-			setPerson1Opinion(opinion);
+			matrix.set(person1, person2, clampOpinion(opinion));
 		else if (person.getIdentifier() == person2)
-			setPerson2Opinion(opinion);
+			matrix.set(person2, person1, clampOpinion(opinion));
 		else
 			throw new IllegalArgumentException("Invalid person: " + person);
 	}
@@ -165,7 +170,7 @@ public class Relationship implements Serializable {
 	 * @param impressionee the person who's the object of the impression.
 	 * @return the opinion of the impressioner as a value from 0 to 100.
 	 */
-	private double getFirstImpression(Person impressioner, Person impressionee) {
+	private static double getFirstImpression(Person impressioner, Person impressionee) {
 		double result = 0D;
 
 		// Random with bell curve around 50.
@@ -209,7 +214,7 @@ public class Relationship implements Serializable {
 	 * @param target the person who is the target of the relationship.
 	 * @return the person's opinion of the target as a value from 0 to 100.
 	 */
-	private double getExistingRelationship(Person person, Person target) {
+	private static double getExistingRelationship(Person person, Person target) {
 		double result = 0D;
 
 		// Random with bell curve around 50.
@@ -262,7 +267,7 @@ public class Relationship implements Serializable {
 	 * @param target the person who is the target of the relationship.
 	 * @return the person's opinion of the target as a value from 0 to 100.
 	 */
-	private double getCommunicationMeeting(Person person, Person target) {
+	private static double getCommunicationMeeting(Person person, Person target) {
 		double result = 0D;
 
 		// Default to 50 for now.
@@ -9,11 +9,10 @@ package org.mars_sim.msp.core.person.ai.social;
 import java.io.Serializable;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Comparator;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.CopyOnWriteArrayList;
@@ -27,15 +26,11 @@ import org.mars_sim.msp.core.person.PhysicalCondition;
 import org.mars_sim.msp.core.person.ai.MBTIPersonality;
 import org.mars_sim.msp.core.person.ai.NaturalAttributeType;
 import org.mars_sim.msp.core.structure.Settlement;
+import org.mars_sim.msp.core.structure.building.Building;
+import org.mars_sim.msp.core.structure.building.BuildingManager;
+import org.mars_sim.msp.core.structure.building.function.FunctionType;
 import org.mars_sim.msp.core.tool.RandomUtil;
-
-import com.phoenixst.plexus.DefaultGraph;
-import com.phoenixst.plexus.EdgePredicate;
-import com.phoenixst.plexus.EdgePredicateFactory;
-import com.phoenixst.plexus.Graph;
-import com.phoenixst.plexus.GraphUtils;
-import com.phoenixst.plexus.NoSuchNodeException;
-import com.phoenixst.plexus.Traverser;
+import org.mars_sim.msp.core.vehicle.Crewable;
 
 /**
  * The RelationshipManager class keeps track of all the social relationships
@@ -73,8 +68,8 @@ public class RelationshipManager implements Serializable {
 	 */
 	private static final double SETTLER_MODIFIER = .02D;
 
-	/** The relationship graph. */
-	private Graph relationshipGraph;
+	/** The opinions people have of each other, by settlement. */
+	private RelationshipMatrix relationshipMatrix;
 	
 	private static UnitManager unitManager;
 
@@ -82,9 +77,9 @@ public class RelationshipManager implements Serializable {
 	 * Constructor
 	 */
 	public RelationshipManager() {
-		// Create new graph for relationships.
-		if (relationshipGraph == null)
-			relationshipGraph = new DefaultGraph();
+		// Create new matrix for relationships.
+		if (relationshipMatrix == null)
+			relationshipMatrix = new RelationshipMatrix();
 	}
 
 	/**
@@ -120,8 +115,7 @@ public class RelationshipManager implements Serializable {
 		if ((person == null) || (initialGroup == null))
 			throw new IllegalArgumentException("RelationshipManager.addPerson(): null parameter.");
 	
-		if (!relationshipGraph.containsNode(person.getIdentifier())) {
-			relationshipGraph.addNode(person.getIdentifier());
+		if (relationshipMatrix.addPerson(person.getIdentifier(), getSettlementID(person))) {
 			Iterator<Person> i = initialGroup.iterator();
 			while (i.hasNext()) {
 				Person person2 = i.next();
@@ -145,12 +139,22 @@ public class RelationshipManager implements Serializable {
 	 *                         members)
 	 */
 	public void addRelationship(Person person1, Person person2, String relationshipType) {
-		try {
-			Relationship relationship = new Relationship(person1, person2, relationshipType);
-			relationshipGraph.addEdge(relationship, person1.getIdentifier(), person2.getIdentifier(), false);
-		} catch (NoSuchNodeException e) {
-			e.printStackTrace();
-		}
+		double[] opinions = Relationship.getStartingOpinions(person1, person2, relationshipType);
+		// People met before being added, e.g. through the configured relationships
+		relationshipMatrix.addPerson(person1.getIdentifier(), getSettlementID(person1));
+		relationshipMatrix.addPerson(person2.getIdentifier(), getSettlementID(person2));
+		relationshipMatrix.put(person1.getIdentifier(), person2.getIdentifier(), opinions[0], opinions[1]);
+	}
+
+	/**
+	 * Gets the identifier of the settlement a person is associated with.
+	 * 
+	 * @param person the person
+	 * @return the settlement identifier or -1 if none.
+	 */
+	private static int getSettlementID(Person person) {
+		Settlement settlement = person.getAssociatedSettlement();
+		return (settlement != null) ? settlement.getIdentifier() : -1;
 	}
 
 	/**
@@ -161,9 +165,7 @@ public class RelationshipManager implements Serializable {
 	 * @return true if the two people have a relationship
 	 */
 	public boolean hasRelationship(Person person1, Person person2) {
-		EdgePredicate edgePredicate = EdgePredicateFactory.createEqualsNodes(person1.getIdentifier(), person2.getIdentifier(),
-				GraphUtils.UNDIRECTED_MASK);
-		return (relationshipGraph.getEdge(edgePredicate) != null);
+		return !Double.isNaN(relationshipMatrix.get(person1.getIdentifier(), person2.getIdentifier()));
 	}
 
 	/**
@@ -175,11 +177,8 @@ public class RelationshipManager implements Serializable {
 	 */
 	public Relationship getRelationship(Person person1, Person person2) {
 		Relationship result = null;
-		if (hasRelationship(person1, person2)) {
-			EdgePredicate edgePredicate = EdgePredicateFactory.createEqualsNodes(person1.getIdentifier(), person2.getIdentifier(),
-					GraphUtils.UNDIRECTED_MASK);
-			result = (Relationship) relationshipGraph.getEdge(edgePredicate).getUserObject();
-		}
+		if (hasRelationship(person1, person2))
+			result = new Relationship(relationshipMatrix, person1.getIdentifier(), person2.getIdentifier());
 		return result;
 	}
 
@@ -190,15 +189,10 @@ public class RelationshipManager implements Serializable {
 	 * @return a list of the person's Relationship objects.
 	 */
 	public List<Relationship> getAllRelationships(Person person) {
-//		if (allRelationshipList == null) {
-		 List<Relationship> allRelationshipList = new CopyOnWriteArrayList<Relationship>();
-			Traverser traverser = relationshipGraph.traverser(person.getIdentifier(), GraphUtils.UNDIRECTED_TRAVERSER_PREDICATE);
-			while (traverser.hasNext()) {
-				traverser.next();
-				Relationship relationship = (Relationship) traverser.getEdge().getUserObject();
-				allRelationshipList.add(relationship);
-			}
-//		}
+		List<Relationship> allRelationshipList = new CopyOnWriteArrayList<Relationship>();
+		for (int knownID : relationshipMatrix.getKnownPeople(person.getIdentifier())) {
+			allRelationshipList.add(new Relationship(relationshipMatrix, person.getIdentifier(), knownID));
+		}
 		return allRelationshipList;
 	}
 
@@ -210,10 +204,10 @@ public class RelationshipManager implements Serializable {
 	 */
 	public Collection<Person> getAllKnownPeople(Person person) {
 		Collection<Person> result = new ConcurrentLinkedQueue<Person>();
-		Traverser traverser = relationshipGraph.traverser(person.getIdentifier(), GraphUtils.UNDIRECTED_TRAVERSER_PREDICATE);
-		while (traverser.hasNext()) {
-			Person knownPerson = unitManager.getPersonByID((Integer)traverser.next());
-			result.add(knownPerson);
+		for (int knownID : relationshipMatrix.getKnownPeople(person.getIdentifier())) {
+			Person knownPerson = unitManager.getPersonByID(knownID);
+			if (knownPerson != null)
+				result.add(knownPerson);
 		}
 		return result;
 	}
@@ -225,21 +219,13 @@ public class RelationshipManager implements Serializable {
 	 * @return {@link Person} map
 	 */
 	public Map<Person, Double> getMyOpinionsOfThem(Person person) {
-		Map<Person, Double> friends = new ConcurrentHashMap<>();
-		Collection<Person> list = getAllKnownPeople(person);
-//		System.out.println("list : " + list);
-		double highestScore = 0;
-//		double nextScore = 0;	
-		if (!list.isEmpty()) {
-			for (Person pp : list) {
-				double score = getOpinionOfPerson(person, pp);
-				if (highestScore <= score)
-					highestScore = score;
-					friends.put(pp, score);
-			}
-		}
-
-		return sortByValue(friends);
+		Map<Person, Double> friends = new HashMap<>();
+		relationshipMatrix.visit(person.getIdentifier(), (otherID, myOpinion, theirOpinion) -> {
+			Person other = unitManager.getPersonByID(otherID);
+			if (other != null)
+				friends.put(other, myOpinion);
+		});
+		return friends;
 	}
 	
 	/**
@@ -249,45 +235,13 @@ public class RelationshipManager implements Serializable {
 	 * @return {@link Person} map
 	 */
 	public Map<Person, Double> getTheirOpinionsOfMe(Person person) {
-		Map<Person, Double> friends = new ConcurrentHashMap<>();
-		Collection<Person> list = getAllKnownPeople(person);
-//		System.out.println("list : " + list);
-		double highestScore = 0;
-//		double nextScore = 0;	
-		if (!list.isEmpty()) {
-			for (Person pp : list) {
-				double score = getOpinionOfPerson(pp, person);
-				if (highestScore <= score)
-					highestScore = score;
-					friends.put(pp, score);
-			}
-		}
-
-		return sortByValue(friends);
-	}
-	
-	/**
-	 * Sorts the map according to the value of each entry
-	 * 
-	 * @param map
-	 * @return a map
-	 */
-	private static <K, V> Map<K, V> sortByValue(Map<K, V> map) {
-	    List<Entry<K, V>> list = new CopyOnWriteArrayList<>(map.entrySet());
-	    Collections.sort(list, new Comparator<Object>() {
-	        @SuppressWarnings("unchecked")
-	        public int compare(Object o1, Object o2) {
-	            return ((Comparable<V>) ((Map.Entry<K, V>) (o1)).getValue()).compareTo(((Map.Entry<K, V>) (o2)).getValue());
-	        }
-	    });
-
-	    Map<K, V> result = new ConcurrentHashMap<>();
-	    for (Iterator<Entry<K, V>> it = list.iterator(); it.hasNext();) {
-	        Map.Entry<K, V> entry = (Map.Entry<K, V>) it.next();
-	        result.put(entry.getKey(), entry.getValue());
-	    }
-
-	    return result;
+		Map<Person, Double> friends = new HashMap<>();
+		relationshipMatrix.visit(person.getIdentifier(), (otherID, myOpinion, theirOpinion) -> {
+			Person other = unitManager.getPersonByID(otherID);
+			if (other != null)
+				friends.put(other, Double.isNaN(theirOpinion) ? 50D : theirOpinion);
+		});
+		return friends;
 	}
 	
 	/**
@@ -338,12 +292,9 @@ public class RelationshipManager implements Serializable {
 	 *         friend).
 	 */
 	public double getOpinionOfPerson(Person person1, Person person2) {
-		double result = 50D;
-
-		if (hasRelationship(person1, person2)) {
-			Relationship relationship = getRelationship(person1, person2);
-			result = relationship.getPersonOpinion(person1);
-		}
+		double result = relationshipMatrix.get(person1.getIdentifier(), person2.getIdentifier());
+		if (Double.isNaN(result))
+			result = 50D;
 
 		return result;
 	}
@@ -386,129 +337,133 @@ public class RelationshipManager implements Serializable {
 	 */
 	public void timePassing(Person person, double time) {
 
-		// Update the person's relationships.
-		updateRelationships(person, time);
+		// Keep the person with the people of its settlement
+		relationshipMatrix.setSettlement(person.getIdentifier(), getSettlementID(person));
+
+		double personStress = person.getPhysicalCondition().getStress();
+		double stressModifier = 0D;
+
+		// Go through the local people once
+		for (Person localPerson : getLocalPeople(person)) {
+			if (localPerson != person) {
+				// Update the person's relationship.
+				updateRelationship(person, localPerson, personStress, time);
+
+				// The relationship adds to or takes from the person's stress
+				stressModifier -= ((getOpinionOfPerson(person, localPerson) - 50D) / 50D);
+			}
+		}
 
 		// Modify the person's stress based on relationships with local people.
-		modifyStress(person, time);
+		stressModifier = stressModifier * BASE_STRESS_MODIFIER * time;
+		PhysicalCondition condition = person.getPhysicalCondition();
+		condition.setStress(condition.getStress() + stressModifier);
 	}
 
 	/**
-	 * Updates the person's relationships
+	 * Gets the people around a person, including the person, as
+	 * {@link Person#getLocalGroup()} but without copying them.
 	 * 
-	 * @param person the person to update
-	 * @param time   the time passing (millisols)
-	 * @throws Exception if error
+	 * @param person the person
+	 * @return the people, not to be changed.
 	 */
-	private void updateRelationships(Person person, double time) {
-
-		double personStress = person.getPhysicalCondition().getStress();
-
-		// Get the person's local group of people.
-		Collection<Person> localGroup = person.getLocalGroup();
-
-		// Go through each person in local group.
-		Iterator<Person> i = localGroup.iterator();
-//		int count2 = 0;
-		while (i.hasNext()) {
-			Person localPerson = i.next();
-			double localPersonStress = localPerson.getPhysicalCondition().getStress();
-
-			// Check if new relationship.
-			if (!hasRelationship(person, localPerson)) {
-				addRelationship(person, localPerson, Relationship.EXISTING_RELATIONSHIP);
-
-				if (logger.isLoggable(Level.FINEST)) {
-					logger.finest(
-							person.getName() + " and " + localPerson.getName() + " meet for the first time.");
-				}
-			}
-
-			// Determine probability of relationship change per millisol.
-			double changeProbability = BASE_RELATIONSHIP_CHANGE_PROBABILITY * time;
-			double stressProbModifier = 1D + ((personStress + localPersonStress) / 100D);
-			if (RandomUtil.lessThanRandPercent(changeProbability * stressProbModifier)) {
-
-				// Randomly determine change amount (negative or positive)
-				double changeAmount = RandomUtil.getRandomDouble(BASE_RELATIONSHIP_CHANGE_AMOUNT) * time;
-				if (RandomUtil.lessThanRandPercent(50))
-					changeAmount = 0 - changeAmount;
-
-				// Modify based on difference in other person's opinion.
-				double otherOpinionModifier = (getOpinionOfPerson(localPerson, person)
-						- getOpinionOfPerson(person, localPerson)) / 100D;
-				otherOpinionModifier *= BASE_OPINION_MODIFIER * time;
-				changeAmount += RandomUtil.getRandomDouble(otherOpinionModifier);
-
-				// Modify based on the conversation attribute of other person.
-				double conversation = localPerson.getNaturalAttributeManager()
-						.getAttribute(NaturalAttributeType.CONVERSATION);
-				double conversationModifier = (conversation - 50D) / 50D;
-				conversationModifier *= BASE_CONVERSATION_MODIFIER * time;
-				changeAmount += RandomUtil.getRandomDouble(conversationModifier);
-
-				// Modify based on attractiveness attribute if people are of opposite genders.
-				// Note: We may add sexual orientation later that will add further complexity to
-				// this.
-				double attractiveness = localPerson.getNaturalAttributeManager()
-						.getAttribute(NaturalAttributeType.ATTRACTIVENESS);
-				double attractivenessModifier = (attractiveness - 50D) / 50D;
-				attractivenessModifier *= BASE_ATTRACTIVENESS_MODIFIER * time;
-				boolean oppositeGenders = (!person.getGender().equals(localPerson.getGender()));
-				if (oppositeGenders)
-					RandomUtil.getRandomDouble(changeAmount += attractivenessModifier);
-
-				// Modify based on same-gender bonding.
-				double genderBondingModifier = BASE_GENDER_BONDING_MODIFIER * time;
-				if (!oppositeGenders)
-					RandomUtil.getRandomDouble(changeAmount += genderBondingModifier);
-
-				// Modify based on personality differences.
-				MBTIPersonality personPersonality = person.getMind().getMBTI();
-				MBTIPersonality localPersonality = localPerson.getMind().getMBTI();
-				double personalityDiffModifier = (2D
-						- (double) personPersonality.getPersonalityDifference(localPersonality.getTypeString())) / 2D;
-				personalityDiffModifier *= PERSONALITY_DIFF_MODIFIER * time;
-				changeAmount += RandomUtil.getRandomDouble(personalityDiffModifier);
-
-				// Modify based on settlers being trained to get along with each other.
-				double settlerModifier = SETTLER_MODIFIER * time;
-				changeAmount += RandomUtil.getRandomDouble(settlerModifier);
-
-				// Modify magnitude based on the collective stress of the two people.
-				double stressChangeModifier = 1 + ((personStress + localPersonStress) / 100D);
-				changeAmount *= stressChangeModifier;
-
-				// Change the person's opinion of the other person.
-				Relationship relationship = getRelationship(person, localPerson);
-				if (relationship != null)
-					relationship.setPersonOpinion(person, relationship.getPersonOpinion(person) + changeAmount);
-				if (logger.isLoggable(Level.FINEST)) {
-					logger.finest(person.getName() + " has changed opinion of " + localPerson.getName() + " by "
-							+ changeAmount);
-				}
-			}
+	private static Collection<Person> getLocalPeople(Person person) {
+		if (person.isInSettlement()) {
+			Building building = BuildingManager.getBuilding(person);
+			if ((building != null) && building.hasFunction(FunctionType.LIFE_SUPPORT))
+				return building.getLifeSupport().getOccupantsView();
+		} else if (person.isInVehicle()) {
+			return ((Crewable) person.getVehicle()).getCrew();
 		}
-//		count2++;
+		return Collections.emptyList();
 	}
 
 	/**
-	 * Modifies the person's stress based on relationships with local people.
+	 * Updates the person's relationship with a local person.
 	 * 
-	 * @param person the person
-	 * @param time   the time passing (millisols)
-	 * @throws Exception if error
+	 * @param person       the person to update
+	 * @param localPerson  the local person
+	 * @param personStress the stress of the person
+	 * @param time         the time passing (millisols)
 	 */
-	private void modifyStress(Person person, double time) {
-		double stressModifier = 0D;
+	private void updateRelationship(Person person, Person localPerson, double personStress, double time) {
+		double localPersonStress = localPerson.getPhysicalCondition().getStress();
 
-		Iterator<Person> i = person.getLocalGroup().iterator();
-		while (i.hasNext())
-			stressModifier -= ((getOpinionOfPerson(person, i.next()) - 50D) / 50D);
+		// Check if new relationship.
+		if (!hasRelationship(person, localPerson)) {
+			addRelationship(person, localPerson, Relationship.EXISTING_RELATIONSHIP);
 
-		stressModifier = stressModifier * BASE_STRESS_MODIFIER * time;
-		PhysicalCondition condition = person.getPhysicalCondition();
-		condition.setStress(condition.getStress() + stressModifier);
+			if (logger.isLoggable(Level.FINEST)) {
+				logger.finest(
+						person.getName() + " and " + localPerson.getName() + " meet for the first time.");
+			}
+		}
+
+		// Determine probability of relationship change per millisol.
+		double changeProbability = BASE_RELATIONSHIP_CHANGE_PROBABILITY * time;
+		double stressProbModifier = 1D + ((personStress + localPersonStress) / 100D);
+		if (RandomUtil.lessThanRandPercent(changeProbability * stressProbModifier)) {
+
+			// Randomly determine change amount (negative or positive)
+			double changeAmount = RandomUtil.getRandomDouble(BASE_RELATIONSHIP_CHANGE_AMOUNT) * time;
+			if (RandomUtil.lessThanRandPercent(50))
+				changeAmount = 0 - changeAmount;
+
+			// Modify based on difference in other person's opinion.
+			double otherOpinionModifier = (getOpinionOfPerson(localPerson, person)
+					- getOpinionOfPerson(person, localPerson)) / 100D;
+			otherOpinionModifier *= BASE_OPINION_MODIFIER * time;
+			changeAmount += RandomUtil.getRandomDouble(otherOpinionModifier);
+
+			// Modify based on the conversation attribute of other person.
+			double conversation = localPerson.getNaturalAttributeManager()
+					.getAttribute(NaturalAttributeType.CONVERSATION);
+			double conversationModifier = (conversation - 50D) / 50D;
+			conversationModifier *= BASE_CONVERSATION_MODIFIER * time;
+			changeAmount += RandomUtil.getRandomDouble(conversationModifier);
+
+			// Modify based on attractiveness attribute if people are of opposite genders.
+			// Note: We may add sexual orientation later that will add further complexity to
+			// this.
+			double attractiveness = localPerson.getNaturalAttributeManager()
+					.getAttribute(NaturalAttributeType.ATTRACTIVENESS);
+			double attractivenessModifier = (attractiveness - 50D) / 50D;
+			attractivenessModifier *= BASE_ATTRACTIVENESS_MODIFIER * time;
+			boolean oppositeGenders = (!person.getGender().equals(localPerson.getGender()));
+			if (oppositeGenders)
+				RandomUtil.getRandomDouble(changeAmount += attractivenessModifier);
+
+			// Modify based on same-gender bonding.
+			double genderBondingModifier = BASE_GENDER_BONDING_MODIFIER * time;
+			if (!oppositeGenders)
+				RandomUtil.getRandomDouble(changeAmount += genderBondingModifier);
+
+			// Modify based on personality differences.
+			MBTIPersonality personPersonality = person.getMind().getMBTI();
+			MBTIPersonality localPersonality = localPerson.getMind().getMBTI();
+			double personalityDiffModifier = (2D
+					- (double) personPersonality.getPersonalityDifference(localPersonality.getTypeString())) / 2D;
+			personalityDiffModifier *= PERSONALITY_DIFF_MODIFIER * time;
+			changeAmount += RandomUtil.getRandomDouble(personalityDiffModifier);
+
+			// Modify based on settlers being trained to get along with each other.
+			double settlerModifier = SETTLER_MODIFIER * time;
+			changeAmount += RandomUtil.getRandomDouble(settlerModifier);
+
+			// Modify magnitude based on the collective stress of the two people.
+			double stressChangeModifier = 1 + ((personStress + localPersonStress) / 100D);
+			changeAmount *= stressChangeModifier;
+
+			// Change the person's opinion of the other person.
+			double opinion = relationshipMatrix.get(person.getIdentifier(), localPerson.getIdentifier());
+			if (!Double.isNaN(opinion))
+				relationshipMatrix.set(person.getIdentifier(), localPerson.getIdentifier(),
+						Relationship.clampOpinion(opinion + changeAmount));
+			if (logger.isLoggable(Level.FINEST)) {
+				logger.finest(person.getName() + " has changed opinion of " + localPerson.getName() + " by "
+						+ changeAmount);
+			}
+		}
 	}
 
 	/**
@@ -568,7 +523,7 @@ public class RelationshipManager implements Serializable {
 	 * Prepare object for garbage collection.
 	 */
 	public void destroy() {
-		relationshipGraph = null;
+		relationshipMatrix = null;
 	}
 
 }
@@ -0,0 +1,480 @@
+/**
+ * Mars Simulation Project
+ * RelationshipMatrix.java
+ * @version 3.1.2 2026-10-17
+ * @author agent
+ */
+package org.mars_sim.msp.core.person.ai.social;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.mars_sim.msp.core.Unit;
+
+/**
+ * The opinions people have of each other. The people of a settlement each have
+ * a slot in a block of the settlement, and the opinions between them are kept
+ * in a square matrix of floats indexed by their slots. The opinions between
+ * people of different settlements, who meet less often, are kept by pair
+ * instead, with an index of the pairs of each person. When a person changes
+ * settlement, its opinions of the people of the old one go to the pairs and
+ * those of the people of the new one come back from them. An opinion that is
+ * not a number means there is no relationship.
+ * <p>
+ * Each block has its own lock, so the people of different settlements do not
+ * wait on each other. The lock of the matrix is taken to add people, to move
+ * them between blocks and for the pairs, and always before that of a block.
+ * The block of a person only changes under both locks, so a read of it
+ * without any lock is checked again once the lock of the block is held.
+ */
+final class RelationshipMatrix implements Serializable {
+
+	/** default serial id. */
+	private static final long serialVersionUID = 1L;
+
+	/** The people added, by person identifier less the first one. */
+	private final BitSet added = new BitSet();
+	/** The block of each settlement, by settlement identifier. */
+	private final Map<Integer, Block> blocks = new HashMap<>();
+	/** The block of each person, by person identifier less the first one. */
+	private volatile Block[] personBlocks = new Block[0];
+	/** The slot of each person in its block. */
+	private volatile int[] personSlots = new int[0];
+	/** The opinions between people of different settlements, by pair. */
+	private final Map<Long, float[]> overflow = new HashMap<>();
+	/**
+	 * The people each person has a pair with, by person identifier, as person
+	 * identifiers less the first one.
+	 */
+	private final Map<Integer, BitSet> overflowIndex = new ConcurrentHashMap<>();
+
+	/**
+	 * Visits the relationships of a person.
+	 */
+	interface OpinionVisitor {
+
+		/**
+		 * Visits a relationship.
+		 *
+		 * @param otherID      the other person.
+		 * @param myOpinion    the opinion of the person of the other one.
+		 * @param theirOpinion the opinion of the other person of the person.
+		 */
+		void visit(int otherID, double myOpinion, double theirOpinion);
+	}
+
+	/**
+	 * Adds a person, if not yet added. A person with no settlement has its
+	 * relationships kept by pair.
+	 *
+	 * @param personID     the person identifier.
+	 * @param settlementID the identifier of the settlement of the person, or -1
+	 *                     if none.
+	 * @return true if added.
+	 */
+	synchronized boolean addPerson(int personID, int settlementID) {
+		int index = personID - Unit.FIRST_PERSON_UNIT_ID;
+		if ((index < 0) || added.get(index))
+			return false;
+		added.set(index);
+
+		if (index >= personBlocks.length) {
+			int capacity = Math.max(index + 1, personBlocks.length * 2);
+			personBlocks = Arrays.copyOf(personBlocks, capacity);
+			personSlots = Arrays.copyOf(personSlots, capacity);
+		}
+		if (settlementID >= 0) {
+			Block block = getOrCreateBlock(settlementID);
+			synchronized (block) {
+				joinBlock(personID, block);
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Checks if a person has been added.
+	 *
+	 * @param personID the person identifier.
+	 * @return true if added.
+	 */
+	synchronized boolean hasPerson(int personID) {
+		int index = personID - Unit.FIRST_PERSON_UNIT_ID;
+		return (index >= 0) && added.get(index);
+	}
+
+	/**
+	 * Moves a person to the block of another settlement if it has changed.
+	 *
+	 * @param personID     the person identifier.
+	 * @param settlementID the identifier of the settlement of the person, or -1
+	 *                     if none.
+	 * @return true if moved.
+	 */
+	synchronized boolean setSettlement(int personID, int settlementID) {
+		if (!hasPerson(personID))
+			return false;
+		Block block = getBlock(personID);
+		int current = (block != null) ? block.settlementID : -1;
+		if (current == settlementID)
+			return false;
+
+		if (block != null) {
+			synchronized (block) {
+				// Keep the opinions of the people left behind by pair
+				int slot = getSlot(personID);
+				for (int i = 0; i < block.size; i++) {
+					int otherID = block.people[i];
+					if ((i != slot) && (otherID >= 0) && !Float.isNaN(block.get(slot, i)))
+						putPair(personID, otherID, block.get(slot, i), block.get(i, slot));
+				}
+				block.remove(slot);
+				personBlocks[personID - Unit.FIRST_PERSON_UNIT_ID] = null;
+			}
+		}
+
+		if (settlementID >= 0) {
+			block = getOrCreateBlock(settlementID);
+			synchronized (block) {
+				joinBlock(personID, block);
+				// Take back the opinions of the people met there before
+				BitSet known = overflowIndex.get(personID);
+				if (known != null) {
+					int slot = getSlot(personID);
+					for (int i = known.nextSetBit(0); i >= 0; i = known.nextSetBit(i + 1)) {
+						int otherID = i + Unit.FIRST_PERSON_UNIT_ID;
+						if (getBlock(otherID) == block) {
+							float[] pair = removePair(personID, otherID);
+							boolean ordered = personID < otherID;
+							block.set(slot, getSlot(otherID), pair[ordered ? 0 : 1]);
+							block.set(getSlot(otherID), slot, pair[ordered ? 1 : 0]);
+						}
+					}
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Adds or resets a relationship.
+	 *
+	 * @param personID1 the first person.
+	 * @param personID2 the second person.
+	 * @param opinion1  the opinion of the first person of the second one.
+	 * @param opinion2  the opinion of the second person of the first one.
+	 */
+	void put(int personID1, int personID2, double opinion1, double opinion2) {
+		if (putShared(personID1, personID2, opinion1, opinion2))
+			return;
+		synchronized (this) {
+			// Nobody changes block while the matrix is locked
+			if (!putShared(personID1, personID2, opinion1, opinion2))
+				putPair(personID1, personID2, (float) opinion1, (float) opinion2);
+		}
+	}
+
+	private boolean putShared(int personID1, int personID2, double opinion1, double opinion2) {
+		Block block = getSharedBlock(personID1, personID2);
+		if (block == null)
+			return false;
+		synchronized (block) {
+			if (!isShared(block, personID1, personID2))
+				return false;
+			block.set(getSlot(personID1), getSlot(personID2), (float) opinion1);
+			block.set(getSlot(personID2), getSlot(personID1), (float) opinion2);
+			return true;
+		}
+	}
+
+	/**
+	 * Gets the opinion of a person of another.
+	 *
+	 * @param holderID the person holding the opinion.
+	 * @param targetID the person the opinion is of.
+	 * @return the opinion or NaN if there is no relationship.
+	 */
+	double get(int holderID, int targetID) {
+		Block block = getSharedBlock(holderID, targetID);
+		if (block != null) {
+			synchronized (block) {
+				if (isShared(block, holderID, targetID))
+					return block.get(getSlot(holderID), getSlot(targetID));
+			}
+		}
+
+		synchronized (this) {
+			block = getSharedBlock(holderID, targetID);
+			if (block != null) {
+				synchronized (block) {
+					return block.get(getSlot(holderID), getSlot(targetID));
+				}
+			}
+
+			float[] pair = overflow.get(getPairKey(holderID, targetID));
+			if (pair == null)
+				return Double.NaN;
+			return pair[(holderID < targetID) ? 0 : 1];
+		}
+	}
+
+	/**
+	 * Sets the opinion of a person of another, if they have a relationship.
+	 *
+	 * @param holderID the person holding the opinion.
+	 * @param targetID the person the opinion is of.
+	 * @param opinion  the opinion.
+	 */
+	void set(int holderID, int targetID, double opinion) {
+		if (setShared(holderID, targetID, opinion))
+			return;
+		synchronized (this) {
+			if (setShared(holderID, targetID, opinion))
+				return;
+
+			float[] pair = overflow.get(getPairKey(holderID, targetID));
+			if (pair != null)
+				pair[(holderID < targetID) ? 0 : 1] = (float) opinion;
+		}
+	}
+
+	private boolean setShared(int holderID, int targetID, double opinion) {
+		Block block = getSharedBlock(holderID, targetID);
+		if (block == null)
+			return false;
+		synchronized (block) {
+			if (!isShared(block, holderID, targetID))
+				return false;
+			int holder = getSlot(holderID);
+			int target = getSlot(targetID);
+			if (!Float.isNaN(block.get(holder, target)))
+				block.set(holder, target, (float) opinion);
+			return true;
+		}
+	}
+
+	/**
+	 * Visits the relationships of a person, going over its row of the block of
+	 * its settlement then its pairs. The visitor must not come back to the
+	 * matrix. A person moving between blocks during the visit may be missed.
+	 *
+	 * @param personID the person.
+	 * @param visitor  the visitor.
+	 */
+	void visit(int personID, OpinionVisitor visitor) {
+		Block block = getBlock(personID);
+		if (block != null) {
+			synchronized (block) {
+				if (getBlock(personID) == block) {
+					int slot = getSlot(personID);
+					for (int i = 0; i < block.size; i++) {
+						int otherID = block.people[i];
+						if ((i != slot) && (otherID >= 0)) {
+							float opinion = block.get(slot, i);
+							if (!Float.isNaN(opinion))
+								visitor.visit(otherID, opinion, block.get(i, slot));
+						}
+					}
+				}
+			}
+		}
+
+		if (overflowIndex.containsKey(personID)) {
+			synchronized (this) {
+				BitSet known = overflowIndex.get(personID);
+				if (known != null) {
+					for (int i = known.nextSetBit(0); i >= 0; i = known.nextSetBit(i + 1)) {
+						int otherID = i + Unit.FIRST_PERSON_UNIT_ID;
+						float[] pair = overflow.get(getPairKey(personID, otherID));
+						boolean ordered = personID < otherID;
+						visitor.visit(otherID, pair[ordered ? 0 : 1], pair[ordered ? 1 : 0]);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Gets the people a person has a relationship with.
+	 *
+	 * @param personID the person.
+	 * @return the identifiers of the people.
+	 */
+	int[] getKnownPeople(int personID) {
+		int[][] result = { new int[16] };
+		int[] count = new int[1];
+		visit(personID, (otherID, myOpinion, theirOpinion) -> {
+			if (count[0] == result[0].length)
+				result[0] = Arrays.copyOf(result[0], count[0] * 2);
+			result[0][count[0]++] = otherID;
+		});
+		return Arrays.copyOf(result[0], count[0]);
+	}
+
+	/**
+	 * Gets the number of relationships, e.g. to compare the size of the stores.
+	 *
+	 * @return the number of pairs of people with a relationship.
+	 */
+	synchronized int size() {
+		int result = overflow.size();
+		for (Block block : blocks.values()) {
+			synchronized (block) {
+				for (int i = 0; i < block.size; i++) {
+					for (int j = i + 1; j < block.size; j++) {
+						if (!Float.isNaN(block.get(i, j)))
+							result++;
+					}
+				}
+			}
+		}
+		return result;
+	}
+
+	private Block getOrCreateBlock(int settlementID) {
+		return blocks.computeIfAbsent(settlementID, Block::new);
+	}
+
+	/**
+	 * Puts a person in a free slot of a block, with the locks of the matrix and
+	 * the block held.
+	 */
+	private void joinBlock(int personID, Block block) {
+		int index = personID - Unit.FIRST_PERSON_UNIT_ID;
+		personSlots[index] = block.add(personID);
+		personBlocks[index] = block;
+	}
+
+	private void putPair(int personID1, int personID2, float opinion1, float opinion2) {
+		boolean ordered = personID1 < personID2;
+		float[] pair = { ordered ? opinion1 : opinion2, ordered ? opinion2 : opinion1 };
+		overflow.put(getPairKey(personID1, personID2), pair);
+		overflowIndex.computeIfAbsent(personID1, id -> new BitSet()).set(personID2 - Unit.FIRST_PERSON_UNIT_ID);
+		overflowIndex.computeIfAbsent(personID2, id -> new BitSet()).set(personID1 - Unit.FIRST_PERSON_UNIT_ID);
+	}
+
+	private float[] removePair(int personID1, int personID2) {
+		unindex(personID1, personID2);
+		unindex(personID2, personID1);
+		return overflow.remove(getPairKey(personID1, personID2));
+	}
+
+	private void unindex(int personID, int otherID) {
+		BitSet known = overflowIndex.get(personID);
+		known.clear(otherID - Unit.FIRST_PERSON_UNIT_ID);
+		if (known.isEmpty())
+			overflowIndex.remove(personID);
+	}
+
+	/**
+	 * Gets the block both people are in, or null if they are not in the same one.
+	 */
+	private Block getSharedBlock(int personID1, int personID2) {
+		Block block = getBlock(personID1);
+		return ((block != null) && (block == getBlock(personID2))) ? block : null;
+	}
+
+	/**
+	 * Checks both people are still in a block, with its lock held.
+	 */
+	private boolean isShared(Block block, int personID1, int personID2) {
+		return (getBlock(personID1) == block) && (getBlock(personID2) == block);
+	}
+
+	private Block getBlock(int personID) {
+		int index = personID - Unit.FIRST_PERSON_UNIT_ID;
+		Block[] current = personBlocks;
+		return ((index >= 0) && (index < current.length)) ? current[index] : null;
+	}
+
+	private int getSlot(int personID) {
+		return personSlots[personID - Unit.FIRST_PERSON_UNIT_ID];
+	}
+
+	private static Long getPairKey(int personID1, int personID2) {
+		int low = Math.min(personID1, personID2);
+		int high = Math.max(personID1, personID2);
+		return ((long) low << 32) | (high & 0xffffffffL);
+	}
+
+	/**
+	 * The people of a settlement and their opinions of each other.
+	 */
+	private static final class Block implements Serializable {
+
+		/** default serial id. */
+		private static final long serialVersionUID = 1L;
+
+		private static final int INITIAL_CAPACITY = 8;
+
+		private final int settlementID;
+		/** The person identifier of each slot, or -1 if the slot is free. */
+		private int[] people = new int[INITIAL_CAPACITY];
+		/** The opinion of the person of each slot, by row, of the person of each slot, by column. */
+		private float[] opinions = newOpinions(INITIAL_CAPACITY);
+		private int capacity = INITIAL_CAPACITY;
+		/** One past the last slot used. */
+		private int size;
+		/** The number of free slots below the size. */
+		private int free;
+
+		private Block(int settlementID) {
+			this.settlementID = settlementID;
+		}
+
+		private int add(int personID) {
+			if (free > 0) {
+				for (int i = 0; i < size; i++) {
+					if (people[i] < 0) {
+						people[i] = personID;
+						free--;
+						return i;
+					}
+				}
+			}
+
+			if (size == capacity) {
+				int larger = capacity * 2;
+				float[] newOpinions = newOpinions(larger);
+				for (int row = 0; row < size; row++) {
+					System.arraycopy(opinions, row * capacity, newOpinions, row * larger, size);
+				}
+				opinions = newOpinions;
+				people = Arrays.copyOf(people, larger);
+				capacity = larger;
+			}
+			people[size] = personID;
+			return size++;
+		}
+
+		/**
+		 * Frees a slot, dropping the opinions of and by its person.
+		 */
+		private void remove(int slot) {
+			people[slot] = -1;
+			free++;
+			Arrays.fill(opinions, slot * capacity, slot * capacity + size, Float.NaN);
+			for (int row = 0; row < size; row++) {
+				opinions[row * capacity + slot] = Float.NaN;
+			}
+		}
+
+		private float get(int holder, int target) {
+			return opinions[holder * capacity + target];
+		}
+
+		private void set(int holder, int target, float opinion) {
+			opinions[holder * capacity + target] = opinion;
+		}
+
+		private static float[] newOpinions(int capacity) {
+			float[] result = new float[capacity * capacity];
+			Arrays.fill(result, Float.NaN);
+			return result;
+		}
+	}
+}
@@ -0,0 +1,495 @@
+/**
+ * Mars Simulation Project
+ * OutsidePathFinder.java
+ * @version 3.1.2 2026-10-17
+ * @author agent
+ */
+package org.mars_sim.msp.core.person.ai.task;
+
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.mars_sim.msp.core.LocalBoundedObject;
+
+/**
+ * Finds a walking path around the buildings, vehicles and construction sites
+ * between two locations outside, using the A* path planning algorithm on a grid
+ * of locations {@link WalkOutside#NEIGHBOR_DISTANCE} apart, starting at the
+ * start location.
+ * <p>
+ * The grid locations are interned as int indexes, and the open set is a binary
+ * heap of indexes, so the search doesn't allocate a Point2D per location nor
+ * scan the whole open set at each step. The obstacles are copied into arrays
+ * once and the four edges of every grid location are checked against them up
+ * front, with a plain segment and rotated rectangle test rather than
+ * java.awt.geom.Area operations.
+ * <p>
+ * http://en.wikipedia.org/wiki/A*
+ */
+public class OutsidePathFinder {
+
+	/** Half the width (meters) of a line path, 1 mm wide as in LocalAreaUtil. */
+	private static final double HALF_LINE_WIDTH = .0005D;
+
+	private static final double STEP = WalkOutside.NEIGHBOR_DISTANCE;
+
+	/** The edge bits of a grid location. */
+	private static final int NORTH = 1;
+	private static final int SOUTH = 2;
+	private static final int EAST = 4;
+	private static final int WEST = 8;
+
+	private double startX;
+	private double startY;
+	private double destinationX;
+	private double destinationY;
+
+	// The obstacles as struct of arrays.
+	private int numObstacles;
+	private double[] centerX;
+	private double[] centerY;
+	private double[] halfWidth;
+	private double[] halfLength;
+	private double[] cos;
+	private double[] sin;
+	private double[] bounds;
+
+	// The grid.
+	private int minCol;
+	private int minRow;
+	private int cols;
+	private int rows;
+	/** The free edges of each grid location. */
+	private byte[] freeEdges;
+
+	private int expandedNodes;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param obstacles    the buildings, vehicles and construction sites.
+	 * @param startX       the X location to start from.
+	 * @param startY       the Y location to start from.
+	 * @param destinationX the X location to go to.
+	 * @param destinationY the Y location to go to.
+	 */
+	public OutsidePathFinder(Collection<? extends LocalBoundedObject> obstacles, double startX, double startY,
+			double destinationX, double destinationY) {
+		this.startX = startX;
+		this.startY = startY;
+		this.destinationX = destinationX;
+		this.destinationY = destinationY;
+
+		numObstacles = obstacles.size();
+		centerX = new double[numObstacles];
+		centerY = new double[numObstacles];
+		halfWidth = new double[numObstacles];
+		halfLength = new double[numObstacles];
+		cos = new double[numObstacles];
+		sin = new double[numObstacles];
+		bounds = new double[numObstacles * 4];
+		int n = 0;
+		for (LocalBoundedObject o : obstacles) {
+			centerX[n] = o.getXLocation();
+			centerY[n] = o.getYLocation();
+			halfWidth[n] = o.getWidth() / 2D + HALF_LINE_WIDTH;
+			halfLength[n] = o.getLength() / 2D + HALF_LINE_WIDTH;
+			double rad = Math.toRadians(o.getFacing());
+			cos[n] = Math.cos(rad);
+			sin[n] = Math.sin(rad);
+			double extentX = Math.abs(halfWidth[n] * cos[n]) + Math.abs(halfLength[n] * sin[n]);
+			double extentY = Math.abs(halfWidth[n] * sin[n]) + Math.abs(halfLength[n] * cos[n]);
+			bounds[n * 4] = centerX[n] + extentX;
+			bounds[n * 4 + 1] = centerX[n] - extentX;
+			bounds[n * 4 + 2] = centerY[n] + extentY;
+			bounds[n * 4 + 3] = centerY[n] - extentY;
+			n++;
+		}
+
+		buildGrid(getSearchLimits(obstacles, startX, startY, destinationX, destinationY));
+	}
+
+	/**
+	 * Gets the obstacle path search limits, i.e. the box around the obstacles and
+	 * the start and destination locations, extended by the neighbor distance.
+	 *
+	 * @param obstacles    the buildings, vehicles and construction sites.
+	 * @param startX       the X location to start from.
+	 * @param startY       the Y location to start from.
+	 * @param destinationX the X location to go to.
+	 * @param destinationY the Y location to go to.
+	 * @return array of four double values representing X max, X min, Y max, and Y
+	 *         min.
+	 */
+	public static double[] getSearchLimits(Collection<? extends LocalBoundedObject> obstacles, double startX,
+			double startY, double destinationX, double destinationY) {
+
+		double[] result = new double[] { 0D, 0D, 0D, 0D };
+
+		for (LocalBoundedObject o : obstacles) {
+			double rad = Math.toRadians(o.getFacing());
+			double c = Math.abs(Math.cos(rad));
+			double s = Math.abs(Math.sin(rad));
+			double extentX = (o.getWidth() * c + o.getLength() * s) / 2D;
+			double extentY = (o.getWidth() * s + o.getLength() * c) / 2D;
+			result[0] = Math.max(result[0], o.getXLocation() + extentX);
+			result[1] = Math.min(result[1], o.getXLocation() - extentX);
+			result[2] = Math.max(result[2], o.getYLocation() + extentY);
+			result[3] = Math.min(result[3], o.getYLocation() - extentY);
+		}
+
+		// Extend boundary to include starting and destination locations.
+		result[0] = Math.max(result[0], Math.max(startX, destinationX));
+		result[1] = Math.min(result[1], Math.min(startX, destinationX));
+		result[2] = Math.max(result[2], Math.max(startY, destinationY));
+		result[3] = Math.min(result[3], Math.min(startY, destinationY));
+
+		// Extend result boundaries by neighbor distance.
+		result[0] += STEP;
+		result[1] -= STEP;
+		result[2] += STEP;
+		result[3] -= STEP;
+
+		return result;
+	}
+
+	/**
+	 * Checks if a line path is free of obstacles.
+	 *
+	 * @param x1 the X location of the first end.
+	 * @param y1 the Y location of the first end.
+	 * @param x2 the X location of the second end.
+	 * @param y2 the Y location of the second end.
+	 * @return true if the line doesn't cross any obstacle.
+	 */
+	public boolean isLineFree(double x1, double y1, double x2, double y2) {
+		double lineMaxX = Math.max(x1, x2);
+		double lineMinX = Math.min(x1, x2);
+		double lineMaxY = Math.max(y1, y2);
+		double lineMinY = Math.min(y1, y2);
+
+		for (int i = 0; i < numObstacles; i++) {
+			// Check the bounding boxes first
+			if (lineMinX > bounds[i * 4] || lineMaxX < bounds[i * 4 + 1] || lineMinY > bounds[i * 4 + 2]
+					|| lineMaxY < bounds[i * 4 + 3]) {
+				continue;
+			}
+
+			// Turn the line into the frame of the obstacle
+			double ax = x1 - centerX[i];
+			double ay = y1 - centerY[i];
+			double bx = x2 - centerX[i];
+			double by = y2 - centerY[i];
+			double u1 = ax * cos[i] + ay * sin[i];
+			double v1 = -ax * sin[i] + ay * cos[i];
+			double u2 = bx * cos[i] + by * sin[i];
+			double v2 = -bx * sin[i] + by * cos[i];
+
+			if (clips(u1, v1, u2 - u1, v2 - v1, halfWidth[i], halfLength[i])) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Checks if a segment crosses a box centered on the origin, by clipping it
+	 * against each pair of sides in turn (Liang-Barsky).
+	 *
+	 * @param x  the X of the segment start.
+	 * @param y  the Y of the segment start.
+	 * @param dx the X length of the segment.
+	 * @param dy the Y length of the segment.
+	 * @param hx the half width of the box.
+	 * @param hy the half length of the box.
+	 * @return true if any part of the segment is inside the box.
+	 */
+	private static boolean clips(double x, double y, double dx, double dy, double hx, double hy) {
+		double[] t = { 0D, 1D };
+		return clip(-dx, x + hx, t) && clip(dx, hx - x, t) && clip(-dy, y + hy, t) && clip(dy, hy - y, t);
+	}
+
+	/**
+	 * Clips the segment against one side of the box.
+	 *
+	 * @param p the rate the segment moves out of the side.
+	 * @param q the distance of the segment start inside the side.
+	 * @param t the start and end of the part of the segment left.
+	 * @return true if some of the segment is left.
+	 */
+	private static boolean clip(double p, double q, double[] t) {
+		if (p == 0D) {
+			return q >= 0D;
+		}
+		double r = q / p;
+		if (p < 0D) {
+			if (r > t[1])
+				return false;
+			if (r > t[0])
+				t[0] = r;
+		} else {
+			if (r < t[0])
+				return false;
+			if (r < t[1])
+				t[1] = r;
+		}
+		return true;
+	}
+
+	/**
+	 * Lays the grid over the search limits and works out which edges between
+	 * neighbor grid locations are free.
+	 *
+	 * @param limits X max, X min, Y max, and Y min.
+	 */
+	private void buildGrid(double[] limits) {
+		minCol = (int) Math.ceil((limits[1] - startX) / STEP);
+		int maxCol = (int) Math.floor((limits[0] - startX) / STEP);
+		minRow = (int) Math.ceil((limits[3] - startY) / STEP);
+		int maxRow = (int) Math.floor((limits[2] - startY) / STEP);
+		cols = maxCol - minCol + 1;
+		rows = maxRow - minRow + 1;
+
+		freeEdges = new byte[cols * rows];
+		for (int r = 0; r < rows; r++) {
+			for (int c = 0; c < cols; c++) {
+				int node = r * cols + c;
+				double x = getX(node);
+				double y = getY(node);
+				// Check the edge to the North and to the West once for both ends
+				if (r + 1 < rows && isLineFree(x, y, x, y + STEP)) {
+					freeEdges[node] |= NORTH;
+					freeEdges[node + cols] |= SOUTH;
+				}
+				if (c + 1 < cols && isLineFree(x, y, x + STEP, y)) {
+					freeEdges[node] |= WEST;
+					freeEdges[node + 1] |= EAST;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Finds a path from the start location to the destination location.
+	 *
+	 * @return the path as a list of points, or null if no path found.
+	 */
+	public List<Point2D> findPath() {
+		int size = cols * rows;
+		int start = (-minRow) * cols + (-minCol);
+
+		double[] gScore = new double[size];
+		Arrays.fill(gScore, Double.POSITIVE_INFINITY);
+		int[] cameFrom = new int[size];
+		boolean[] closed = new boolean[size];
+		NodeHeap openSet = new NodeHeap(size);
+
+		gScore[start] = 0D;
+		cameFrom[start] = -1;
+		openSet.push(start, getHScore(start));
+		expandedNodes = 0;
+
+		while (!openSet.isEmpty()) {
+
+			// Get the location with the lowest fScore.
+			int current = openSet.pop();
+			expandedNodes++;
+
+			// Check if clear path to destination.
+			if (isLineFree(getX(current), getY(current), destinationX, destinationY)) {
+				return optimizePath(recreatePath(cameFrom, current));
+			}
+
+			closed[current] = true;
+
+			int edges = freeEdges[current];
+			for (int e = 0; e < 4; e++) {
+				int bit = 1 << e;
+				if ((edges & bit) == 0)
+					continue;
+				int neighbor = getNeighbor(current, bit);
+				if (closed[neighbor])
+					continue;
+				double tentativeGScore = gScore[current] + STEP;
+				if (tentativeGScore < gScore[neighbor]) {
+					gScore[neighbor] = tentativeGScore;
+					cameFrom[neighbor] = current;
+					openSet.pushOrDecrease(neighbor, tentativeGScore + getHScore(neighbor));
+				}
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Gets the number of grid locations expanded by the last search.
+	 *
+	 * @return the number of locations.
+	 */
+	public int getExpandedNodes() {
+		return expandedNodes;
+	}
+
+	/**
+	 * Gets the grid location next to another one.
+	 *
+	 * @param node the grid location.
+	 * @param edge the edge bit.
+	 * @return the neighbor grid location.
+	 */
+	private int getNeighbor(int node, int edge) {
+		switch (edge) {
+		case NORTH:
+			return node + cols;
+		case SOUTH:
+			return node - cols;
+		case WEST:
+			return node + 1;
+		default:
+			return node - 1;
+		}
+	}
+
+	private double getX(int node) {
+		return startX + (node % cols + minCol) * STEP;
+	}
+
+	private double getY(int node) {
+		return startY + (node / cols + minRow) * STEP;
+	}
+
+	/**
+	 * Gets the straight distance (m) from a grid location to the destination.
+	 *
+	 * @param node the grid location.
+	 * @return the distance.
+	 */
+	private double getHScore(int node) {
+		return Point2D.distance(getX(node), getY(node), destinationX, destinationY);
+	}
+
+	/**
+	 * Recreates a path from the cameFrom indexes.
+	 *
+	 * @param cameFrom the previous grid location of each grid location.
+	 * @param last     the last grid location in the path.
+	 * @return path as list of points, ending at the destination.
+	 */
+	private List<Point2D> recreatePath(int[] cameFrom, int last) {
+		List<Point2D> result = new ArrayList<>();
+		result.add(new Point2D.Double(destinationX, destinationY));
+		for (int node = last; node >= 0; node = cameFrom[node]) {
+			result.add(new Point2D.Double(getX(node), getY(node)));
+		}
+		Collections.reverse(result);
+		return result;
+	}
+
+	/**
+	 * Optimizes a path by removing the locations that can be walked past in a
+	 * straight line.
+	 *
+	 * @param path the initial path.
+	 * @return optimized path.
+	 */
+	private List<Point2D> optimizePath(List<Point2D> path) {
+		List<Point2D> result = new ArrayList<>(path.size());
+		result.add(path.get(0));
+		for (int i = 1; i < path.size() - 1; i++) {
+			Point2D prev = result.get(result.size() - 1);
+			Point2D next = path.get(i + 1);
+			if (!isLineFree(prev.getX(), prev.getY(), next.getX(), next.getY())) {
+				result.add(path.get(i));
+			}
+		}
+		result.add(path.get(path.size() - 1));
+		return result;
+	}
+
+	/**
+	 * A binary min heap of grid locations keyed by fScore, with the position of
+	 * each location kept so its fScore can be lowered in place.
+	 */
+	private static class NodeHeap {
+		private int size;
+		private int[] heap;
+		private double[] keys;
+		private int[] position;
+
+		private NodeHeap(int capacity) {
+			heap = new int[capacity];
+			keys = new double[capacity];
+			position = new int[capacity];
+			Arrays.fill(position, -1);
+		}
+
+		private boolean isEmpty() {
+			return size == 0;
+		}
+
+		private void push(int node, double key) {
+			keys[node] = key;
+			heap[size] = node;
+			position[node] = size;
+			siftUp(size++);
+		}
+
+		private void pushOrDecrease(int node, double key) {
+			int pos = position[node];
+			if (pos < 0) {
+				push(node, key);
+			} else if (key < keys[node]) {
+				keys[node] = key;
+				siftUp(pos);
+			}
+		}
+
+		private int pop() {
+			int result = heap[0];
+			position[result] = -2;
+			if (--size > 0) {
+				heap[0] = heap[size];
+				position[heap[0]] = 0;
+				siftDown(0);
+			}
+			return result;
+		}
+
+		private void siftUp(int pos) {
+			int node = heap[pos];
+			while (pos > 0) {
+				int parent = (pos - 1) >> 1;
+				if (keys[heap[parent]] <= keys[node])
+					break;
+				heap[pos] = heap[parent];
+				position[heap[pos]] = pos;
+				pos = parent;
+			}
+			heap[pos] = node;
+			position[node] = pos;
+		}
+
+		private void siftDown(int pos) {
+			int node = heap[pos];
+			while (true) {
+				int child = 2 * pos + 1;
+				if (child >= size)
+					break;
+				if (child + 1 < size && keys[heap[child + 1]] < keys[heap[child]])
+					child++;
+				if (keys[node] <= keys[heap[child]])
+					break;
+				heap[pos] = heap[child];
+				position[heap[pos]] = pos;
+				pos = child;
+			}
+			heap[pos] = node;
+			position[node] = pos;
+		}
+	}
+}
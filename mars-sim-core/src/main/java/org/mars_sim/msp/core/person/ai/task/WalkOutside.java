@@ -8,22 +8,16 @@ package org.mars_sim.msp.core.person.ai.task;
 
 import java.awt.geom.Line2D;
 import java.awt.geom.Point2D;
-import java.awt.geom.Rectangle2D;
 import java.io.Serializable;
 import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import org.mars_sim.msp.core.Coordinates;
 import org.mars_sim.msp.core.LocalAreaUtil;
-import org.mars_sim.msp.core.LocalBoundedObject;
 import org.mars_sim.msp.core.LogConsolidated;
 import org.mars_sim.msp.core.Msg;
 import org.mars_sim.msp.core.equipment.EVASuit;
@@ -81,7 +75,6 @@ public class WalkOutside extends Task implements Serializable {
 	private boolean obstaclesInPath;
 	private List<Point2D> walkingPath;
 	private int walkingPathIndex;
-	private double[] obstacleSearchLimits;
 	private boolean ignoreEndEVA;
 
 	/**
@@ -242,95 +235,12 @@ public class WalkOutside extends Task implements Serializable {
 			return null;
 		}
 
-		// Using A* path planning algorithm, testing out neighbor locations in a 1m x 1m
+		// Using A* path planning algorithm, testing out neighbor locations in a
 		// grid.
-		// http://en.wikipedia.org/wiki/A*
-
-		// The set of locations already evaluated.
-		Set<Point2D> closedSet = new HashSet<Point2D>();
-
-		// The set of tentative locations to be evaluated
-		Set<Point2D> openSet = new HashSet<Point2D>();
-
-		// Initially add starting location to openSet.
-		openSet.add(startLoc);
-
-		// The map of navigated locations.
-		Map<Point2D, Point2D> cameFrom = new ConcurrentHashMap<Point2D, Point2D>();
-
-		// Check each location in openSet.
-		while (openSet.size() > 0) {
-
-			// Find loc in openSet with lowest fScore value.
-			// FScore is distance (m) from start through currentLoc to destination.
-			Point2D currentLoc = getLowestFScore(openSet);
-
-			// Check if clear path to destination.
-			if (checkClearPathToDestination(currentLoc, endLoc)) {
-
-				// Create path from currentLoc.
-				List<Point2D> path = recreatePath(cameFrom, currentLoc);
-				result = optimizePath(path);
-				break;
-			}
-
-			// Remove currentLoc from openSet.
-			openSet.remove(currentLoc);
-
-			// Add currentLoc to closedSet.
-			closedSet.add(currentLoc);
-
-			double currentGScore = getGScore(currentLoc);
-
-			// Go through each reachable neighbor location.
-			Iterator<Point2D> i = getNeighbors(currentLoc).iterator();
-			while (i.hasNext()) {
-
-				Point2D neighborLoc = i.next();
-
-				if (closedSet.contains(neighborLoc)) {
-					continue;
-				}
-
-				double tentativeGScore = currentGScore + NEIGHBOR_DISTANCE;
-				double neighborGScore = getGScore(neighborLoc);
-				if ((!openSet.contains(neighborLoc) || (tentativeGScore < neighborGScore))
-						&& withinObstacleSearch(neighborLoc)) {
-
-					// Map neighbor location from current location in cameFrom.
-					cameFrom.put(neighborLoc, currentLoc);
-
-					// Add neighbor location to openSet.
-					if (!openSet.contains(neighborLoc)) {
-						openSet.add(neighborLoc);
-					}
-				}
-			}
-		}
-
-		return result;
-	}
-
-	/**
-	 * Find location in openSet with lowest fScore value. The fScore value is the
-	 * distance (m) from start through location to destination.
-	 * 
-	 * @param openSet a set of locations.
-	 * @return location with lowest fScore value.
-	 */
-	private Point2D getLowestFScore(Set<Point2D> openSet) {
-
-		double lowestFScore = Double.POSITIVE_INFINITY;
-		Point2D result = null;
-		Iterator<Point2D> i = openSet.iterator();
-		while (i.hasNext()) {
-			Point2D loc = i.next();
-			double fScore = getFScore(loc);
-			if (fScore < lowestFScore) {
-				result = loc;
-				lowestFScore = fScore;
-			}
-		}
+		Coordinates location = (person != null) ? person.getCoordinates() : robot.getCoordinates();
+		OutsidePathFinder finder = new OutsidePathFinder(LocalAreaUtil.getAllLocalBoundedObjectsAtLocation(location),
+				startXLocation, startYLocation, destinationXLocation, destinationYLocation);
+		result = finder.findPath();
 
 		return result;
 	}
@@ -357,170 +267,6 @@ public class WalkOutside extends Task implements Serializable {
 		return result;
 	}
 
-	/**
-	 * Recreate a path from the cameFromMap.
-	 * 
-	 * @param cameFromMap a map of locations and their previous locations.
-	 * @param endLocation the last location in a path (not destination location).
-	 * @return path as list of points.
-	 */
-	private List<Point2D> recreatePath(Map<Point2D, Point2D> cameFromMap, Point2D endLocation) {
-
-		List<Point2D> result = new CopyOnWriteArrayList<Point2D>();
-
-		// Add destination location to end of path.
-		result.add(new Point2D.Double(destinationXLocation, destinationYLocation));
-
-		// Add endLocation location to start of path.
-		result.add(0, endLocation);
-
-		Point2D currentLoc = endLocation;
-		while (cameFromMap.containsKey(currentLoc)) {
-			Point2D cameFromLoc = cameFromMap.get(currentLoc);
-
-			// Add came from location to start of path.
-			result.add(0, cameFromLoc);
-
-			// Remove currentLoc key from cameFromMap to prevent endless loops.
-			cameFromMap.remove(currentLoc);
-
-			currentLoc = cameFromLoc;
-		}
-
-		return result;
-	}
-
-	/**
-	 * Optimizes a path by removing unnecessary locations.
-	 * 
-	 * @param initialPath the initial path to optimize.
-	 * @return optimized path.
-	 */
-	private List<Point2D> optimizePath(List<Point2D> initialPath) {
-
-		List<Point2D> optimizedPath = new CopyOnWriteArrayList<Point2D>(initialPath);
-
-		Iterator<Point2D> i = optimizedPath.iterator();
-		while (i.hasNext()) {
-			Point2D loc = i.next();
-			int locIndex = optimizedPath.indexOf(loc);
-			if ((locIndex > 0) && (locIndex < (optimizedPath.size() - 1))) {
-				Point2D prevLoc = optimizedPath.get(locIndex - 1);
-				Point2D nextLoc = optimizedPath.get(locIndex + 1);
-
-				// If clear path between previous and next location,
-				// remove this location from path.
-				Line2D line = new Line2D.Double(prevLoc.getX(), prevLoc.getY(), nextLoc.getX(), nextLoc.getY());
-
-				if (person != null) {
-					if (LocalAreaUtil.isLinePathCollisionFree(line, person.getCoordinates(), true)) {
-						i.remove();
-					}
-				} else if (robot != null) {
-					if (LocalAreaUtil.isLinePathCollisionFree(line, robot.getCoordinates(), true)) {
-						i.remove();
-					}
-				}
-			}
-		}
-
-		return optimizedPath;
-	}
-
-	/**
-	 * Gets the gScore value for a location. The gScore value is the distance (m)
-	 * from the starting location to this location.
-	 * 
-	 * @param loc the location.
-	 * @return gScore value.
-	 */
-	private double getGScore(Point2D loc) {
-		return Point2D.distance(startXLocation, startYLocation, loc.getX(), loc.getY());
-	}
-
-	/**
-	 * Gets the fScore value for a location. The fScore value is the total distance
-	 * (m) from the starting location to this location and then to the destination
-	 * location.
-	 * 
-	 * @param loc the location.
-	 * @return the fScore value.
-	 */
-	private double getFScore(Point2D loc) {
-		double gScore = getGScore(loc);
-		double fScore = gScore + Point2D.distance(loc.getX(), loc.getY(), destinationXLocation, destinationYLocation);
-		return fScore;
-	}
-
-	/**
-	 * Get search location neighbors to a given location. This method gets a set of
-	 * four locations at 1m distance North, South, East and West of the current
-	 * location.
-	 * 
-	 * @param currentLoc the current location.
-	 * @return set of neighbor locations.
-	 */
-	private Set<Point2D> getNeighbors(Point2D currentLoc) {
-
-		Set<Point2D> result = new HashSet<Point2D>(8);
-
-		// Get location North of currentLoc.
-		Point2D northLoc = new Point2D.Double(currentLoc.getX(), currentLoc.getY() + NEIGHBOR_DISTANCE);
-		Line2D northLine = new Line2D.Double(currentLoc.getX(), currentLoc.getY(), northLoc.getX(), northLoc.getY());
-		if (person != null) {
-			if (LocalAreaUtil.isLinePathCollisionFree(northLine, person.getCoordinates(), true)) {
-				result.add(northLoc);
-			}
-		} else if (robot != null) {
-			if (LocalAreaUtil.isLinePathCollisionFree(northLine, robot.getCoordinates(), true)) {
-				result.add(northLoc);
-			}
-		}
-
-		// Get location East of currentLoc.
-		Point2D eastLoc = new Point2D.Double(currentLoc.getX() - NEIGHBOR_DISTANCE, currentLoc.getY());
-		Line2D eastLine = new Line2D.Double(currentLoc.getX(), currentLoc.getY(), eastLoc.getX(), eastLoc.getY());
-		if (person != null) {
-			if (LocalAreaUtil.isLinePathCollisionFree(eastLine, person.getCoordinates(), true)) {
-				result.add(eastLoc);
-			}
-		} else if (robot != null) {
-			if (LocalAreaUtil.isLinePathCollisionFree(eastLine, robot.getCoordinates(), true)) {
-				result.add(eastLoc);
-			}
-		}
-
-		// Get location South of currentLoc.
-		Point2D southLoc = new Point2D.Double(currentLoc.getX(), currentLoc.getY() - NEIGHBOR_DISTANCE);
-		Line2D southLine = new Line2D.Double(currentLoc.getX(), currentLoc.getY(), southLoc.getX(), southLoc.getY());
-
-		if (person != null) {
-			if (LocalAreaUtil.isLinePathCollisionFree(southLine, person.getCoordinates(), true)) {
-				result.add(southLoc);
-			}
-		} else if (robot != null) {
-			if (LocalAreaUtil.isLinePathCollisionFree(southLine, robot.getCoordinates(), true)) {
-				result.add(southLoc);
-			}
-		}
-
-		// Get location West of currentLoc.
-		Point2D westLoc = new Point2D.Double(currentLoc.getX() + NEIGHBOR_DISTANCE, currentLoc.getY());
-		Line2D westLine = new Line2D.Double(currentLoc.getX(), currentLoc.getY(), westLoc.getX(), westLoc.getY());
-
-		if (person != null) {
-			if (LocalAreaUtil.isLinePathCollisionFree(westLine, person.getCoordinates(), true)) {
-				result.add(westLoc);
-			}
-		} else if (robot != null) {
-			if (LocalAreaUtil.isLinePathCollisionFree(westLine, robot.getCoordinates(), true)) {
-				result.add(westLoc);
-			}
-		}
-
-		return result;
-	}
-
 	/**
 	 * Gets the local obstacle path search limits for a coordinate location.
 	 * 
@@ -529,118 +275,8 @@ public class WalkOutside extends Task implements Serializable {
 	 *         min.
 	 */
 	double[] getLocalObstacleSearchLimits(Coordinates location) {
-
-		double[] result = new double[] { 0D, 0D, 0D, 0D };
-
-		// Get all local bounded objects at the location.
-		Iterator<LocalBoundedObject> i = LocalAreaUtil.getAllLocalBoundedObjectsAtLocation(location).iterator();
-		while (i.hasNext()) {
-
-			// Determine bounding rectangle for local bounded object with facing.
-			Rectangle2D bounds = LocalAreaUtil.getBoundingRectangle(i.next());
-
-			// Extend result boundaries to enclose bounding rectangle's limits.
-			if (result[0] < bounds.getMaxX()) {
-				result[0] = bounds.getMaxX();
-			}
-
-			if (result[1] > bounds.getMinX()) {
-				result[1] = bounds.getMinX();
-			}
-
-			if (result[2] < bounds.getMaxY()) {
-				result[2] = bounds.getMaxY();
-			}
-
-			if (result[3] > bounds.getMinY()) {
-				result[3] = bounds.getMinY();
-			}
-		}
-
-		// Extend boundary to include starting location.
-		if (result[0] < startXLocation) {
-			result[0] = startXLocation;
-		}
-
-		if (result[1] > startXLocation) {
-			result[1] = startXLocation;
-		}
-
-		if (result[2] < startYLocation) {
-			result[2] = startYLocation;
-		}
-
-		if (result[3] > startYLocation) {
-			result[3] = startYLocation;
-		}
-
-		// Extend boundary to include destination location.
-		if (result[0] < destinationXLocation) {
-			result[0] = destinationXLocation;
-		}
-
-		if (result[1] > destinationXLocation) {
-			result[1] = destinationXLocation;
-		}
-
-		if (result[2] < destinationYLocation) {
-			result[2] = destinationYLocation;
-		}
-
-		if (result[3] > destinationYLocation) {
-			result[3] = destinationYLocation;
-		}
-
-		// Extend result boundaries by neighbor distance.
-		result[0] += NEIGHBOR_DISTANCE;
-		result[1] -= NEIGHBOR_DISTANCE;
-		result[2] += NEIGHBOR_DISTANCE;
-		result[3] -= NEIGHBOR_DISTANCE;
-
-		return result;
-	}
-
-	/**
-	 * Check if point location is within the obstacle search limits.
-	 * 
-	 * @param location the location.
-	 * @return true if location is within search limits.
-	 */
-	private boolean withinObstacleSearch(Point2D location) {
-
-		if (person != null) {
-			if (obstacleSearchLimits == null) {
-				obstacleSearchLimits = getLocalObstacleSearchLimits(person.getCoordinates());
-			}
-		} else if (robot != null) {
-			if (obstacleSearchLimits == null) {
-				obstacleSearchLimits = getLocalObstacleSearchLimits(robot.getCoordinates());
-			}
-		}
-
-		boolean result = true;
-
-		// Check if X value is larger than X max limit.
-		if (location.getX() > obstacleSearchLimits[0]) {
-			result = false;
-		}
-
-		// Check if X value is smaller than X min limit.
-		if (location.getX() < obstacleSearchLimits[1]) {
-			result = false;
-		}
-
-		// Check if Y value is larger than Y max limit.
-		if (location.getY() > obstacleSearchLimits[2]) {
-			result = false;
-		}
-
-		// Check if Y value is smaller thank Y min limit.
-		if (location.getY() < obstacleSearchLimits[3]) {
-			result = false;
-		}
-
-		return result;
+		return OutsidePathFinder.getSearchLimits(LocalAreaUtil.getAllLocalBoundedObjectsAtLocation(location),
+				startXLocation, startYLocation, destinationXLocation, destinationYLocation);
 	}
 
 	/**
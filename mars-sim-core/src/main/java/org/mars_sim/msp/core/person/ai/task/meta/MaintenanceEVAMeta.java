@@ -12,7 +12,7 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import org.mars_sim.msp.core.Msg;
-import org.mars_sim.msp.core.malfunction.MalfunctionFactory;
+import org.mars_sim.msp.core.malfunction.MaintenanceIndex;
 import org.mars_sim.msp.core.malfunction.MalfunctionManager;
 import org.mars_sim.msp.core.malfunction.Malfunctionable;
 import org.mars_sim.msp.core.person.FavoriteType;
@@ -104,7 +104,7 @@ public class MaintenanceEVAMeta implements MetaTask, Serializable {
 
             try {
                 // Total probabilities for all malfunctionable entities in person's local.
-                Iterator<Malfunctionable> i = MalfunctionFactory.getMalfunctionables(person).iterator();
+                Iterator<Malfunctionable> i = MaintenanceIndex.getDueEntities(person).iterator();
 
                 while (i.hasNext()) {
                     Malfunctionable entity = i.next();
@@ -115,17 +115,17 @@ public class MaintenanceEVAMeta implements MetaTask, Serializable {
                         uninhabitableBuilding = !((Building) entity).hasFunction(FunctionType.LIFE_SUPPORT);
                     
                     if (!isStructure && !uninhabitableBuilding)
-                    	return 0;
+                    	continue;
                     
                     MalfunctionManager manager = entity.getMalfunctionManager();
 					boolean hasMalfunction = manager.hasMalfunction();
 					if (hasMalfunction) {
-						return 0;
+						continue;
 					}
 					
 					boolean hasParts = Maintenance.hasMaintenanceParts(person, entity);
 					if (!hasParts) {
-						return 0;
+						continue;
 					}
 					
 					double effectiveTime = manager.getEffectiveTimeSinceLastMaintenance();
@@ -186,7 +186,7 @@ public class MaintenanceEVAMeta implements MetaTask, Serializable {
 
         try {
             // Total probabilities for all malfunctionable entities in person's local.
-            Iterator<Malfunctionable> i = MalfunctionFactory.getMalfunctionables(settlement).iterator();
+            Iterator<Malfunctionable> i = MaintenanceIndex.getIndex(settlement).getDueEntities().iterator();
 
             while (i.hasNext()) {
                 Malfunctionable entity = i.next();
@@ -12,7 +12,7 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import org.mars_sim.msp.core.Msg;
-import org.mars_sim.msp.core.malfunction.MalfunctionFactory;
+import org.mars_sim.msp.core.malfunction.MaintenanceIndex;
 import org.mars_sim.msp.core.malfunction.MalfunctionManager;
 import org.mars_sim.msp.core.malfunction.Malfunctionable;
 import org.mars_sim.msp.core.person.FavoriteType;
@@ -65,7 +65,7 @@ public class MaintenanceMeta implements MetaTask, Serializable {
             
 			try {
 				// Total probabilities for all malfunctionable entities in person's local.
-				Iterator<Malfunctionable> i = MalfunctionFactory.getMalfunctionables(person).iterator();
+				Iterator<Malfunctionable> i = MaintenanceIndex.getDueEntities(person).iterator();
 				while (i.hasNext()) {
 					Malfunctionable entity = i.next();
 					
@@ -140,7 +140,7 @@ public class MaintenanceMeta implements MetaTask, Serializable {
 
 		try {
 			// Total probabilities for all malfunctionable entities in person's local.
-			Iterator<Malfunctionable> i = MalfunctionFactory.getMalfunctionables(settlement).iterator();
+			Iterator<Malfunctionable> i = MaintenanceIndex.getIndex(settlement).getDueEntities().iterator();
 			while (i.hasNext()) {
 				Malfunctionable entity = i.next();
 				boolean isVehicle = (entity instanceof Vehicle);
@@ -183,7 +183,7 @@ public class MaintenanceMeta implements MetaTask, Serializable {
 
 			try {
 				// Total probabilities for all malfunctionable entities in robot's local.
-				Iterator<Malfunctionable> i = MalfunctionFactory.getMalfunctionables(robot).iterator();
+				Iterator<Malfunctionable> i = MaintenanceIndex.getIndex(robot.getSettlement()).getDueEntities().iterator();
 				while (i.hasNext()) {
 					Malfunctionable entity = i.next();
 					boolean isVehicle = (entity instanceof Vehicle);
@@ -14,7 +14,7 @@ import org.mars_sim.msp.core.CollectionUtils;
 import org.mars_sim.msp.core.Msg;
 import org.mars_sim.msp.core.location.LocationStateType;
 import org.mars_sim.msp.core.malfunction.Malfunction;
-import org.mars_sim.msp.core.malfunction.MalfunctionFactory;
+import org.mars_sim.msp.core.malfunction.MaintenanceIndex;
 import org.mars_sim.msp.core.malfunction.MalfunctionManager;
 import org.mars_sim.msp.core.malfunction.MalfunctionRepairWork;
 import org.mars_sim.msp.core.malfunction.Malfunctionable;
@@ -156,7 +156,7 @@ public class RepairEVAMalfunctionMeta implements MetaTask, Serializable {
 		double result = 0D;
 
 		// Add probability for all malfunctionable entities in person's local.
-		Iterator<Malfunctionable> i = MalfunctionFactory.getMalfunctionables(settlement).iterator();
+		Iterator<Malfunctionable> i = MaintenanceIndex.getIndex(settlement).getMalfunctioningEntities().iterator();
 		while (i.hasNext()) {
 			Malfunctionable entity = i.next();
 //			MalfunctionManager manager = entity.getMalfunctionManager();
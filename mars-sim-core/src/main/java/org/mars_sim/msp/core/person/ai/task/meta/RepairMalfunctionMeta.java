@@ -12,7 +12,7 @@ import java.util.Iterator;
 import org.mars_sim.msp.core.Msg;
 import org.mars_sim.msp.core.Unit;
 import org.mars_sim.msp.core.malfunction.Malfunction;
-import org.mars_sim.msp.core.malfunction.MalfunctionFactory;
+import org.mars_sim.msp.core.malfunction.MaintenanceIndex;
 import org.mars_sim.msp.core.malfunction.MalfunctionManager;
 import org.mars_sim.msp.core.malfunction.MalfunctionRepairWork;
 import org.mars_sim.msp.core.malfunction.Malfunctionable;
@@ -125,7 +125,7 @@ public class RepairMalfunctionMeta implements MetaTask, Serializable {
     public double getSettlementProbability(Settlement settlement) {
         double result = 0D;
         // Add probability for all malfunctionable entities in person's local.
-        Iterator<Malfunctionable> i = MalfunctionFactory.getMalfunctionables(settlement).iterator();
+        Iterator<Malfunctionable> i = MaintenanceIndex.getIndex(settlement).getMalfunctioningEntities().iterator();
         while (i.hasNext()) {
             Malfunctionable entity = i.next();
   
@@ -167,7 +167,7 @@ public class RepairMalfunctionMeta implements MetaTask, Serializable {
 
         double result = 0D;
         // Add probability for all malfunctionable entities in person's local.
-        Iterator<Malfunctionable> i = MalfunctionFactory.getMalfunctionables(settlement).iterator();
+        Iterator<Malfunctionable> i = MaintenanceIndex.getIndex(settlement).getMalfunctioningEntities().iterator();
         while (i.hasNext()) {
             Malfunctionable entity = i.next();
             
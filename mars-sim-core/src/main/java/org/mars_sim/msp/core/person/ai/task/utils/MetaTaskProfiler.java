@@ -0,0 +1,164 @@
+/**
+ * Mars Simulation Project
+ * MetaTaskProfiler.java
+ * @version 3.1.2 2026-10-17
+ * @author agent
+ */
+package org.mars_sim.msp.core.person.ai.task.utils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Keeps a histogram of the time taken by the probability function of each meta
+ * task, so it shows which of them dominate the task selection. Bucket b counts
+ * the calls taking less than 2<sup>b+8</sup> ns, i.e. from 256 ns up to 4 ms
+ * and more in the last bucket. The counters are shared by all the people and
+ * may be updated from several pulse threads at once.
+ */
+public final class MetaTaskProfiler {
+
+	/** The number of buckets per meta task. */
+	public static final int BUCKETS = 15;
+	/** The number of low bits of the ns dropped for the first bucket. */
+	private static final int SHIFT = 8;
+
+	private static volatile Counters counters;
+
+	/**
+	 * Private constructor for utility class.
+	 */
+	private MetaTaskProfiler() {
+	}
+
+	/**
+	 * Records a call to a probability function.
+	 *
+	 * @param ordinal the meta task ordinal
+	 * @param elapsed the time taken (ns)
+	 */
+	public static void record(int ordinal, long elapsed) {
+		Counters c = counters;
+		if (c == null || ordinal >= c.nanos.length()) {
+			c = init();
+		}
+		c.counts.incrementAndGet(ordinal * BUCKETS + getBucket(elapsed));
+		c.nanos.addAndGet(ordinal, elapsed);
+	}
+
+	/**
+	 * Gets the bucket of a time.
+	 *
+	 * @param elapsed the time (ns)
+	 * @return the bucket
+	 */
+	public static int getBucket(long elapsed) {
+		int bits = 64 - Long.numberOfLeadingZeros(elapsed >> SHIFT);
+		return Math.min(bits, BUCKETS - 1);
+	}
+
+	/**
+	 * Gets the number of calls of a meta task in a bucket.
+	 *
+	 * @param ordinal the meta task ordinal
+	 * @param bucket  the bucket
+	 * @return the number of calls
+	 */
+	public static long getCount(int ordinal, int bucket) {
+		Counters c = counters;
+		if (c == null || ordinal >= c.nanos.length())
+			return 0;
+		return c.counts.get(ordinal * BUCKETS + bucket);
+	}
+
+	/**
+	 * Gets the number of calls of a meta task.
+	 *
+	 * @param ordinal the meta task ordinal
+	 * @return the number of calls
+	 */
+	public static long getCalls(int ordinal) {
+		long result = 0;
+		for (int b = 0; b < BUCKETS; b++) {
+			result += getCount(ordinal, b);
+		}
+		return result;
+	}
+
+	/**
+	 * Gets the total time spent in a meta task.
+	 *
+	 * @param ordinal the meta task ordinal
+	 * @return the time (ns)
+	 */
+	public static long getTotalNanos(int ordinal) {
+		Counters c = counters;
+		if (c == null || ordinal >= c.nanos.length())
+			return 0;
+		return c.nanos.get(ordinal);
+	}
+
+	/**
+	 * Gets a report of the meta tasks taking the most time.
+	 *
+	 * @param top the number of meta tasks to list
+	 * @return the report
+	 */
+	public static String getReport(int top) {
+		List<MetaTask> tasks = new ArrayList<>(MetaTaskUtil.getAllMetaTasks());
+		tasks.sort(Comparator.comparingLong((MetaTask mt) -> getTotalNanos(MetaTaskUtil.getOrdinal(mt))).reversed());
+
+		StringBuilder sb = new StringBuilder("Task probability time by meta task :");
+		for (MetaTask mt : tasks.subList(0, Math.min(top, tasks.size()))) {
+			int ordinal = MetaTaskUtil.getOrdinal(mt);
+			long calls = getCalls(ordinal);
+			if (calls == 0)
+				break;
+			sb.append(System.lineSeparator()).append("  ").append(mt.getClass().getSimpleName())
+				.append(" ").append(getTotalNanos(ordinal) / 1_000_000).append(" ms, ")
+				.append(calls).append(" calls [");
+			for (int b = 0; b < BUCKETS; b++) {
+				if (b > 0)
+					sb.append(' ');
+				sb.append(getCount(ordinal, b));
+			}
+			sb.append(']');
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Clears all the counters.
+	 */
+	public static synchronized void reset() {
+		counters = null;
+	}
+
+	/**
+	 * Creates the counters for all the meta tasks.
+	 *
+	 * @return the counters
+	 */
+	private static synchronized Counters init() {
+		int size = MetaTaskUtil.getMetaTaskCount();
+		if (counters == null || counters.nanos.length() < size) {
+			counters = new Counters(size);
+		}
+		return counters;
+	}
+
+	/**
+	 * The counters, swapped as a whole when they are reset.
+	 */
+	private static class Counters {
+		private final AtomicLongArray counts;
+		private final AtomicLongArray nanos;
+
+		private Counters(int size) {
+			counts = new AtomicLongArray(size * BUCKETS);
+			nanos = new AtomicLongArray(size);
+		}
+	}
+}
@@ -6,9 +6,12 @@
  */
 package org.mars_sim.msp.core.person.ai.task.utils;
 
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CopyOnWriteArrayList;
 
@@ -91,6 +94,10 @@ public class MetaTaskUtil {
 	
 	private static List<MetaTask> robotMetaTasks = null;
 
+	/** The position of each meta task in the list of all meta tasks. */
+	private static Map<MetaTask, Integer> ordinals = null;
+	private static Map<Class<? extends MetaTask>, Integer> classOrdinals = null;
+
 	/**
 	 * Private constructor for utility class.
 	 */
@@ -132,6 +139,15 @@ public class MetaTaskUtil {
 			allMetaTasks.addAll(workHourMetaTasks); 
 			allMetaTasks.addAll(nonWorkHourMetaTasks); 
 			allMetaTasks.addAll(anyHourMetaTasks); 
+
+			Map<MetaTask, Integer> map = new IdentityHashMap<>();
+			Map<Class<? extends MetaTask>, Integer> classMap = new HashMap<>();
+			for (int i = 0; i < allMetaTasks.size(); i++) {
+				map.put(allMetaTasks.get(i), i);
+				classMap.put(allMetaTasks.get(i).getClass(), i);
+			}
+			classOrdinals = classMap;
+			ordinals = map;
 		}
 	}
 
@@ -351,6 +367,44 @@ public class MetaTaskUtil {
 	 * 
 	 * @return list of meta tasks.
 	 */
+	/**
+	 * Gets the number of meta tasks for people.
+	 * 
+	 * @return the number of meta tasks
+	 */
+	public static int getMetaTaskCount() {
+		return getAllMetaTasks().size();
+	}
+
+	/**
+	 * Gets the ordinal of a meta task, i.e. its position in the list of all meta
+	 * tasks, used to index arrays by meta task.
+	 * 
+	 * @param metaTask the meta task
+	 * @return the ordinal, or -1 if it is not a meta task for people
+	 */
+	public static int getOrdinal(MetaTask metaTask) {
+		if (ordinals == null) {
+			initializeMetaTasks();
+		}
+		Integer result = ordinals.get(metaTask);
+		return (result != null) ? result : -1;
+	}
+
+	/**
+	 * Gets the ordinal of a meta task class.
+	 * 
+	 * @param metaTaskClass the meta task class
+	 * @return the ordinal, or -1 if it is not a meta task for people
+	 */
+	public static int getOrdinal(Class<? extends MetaTask> metaTaskClass) {
+		if (classOrdinals == null) {
+			initializeMetaTasks();
+		}
+		Integer result = classOrdinals.get(metaTaskClass);
+		return (result != null) ? result : -1;
+	}
+
 	public static Set<MetaTask> getMetaTasksSet() {
 		return new HashSet<MetaTask>(getAllMetaTasks());
 	}
@@ -468,5 +522,7 @@ public class MetaTaskUtil {
 		nonWorkHourMetaTasks = null;
 		anyHourMetaTasks = null;
 		robotMetaTasks = null;
+		ordinals = null;
+		classOrdinals = null;
 	}
 }
@@ -7,17 +7,18 @@
 package org.mars_sim.msp.core.person.ai.task.utils;
 
 import java.io.Serializable;
-import java.util.Iterator;
+import java.util.BitSet;
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import org.mars_sim.msp.core.LogConsolidated;
 import org.mars_sim.msp.core.Simulation;
+import org.mars_sim.msp.core.UnitEventBus;
 import org.mars_sim.msp.core.UnitEventType;
+import org.mars_sim.msp.core.UnitListener;
+import org.mars_sim.msp.core.malfunction.Malfunctionable;
 import org.mars_sim.msp.core.person.CircadianClock;
 import org.mars_sim.msp.core.person.Person;
 import org.mars_sim.msp.core.person.PhysicalCondition;
@@ -29,6 +30,26 @@ import org.mars_sim.msp.core.person.ai.task.ExitAirlock;
 import org.mars_sim.msp.core.person.ai.task.RepairEmergencyMalfunction;
 import org.mars_sim.msp.core.person.ai.task.RepairEmergencyMalfunctionEVA;
 import org.mars_sim.msp.core.person.ai.task.Walk;
+import org.mars_sim.msp.core.person.ai.task.meta.ConnectWithEarthMeta;
+import org.mars_sim.msp.core.person.ai.task.meta.DayDreamMeta;
+import org.mars_sim.msp.core.person.ai.task.meta.EatDrinkMeta;
+import org.mars_sim.msp.core.person.ai.task.meta.HaveConversationMeta;
+import org.mars_sim.msp.core.person.ai.task.meta.ListenToMusicMeta;
+import org.mars_sim.msp.core.person.ai.task.meta.MaintenanceMeta;
+import org.mars_sim.msp.core.person.ai.task.meta.MeetTogetherMeta;
+import org.mars_sim.msp.core.person.ai.task.meta.ObserveAstronomicalObjectsMeta;
+import org.mars_sim.msp.core.person.ai.task.meta.PlayHoloGameMeta;
+import org.mars_sim.msp.core.person.ai.task.meta.PrescribeMedicationMeta;
+import org.mars_sim.msp.core.person.ai.task.meta.RelaxMeta;
+import org.mars_sim.msp.core.person.ai.task.meta.RepairEVAMalfunctionMeta;
+import org.mars_sim.msp.core.person.ai.task.meta.RepairMalfunctionMeta;
+import org.mars_sim.msp.core.person.ai.task.meta.RequestMedicalTreatmentMeta;
+import org.mars_sim.msp.core.person.ai.task.meta.ReturnLightUtilityVehicleMeta;
+import org.mars_sim.msp.core.person.ai.task.meta.SelfTreatHealthProblemMeta;
+import org.mars_sim.msp.core.person.ai.task.meta.SleepMeta;
+import org.mars_sim.msp.core.person.ai.task.meta.WalkMeta;
+import org.mars_sim.msp.core.person.ai.task.meta.WorkoutMeta;
+import org.mars_sim.msp.core.structure.Settlement;
 import org.mars_sim.msp.core.structure.building.Building;
 import org.mars_sim.msp.core.time.MarsClock;
 import org.mars_sim.msp.core.tool.RandomUtil;
@@ -38,6 +59,13 @@ import org.mars_sim.msp.core.vehicle.Vehicle;
  * The TaskManager class keeps track of a person's current task and can randomly
  * assign a new task to a person based on a list of possible tasks and that
  * person's current situation.
+ * <p>
+ * The probability of each meta task is kept until one of its inputs changes:
+ * the shift, the time of day, the needs of the person passing a band, e.g. a
+ * fatigue threshold, the place of the person, a health problem, or a
+ * malfunction in the settlement for the repair tasks. The inputs with no
+ * signal, e.g. the state of the settlement, are caught up with at the next
+ * change of the time of day band.
  *
  * There is one instance of TaskManager per person.
  */
@@ -53,6 +81,11 @@ public class TaskManager implements Serializable {
 
 	private static String sourceName = loggerName.substring(loggerName.lastIndexOf(".") + 1, loggerName.length());
 
+	private static final int CLEAR_TASKS_LOG = LogConsolidated.key("TaskManager.clearAllTasks");
+	private static final int NO_NEW_TASK_LOG = LogConsolidated.key("TaskManager.noNewTask");
+	private static final int INVALID_CACHE_LOG = LogConsolidated.key("TaskManager.invalidTaskCache");
+	private static final int HIGH_PROBABILITY_LOG = LogConsolidated.key("TaskManager.highProbability");
+
 	private static String EVA = "eva";
 	private static String DIG = "dig";
 	private static String EXPLORE_SITE = "exploresite";
@@ -67,16 +100,40 @@ public class TaskManager implements Serializable {
 //	private static final String WALK = "walk";
 
 	private static final int MAX_TASK_PROBABILITY = 35_000;
+	/** The widths of the bands of the needs of a person. */
+	private static final double FATIGUE_BAND = 250D;
+	private static final double HUNGER_BAND = 250D;
+	private static final double THIRST_BAND = PhysicalCondition.THIRST_THRESHOLD / 2D;
+	private static final double STRESS_BAND = 5D;
+	private static final double ENERGY_BAND = 500D;
+
+	/**
+	 * Marks the repair tasks of the people of a settlement as dirty when a
+	 * malfunction there starts or is fixed.
+	 */
+	private static final UnitListener MALFUNCTION_LISTENER = event -> {
+		Object source = event.getSource();
+		Settlement settlement = null;
+		if (source instanceof Settlement) {
+			settlement = (Settlement) source;
+		}
+		else if (source instanceof Malfunctionable) {
+			settlement = ((Malfunctionable) source).getAssociatedSettlement();
+		}
+		if (settlement != null) {
+			for (Person p : settlement.getAllAssociatedPeople()) {
+				TaskManager taskManager = p.getMind().getTaskManager();
+				taskManager.markTaskDirty(RepairMalfunctionMeta.class);
+				taskManager.markTaskDirty(RepairEVAMalfunctionMeta.class);
+			}
+		}
+	};
 	/** A decimal number a little bigger than zero for comparing doubles. */
 //	private static final double SMALL_AMOUNT = 0.001;
 	
 	// Data members
 	/** The cache for work shift. */
 	private int shiftCache;
-	/** The cache for msol. */
-	private double msolCache = -1.0;
-	/** The cache for total probability. */
-	private double totalProbCache;
 	/** The cache for task name. */
 //	private String taskNameCache = "";
 	/** The cache for task description. */
@@ -103,7 +160,20 @@ public class TaskManager implements Serializable {
 	/** The TaskSchedule reference */ 
 	private transient TaskSchedule taskSchedule = null;
 
-	private transient Map<MetaTask, Double> taskProbCache;
+	/** The probability weights of the meta tasks, indexed by meta task ordinal. */
+	private transient TaskWeights taskWeights;
+	/** The meta tasks in mtListCache. */
+	private transient BitSet shiftTasks;
+	/** The meta tasks whose probability need to be worked out again. */
+	private transient BitSet dirtyTasks;
+	private transient boolean allTasksDirty;
+	/** The place the probabilities were worked out in, see getPlace(). */
+	private transient long placeCache;
+	/** The bands of the needs the probabilities were worked out with. */
+	private transient int needsBandCache;
+	private transient int thirstBandCache;
+	private transient int energyBandCache;
+	private transient boolean shiftHourCache;
 	private transient List<MetaTask> mtListCache;
 
 	private List<String> pendingTasks;
@@ -115,6 +185,7 @@ public class TaskManager implements Serializable {
 		Simulation sim = Simulation.instance();
 		missionManager = sim.getMissionManager();
 		marsClock = sim.getMasterClock().getMarsClock();
+		UnitEventBus.getInstance().addUnitListener(MALFUNCTION_LISTENER, UnitEventType.MALFUNCTION_EVENT);
 	}
 	
 	/**
@@ -132,10 +203,6 @@ public class TaskManager implements Serializable {
 
 		currentTask = null;
 
-		// Initialize cache values.
-		taskProbCache = new ConcurrentHashMap<MetaTask, Double>();
-		totalProbCache = 0D;
-		
 		pendingTasks = new CopyOnWriteArrayList<>();
 	}
 
@@ -366,12 +433,14 @@ public class TaskManager implements Serializable {
 //		endSubTask();
 		String lastTask = (currentTask != null ? currentTask.getDescription() : "unknown");
 		endCurrentTask();
-		LogConsolidated.log(logger, Level.WARNING, 4_000, sourceName, 
+		int count = LogConsolidated.acquire(logger, Level.WARNING, 4_000, CLEAR_TASKS_LOG);
+		if (count > 0)
+			LogConsolidated.logAcquired(logger, Level.WARNING, count, sourceName, 
 				"[" + person.getLocale() + "] "
 				+ person.getName() 
 				+ " just cleared all tasks whilst doing " + lastTask + " at ("
 				+ Math.round(person.getXLocation()*10.0)/10.0 + ", " 
-				+ Math.round(person.getYLocation()*10.0)/10.0 + ").");
+				+ Math.round(person.getYLocation()*10.0)/10.0 + ").", null);
 	}
 
 	/**
@@ -653,12 +722,9 @@ public class TaskManager implements Serializable {
 		Task result = null;
 		MetaTask selectedMetaTask = null;
 
-		// If cache is not current, calculate the probabilities.
-		if (!useCache()) {
-			rebuildTaskCache();
-		}		
+		rebuildTaskCache();
 
-		if (totalProbCache == 0D) {
+		if (taskWeights.isEmpty()) {
 //			LogConsolidated.log(Level.SEVERE, 5_000, sourceName,
 //			person.getName() + " has zero total task probability weight.");
 
@@ -667,35 +733,28 @@ public class TaskManager implements Serializable {
 			List<MetaTask> list = MetaTaskUtil.getNonWorkHourMetaTasks();
 			selectedMetaTask = list.get(RandomUtil.getRandomInt(list.size() - 1));
 
-		} else if (taskProbCache != null && !taskProbCache.isEmpty()) {
+		} else {
 
-			double r = RandomUtil.getRandomDouble(totalProbCache);
+			double r = RandomUtil.getRandomDouble(taskWeights.getTotal());
 
 			// Determine which task is selected.
-			Iterator<MetaTask> it = taskProbCache.keySet().iterator();
-			while ((selectedMetaTask == null) && it.hasNext()) {
-				MetaTask mt = it.next();
-				double probWeight = taskProbCache.get(mt);
-				if (r <= probWeight) {
-					// Select this task
-					selectedMetaTask = mt;
-				} else {
-					r -= probWeight;
-				}
+			int ordinal = taskWeights.find(r);
+			if (ordinal >= 0) {
+				selectedMetaTask = MetaTaskUtil.getAllMetaTasks().get(ordinal);
 			}
 		}
 
 		if (selectedMetaTask == null) {
-			LogConsolidated.log(logger, Level.SEVERE, 5_000, sourceName, 
-				person.getName() + " could not determine a new task.");
+			LogConsolidated.log(logger, Level.SEVERE, 5_000, NO_NEW_TASK_LOG, sourceName, 
+				"%s could not determine a new task.", person.getName());
 		} else {
 			// Call constructInstance of the selected Meta Task to commence the ai task
 			result = selectedMetaTask.constructInstance(mind.getPerson());
 //			LogConsolidated.log(Level.FINE, 5_000, sourceName, person + " is going to " + selectedMetaTask.getName());
-		}
 
-		// Clear time cache.
-		msolCache = -1;
+			// The task picked usually weighs differently once started, e.g. sleeping
+			markTaskDirty(selectedMetaTask.getClass());
+		}
 
 //		LogConsolidated.log(Level.INFO, 0, sourceName,
 //				person.getName() + " will return the task of '" + result + "' from getNewTask()"); 
@@ -711,9 +770,31 @@ public class TaskManager implements Serializable {
 	public double getTotalTaskProbability(boolean useCache) {
 		// If cache is not current, calculate the probabilities.
 		if (!useCache) {
-			rebuildTaskCache();
+			markAllTasksDirty();
+		}
+		rebuildTaskCache();
+		return taskWeights.getTotal();
+	}
+
+	/**
+	 * Marks the probabilities of all the meta tasks as out of date, e.g. after a
+	 * change in the health of the person.
+	 */
+	public synchronized void markAllTasksDirty() {
+		allTasksDirty = true;
+	}
+
+	/**
+	 * Marks the probability of a meta task as out of date, e.g. after an event in
+	 * the settlement that this meta task depends on.
+	 *
+	 * @param metaTaskClass the meta task class
+	 */
+	public synchronized void markTaskDirty(Class<? extends MetaTask> metaTaskClass) {
+		int ordinal = MetaTaskUtil.getOrdinal(metaTaskClass);
+		if (ordinal >= 0 && dirtyTasks != null) {
+			dirtyTasks.set(ordinal);
 		}
-		return totalProbCache;
 	}
 
 	public static boolean isInMissionWindow(double time) {
@@ -723,11 +804,19 @@ public class TaskManager implements Serializable {
 	}
 
 	/**
-	 * Calculates and caches the probabilities.
-	 * This will NOT use the cache but assumes the callers know when a cahce can be used or not used. 
+	 * Calculates and caches the probabilities of the meta tasks marked as dirty,
+	 * and of the meta tasks that came with a change of shift.
 	 */
 	private synchronized void rebuildTaskCache() {
 
+		// Note : the weights are not saved
+		if (taskWeights == null) {
+			taskWeights = new TaskWeights(MetaTaskUtil.getMetaTaskCount());
+			shiftTasks = new BitSet();
+			dirtyTasks = new BitSet();
+			mtListCache = null;
+		}
+
 		int shift = 0;
 
 		if (taskSchedule.getShiftType() == ShiftType.ON_CALL) {
@@ -742,6 +831,15 @@ public class TaskManager implements Serializable {
 			shift = 2;
 		}
 
+		// A move of the person makes all the probabilities out of date, otherwise
+		// only the ones of the meta tasks reading an input that changed
+		long place = getPlace();
+		if (place != placeCache) {
+			placeCache = place;
+			allTasksDirty = true;
+		}
+		markInputTasksDirty();
+
 		// Note : mtListCache is null when loading from a saved sim
 		if (shiftCache != shift || mtListCache == null) {
 			shiftCache = shift;
@@ -763,51 +861,123 @@ public class TaskManager implements Serializable {
 
 			// Use new mtList
 			mtListCache = mtList;
-		}
 
-		// Create new taskProbCache
-		taskProbCache = new ConcurrentHashMap<MetaTask, Double>(mtListCache.size());
-		totalProbCache = 0D;
-		
-		// Determine probabilities.
-		for (MetaTask mt : mtListCache) {
-			double probability = mt.getProbability(person);
-			if ((probability > 0D) && (!Double.isNaN(probability)) && (!Double.isInfinite(probability))) {
-				if (probability > MAX_TASK_PROBABILITY) {
-					if (!mt.getName().equalsIgnoreCase("sleeping")) { 
-						LogConsolidated.log(logger, Level.INFO, 10_000, sourceName, mind.getPerson().getName() + " - "
-							+ mt.getName() + "'s probability is at all time high ("
-							+ Math.round(probability * 10.0) / 10.0 + ").");
-					}
-					probability = MAX_TASK_PROBABILITY;
+			BitSet tasks = new BitSet(taskWeights.size());
+			for (MetaTask mt : mtList) {
+				tasks.set(MetaTaskUtil.getOrdinal(mt));
+			}
+			// Drop the tasks out of the shift and work out the ones new to it
+			for (int i = shiftTasks.nextSetBit(0); i >= 0; i = shiftTasks.nextSetBit(i + 1)) {
+				if (!tasks.get(i)) {
+					taskWeights.set(i, 0D);
 				}
+			}
+			BitSet added = (BitSet) tasks.clone();
+			added.andNot(shiftTasks);
+			dirtyTasks.or(added);
+			shiftTasks = tasks;
+		}
+
+		if (allTasksDirty) {
+			allTasksDirty = false;
+			taskWeights.clear();
+			dirtyTasks.or(shiftTasks);
+		}
 
-				taskProbCache.put(mt, probability);
-				totalProbCache += probability;
+		// Determine probabilities.
+		List<MetaTask> allTasks = MetaTaskUtil.getAllMetaTasks();
+		for (int i = dirtyTasks.nextSetBit(0); i >= 0; i = dirtyTasks.nextSetBit(i + 1)) {
+			if (shiftTasks.get(i)) {
+				taskWeights.set(i, getProbability(allTasks.get(i), i));
 			}
 		}
-		
+		dirtyTasks.clear();
+
 		// Safety check, there should always be something to do
-		if (taskProbCache.isEmpty() || (totalProbCache == 0)) {
-			LogConsolidated.log(logger, Level.SEVERE, 5_000, sourceName,
-					mind.getPerson().getName() + " has invalid taskCache size=" + taskProbCache.size()
-							+ " : TotalProb=" + totalProbCache);				
+		if (taskWeights.isEmpty()) {
+			int count = LogConsolidated.acquire(logger, Level.SEVERE, 5_000, INVALID_CACHE_LOG);
+			if (count > 0)
+				LogConsolidated.logAcquired(logger, Level.SEVERE, count, sourceName,
+					mind.getPerson().getName() + " has invalid taskCache size=" + mtListCache.size()
+							+ " : TotalProb=" + taskWeights.getTotal(), null);
 		}
 	}
 
 	/**
-	 * Checks if task probability cache should be used.
+	 * Calculates the probability of a meta task and records the time it took.
+	 *
+	 * @param mt      the meta task
+	 * @param ordinal the meta task ordinal
+	 * @return the probability weight, or 0 if invalid
+	 */
+	private double getProbability(MetaTask mt, int ordinal) {
+		long start = System.nanoTime();
+		double probability = mt.getProbability(person);
+		MetaTaskProfiler.record(ordinal, System.nanoTime() - start);
+
+		if ((probability > 0D) && (!Double.isNaN(probability)) && (!Double.isInfinite(probability))) {
+			if (probability > MAX_TASK_PROBABILITY) {
+				if (!mt.getName().equalsIgnoreCase("sleeping")) {
+					LogConsolidated.log(logger, Level.INFO, 10_000, HIGH_PROBABILITY_LOG, sourceName,
+						"%s - %s's probability is at all time high (%.1f).", mind.getPerson().getName(), mt.getName(),
+						probability);
+				}
+				probability = MAX_TASK_PROBABILITY;
+			}
+			return probability;
+		}
+		return 0D;
+	}
+
+	/**
+	 * Gets the place of the person, i.e. the container and the building, as a key
+	 * that changes whenever the person moves.
 	 * 
-	 * @return true if cache should be used.
+	 * @return the key.
+	 */
+	private long getPlace() {
+		long result = person.getContainerID();
+		Building building = person.getBuildingLocation();
+		result = 31 * result + ((building != null) ? building.getIdentifier() : -1);
+		return result;
+	}
+
+	/**
+	 * Marks as dirty the meta tasks reading a need of the person that moved to
+	 * another band or whether the person is on shift, if that changed, and the
+	 * meta tasks following the time of day.
 	 */
-	private boolean useCache() {
-		double msol = marsClock.getMillisol();
-		double diff = msol - msolCache;
-		if (diff > 0.1D) {
-			msolCache = msol;
-			return false;
+	private void markInputTasksDirty() {
+		if (health == null)
+			health = person.getPhysicalCondition();
+
+		int band = (int) (health.getFatigue() / FATIGUE_BAND);
+		band = 31 * band + (int) (health.getHunger() / HUNGER_BAND);
+		band = 31 * band + (int) (health.getStress() / STRESS_BAND);
+		if (band != needsBandCache) {
+			needsBandCache = band;
+			dirtyTasks.or(InputTasks.NEEDS);
 		}
-		return true;
+
+		band = (int) (health.getThirst() / THIRST_BAND);
+		if (band != thirstBandCache) {
+			thirstBandCache = band;
+			dirtyTasks.or(InputTasks.THIRST);
+		}
+
+		band = (int) (health.getEnergy() / ENERGY_BAND);
+		if (band != energyBandCache) {
+			energyBandCache = band;
+			dirtyTasks.or(InputTasks.ENERGY);
+		}
+
+		boolean shiftHour = taskSchedule.isShiftHour(marsClock.getMillisolInt());
+		if (shiftHour != shiftHourCache) {
+			shiftHourCache = shiftHour;
+			dirtyTasks.or(InputTasks.SHIFT_HOUR);
+		}
+
+		dirtyTasks.or(InputTasks.CLOCK);
 	}
 
 	public TaskSchedule getTaskSchedule() {
@@ -909,9 +1079,49 @@ public class TaskManager implements Serializable {
 		circadian = null;
 		taskSchedule = null;
 		marsClock = null;
-		if (taskProbCache != null) {
-			taskProbCache.clear();
-			taskProbCache = null;
+		taskWeights = null;
+		shiftTasks = null;
+		dirtyTasks = null;
+		mtListCache = null;
+	}
+
+	/**
+	 * The ordinals of the meta tasks reading each of the inputs followed by the
+	 * task manager. Events in the settlement mark their own meta tasks, see
+	 * {@link #MALFUNCTION_LISTENER}.
+	 */
+	private static final class InputTasks {
+		/** The meta tasks reading the fatigue, hunger or stress, i.e. all but these. */
+		private static final BitSet NEEDS = allBut(DayDreamMeta.class, HaveConversationMeta.class,
+				MaintenanceMeta.class, PrescribeMedicationMeta.class, RequestMedicalTreatmentMeta.class,
+				ReturnLightUtilityVehicleMeta.class, SelfTreatHealthProblemMeta.class, WalkMeta.class);
+		private static final BitSet THIRST = of(EatDrinkMeta.class);
+		private static final BitSet ENERGY = of(EatDrinkMeta.class, SleepMeta.class, WorkoutMeta.class);
+		/** The meta tasks checking if the person is on shift. */
+		private static final BitSet SHIFT_HOUR = of(ConnectWithEarthMeta.class, HaveConversationMeta.class,
+				ListenToMusicMeta.class, MeetTogetherMeta.class, PlayHoloGameMeta.class, RelaxMeta.class,
+				SleepMeta.class);
+		/** The meta tasks following the time of day or the sunlight, worked out every time. */
+		private static final BitSet CLOCK = of(SleepMeta.class, ObserveAstronomicalObjectsMeta.class);
+
+		@SafeVarargs
+		private static BitSet of(Class<? extends MetaTask>... metaTaskClasses) {
+			BitSet result = new BitSet();
+			for (Class<? extends MetaTask> c : metaTaskClasses) {
+				int ordinal = MetaTaskUtil.getOrdinal(c);
+				if (ordinal >= 0) {
+					result.set(ordinal);
+				}
+			}
+			return result;
+		}
+
+		@SafeVarargs
+		private static BitSet allBut(Class<? extends MetaTask>... metaTaskClasses) {
+			BitSet result = new BitSet();
+			result.set(0, MetaTaskUtil.getMetaTaskCount());
+			result.andNot(of(metaTaskClasses));
+			return result;
 		}
 	}
 }
@@ -0,0 +1,132 @@
+/**
+ * Mars Simulation Project
+ * TaskWeights.java
+ * @version 3.1.2 2026-10-17
+ * @author agent
+ */
+package org.mars_sim.msp.core.person.ai.task.utils;
+
+import java.util.Arrays;
+
+/**
+ * The probability weights of the meta tasks of a person, indexed by meta task
+ * ordinal (see {@link MetaTaskUtil#getOrdinal(MetaTask)}). The weights are
+ * kept in a Fenwick tree so that a single weight can be changed and a task
+ * can be picked in O(log n) without walking through every task or boxing the
+ * values into a map.
+ */
+public class TaskWeights {
+
+	private int size;
+	private double total;
+	private double[] weights;
+	/** The Fenwick tree, 1-based. */
+	private double[] tree;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param size the number of meta tasks
+	 */
+	public TaskWeights(int size) {
+		this.size = size;
+		weights = new double[size];
+		tree = new double[size + 1];
+	}
+
+	/**
+	 * Gets the number of meta tasks.
+	 *
+	 * @return the size
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Gets the weight of a meta task.
+	 *
+	 * @param ordinal the meta task ordinal
+	 * @return the weight
+	 */
+	public double get(int ordinal) {
+		return weights[ordinal];
+	}
+
+	/**
+	 * Sets the weight of a meta task.
+	 *
+	 * @param ordinal the meta task ordinal
+	 * @param weight  the new weight (0 or more)
+	 */
+	public void set(int ordinal, double weight) {
+		double delta = weight - weights[ordinal];
+		if (delta == 0D)
+			return;
+		weights[ordinal] = weight;
+		for (int i = ordinal + 1; i <= size; i += i & -i) {
+			tree[i] += delta;
+		}
+		total += delta;
+	}
+
+	/**
+	 * Gets the sum of all the weights.
+	 *
+	 * @return the total weight
+	 */
+	public double getTotal() {
+		return total;
+	}
+
+	/**
+	 * Checks if no meta task has any weight.
+	 *
+	 * @return true if all weights are 0
+	 */
+	public boolean isEmpty() {
+		return total <= 0D;
+	}
+
+	/**
+	 * Finds the meta task that a random number falls into, when the weights are
+	 * laid end to end in ordinal order.
+	 *
+	 * @param r a number between 0 and the total weight
+	 * @return the meta task ordinal, or -1 if all weights are 0
+	 */
+	public int find(double r) {
+		if (isEmpty())
+			return -1;
+		int pos = 0;
+		for (int step = Integer.highestOneBit(size); step > 0; step >>= 1) {
+			int next = pos + step;
+			if (next <= size && tree[next] <= r) {
+				pos = next;
+				r -= tree[next];
+			}
+		}
+		// Rounding may land on a task with no weight, or past the last one
+		if (pos >= size)
+			pos = size - 1;
+		for (int i = pos; i >= 0; i--) {
+			if (weights[i] > 0D)
+				return i;
+		}
+		for (int i = pos + 1; i < size; i++) {
+			if (weights[i] > 0D)
+				return i;
+		}
+		return -1;
+	}
+
+	/**
+	 * Sets all the weights to 0. This also clears any rounding drift built up by
+	 * setting the weights one at a time.
+	 */
+	public void clear() {
+		Arrays.fill(weights, 0D);
+		Arrays.fill(tree, 0D);
+		total = 0D;
+	}
+}
@@ -240,6 +240,21 @@ public class AmountResourceStorage implements Serializable {
 		return result;
 	}
 
+	/**
+	 * Gets the resource held by the phase storage a resource would go to. A phase
+	 * storage only holds one resource at a time, so the capacity for the other
+	 * resources of the phase changes whenever it fills up or runs empty.
+	 * 
+	 * @param resource the resource.
+	 * @return the resource held or null if none.
+	 */
+	public AmountResource getPhaseResourceStored(int resource) {
+		if (phaseStorage == null) {
+			return null;
+		}
+		return phaseStorage.getAmountResourcePhaseType(ResourceUtil.findAmountResource(resource).getPhase());
+	}
+
 	/**
 	 * Gets the amount of a resource stored.
 	 * 
@@ -223,6 +223,15 @@ public class ItemResourceUtil implements Serializable {
 		return itemResourceIDMap.keySet();
 	}
 
+	/**
+	 * Gets the number of item resources.
+	 * 
+	 * @return the number, or 0 if the resources are not loaded yet.
+	 */
+	public static int getItemResourceCount() {
+		return itemResourceIDMap == null ? 0 : itemResourceIDMap.size();
+	}
+
 	/**
 	 * Gets a list of sorted parts
 	 * 
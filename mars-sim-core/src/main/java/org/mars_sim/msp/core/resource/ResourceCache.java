@@ -0,0 +1,149 @@
+/**
+ * Mars Simulation Project
+ * ResourceCache.java
+ * @version 3.1.2 2026-10-17
+ * @author agent
+ */
+
+package org.mars_sim.msp.core.resource;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A cache of values keyed by resource id, e.g. the amount of each resource
+ * stored in an inventory. The values sit in an array indexed by the id less
+ * the first id of the resource kind, and a bitset tells which of them are
+ * dirty, so a lookup never allocates. Marking every resource dirty only
+ * clears a few words.
+ * <p>
+ * A bit is set when its value is up to date; any resource without a bit,
+ * including one the cache has never seen, is dirty. Lookups take no lock but
+ * every update is made under the lock of the cache, since the UI threads may
+ * refresh a value while the simulation adds to it or marks it dirty, and an
+ * add must not lose a concurrent one.
+ */
+public class ResourceCache {
+
+	/** The id held in the first slot. */
+	private final int first;
+
+	private volatile double[] values;
+	private volatile AtomicLongArray clean;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param first the lowest resource id of the cache
+	 * @param size  the expected number of ids
+	 */
+	public ResourceCache(int first, int size) {
+		this.first = first;
+		values = new double[Math.max(1, size)];
+		clean = new AtomicLongArray((values.length + 63) >> 6);
+	}
+
+	/**
+	 * Checks if the value of a resource needs to be worked out again.
+	 *
+	 * @param id the resource id
+	 * @return true if dirty
+	 */
+	public boolean isDirty(int id) {
+		int i = id - first;
+		AtomicLongArray c = clean;
+		if (i < 0 || (i >> 6) >= c.length())
+			return true;
+		return (c.get(i >> 6) & (1L << i)) == 0;
+	}
+
+	/**
+	 * Gets the cached value of a resource, dirty or not.
+	 *
+	 * @param id the resource id
+	 * @return the value, or 0 if it has never been set
+	 */
+	public double get(int id) {
+		int i = id - first;
+		double[] v = values;
+		if (i < 0 || i >= v.length)
+			return 0D;
+		return v[i];
+	}
+
+	/**
+	 * Sets the value of a resource and marks it as up to date.
+	 *
+	 * @param id    the resource id
+	 * @param value the value
+	 */
+	public synchronized void set(int id, double value) {
+		int i = id - first;
+		if (i < 0)
+			throw new IllegalArgumentException("Resource id " + id + " is below " + first);
+		if (i >= values.length)
+			grow(i + 1);
+		values[i] = value;
+		AtomicLongArray c = clean;
+		c.set(i >> 6, c.get(i >> 6) | (1L << i));
+	}
+
+	/**
+	 * Adds to the value of a resource if it is up to date. A dirty value is left
+	 * alone since it will be worked out again anyway. The read and the write are
+	 * made together so two threads adding at once both count.
+	 *
+	 * @param id    the resource id
+	 * @param delta the amount to add
+	 */
+	public synchronized void addIfClean(int id, double delta) {
+		if (!isDirty(id))
+			values[id - first] += delta;
+	}
+
+	/**
+	 * Marks the value of a resource as dirty.
+	 *
+	 * @param id the resource id
+	 */
+	public synchronized void setDirty(int id) {
+		int i = id - first;
+		AtomicLongArray c = clean;
+		if (i < 0 || (i >> 6) >= c.length())
+			return;
+		c.set(i >> 6, c.get(i >> 6) & ~(1L << i));
+	}
+
+	/**
+	 * Marks the value of every resource as dirty.
+	 */
+	public synchronized void setAllDirty() {
+		AtomicLongArray c = clean;
+		for (int w = 0; w < c.length(); w++) {
+			c.set(w, 0L);
+		}
+	}
+
+	/**
+	 * Gets the approximate number of bytes taken on the heap.
+	 *
+	 * @return the footprint in bytes
+	 */
+	public long getMemoryFootprint() {
+		return 24 + 16 + 8L * values.length + 32 + 8L * clean.length();
+	}
+
+	/**
+	 * Makes room for a resource id that was not known when the cache was made.
+	 * Every value is left dirty.
+	 *
+	 * @param size the new number of slots
+	 */
+	private synchronized void grow(int size) {
+		if (size <= values.length)
+			return;
+		double[] v = Arrays.copyOf(values, Math.max(size, values.length + (values.length >> 1)));
+		clean = new AtomicLongArray((v.length + 63) >> 6);
+		values = v;
+	}
+}
@@ -0,0 +1,176 @@
+/**
+ * Mars Simulation Project
+ * ResourceTable.java
+ * @version 3.1.2 2026-10-17
+ * @author agent
+ */
+
+package org.mars_sim.msp.core.resource;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * A dense table of values keyed by resource id, used in place of a boxed
+ * Map<Integer, Double> or Map<Integer, Integer>. The values sit in an array
+ * indexed by the id less the first id of the resource kind, so reading and
+ * updating a value never allocates. The array is only created on the first
+ * write and grows if a higher id shows up. A bit is kept for every id that
+ * has been written so that the table still knows its size like a map does.
+ * Reading a value never records it. The table is shared by the units of a
+ * settlement updated on different threads, so every access takes its lock,
+ * which also covers the arrays being replaced when they grow.
+ */
+public class ResourceTable implements Serializable {
+
+	/** default serial id. */
+	private static final long serialVersionUID = 1L;
+
+	/** The id held in the first slot. */
+	private int first;
+	/** The number of slots to create on the first write. */
+	private int initialSize;
+	/** True if the values are counts, which are divided as integers. */
+	private boolean integral;
+
+	private double[] values;
+	private long[] present;
+	private int size;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param first       the lowest resource id of the table
+	 * @param initialSize the expected number of ids
+	 * @param integral    true if the table holds integer counts
+	 */
+	public ResourceTable(int first, int initialSize, boolean integral) {
+		this.first = first;
+		this.initialSize = Math.max(1, initialSize);
+		this.integral = integral;
+	}
+
+	/**
+	 * Checks if a value has been recorded for a resource.
+	 *
+	 * @param id the resource id
+	 * @return true if present
+	 */
+	public synchronized boolean containsKey(int id) {
+		int i = id - first;
+		long[] p = present;
+		return p != null && i >= 0 && (i >> 6) < p.length && (p[i >> 6] & (1L << i)) != 0;
+	}
+
+	/**
+	 * Gets the value of a resource.
+	 *
+	 * @param id the resource id
+	 * @return the value, or 0 if none has been recorded
+	 */
+	public synchronized double get(int id) {
+		int i = id - first;
+		double[] v = values;
+		if (v == null || i < 0 || i >= v.length)
+			return 0D;
+		return v[i];
+	}
+
+	/**
+	 * Sets the value of a resource.
+	 *
+	 * @param id    the resource id
+	 * @param value the value
+	 */
+	public synchronized void put(int id, double value) {
+		int i = slot(id);
+		values[i] = value;
+		if ((present[i >> 6] & (1L << i)) == 0) {
+			present[i >> 6] |= 1L << i;
+			size++;
+		}
+	}
+
+	/**
+	 * Adds to the value of a resource.
+	 *
+	 * @param id    the resource id
+	 * @param delta the amount to add
+	 * @return the new value
+	 */
+	public synchronized double add(int id, double delta) {
+		double value = get(id) + delta;
+		put(id, value);
+		return value;
+	}
+
+	/**
+	 * Divides every value by the same number, e.g. to turn a total over a
+	 * number of sols into a daily average.
+	 *
+	 * @param divisor the divisor
+	 */
+	public synchronized void divideAll(int divisor) {
+		double[] v = values;
+		if (v == null)
+			return;
+		for (int i = 0; i < v.length; i++) {
+			if (integral)
+				v[i] = (int) v[i] / divisor;
+			else
+				v[i] = v[i] / divisor;
+		}
+	}
+
+	/**
+	 * Removes all the values.
+	 */
+	public synchronized void clear() {
+		if (values != null) {
+			Arrays.fill(values, 0D);
+			Arrays.fill(present, 0L);
+		}
+		size = 0;
+	}
+
+	/**
+	 * Gets the number of resources with a recorded value.
+	 *
+	 * @return the size
+	 */
+	public synchronized int size() {
+		return size;
+	}
+
+	/**
+	 * Gets the approximate number of bytes taken on the heap.
+	 *
+	 * @return the footprint in bytes
+	 */
+	public synchronized long getMemoryFootprint() {
+		long bytes = 40;
+		if (values != null)
+			bytes += 16 + 8L * values.length + 16 + 8L * present.length;
+		return bytes;
+	}
+
+	/**
+	 * Gets the slot of a resource, creating or growing the arrays if needed.
+	 *
+	 * @param id the resource id
+	 * @return the index into the arrays
+	 */
+	private int slot(int id) {
+		int i = id - first;
+		if (i < 0)
+			throw new IllegalArgumentException("Resource id " + id + " is below " + first);
+		if (values == null) {
+			values = new double[Math.max(initialSize, i + 1)];
+			present = new long[(values.length + 63) >> 6];
+		} else if (i >= values.length) {
+			values = Arrays.copyOf(values, Math.max(i + 1, values.length + (values.length >> 1)));
+			present = Arrays.copyOf(present, (values.length + 63) >> 6);
+		}
+		return i;
+	}
+}
@@ -616,6 +616,15 @@ public class ResourceUtil implements Serializable {
 		return amountResourceIDMap.keySet();
 	}
 
+	/**
+	 * Gets the number of amount resources.
+	 * 
+	 * @return the number, or 0 if the resources are not loaded yet.
+	 */
+	public static int getAmountResourceCount() {
+		return amountResourceIDMap == null ? 0 : amountResourceIDMap.size();
+	}
+
 //  An example method
 //	private Set<T> intersection(Collection<T> first, Collection<T> second) {
 //		// intersection with an empty collection is empty
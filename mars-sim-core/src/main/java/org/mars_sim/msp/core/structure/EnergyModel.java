@@ -0,0 +1,533 @@
+/**
+ * Mars Simulation Project
+ * EnergyModel.java
+ * @version 3.1.2 2026-10-17
+ * @author agent
+ */
+package org.mars_sim.msp.core.structure;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.mars_sim.msp.core.structure.building.Building;
+import org.mars_sim.msp.core.structure.building.function.FunctionType;
+import org.mars_sim.msp.core.structure.building.function.PowerMode;
+import org.mars_sim.msp.core.structure.building.function.PowerStorage;
+
+/**
+ * The power and heat state of the buildings of a settlement, kept in parallel
+ * arrays by building slot. The power and heat functions write their state in
+ * from their setters as it changes, and each building writes the power it
+ * requires at the end of its own time passing. The power grid and the thermal
+ * system then solve the settlement from the arrays in a single pass rather
+ * than walking the buildings and their functions for each total.
+ * <p>
+ * The slots are only lined up again with the buildings once the list of the
+ * buildings has changed. The grid runs before the buildings in a pulse, so like
+ * the walk it replaces, it solves from the state the buildings were left in by
+ * the previous pulse. The model is rebuilt on the first pulse, so it needs no
+ * saving.
+ */
+public class EnergyModel {
+
+	private static final int INITIAL_SIZE = 16;
+
+	/** The number of buildings. */
+	private int size;
+	/** The buildings, by slot. */
+	private Building[] buildings = new Building[INITIAL_SIZE];
+	/** True if the building has life support, by slot. */
+	private boolean[] lifeSupport = new boolean[INITIAL_SIZE];
+
+	/** The power generated (kW), by slot. */
+	private double[] generatedPower = new double[INITIAL_SIZE];
+	/** The power required at full power (kW), by slot. */
+	private double[] fullPowerRequired = new double[INITIAL_SIZE];
+	/** The power required when powered down (kW), by slot. */
+	private double[] poweredDownPowerRequired = new double[INITIAL_SIZE];
+
+	/** The slots of the buildings with power storage, in building order. */
+	private int[] storageSlots = new int[INITIAL_SIZE];
+	private int storageCount;
+	/** The grid batteries, by slot. */
+	private PowerStorage[] storages = new PowerStorage[INITIAL_SIZE];
+	/** The energy stored (kWh), by slot. */
+	private double[] storedEnergy = new double[INITIAL_SIZE];
+	/** The energy storage capacity (kWh), by slot. */
+	private double[] storageCapacity = new double[INITIAL_SIZE];
+	/** The battery terminal voltage, by slot. */
+	private double[] terminalVoltage = new double[INITIAL_SIZE];
+	/** The battery internal resistance (ohm), by slot. */
+	private double[] resistance = new double[INITIAL_SIZE];
+	/** The battery amp hour rating, by slot. */
+	private double[] ampHours = new double[INITIAL_SIZE];
+	/** The battery C rating, by slot. */
+	private double[] cRating = new double[INITIAL_SIZE];
+
+	/** The heat generated (kW), by slot. */
+	private double[] generatedHeat = new double[INITIAL_SIZE];
+	/** The power generated by the heat engines (kW), by slot. */
+	private double[] thermalPower = new double[INITIAL_SIZE];
+
+	/** True if the buildings have changed since the slots were lined up. */
+	private volatile boolean stale = true;
+	/** The pulse last updated for. */
+	private long updatedPulse = -1;
+	/** The pulse last solved for. */
+	private long solvedPulse = -1;
+	private double totalGeneratedPower;
+	private double totalFullPowerRequired;
+	private double totalPoweredDownPowerRequired;
+	private double totalStoredEnergy;
+	private double totalStorageCapacity;
+	private double totalGeneratedHeat;
+	private double totalThermalPower;
+
+	/**
+	 * Works out the totals, lining the slots up with the buildings first if they
+	 * have changed. This is done once per pulse, so both the power grid and the
+	 * thermal system can call it.
+	 *
+	 * @param list    the buildings of the settlement.
+	 * @param pulseId the id of the clock pulse.
+	 */
+	public void update(List<Building> list, long pulseId) {
+		if (pulseId == updatedPulse)
+			return;
+		updatedPulse = pulseId;
+
+		if (stale) {
+			stale = false;
+			sync(list);
+		}
+		solve(pulseId);
+	}
+
+	/**
+	 * Marks the slots as no longer lined up with the buildings, e.g. when a
+	 * building is added or removed.
+	 */
+	public void invalidate() {
+		stale = true;
+	}
+
+	/**
+	 * Lines the slots up with the buildings of the settlement, keeping the state
+	 * of the buildings already in the model. The new buildings write their state
+	 * in once and the ones gone are told they no longer have a slot.
+	 *
+	 * @param list the buildings of the settlement.
+	 */
+	void sync(List<Building> list) {
+		Building[] current = list.toArray(new Building[list.size()]);
+
+		EnergyModel old = copy();
+		resize(current.length);
+		storageCount = 0;
+		for (int i = 0; i < current.length; i++) {
+			Building b = current[i];
+			buildings[i] = b;
+			lifeSupport[i] = b.hasFunction(FunctionType.LIFE_SUPPORT);
+			storages[i] = null;
+			storedEnergy[i] = 0D;
+			storageCapacity[i] = 0D;
+			generatedPower[i] = 0D;
+			fullPowerRequired[i] = 0D;
+			poweredDownPowerRequired[i] = 0D;
+			generatedHeat[i] = 0D;
+			thermalPower[i] = 0D;
+			if (b.hasFunction(FunctionType.POWER_STORAGE))
+				storageSlots[storageCount++] = i;
+
+			boolean known = false;
+			for (int j = 0; j < old.size && !known; j++) {
+				if (old.buildings[j] == b) {
+					copySlot(old, j, i);
+					old.buildings[j] = null;
+					known = true;
+				}
+			}
+			b.setEnergySlot(this, i);
+			if (!known)
+				b.updateEnergyModel(this, i);
+		}
+		for (int j = 0; j < old.size; j++) {
+			if (old.buildings[j] != null)
+				old.buildings[j].setEnergySlot(null, -1);
+		}
+		solvedPulse = -1;
+	}
+
+	/**
+	 * Sets the number of slots, growing the arrays if needed.
+	 *
+	 * @param newSize the number of slots.
+	 */
+	void resize(int newSize) {
+		if (newSize > buildings.length) {
+			int length = Math.max(newSize, buildings.length * 2);
+			buildings = Arrays.copyOf(buildings, length);
+			lifeSupport = Arrays.copyOf(lifeSupport, length);
+			generatedPower = Arrays.copyOf(generatedPower, length);
+			fullPowerRequired = Arrays.copyOf(fullPowerRequired, length);
+			poweredDownPowerRequired = Arrays.copyOf(poweredDownPowerRequired, length);
+			storageSlots = Arrays.copyOf(storageSlots, length);
+			storages = Arrays.copyOf(storages, length);
+			storedEnergy = Arrays.copyOf(storedEnergy, length);
+			storageCapacity = Arrays.copyOf(storageCapacity, length);
+			terminalVoltage = Arrays.copyOf(terminalVoltage, length);
+			resistance = Arrays.copyOf(resistance, length);
+			ampHours = Arrays.copyOf(ampHours, length);
+			cRating = Arrays.copyOf(cRating, length);
+			generatedHeat = Arrays.copyOf(generatedHeat, length);
+			thermalPower = Arrays.copyOf(thermalPower, length);
+		}
+		for (int i = newSize; i < size; i++) {
+			buildings[i] = null;
+			storages[i] = null;
+		}
+		size = newSize;
+	}
+
+	private EnergyModel copy() {
+		EnergyModel result = new EnergyModel();
+		result.resize(size);
+		for (int i = 0; i < size; i++) {
+			result.buildings[i] = buildings[i];
+			result.copySlot(this, i, i);
+		}
+		return result;
+	}
+
+	private void copySlot(EnergyModel from, int fromSlot, int toSlot) {
+		generatedPower[toSlot] = from.generatedPower[fromSlot];
+		fullPowerRequired[toSlot] = from.fullPowerRequired[fromSlot];
+		poweredDownPowerRequired[toSlot] = from.poweredDownPowerRequired[fromSlot];
+		storages[toSlot] = from.storages[fromSlot];
+		storedEnergy[toSlot] = from.storedEnergy[fromSlot];
+		storageCapacity[toSlot] = from.storageCapacity[fromSlot];
+		terminalVoltage[toSlot] = from.terminalVoltage[fromSlot];
+		resistance[toSlot] = from.resistance[fromSlot];
+		ampHours[toSlot] = from.ampHours[fromSlot];
+		cRating[toSlot] = from.cRating[fromSlot];
+		generatedHeat[toSlot] = from.generatedHeat[fromSlot];
+		thermalPower[toSlot] = from.thermalPower[fromSlot];
+	}
+
+	/**
+	 * Marks a slot as a building with power storage. This is for models not
+	 * synced with a settlement.
+	 *
+	 * @param slot the slot.
+	 */
+	void addStorageSlot(int slot) {
+		storageSlots[storageCount++] = slot;
+	}
+
+	/**
+	 * Puts a building in a slot. This is for models not synced with a
+	 * settlement.
+	 *
+	 * @param slot           the slot.
+	 * @param building       the building.
+	 * @param hasLifeSupport true if the building has life support.
+	 */
+	void setBuilding(int slot, Building building, boolean hasLifeSupport) {
+		buildings[slot] = building;
+		lifeSupport[slot] = hasLifeSupport;
+	}
+
+	/**
+	 * Gets the number of buildings.
+	 *
+	 * @return the number.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Sets the power a building requires.
+	 *
+	 * @param slot        the slot of the building.
+	 * @param full        the power required at full power (kW).
+	 * @param poweredDown the power required when powered down (kW).
+	 */
+	public void setPowerRequired(int slot, double full, double poweredDown) {
+		fullPowerRequired[slot] = full;
+		poweredDownPowerRequired[slot] = poweredDown;
+	}
+
+	/**
+	 * Sets the power a building generates.
+	 *
+	 * @param slot  the slot of the building.
+	 * @param power the power generated (kW).
+	 */
+	public void setGeneratedPower(int slot, double power) {
+		generatedPower[slot] = power;
+	}
+
+	/**
+	 * Sets the state of the grid battery of a building.
+	 *
+	 * @param slot    the slot of the building.
+	 * @param storage the grid battery.
+	 */
+	public void setStorage(int slot, PowerStorage storage) {
+		storages[slot] = storage;
+		setStorage(slot, storage.getkWattHourStored(), storage.getCurrentMaxCapacity(), storage.getTerminalVoltage(),
+				storage.getResistance(), storage.getAmpHourRating(), storage.geCRating());
+	}
+
+	/**
+	 * Sets the state of a grid battery.
+	 *
+	 * @param slot     the slot of the building.
+	 * @param stored   the energy stored (kWh).
+	 * @param capacity the storage capacity (kWh).
+	 * @param voltage  the terminal voltage.
+	 * @param r        the internal resistance (ohm).
+	 * @param ah       the amp hour rating.
+	 * @param c        the C rating.
+	 */
+	void setStorage(int slot, double stored, double capacity, double voltage, double r, double ah, double c) {
+		storedEnergy[slot] = stored;
+		storageCapacity[slot] = capacity;
+		terminalVoltage[slot] = voltage;
+		resistance[slot] = r;
+		ampHours[slot] = ah;
+		cRating[slot] = c;
+	}
+
+	/**
+	 * Sets the heat a building generates.
+	 *
+	 * @param slot  the slot of the building.
+	 * @param heat  the heat generated (kW).
+	 * @param power the power generated by its heat engine (kW).
+	 */
+	public void setGeneratedHeat(int slot, double heat, double power) {
+		generatedHeat[slot] = heat;
+		thermalPower[slot] = power;
+	}
+
+	/**
+	 * Works out the totals of the settlement from the state written in, once per
+	 * pulse.
+	 *
+	 * @param pulseId the id of the clock pulse.
+	 */
+	void solve(long pulseId) {
+		if (pulseId == solvedPulse)
+			return;
+		solvedPulse = pulseId;
+
+		double generated = 0D;
+		double full = 0D;
+		double poweredDown = 0D;
+		double stored = 0D;
+		double capacity = 0D;
+		double heat = 0D;
+		double heatPower = 0D;
+		for (int i = 0; i < size; i++) {
+			generated += generatedPower[i];
+			full += fullPowerRequired[i];
+			poweredDown += poweredDownPowerRequired[i];
+			stored += storedEnergy[i];
+			capacity += storageCapacity[i];
+			heat += generatedHeat[i];
+			heatPower += thermalPower[i];
+		}
+
+		totalGeneratedPower = generated;
+		totalFullPowerRequired = full;
+		totalPoweredDownPowerRequired = poweredDown;
+		totalStoredEnergy = stored;
+		totalStorageCapacity = capacity;
+		totalGeneratedHeat = heat;
+		totalThermalPower = heatPower;
+	}
+
+	/**
+	 * Sets the power mode of all the buildings.
+	 *
+	 * @param mode the power mode.
+	 */
+	public void setPowerMode(PowerMode mode) {
+		for (int i = 0; i < size; i++) {
+			buildings[i].setPowerMode(mode);
+		}
+	}
+
+	/**
+	 * Stores excess energy in the grid batteries, in building order.
+	 *
+	 * @param excessEnergy the excess energy (kWh).
+	 * @param time         the time passing (millisols).
+	 * @return the energy stored (kWh).
+	 */
+	public double charge(double excessEnergy, double time) {
+		double excess = excessEnergy;
+		double hr = time * PowerGrid.HOURS_PER_MILLISOL;
+		for (int k = 0; k < storageCount && excess > 0D; k++) {
+			int i = storageSlots[k];
+			double gap = storageCapacity[i] - storedEnergy[i];
+			if (gap > storageCapacity[i] * .01) {
+				double accept = getChargeEnergy(storedEnergy[i], storageCapacity[i], terminalVoltage[i],
+						resistance[i], ampHours[i], cRating[i], excess, hr);
+				if (accept > 0D && accept <= excess) {
+					excess -= accept;
+					store(i, storedEnergy[i] + accept);
+				}
+			}
+		}
+		return excessEnergy - excess;
+	}
+
+	/**
+	 * Retrieves energy from the grid batteries, in building order.
+	 *
+	 * @param energyNeeded the energy needed (kWh).
+	 * @param time         the time passing (millisols).
+	 * @return the energy retrieved (kWh).
+	 */
+	public double discharge(double energyNeeded, double time) {
+		double needed = energyNeeded;
+		double hr = time * PowerGrid.HOURS_PER_MILLISOL;
+		for (int k = 0; k < storageCount && needed > 0D; k++) {
+			int i = storageSlots[k];
+			double available = getDischargeEnergy(storedEnergy[i], storageCapacity[i], terminalVoltage[i],
+					resistance[i], ampHours[i], cRating[i], needed, hr);
+			if (available > 0D && available <= needed) {
+				needed -= available;
+				store(i, storedEnergy[i] - available);
+			}
+		}
+		return energyNeeded - needed;
+	}
+
+	/**
+	 * Updates the energy stored in a grid battery.
+	 */
+	private void store(int slot, double energy) {
+		totalStoredEnergy += energy - storedEnergy[slot];
+		storedEnergy[slot] = energy;
+		PowerStorage storage = storages[slot];
+		if (storage != null) {
+			storage.setEnergyStored(energy);
+			terminalVoltage[slot] = storage.getTerminalVoltage();
+		}
+	}
+
+	/**
+	 * Cuts the power to the buildings until the power needed is met. The
+	 * buildings not generating a surplus are powered down first, then the ones
+	 * without life support are turned off, then the ones with it.
+	 *
+	 * @param neededPower the power needed (kW).
+	 * @param powerDown   true if the buildings are already powered down.
+	 */
+	public void shed(double neededPower, boolean powerDown) {
+		double needed = neededPower;
+		if (!powerDown) {
+			for (int i = 0; i < size && needed > 0D; i++) {
+				if (generatedPower[i] <= fullPowerRequired[i]) {
+					buildings[i].setPowerMode(PowerMode.POWER_DOWN);
+					needed -= fullPowerRequired[i] - poweredDownPowerRequired[i];
+				}
+			}
+		}
+
+		for (int pass = 0; pass < 2; pass++) {
+			boolean inhabitable = (pass == 1);
+			for (int i = 0; i < size && needed > 0D; i++) {
+				if (generatedPower[i] <= poweredDownPowerRequired[i] && lifeSupport[i] == inhabitable) {
+					buildings[i].setPowerMode(PowerMode.NO_POWER);
+					needed -= poweredDownPowerRequired[i];
+				}
+			}
+		}
+	}
+
+	/**
+	 * Gets the energy a grid battery can take in.
+	 *
+	 * @param stored   the energy stored (kWh).
+	 * @param capacity the storage capacity (kWh).
+	 * @param voltage  the terminal voltage.
+	 * @param r        the internal resistance (ohm).
+	 * @param ah       the amp hour rating.
+	 * @param c        the C rating.
+	 * @param excess   the energy available (kWh).
+	 * @param hr       the time passing (hours).
+	 * @return the energy taken in (kWh).
+	 */
+	public static double getChargeEnergy(double stored, double capacity, double voltage, double r, double ah,
+			double c, double excess, double hr) {
+		double needed = capacity - stored;
+		if (needed <= 0D || excess <= 0D)
+			return 0D;
+		// Dampen the charge as the battery gets full
+		double fudgeFactor = 4D * (1D - stored / capacity);
+		double vOut = voltage * PowerGrid.R_LOAD / (PowerGrid.R_LOAD + r);
+		if (vOut <= 0D)
+			return 0D;
+		double possible = c * ah / 1000D * vOut * hr * fudgeFactor;
+		return Math.min(excess, Math.min(possible, needed));
+	}
+
+	/**
+	 * Gets the energy a grid battery can deliver.
+	 *
+	 * @param stored   the energy stored (kWh).
+	 * @param capacity the storage capacity (kWh).
+	 * @param voltage  the terminal voltage.
+	 * @param r        the internal resistance (ohm).
+	 * @param ah       the amp hour rating.
+	 * @param c        the C rating.
+	 * @param needed   the energy needed (kWh).
+	 * @param hr       the time passing (hours).
+	 * @return the energy delivered (kWh).
+	 */
+	public static double getDischargeEnergy(double stored, double capacity, double voltage, double r, double ah,
+			double c, double needed, double hr) {
+		if (stored <= 0D || needed <= 0D)
+			return 0D;
+		// Dampen the delivery as the battery gets depleted
+		double fudgeFactor = 3D * stored / capacity;
+		double vOut = voltage * PowerGrid.R_LOAD / (PowerGrid.R_LOAD + r);
+		if (vOut <= 0D)
+			return 0D;
+		double possible = c * ah / 1000D * vOut * hr * fudgeFactor;
+		return Math.min(stored, Math.min(possible, needed));
+	}
+
+	public double getGeneratedPower() {
+		return totalGeneratedPower;
+	}
+
+	public double getFullPowerRequired() {
+		return totalFullPowerRequired;
+	}
+
+	public double getPoweredDownPowerRequired() {
+		return totalPoweredDownPowerRequired;
+	}
+
+	public double getStoredEnergy() {
+		return totalStoredEnergy;
+	}
+
+	public double getStorageCapacity() {
+		return totalStorageCapacity;
+	}
+
+	public double getGeneratedHeat() {
+		return totalGeneratedHeat;
+	}
+
+	public double getThermalPower() {
+		return totalThermalPower;
+	}
+}
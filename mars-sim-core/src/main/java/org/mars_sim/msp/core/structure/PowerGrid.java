@@ -7,17 +7,12 @@
 package org.mars_sim.msp.core.structure;
 
 import java.io.Serializable;
-import java.util.Iterator;
-import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import org.mars_sim.msp.core.Msg;
 import org.mars_sim.msp.core.UnitEventType;
-import org.mars_sim.msp.core.structure.building.Building;
-import org.mars_sim.msp.core.structure.building.BuildingException;
 import org.mars_sim.msp.core.structure.building.BuildingManager;
-import org.mars_sim.msp.core.structure.building.function.FunctionType;
 import org.mars_sim.msp.core.structure.building.function.PowerMode;
 import org.mars_sim.msp.core.structure.building.function.PowerStorage;
 import org.mars_sim.msp.core.time.ClockPulse;
@@ -206,23 +201,27 @@ public class PowerGrid implements Serializable, Temporal {
 			logger.finest(Msg.getString("PowerGrid.log.settlementPowerSituation", settlement.getName()));
 		}
 
+		// Sum up the state of the buildings in the energy model.
+		EnergyModel model = manager.getEnergyModel();
+		model.update(manager.getBuildings(), pulse.getId());
+
 		// update the total power generated in the grid.
-		updateTotalPowerGenerated();
+		updateTotalPowerGenerated(model);
 
 		// Determine total power required in the grid.
-		updateTotalRequiredPower();
+		updateTotalRequiredPower(model);
 
 		// Update overal grid efficiency.
 		updateEfficiency(pulse.getElapsed());
 
 		// Update the power flow.
-		updatePowerFlow(pulse.getElapsed());
+		updatePowerFlow(model, pulse.getElapsed());
 
 		// Update the total power storage capacity in the grid.
-		updateTotalEnergyStorageCapacity();
+		updateTotalEnergyStorageCapacity(model);
 
 		// Update the total power stored in the grid.
-		updateTotalStoredEnergy();
+		updateTotalStoredEnergy(model);
 
 		// Update power value.
 		determinePowerValue();
@@ -239,9 +238,10 @@ public class PowerGrid implements Serializable, Temporal {
 	 * Calculate the flow of power/energy taking place due to the supply and demand
 	 * of power
 	 * 
+	 * @param model the energy model of the settlement
 	 * @param time
 	 */
-	private void updatePowerFlow(double time) {
+	private void updatePowerFlow(EnergyModel model, double time) {
 		// Check if there is enough power generated to fully supply each building.
 		if (powerRequired < powerGenerated) { // excess energy to charge grid batteries
 
@@ -249,7 +249,7 @@ public class PowerGrid implements Serializable, Temporal {
 			// Store excess power in power storage buildings.
 			double timeHr = time * HOURS_PER_MILLISOL; // MarsClock.convertMillisolsToSeconds(time) / 60D / 60D;
 			double excessEnergy = (powerGenerated - powerRequired) * timeHr * systemEfficiency;
-			storeExcessPower(excessEnergy, time);
+			model.charge(excessEnergy, time);
 		}
 
 		else { // insufficient power produced, need to pull energy from batteries to meet the
@@ -266,7 +266,7 @@ public class PowerGrid implements Serializable, Temporal {
 			// the gauge of the cable is very low
 
 			// subtract powerHr from the battery reserve
-			double retrieved = retrieveStoredEnergy(neededEnergy, time);
+			double retrieved = model.discharge(neededEnergy, time);
 
 			double delta_energy = neededEnergy - retrieved;
 
@@ -279,52 +279,10 @@ public class PowerGrid implements Serializable, Temporal {
 				// compute power needed
 				neededPower = delta_energy / timeInHour;
 
-				// BuildingManager manager = settlement.getBuildingManager();
-				List<Building> buildings = manager.getBuildings();// getACopyOfBuildings();
-
-				// Reduce each building's power mode to low power until
-				// required power reduction is met.
-				if (powerMode != PowerMode.POWER_DOWN) {
-					Iterator<Building> iLowPower = buildings.iterator();
-					while (iLowPower.hasNext() && (neededPower > 0D)) {
-						Building building = iLowPower.next();
-						if (!powerSurplus(building, PowerMode.FULL_POWER)) {
-							building.setPowerMode(PowerMode.POWER_DOWN);
-							neededPower -= building.getFullPowerRequired() - building.getPoweredDownPowerRequired();
-						}
-					}
-				}
-
-				// If power needs are still not met, turn off the power to each
-				// uninhabitable building until required power reduction is met.
-				if (neededPower > 0D) {
-					Iterator<Building> iNoPower = buildings.iterator();
-					while (iNoPower.hasNext() && (neededPower > 0D)) {
-						Building building = iNoPower.next();
-						if (!powerSurplus(building, PowerMode.POWER_DOWN) &&
-						// turn off the power to each uninhabitable building
-								!(building.hasFunction(FunctionType.LIFE_SUPPORT))) {
-							building.setPowerMode(PowerMode.NO_POWER);
-							neededPower -= building.getPoweredDownPowerRequired();
-						}
-					}
-				}
-
-				// If power needs are still not met, turn off the power to each inhabitable
-				// building
-				// until required power reduction is met.
-				if (neededPower > 0D) {
-					Iterator<Building> iNoPower = buildings.iterator();
-					while (iNoPower.hasNext() && (neededPower > 0D)) {
-						Building building = iNoPower.next();
-						if (!powerSurplus(building, PowerMode.POWER_DOWN) &&
-						// turn off the power to each inhabitable building
-								building.hasFunction(FunctionType.LIFE_SUPPORT)) {
-							building.setPowerMode(PowerMode.NO_POWER);
-							neededPower -= building.getPoweredDownPowerRequired();
-						}
-					}
-				}
+				// Reduce each building's power mode to low power, then turn off the power
+				// to each uninhabitable and then inhabitable building, until required power
+				// reduction is met.
+				model.shed(neededPower, powerMode == PowerMode.POWER_DOWN);
 			}
 		}
 	}
@@ -332,17 +290,10 @@ public class PowerGrid implements Serializable, Temporal {
 	/**
 	 * Updates the total power generated in the grid.
 	 * 
-	 * @throws BuildingException if error determining total power generated.
+	 * @param model the energy model of the settlement
 	 */
-	private void updateTotalPowerGenerated() {
-		double power = 0D;
-
-		// Add the power generated by all power generation buildings.
-		// BuildingManager manager = settlement.getBuildingManager();
-		Iterator<Building> iPow = manager.getBuildings(FunctionType.POWER_GENERATION).iterator();
-		while (iPow.hasNext()) {
-			power += iPow.next().getPowerGeneration().getGeneratedPower();
-		}
+	private void updateTotalPowerGenerated(EnergyModel model) {
+		double power = model.getGeneratedPower();
 		setGeneratedPower(power);
 
 		if (logger.isLoggable(Level.FINEST)) {
@@ -354,19 +305,10 @@ public class PowerGrid implements Serializable, Temporal {
 	/**
 	 * Updates the total energy stored in the grid.
 	 * 
-	 * @throws BuildingException if error determining total energy stored.
+	 * @param model the energy model of the settlement
 	 */
-	private void updateTotalStoredEnergy() {
-		double store = 0D;
-		// BuildingManager manager = settlement.getBuildingManager();
-		Iterator<Building> iStore = manager.getBuildings(FunctionType.POWER_STORAGE).iterator();
-		while (iStore.hasNext()) {
-			Building b = iStore.next();
-			// PowerStorage store = (PowerStorage)
-			// building.getFunction(BuildingFunction.POWER_STORAGE);
-			store += b.getPowerStorage().getkWattHourStored();
-		}
-		setStoredEnergy(store);
+	private void updateTotalStoredEnergy(EnergyModel model) {
+		setStoredEnergy(model.getStoredEnergy());
 
 		if (logger.isLoggable(Level.FINEST)) {
 			logger.finest(Msg.getString("PowerGrid.log.totalPowerStored", //$NON-NLS-1$
@@ -377,37 +319,13 @@ public class PowerGrid implements Serializable, Temporal {
 	/**
 	 * Updates the total power required in the grid.
 	 * 
-	 * @throws BuildingException if error determining total power required.
+	 * @param model the energy model of the settlement
 	 */
-	private void updateTotalRequiredPower() {
-		double power = 0D;
-		boolean powerUp = powerMode == PowerMode.POWER_UP;
-		List<Building> buildings = manager.getBuildings();
-		Iterator<Building> iUsed = buildings.iterator();
-		while (iUsed.hasNext()) {
-			Building building = iUsed.next();
-			if (powerUp) {
-				building.setPowerMode(PowerMode.FULL_POWER);
-				power += building.getFullPowerRequired();
-				if (logger.isLoggable(Level.FINEST)) {
-					logger.finest(Msg.getString("PowerGrid.log.buildingFullPowerUsed", //$NON-NLS-1$
-							building.getNickName(), 
-							Double.toString(
-									Math.round(building.getFullPowerRequired()*100.00)/100.00
-									)));
-				}
-			}
-
-			power += building.getPoweredDownPowerRequired();
-
-			if (logger.isLoggable(Level.FINEST)) {
-				logger.finest(Msg.getString("PowerGrid.log.buildingPowerDownPowerUsed", //$NON-NLS-1$
-						building.getNickName(), 
-						Double.toString(
-								Math.round(building.getPoweredDownPowerRequired()*100.00)/100.00
-								)));
-			}
-
+	private void updateTotalRequiredPower(EnergyModel model) {
+		double power = model.getPoweredDownPowerRequired();
+		if (powerMode == PowerMode.POWER_UP) {
+			model.setPowerMode(PowerMode.FULL_POWER);
+			power += model.getFullPowerRequired();
 		}
 
 		setRequiredPower(power);
@@ -421,18 +339,10 @@ public class PowerGrid implements Serializable, Temporal {
 	/**
 	 * Updates the total energy storage capacity in the grid.
 	 * 
-	 * @throws BuildingException if error determining total energy storage capacity.
+	 * @param model the energy model of the settlement
 	 */
-	private void updateTotalEnergyStorageCapacity() {
-		double store = 0D;
-		// BuildingManager manager = settlement.getBuildingManager();
-		Iterator<Building> iStore = manager.getBuildings(FunctionType.POWER_STORAGE).iterator();
-		while (iStore.hasNext()) {
-			Building b = iStore.next();
-			store += b.getPowerStorage().getCurrentMaxCapacity();
-		}
-
-		setStoredPowerCapacity(store);
+	private void updateTotalEnergyStorageCapacity(EnergyModel model) {
+		setStoredPowerCapacity(model.getStorageCapacity());
 
 		if (logger.isLoggable(Level.FINEST)) {
 			logger.finest(Msg.getString("PowerGrid.log.totalPowerStorageCapacity", //$NON-NLS-1$
@@ -441,227 +351,17 @@ public class PowerGrid implements Serializable, Temporal {
 	}
 
 	/**
-	 * Checks if building generates more power than it uses in a given power mode.
-	 *
-	 * @param building the building
-	 * @param mode     {@link PowerMode} the building's power mode to check.
-	 * @return true if building supplies more power than it uses. throws
-	 *         BuildingException if error in power generation.
-	 */
-	private boolean powerSurplus(Building b, PowerMode mode) {
-		double generated = 0D;
-		if (b.hasFunction(FunctionType.POWER_GENERATION)) {
-			generated = b.getPowerGeneration().getGeneratedPower();
-		}
-
-		double used = 0D;
-		if (mode == PowerMode.FULL_POWER)
-			used = b.getFullPowerRequired();
-		else if (mode == PowerMode.POWER_DOWN)
-			used = b.getPoweredDownPowerRequired();
-
-		return generated > used;
-	}
-
-	/**
-	 * Stores any excess power grid in energy storage buildings if possible.
-	 * 
-	 * @param excessEnergy excess grid energy (in kW hr).
-	 * @throws BuildingException if error storing excess energy.
-	 */
-	private void storeExcessPower(double excessEnergy, double time) {
-		// double totalDelivered = 0;
-		double excess = excessEnergy;
-		Iterator<Building> i = manager.getBuildings(FunctionType.POWER_STORAGE).iterator();
-		while (i.hasNext()) {
-			Building building = i.next();
-			PowerStorage storage = (PowerStorage) building.getFunction(FunctionType.POWER_STORAGE);
-			double stored = storage.getkWattHourStored();
-			double max = storage.getCurrentMaxCapacity();
-			double gap = max - stored;
-			double one_percent = max * .01;
-
-			// logger.info("The grid battery at " + building.getNickName() + " in " +
-			// settlement.getName() + " is currently at " + Math.round(kWhStored *
-			// 100D)/100D + " kWh");
-
-			if (gap > one_percent && excess > 0) {
-				// TODO: need to come up with a better battery model with charge capacity
-				// parameters from
-				// https://www.mathworks.com/help/physmod/elec/ref/genericbattery.html?requestedDomain=www.mathworks.com
-
-				// Note: Tesla runs its batteries up to 4C charging rate
-				// see https://teslamotorsclub.com/tmc/threads/limits-of-model-s-charging.36185/
-
-				double accept = chargeBattery(storage, excess, time);
-
-				if (accept > 0 && accept <= excess) {
-
-					// update the resultant energy stored in battery
-					stored = stored + accept;
-					// update excess energy
-					excess = excess - accept;
-
-					// update the energy stored in this battery
-					storage.setEnergyStored(stored);
-
-//					gap = max - stored;
-//					one_percent = max * .01;
-//					
-//					if (gap <= one_percent)
-//						LogConsolidated.log(logger, Level.INFO, 10000, sourceName, 
-//								"The grid battery at " + building.getNickName() + " in " + settlement.getName() 
-//								+ " has been charged to 99% (at " + Math.round(stored * 100D)/100D + " kWh)", null);
-
-				}
-
-			}
-
-		}
-
-	}
-
-	/**
-	 * Deliver stored energy from a battery
+	 * Gets the energy a battery can take in
 	 * 
 	 * @param storage PowerStorage
 	 * @param excess  energy
 	 * @param time    in millisols
-	 * @return energy to be delivered
+	 * @return energy to be stored
 	 */
 	public double chargeBattery(PowerStorage storage, double excess, double time) {
-		double stored = storage.getkWattHourStored();
-		double needed = storage.getCurrentMaxCapacity() - stored;
-		double smallest = 0;
-		if (needed <= 0 || excess <= 0) {
-			return 0;
-		}
-
-		else {
-			double voltage = storage.getTerminalVoltage();
-			// assume the internal resistance of the battery is constant
-			double r_int = storage.getResistance();
-			double max = storage.getCurrentMaxCapacity();
-			double state_of_charge = stored / max;
-			// use fudge_factor to dampen the power delivery when the battery is getting
-			// depleted
-			double fudge_factor = 4 * (1 - state_of_charge);
-			double V_out = voltage * R_LOAD / (R_LOAD + r_int);
-
-			if (V_out > 0) {
-
-				double Ah = storage.getAmpHourRating();
-				double hr = time * HOURS_PER_MILLISOL;
-
-				// Note: Tesla runs its batteries up to 4C charging rate
-				// see https://teslamotorsclub.com/tmc/threads/limits-of-model-s-charging.36185/
-
-				double c_Rating = storage.geCRating();
-
-				// double chargeRate = c_Rating - c_Rating *.99 * voltage /
-				// PowerStorage.BATTERY_MAX_VOLTAGE ;
-				// logger.info("chargeRate is " + Math.round(chargeRate*100D)/100D);
-				// double ampere = chargeRate * Ah * hr * storage.getBatteryHealth();
-
-				double ampere = c_Rating * Ah;
-				double possible = ampere / 1000D * V_out * hr * fudge_factor;
-
-				smallest = Math.min(excess, Math.min(possible, needed));
-
-//				logger.info("Charging of "
-//						storage.getBuilding().getNickName() 
-//						+ "\t    excess : " + Math.round(excess*100D)/100D
-//						+ "	   Ah : " + Math.round(Ah * 100D)/100D
-//						+ "    hr : " + Math.round(hr * 10000D)/10000D
-//						+ "    ampere : " + Math.round(ampere * 100D)/100D
-//						+ "    delta : " + Math.round(delta * 100D)/100D
-//						+ "    possible : " + Math.round(possible * 100D)/100D
-//						+ "    needed : " + Math.round(needed*100D)/100D
-//						+ "    stored : " + Math.round(stored*100D)/100D
-//						+ "    smallest : " + Math.round(smallest*100D)/100D);
-
-			}
-
-			else {
-				return 0;
-			}
-
-		}
-
-		return smallest;
-	}
-
-//	/**
-//	 * Compute total stored energy in the grid.
-//	 * @return stored energy retrieved (kW hr).
-//	 
-//	private double computeTotalStoredEnergy() {
-//		double available = 0;
-//		//BuildingManager manager = settlement.getBuildingManager();
-//		Iterator<Building> i = manager.getBuildings(BuildingFunction.POWER_STORAGE).iterator();
-//		while (i.hasNext()) {
-//			Building building = i.next();
-//			PowerStorage storage = (PowerStorage) building.getFunction(BuildingFunction.POWER_STORAGE);
-//			if (storage.getkWattHourStored() > 0)
-//				available = available + storage.getkWattHourStored();
-//		}
-//		
-//		return available;
-//	}
-
-	/**
-	 * Retrieves stored energy from the grid.
-	 * 
-	 * @param needed the energy needed (kW hr).
-	 * @return energy to be retrieved (kW hr).
-	 */
-	// 2016-11-13 Added retrieveStoredEnergy()
-	private double retrieveStoredEnergy(double energyNeeded, double time) {
-		double retrieved = 0;
-		double needed = energyNeeded;
-		List<Building> list = manager.getBuildings(FunctionType.POWER_STORAGE);
-		for (Building b : list) {
-			PowerStorage storage = (PowerStorage) b.getFunction(FunctionType.POWER_STORAGE);
-
-//			if ((storage.getPowerStored() > 0D) && (neededPower > 0D)) {
-//				double retrievedPower = neededPower;
-//				if (storage.getPowerStored() < retrievedPower) 
-//					retrievedPower = storage.getPowerStored();
-//				storage.setPowerStored(storage.getPowerStored() - retrievedPower);
-//				neededPower -= retrievedPower;
-//			}
-//		}
-
-			if (needed <= 0) {
-				return 0;
-			}
-
-			else {
-
-				double available = dischargeBattery(storage, needed, time);
-				double stored = storage.getkWattHourStored();
-
-				if (available > 0 && available <= needed) {
-
-					// update the resultant energy stored in battery
-					stored = stored - available;
-
-					// update energy needed
-					needed = needed - available;
-
-					// update the energy stored in this battery
-					storage.setEnergyStored(stored);
-
-					// update the total retrieved energy
-					retrieved = retrieved + available;
-
-				}
-
-			}
-
-		}
-
-		return retrieved;
+		return EnergyModel.getChargeEnergy(storage.getkWattHourStored(), storage.getCurrentMaxCapacity(),
+				storage.getTerminalVoltage(), storage.getResistance(), storage.getAmpHourRating(),
+				storage.geCRating(), excess, time * HOURS_PER_MILLISOL);
 	}
 
 	/**
@@ -673,66 +373,9 @@ public class PowerGrid implements Serializable, Temporal {
 	 * @return energy to be delivered
 	 */
 	public double dischargeBattery(PowerStorage storage, double needed, double time) {
-		double smallest = 0;
-		double possible = 0;
-		double stored = storage.getkWattHourStored();
-
-		if (stored <= 0 || needed <= 0) {
-			return 0;
-		}
-
-		else {
-			double voltage = storage.getTerminalVoltage();
-			// assume the internal resistance of the battery is constant
-			double r_int = storage.getResistance();
-			double max = storage.getCurrentMaxCapacity();
-			double state_of_charge = stored / max;
-			// use fudge_factor to dampen the power delivery when the battery is getting
-			// depleted
-			double fudge_factor = 3 * state_of_charge;
-			double V_out = voltage * R_LOAD / (R_LOAD + r_int);
-
-			if (V_out > 0) {
-
-				double Ah = storage.getAmpHourRating();
-				double hr = time * HOURS_PER_MILLISOL;
-				// Note: Set max charging rate as 3C as Tesla runs its batteries up to 4C
-				// charging rate
-				// see https://teslamotorsclub.com/tmc/threads/limits-of-model-s-charging.36185/
-
-				double c_Rating = storage.geCRating();
-
-				// double chargeRate = c_Rating - c_Rating *.99 * voltage /
-				// PowerStorage.BATTERY_MAX_VOLTAGE ;
-				// logger.info("chargeRate is " + Math.round(chargeRate*100D)/100D);
-				// double ampere = chargeRate * Ah * hr * storage.getBatteryHealth();
-
-				double ampere = c_Rating * Ah;
-				possible = ampere / 1000D * V_out * hr * fudge_factor;
-
-				smallest = Math.min(stored, Math.min(possible, needed));
-
-//				logger.info("Discharging of " 
-//						+ storage.getBuilding().getNickName() 
-//						+ "\t    needed : " + Math.round(needed*100D)/100D
-//						+ "    stored : " + Math.round(stored*100D)/100D
-//						+ "	   Ah : " + Math.round(Ah * 100D)/100D
-//						+ "    hr : " + Math.round(hr * 10000D)/10000D
-//						+ "    ampere : " + Math.round(ampere * 100D)/100D
-//						+ "    V_out : " + Math.round(V_out * 100D)/100D
-//						+ "    possible : " + Math.round(possible * 100D)/100D
-//						+ "    smallest : " + Math.round(smallest*100D)/100D);
-
-			}
-
-			else {
-				return 0;
-			}
-		}
-
-		// logger.info(energyToDeliver + " / " + totalStored);
-
-		return smallest;
+		return EnergyModel.getDischargeEnergy(storage.getkWattHourStored(), storage.getCurrentMaxCapacity(),
+				storage.getTerminalVoltage(), storage.getResistance(), storage.getAmpHourRating(),
+				storage.geCRating(), needed, time * HOURS_PER_MILLISOL);
 	}
 
 	/**
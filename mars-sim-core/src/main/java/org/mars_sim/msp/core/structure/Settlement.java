@@ -39,6 +39,7 @@ import org.mars_sim.msp.core.mars.DustStorm;
 import org.mars_sim.msp.core.person.Person;
 import org.mars_sim.msp.core.person.PersonConfig;
 import org.mars_sim.msp.core.person.PhysicalCondition;
+import org.mars_sim.msp.core.person.PhysiologyKernel;
 import org.mars_sim.msp.core.person.ShiftType;
 import org.mars_sim.msp.core.person.ai.job.Astronomer;
 import org.mars_sim.msp.core.person.ai.job.Engineer;
@@ -383,6 +384,8 @@ public class Settlement extends Structure implements Serializable, Temporal, Lif
 	private ChainOfCommand chainOfCommand;
 	/** The settlement's composition of air. */
 	private CompositionOfAir compositionOfAir;
+	/** The vitals of the settlement's citizens. */
+	private PhysiologyKernel physiology = new PhysiologyKernel();
 	/** The settlement's location. */
 	private Coordinates location;
 	/** The settlement's last dust storm. */
@@ -1372,7 +1375,54 @@ public class Settlement extends Structure implements Serializable, Temporal, Lif
 		if (!isValid(pulse)) {
 			return false;
 		}
-		
+
+		environmentTimePassing(pulse);
+
+		buildingManager.timePassing(pulse);
+
+		settlementTimePassing(pulse);
+
+		for (Equipment e : ownedEquipment) {
+			e.timePassing(pulse);
+		}
+
+		for (Vehicle v : ownedVehicles) {
+			v.timePassing(pulse);
+		}
+
+		for (Person p : citizens) {
+			p.timePassing(pulse);
+		}
+		physiologyTimePassing(pulse);
+		/**
+		 * Robots are already updated as Equipment ? Seems not so should Robots be based diretly on a Unit
+		 */
+		for (Robot r : ownedRobots) {
+			r.timePassing(pulse);
+		}
+		return true;
+	}
+
+	/**
+	 * Checks if a pulse should be applied to this settlement. Used by the
+	 * UnitManager when the pulse is split into phases and the settlement's own
+	 * timePassing is not called.
+	 *
+	 * @param pulse the pulse
+	 * @return true if the pulse has not been applied yet
+	 */
+	public boolean acceptPulse(ClockPulse pulse) {
+		return isValid(pulse);
+	}
+
+	/**
+	 * Performs the environment phase of a pulse : the crowding stress, the crops
+	 * and the power and heat balance of the grid.
+	 *
+	 * @param pulse the pulse
+	 * @return true
+	 */
+	public boolean environmentTimePassing(ClockPulse pulse) {
 		// If settlement is overcrowded, increase inhabitant's stress.
 		// TODbooleanO: should the number of robots be accounted for here?
 
@@ -1400,8 +1450,31 @@ public class Settlement extends Structure implements Serializable, Temporal, Lif
 		powerGrid.timePassing(pulse);
 
 		thermalSystem.timePassing(pulse);
+		return true;
+	}
 
-		buildingManager.timePassing(pulse);
+	/**
+	 * Advances the vitals of the citizens in one go, once they have had their
+	 * time passing.
+	 *
+	 * @param pulse the pulse
+	 * @return true
+	 */
+	public boolean physiologyTimePassing(ClockPulse pulse) {
+		physiology.timePassing(pulse);
+		return true;
+	}
+
+	/**
+	 * Performs the settlement-wide processes that follow the update of the
+	 * buildings : the end of day tasks, the goods manager, the resource sampling
+	 * and the indoor air.
+	 *
+	 * @param pulse the pulse
+	 * @return true
+	 */
+	public boolean settlementTimePassing(ClockPulse pulse) {
+		double time = pulse.getElapsed();
 
 		if (pulse.isNewSol()) {
 			performEndOfDayTasks(pulse.getMarsTime());
@@ -1515,24 +1588,6 @@ public class Settlement extends Structure implements Serializable, Temporal, Lif
 			s.timePassing(time);
 		}
 		*/
-		
-		for (Equipment e : ownedEquipment) {
-			e.timePassing(pulse);
-		}
-		
-		for (Vehicle v : ownedVehicles) {
-			v.timePassing(pulse);
-		}
-		
-		for (Person p : citizens) {
-			p.timePassing(pulse);
-		}
-		/**
-		 * Robots are already updated as Equipment ? Seems not so should Robots be based diretly on a Unit
-		 */
-		for (Robot r : ownedRobots) {
-			r.timePassing(pulse);
-		}
 		return true;
 	}
 
@@ -3042,6 +3097,26 @@ public class Settlement extends Structure implements Serializable, Temporal, Lif
 	public Collection<Equipment> getAllAssociatedEquipment() {	
 		return ownedEquipment;
 	}
+
+	/**
+	 * Gets the approximate heap taken by the resource caches and the demand and
+	 * supply tables of the inventories of this settlement and of all its people,
+	 * robots, vehicles and equipment.
+	 *
+	 * @return the footprint in bytes.
+	 */
+	public long getInventoryFootprint() {
+		long bytes = getInventory().getMemoryFootprint();
+		for (Unit u : citizens)
+			bytes += u.getInventory().getMemoryFootprint();
+		for (Unit u : ownedRobots)
+			bytes += u.getInventory().getMemoryFootprint();
+		for (Unit u : ownedVehicles)
+			bytes += u.getInventory().getMemoryFootprint();
+		for (Unit u : ownedEquipment)
+			bytes += u.getInventory().getMemoryFootprint();
+		return bytes;
+	}
 	
 	/**
 	 * Gets all associated vehicles currently on mission
@@ -3897,6 +3972,15 @@ public class Settlement extends Structure implements Serializable, Temporal, Lif
 		return compositionOfAir;
 	}
 
+	/**
+	 * Gets the physiology kernel holding the vitals of the settlement's citizens.
+	 * 
+	 * @return the physiology kernel.
+	 */
+	public PhysiologyKernel getPhysiology() {
+		return physiology;
+	}
+
 	/**
 	 * Computes the water ration level at the settlement due to low water supplies.
 	 * 
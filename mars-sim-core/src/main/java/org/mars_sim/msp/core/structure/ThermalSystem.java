@@ -7,17 +7,12 @@
 package org.mars_sim.msp.core.structure;
 
 import java.io.Serializable;
-import java.util.Iterator;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import org.mars_sim.msp.core.Msg;
 import org.mars_sim.msp.core.UnitEventType;
-import org.mars_sim.msp.core.structure.building.Building;
-import org.mars_sim.msp.core.structure.building.BuildingException;
 import org.mars_sim.msp.core.structure.building.BuildingManager;
-import org.mars_sim.msp.core.structure.building.function.FunctionType;
-import org.mars_sim.msp.core.structure.building.function.ThermalGeneration;
 import org.mars_sim.msp.core.time.ClockPulse;
 import org.mars_sim.msp.core.time.Temporal;
 
@@ -125,9 +120,13 @@ implements Serializable, Temporal {
 	public boolean timePassing(ClockPulse pulse) {
 
 		// update the total heat generated in the heating system.
-		updateTotalHeatGenerated();
+		// Sum up the state of the buildings in the energy model.
+		EnergyModel model = manager.getEnergyModel();
+		model.update(manager.getBuildings(), pulse.getId());
 
-		updateTotalPowerGenerated();
+		updateTotalHeatGenerated(model);
+
+		updateTotalPowerGenerated(model);
 
 		// Update heat value.
 		determineHeatValue();
@@ -137,20 +136,10 @@ implements Serializable, Temporal {
 
 	/**
 	 * Updates the total heat generated in the heating system.
-	 * @throws BuildingException if error determining total heat generated.
+	 * @param model the energy model of the settlement
 	 */
-	private void updateTotalHeatGenerated() {
-		double heat = 0D;
-
-		// Add the heat generated by all heat generation buildings.
-		//BuildingManager manager = settlement.getBuildingManager();
-		Iterator<Building> iHeat = manager.getBuildings(FunctionType.THERMAL_GENERATION).iterator();
-		while (iHeat.hasNext()) {
-			Building b = iHeat.next();
-			ThermalGeneration gen = b.getThermalGeneration();
-			heat += gen.getGeneratedHeat();//b.getThermalGeneration().getGeneratedHeat();
-			// logger.info(((Building) gen).getName() + " generated: " + gen.getGeneratedHeat());
-		}
+	private void updateTotalHeatGenerated(EnergyModel model) {
+		double heat = model.getGeneratedHeat();
 		setGeneratedHeat(heat);
 
 		if(logger.isLoggable(Level.FINEST)) {
@@ -166,23 +155,10 @@ implements Serializable, Temporal {
 
 	/**
 	 * Updates the total power generated by the solar heat engine system.
-	 * @throws BuildingException if error determining total heat generated.
+	 * @param model the energy model of the settlement
 	 */
-	private void updateTotalPowerGenerated() {
-		double power = 0D;
-
-		// Add the heat generated by all heat generation buildings.
-		//BuildingManager manager = settlement.getBuildingManager();
-		Iterator<Building> i = manager.getBuildings(FunctionType.POWER_GENERATION).iterator();
-		while (i.hasNext()) {
-			Building b = i.next();
-			ThermalGeneration gen = b.getThermalGeneration();
-			if (gen == null)
-				break;
-			power += b.getThermalGeneration().getGeneratedPower();//.getPowerGeneration().getGeneratedPower();
-			//System.out.println(building.getNickName() + "'s power : " + power);
-			// logger.info(((Building) gen).getName() + " generated: " + gen.getGeneratedHeat());
-		}
+	private void updateTotalPowerGenerated(EnergyModel model) {
+		double power = model.getThermalPower();
 		setGeneratedPower(power);
 		//System.out.println("total power : " + power);
 
@@ -18,6 +18,7 @@ import java.util.logging.Logger;
 
 import org.mars_sim.msp.core.Coordinates;
 import org.mars_sim.msp.core.Inventory;
+import org.mars_sim.msp.core.LocalAreaIndex;
 import org.mars_sim.msp.core.LocalBoundedObject;
 import org.mars_sim.msp.core.LogConsolidated;
 import org.mars_sim.msp.core.SimulationConfig;
@@ -35,6 +36,7 @@ import org.mars_sim.msp.core.person.ai.task.utils.Task;
 import org.mars_sim.msp.core.robot.Robot;
 import org.mars_sim.msp.core.science.ScienceType;
 import org.mars_sim.msp.core.structure.BuildingTemplate;
+import org.mars_sim.msp.core.structure.EnergyModel;
 import org.mars_sim.msp.core.structure.Settlement;
 import org.mars_sim.msp.core.structure.Structure;
 import org.mars_sim.msp.core.structure.building.connection.InsidePathLocation;
@@ -227,6 +229,10 @@ public class Building extends Structure implements Malfunctionable, Indoor, // C
 	private transient EVA eva;
 	private transient Farming farm;
 	private transient LivingAccommodations livingAccommodations;
+	/** The energy model the building writes its power and heat state in. */
+	private transient volatile EnergyModel energyModel;
+	/** The slot of the building in the energy model. */
+	private transient int energySlot = -1;
 	private transient PreparingDessert preparingDessert;
 	private transient Cooking cooking;
 	private transient Management management;
@@ -1055,6 +1061,7 @@ public class Building extends Structure implements Malfunctionable, Indoor, // C
 
 	public void setXLocation(double x) {
 		this.xLoc = x;
+		LocalAreaIndex.update(this);
 	}
 
 	@Override
@@ -1064,6 +1071,7 @@ public class Building extends Structure implements Malfunctionable, Indoor, // C
 
 	public void setYLocation(double y) {
 		this.yLoc = y;
+		LocalAreaIndex.update(this);
 	}
 
 	@Override
@@ -1073,6 +1081,7 @@ public class Building extends Structure implements Malfunctionable, Indoor, // C
 
 	public void setFacing(double facing) {
 		this.facing = facing;
+		LocalAreaIndex.update(this);
 	}
 
 	public boolean getInTransport() {
@@ -1112,6 +1121,44 @@ public class Building extends Structure implements Malfunctionable, Indoor, // C
 		return result;
 	}
 
+	/**
+	 * Writes the power and heat state of the building and of its functions in
+	 * the energy model of the settlement.
+	 * 
+	 * @param model the energy model.
+	 * @param slot  the slot of the building in the model.
+	 */
+	public void updateEnergyModel(EnergyModel model, int slot) {
+		model.setPowerRequired(slot, getFullPowerRequired(), getPoweredDownPowerRequired());
+		for (Function function : functions) {
+			function.updateEnergyModel(model, slot);
+		}
+	}
+
+	/**
+	 * Sets the slot of the building in the energy model of the settlement.
+	 * 
+	 * @param model the energy model, or null if the building has no slot.
+	 * @param slot  the slot.
+	 */
+	public void setEnergySlot(EnergyModel model, int slot) {
+		energySlot = slot;
+		energyModel = model;
+	}
+
+	/**
+	 * Writes the power and heat state of a function in the energy model of the
+	 * settlement as soon as it changes, if the building has a slot yet.
+	 * 
+	 * @param function the function.
+	 */
+	public void pushEnergyModel(Function function) {
+		EnergyModel model = energyModel;
+		if (model != null) {
+			function.updateEnergyModel(model, energySlot);
+		}
+	}
+
 	/**
 	 * Gets the power the building requires for power-down mode.
 	 * 
@@ -1434,6 +1481,12 @@ public class Building extends Structure implements Malfunctionable, Indoor, // C
 		// Update malfunction manager.
 		malfunctionManager.timePassing(pulse); 
 		
+		// Write the power required for this pulse in the energy model
+		EnergyModel model = energyModel;
+		if (model != null) {
+			model.setPowerRequired(energySlot, getFullPowerRequired(), getPoweredDownPowerRequired());
+		}
+		
 		if (pulse.isNewSol()) {
 			// Determine if a meteorite impact will occur within the new sol
 			checkForMeteoriteImpact(pulse);
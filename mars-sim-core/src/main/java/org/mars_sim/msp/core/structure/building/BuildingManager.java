@@ -18,6 +18,7 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
+import org.mars_sim.msp.core.LocalAreaIndex;
 import org.mars_sim.msp.core.LocalAreaUtil;
 import org.mars_sim.msp.core.LogConsolidated;
 import org.mars_sim.msp.core.Simulation;
@@ -27,6 +28,7 @@ import org.mars_sim.msp.core.UnitEventType;
 import org.mars_sim.msp.core.UnitManager;
 import org.mars_sim.msp.core.events.HistoricalEventManager;
 import org.mars_sim.msp.core.interplanetary.transport.resupply.Resupply;
+import org.mars_sim.msp.core.malfunction.MaintenanceIndex;
 import org.mars_sim.msp.core.mars.Meteorite;
 import org.mars_sim.msp.core.mars.MeteoriteModule;
 import org.mars_sim.msp.core.person.Person;
@@ -36,6 +38,7 @@ import org.mars_sim.msp.core.robot.Robot;
 import org.mars_sim.msp.core.robot.RobotType;
 import org.mars_sim.msp.core.science.ScienceType;
 import org.mars_sim.msp.core.structure.BuildingTemplate;
+import org.mars_sim.msp.core.structure.EnergyModel;
 import org.mars_sim.msp.core.structure.Settlement;
 import org.mars_sim.msp.core.structure.SettlementConfig;
 import org.mars_sim.msp.core.structure.building.connection.BuildingConnectorManager;
@@ -108,6 +111,7 @@ public class BuildingManager implements Serializable {
 	private transient Map<String, Double> VPOldCache = new ConcurrentHashMap<String, Double>();
 	private transient Map<FunctionType, List<Building>> buildingFunctionsMap  = new ConcurrentHashMap<FunctionType, List<Building>>();
 	private transient Map<String, Integer> buildingTypeIDMap  = new ConcurrentHashMap<>();
+	private transient EnergyModel energyModel;
 
 	// Data members
 //	private int numBuildings;
@@ -264,6 +268,9 @@ public class BuildingManager implements Serializable {
 			oldBuilding.removeFunctionsFromSettlement();
 
 			buildings.remove(oldBuilding);
+			invalidateEnergyModel();
+			LocalAreaIndex.remove(oldBuilding);
+			MaintenanceIndex.remove(oldBuilding);
 
 			// Call to remove all references of this building in all functions
 			removeAllFunctionsfromBFMap(oldBuilding);
@@ -376,6 +383,8 @@ public class BuildingManager implements Serializable {
 			Settlement settlement = unitManager.getSettlementByID(settlementID);
 			
 			buildings.add(newBuilding);
+			invalidateEnergyModel();
+			LocalAreaIndex.add(newBuilding, settlement.getCoordinates());
 //			System.out.println(newBuilding.getIdentifier());
 			buildingInts.add(newBuilding.getIdentifier());
 			
@@ -403,6 +412,8 @@ public class BuildingManager implements Serializable {
 	public void addMockBuilding(Building newBuilding) {
 		if (!buildings.contains(newBuilding)) {
 			buildings.add(newBuilding);
+			invalidateEnergyModel();
+			LocalAreaIndex.add(newBuilding, newBuilding.getCoordinates());
 //			buildingInts.add(newBuilding.getIdentifier());
 //			addAllFunctionstoBFMap(newBuilding);
 		}
@@ -412,7 +423,11 @@ public class BuildingManager implements Serializable {
 	 * Removes all mock buildings and building functions in the settlement.
 	 */
 	public void removeAllMockBuildings() {
+		for (Building b : buildings) {
+			LocalAreaIndex.remove(b);
+		}
 		buildings.clear();
+		invalidateEnergyModel();
 		buildingFunctionsMap.clear();
 	}
 	
@@ -838,6 +853,24 @@ public class BuildingManager implements Serializable {
 	 */
 	public boolean timePassing(ClockPulse pulse) {
 
+		startTimePassing(pulse);
+		
+		for (Building b : buildings) {
+			b.timePassing(pulse);
+		}
+		return true;
+	}
+
+	/**
+	 * Prepares the settlement-wide state of the buildings for a pulse, before the
+	 * buildings themselves have their time. Used by the UnitManager when each
+	 * building is updated as its own work item.
+	 * 
+	 * @param pulse the pulse
+	 * @return true
+	 */
+	public boolean startTimePassing(ClockPulse pulse) {
+
 		if (buildingTypeIDMap == null) {
 			buildingTypeIDMap = new ConcurrentHashMap<>();
 			createBuildingTypeIDMap();
@@ -862,13 +895,29 @@ public class BuildingManager implements Serializable {
 				meteorite.startMeteoriteImpact(this);
 			}
 		}
-		
-		for (Building b : buildings) {
-			b.timePassing(pulse);
-		}
 		return true;
 	}
 
+	/**
+	 * Gets the power and heat state of the buildings.
+	 * 
+	 * @return the energy model of the settlement
+	 */
+	public EnergyModel getEnergyModel() {
+		if (energyModel == null)
+			energyModel = new EnergyModel();
+		return energyModel;
+	}
+
+	/**
+	 * Has the energy model line its slots up with the buildings again on the
+	 * next pulse.
+	 */
+	private void invalidateEnergyModel() {
+		if (energyModel != null)
+			energyModel.invalidate();
+	}
+
 
 //	/**
 //	 * Gets a random inhabitable building.
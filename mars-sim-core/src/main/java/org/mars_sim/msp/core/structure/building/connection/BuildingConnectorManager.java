@@ -67,6 +67,9 @@ public class BuildingConnectorManager implements Serializable {
 	private Settlement settlement;
 	
 	private Set<BuildingConnector> buildingConnections;
+
+	/** The shortest routes between the buildings, or null if to be rebuilt. */
+	private transient BuildingRouteTable routeTable;
 	
 	private static SettlementConfig settlementConfig = SimulationConfig.instance().getSettlementConfiguration();
 	
@@ -227,6 +230,7 @@ public class BuildingConnectorManager implements Serializable {
 
 		if (!buildingConnections.contains(buildingConnector)) {
 			buildingConnections.add(buildingConnector);
+			invalidateRouteTable();
 		} else {
 			throw new IllegalArgumentException("BuildingConnector already exists.");
 		}
@@ -241,11 +245,31 @@ public class BuildingConnectorManager implements Serializable {
 
 		if (buildingConnections.contains(buildingConnector)) {
 			buildingConnections.remove(buildingConnector);
+			invalidateRouteTable();
 		} else {
 			throw new IllegalArgumentException("BuildingConnector does not exists.");
 		}
 	}
 
+	/**
+	 * Discards the route table after the building connectors have changed.
+	 */
+	private synchronized void invalidateRouteTable() {
+		routeTable = null;
+	}
+
+	/**
+	 * Gets the route table, building it if the building connectors have changed.
+	 * 
+	 * @return the route table.
+	 */
+	private synchronized BuildingRouteTable getRouteTable() {
+		if (routeTable == null) {
+			routeTable = new BuildingRouteTable(buildingConnections);
+		}
+		return routeTable;
+	}
+
 	/**
 	 * Remove all building connectors to a given building.
 	 * 
@@ -342,10 +366,7 @@ public class BuildingConnectorManager implements Serializable {
 			throw new IllegalArgumentException("Building arguments cannot be null");
 		}
 
-		InsideBuildingPath validPath = determineShortestPath(building1, building1.getXLocation(),
-				building1.getYLocation(), building2, building2.getXLocation(), building2.getYLocation());
-
-		if (validPath != null) {
+		if (getRouteTable().isConnected(building1, building2)) {
 			result = true;
 		} else if (logger.isLoggable(Level.FINEST)) {
 			LogConsolidated.log(logger, Level.FINEST, 10000, sourceName,
@@ -381,9 +402,15 @@ public class BuildingConnectorManager implements Serializable {
 
 		InsideBuildingPath finalPath = null;
 		if (!building1.equals(building2)) {
-			// Check shortest path to target building from this building.
-//			logger.config(building1.getNickName() + " " + building2.getNickName());
-			finalPath = determineShortestPath(startingPath, building1, building2, endingLocation);
+			// Look up the shortest route to target building from this building.
+			BuildingRouteTable table = getRouteTable();
+			int[] route = table.findRoute(building1, building1XLoc, building1YLoc, building2, building2XLoc,
+					building2YLoc);
+			if (route != null) {
+				finalPath = startingPath;
+				addRoute(finalPath, table, route);
+				finalPath.addPathLocation(endingLocation);
+			}
 		} else {
 			finalPath = startingPath;
 			finalPath.addPathLocation(endingLocation);
@@ -398,91 +425,29 @@ public class BuildingConnectorManager implements Serializable {
 	}
 
 	/**
-	 * Recursive method to determine the shortest path between two buildings.
+	 * Adds the connectors of a route, and the buildings crossed in between, to a
+	 * path.
 	 * 
-	 * @param existingPath    the current path.
-	 * @param currentBuilding the current building.
-	 * @param targetBuilding  the target building.
-	 * @param endingLocation  the end building location.
-	 * @return shortest path or null if none found.
+	 * @param path  the path.
+	 * @param table the route table the route is from.
+	 * @param route the traversals of the route.
 	 */
-	private InsideBuildingPath determineShortestPath(InsideBuildingPath existingPath, Building currentBuilding,
-			Building targetBuilding, BuildingLocation endingLocation) {
-
-		InsideBuildingPath result = null;
-
-		// Try each building connection from current building.
-		Iterator<BuildingConnector> i = getConnectionsToBuilding(currentBuilding).iterator();
-		while (i.hasNext()) {
-			BuildingConnector connector = i.next();
-
-			Building connectionBuilding = null;
-			Hatch nearHatch = null;
-			Hatch farHatch = null;
-			if (connector.getBuilding1().equals(currentBuilding)) {
-				connectionBuilding = connector.getBuilding2();
-				nearHatch = connector.getHatch1();
-				farHatch = connector.getHatch2();
-			} else {
-				connectionBuilding = connector.getBuilding1();
-				nearHatch = connector.getHatch2();
-				farHatch = connector.getHatch1();
-			}
-
-			// Make sure building or connection is not already in existing path.
-			boolean inExistingPath = false;
-			if (existingPath.containsPathLocation(connectionBuilding)) {
-				inExistingPath = true;
-			}
-			if (existingPath.containsPathLocation(connector)) {
-				inExistingPath = true;
+	private void addRoute(InsideBuildingPath path, BuildingRouteTable table, int[] route) {
+		for (int x = 0; x < route.length; x++) {
+			BuildingConnector connector = table.getConnector(route[x]);
+			if (x > 0) {
+				path.addPathLocation(table.getFromBuilding(route[x]));
 			}
-			if (existingPath.containsPathLocation(nearHatch)) {
-				inExistingPath = true;
-			}
-			if (existingPath.containsPathLocation(farHatch)) {
-				inExistingPath = true;
-			}
-			if (inExistingPath) {
-				continue;
-			}
-
-			// Copy existing path to create new path.
-			InsideBuildingPath newPath = (InsideBuildingPath) existingPath.clone();
 
-			// Add building connector to new path.
 			if (connector.isSplitConnection()) {
-				newPath.addPathLocation(nearHatch);
-				newPath.addPathLocation(connector);
-				newPath.addPathLocation(farHatch);
+				boolean forward = table.isForward(route[x]);
+				path.addPathLocation(forward ? connector.getHatch1() : connector.getHatch2());
+				path.addPathLocation(connector);
+				path.addPathLocation(forward ? connector.getHatch2() : connector.getHatch1());
 			} else {
-				newPath.addPathLocation(connector);
-			}
-
-			InsideBuildingPath bestPath = null;
-			if (connectionBuilding.equals(targetBuilding)) {
-				// Add ending location within connection building.
-				newPath.addPathLocation(endingLocation);
-				bestPath = newPath;
-			} else {
-				// Add connection building to new path.
-				newPath.addPathLocation(connectionBuilding);
-
-				// Recursively call this method with new path and connection building.
-				// TODO: how to avoid StackOverflow ?
-//				logger.config(connectionBuilding.getNickName() + " -> " + targetBuilding.getNickName() 
-//					+ " (" + endingLocation.getXLocation() + ", " + endingLocation.getYLocation() + ")");
-				bestPath = determineShortestPath(newPath, connectionBuilding, targetBuilding, endingLocation);
-			}
-
-			if (bestPath != null) {
-				if ((result == null) || (bestPath.getPathLength() < result.getPathLength())) {
-					result = bestPath;
-				}
+				path.addPathLocation(connector);
 			}
 		}
-
-		return result;
 	}
 
 	/**
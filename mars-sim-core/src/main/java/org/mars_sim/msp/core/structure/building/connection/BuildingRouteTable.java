@@ -0,0 +1,298 @@
+/**
+ * Mars Simulation Project
+ * BuildingRouteTable.java
+ * @version 3.1.2 2026-10-17
+ * @author agent
+ */
+package org.mars_sim.msp.core.structure.building.connection;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import org.mars_sim.msp.core.structure.building.Building;
+
+/**
+ * The shortest routes between the buildings of a settlement through their
+ * building connectors. A route is a chain of traversals, i.e. a connector
+ * crossed from one of its buildings into the other, and crossing a building
+ * on the way goes through its center, as the walking paths do. The table is
+ * built from a snapshot of the connectors and is replaced, not updated, when
+ * a connector is added or removed. The shortest routes from each traversal
+ * are found by Dijkstra's algorithm the first time they are needed and then
+ * kept.
+ */
+final class BuildingRouteTable {
+
+	/** The buildings that have a connector. */
+	private final Building[] buildings;
+	/** The index of each building in the buildings array. */
+	private final Map<Building, Integer> buildingIndexes = new IdentityHashMap<>();
+	/** The connected group of each building. */
+	private final int[] groups;
+	/** The connectors, traversal t crossing connector t / 2. */
+	private final BuildingConnector[] connectors;
+
+	// The traversals, an even one going from building 1 to building 2 of its connector
+	private final int[] fromBuilding;
+	private final int[] toBuilding;
+	private final double[] firstX;
+	private final double[] firstY;
+	private final double[] lastX;
+	private final double[] lastY;
+	/** The length of a traversal between its first and last locations. */
+	private final double[] crossing;
+	/** The traversals out of each building. */
+	private final int[][] outgoing;
+	/** The traversals into each building. */
+	private final int[][] incoming;
+
+	/** The route lengths from each traversal to the others, or null if not found yet. */
+	private final double[][] lengths;
+	/** The traversal before each one on the routes from each traversal. */
+	private final int[][] previous;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param buildingConnections the building connectors of the settlement.
+	 */
+	BuildingRouteTable(Collection<BuildingConnector> buildingConnections) {
+		connectors = buildingConnections.toArray(new BuildingConnector[0]);
+		int traversals = connectors.length * 2;
+
+		for (BuildingConnector connector : connectors) {
+			addBuilding(connector.getBuilding1());
+			addBuilding(connector.getBuilding2());
+		}
+		buildings = new Building[buildingIndexes.size()];
+		for (Map.Entry<Building, Integer> entry : buildingIndexes.entrySet()) {
+			buildings[entry.getValue()] = entry.getKey();
+		}
+
+		fromBuilding = new int[traversals];
+		toBuilding = new int[traversals];
+		firstX = new double[traversals];
+		firstY = new double[traversals];
+		lastX = new double[traversals];
+		lastY = new double[traversals];
+		crossing = new double[traversals];
+		int[] outCounts = new int[buildings.length];
+		int[] inCounts = new int[buildings.length];
+
+		for (int t = 0; t < traversals; t++) {
+			BuildingConnector connector = connectors[t / 2];
+			boolean forward = (t % 2) == 0;
+			Hatch nearHatch = forward ? connector.getHatch1() : connector.getHatch2();
+			Hatch farHatch = forward ? connector.getHatch2() : connector.getHatch1();
+			fromBuilding[t] = buildingIndexes.get(forward ? connector.getBuilding1() : connector.getBuilding2());
+			toBuilding[t] = buildingIndexes.get(forward ? connector.getBuilding2() : connector.getBuilding1());
+			if (connector.isSplitConnection()) {
+				firstX[t] = nearHatch.getXLocation();
+				firstY[t] = nearHatch.getYLocation();
+				lastX[t] = farHatch.getXLocation();
+				lastY[t] = farHatch.getYLocation();
+				crossing[t] = distance(firstX[t], firstY[t], connector.getXLocation(), connector.getYLocation())
+						+ distance(connector.getXLocation(), connector.getYLocation(), lastX[t], lastY[t]);
+			} else {
+				firstX[t] = connector.getXLocation();
+				firstY[t] = connector.getYLocation();
+				lastX[t] = firstX[t];
+				lastY[t] = firstY[t];
+			}
+			outCounts[fromBuilding[t]]++;
+			inCounts[toBuilding[t]]++;
+		}
+
+		outgoing = new int[buildings.length][];
+		incoming = new int[buildings.length][];
+		for (int b = 0; b < buildings.length; b++) {
+			outgoing[b] = new int[outCounts[b]];
+			incoming[b] = new int[inCounts[b]];
+			outCounts[b] = 0;
+			inCounts[b] = 0;
+		}
+		for (int t = 0; t < traversals; t++) {
+			outgoing[fromBuilding[t]][outCounts[fromBuilding[t]]++] = t;
+			incoming[toBuilding[t]][inCounts[toBuilding[t]]++] = t;
+		}
+
+		groups = new int[buildings.length];
+		Arrays.fill(groups, -1);
+		int[] stack = new int[buildings.length];
+		for (int b = 0; b < buildings.length; b++) {
+			if (groups[b] < 0) {
+				groups[b] = b;
+				int size = 0;
+				stack[size++] = b;
+				while (size > 0) {
+					int current = stack[--size];
+					for (int t : outgoing[current]) {
+						if (groups[toBuilding[t]] < 0) {
+							groups[toBuilding[t]] = b;
+							stack[size++] = toBuilding[t];
+						}
+					}
+				}
+			}
+		}
+
+		lengths = new double[traversals][];
+		previous = new int[traversals][];
+	}
+
+	private void addBuilding(Building building) {
+		if (!buildingIndexes.containsKey(building))
+			buildingIndexes.put(building, buildingIndexes.size());
+	}
+
+	/**
+	 * Checks if there is a route between two buildings.
+	 *
+	 * @param building1 the first building.
+	 * @param building2 the second building.
+	 * @return true if they are the same or connected building.
+	 */
+	boolean isConnected(Building building1, Building building2) {
+		if (building1 == building2)
+			return true;
+		Integer index1 = buildingIndexes.get(building1);
+		Integer index2 = buildingIndexes.get(building2);
+		return (index1 != null) && (index2 != null) && (groups[index1] == groups[index2]);
+	}
+
+	/**
+	 * Finds the shortest route between locations in two different buildings.
+	 *
+	 * @param building1 the first building.
+	 * @param x1        the starting X location in the first building.
+	 * @param y1        the starting Y location in the first building.
+	 * @param building2 the second building.
+	 * @param x2        the ending X location in the second building.
+	 * @param y2        the ending Y location in the second building.
+	 * @return the traversals of the route, in order, or null if none.
+	 */
+	synchronized int[] findRoute(Building building1, double x1, double y1, Building building2, double x2, double y2) {
+		if ((building1 == building2) || !isConnected(building1, building2))
+			return null;
+		int index1 = buildingIndexes.get(building1);
+		int index2 = buildingIndexes.get(building2);
+
+		int bestFirst = -1;
+		int bestLast = -1;
+		double bestLength = Double.POSITIVE_INFINITY;
+		for (int first : outgoing[index1]) {
+			double[] routeLengths = getLengths(first);
+			double start = distance(x1, y1, firstX[first], firstY[first]);
+			for (int last : incoming[index2]) {
+				double length = start + routeLengths[last] + distance(lastX[last], lastY[last], x2, y2);
+				if (length < bestLength) {
+					bestLength = length;
+					bestFirst = first;
+					bestLast = last;
+				}
+			}
+		}
+		if (bestFirst < 0)
+			return null;
+
+		int[] routePrevious = previous[bestFirst];
+		int count = 1;
+		for (int t = bestLast; t != bestFirst; t = routePrevious[t]) {
+			count++;
+		}
+		int[] result = new int[count];
+		for (int t = bestLast; count > 0; t = routePrevious[t]) {
+			result[--count] = t;
+		}
+		return result;
+	}
+
+	/**
+	 * Gets the connector of a traversal.
+	 *
+	 * @param traversal the traversal.
+	 * @return the connector.
+	 */
+	BuildingConnector getConnector(int traversal) {
+		return connectors[traversal / 2];
+	}
+
+	/**
+	 * Checks if a traversal goes from building 1 to building 2 of its connector.
+	 *
+	 * @param traversal the traversal.
+	 * @return true if forward.
+	 */
+	boolean isForward(int traversal) {
+		return (traversal % 2) == 0;
+	}
+
+	/**
+	 * Gets the building a traversal goes from.
+	 *
+	 * @param traversal the traversal.
+	 * @return the building.
+	 */
+	Building getFromBuilding(int traversal) {
+		return buildings[fromBuilding[traversal]];
+	}
+
+	private double[] getLengths(int source) {
+		if (lengths[source] == null)
+			computeRoutes(source);
+		return lengths[source];
+	}
+
+	/**
+	 * Finds the shortest routes from a traversal to all the others. A step from
+	 * a traversal into a building to one out of it goes through the center of
+	 * the building, then crosses the next connector.
+	 */
+	private void computeRoutes(int source) {
+		int traversals = fromBuilding.length;
+		double[] routeLengths = new double[traversals];
+		int[] routePrevious = new int[traversals];
+		boolean[] done = new boolean[traversals];
+		Arrays.fill(routeLengths, Double.POSITIVE_INFINITY);
+		Arrays.fill(routePrevious, -1);
+		routeLengths[source] = crossing[source];
+
+		while (true) {
+			int current = -1;
+			for (int t = 0; t < traversals; t++) {
+				if (!done[t] && (routeLengths[t] < Double.POSITIVE_INFINITY)
+						&& ((current < 0) || (routeLengths[t] < routeLengths[current])))
+					current = t;
+			}
+			if (current < 0)
+				break;
+			done[current] = true;
+
+			Building building = buildings[toBuilding[current]];
+			double centerX = building.getXLocation();
+			double centerY = building.getYLocation();
+			double toCenter = routeLengths[current] + distance(lastX[current], lastY[current], centerX, centerY);
+			for (int next : outgoing[toBuilding[current]]) {
+				// Going back through the same connector is never shorter
+				if ((next / 2) == (current / 2) || done[next])
+					continue;
+				double length = toCenter + distance(centerX, centerY, firstX[next], firstY[next]) + crossing[next];
+				if (length < routeLengths[next]) {
+					routeLengths[next] = length;
+					routePrevious[next] = current;
+				}
+			}
+		}
+
+		lengths[source] = routeLengths;
+		previous[source] = routePrevious;
+	}
+
+	private static double distance(double x1, double y1, double x2, double y2) {
+		double dx = x2 - x1;
+		double dy = y2 - y1;
+		return Math.sqrt((dx * dx) + (dy * dy));
+	}
+}
@@ -25,6 +25,7 @@ import org.mars_sim.msp.core.mars.Weather;
 import org.mars_sim.msp.core.person.Person;
 import org.mars_sim.msp.core.person.PersonConfig;
 import org.mars_sim.msp.core.robot.Robot;
+import org.mars_sim.msp.core.structure.EnergyModel;
 import org.mars_sim.msp.core.structure.Settlement;
 import org.mars_sim.msp.core.structure.building.Building;
 import org.mars_sim.msp.core.structure.building.BuildingConfig;
@@ -169,6 +170,24 @@ public abstract class Function implements Serializable, Temporal {
 		return 0;
 	}
 
+	/**
+	 * Writes the power and heat state of the function in the energy model of the
+	 * settlement. Does nothing by default.
+	 * 
+	 * @param model the energy model.
+	 * @param slot  the slot of the building in the model.
+	 */
+	public void updateEnergyModel(EnergyModel model, int slot) {
+	}
+
+	/**
+	 * Writes the power and heat state of the function in the energy model of the
+	 * settlement right away, e.g. from a setter.
+	 */
+	protected void pushEnergyModel() {
+		building.pushEnergyModel(this);
+	}
+
 	/**
 	 * Perform any actions needed when removing this building function from the
 	 * settlement.
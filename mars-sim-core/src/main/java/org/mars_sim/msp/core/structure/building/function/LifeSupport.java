@@ -18,6 +18,7 @@ import org.mars_sim.msp.core.time.MarsClock;
 
 import java.io.Serializable;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.logging.Level;
@@ -190,31 +191,44 @@ public class LifeSupport extends Function implements Serializable {
 		return new ConcurrentLinkedQueue<Person>(occupants);
 	}
 
+	/**
+	 * Gets the occupants in the building without copying them, e.g. to go over
+	 * them on every pulse.
+	 * 
+	 * @return the occupants, not to be changed
+	 */
+	public Collection<Person> getOccupantsView() {
+		return Collections.unmodifiableCollection(occupants);
+	}
+
 	/**
 	 * Adds a person to the building. Note: building occupant capacity can be
 	 * exceeded but stress levels in the building will increase. (todo: add stress
-	 * later)
+	 * later). The move is made under the lock of the person, so that a person
+	 * moved from two threads at once ends up in one building only.
 	 * 
 	 * @param person new person to add to building.
 	 */
 	public void addPerson(Person person) {
-		if (!occupants.contains(person)) {
-			// Remove person from any other inhabitable building in the settlement.
-			Iterator<Building> i = building.getBuildingManager().getBuildings().iterator(); 
-			while (i.hasNext()) {
-				Building building = i.next();
-				if (building.hasFunction(THE_FUNCTION)) {
-					// remove this person from the old building first
-					BuildingManager.removePersonFromBuilding(person, building);
-//					building.getLifeSupport().removePerson(person);
+		synchronized (person) {
+			if (!occupants.contains(person)) {
+				// Remove person from any other inhabitable building in the settlement.
+				Iterator<Building> i = building.getBuildingManager().getBuildings().iterator(); 
+				while (i.hasNext()) {
+					Building building = i.next();
+					if (building.hasFunction(THE_FUNCTION)) {
+						// remove this person from the old building first
+						BuildingManager.removePersonFromBuilding(person, building);
+//						building.getLifeSupport().removePerson(person);
+					}
 				}
+				
+				// Add person to this building.
+				occupants.add(person);
+				logger.finest("Adding " + person + " to " + building + " life support.");
+			} else {
+				throw new IllegalStateException("Person already occupying building.");
 			}
-			
-			// Add person to this building.
-			occupants.add(person);
-			logger.finest("Adding " + person + " to " + building + " life support.");
-		} else {
-			throw new IllegalStateException("Person already occupying building.");
 		}
 	}
 
@@ -224,11 +238,13 @@ public class LifeSupport extends Function implements Serializable {
 	 * @param occupant the person to remove from building.
 	 */
 	public void removePerson(Person occupant) {
-		if (occupants.contains(occupant)) {
-			occupants.remove(occupant);
-			logger.finest("Removing " + occupant + " from " + building + " life support.");
-		} else {
-			throw new IllegalStateException("Person does not occupy building.");
+		synchronized (occupant) {
+			if (occupants.contains(occupant)) {
+				occupants.remove(occupant);
+				logger.finest("Removing " + occupant + " from " + building + " life support.");
+			} else {
+				throw new IllegalStateException("Person does not occupy building.");
+			}
 		}
 	}
 
@@ -12,6 +12,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.logging.Logger;
 
+import org.mars_sim.msp.core.structure.EnergyModel;
 import org.mars_sim.msp.core.structure.Settlement;
 import org.mars_sim.msp.core.structure.building.Building;
 import org.mars_sim.msp.core.structure.building.BuildingException;
@@ -215,6 +216,7 @@ public class PowerGeneration extends Function implements Serializable {
 		boolean valid = isValid(pulse);
 		if (valid) {
 			powerGeneratedCache = calculateGeneratedPower(pulse.getElapsed());
+			pushEnergyModel();
 		}
 		return valid;
 //		for (PowerSource source : powerSources) {
@@ -288,6 +290,11 @@ public class PowerGeneration extends Function implements Serializable {
 	public double getGeneratedPower() {
 		return powerGeneratedCache;
 	}
+
+	@Override
+	public void updateEnergyModel(EnergyModel model, int slot) {
+		model.setGeneratedPower(slot, powerGeneratedCache);
+	}
 	
 	@Override
 	public void destroy() {
@@ -12,6 +12,7 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import org.mars_sim.msp.core.LogConsolidated;
+import org.mars_sim.msp.core.structure.EnergyModel;
 import org.mars_sim.msp.core.structure.PowerGrid;
 import org.mars_sim.msp.core.structure.Settlement;
 import org.mars_sim.msp.core.structure.building.Building;
@@ -231,7 +232,7 @@ implements Serializable {
 		
 	
 		updateVoltage();		
-		
+		pushEnergyModel();
 	}
 
 	/***
@@ -294,6 +295,7 @@ implements Serializable {
 	        	updateHealth();
 	    		diagnoseBattery();
 	    		updateVoltage();
+	    		pushEnergyModel();
 	        }
 		}
         return valid;
@@ -356,4 +358,9 @@ implements Serializable {
 	public double getResistance() {
 		return r_total;
 	}
+
+	@Override
+	public void updateEnergyModel(EnergyModel model, int slot) {
+		model.setStorage(slot, this);
+	}
 }
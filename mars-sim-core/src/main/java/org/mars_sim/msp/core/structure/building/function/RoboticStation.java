@@ -250,28 +250,31 @@ public class RoboticStation extends Function implements Serializable {
 	}
 
 	/**
-	 * Adds a robot to the building. Note: robot capacity can be exceeded
+	 * Adds a robot to the building. Note: robot capacity can be exceeded. The
+	 * move is made under the lock of the robot.
 	 * 
 	 * @param robot new robot to add to building.
 	 * @throws BuildingException if robot is already building occupant.
 	 */
 	public void addRobot(Robot robot) {
-		if (!robotOccupants.contains(robot)) {
-			// Remove robot from any other inhabitable building in the settlement.
-			Iterator<Building> i = getBuilding().getBuildingManager().getBuildings().iterator();
-			while (i.hasNext()) {
-				Building building = i.next();
-				if (building.hasFunction(FunctionType.ROBOTIC_STATION)) {
-					BuildingManager.removeRobotFromBuilding(robot, building);
-//					building.getRoboticStation().removeRobot(robot);
+		synchronized (robot) {
+			if (!robotOccupants.contains(robot)) {
+				// Remove robot from any other inhabitable building in the settlement.
+				Iterator<Building> i = getBuilding().getBuildingManager().getBuildings().iterator();
+				while (i.hasNext()) {
+					Building building = i.next();
+					if (building.hasFunction(FunctionType.ROBOTIC_STATION)) {
+						BuildingManager.removeRobotFromBuilding(robot, building);
+//						building.getRoboticStation().removeRobot(robot);
+					}
 				}
+	
+				// Add robot to this building.
+				logger.finest("Adding " + robot + " to " + getBuilding() + " robotic station.");
+				robotOccupants.add(robot);
+			} else {
+				throw new IllegalStateException("This robot is already in this building.");
 			}
-
-			// Add robot to this building.
-			logger.finest("Adding " + robot + " to " + getBuilding() + " robotic station.");
-			robotOccupants.add(robot);
-		} else {
-			throw new IllegalStateException("This robot is already in this building.");
 		}
 	}
 
@@ -282,11 +285,13 @@ public class RoboticStation extends Function implements Serializable {
 	 * @throws BuildingException if robot is not building occupant.
 	 */
 	public void removeRobot(Robot robot) {
-		if (robotOccupants.contains(robot)) {
-			robotOccupants.remove(robot);
-			logger.finest("Removing " + robot + " from " + getBuilding() + " robotic station.");
-		} else {
-			throw new IllegalStateException("The robot is not in this building.");
+		synchronized (robot) {
+			if (robotOccupants.contains(robot)) {
+				robotOccupants.remove(robot);
+				logger.finest("Removing " + robot + " from " + getBuilding() + " robotic station.");
+			} else {
+				throw new IllegalStateException("The robot is not in this building.");
+			}
 		}
 	}
 
@@ -14,6 +14,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.logging.Logger;
 
+import org.mars_sim.msp.core.structure.EnergyModel;
 import org.mars_sim.msp.core.structure.Settlement;
 import org.mars_sim.msp.core.structure.building.Building;
 import org.mars_sim.msp.core.structure.building.BuildingException;
@@ -374,13 +375,20 @@ implements Serializable {
 				powerGenerated = calculateGeneratedPower();
 			}
 			
+			boolean changed = false;
 			if (heatGeneratedCache != heatGenerated) {
 				heatGeneratedCache = heatGenerated;
 				building.setHeatGenerated(heatGenerated);
+				changed = true;
 			}
 	
 			if (powerGeneratedCache != powerGenerated) {
 				powerGeneratedCache = powerGenerated;
+				changed = true;
+			}
+			
+			if (changed) {
+				pushEnergyModel();
 			}
 			
 			// set new efficiency 
@@ -426,6 +434,11 @@ implements Serializable {
 		return heating;
 	}
 
+	@Override
+	public void updateEnergyModel(EnergyModel model, int slot) {
+		model.setGeneratedHeat(slot, heatGeneratedCache, powerGeneratedCache);
+	}
+
 	@Override
 	public String[] getMalfunctionScopeStrings() {
 		String[] result = new String[heatSources.size() + 1];
@@ -60,6 +60,11 @@ public class Farming extends Function implements Serializable {
 	private static final String loggerName = logger.getName();
 	private static final String sourceName = loggerName.substring(loggerName.lastIndexOf(".") + 1, loggerName.length());
 
+	private static final int CROP_ISSUE_LOG = LogConsolidated.key("Farming.cropIssue");
+	private static final int TISSUE_OUT_LOG = LogConsolidated.key("Farming.tissueOut");
+	private static final int TISSUE_PARTIAL_LOG = LogConsolidated.key("Farming.tissuePartial");
+	private static final int TISSUE_FULL_LOG = LogConsolidated.key("Farming.tissueFull");
+
 	private static final FunctionType FARMING_FUNCTION = FunctionType.FARMING;
 	
 	public static final int MAX_NUM_SOLS = 14;
@@ -584,8 +589,8 @@ public class Farming extends Function implements Serializable {
 			inv.addAmountDemandTotalRequest(tissueID, amountStored);
 
 			if (amountStored < MIN) {
-				LogConsolidated.flog(Level.INFO, 1000, sourceName,
-						"[" + building.getSettlement() + "]" + "Ran out of " + tissueName);
+				LogConsolidated.log(logger, Level.INFO, 1000, TISSUE_OUT_LOG, sourceName,
+						"[%s] Ran out of %s", building.getSettlement(), tissueName);
 				percent = 0;
 			}
 
@@ -593,16 +598,15 @@ public class Farming extends Function implements Serializable {
 				available = true;
 				percent = amountStored / requestedAmount * 100D;
 				requestedAmount = amountStored;
-				LogConsolidated.flog(Level.INFO, 1000, sourceName,
-						"[" + building.getSettlement() + "] " + Math.round(requestedAmount * 100.0) / 100.0 + " kg " + tissueName
-								+ " was partially available.");
+				LogConsolidated.log(logger, Level.INFO, 1000, TISSUE_PARTIAL_LOG, sourceName,
+						"[%s] %.2f kg %s was partially available.", building.getSettlement(), requestedAmount, tissueName);
 			}
 
 			else {
 				available = true;
 				percent = 100D;
-				LogConsolidated.flog(Level.INFO, 1000, sourceName, "[" + building.getSettlement() + "] "
-						+ Math.round(requestedAmount * 100.0) / 100.0 + " kg " + tissueName + " was fully available.");
+				LogConsolidated.log(logger, Level.INFO, 1000, TISSUE_FULL_LOG, sourceName,
+						"[%s] %.2f kg %s was fully available.", building.getSettlement(), requestedAmount, tissueName);
 			}
 
 			if (available) {
@@ -891,8 +895,10 @@ public class Farming extends Function implements Serializable {
 					crop.timePassing(pulse, productionLevel);
 				
 				} catch (Exception e) {
-					LogConsolidated.flog(Level.WARNING, 1000, sourceName,
-							"[" + building.getSettlement().getName() + "] " + crop.getCropName() + " ran into issues in " + building , e);
+					int count = LogConsolidated.acquire(logger, Level.WARNING, 1000, CROP_ISSUE_LOG);
+					if (count > 0)
+						LogConsolidated.logAcquired(logger, Level.WARNING, count, sourceName,
+							"[" + building.getSettlement().getName() + "] " + crop.getCropName() + " ran into issues in " + building, e);
 					e.printStackTrace();
 				}
 				
@@ -11,6 +11,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
 
+import org.mars_sim.msp.core.LocalAreaIndex;
 import org.mars_sim.msp.core.UnitEventType;
 import org.mars_sim.msp.core.person.Person;
 import org.mars_sim.msp.core.robot.Robot;
@@ -165,6 +166,7 @@ implements Serializable {
 	public ConstructionSite createNewConstructionSite() {
 		ConstructionSite result = new ConstructionSite(settlement);//, this);
 		sites.add(result);
+		LocalAreaIndex.add(result, settlement.getCoordinates());
 		settlement.fireUnitUpdate(UnitEventType.START_CONSTRUCTION_SITE_EVENT, result);
 		return result;
 	}
@@ -181,6 +183,7 @@ implements Serializable {
 	public void removeConstructionSite(ConstructionSite site) {
 		if (sites.contains(site)) {
 			sites.remove(site);
+			LocalAreaIndex.remove(site);
 		}
 		else throw new IllegalStateException("Construction site doesn't exist.");
 	}
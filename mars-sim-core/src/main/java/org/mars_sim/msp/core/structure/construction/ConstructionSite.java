@@ -14,6 +14,7 @@ import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 
+import org.mars_sim.msp.core.LocalAreaIndex;
 import org.mars_sim.msp.core.LocalBoundedObject;
 import org.mars_sim.msp.core.Simulation;
 import org.mars_sim.msp.core.Unit;
@@ -142,6 +143,7 @@ implements Serializable, LocalBoundedObject {
      */
     public void setWidth(double width) {
         this.width = width;
+        LocalAreaIndex.update(this);
     }
 
     @Override
@@ -155,6 +157,7 @@ implements Serializable, LocalBoundedObject {
      */
     public void setLength(double length) {
         this.length = length;
+        LocalAreaIndex.update(this);
     }
 
     @Override
@@ -168,6 +171,7 @@ implements Serializable, LocalBoundedObject {
      */
     public void setXLocation(double xLocation) {
         this.xLocation = xLocation;
+        LocalAreaIndex.update(this);
     }
 
     @Override
@@ -181,6 +185,7 @@ implements Serializable, LocalBoundedObject {
      */
     public void setYLocation(double yLocation) {
         this.yLocation = yLocation;
+        LocalAreaIndex.update(this);
     }
 
     @Override
@@ -194,6 +199,7 @@ implements Serializable, LocalBoundedObject {
      */
     public void setFacing(double facing) {
         this.facing = facing;
+        LocalAreaIndex.update(this);
     }
 
     /**
@@ -0,0 +1,298 @@
+/**
+ * Mars Simulation Project
+ * GoodsDependencyGraph.java
+ * @version 3.1.2 2026-10-17
+ * @author agent
+ */
+package org.mars_sim.msp.core.structure.goods;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.logging.Logger;
+
+import org.mars_sim.msp.core.SimulationConfig;
+import org.mars_sim.msp.core.foodProduction.FoodProductionProcessInfo;
+import org.mars_sim.msp.core.foodProduction.FoodProductionProcessItem;
+import org.mars_sim.msp.core.foodProduction.FoodProductionUtil;
+import org.mars_sim.msp.core.manufacture.ManufactureProcessInfo;
+import org.mars_sim.msp.core.manufacture.ManufactureProcessItem;
+import org.mars_sim.msp.core.manufacture.ManufactureUtil;
+import org.mars_sim.msp.core.structure.building.BuildingConfig;
+import org.mars_sim.msp.core.structure.building.function.ResourceProcess;
+import org.mars_sim.msp.core.structure.construction.ConstructionStageInfo;
+import org.mars_sim.msp.core.structure.construction.ConstructionUtil;
+
+/**
+ * The dependencies between the values of the goods, i.e. which goods have
+ * their value worked out from the value of which other goods. An input of a
+ * manufacturing, food production or resource process depends on the outputs
+ * of that process, and the materials of a building construction stage depend
+ * on each other through the cost of the stage. The graph is built once from
+ * the configs and shared by all the goods managers.
+ */
+public final class GoodsDependencyGraph {
+
+	private static Logger logger = Logger.getLogger(GoodsDependencyGraph.class.getName());
+
+	private static GoodsDependencyGraph instance;
+
+	/** The goods, by index. */
+	private List<Good> goods;
+	/** The index of each good. */
+	private Map<Good, Integer> indices;
+	/** The goods whose value depend on each good, by index. */
+	private int[][] dependents;
+	/** The goods in topological order, i.e. each good comes before the goods depending on it. */
+	private int[] order;
+	/** The number of goods that are in a dependency cycle. */
+	private int cyclicGoods;
+
+	/**
+	 * Gets the dependency graph of the goods of the simulation, building it if
+	 * needed.
+	 *
+	 * @return the graph.
+	 */
+	public static synchronized GoodsDependencyGraph getInstance() {
+		List<Good> goodsList = GoodsUtil.getGoodsList();
+		if (instance == null || instance.goods.size() != goodsList.size()) {
+			instance = new GoodsDependencyGraph(goodsList);
+		}
+		return instance;
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param goodsList all the goods.
+	 */
+	private GoodsDependencyGraph(List<Good> goodsList) {
+		goods = new ArrayList<>(goodsList);
+		indices = new HashMap<>(goods.size());
+		for (int i = 0; i < goods.size(); i++) {
+			indices.put(goods.get(i), i);
+		}
+
+		List<Set<Integer>> edges = new ArrayList<>(goods.size());
+		for (int i = 0; i < goods.size(); i++) {
+			edges.add(new TreeSet<>());
+		}
+
+		addManufacturingEdges(edges);
+		addFoodProductionEdges(edges);
+		addResourceProcessEdges(edges);
+		addConstructionEdges(edges);
+
+		dependents = new int[goods.size()][];
+		int edgeCount = 0;
+		for (int i = 0; i < goods.size(); i++) {
+			dependents[i] = edges.get(i).stream().mapToInt(Integer::intValue).toArray();
+			edgeCount += dependents[i].length;
+		}
+
+		order = new TopologicalSort().sort();
+
+		logger.config("Goods dependency graph : " + goods.size() + " goods, " + edgeCount + " dependencies, "
+				+ cyclicGoods + " goods in cycles.");
+	}
+
+	/**
+	 * Makes the value of a good depend on the value of another good.
+	 *
+	 * @param edges     the edges being built.
+	 * @param upstream  the good whose value is used.
+	 * @param dependent the good whose value is worked out from it.
+	 */
+	private void addEdge(List<Set<Integer>> edges, Good upstream, Good dependent) {
+		if (upstream == null || dependent == null)
+			return;
+		Integer from = indices.get(upstream);
+		Integer to = indices.get(dependent);
+		if (from != null && to != null && !from.equals(to)) {
+			edges.get(from).add(to);
+		}
+	}
+
+	private void addManufacturingEdges(List<Set<Integer>> edges) {
+		for (ManufactureProcessInfo process : ManufactureUtil.getAllManufactureProcesses()) {
+			for (ManufactureProcessItem input : process.getInputList()) {
+				Good inputGood = ManufactureUtil.getGood(input);
+				for (ManufactureProcessItem output : process.getOutputList()) {
+					addEdge(edges, ManufactureUtil.getGood(output), inputGood);
+				}
+			}
+		}
+	}
+
+	private void addFoodProductionEdges(List<Set<Integer>> edges) {
+		for (FoodProductionProcessInfo process : FoodProductionUtil.getAllFoodProductionProcesses()) {
+			for (FoodProductionProcessItem input : process.getInputList()) {
+				Good inputGood = FoodProductionUtil.getGood(input);
+				for (FoodProductionProcessItem output : process.getOutputList()) {
+					addEdge(edges, FoodProductionUtil.getGood(output), inputGood);
+				}
+			}
+		}
+	}
+
+	private void addResourceProcessEdges(List<Set<Integer>> edges) {
+		BuildingConfig buildingConfig = SimulationConfig.instance().getBuildingConfiguration();
+		for (String buildingType : BuildingConfig.getBuildingTypes()) {
+			for (ResourceProcess process : buildingConfig.getResourceProcesses(buildingType)) {
+				for (Integer input : process.getInputResources()) {
+					if (process.isAmbientInputResource(input))
+						continue;
+					Good inputGood = GoodsUtil.getResourceGood(input);
+					for (Integer output : process.getOutputResources()) {
+						addEdge(edges, GoodsUtil.getResourceGood(output), inputGood);
+					}
+				}
+			}
+		}
+	}
+
+	private void addConstructionEdges(List<Set<Integer>> edges) {
+		for (ConstructionStageInfo stage : ConstructionUtil.getBuildingConstructionStageInfoList()) {
+			// The materials of the stage and of its prerequisite stages
+			List<Good> materials = new ArrayList<>();
+			ConstructionStageInfo current = stage;
+			for (int i = 0; (i < 3) && (current != null); i++) {
+				for (Integer resource : current.getResources().keySet()) {
+					materials.add(GoodsUtil.getResourceGood(resource));
+				}
+				for (Integer part : current.getParts().keySet()) {
+					materials.add(GoodsUtil.getResourceGood(part));
+				}
+				current = ConstructionUtil.getPrerequisiteStage(current);
+			}
+
+			for (Good material : materials) {
+				for (Good other : materials) {
+					addEdge(edges, other, material);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Gets the number of goods.
+	 *
+	 * @return the number of goods.
+	 */
+	public int size() {
+		return goods.size();
+	}
+
+	/**
+	 * Gets a good.
+	 *
+	 * @param index the index of the good.
+	 * @return the good.
+	 */
+	public Good getGood(int index) {
+		return goods.get(index);
+	}
+
+	/**
+	 * Gets the index of a good.
+	 *
+	 * @param good the good.
+	 * @return the index, or -1 if not in the graph.
+	 */
+	public int getIndex(Good good) {
+		Integer result = indices.get(good);
+		return (result != null ? result : -1);
+	}
+
+	/**
+	 * Gets the goods whose value depend on a good.
+	 *
+	 * @param index the index of the good.
+	 * @return the indices of the dependent goods.
+	 */
+	public int[] getDependents(int index) {
+		return dependents[index];
+	}
+
+	/**
+	 * Gets the goods in topological order. Goods in a dependency cycle come
+	 * together, by index.
+	 *
+	 * @return the indices of the goods.
+	 */
+	public int[] getOrder() {
+		return order;
+	}
+
+	/**
+	 * Gets the number of goods that are in a dependency cycle.
+	 *
+	 * @return the number of goods.
+	 */
+	public int getCyclicGoods() {
+		return cyclicGoods;
+	}
+
+	/**
+	 * Tarjan's strongly connected components. The components come out with the
+	 * goods depending on them first, so they are laid out from the back.
+	 */
+	private class TopologicalSort {
+
+		private int[] componentIndex = new int[goods.size()];
+		private int[] lowLink = new int[goods.size()];
+		private boolean[] onStack = new boolean[goods.size()];
+		private int[] stack = new int[goods.size()];
+		private int stackSize;
+		private int nextIndex;
+		private int[] result = new int[goods.size()];
+		private int resultStart = goods.size();
+
+		private int[] sort() {
+			Arrays.fill(componentIndex, -1);
+			for (int i = 0; i < goods.size(); i++) {
+				if (componentIndex[i] < 0) {
+					visit(i);
+				}
+			}
+			return result;
+		}
+
+		private void visit(int v) {
+			componentIndex[v] = nextIndex;
+			lowLink[v] = nextIndex;
+			nextIndex++;
+			stack[stackSize++] = v;
+			onStack[v] = true;
+
+			for (int w : dependents[v]) {
+				if (componentIndex[w] < 0) {
+					visit(w);
+					lowLink[v] = Math.min(lowLink[v], lowLink[w]);
+				} else if (onStack[w]) {
+					lowLink[v] = Math.min(lowLink[v], componentIndex[w]);
+				}
+			}
+
+			if (lowLink[v] == componentIndex[v]) {
+				// Pop the component
+				int end = stackSize;
+				do {
+					onStack[stack[--stackSize]] = false;
+				} while (stack[stackSize] != v);
+
+				int[] component = Arrays.copyOfRange(stack, stackSize, end);
+				Arrays.sort(component);
+				if (component.length > 1)
+					cyclicGoods += component.length;
+				resultStart -= component.length;
+				System.arraycopy(component, 0, result, resultStart, component.length);
+			}
+		}
+	}
+}
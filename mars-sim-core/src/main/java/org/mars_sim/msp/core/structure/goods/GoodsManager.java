@@ -7,6 +7,8 @@
 package org.mars_sim.msp.core.structure.goods;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
@@ -39,6 +41,7 @@ import org.mars_sim.msp.core.foodProduction.FoodProductionProcess;
 import org.mars_sim.msp.core.foodProduction.FoodProductionProcessInfo;
 import org.mars_sim.msp.core.foodProduction.FoodProductionProcessItem;
 import org.mars_sim.msp.core.foodProduction.FoodProductionUtil;
+import org.mars_sim.msp.core.malfunction.MaintenanceIndex;
 import org.mars_sim.msp.core.malfunction.Malfunction;
 import org.mars_sim.msp.core.malfunction.MalfunctionFactory;
 import org.mars_sim.msp.core.malfunction.MalfunctionManager;
@@ -57,6 +60,7 @@ import org.mars_sim.msp.core.person.ai.mission.CollectRegolith;
 import org.mars_sim.msp.core.person.ai.mission.Exploration;
 import org.mars_sim.msp.core.person.ai.mission.Mission;
 import org.mars_sim.msp.core.person.ai.mission.MissionManager;
+import org.mars_sim.msp.core.person.ai.mission.TradeMarket;
 import org.mars_sim.msp.core.person.ai.mission.VehicleMission;
 import org.mars_sim.msp.core.person.ai.task.DigLocalRegolith;
 import org.mars_sim.msp.core.resource.AmountResource;
@@ -214,6 +218,20 @@ public class GoodsManager implements Serializable, Temporal {
 	private static final double KITCHEN_DEMAND = .01;
 	private static final double BRICK_DEMAND = .01;
 	
+	/**
+	 * The relative change of value or demand of a good that makes the goods
+	 * depending on it re-valued. Smaller changes add up against the value and
+	 * demand last passed on until they get past it, so the goods depending on a
+	 * good work from values within this tolerance of its own, and all the goods
+	 * are re-valued at least once a sol.
+	 */
+	static final double REVALUE_TOLERANCE = .001;
+	/**
+	 * The relative change of value or demand of a good below which it has
+	 * settled, e.g. its smoothed demand has caught up with its inputs.
+	 */
+	private static final double SETTLED_TOLERANCE = 1E-9;
+
 	/** VP probability modifier. */
 	public static double ICE_VALUE_MODIFIER = 1D;
 	public static double WATER_VALUE_MODIFIER = 3D;
@@ -251,6 +269,28 @@ public class GoodsManager implements Serializable, Temporal {
 
 	private Settlement settlement;
 
+	/** The goods to re-value in the next pass, by index in the dependency graph. */
+	private transient BitSet dirtyGoods;
+	/** The supply and demand signature of each good when last re-valued. */
+	private transient long[] goodsSignatures;
+	/** The value of each good when last passed on to the goods depending on it. */
+	private transient double[] publishedValues;
+	/** The demand of each good when last passed on to the goods depending on it. */
+	private transient double[] publishedDemands;
+	/** The value of each good when last re-valued. */
+	private transient double[] lastValues;
+	/** The demand of each good when last re-valued. */
+	private transient double[] lastDemands;
+	/** The mission sol of the last pass re-valuing all the goods. */
+	private transient int lastFullPassSol = -1;
+	/** The signature of the population, buildings, missions and malfunctions at the last pass. */
+	private transient long settlementSignature;
+
+	private transient int lastPassRevalued;
+	private transient long lastPassNanos;
+	private transient int passCount;
+	private transient long totalRevalued;
+
 	private static SimulationConfig simulationConfig = SimulationConfig.instance();
 //	private static BuildingConfig buildingConfig = simulationConfig.getBuildingConfiguration();
 	private static CropConfig cropConfig = simulationConfig.getCropConfiguration();
@@ -480,9 +520,22 @@ public class GoodsManager implements Serializable, Temporal {
 	}
 
 	/**
-	 * Updates the values for all the goods at the settlement.
+	 * Updates the values of the goods at the settlement. All the goods are
+	 * re-valued once a sol, and whenever the population, the buildings, the
+	 * missions or the malfunctions of the settlement change since many goods are
+	 * valued from them. In between, only the goods whose supply or demand has
+	 * changed, the goods depending on them and the goods still settling, e.g.
+	 * as their smoothed demand catches up, are re-valued, in the order of the
+	 * goods dependency graph so that a good is re-valued after the goods it
+	 * depends on. A good left out would have moved by less than the
+	 * {@link #REVALUE_TOLERANCE} of its inputs.
 	 */
 	private void updateGoodsValues() {
+		long startTime = System.nanoTime();
+		GoodsDependencyGraph graph = GoodsDependencyGraph.getInstance();
+		int sol = marsClock.getMissionSol();
+		long signature = getSettlementSignature();
+
 		// Clear parts demand cache.
 		partsDemandCache.clear();
 
@@ -490,13 +543,208 @@ public class GoodsManager implements Serializable, Temporal {
 		vehicleBuyValueCache.clear();
 		vehicleSellValueCache.clear();
 
-		Iterator<Good> i = goodsValues.keySet().iterator();
-		while (i.hasNext())
-			updateGoodValue(i.next(), true);
- 
+		if (!initialized || (dirtyGoods == null) || (goodsSignatures.length != graph.size())
+				|| (sol != lastFullPassSol) || (signature != settlementSignature)) {
+			if ((dirtyGoods == null) || (goodsSignatures.length != graph.size())) {
+				dirtyGoods = new BitSet(graph.size());
+				goodsSignatures = new long[graph.size()];
+				publishedValues = new double[graph.size()];
+				publishedDemands = new double[graph.size()];
+				lastValues = new double[graph.size()];
+				lastDemands = new double[graph.size()];
+			}
+			dirtyGoods.set(0, graph.size());
+			lastFullPassSol = sol;
+			settlementSignature = signature;
+		} else {
+			markChangedGoods(graph);
+		}
+
+		int revalued = 0;
+		List<Good> moved = new ArrayList<>();
+		BitSet settling = new BitSet(graph.size());
+		for (int index : graph.getOrder()) {
+			if (!dirtyGoods.get(index))
+				continue;
+			dirtyGoods.clear(index);
+
+			Good good = graph.getGood(index);
+			updateGoodValue(good, true);
+			revalued++;
+			goodsSignatures[index] = getSignature(good);
+
+			double value = good.getGoodValue() + good.getGoodValueBuffer();
+			double demand = goodsDemandCache.getOrDefault(good, 0D);
+			// Re-value it again in the next pass until it settles, as a full
+			// pass would
+			if (hasMoved(lastValues[index], value, SETTLED_TOLERANCE)
+					|| hasMoved(lastDemands[index], demand, SETTLED_TOLERANCE)) {
+				settling.set(index);
+			}
+			lastValues[index] = value;
+			lastDemands[index] = demand;
+
+			if (hasMoved(publishedValues[index], value, REVALUE_TOLERANCE)
+					|| hasMoved(publishedDemands[index], demand, REVALUE_TOLERANCE)) {
+				moved.add(good);
+				// Goods later in the order are re-valued in this pass, the
+				// ones in a cycle before it in the next pass
+				for (int dependent : graph.getDependents(index)) {
+					dirtyGoods.set(dependent);
+				}
+				publishedValues[index] = value;
+				publishedDemands[index] = demand;
+			}
+		}
+		dirtyGoods.or(settling);
+
 		settlement.fireUnitUpdate(UnitEventType.GOODS_VALUE_EVENT);
+		if (!moved.isEmpty()) {
+			TradeMarket.getInstance().goodsValuesChanged(settlement, moved);
+		}
 
 		initialized = true;
+
+		lastPassRevalued = revalued;
+		lastPassNanos = System.nanoTime() - startTime;
+		passCount++;
+		totalRevalued += revalued;
+
+		if (logger.isLoggable(Level.FINE)) {
+			logger.fine(settlement + " re-valued " + revalued + " of " + graph.size() + " goods in "
+					+ Math.round(lastPassNanos / 1_000D) / 1_000D + " ms.");
+		}
+	}
+
+	/**
+	 * Marks the goods whose supply or demand has changed since they were last
+	 * re-valued. The value of the equipment and vehicles follow the missions and
+	 * the population rather than the inventory, so they are always re-valued.
+	 * 
+	 * @param graph the goods dependency graph.
+	 */
+	private void markChangedGoods(GoodsDependencyGraph graph) {
+		for (int index = 0; index < graph.size(); index++) {
+			Good good = graph.getGood(index);
+			GoodType type = good.getCategory();
+			if ((type == GoodType.EQUIPMENT) || (type == GoodType.VEHICLE)
+					|| (getSignature(good) != goodsSignatures[index])) {
+				dirtyGoods.set(index);
+			}
+		}
+	}
+
+	/**
+	 * Gets a signature of the supply and demand of a good at the settlement. The
+	 * signature changes when anything the value of the good is worked out from
+	 * changes, other than the value of other goods.
+	 * 
+	 * @param good the good.
+	 * @return the signature.
+	 */
+	private long getSignature(Good good) {
+		long result = Double.doubleToLongBits(getNumberOfGoodForSettlement(good));
+		Inventory inv = settlement.getInventory();
+		int id = good.getID();
+		if (good.getCategory() == GoodType.AMOUNT_RESOURCE) {
+			result = mix(result, Double.doubleToLongBits(inv.getAmountDemand(id)));
+			result = mix(result, inv.getAmountDemandMetRequest(id));
+			result = mix(result, inv.getAmountDemandTotalRequest(id));
+			result = mix(result, Double.doubleToLongBits(inv.getAmountDemandEstimated(id)));
+			result = mix(result, Double.doubleToLongBits(inv.getAmountSupply(id)));
+			result = mix(result, inv.getAmountSupplyRequest(id));
+		} else if (good.getCategory() == GoodType.ITEM_RESOURCE) {
+			result = mix(result, Double.doubleToLongBits(inv.getItemDemand(id)));
+			result = mix(result, inv.getItemDemandMetRequest(id));
+			result = mix(result, inv.getItemDemandTotalRequest(id));
+			result = mix(result, Double.doubleToLongBits(inv.getItemDemandEstimated(id)));
+			result = mix(result, Double.doubleToLongBits(inv.getItemSupply(id)));
+			result = mix(result, inv.getItemSupplyRequest(id));
+		}
+		return result;
+	}
+
+	/**
+	 * Gets a signature of the inputs other than the inventory that goods are
+	 * valued from: the population, the buildings, the vehicles, the missions
+	 * and the malfunctions of the settlement.
+	 * 
+	 * @return the signature.
+	 */
+	private long getSettlementSignature() {
+		long result = settlement.getNumCitizens();
+		result = mix(result, settlement.getIndoorPeopleCount());
+		result = mix(result, settlement.getNumBots());
+		result = mix(result, settlement.getBuildingManager().getNumBuildings());
+		result = mix(result, settlement.getAllAssociatedVehicles().size());
+		for (Mission mission : missionManager.getMissionsForSettlement(settlement)) {
+			result = mix(result, System.identityHashCode(mission));
+		}
+		for (Malfunctionable entity : MaintenanceIndex.getIndex(settlement).getMalfunctioningEntities()) {
+			result = mix(result, System.identityHashCode(entity));
+			result = mix(result, entity.getMalfunctionManager().getMalfunctions().size());
+		}
+		return result;
+	}
+
+	private static long mix(long hash, long value) {
+		return (hash * 31L) ^ value;
+	}
+
+	/**
+	 * Checks if a value has moved away from an earlier one.
+	 * 
+	 * @param earlier   the earlier value.
+	 * @param current   the current value.
+	 * @param tolerance the relative tolerance.
+	 * @return true if moved by more than the tolerance.
+	 */
+	private static boolean hasMoved(double earlier, double current, double tolerance) {
+		return Math.abs(current - earlier) > tolerance * Math.max(Math.abs(earlier), 1D);
+	}
+
+	/**
+	 * Makes all the goods re-valued in the next pass, e.g. after a change of the
+	 * development objectives of the settlement.
+	 */
+	public void markAllGoodsDirty() {
+		lastFullPassSol = -1;
+	}
+
+	/**
+	 * Gets the number of goods re-valued in the last pass.
+	 * 
+	 * @return the number of goods.
+	 */
+	public int getLastPassRevalued() {
+		return lastPassRevalued;
+	}
+
+	/**
+	 * Gets how long the last pass took.
+	 * 
+	 * @return the time (ms).
+	 */
+	public double getLastPassTime() {
+		return lastPassNanos / 1_000_000D;
+	}
+
+	/**
+	 * Gets the number of passes since the simulation was started or loaded.
+	 * 
+	 * @return the number of passes.
+	 */
+	public int getPassCount() {
+		return passCount;
+	}
+
+	/**
+	 * Gets the average number of goods re-valued per pass.
+	 * 
+	 * @return the number of goods.
+	 */
+	public double getAverageRevalued() {
+		return (passCount == 0) ? 0D : (double) totalRevalued / passCount;
 	}
 
 	/**
@@ -1171,22 +1419,27 @@ public class GoodsManager implements Serializable, Temporal {
 
 	public void setCropFarmFactor(double value) {
 		cropFarm_factor = value * CROPFARM_BASE;
+		markAllGoodsDirty();
 	}
 
 	public void setManufacturingFactor(double value) {
 		manufacturing_factor = value * MANU_BASE;
+		markAllGoodsDirty();
 	}
 
 	public void setTransportationFactor(double value) {
 		transportation_factor = value * TRANSPORT_BASE;
+		markAllGoodsDirty();
 	}
 
 	public void setResearchFactor(double value) {
 		research_factor = value * RESEARCH_BASE;
+		markAllGoodsDirty();
 	}
 
 	public void setTradeFactor(double value) {
 		trade_factor = value * TRADE_BASE;
+		markAllGoodsDirty();
 	}
 
 	// public void setFreeMarketFactor(double value) {
@@ -1195,6 +1448,7 @@ public class GoodsManager implements Serializable, Temporal {
 
 	public void setTourismFactor(double value) {
 		tourism_factor = value * TOURISM_BASE;
+		markAllGoodsDirty();
 	}
 
 	public double getCropFarmFactor() {
@@ -21,12 +21,14 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.RejectedExecutionException;
+import java.util.function.BooleanSupplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import org.mars_sim.msp.core.LogConsolidated;
 import org.mars_sim.msp.core.Simulation;
 import org.mars_sim.msp.core.Simulation.SaveType;
+import org.mars_sim.msp.core.UnitEventBus;
 
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
@@ -144,6 +146,23 @@ public class MasterClock implements Serializable {
 
 	private int maxMilliSecPerPulse;
 
+	/** Is the clock running pulses back to back, without pacing against real time. */
+	private transient volatile boolean batchMode;
+	/** The fixed pulse length in batch mode. */
+	private transient double batchMilliSolPerPulse;
+	/** The condition for ending a batch run. */
+	private transient BooleanSupplier batchEndCondition;
+	/** What to do once a batch run has ended. */
+	private transient Runnable batchEndAction;
+	/** The number of pulses run in batch mode. */
+	private transient long batchPulses;
+	/** The millisols simulated in batch mode. */
+	private transient double batchMilliSols;
+	/** The real time (in ns) the batch run started. */
+	private transient long batchStartTime;
+	/** The real time (in ns) the batch run ended, or 0 if still running. */
+	private transient long batchEndTime;
+
 	private static Simulation sim = Simulation.instance();
 
 	/**
@@ -428,7 +447,10 @@ public class MasterClock implements Serializable {
 			// Keep running until told not to by calling stop()
 			keepRunning = true;
 
-			if (sim.isDoneInitializing() && !isFXGL) {
+			if (sim.isDoneInitializing() && !isFXGL && batchMode) {
+				runBatch();
+			}
+			else if (sim.isDoneInitializing() && !isFXGL) {
 				while (keepRunning) {
 					long startTime = System.currentTimeMillis();
 					
@@ -465,6 +487,7 @@ public class MasterClock implements Serializable {
 					// Exit program if exitProgram flag is true.
 					if (exitProgram) {
 						AutosaveScheduler.cancel();
+						sim.waitForBackgroundSave();
 						System.exit(0);
 					}
 					
@@ -478,6 +501,52 @@ public class MasterClock implements Serializable {
 
 		} // end of run
 
+		/**
+		 * Runs fixed pulses back to back until the end condition is met.
+		 */
+		private void runBatch() {
+			batchPulses = 0;
+			batchMilliSols = 0D;
+			batchStartTime = System.nanoTime();
+			batchEndTime = 0;
+			sleepTime = 0;
+			logger.config("Batch run with pulses of " + batchMilliSolPerPulse + " msols");
+
+			while (keepRunning) {
+				if (isPaused) {
+					// Nothing to do but wait
+					try {
+						Thread.sleep(maxMilliSecPerPulse);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}
+				else {
+					addBatchTime();
+				}
+
+				// Exit program if exitProgram flag is true.
+				if (exitProgram) {
+					AutosaveScheduler.cancel();
+					sim.waitForBackgroundSave();
+					System.exit(0);
+				}
+
+				// Check to see if the simulation should be saved at this point.
+				checkSave();
+
+				if (batchEndCondition != null && batchEndCondition.getAsBoolean()) {
+					keepRunning = false;
+				}
+			}
+
+			batchEndTime = System.nanoTime();
+			logger.config(getBatchReport());
+			if (batchEndAction != null) {
+				batchEndAction.run();
+			}
+		}
+
 		private void calculateSleepTime() {
 			// Max number of pulses this environment can handle
 			double predictedMaxPulses = (double)maxMilliSecPerPulse/executionTime;
@@ -565,31 +634,143 @@ public class MasterClock implements Serializable {
 				// Calculate the actual rate for feedback
 				actualTR = (int) (earthMillisec / realElaspedMilliSec);
 				
-				if (!listenerExecutor.isTerminated()
-					&& !listenerExecutor.isShutdown()) {	
-					// Do the pulse
-					timestampPulseStart();
-					
-					uptimer.updateTime(realElaspedMilliSec);
-					
-					// Add time to the Earth clock.
-					earthClock.addTime(earthMillisec);
-					
-					// Add time pulse to Mars clock.
-					marsClock.addTime(marsMSol);
-					
-					// Run the clock listener tasks that are in other package
-					fireClockPulse(marsMSol);
-				}
-				else {
-					// NOTE: when resuming from power saving, timePulse becomes zero
-					LogConsolidated.flog(Level.CONFIG, 0, sourceName, "The clockListenerExecutor has died. Restarting...");
-					resetClockListeners();
-				}
+				runPulse(realElaspedMilliSec, earthMillisec);
 			}
 		}
 		return acceptablePulse;
 	}
+
+	/**
+	 * Adds a fixed pulse of mars time, and the matching earth time, whatever the
+	 * real time taken.
+	 */
+	private void addBatchTime() {
+		long startTime = System.currentTimeMillis();
+
+		marsMSol = batchMilliSolPerPulse;
+		long earthMillisec = (long)(marsMSol * MILLISECONDS_PER_MILLISOL);
+
+		if (runPulse(startTime - tLast, earthMillisec)) {
+			batchPulses++;
+			batchMilliSols += marsMSol;
+		}
+		executionTime = System.currentTimeMillis() - startTime;
+
+		// Calculate the actual rate over the batch run for feedback
+		double elapsedMilliSec = (System.nanoTime() - batchStartTime) / 1_000_000D;
+		if (elapsedMilliSec > 0) {
+			actualTR = (int) ((batchMilliSols * MILLISECONDS_PER_MILLISOL) / elapsedMilliSec);
+		}
+	}
+
+	/**
+	 * Adds the time to the clocks and sends out the clock pulse.
+	 *
+	 * @param realElaspedMilliSec the real time since the last pulse
+	 * @param earthMillisec       the earth time to add
+	 * @return Was the pulse sent out?
+	 */
+	private boolean runPulse(long realElaspedMilliSec, long earthMillisec) {
+		if (!listenerExecutor.isTerminated()
+			&& !listenerExecutor.isShutdown()) {
+			// Do the pulse
+			timestampPulseStart();
+
+			uptimer.updateTime(realElaspedMilliSec);
+
+			// Add time to the Earth clock.
+			earthClock.addTime(earthMillisec);
+
+			// Add time pulse to Mars clock.
+			marsClock.addTime(marsMSol);
+
+			// Run the clock listener tasks that are in other package, and deliver
+			// the unit events of the pulse in one go at the end
+			UnitEventBus eventBus = UnitEventBus.getInstance();
+			eventBus.startBatch();
+			try {
+				fireClockPulse(marsMSol);
+			} finally {
+				eventBus.endBatch();
+			}
+			return true;
+		}
+		else {
+			// NOTE: when resuming from power saving, timePulse becomes zero
+			LogConsolidated.flog(Level.CONFIG, 0, sourceName, "The clockListenerExecutor has died. Restarting...");
+			resetClockListeners();
+			return false;
+		}
+	}
+
+	/**
+	 * Sets the clock to run in batch mode, i.e. to run pulses of a fixed length
+	 * back to back as fast as the simulation allows, without pacing them against
+	 * real time. This needs to be set before the clock is started.
+	 *
+	 * @param milliSolPerPulse the length of each pulse (millisols)
+	 * @param endCondition     when to stop the clock, checked after each pulse
+	 * @param endAction        what to do once the clock has stopped, or null
+	 */
+	public void setBatchMode(double milliSolPerPulse, BooleanSupplier endCondition, Runnable endAction) {
+		if (milliSolPerPulse <= 0D) {
+			throw new IllegalArgumentException("The batch pulse must be positive");
+		}
+		batchMilliSolPerPulse = milliSolPerPulse;
+		batchEndCondition = endCondition;
+		batchEndAction = endAction;
+		batchMode = true;
+	}
+
+	/**
+	 * Is the clock running in batch mode ?
+	 *
+	 * @return true if in batch mode
+	 */
+	public boolean isBatchMode() {
+		return batchMode;
+	}
+
+	/**
+	 * Gets the number of millisols simulated per real second in the batch run so
+	 * far.
+	 *
+	 * @return millisols per second
+	 */
+	public double getBatchMilliSolsPerSecond() {
+		double seconds = getBatchSeconds();
+		return (seconds > 0D ? batchMilliSols / seconds : 0D);
+	}
+
+	/**
+	 * Gets the number of pulses run per real second in the batch run so far.
+	 *
+	 * @return pulses per second
+	 */
+	public double getBatchPulsesPerSecond() {
+		double seconds = getBatchSeconds();
+		return (seconds > 0D ? batchPulses / seconds : 0D);
+	}
+
+	/**
+	 * Gets a summary of the throughput of the batch run so far.
+	 *
+	 * @return the summary
+	 */
+	public String getBatchReport() {
+		return String.format("Batch run : %.1f msols (%.2f sols) in %d pulses over %.1f s : "
+				+ "%.1f msols/s, %.1f pulses/s, time ratio %.0fx",
+				batchMilliSols, batchMilliSols / 1000D, batchPulses, getBatchSeconds(),
+				getBatchMilliSolsPerSecond(), getBatchPulsesPerSecond(),
+				getBatchMilliSolsPerSecond() * MILLISECONDS_PER_MILLISOL / 1000D);
+	}
+
+	private double getBatchSeconds() {
+		if (batchStartTime == 0)
+			return 0D;
+		long end = (batchEndTime != 0 ? batchEndTime : System.nanoTime());
+		return (end - batchStartTime) / 1_000_000_000D;
+	}
 		   
 	/**
 	 * Checks if it is on pause or a saving process has been requested. Keeps track
@@ -601,7 +782,14 @@ public class MasterClock implements Serializable {
 
 		if (saveType != SaveType.NONE) {
 			try {
-				sim.saveSimulation(saveType, file);
+				if ((saveType == SaveType.AUTOSAVE || saveType == SaveType.AUTOSAVE_AS_DEFAULT)
+						&& SimulationConfig.instance().isBackgroundAutosave()) {
+					// Only hold up the clock for taking a snapshot at the end of this pulse
+					sim.saveSimulationInBackground(saveType, file);
+				}
+				else {
+					sim.saveSimulation(saveType, file);
+				}
 			} catch (NullPointerException e) {
 				logger.log(Level.SEVERE,
 						"NullPointerException. Could not save the simulation.", e);// as " + (file == null ? "null" : file.getPath()), e);
@@ -872,6 +1060,7 @@ public class MasterClock implements Serializable {
 			// Exit program if exitProgram flag is true.
 			if (exitProgram) {
 				AutosaveScheduler.cancel();
+				sim.waitForBackgroundSave();
 				System.exit(0);
 			}
 		}
@@ -0,0 +1,372 @@
+/**
+ * Mars Simulation Project
+ * PulseScheduler.java
+ * @version 3.1.2 2026-10-17
+ * @author agent
+ */
+
+package org.mars_sim.msp.core.time;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Runs a clock pulse as a series of phases on a work-stealing fork-join pool.
+ * Each phase only starts once every work item of the previous phase is done.
+ * <p>
+ * The work items of a phase are grouped into lanes. A lane is keyed by the
+ * object whose state its items share (e.g. the settlement whose inventory they
+ * draw from) and runs its items one after the other in the order they were
+ * added. Different lanes run in parallel, the longest ones (as measured on the
+ * previous pulse) first, and idle threads steal whatever lanes are left. Since
+ * no two lanes touch the same state and the phases are separated by barriers,
+ * the outcome of a pulse does not depend on how the lanes were spread over the
+ * threads.
+ * <p>
+ * A phase can never run faster than its longest lane, so the lanes set the
+ * ceiling on the speed-up whatever the number of threads. The timing of each
+ * phase reports that ceiling, see {@link PhaseStats#getSpeedupBound()}.
+ */
+public class PulseScheduler {
+
+	private static Logger logger = Logger.getLogger(PulseScheduler.class.getName());
+
+	/** The phases of a pulse, in the order they are run. */
+	public enum Phase {
+		/** The settlement environment : power grid, heating and crops. */
+		ENVIRONMENT,
+		/** The buildings and their functions. */
+		BUILDINGS,
+		/** The people, robots, vehicles and equipment. */
+		AGENTS,
+		/** The vitals of the people, once all of them have had their time. */
+		VITALS,
+		/** The missions. */
+		MISSIONS
+	}
+
+	private int parallelism;
+
+	private ForkJoinPool pool;
+
+	/** The lanes of each phase for the next pulse. */
+	private Map<Phase, Map<Object, Lane>> lanes = new EnumMap<>(Phase.class);
+	/** The time each lane took on the last pulse, in nanoseconds. */
+	private Map<Phase, Map<Object, Long>> laneCosts = new EnumMap<>(Phase.class);
+	/** The timing of each phase since the last reset. */
+	private Map<Phase, PhaseStats> stats = new EnumMap<>(Phase.class);
+
+	/**
+	 * Constructor.
+	 *
+	 * @param threads    the number of worker threads
+	 * @param namePrefix the prefix of the worker thread names
+	 */
+	public PulseScheduler(int threads, String namePrefix) {
+		parallelism = Math.max(1, threads);
+		pool = new ForkJoinPool(parallelism, p -> {
+			ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+			t.setName(namePrefix + t.getPoolIndex());
+			return t;
+		}, null, false);
+
+		for (Phase phase : Phase.values()) {
+			lanes.put(phase, new LinkedHashMap<>());
+			laneCosts.put(phase, new HashMap<>());
+			stats.put(phase, new PhaseStats());
+		}
+	}
+
+	/**
+	 * Adds a work item to the next pulse.
+	 *
+	 * @param phase the phase to run the item in
+	 * @param lane  the key of the lane; items of the same lane never run concurrently
+	 * @param item  the work item
+	 */
+	public void add(Phase phase, Object lane, Temporal item) {
+		lanes.get(phase).computeIfAbsent(lane, Lane::new).items.add(item);
+	}
+
+	/**
+	 * Runs all the work items added since the last pulse, phase by phase, and
+	 * waits for them to complete.
+	 *
+	 * @param pulse the pulse
+	 */
+	public void runPulse(ClockPulse pulse) {
+		for (Phase phase : Phase.values()) {
+			Map<Object, Lane> phaseLanes = lanes.get(phase);
+			if (phaseLanes.isEmpty())
+				continue;
+
+			Map<Object, Long> costs = laneCosts.get(phase);
+			Lane[] todo = phaseLanes.values().toArray(new Lane[phaseLanes.size()]);
+			phaseLanes.clear();
+			for (Lane l : todo) {
+				l.estimate = costs.getOrDefault(l.key, 0L);
+			}
+			// Longest lanes first so they are not left for the end of the phase
+			Arrays.sort(todo, (a, b) -> Long.compare(b.estimate, a.estimate));
+
+			long steals = pool.getStealCount();
+			long start = System.nanoTime();
+			pool.invoke(new LaneAction(todo, 0, todo.length, pulse));
+			long wall = System.nanoTime() - start;
+
+			costs.clear();
+			for (Lane l : todo) {
+				costs.put(l.key, l.elapsed);
+			}
+			stats.get(phase).record(todo, wall, pool.getStealCount() - steals);
+		}
+	}
+
+	/**
+	 * Gets the timing of a phase since the last reset.
+	 *
+	 * @param phase the phase
+	 * @return the timing
+	 */
+	public PhaseStats getStats(Phase phase) {
+		return stats.get(phase);
+	}
+
+	/**
+	 * Clears the timing of all the phases.
+	 */
+	public void resetStats() {
+		for (PhaseStats s : stats.values()) {
+			s.reset();
+		}
+	}
+
+	/**
+	 * Gets a summary of the timing of every phase.
+	 *
+	 * @return the summary
+	 */
+	public String getReport() {
+		StringBuilder sb = new StringBuilder("Pulse phases on ").append(parallelism).append(" threads :");
+		for (Phase phase : Phase.values()) {
+			sb.append(System.lineSeparator()).append("  ").append(phase).append(" ").append(stats.get(phase));
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Gets the number of worker threads.
+	 *
+	 * @return number of threads
+	 */
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	/**
+	 * Stops the worker threads.
+	 */
+	public void shutdown() {
+		pool.shutdownNow();
+	}
+
+	/**
+	 * The work items that share the same state within a phase.
+	 */
+	private static class Lane {
+		private Object key;
+		private List<Temporal> items = new ArrayList<>();
+		private long estimate;
+		private long elapsed;
+
+		private Lane(Object key) {
+			this.key = key;
+		}
+
+		private void run(ClockPulse pulse) {
+			long start = System.nanoTime();
+			for (Temporal t : items) {
+				try {
+					t.timePassing(pulse);
+				} catch (RuntimeException e) {
+					// Keep the other items of the lane going
+					logger.log(Level.SEVERE, "Problem with " + t + " on pulse #" + pulse.getId(), e);
+				}
+			}
+			elapsed = System.nanoTime() - start;
+		}
+	}
+
+	/**
+	 * Runs a range of lanes, splitting it in two until a single lane is left so
+	 * that idle threads can steal the other half.
+	 */
+	private static class LaneAction extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private Lane[] todo;
+		private int lo;
+		private int hi;
+		private ClockPulse pulse;
+
+		private LaneAction(Lane[] todo, int lo, int hi, ClockPulse pulse) {
+			this.todo = todo;
+			this.lo = lo;
+			this.hi = hi;
+			this.pulse = pulse;
+		}
+
+		@Override
+		protected void compute() {
+			if (hi - lo == 1) {
+				todo[lo].run(pulse);
+			}
+			else {
+				// Leave the shorter half to be stolen and go on with the longer lanes
+				int mid = (lo + hi) >>> 1;
+				LaneAction right = new LaneAction(todo, mid, hi, pulse);
+				right.fork();
+				new LaneAction(todo, lo, mid, pulse).compute();
+				right.join();
+			}
+		}
+	}
+
+	/**
+	 * The timing of one phase accumulated over a number of pulses.
+	 */
+	public class PhaseStats {
+		private long pulses;
+		private long lanes;
+		private long items;
+		private long steals;
+		/** The time between the start and the end of the phase. */
+		private long wallTime;
+		/** The time spent in the lanes, all threads together. */
+		private long workTime;
+		/** The time spent in the longest lane of each pulse. */
+		private long criticalTime;
+
+		private void record(Lane[] done, long wall, long stealCount) {
+			long longest = 0;
+			for (Lane l : done) {
+				workTime += l.elapsed;
+				items += l.items.size();
+				longest = Math.max(longest, l.elapsed);
+			}
+			pulses++;
+			lanes += done.length;
+			steals += stealCount;
+			wallTime += wall;
+			criticalTime += longest;
+		}
+
+		private void reset() {
+			pulses = 0;
+			lanes = 0;
+			items = 0;
+			steals = 0;
+			wallTime = 0;
+			workTime = 0;
+			criticalTime = 0;
+		}
+
+		/**
+		 * Gets the number of pulses recorded.
+		 *
+		 * @return number of pulses
+		 */
+		public long getPulses() {
+			return pulses;
+		}
+
+		/**
+		 * Gets the average wall time of the phase.
+		 *
+		 * @return time in milliseconds
+		 */
+		public double getAverageWallTime() {
+			return pulses == 0 ? 0 : wallTime / 1_000_000D / pulses;
+		}
+
+		/**
+		 * Gets the average number of lanes of the phase.
+		 *
+		 * @return number of lanes
+		 */
+		public double getAverageLanes() {
+			return pulses == 0 ? 0 : (double) lanes / pulses;
+		}
+
+		/**
+		 * Gets how well the work was spread over the threads : the time spent in the
+		 * lanes divided by the thread time available during the phase. 1 means no
+		 * thread was ever idle; it cannot exceed the number of lanes divided by the
+		 * number of threads.
+		 *
+		 * @return the balance between 0 and 1
+		 */
+		public double getBalance() {
+			return wallTime == 0 ? 0 : Math.min(1D, (double) workTime / ((double) wallTime * parallelism));
+		}
+
+		/**
+		 * Gets the share of the wall time spent waiting for the longest lane. A value
+		 * close to 1 means one lane is the critical path of the phase.
+		 *
+		 * @return the share between 0 and 1
+		 */
+		public double getCriticalShare() {
+			return wallTime == 0 ? 0 : Math.min(1D, (double) criticalTime / wallTime);
+		}
+
+		/**
+		 * Gets the most speed-up the lanes of the phase allow, i.e. the time spent in
+		 * the lanes divided by the time spent in the longest lane of each pulse. When
+		 * it is below the number of threads, the phase is bound by its longest lanes
+		 * rather than by the threads.
+		 *
+		 * @return the speed-up bound, at least 1
+		 */
+		public double getSpeedupBound() {
+			return criticalTime == 0 ? 1D : Math.max(1D, (double) workTime / criticalTime);
+		}
+
+		/**
+		 * Checks if the longest lanes rather than the threads limit the phase.
+		 *
+		 * @return true if lane bound
+		 */
+		public boolean isLaneBound() {
+			return getSpeedupBound() < parallelism;
+		}
+
+		/**
+		 * Gets the number of lanes stolen by idle threads.
+		 *
+		 * @return number of steals
+		 */
+		public long getSteals() {
+			return steals;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%d pulses, %.3f ms/pulse, %.1f lanes, %d items, balance %.2f, critical lane %.2f, "
+					+ "speed-up bound %.1f%s, %d steals",
+					pulses, getAverageWallTime(), getAverageLanes(), items, getBalance(), getCriticalShare(),
+					getSpeedupBound(), isLaneBound() ? " (lane bound)" : "", steals);
+		}
+	}
+}
@@ -0,0 +1,140 @@
+/**
+ * Mars Simulation Project
+ * ChunkedSaveInputStream.java
+ * @version 3.1.2 2026-10-17
+ * @author agent
+ */
+
+package org.mars_sim.msp.core.tool;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StreamCorruptedException;
+
+/**
+ * Reads back a stream written by {@link ChunkedSaveOutputStream}. The chunk
+ * payloads are handed out directly from the underlying stream, so no more than
+ * the caller's own buffer is held in memory at any time.
+ */
+public class ChunkedSaveInputStream extends InputStream {
+
+	private int section = 0;
+	private int remaining = 0;
+	private boolean done = false;
+
+	private DataInputStream in;
+
+	/**
+	 * Constructor. Reads and validates the stream header.
+	 *
+	 * @param in the underlying stream (typically an XZInputStream)
+	 * @throws IOException
+	 */
+	public ChunkedSaveInputStream(InputStream in) throws IOException {
+		this.in = new DataInputStream(in);
+		int magic = this.in.readInt();
+		if (magic != ChunkedSaveOutputStream.MAGIC)
+			throw new StreamCorruptedException("Not a chunked save stream : 0x" + Integer.toHexString(magic));
+		int version = this.in.readInt();
+		if (version > ChunkedSaveOutputStream.FORMAT_VERSION)
+			throw new StreamCorruptedException("Unsupported chunked save version : " + version);
+	}
+
+	/**
+	 * Checks if the stream starts with the chunked save header. The stream must
+	 * support mark/reset and is left at its original position.
+	 *
+	 * @param in the stream to peek at
+	 * @return true if it is a chunked save stream
+	 * @throws IOException
+	 */
+	public static boolean isChunked(InputStream in) throws IOException {
+		if (!in.markSupported())
+			throw new IllegalArgumentException("The stream must support mark/reset.");
+		in.mark(4);
+		try {
+			int magic = 0;
+			for (int i = 0; i < 4; i++) {
+				int b = in.read();
+				if (b < 0)
+					return false;
+				magic = (magic << 8) | b;
+			}
+			return magic == ChunkedSaveOutputStream.MAGIC;
+		} finally {
+			in.reset();
+		}
+	}
+
+	/**
+	 * Advances to the next non-empty chunk if the current one is exhausted.
+	 *
+	 * @return false if the end of stream marker has been reached
+	 * @throws IOException
+	 */
+	private boolean nextChunk() throws IOException {
+		while (remaining == 0 && !done) {
+			int id;
+			try {
+				id = in.readInt();
+			} catch (EOFException e) {
+				throw new EOFException("Truncated save file in section " + section);
+			}
+			int length = in.readInt();
+			if (id == ChunkedSaveOutputStream.END_OF_STREAM) {
+				done = true;
+			} else if (id < 0 || length < 0) {
+				throw new StreamCorruptedException("Corrupted chunk header in section " + section);
+			} else {
+				section = id;
+				remaining = length;
+			}
+		}
+		return !done;
+	}
+
+	@Override
+	public int read() throws IOException {
+		if (!nextChunk())
+			return -1;
+		int b = in.read();
+		if (b < 0)
+			throw new EOFException("Truncated chunk in section " + section);
+		remaining--;
+		return b;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		if (len == 0)
+			return 0;
+		if (!nextChunk())
+			return -1;
+		int n = in.read(b, off, Math.min(len, remaining));
+		if (n < 0)
+			throw new EOFException("Truncated chunk in section " + section);
+		remaining -= n;
+		return n;
+	}
+
+	@Override
+	public int available() throws IOException {
+		return done ? 0 : Math.min(remaining, in.available());
+	}
+
+	/**
+	 * Gets the id of the section currently being read.
+	 *
+	 * @return section id
+	 */
+	public int getSection() {
+		return section;
+	}
+
+	@Override
+	public void close() throws IOException {
+		in.close();
+	}
+}
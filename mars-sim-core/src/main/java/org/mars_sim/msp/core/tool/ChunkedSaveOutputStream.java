@@ -0,0 +1,197 @@
+/**
+ * Mars Simulation Project
+ * ChunkedSaveOutputStream.java
+ * @version 3.1.2 2026-10-17
+ * @author agent
+ */
+
+package org.mars_sim.msp.core.tool;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * An output stream that splits the serialized simulation into bounded,
+ * length-prefixed chunks. Each chunk carries the id of the section (e.g. the
+ * manager) it belongs to, so that the save file can be streamed back without
+ * ever holding the whole serialized image in memory.
+ * <p>
+ * Layout : MAGIC (int), FORMAT_VERSION (int), then a series of chunks of
+ * [section id (int)][payload length (int)][payload], terminated by a chunk with
+ * the section id {@link #END_OF_STREAM} and a zero length. The terminating
+ * chunk is only written by {@link #finish()}, so that a stream closed after a
+ * failure is read back as truncated instead of looking complete.
+ * <p>
+ * Note : {@link #flush()} does not propagate to the wrapped stream on purpose.
+ * ObjectOutputStream flushes eagerly and an XZOutputStream flush would end the
+ * current LZMA2 block and hurt the compression ratio.
+ */
+public class ChunkedSaveOutputStream extends OutputStream {
+
+	/** The magic number identifying a chunked save stream. */
+	public static final int MAGIC = 0x4D53504B; // "MSPK"
+	/** The current version of the chunk layout. */
+	public static final int FORMAT_VERSION = 1;
+	/** The section id of the terminating chunk. */
+	public static final int END_OF_STREAM = -1;
+	/** The default chunk size in bytes. */
+	public static final int DEFAULT_CHUNK_SIZE = 1 << 20;
+
+	private int section = 0;
+	private int count = 0;
+	private long totalBytes = 0;
+	private int numChunks = 0;
+	private boolean finished = false;
+	private boolean closed = false;
+
+	private byte[] buffer;
+	private DataOutputStream out;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param out       the underlying stream (typically an XZOutputStream)
+	 * @param chunkSize the maximum payload size of a chunk in bytes
+	 * @throws IOException
+	 */
+	public ChunkedSaveOutputStream(OutputStream out, int chunkSize) throws IOException {
+		if (chunkSize <= 0)
+			throw new IllegalArgumentException("Chunk size must be positive : " + chunkSize);
+		this.out = new DataOutputStream(out);
+		this.buffer = new byte[chunkSize];
+		this.out.writeInt(MAGIC);
+		this.out.writeInt(FORMAT_VERSION);
+	}
+
+	/**
+	 * Constructor with the default chunk size.
+	 *
+	 * @param out the underlying stream
+	 * @throws IOException
+	 */
+	public ChunkedSaveOutputStream(OutputStream out) throws IOException {
+		this(out, DEFAULT_CHUNK_SIZE);
+	}
+
+	/**
+	 * Starts a new section. Any pending bytes are emitted as a chunk of the
+	 * previous section first. The caller must flush its own buffers (e.g. the
+	 * ObjectOutputStream) before calling this.
+	 *
+	 * @param id the section id (must not be negative)
+	 * @throws IOException
+	 */
+	public void beginSection(int id) throws IOException {
+		if (id < 0)
+			throw new IllegalArgumentException("Section id must not be negative : " + id);
+		writeChunk();
+		section = id;
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		ensureOpen();
+		if (count == buffer.length)
+			writeChunk();
+		buffer[count++] = (byte) b;
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		ensureOpen();
+		while (len > 0) {
+			if (count == buffer.length)
+				writeChunk();
+			int n = Math.min(len, buffer.length - count);
+			System.arraycopy(b, off, buffer, count, n);
+			count += n;
+			off += n;
+			len -= n;
+		}
+	}
+
+	private void ensureOpen() throws IOException {
+		if (finished)
+			throw new IOException("The chunked save stream is finished.");
+	}
+
+	/**
+	 * Emits the pending bytes as one chunk.
+	 *
+	 * @throws IOException
+	 */
+	private void writeChunk() throws IOException {
+		if (count == 0)
+			return;
+		out.writeInt(section);
+		out.writeInt(count);
+		out.write(buffer, 0, count);
+		totalBytes += count;
+		numChunks++;
+		count = 0;
+	}
+
+	@Override
+	public void flush() throws IOException {
+		// Do not flush the underlying stream. See class comment.
+	}
+
+	/**
+	 * Emits the pending bytes and the terminating chunk but does not close the
+	 * underlying stream. To be called once all the sections have been written
+	 * successfully.
+	 *
+	 * @throws IOException
+	 */
+	public void finish() throws IOException {
+		if (finished)
+			return;
+		writeChunk();
+		out.writeInt(END_OF_STREAM);
+		out.writeInt(0);
+		finished = true;
+		buffer = null;
+	}
+
+	/**
+	 * Closes the underlying stream. If {@link #finish()} has not been called,
+	 * e.g. after a failure, the pending bytes and the terminating chunk are
+	 * dropped so that the stream is read back as truncated.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (closed)
+			return;
+		closed = true;
+		buffer = null;
+		out.close();
+	}
+
+	/**
+	 * Checks if the terminating chunk has been written.
+	 *
+	 * @return true if finished
+	 */
+	public boolean isFinished() {
+		return finished;
+	}
+
+	/**
+	 * Gets the number of payload bytes written so far.
+	 *
+	 * @return bytes
+	 */
+	public long getTotalBytes() {
+		return totalBytes + count;
+	}
+
+	/**
+	 * Gets the number of chunks emitted so far.
+	 *
+	 * @return number of chunks
+	 */
+	public int getNumChunks() {
+		return numChunks;
+	}
+}
@@ -0,0 +1,218 @@
+/**
+ * Mars Simulation Project
+ * ParallelXZInputStream.java
+ * @version 3.1.2 2026-10-17
+ * @author agent
+ */
+
+package org.mars_sim.msp.core.tool;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import org.tukaani.xz.SeekableFileInputStream;
+import org.tukaani.xz.SeekableXZInputStream;
+import org.tukaani.xz.XZInputStream;
+
+/**
+ * Reads an .xz file written by {@link ParallelXZOutputStream}, i.e. made of
+ * several XZ Streams of one XZ Block each, by decoding the streams in parallel
+ * on a fork-join pool, in the spirit of DecompressXzSeekable. The index of the
+ * file is parsed once when it is opened to find where each stream starts. Each
+ * stream is then read with a positional read and decoded on its own by an
+ * XZInputStream, which checks it against its own index. The streams are decoded
+ * a few at a time ahead of the reader and handed out in order.
+ */
+public class ParallelXZInputStream extends InputStream {
+
+	/** The largest block that is decoded into memory in one piece. */
+	private static final long MAX_BLOCK_SIZE = 64 * 1024 * 1024;
+	/** The size of the Stream Header in front of the first block of a stream. */
+	private static final int STREAM_HEADER_SIZE = 12;
+
+	private int nextBlock = 0;
+	private int pos = 0;
+	private int maxInFlight;
+	private int memoryLimit;
+
+	private byte[] current = new byte[0];
+
+	private File file;
+	private FileChannel channel;
+	private ForkJoinPool pool;
+	private long[] blockSizes;
+	/** The position of each stream in the file, and the file length last. */
+	private long[] streamPos;
+	private Deque<Future<byte[]>> inFlight = new ArrayDeque<>();
+
+	/**
+	 * Constructor.
+	 *
+	 * @param file        the file to read
+	 * @param blockSizes  the uncompressed size of each block
+	 * @param streamPos   the position of each stream, and the file length last
+	 * @param memoryLimit the memory limit of each decoder in KiB
+	 * @param pool        the pool to decode the blocks on
+	 * @throws IOException
+	 */
+	private ParallelXZInputStream(File file, long[] blockSizes, long[] streamPos, int memoryLimit,
+			ForkJoinPool pool) throws IOException {
+		this.file = file;
+		this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+		this.blockSizes = blockSizes;
+		this.streamPos = streamPos;
+		this.memoryLimit = memoryLimit;
+		this.pool = pool;
+		this.maxInFlight = 2 * pool.getParallelism();
+	}
+
+	/**
+	 * Opens an .xz file for reading. Files with several streams of one block of a
+	 * reasonable size each are decoded in parallel; any other file (e.g. a single
+	 * block file saved by an older build) is decoded sequentially.
+	 *
+	 * @param file        the file to read
+	 * @param memoryLimit the memory limit of each decoder in KiB
+	 * @param pool        the pool to decode the blocks on
+	 * @return the decompressed stream
+	 * @throws IOException
+	 */
+	public static InputStream open(File file, int memoryLimit, ForkJoinPool pool) throws IOException {
+		long[] sizes = null;
+		long[] positions = null;
+		try (SeekableXZInputStream index = new SeekableXZInputStream(
+				new SeekableFileInputStream(file), memoryLimit)) {
+			int blocks = index.getBlockCount();
+			if (blocks > 1 && index.getStreamCount() == blocks && index.getLargestBlockSize() <= MAX_BLOCK_SIZE) {
+				sizes = new long[blocks];
+				positions = new long[blocks + 1];
+				for (int i = 0; i < blocks; i++) {
+					sizes[i] = index.getBlockSize(i);
+					positions[i] = index.getBlockCompPos(i) - STREAM_HEADER_SIZE;
+				}
+				positions[blocks] = file.length();
+			}
+		} catch (IOException e) {
+			// Let the sequential decoder report the problem
+			sizes = null;
+		}
+
+		if (sizes != null)
+			return new ParallelXZInputStream(file, sizes, positions, memoryLimit, pool);
+
+		return new XZInputStream(new BufferedInputStream(new FileInputStream(file)), memoryLimit);
+	}
+
+	/**
+	 * Decodes the stream of one block.
+	 *
+	 * @param blockNumber the block
+	 * @return the uncompressed bytes
+	 * @throws IOException
+	 */
+	private byte[] decode(int blockNumber) throws IOException {
+		// Read the compressed stream. Positional reads may run concurrently
+		long start = streamPos[blockNumber];
+		ByteBuffer compressed = ByteBuffer.allocate((int) (streamPos[blockNumber + 1] - start));
+		while (compressed.hasRemaining()) {
+			if (channel.read(compressed, start + compressed.position()) < 0)
+				throw new EOFException("Truncated stream " + blockNumber + " in " + file);
+		}
+
+		byte[] data = new byte[(int) blockSizes[blockNumber]];
+		try (XZInputStream in = new XZInputStream(new ByteArrayInputStream(compressed.array()), memoryLimit)) {
+			int off = 0;
+			while (off < data.length) {
+				int n = in.read(data, off, data.length - off);
+				if (n < 0)
+					throw new IOException("Truncated block " + blockNumber + " in " + file);
+				off += n;
+			}
+			// Reading to the end checks the index and footer of the stream
+			if (in.read() >= 0)
+				throw new IOException("Block " + blockNumber + " is larger than indexed in " + file);
+		}
+		return data;
+	}
+
+	/**
+	 * Makes sure there are bytes left in the current block.
+	 *
+	 * @return false at the end of the file
+	 * @throws IOException
+	 */
+	private boolean fill() throws IOException {
+		while (pos == current.length) {
+			// Queue up the blocks ahead
+			while (inFlight.size() < maxInFlight && nextBlock < blockSizes.length) {
+				final int b = nextBlock++;
+				inFlight.add(pool.submit(() -> decode(b)));
+			}
+			if (inFlight.isEmpty())
+				return false;
+
+			try {
+				current = inFlight.poll().get();
+				pos = 0;
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Interrupted while decompressing " + file);
+			} catch (ExecutionException e) {
+				Throwable cause = e.getCause();
+				if (cause instanceof IOException)
+					throw (IOException) cause;
+				throw new IOException("Could not decompress " + file, cause);
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public int read() throws IOException {
+		if (!fill())
+			return -1;
+		return current[pos++] & 0xFF;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		if (len == 0)
+			return 0;
+		if (!fill())
+			return -1;
+		int n = Math.min(len, current.length - pos);
+		System.arraycopy(current, pos, b, off, n);
+		pos += n;
+		return n;
+	}
+
+	@Override
+	public int available() {
+		return current.length - pos;
+	}
+
+	@Override
+	public void close() throws IOException {
+		for (Future<byte[]> f : inFlight)
+			f.cancel(true);
+		inFlight.clear();
+		current = new byte[0];
+		pos = 0;
+		nextBlock = blockSizes.length;
+		channel.close();
+	}
+}
@@ -0,0 +1,203 @@
+/**
+ * Mars Simulation Project
+ * ParallelXZOutputStream.java
+ * @version 3.1.2 2026-10-17
+ * @author agent
+ */
+
+package org.mars_sim.msp.core.tool;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import org.tukaani.xz.LZMA2Options;
+import org.tukaani.xz.XZOutputStream;
+
+/**
+ * An xz output stream that compresses fixed size blocks of its input on a
+ * fork-join pool. Each block is encoded as an independent XZ Stream and the
+ * streams are written in order, one after the other. Concatenated XZ Streams
+ * are part of the .xz file format, so the result can be read by XZInputStream
+ * or the xz command line tool, and SeekableXZInputStream sees one XZ Block per
+ * input block, which {@link ParallelXZInputStream} uses to decode them in
+ * parallel.
+ * <p>
+ * At most a few blocks per thread are in flight at any time so the memory used
+ * stays bounded whatever the size of the input.
+ */
+public class ParallelXZOutputStream extends OutputStream {
+
+	/** The default block size in bytes. */
+	public static final int DEFAULT_BLOCK_SIZE = 4 * 1024 * 1024;
+
+	private int preset;
+	private int count;
+	private int maxInFlight;
+	private int numBlocks = 0;
+	private boolean finished = false;
+
+	private byte[] block;
+
+	private OutputStream out;
+	private ForkJoinPool pool;
+	private Deque<Future<byte[]>> inFlight = new ArrayDeque<>();
+
+	/**
+	 * Constructor.
+	 *
+	 * @param out       the underlying stream
+	 * @param preset    the LZMA2 preset (0-9)
+	 * @param blockSize the uncompressed size of each block in bytes
+	 * @param pool      the pool to compress the blocks on
+	 */
+	public ParallelXZOutputStream(OutputStream out, int preset, int blockSize, ForkJoinPool pool) {
+		if (blockSize <= 0)
+			throw new IllegalArgumentException("Block size must be positive : " + blockSize);
+		this.out = out;
+		this.preset = preset;
+		this.pool = pool;
+		this.block = new byte[blockSize];
+		this.maxInFlight = 2 * pool.getParallelism();
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		if (count == block.length)
+			submitBlock();
+		block[count++] = (byte) b;
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		while (len > 0) {
+			if (count == block.length)
+				submitBlock();
+			int n = Math.min(len, block.length - count);
+			System.arraycopy(b, off, block, count, n);
+			count += n;
+			off += n;
+			len -= n;
+		}
+	}
+
+	/**
+	 * Hands the current block over to the pool and starts a new one.
+	 *
+	 * @throws IOException
+	 */
+	private void submitBlock() throws IOException {
+		if (count == 0)
+			return;
+		// Wait for the oldest block if too many are queued up
+		while (inFlight.size() >= maxInFlight)
+			writeOldest();
+
+		final byte[] data = block;
+		final int length = count;
+		inFlight.add(pool.submit(() -> compress(data, length)));
+		numBlocks++;
+
+		block = new byte[block.length];
+		count = 0;
+	}
+
+	/**
+	 * Compresses one block into a self-contained XZ Stream.
+	 *
+	 * @param data   the block
+	 * @param length the number of bytes used in the block
+	 * @return the compressed bytes
+	 * @throws IOException
+	 */
+	private byte[] compress(byte[] data, int length) throws IOException {
+		ByteArrayOutputStream bos = new ByteArrayOutputStream(length / 4 + 64);
+		try (XZOutputStream xzout = new XZOutputStream(bos, new LZMA2Options(preset))) {
+			xzout.write(data, 0, length);
+		}
+		return bos.toByteArray();
+	}
+
+	/**
+	 * Waits for the oldest block in flight and writes it out.
+	 *
+	 * @throws IOException
+	 */
+	private void writeOldest() throws IOException {
+		Future<byte[]> f = inFlight.poll();
+		try {
+			out.write(f.get());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			cancelAll();
+			throw new InterruptedIOException("Interrupted while compressing the save file");
+		} catch (ExecutionException e) {
+			cancelAll();
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException)
+				throw (IOException) cause;
+			throw new IOException("Could not compress a block of the save file", cause);
+		}
+	}
+
+	private void cancelAll() {
+		for (Future<byte[]> f : inFlight)
+			f.cancel(true);
+		inFlight.clear();
+	}
+
+	/**
+	 * Does not force a block out. Ending a block early would only hurt the
+	 * compression ratio; the blocks are complete once {@link #finish()} returns.
+	 */
+	@Override
+	public void flush() throws IOException {
+		// Nothing to do. See above.
+	}
+
+	/**
+	 * Compresses and writes the remaining blocks without closing the underlying
+	 * stream.
+	 *
+	 * @throws IOException
+	 */
+	public void finish() throws IOException {
+		if (finished)
+			return;
+		finished = true;
+		submitBlock();
+		if (numBlocks == 0) {
+			// An empty XZ Stream so that the file is still valid
+			out.write(compress(block, 0));
+		}
+		while (!inFlight.isEmpty())
+			writeOldest();
+		block = null;
+		out.flush();
+	}
+
+	/**
+	 * Gets the number of blocks compressed so far.
+	 *
+	 * @return number of blocks
+	 */
+	public int getNumBlocks() {
+		return numBlocks;
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			finish();
+		} finally {
+			cancelAll();
+			out.close();
+		}
+	}
+}
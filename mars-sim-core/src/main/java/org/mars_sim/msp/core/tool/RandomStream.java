@@ -0,0 +1,85 @@
+/**
+ * Mars Simulation Project
+ * RandomStream.java
+ * @version 3.1.2 2026-10-17
+ * @author agent
+ */
+package org.mars_sim.msp.core.tool;
+
+/**
+ * An independent stream of random numbers backed by a {@link SFMT19937j}
+ * generator. The streams handed out by {@link RandomUtil} in the reproducible
+ * mode are each seeded from the master seed and their own key, which is enough
+ * to keep them apart in the 2<sup>19937</sup>-1 period of the generator. The
+ * methods mirror those of MersenneTwisterFast used by
+ * RandomUtil.
+ */
+public class RandomStream {
+
+	private SFMT19937j generator;
+
+	private double nextGaussian;
+	private boolean haveNextGaussian = false;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param generator the generator, which is not shared with anyone else
+	 */
+	RandomStream(SFMT19937j generator) {
+		this.generator = generator;
+	}
+
+	/**
+	 * Returns a random int between 0 (inclusive) and n (exclusive).
+	 *
+	 * @param n the bound, must be positive
+	 * @return the random number
+	 */
+	public int nextInt(int n) {
+		if (n <= 0)
+			throw new IllegalArgumentException("n must be positive, got: " + n);
+
+		if ((n & -n) == n) // i.e., n is a power of 2
+			return (int) ((n * (long) generator.nextBits(31)) >> 31);
+
+		int bits, val;
+		do {
+			bits = generator.nextBits(31);
+			val = bits % n;
+		} while (bits - val + (n - 1) < 0);
+		return val;
+	}
+
+	/**
+	 * Returns a random double between 0 (inclusive) and 1 (exclusive).
+	 *
+	 * @return the random number
+	 */
+	public double nextDouble() {
+		return generator.nextUniform();
+	}
+
+	/**
+	 * Returns a random double under a normal distribution of mean 0 and standard
+	 * deviation 1, using the polar method like java.util.Random.
+	 *
+	 * @return the random number
+	 */
+	public double nextGaussian() {
+		if (haveNextGaussian) {
+			haveNextGaussian = false;
+			return nextGaussian;
+		}
+		double v1, v2, s;
+		do {
+			v1 = 2 * nextDouble() - 1;
+			v2 = 2 * nextDouble() - 1;
+			s = v1 * v1 + v2 * v2;
+		} while (s >= 1 || s == 0);
+		double multiplier = StrictMath.sqrt(-2 * StrictMath.log(s) / s);
+		nextGaussian = v2 * multiplier;
+		haveNextGaussian = true;
+		return v1 * multiplier;
+	}
+}
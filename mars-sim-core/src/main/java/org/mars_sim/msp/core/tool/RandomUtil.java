@@ -6,8 +6,10 @@
  */
 package org.mars_sim.msp.core.tool;
 
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.logging.Logger;
 
 import org.mars_sim.msp.core.Msg;
 
@@ -18,6 +20,8 @@ import org.mars_sim.msp.core.Msg;
  */
 public final class RandomUtil {
 
+	private static Logger logger = Logger.getLogger(RandomUtil.class.getName());
+
 	// Random generator.
 	// private final static Random random = new Random();
 	/**
@@ -43,6 +47,126 @@ public final class RandomUtil {
 	// private final static SFMT19937 random = new SFMT19937();
 	// private final static SFMT19937j random = new SFMT19937j();
 
+	/** The stream of the unit being updated on this thread, if any. */
+	private final static ThreadLocal<RandomStream> boundStream = new ThreadLocal<>();
+
+	/** True if every unit draws from its own stream derived from the master seed. */
+	private static volatile boolean reproducible = false;
+	private static long masterSeed;
+	/** The kinds of streams, seeded apart. */
+	private static final int UNIT_STREAM = 0;
+	private static final int NAMED_STREAM = 1;
+	/** The stream of each unit, by unit identifier. */
+	private static Map<Integer, RandomStream> streams = new HashMap<>();
+	/** The streams of the parts of the simulation that are not units, by name. */
+	private static Map<String, RandomStream> namedStreams = new HashMap<>();
+
+	/**
+	 * Switches on the reproducible mode. The shared generator is seeded with the
+	 * master seed and every unit gets its own stream, seeded from the master seed
+	 * and the unit identifier. Code run for a unit by the
+	 * UnitManager then draws from that unit's stream only, so a run does not
+	 * depend on how the units were spread over the threads. It should be called
+	 * before the units are created.
+	 * 
+	 * @param seed the master seed
+	 */
+	public static synchronized void setReproducible(long seed) {
+		masterSeed = seed;
+		random.setSeed(seed);
+		streams.clear();
+		namedStreams.clear();
+		reproducible = true;
+		logger.config("Reproducible mode with the master seed " + seed + ".");
+	}
+
+	/**
+	 * Switches off the reproducible mode, e.g. at the end of a test. The streams
+	 * are dropped, the calling thread draws from the shared generator again and
+	 * the shared generator is seeded from the clock as it is at start up.
+	 */
+	public static synchronized void clearReproducible() {
+		reproducible = false;
+		streams.clear();
+		namedStreams.clear();
+		masterSeed = 0;
+		boundStream.remove();
+		random.setSeed(System.nanoTime());
+	}
+
+	/**
+	 * Checks if the reproducible mode is on.
+	 * 
+	 * @return true if each unit draws from its own stream
+	 */
+	public static boolean isReproducible() {
+		return reproducible;
+	}
+
+	/**
+	 * Gets the stream of a unit in the reproducible mode. The stream is seeded
+	 * from the master seed and the unit identifier only, so it does not depend on
+	 * when or in which order the streams are asked for.
+	 * 
+	 * @param id the unit identifier
+	 * @return the stream, or null if the reproducible mode is off
+	 */
+	public static synchronized RandomStream getStream(int id) {
+		if (!reproducible)
+			return null;
+		return streams.computeIfAbsent(id, k -> newStream(UNIT_STREAM, k));
+	}
+
+	/**
+	 * Gets the stream of a part of the simulation that is not a unit, e.g. the
+	 * mission manager, in the reproducible mode. The stream is seeded from the
+	 * master seed and the name.
+	 * 
+	 * @param name the name of the stream
+	 * @return the stream, or null if the reproducible mode is off
+	 */
+	public static synchronized RandomStream getStream(String name) {
+		if (!reproducible)
+			return null;
+		return namedStreams.computeIfAbsent(name, k -> newStream(NAMED_STREAM, k.hashCode()));
+	}
+
+	/**
+	 * Creates a stream seeded from the master seed and a key.
+	 * 
+	 * @param kind the kind of stream
+	 * @param key  the key within the kind
+	 * @return the stream
+	 */
+	private static RandomStream newStream(int kind, int key) {
+		return new RandomStream(new SFMT19937j((int) masterSeed, (int) (masterSeed >>> 32), kind, key));
+	}
+
+	/**
+	 * Makes the calling thread draw from a stream instead of the shared generator.
+	 * 
+	 * @param stream the stream, or null to go back to the shared generator
+	 * @return the stream bound before
+	 */
+	public static RandomStream bindStream(RandomStream stream) {
+		RandomStream previous = boundStream.get();
+		if (stream == null)
+			boundStream.remove();
+		else
+			boundStream.set(stream);
+		return previous;
+	}
+
+	private static int nextInt(int n) {
+		RandomStream s = boundStream.get();
+		return (s != null) ? s.nextInt(n) : random.nextInt(n);
+	}
+
+	private static double nextDouble() {
+		RandomStream s = boundStream.get();
+		return (s != null) ? s.nextDouble() : random.nextDouble();
+	}
+
 	/**
 	 * Returns true if given number is less than a random percentage.
 	 * 
@@ -50,7 +174,7 @@ public final class RandomUtil {
 	 * @return true if random percent is less than percentage limit
 	 */
 	public static boolean lessThanRandPercent(int randomLimit) {
-		int rand = random.nextInt(100) + 1;
+		int rand = nextInt(100) + 1;
 		return rand < randomLimit;
 	}
 
@@ -61,7 +185,7 @@ public final class RandomUtil {
 	 * @return true if random percent is less than percentage limit
 	 */
 	public static boolean lessThanRandPercent(double randomLimit) {
-		double rand = random.nextDouble() * 100D;
+		double rand = nextDouble() * 100D;
 		return rand < randomLimit;
 	}
 
@@ -74,7 +198,7 @@ public final class RandomUtil {
 	public static int getRandomInt(int ceiling) {
 		if (ceiling < 0)
 			throw new IllegalArgumentException(Msg.getString("RandomUtil.log.ceilingMustBePositive") + ceiling); //$NON-NLS-1$
-		return random.nextInt(ceiling + 1);
+		return nextInt(ceiling + 1);
 	}
 
 	/**
@@ -88,7 +212,7 @@ public final class RandomUtil {
 	public static int getRandomInt(int base, int ceiling) {
 		if (ceiling < base)
 			throw new IllegalArgumentException(Msg.getString("RandomUtil.log.ceilingMustGreaterBase")); //$NON-NLS-1$
-		return random.nextInt(ceiling - base + 1) + base;
+		return nextInt(ceiling - base + 1) + base;
 	}
 
 	/**
@@ -98,7 +222,7 @@ public final class RandomUtil {
 	 * @return the random number
 	 */
 	public static double getRandomDouble(double ceiling) {
-		return random.nextDouble() * ceiling;
+		return nextDouble() * ceiling;
 	}
 
 	/**
@@ -110,7 +234,7 @@ public final class RandomUtil {
 	public static double getRandomDouble(double base, double ceiling) {
 		if (ceiling < base)
 			throw new IllegalArgumentException(Msg.getString("RandomUtil.log.ceilingMustGreaterBase")); //$NON-NLS-1$
-		return random.nextDouble() * ceiling - random.nextDouble() * base;
+		return nextDouble() * ceiling - nextDouble() * base;
 	}
 	
 	/**
@@ -121,7 +245,8 @@ public final class RandomUtil {
 	 * @return the random number
 	 */
 	public static double getGaussianDouble() {
-		return random.nextGaussian();
+		RandomStream s = boundStream.get();
+		return (s != null) ? s.nextGaussian() : random.nextGaussian();
 	}
 
 	/**
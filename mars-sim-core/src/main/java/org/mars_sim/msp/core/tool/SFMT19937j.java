@@ -6,6 +6,7 @@
  */
 package org.mars_sim.msp.core.tool;
 
+import java.math.BigInteger;
 import java.util.Arrays;
 
 /**
@@ -57,6 +58,11 @@ public class SFMT19937j {
     private int[] psfmt32 = new int[N32];
     private int idx;
 
+    /** The minimal polynomial of the state transition, one bit per coefficient. */
+    private static long[] minPoly;
+    /** The degree of the minimal polynomial. */
+    private static int minPolyDegree;
+
     /**
      * Creates a new generator.
      * @param seed the seed
@@ -328,4 +334,149 @@ public class SFMT19937j {
         return r;
     }
 
+    /**
+     * Computes the jump polynomial that advances a generator by a number of
+     * steps with {@link #jump(JumpPolynomial)}. A step is one 128-bit word of the
+     * state, i.e. four calls of {@link #nextBits()}.
+     * <br>
+     * The polynomial is x<sup>steps</sup> modulo the minimal polynomial of the
+     * state transition, which is found once with the Berlekamp-Massey algorithm.
+     * @param steps the number of steps
+     * @return the jump polynomial
+     * @throws IllegalArgumentException if {@code steps} is negative
+     */
+    public static JumpPolynomial jumpPolynomial(BigInteger steps) {
+        if (steps.signum() < 0) {
+            throw new IllegalArgumentException("Negative jump : " + steps);
+        }
+        long[] poly = getMinPoly();
+        int degree = minPolyDegree;
+        long[] r = new long[poly.length];
+        r[0] = 1;
+        for (int i = steps.bitLength() - 1; i >= 0; i--) {
+            r = square(r, poly, degree);
+            if (steps.testBit(i)) {
+                r = timesX(r, poly, degree);
+            }
+        }
+        StringBuilder hex = new StringBuilder((degree + 3) / 4);
+        for (int i = 0; i < degree; i += 4) {
+            int digit = (int) ((r[i >>> 6] >>> (i & 63)) & 0xf);
+            hex.append(Character.forDigit(digit, 16));
+        }
+        return new JumpPolynomial(hex.toString());
+    }
+
+    private static synchronized long[] getMinPoly() {
+        if (minPoly != null) {
+            return minPoly;
+        }
+        // Twice the size of the state in bits is enough to pin the polynomial down
+        int n = 2 * N * 128;
+        byte[] seq = new byte[n];
+        SFMT19937j r = new SFMT19937j(4357);
+        for (int i = 0; i < n; i++) {
+            seq[i] = (byte) (r.nextBits() & 1);
+            r.nextBits();
+            r.nextBits();
+            r.nextBits();
+        }
+
+        // Berlekamp-Massey over GF(2)
+        byte[] c = new byte[n + 1];
+        byte[] b = new byte[n + 1];
+        c[0] = 1;
+        b[0] = 1;
+        int l = 0;
+        int lb = 0;
+        int m = 1;
+        for (int k = 0; k < n; k++) {
+            int d = seq[k];
+            for (int i = 1; i <= l; i++) {
+                d ^= c[i] & seq[k - i];
+            }
+            if (d == 0) {
+                m++;
+            } else if (2 * l <= k) {
+                byte[] t = Arrays.copyOf(c, l + 1);
+                int lt = l;
+                for (int i = 0; i <= lb; i++) {
+                    c[i + m] ^= b[i];
+                }
+                l = k + 1 - l;
+                b = t;
+                lb = lt;
+                m = 1;
+            } else {
+                for (int i = 0; i <= lb; i++) {
+                    c[i + m] ^= b[i];
+                }
+                m++;
+            }
+        }
+
+        // The minimal polynomial is the reciprocal of the connection polynomial
+        long[] poly = new long[(l >>> 6) + 1];
+        for (int i = 0; i <= l; i++) {
+            if (c[l - i] != 0) {
+                poly[i >>> 6] |= 1L << (i & 63);
+            }
+        }
+        minPolyDegree = l;
+        minPoly = poly;
+        return minPoly;
+    }
+
+    private static long[] square(long[] a, long[] poly, int degree) {
+        long[] sq = new long[2 * a.length];
+        for (int i = 0; i < a.length; i++) {
+            sq[2 * i] = spread((int) a[i]);
+            sq[2 * i + 1] = spread((int) (a[i] >>> 32));
+        }
+        return reduce(sq, poly, degree, 2 * degree - 2);
+    }
+
+    private static long[] timesX(long[] a, long[] poly, int degree) {
+        long[] r = new long[a.length + 1];
+        for (int i = 0; i < a.length; i++) {
+            r[i] |= a[i] << 1;
+            r[i + 1] |= a[i] >>> 63;
+        }
+        return reduce(r, poly, degree, degree);
+    }
+
+    /**
+     * Reduces a polynomial of degree at most {@code top} modulo the minimal
+     * polynomial.
+     */
+    private static long[] reduce(long[] a, long[] poly, int degree, int top) {
+        for (int i = top; i >= degree; i--) {
+            if (((a[i >>> 6] >>> (i & 63)) & 1) != 0) {
+                int shift = i - degree;
+                int words = shift >>> 6;
+                int bits = shift & 63;
+                for (int j = 0; j < poly.length; j++) {
+                    a[j + words] ^= poly[j] << bits;
+                    if (bits != 0 && j + words + 1 < a.length) {
+                        a[j + words + 1] ^= poly[j] >>> (64 - bits);
+                    }
+                }
+            }
+        }
+        return Arrays.copyOf(a, poly.length);
+    }
+
+    /**
+     * Moves the 32 bits of an int to the even bits of a long.
+     */
+    private static long spread(int x) {
+        long v = x & 0xffffffffL;
+        v = (v | (v << 16)) & 0x0000ffff0000ffffL;
+        v = (v | (v << 8)) & 0x00ff00ff00ff00ffL;
+        v = (v | (v << 4)) & 0x0f0f0f0f0f0f0f0fL;
+        v = (v | (v << 2)) & 0x3333333333333333L;
+        v = (v | (v << 1)) & 0x5555555555555555L;
+        return v;
+    }
+
 }
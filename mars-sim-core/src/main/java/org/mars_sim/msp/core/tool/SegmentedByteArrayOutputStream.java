@@ -0,0 +1,144 @@
+/**
+ * Mars Simulation Project
+ * SegmentedByteArrayOutputStream.java
+ * @version 3.1.2 2026-10-17
+ * @author agent
+ */
+
+package org.mars_sim.msp.core.tool;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An in-memory output stream that keeps its content in fixed size segments.
+ * Unlike ByteArrayOutputStream, it never copies the bytes already written when
+ * it grows, and it never needs one contiguous array for the whole content. It
+ * is used to hold the point-in-time snapshot of a background save. An optional
+ * size limit makes a write fail with a {@link LimitExceededException} instead
+ * of running out of heap, so that the caller can fall back to streaming.
+ */
+public class SegmentedByteArrayOutputStream extends OutputStream {
+
+	/** The default segment size in bytes. */
+	public static final int DEFAULT_SEGMENT_SIZE = 1 << 20;
+
+	private int segmentSize;
+	/** The most bytes that may be written. */
+	private long maxSize;
+	/** The number of bytes used in the last segment. */
+	private int count;
+	private long size;
+
+	private List<byte[]> segments = new ArrayList<>();
+
+	/**
+	 * Constructor.
+	 *
+	 * @param segmentSize the size of each segment in bytes
+	 * @param maxSize     the most bytes that may be written
+	 */
+	public SegmentedByteArrayOutputStream(int segmentSize, long maxSize) {
+		if (segmentSize <= 0)
+			throw new IllegalArgumentException("Segment size must be positive : " + segmentSize);
+		this.segmentSize = segmentSize;
+		this.maxSize = maxSize;
+		this.count = segmentSize;
+	}
+
+	/**
+	 * Constructor with no size limit.
+	 *
+	 * @param segmentSize the size of each segment in bytes
+	 */
+	public SegmentedByteArrayOutputStream(int segmentSize) {
+		this(segmentSize, Long.MAX_VALUE);
+	}
+
+	/**
+	 * Constructor with the default segment size.
+	 */
+	public SegmentedByteArrayOutputStream() {
+		this(DEFAULT_SEGMENT_SIZE);
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		checkLimit(1);
+		if (count == segmentSize)
+			addSegment();
+		segments.get(segments.size() - 1)[count++] = (byte) b;
+		size++;
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		checkLimit(len);
+		while (len > 0) {
+			if (count == segmentSize)
+				addSegment();
+			int n = Math.min(len, segmentSize - count);
+			System.arraycopy(b, off, segments.get(segments.size() - 1), count, n);
+			count += n;
+			size += n;
+			off += n;
+			len -= n;
+		}
+	}
+
+	private void checkLimit(int len) throws LimitExceededException {
+		if (size + len > maxSize)
+			throw new LimitExceededException("The content would exceed the limit of " + maxSize + " bytes.");
+	}
+
+	private void addSegment() {
+		segments.add(new byte[segmentSize]);
+		count = 0;
+	}
+
+	/**
+	 * Writes the whole content to another stream.
+	 *
+	 * @param out the destination
+	 * @throws IOException
+	 */
+	public void writeTo(OutputStream out) throws IOException {
+		int last = segments.size() - 1;
+		for (int i = 0; i <= last; i++) {
+			out.write(segments.get(i), 0, (i == last) ? count : segmentSize);
+		}
+	}
+
+	/**
+	 * Gets the number of bytes written.
+	 *
+	 * @return size in bytes
+	 */
+	public long size() {
+		return size;
+	}
+
+	/**
+	 * Releases the segments so that they can be garbage collected.
+	 */
+	public void reset() {
+		segments.clear();
+		count = segmentSize;
+		size = 0;
+	}
+
+	/**
+	 * Thrown when a write would take the content over the size limit.
+	 */
+	public static class LimitExceededException extends IOException {
+
+		/** default serial id. */
+		private static final long serialVersionUID = 1L;
+
+		public LimitExceededException(String message) {
+			super(message);
+		}
+	}
+}
@@ -25,6 +25,7 @@ import java.util.logging.Logger;
 import org.mars_sim.msp.core.Coordinates;
 import org.mars_sim.msp.core.Direction;
 import org.mars_sim.msp.core.Inventory;
+import org.mars_sim.msp.core.LocalAreaIndex;
 import org.mars_sim.msp.core.LocalAreaUtil;
 import org.mars_sim.msp.core.LocalBoundedObject;
 import org.mars_sim.msp.core.LogConsolidated;
@@ -506,6 +507,20 @@ public abstract class Vehicle extends Unit
 		return facingParked;
 	}
 
+	/**
+	 * Sets unit's location coordinates, moving the vehicle to the local area
+	 * index of the settlement there, if any.
+	 * 
+	 * @param newLocation the new location of the unit
+	 */
+	@Override
+	public void setCoordinates(Coordinates newLocation) {
+		boolean moved = !getCoordinates().equals(newLocation);
+		super.setCoordinates(newLocation);
+		if (moved)
+			LocalAreaIndex.add(this, newLocation);
+	}
+
 	/**
 	 * Gets a list of operator activity spots.
 	 * 
@@ -545,6 +560,7 @@ public abstract class Vehicle extends Unit
 		this.xLocParked = xLocation;
 		this.yLocParked = yLocation;
 		this.facingParked = facing;
+		LocalAreaIndex.update(this);
 
 		// Set the human crew locations to the vehicle's new parked location.
 		setCrewPositions(currentCrewPositions);
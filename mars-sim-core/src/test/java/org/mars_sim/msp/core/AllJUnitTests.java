@@ -28,25 +28,45 @@ public class AllJUnitTests extends TestCase {
 		
 		suite.addTestSuite(org.mars_sim.msp.core.TestCoordinates.class);
 //		suite.addTestSuite(org.mars_sim.msp.core.TestInventory.class);
+		suite.addTestSuite(org.mars_sim.msp.core.TestInventoryCaches.class);
+		suite.addTestSuite(org.mars_sim.msp.core.TestLocalAreaIndex.class);
 		suite.addTestSuite(org.mars_sim.msp.core.TestLocalAreaUtil.class);
+		suite.addTestSuite(org.mars_sim.msp.core.TestLogConsolidated.class);
+		suite.addTestSuite(org.mars_sim.msp.core.TestUnitEventBus.class);
+		suite.addTestSuite(org.mars_sim.msp.core.TestUnitRegistry.class);
 		suite.addTestSuite(org.mars_sim.msp.core.equipment.JUnitTests.class);
 		suite.addTestSuite(org.mars_sim.msp.core.events.JUnitTests.class);
 //		suite.addTestSuite(org.mars_sim.msp.core.malfunction.TestMalfunctionManager.class);
+		suite.addTestSuite(org.mars_sim.msp.core.malfunction.TestMaintenanceIndex.class);
+		suite.addTestSuite(org.mars_sim.msp.core.mars.TestRandomMineralMap.class);
 		suite.addTestSuite(org.mars_sim.msp.core.person.JUnitTests.class);
 		suite.addTestSuite(org.mars_sim.msp.core.person.ai.JUnitTests.class);
 		suite.addTestSuite(org.mars_sim.msp.core.person.ai.mission.JUnitTests.class);
+		suite.addTestSuite(org.mars_sim.msp.core.person.ai.mission.TestMissionPlanningContext.class);
+		suite.addTestSuite(org.mars_sim.msp.core.person.ai.mission.TestTradeMarket.class);
+		suite.addTestSuite(org.mars_sim.msp.core.person.ai.social.TestRelationshipMatrix.class);
 		suite.addTest(org.mars_sim.msp.core.person.ai.task.JUnitTests.suite());
+		suite.addTestSuite(org.mars_sim.msp.core.person.ai.task.utils.TestTaskWeights.class);
 		suite.addTestSuite(org.mars_sim.msp.core.person.medical.JUnitTests.class);
 		suite.addTestSuite(org.mars_sim.msp.core.resource.TestAmountResourceStorage.class);
 		suite.addTestSuite(org.mars_sim.msp.core.resource.TestAmountResourcePhaseStorage.class);
 		suite.addTestSuite(org.mars_sim.msp.core.resource.TestAmountResourceTypeStorage.class);
 		suite.addTestSuite(org.mars_sim.msp.core.resource.TestItemResource.class);
+		suite.addTestSuite(org.mars_sim.msp.core.resource.TestResourceTable.class);
 		suite.addTestSuite(org.mars_sim.msp.core.structure.JUnitTests.class);
+		suite.addTestSuite(org.mars_sim.msp.core.structure.TestEnergyModel.class);
 		suite.addTestSuite(org.mars_sim.msp.core.structure.building.JUnitTests.class);
 		suite.addTest(org.mars_sim.msp.core.structure.building.connection.JUnitTests.suite());
 		suite.addTest(org.mars_sim.msp.core.structure.construction.JUnitTests.suite());
 		suite.addTestSuite(org.mars_sim.msp.core.structure.goods.TestGoods.class);
 		suite.addTestSuite(org.mars_sim.msp.core.structure.goods.TestCreditManager.class);
+		suite.addTestSuite(org.mars_sim.msp.core.structure.goods.TestGoodsManager.class);
+		suite.addTestSuite(org.mars_sim.msp.core.time.TestPhysiologyPulse.class);
+		suite.addTestSuite(org.mars_sim.msp.core.time.TestPulseScheduler.class);
+		suite.addTestSuite(org.mars_sim.msp.core.tool.TestChunkedSaveStream.class);
+		suite.addTestSuite(org.mars_sim.msp.core.tool.TestParallelXZStream.class);
+		suite.addTestSuite(org.mars_sim.msp.core.tool.TestRandomStream.class);
+		suite.addTestSuite(org.mars_sim.msp.core.tool.TestSegmentedByteArrayOutputStream.class);
 		suite.addTestSuite(org.mars_sim.msp.core.vehicle.JUnitTests.class);
 
 		return suite;
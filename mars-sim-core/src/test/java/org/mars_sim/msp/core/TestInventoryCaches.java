@@ -0,0 +1,161 @@
+package org.mars_sim.msp.core;
+
+import org.mars_sim.msp.core.equipment.Container;
+import org.mars_sim.msp.core.resource.AmountResource;
+import org.mars_sim.msp.core.resource.PhaseType;
+import org.mars_sim.msp.core.resource.ResourceUtil;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests that the running totals the inventory keeps on each store and retrieve
+ * match what a recount of the storage gives.
+ */
+public class TestInventoryCaches extends TestCase {
+
+	private static final String HYDROGEN = "hydrogen";
+
+	private AmountResource hydrogen;
+
+	@Override
+	public void setUp() throws Exception {
+		SimulationConfig.instance().loadConfig();
+		Simulation.instance().testRun();
+		hydrogen = ResourceUtil.findAmountResource(HYDROGEN);
+	}
+
+	/**
+	 * The totals of an inventory must follow its own stores and retrieves.
+	 */
+	public void testStoreRetrieve() {
+		Unit holder = register(new MockHolder());
+		Inventory inv = holder.getInventory();
+		inv.addAmountResourceTypeCapacity(hydrogen, 100D);
+		readAll(inv);
+
+		inv.storeAmountResource(hydrogen, 40D, true);
+		inv.retrieveAmountResource(hydrogen, 15D);
+		inv.storeAmountResource(hydrogen, 5D, true);
+
+		assertMatchesRecount(inv);
+		assertEquals("Stored", 30D, inv.getAmountResourceStored(hydrogen, false), 0.0001D);
+	}
+
+	/**
+	 * The totals of an inventory must follow the stores and retrieves made in the
+	 * containers it holds, directly or within another container.
+	 */
+	public void testNestedContainers() {
+		Unit holder = register(new MockHolder());
+		Inventory inv = holder.getInventory();
+		inv.addGeneralCapacity(1000D);
+		inv.addAmountResourceTypeCapacity(hydrogen, 50D);
+
+		Unit tank1 = register(new MockTank());
+		tank1.getInventory().addAmountResourceTypeCapacity(hydrogen, 100D);
+		Unit tank2 = register(new MockTank());
+		tank2.getInventory().addAmountResourceTypeCapacity(hydrogen, 100D);
+		Unit crate = register(new MockTank());
+		crate.getInventory().addGeneralCapacity(500D);
+
+		crate.getInventory().storeUnit(tank2);
+		inv.storeUnit(tank1);
+		inv.storeUnit(crate);
+		readAll(inv);
+		readAll(crate.getInventory());
+		readAll(tank1.getInventory());
+		readAll(tank2.getInventory());
+
+		tank1.getInventory().storeAmountResource(hydrogen, 30D, true);
+		tank2.getInventory().storeAmountResource(hydrogen, 20D, true);
+		tank1.getInventory().retrieveAmountResource(hydrogen, 10D);
+		inv.storeAmountResource(hydrogen, 5D, true);
+		tank2.getInventory().retrieveAmountResource(hydrogen, 20D);
+		tank2.getInventory().storeAmountResource(hydrogen, 7D, true);
+
+		tank1.getInventory().setAllCachesDirty();
+		tank2.getInventory().setAllCachesDirty();
+		assertMatchesRecount(crate.getInventory());
+		assertMatchesRecount(inv);
+		assertEquals("Stored", 32D, inv.getAmountResourceStored(hydrogen, false), 0.0001D);
+	}
+
+	/**
+	 * Reads every total so that the caches are clean and kept by the deltas.
+	 */
+	private void readAll(Inventory inv) {
+		inv.getAmountResourceStored(hydrogen, false);
+		inv.getAmountResourceCapacity(hydrogen, false);
+		inv.getTotalAmountResourcesStoredCache(false);
+		inv.getUnitTotalMass(false);
+		inv.getTotalInventoryMass(false);
+	}
+
+	/**
+	 * Checks the cached totals against the totals worked out again.
+	 */
+	private void assertMatchesRecount(Inventory inv) {
+		double stored = inv.getAmountResourceStored(hydrogen, true);
+		double totalStored = inv.getTotalAmountResourcesStoredCache(true);
+		double unitMass = inv.getUnitTotalMass(true);
+		double totalMass = inv.getTotalInventoryMass(true);
+
+		inv.setAllCachesDirty();
+
+		assertEquals("Resource stored", inv.getAmountResourceStored(hydrogen, false), stored, 0.0001D);
+		assertEquals("Total stored", inv.getTotalAmountResourcesStoredCache(false), totalStored, 0.0001D);
+		assertEquals("Unit mass", inv.getUnitTotalMass(false), unitMass, 0.0001D);
+		assertEquals("Total mass", inv.getTotalInventoryMass(false), totalMass, 0.0001D);
+	}
+
+	private static Unit register(Unit unit) {
+		Simulation.instance().getUnitManager().addUnit(unit);
+		return unit;
+	}
+
+	/** The identifiers of the mock units, away from those of the real units. */
+	private static int nextIdentifier = 10_000;
+
+	private static synchronized int getNextIdentifier() {
+		return nextIdentifier++;
+	}
+
+	/**
+	 * A unit holding resources and other units.
+	 */
+	private static class MockHolder extends Unit {
+
+		private int identifier;
+
+		MockHolder() {
+			super("Mock Holder", new Coordinates(0D, 0D));
+			setBaseMass(10D);
+		}
+
+		@Override
+		public int getIdentifier() {
+			return identifier;
+		}
+
+		@Override
+		public void incrementID() {
+			identifier = getNextIdentifier();
+		}
+	}
+
+	/**
+	 * A container of gases.
+	 */
+	private static class MockTank extends MockHolder implements Container {
+
+		@Override
+		public PhaseType getContainingResourcePhase() {
+			return PhaseType.GAS;
+		}
+
+		@Override
+		public double getTotalCapacity() {
+			return 100D;
+		}
+	}
+}
@@ -0,0 +1,137 @@
+package org.mars_sim.msp.core;
+
+import java.awt.BasicStroke;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Area;
+import java.awt.geom.Line2D;
+import java.awt.geom.Path2D;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import org.mars_sim.msp.core.structure.MockSettlement;
+import org.mars_sim.msp.core.structure.Settlement;
+import org.mars_sim.msp.core.structure.building.MockBuilding;
+
+import junit.framework.TestCase;
+
+/**
+ * Compares the queries of the local area index with a brute-force scan of the
+ * footprints, with buildings moving and going away in between.
+ */
+public class TestLocalAreaIndex extends TestCase {
+
+	private static final int BUILDINGS = 60;
+	private static final int ROUNDS = 50;
+	private static final int QUERIES = 20;
+	/** The half size of the local area (meters). */
+	private static final double SPAN = 80D;
+
+	private Random random;
+	private Settlement settlement;
+	private List<MockBuilding> buildings;
+
+	@Override
+	public void setUp() throws Exception {
+		SimulationConfig.instance().loadConfig();
+		Simulation.instance().testRun();
+		random = new Random(42L);
+
+		settlement = new MockSettlement();
+		Simulation.instance().getUnitManager().addUnit(settlement);
+		buildings = new ArrayList<>();
+		for (int i = 0; i < BUILDINGS; i++) {
+			MockBuilding building = new MockBuilding(settlement.getBuildingManager(), "B" + i);
+			place(building);
+			buildings.add(building);
+		}
+	}
+
+	/**
+	 * The point, path and listing queries must give what the scan gives.
+	 */
+	public void testMatchesBruteForce() {
+		LocalAreaIndex index = LocalAreaIndex.getIndex(settlement.getCoordinates());
+		assertNotNull("Index", index);
+
+		for (int round = 0; round < ROUNDS; round++) {
+			for (int q = 0; q < QUERIES; q++) {
+				double x = randomLocation();
+				double y = randomLocation();
+				assertEquals("Point " + x + ", " + y, scanContains(x, y),
+						index.contains(x, y, LocalAreaIndex.BUILDINGS));
+
+				Line2D line = new Line2D.Double(x, y, randomLocation(), randomLocation());
+				Area path = new Area(new BasicStroke(1F).createStrokedShape(line));
+				assertEquals("Path " + line.getP1() + " " + line.getP2(), scanIntersects(path),
+						index.intersects(path, null, LocalAreaIndex.BUILDINGS));
+
+				Rectangle2D bounds = new Rectangle2D.Double(x, y, random.nextDouble() * 30D, random.nextDouble() * 30D);
+				assertTrue("Listing " + bounds, new HashSet<>(index.getObjects(bounds, LocalAreaIndex.BUILDINGS))
+						.containsAll(scanIntersecting(bounds)));
+			}
+
+			// Move some buildings and take one away
+			for (int i = 0; i < 5; i++) {
+				MockBuilding building = buildings.get(random.nextInt(buildings.size()));
+				place(building);
+				LocalAreaIndex.update(building);
+			}
+			MockBuilding removed = buildings.remove(random.nextInt(buildings.size()));
+			LocalAreaIndex.remove(removed);
+		}
+
+		assertEquals("Objects", buildings.size(), index.getObjects(LocalAreaIndex.ALL).size());
+	}
+
+	private void place(MockBuilding building) {
+		building.setWidth(3D + random.nextDouble() * 15D);
+		building.setLength(3D + random.nextDouble() * 15D);
+		building.setXLocation(randomLocation());
+		building.setYLocation(randomLocation());
+		building.setFacing(random.nextInt(4) * 90D + ((random.nextInt(3) == 0) ? random.nextDouble() * 90D : 0D));
+	}
+
+	private double randomLocation() {
+		return (random.nextDouble() * 2D - 1D) * SPAN;
+	}
+
+	private boolean scanContains(double x, double y) {
+		for (MockBuilding building : buildings) {
+			if (getArea(building).contains(x, y))
+				return true;
+		}
+		return false;
+	}
+
+	private boolean scanIntersects(Area path) {
+		for (MockBuilding building : buildings) {
+			Area area = getArea(building);
+			area.intersect(path);
+			if (!area.isEmpty())
+				return true;
+		}
+		return false;
+	}
+
+	private List<LocalBoundedObject> scanIntersecting(Rectangle2D bounds) {
+		List<LocalBoundedObject> result = new ArrayList<>();
+		for (MockBuilding building : buildings) {
+			if (getArea(building).intersects(bounds))
+				result.add(building);
+		}
+		return result;
+	}
+
+	private static Area getArea(LocalBoundedObject object) {
+		double width = object.getWidth();
+		double length = object.getLength();
+		Rectangle2D rect = new Rectangle2D.Double(object.getXLocation() - (width / 2D),
+				object.getYLocation() - (length / 2D), width, length);
+		AffineTransform at = AffineTransform.getRotateInstance(object.getFacing() * (Math.PI / 180D),
+				rect.getCenterX(), rect.getCenterY());
+		return new Area(new Path2D.Double(rect, at));
+	}
+}
@@ -0,0 +1,125 @@
+package org.mars_sim.msp.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the rate limits of the keyed log methods.
+ */
+public class TestLogConsolidated extends TestCase {
+
+	private static final String SOURCE_NAME = "org.mars_sim.msp.core.TestLogConsolidated";
+	/** Long enough for the messages of a test to fall within one window. */
+	private static final long WINDOW = 60_000L;
+
+	private Logger logger;
+	private List<String> messages;
+
+	@Override
+	public void setUp() throws Exception {
+		messages = new ArrayList<>();
+		logger = Logger.getAnonymousLogger();
+		logger.setUseParentHandlers(false);
+		logger.setLevel(Level.ALL);
+		logger.addHandler(new Handler() {
+			@Override
+			public void publish(LogRecord record) {
+				messages.add(record.getMessage());
+			}
+
+			@Override
+			public void flush() {
+			}
+
+			@Override
+			public void close() {
+			}
+		});
+	}
+
+	/**
+	 * The same name must give the same key, and another name another key.
+	 */
+	public void testKey() {
+		int key = LogConsolidated.key("TestLogConsolidated.key");
+		assertEquals("Same key", key, LogConsolidated.key("TestLogConsolidated.key"));
+		assertTrue("Other key", key != LogConsolidated.key("TestLogConsolidated.otherKey"));
+	}
+
+	/**
+	 * Within the window, only the first message of a key must be logged, and
+	 * the next one logged must carry the count of those suppressed.
+	 */
+	public void testSuppressionWindow() {
+		int key = LogConsolidated.key("TestLogConsolidated.window");
+
+		LogConsolidated.log(logger, Level.INFO, WINDOW, key, SOURCE_NAME, "Message %s", "one");
+		LogConsolidated.log(logger, Level.INFO, WINDOW, key, SOURCE_NAME, "Message %s", "two");
+		LogConsolidated.log(logger, Level.INFO, WINDOW, key, SOURCE_NAME, "Message %s", "three");
+		assertEquals("Logged", 1, messages.size());
+		assertEquals("First", "TestLogConsolidated [x1] : Message one", messages.get(0));
+		assertEquals("Suppressed", 2L, LogConsolidated.getSuppressedCount(key));
+
+		LogConsolidated.log(logger, Level.INFO, 0L, key, SOURCE_NAME, "Message %s", "four");
+		assertEquals("Logged after the window", 2, messages.size());
+		assertEquals("Count", "TestLogConsolidated [x3] : Message four", messages.get(1));
+		assertEquals("Logged count", 2L, LogConsolidated.getLoggedCount(key));
+	}
+
+	/**
+	 * The messages of one key must not suppress those of another.
+	 */
+	public void testPerKeyCounts() {
+		int key1 = LogConsolidated.key("TestLogConsolidated.perKey1");
+		int key2 = LogConsolidated.key("TestLogConsolidated.perKey2");
+
+		for (int i = 0; i < 3; i++) {
+			LogConsolidated.log(logger, Level.INFO, WINDOW, key1, SOURCE_NAME, "%s of %.1f", "key1", 1.5D);
+		}
+		LogConsolidated.log(logger, Level.INFO, WINDOW, key2, SOURCE_NAME, "%s %.1f %s", "key2", 2.5D, "once");
+
+		assertEquals("Logged", 2, messages.size());
+		assertEquals("Primitive argument", "TestLogConsolidated [x1] : key2 2.5 once", messages.get(1));
+		assertEquals("Suppressed key1", 2L, LogConsolidated.getSuppressedCount(key1));
+		assertEquals("Suppressed key2", 0L, LogConsolidated.getSuppressedCount(key2));
+		assertEquals("Logged key1", 1L, LogConsolidated.getLoggedCount(key1));
+		assertEquals("Logged key2", 1L, LogConsolidated.getLoggedCount(key2));
+	}
+
+	/**
+	 * A suppressed message, or one below the level of the logger, must not be
+	 * built.
+	 */
+	public void testNotBuiltWhenSuppressed() {
+		int key = LogConsolidated.key("TestLogConsolidated.notBuilt");
+		CountingArgument argument = new CountingArgument();
+
+		LogConsolidated.log(logger, Level.INFO, WINDOW, key, SOURCE_NAME, "%s", argument);
+		LogConsolidated.log(logger, Level.INFO, WINDOW, key, SOURCE_NAME, "%s", argument);
+		assertEquals("Built once", 1, argument.count);
+
+		logger.setLevel(Level.WARNING);
+		assertEquals("Below the level", 0, LogConsolidated.acquire(logger, Level.INFO, 0L, key));
+		assertEquals("Not counted below the level", 1L, LogConsolidated.getSuppressedCount(key));
+	}
+
+	/**
+	 * Counts the times it is formatted.
+	 */
+	private static class CountingArgument {
+
+		private int count;
+
+		@Override
+		public String toString() {
+			count++;
+			return "argument";
+		}
+	}
+}
@@ -0,0 +1,108 @@
+package org.mars_sim.msp.core;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the batching and coalescing of the unit events.
+ */
+public class TestUnitEventBus extends TestCase {
+
+	private UnitEventBus bus;
+	private Unit unit;
+	private List<UnitEvent> received;
+	private UnitListener listener;
+
+	@Override
+	public void setUp() throws Exception {
+		SimulationConfig.instance().loadConfig();
+		bus = UnitEventBus.getInstance();
+		unit = new MockUnit1();
+		received = new ArrayList<>();
+		listener = event -> received.add(event);
+	}
+
+	@Override
+	public void tearDown() throws Exception {
+		bus.endBatch();
+		bus.removeUnitListener(listener);
+	}
+
+	/**
+	 * Outside a pulse the events are delivered right away.
+	 */
+	public void testImmediateDelivery() {
+		unit.addUnitListener(listener);
+		unit.fireUnitUpdate(UnitEventType.MASS_EVENT);
+		assertEquals(1, received.size());
+	}
+
+	/**
+	 * During a pulse the events wait for the end of it, and the repeats are
+	 * coalesced.
+	 */
+	public void testBatchCoalesces() {
+		unit.addUnitListener(listener);
+		bus.startBatch();
+		unit.fireUnitUpdate(UnitEventType.MASS_EVENT);
+		unit.fireUnitUpdate(UnitEventType.LOCATION_EVENT, new Coordinates(1D, 1D));
+		unit.fireUnitUpdate(UnitEventType.MASS_EVENT);
+		Coordinates latest = new Coordinates(2D, 2D);
+		unit.fireUnitUpdate(UnitEventType.LOCATION_EVENT, latest);
+		unit.fireUnitUpdate(UnitEventType.INVENTORY_STORING_UNIT_EVENT, "a");
+		unit.fireUnitUpdate(UnitEventType.INVENTORY_STORING_UNIT_EVENT, "b");
+		assertEquals(0, received.size());
+
+		bus.endBatch();
+		assertEquals(4, received.size());
+		assertEquals(UnitEventType.MASS_EVENT, received.get(0).getType());
+		assertEquals(UnitEventType.LOCATION_EVENT, received.get(1).getType());
+		assertSame(latest, received.get(1).getTarget());
+		assertEquals("a", received.get(2).getTarget());
+		assertEquals("b", received.get(3).getTarget());
+	}
+
+	/**
+	 * Listeners only get the event types they subscribed to.
+	 */
+	public void testSubscribeByType() {
+		unit.addUnitListener(listener, EnumSet.of(UnitEventType.NAME_EVENT));
+		unit.fireUnitUpdate(UnitEventType.MASS_EVENT);
+		assertEquals(0, received.size());
+		unit.fireUnitUpdate(UnitEventType.NAME_EVENT, "name");
+		assertEquals(1, received.size());
+
+		unit.removeUnitListener(listener);
+		received.clear();
+		bus.addUnitListener(listener, UnitEventType.NOTES_EVENT);
+		unit.fireUnitUpdate(UnitEventType.NAME_EVENT, "name");
+		unit.fireUnitUpdate(UnitEventType.NOTES_EVENT, "notes");
+		assertEquals(1, received.size());
+		assertEquals(UnitEventType.NOTES_EVENT, received.get(0).getType());
+	}
+
+	/**
+	 * A listener failing must not keep the event from the other listeners, nor
+	 * the event from being counted.
+	 */
+	public void testFailingListener() {
+		UnitListener failing = event -> {
+			throw new IllegalStateException("Failing listener");
+		};
+		unit.addUnitListener(failing);
+		unit.addUnitListener(listener);
+		bus.addUnitListener(failing, UnitEventType.MASS_EVENT);
+		bus.addUnitListener(listener, UnitEventType.MASS_EVENT);
+		long delivered = bus.getDeliveredCount();
+		try {
+			unit.fireUnitUpdate(UnitEventType.MASS_EVENT);
+		} finally {
+			bus.removeUnitListener(failing);
+		}
+		assertEquals("Unit and type listeners", 2, received.size());
+		assertEquals("Delivered", delivered + 1, bus.getDeliveredCount());
+	}
+}
@@ -0,0 +1,166 @@
+package org.mars_sim.msp.core;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import junit.framework.TestCase;
+
+/**
+ * Compares the unit registry with a sorted map under random registering and
+ * unregistering, and checks that it survives a save.
+ */
+public class TestUnitRegistry extends TestCase {
+
+	private static final int FIRST_ID = Unit.FIRST_PERSON_UNIT_ID;
+	private static final int UNITS = 300;
+	private static final int OPERATIONS = 20_000;
+
+	private IdUnit[] units;
+
+	@Override
+	public void setUp() throws Exception {
+		SimulationConfig.instance().loadConfig();
+		units = new IdUnit[UNITS];
+		for (int i = 0; i < UNITS; i++) {
+			units[i] = new IdUnit(FIRST_ID + i);
+		}
+	}
+
+	/**
+	 * The registry must give what the map gives after each change.
+	 */
+	public void testMatchesTreeMap() {
+		Random random = new Random(42L);
+		UnitRegistry<IdUnit> registry = new UnitRegistry<>(FIRST_ID);
+		TreeMap<Integer, IdUnit> expected = new TreeMap<>();
+
+		for (int op = 0; op < OPERATIONS; op++) {
+			// Favour the low identifiers so that the end of the slots moves both ways
+			IdUnit unit = units[Math.min(random.nextInt(UNITS), random.nextInt(UNITS))];
+			if (random.nextInt(3) == 0) {
+				assertEquals("Unregister " + unit.getIdentifier(), expected.remove(unit.getIdentifier()) != null,
+						registry.unregister(unit));
+			} else {
+				assertEquals("Register " + unit.getIdentifier(), expected.putIfAbsent(unit.getIdentifier(), unit) == null,
+						registry.register(unit));
+			}
+
+			int id = FIRST_ID - 5 + random.nextInt(UNITS + 10);
+			assertSame("Get " + id, expected.get(id), registry.get(id));
+			assertEquals("Contains", expected.containsValue(unit), registry.contains(unit));
+			if ((op % 100) == 0) {
+				assertSameUnits(expected, registry);
+			}
+		}
+		assertSameUnits(expected, registry);
+
+		registry.clear();
+		assertTrue("Cleared", registry.isEmpty());
+		assertEquals("Free slots after clear", 0, registry.getFreeSlots());
+		assertFalse("Iterator after clear", registry.iterator().hasNext());
+	}
+
+	/**
+	 * An identifier below the first one must be refused.
+	 */
+	public void testBelowFirstID() {
+		UnitRegistry<IdUnit> registry = new UnitRegistry<>(FIRST_ID + 1);
+		try {
+			registry.register(units[0]);
+			fail("Registered below the first identifier");
+		} catch (IllegalArgumentException e) {
+			// Expected
+		}
+		assertNull("Get below", registry.get(FIRST_ID));
+		assertFalse("Unregister below", registry.unregister(units[0]));
+	}
+
+	/**
+	 * A saved and loaded registry must hold the same units and go on taking
+	 * new ones.
+	 */
+	public void testSerialization() throws Exception {
+		Random random = new Random(7L);
+		UnitRegistry<IdUnit> registry = new UnitRegistry<>(FIRST_ID);
+		TreeMap<Integer, IdUnit> expected = new TreeMap<>();
+		for (int i = 0; i < UNITS / 2; i++) {
+			IdUnit unit = units[random.nextInt(UNITS / 2)];
+			registry.register(unit);
+			expected.put(unit.getIdentifier(), unit);
+		}
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+			out.writeObject(registry);
+		}
+		UnitRegistry<IdUnit> loaded;
+		try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+			@SuppressWarnings("unchecked")
+			UnitRegistry<IdUnit> read = (UnitRegistry<IdUnit>) in.readObject();
+			loaded = read;
+		}
+
+		List<Integer> ids = new ArrayList<>();
+		for (IdUnit unit : loaded) {
+			ids.add(unit.getIdentifier());
+			assertSame("Get " + unit.getIdentifier(), unit, loaded.get(unit.getIdentifier()));
+		}
+		assertEquals("Identifiers", new ArrayList<>(expected.keySet()), ids);
+		assertEquals("Size", expected.size(), loaded.size());
+		assertEquals("Free slots", registry.getFreeSlots(), loaded.getFreeSlots());
+
+		IdUnit last = units[UNITS - 1];
+		assertTrue("Register after load", loaded.register(last));
+		assertSame("Get after load", last, loaded.get(last.getIdentifier()));
+	}
+
+	/**
+	 * Checks the size, the order of the iteration and the free slots.
+	 */
+	private static void assertSameUnits(TreeMap<Integer, IdUnit> expected, UnitRegistry<IdUnit> registry) {
+		assertEquals("Size", expected.size(), registry.size());
+		assertEquals("Empty", expected.isEmpty(), registry.isEmpty());
+
+		List<IdUnit> iterated = new ArrayList<>();
+		for (IdUnit unit : registry) {
+			iterated.add(unit);
+		}
+		assertEquals("Order", new ArrayList<>(expected.values()), iterated);
+
+		Map.Entry<Integer, IdUnit> last = expected.lastEntry();
+		int limit = (last == null) ? 0 : last.getKey() - FIRST_ID + 1;
+		assertEquals("Free slots", limit - expected.size(), registry.getFreeSlots());
+	}
+
+	/**
+	 * A unit with a given identifier.
+	 */
+	private static class IdUnit extends Unit {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int id;
+
+		IdUnit(int id) {
+			super("Unit " + id, new Coordinates(0D, 0D));
+			this.id = id;
+		}
+
+		@Override
+		public int getIdentifier() {
+			return id;
+		}
+
+		@Override
+		public void incrementID() {
+			// The identifier is given
+		}
+	}
+}
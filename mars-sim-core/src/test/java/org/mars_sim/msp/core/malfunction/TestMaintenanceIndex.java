@@ -0,0 +1,100 @@
+package org.mars_sim.msp.core.malfunction;
+
+import java.util.Arrays;
+
+import org.mars_sim.msp.core.Simulation;
+import org.mars_sim.msp.core.SimulationConfig;
+import org.mars_sim.msp.core.structure.MockSettlement;
+import org.mars_sim.msp.core.structure.Settlement;
+import org.mars_sim.msp.core.structure.building.MockBuilding;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests that the maintenance index follows the entities as they become due and
+ * are maintained.
+ */
+public class TestMaintenanceIndex extends TestCase {
+
+	private Settlement settlement;
+	private MockBuilding building1;
+	private MockBuilding building2;
+	private MockBuilding building3;
+
+	@Override
+	public void setUp() throws Exception {
+		SimulationConfig.instance().loadConfig();
+		Simulation.instance().testRun();
+
+		settlement = new MockSettlement();
+		Simulation.instance().getUnitManager().addUnit(settlement);
+		building1 = new MockBuilding(settlement.getBuildingManager(), "B1");
+		building2 = new MockBuilding(settlement.getBuildingManager(), "B2");
+		building3 = new MockBuilding(settlement.getBuildingManager(), "B3");
+	}
+
+	/**
+	 * The entities must be listed once due, the most overdue first.
+	 */
+	public void testDue() {
+		MaintenanceIndex index = MaintenanceIndex.getIndex(settlement);
+		assertTrue("None due", index.getDueEntities().isEmpty());
+
+		building1.getMalfunctionManager().activeTimePassing(MaintenanceIndex.DUE_TIME);
+		building2.getMalfunctionManager().activeTimePassing(MaintenanceIndex.DUE_TIME + 500D);
+		building3.getMalfunctionManager().activeTimePassing(MaintenanceIndex.DUE_TIME / 2D);
+
+		assertEquals("Due", Arrays.asList(building2, building1), index.getDueEntities());
+	}
+
+	/**
+	 * The order must follow the times as the entities go on being used.
+	 */
+	public void testOrderFollowsTime() {
+		MaintenanceIndex index = MaintenanceIndex.getIndex(settlement);
+		building1.getMalfunctionManager().activeTimePassing(MaintenanceIndex.DUE_TIME + 100D);
+		building2.getMalfunctionManager().activeTimePassing(MaintenanceIndex.DUE_TIME);
+		assertEquals("Due", Arrays.asList(building1, building2), index.getDueEntities());
+
+		building2.getMalfunctionManager().activeTimePassing(200D);
+		assertEquals("Overtaken", Arrays.asList(building2, building1), index.getDueEntities());
+
+		building1.getMalfunctionManager().activeTimePassing(100D);
+		assertEquals("Tied, first due first", Arrays.asList(building1, building2), index.getDueEntities());
+	}
+
+	/**
+	 * An entity must leave the list once maintained.
+	 */
+	public void testMaintained() {
+		MaintenanceIndex index = MaintenanceIndex.getIndex(settlement);
+		building1.getMalfunctionManager().activeTimePassing(MaintenanceIndex.DUE_TIME);
+		building2.getMalfunctionManager().activeTimePassing(MaintenanceIndex.DUE_TIME);
+
+		// The mock buildings take no maintenance work time
+		building1.getMalfunctionManager().addMaintenanceWorkTime(1D);
+
+		assertEquals("Due", Arrays.asList(building2), index.getDueEntities());
+	}
+
+	/**
+	 * An entity must leave the list once removed.
+	 */
+	public void testRemoved() {
+		MaintenanceIndex index = MaintenanceIndex.getIndex(settlement);
+		building1.getMalfunctionManager().activeTimePassing(MaintenanceIndex.DUE_TIME);
+
+		MaintenanceIndex.remove(building1);
+
+		assertTrue("None due", index.getDueEntities().isEmpty());
+	}
+
+	/**
+	 * An entity due before the index is built must be listed.
+	 */
+	public void testBuiltLater() {
+		building3.getMalfunctionManager().activeTimePassing(MaintenanceIndex.DUE_TIME);
+
+		assertEquals("Due", Arrays.asList(building3), MaintenanceIndex.getIndex(settlement).getDueEntities());
+	}
+}
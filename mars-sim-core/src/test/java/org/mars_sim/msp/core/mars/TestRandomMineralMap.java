@@ -0,0 +1,215 @@
+package org.mars_sim.msp.core.mars;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.mars_sim.msp.core.Coordinates;
+import org.mars_sim.msp.core.Direction;
+import org.mars_sim.msp.core.SimulationConfig;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the indexed lookups of the random mineral map.
+ */
+public class TestRandomMineralMap extends TestCase {
+
+	private static final int SITES = 5000;
+	/** A search range small enough for the index to leave most concentrations out (km). */
+	private static final double SMALL_RANGE = 150D;
+	/** How close to the poles and the seam the edge sites are (radians). */
+	private static final double EDGE = .05D;
+
+	private RandomMineralMap map;
+
+	@Override
+	public void setUp() throws Exception {
+		SimulationConfig.instance().loadConfig();
+		map = new RandomMineralMap();
+	}
+
+	/**
+	 * The batch lookup must give the same maps as one lookup per location, and
+	 * the lookup by mineral type must agree with both.
+	 */
+	public void testBatchMatchesSingleLookups() {
+		Random random = new Random(12345L);
+		List<Coordinates> sites = new ArrayList<>(SITES);
+		for (int i = 0; i < SITES; i++) {
+			// Bias towards the poles, where the effect limit is wider
+			double phi = (i % 4 == 0) ? random.nextDouble() * .5D : random.nextDouble() * Math.PI;
+			sites.add(new Coordinates(phi, random.nextDouble() * 2D * Math.PI));
+		}
+
+		List<Map<String, Double>> batch = map.getAllMineralConcentrations(sites);
+		assertEquals(SITES, batch.size());
+
+		int found = 0;
+		for (int i = 0; i < SITES; i++) {
+			Map<String, Double> single = map.getAllMineralConcentrations(sites.get(i));
+			assertEquals("Site " + i, single, batch.get(i));
+			if (!single.isEmpty())
+				found++;
+
+			for (String mineralType : map.getMineralTypeNames()) {
+				assertEquals("Site " + i + " " + mineralType, single.getOrDefault(mineralType, 0D),
+						map.getMineralConcentration(mineralType, sites.get(i)));
+			}
+		}
+		assertTrue("Some sites have minerals", found > 0);
+	}
+
+	/**
+	 * The lookups must give what a scan over all the concentrations gives,
+	 * including near the poles and the seam at theta 0, where the cells wrap.
+	 */
+	public void testMatchesLinearScan() {
+		Random random = new Random(67890L);
+		List<MineralConcentration> concentrations = map.getMineralConcentrations();
+		int found = 0;
+		for (Coordinates site : getSites(random, concentrations)) {
+			Map<String, Double> expected = scanConcentrations(concentrations, site);
+			assertEquals("Site " + site, expected, map.getAllMineralConcentrations(site));
+			for (String mineralType : map.getMineralTypeNames()) {
+				assertEquals("Site " + site + " " + mineralType, expected.getOrDefault(mineralType, 0D),
+						map.getMineralConcentration(mineralType, site));
+			}
+			if (!expected.isEmpty())
+				found++;
+		}
+		assertTrue("Some sites have minerals", found > 0);
+	}
+
+	/**
+	 * A search over a small range must only leave out concentrations out of
+	 * range, and find a location from the ones a scan over all of them keeps.
+	 */
+	public void testFindRandomMineralLocationSmallRange() {
+		Random random = new Random(13579L);
+		List<MineralConcentration> concentrations = map.getMineralConcentrations();
+		MineralConcentrationGrid grid = new MineralConcentrationGrid(concentrations);
+		int pruned = 0;
+		int found = 0;
+		for (Coordinates start : getSites(random, concentrations)) {
+			List<Integer> expected = new ArrayList<>();
+			for (int i = 0; i < concentrations.size(); i++) {
+				if (isInRange(start, concentrations.get(i), SMALL_RANGE))
+					expected.add(i);
+			}
+
+			int[] candidates = grid.getCandidatesWithin(start, SMALL_RANGE);
+			List<Integer> kept = new ArrayList<>();
+			for (int i : candidates) {
+				if (isInRange(start, concentrations.get(i), SMALL_RANGE))
+					kept.add(i);
+			}
+			assertEquals("Start " + start, expected, kept);
+			if (candidates.length < concentrations.size() / 2)
+				pruned++;
+
+			Coordinates location = map.findRandomMineralLocation(start, SMALL_RANGE);
+			if (expected.isEmpty()) {
+				assertNull("Start " + start, location);
+			}
+			else {
+				found++;
+				List<Coordinates> allowed = new ArrayList<>();
+				for (int i : expected) {
+					Coordinates target = concentrations.get(i).getLocation();
+					if (SMALL_RANGE < Coordinates.computeDistance(start, target)) {
+						Direction direction = start.getDirectionToPoint(target);
+						allowed.add(start.getNewLocation(direction, SMALL_RANGE));
+					}
+					else {
+						allowed.add(target);
+					}
+				}
+				assertTrue("Start " + start + " found " + location, allowed.contains(location));
+			}
+		}
+		assertTrue("The index leaves most concentrations out", pruned > SITES / 2);
+		assertTrue("Some locations found", found > 0);
+	}
+
+	/**
+	 * A random mineral location must be found near a known concentration.
+	 */
+	public void testFindRandomMineralLocation() {
+		Coordinates start = new Coordinates(Math.PI / 2D, Math.PI);
+		Coordinates found = map.findRandomMineralLocation(start, 20000D);
+		assertNotNull(found);
+		assertTrue("Within range", start.getDistance(found) <= 20000D);
+	}
+
+	/**
+	 * Gets sites spread over the planet, sites close to the poles and to the seam
+	 * and sites close to concentrations so that some have minerals.
+	 */
+	private static List<Coordinates> getSites(Random random, List<MineralConcentration> concentrations) {
+		List<Coordinates> result = new ArrayList<>(SITES);
+		for (int i = 0; i < SITES; i++) {
+			double phi;
+			double theta;
+			switch (i % 5) {
+			case 0:
+				phi = random.nextDouble() * EDGE;
+				theta = random.nextDouble() * 2D * Math.PI;
+				break;
+			case 1:
+				phi = Math.PI - random.nextDouble() * EDGE;
+				theta = random.nextDouble() * 2D * Math.PI;
+				break;
+			case 2:
+				phi = random.nextDouble() * Math.PI;
+				theta = random.nextBoolean() ? random.nextDouble() * EDGE
+						: 2D * Math.PI - random.nextDouble() * EDGE;
+				break;
+			case 3:
+				Coordinates near = concentrations.get(random.nextInt(concentrations.size())).getLocation();
+				phi = Math.min(Math.PI, Math.max(0D, near.getPhi() + (random.nextDouble() - .5D) * .02D));
+				theta = near.getTheta() + (random.nextDouble() - .5D) * .02D;
+				break;
+			default:
+				phi = random.nextDouble() * Math.PI;
+				theta = random.nextDouble() * 2D * Math.PI;
+			}
+			result.add(new Coordinates(phi, theta));
+		}
+		return result;
+	}
+
+	/**
+	 * Gets the mineral concentrations at a location by going over all the
+	 * concentrations, as the map did before it had an index.
+	 */
+	private static Map<String, Double> scanConcentrations(List<MineralConcentration> concentrations,
+			Coordinates location) {
+		Map<String, Double> result = new HashMap<>();
+		for (MineralConcentration concentration : concentrations) {
+			double concentrationPhi = concentration.getLocation().getPhi();
+			double phiDiff = Math.abs(location.getPhi() - concentrationPhi);
+			double thetaDiff = Math.abs(location.getTheta() - concentration.getLocation().getTheta());
+			double diffLimit = .04D;
+			if ((concentrationPhi < Math.PI / 7D) || concentrationPhi > Math.PI - (Math.PI / 7D))
+				diffLimit += Math.abs(Math.cos(concentrationPhi));
+			if ((phiDiff < diffLimit) && (thetaDiff < diffLimit)) {
+				double distance = location.getDistance(concentration.getLocation());
+				double range = concentration.getConcentration();
+				if (distance < range) {
+					double total = result.getOrDefault(concentration.getMineralType(), 0D)
+							+ (1D - (distance / range)) * concentration.getConcentration();
+					result.put(concentration.getMineralType(), Math.min(total, 100D));
+				}
+			}
+		}
+		return result;
+	}
+
+	private static boolean isInRange(Coordinates start, MineralConcentration concentration, double range) {
+		double distance = Coordinates.computeDistance(start, concentration.getLocation());
+		return range > (distance - concentration.getConcentration());
+	}
+}
@@ -0,0 +1,85 @@
+package org.mars_sim.msp.core.person.ai.mission;
+
+import org.mars_sim.msp.core.Simulation;
+import org.mars_sim.msp.core.SimulationConfig;
+import org.mars_sim.msp.core.structure.MockSettlement;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests when the mission planning context works its values out again.
+ */
+public class TestMissionPlanningContext extends TestCase {
+
+	private static final String NAME = "Value";
+
+	private MissionPlanningContext context;
+	private int calls;
+
+	@Override
+	public void setUp() throws Exception {
+		SimulationConfig.instance().loadConfig();
+		Simulation.instance().testRun();
+		MissionPlanningContext.clear();
+		context = MissionPlanningContext.getContext(new MockSettlement());
+		calls = 0;
+	}
+
+	/**
+	 * A value must be worked out once per pulse.
+	 */
+	public void testKeptWithinPulse() {
+		assertEquals("First", 1D, getValue(1L), 0D);
+		assertEquals("Same pulse", 1D, getValue(1L), 0D);
+		assertEquals("Next pulse", 2D, getValue(2L), 0D);
+
+		assertEquals("Worked out", 2L, MissionPlanningContext.getEvaluations());
+		assertEquals("Saved", 1L, MissionPlanningContext.getSavedEvaluations());
+	}
+
+	/**
+	 * A value must be worked out again once a mission is added or removed.
+	 */
+	public void testInvalidate() {
+		getValue(1L);
+		MissionPlanningContext.invalidate();
+		assertEquals("After invalidate", 2D, getValue(1L), 0D);
+	}
+
+	/**
+	 * A value worked out while a mission is added or removed must not be kept.
+	 */
+	public void testInvalidatedWhileWorkingOut() {
+		double value = context.getValue(NAME, () -> {
+			MissionPlanningContext.invalidate();
+			return ++calls;
+		}, 1L);
+		assertEquals("Returned", 1D, value, 0D);
+		assertEquals("Not kept", 2D, getValue(1L), 0D);
+		assertEquals("Kept", 2D, getValue(1L), 0D);
+	}
+
+	/**
+	 * A value must not be kept without a clock.
+	 */
+	public void testNoClock() {
+		getValue(-1L);
+		assertEquals("Not kept", 2D, getValue(-1L), 0D);
+	}
+
+	/**
+	 * The counters must start again on a clear.
+	 */
+	public void testClearResetsCounters() {
+		getValue(1L);
+		getValue(1L);
+		MissionPlanningContext.clear();
+
+		assertEquals("Worked out", 0L, MissionPlanningContext.getEvaluations());
+		assertEquals("Saved", 0L, MissionPlanningContext.getSavedEvaluations());
+	}
+
+	private double getValue(long pulse) {
+		return context.getValue(NAME, () -> ++calls, pulse);
+	}
+}
@@ -0,0 +1,160 @@
+package org.mars_sim.msp.core.person.ai.mission;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.mars_sim.msp.core.Simulation;
+import org.mars_sim.msp.core.SimulationConfig;
+import org.mars_sim.msp.core.person.ai.mission.TradeMarket.TradeOpportunity;
+import org.mars_sim.msp.core.resource.ResourceUtil;
+import org.mars_sim.msp.core.structure.MockSettlement;
+import org.mars_sim.msp.core.structure.Settlement;
+import org.mars_sim.msp.core.structure.goods.Good;
+import org.mars_sim.msp.core.structure.goods.GoodsUtil;
+import org.mars_sim.msp.core.vehicle.Rover;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests when the trade market works out its trade opportunities again.
+ */
+public class TestTradeMarket extends TestCase {
+
+	private Settlement home;
+	private Settlement away;
+	private Good oxygen;
+	private Good water;
+	private Good methane;
+	private FixedAppraiser appraiser;
+	private TradeMarket market;
+
+	@Override
+	public void setUp() throws Exception {
+		SimulationConfig.instance().loadConfig();
+		Simulation.instance().testRun();
+		home = new MockSettlement();
+		away = new MockSettlement();
+		oxygen = GoodsUtil.getResourceGood(ResourceUtil.oxygenID);
+		water = GoodsUtil.getResourceGood(ResourceUtil.waterID);
+		methane = GoodsUtil.getResourceGood(ResourceUtil.methaneID);
+		appraiser = new FixedAppraiser();
+		market = new TradeMarket(appraiser);
+	}
+
+	/**
+	 * Only the trade opportunities trading a good whose value moved must be
+	 * worked out again.
+	 */
+	public void testInvalidatesOnlyTradedGoods() {
+		market.getBestTradeProfit(home, null);
+		market.getBestTradeProfit(away, null);
+		assertEquals("Worked out", 2L, market.getRefreshCount());
+
+		appraiser.time = TradeMarket.REFRESH_TIME;
+		market.goodsValuesChanged(home, Collections.singletonList(methane));
+		market.getBestTradeProfit(home, null);
+		market.getBestTradeProfit(away, null);
+		assertEquals("Good not traded", 2L, market.getRefreshCount());
+
+		market.goodsValuesChanged(home, Collections.singletonList(oxygen));
+		market.getBestTradeProfit(home, null);
+		market.getBestTradeProfit(away, null);
+		assertEquals("Good traded from home only", 3L, market.getRefreshCount());
+	}
+
+	/**
+	 * A stale trade opportunity must not be worked out again before the refresh
+	 * time, but must be once it is too old.
+	 */
+	public void testRefreshTime() {
+		market.getBestTradeProfit(home, null);
+		market.goodsValuesChanged(home, Collections.singletonList(oxygen));
+
+		appraiser.time = TradeMarket.REFRESH_TIME / 2D;
+		market.getBestTradeProfit(home, null);
+		assertEquals("Too early", 1L, market.getRefreshCount());
+
+		appraiser.time = TradeMarket.REFRESH_TIME;
+		market.getBestTradeProfit(home, null);
+		assertEquals("Stale", 2L, market.getRefreshCount());
+
+		appraiser.time += TradeMarket.MAX_AGE;
+		market.getBestTradeProfit(home, null);
+		assertEquals("Too old", 3L, market.getRefreshCount());
+	}
+
+	/**
+	 * The best trade and the goods values changes must not wait on a trade
+	 * opportunity being worked out.
+	 */
+	public void testReadsWhileWorkingOut() throws Exception {
+		appraiser.entered = new CountDownLatch(1);
+		appraiser.release = new CountDownLatch(1);
+
+		Thread worker = new Thread(() -> market.getBestTradeProfit(home, null));
+		worker.start();
+		assertTrue("Working out", appraiser.entered.await(10, TimeUnit.SECONDS));
+
+		assertNull("Not yet worked out", market.getBestTradeSettlement(home));
+		market.goodsValuesChanged(home, Collections.singletonList(oxygen));
+
+		appraiser.release.countDown();
+		worker.join(10_000L);
+		assertFalse("Done", worker.isAlive());
+		assertEquals("Best trade", away, market.getBestTradeSettlement(home));
+		assertEquals("Best profit", 100D, market.getBestTradeProfit(home), 0D);
+	}
+
+	/**
+	 * A new simulation must not see the trade market of the previous one.
+	 */
+	public void testReset() {
+		TradeMarket first = TradeMarket.getInstance();
+		Simulation.instance().testRun();
+		assertNotSame("New market", first, TradeMarket.getInstance());
+	}
+
+	/**
+	 * Appraises home buying oxygen from away, and away buying water from home.
+	 */
+	private class FixedAppraiser implements TradeMarket.Appraiser {
+
+		private double time;
+		private CountDownLatch entered;
+		private CountDownLatch release;
+
+		@Override
+		public Collection<Settlement> getSettlements() {
+			return Arrays.asList(home, away);
+		}
+
+		@Override
+		public boolean canTrade(Settlement startingSettlement, Settlement tradingSettlement, Rover rover) {
+			return true;
+		}
+
+		@Override
+		public TradeOpportunity appraise(Settlement startingSettlement, Settlement tradingSettlement, Rover rover) {
+			if (entered != null) {
+				entered.countDown();
+				try {
+					release.await(10, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			Map<Good, Integer> buyLoad = Collections.singletonMap((startingSettlement == home) ? oxygen : water, 10);
+			Map<Good, Integer> sellLoad = Collections.emptyMap();
+			return new TradeOpportunity(startingSettlement, tradingSettlement, rover, buyLoad, sellLoad, 100D, time);
+		}
+
+		@Override
+		public double getTime() {
+			return time;
+		}
+	}
+}
@@ -0,0 +1,326 @@
+package org.mars_sim.msp.core.person.ai.social;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.mars_sim.msp.core.Unit;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the relationship matrix within a settlement, across settlements and as
+ * people change settlement, and the size of its save.
+ */
+public class TestRelationshipMatrix extends TestCase {
+
+	private static final int FIRST = Unit.FIRST_PERSON_UNIT_ID;
+
+	private RelationshipMatrix matrix;
+
+	@Override
+	public void setUp() throws Exception {
+		matrix = new RelationshipMatrix();
+	}
+
+	/**
+	 * The opinions within a settlement must be kept by direction, and set only
+	 * between people with a relationship.
+	 */
+	public void testSameSettlement() {
+		for (int i = 0; i < 3; i++) {
+			assertTrue("Added", matrix.addPerson(FIRST + i, 1));
+		}
+		assertFalse("Added twice", matrix.addPerson(FIRST, 1));
+
+		matrix.put(FIRST, FIRST + 1, 60D, 40D);
+		assertEquals("Mine", 60D, matrix.get(FIRST, FIRST + 1), 0D);
+		assertEquals("Theirs", 40D, matrix.get(FIRST + 1, FIRST), 0D);
+		assertTrue("None", Double.isNaN(matrix.get(FIRST, FIRST + 2)));
+
+		matrix.set(FIRST, FIRST + 1, 70D);
+		matrix.set(FIRST, FIRST + 2, 70D);
+		assertEquals("Set", 70D, matrix.get(FIRST, FIRST + 1), 0D);
+		assertTrue("Not set without a relationship", Double.isNaN(matrix.get(FIRST, FIRST + 2)));
+
+		assertTrue("Known", Arrays.equals(new int[] { FIRST + 1 }, matrix.getKnownPeople(FIRST)));
+		assertEquals("Size", 1, matrix.size());
+	}
+
+	/**
+	 * The opinions between people of different settlements, or of none, must be
+	 * kept by pair and found from either person.
+	 */
+	public void testOverflow() {
+		matrix.addPerson(FIRST, 1);
+		matrix.addPerson(FIRST + 1, 2);
+		matrix.addPerson(FIRST + 2, -1);
+		matrix.addPerson(FIRST + 3, 1);
+
+		matrix.put(FIRST + 1, FIRST, 30D, 80D);
+		matrix.put(FIRST, FIRST + 2, 55D, 45D);
+		matrix.put(FIRST, FIRST + 3, 10D, 90D);
+
+		assertEquals("Mine", 30D, matrix.get(FIRST + 1, FIRST), 0D);
+		assertEquals("Theirs", 80D, matrix.get(FIRST, FIRST + 1), 0D);
+		matrix.set(FIRST + 2, FIRST, 65D);
+		assertEquals("Set", 65D, matrix.get(FIRST + 2, FIRST), 0D);
+
+		assertEquals("Known", new TreeSet<>(Arrays.asList(FIRST + 1, FIRST + 2, FIRST + 3)),
+				toSet(matrix.getKnownPeople(FIRST)));
+		assertTrue("Known from the other side", Arrays.equals(new int[] { FIRST }, matrix.getKnownPeople(FIRST + 2)));
+		assertEquals("Size", 3, matrix.size());
+
+		Map<Integer, double[]> visited = new HashMap<>();
+		matrix.visit(FIRST, (otherID, mine, theirs) -> visited.put(otherID, new double[] { mine, theirs }));
+		assertEquals("Visited", 3, visited.size());
+		assertTrue("Visited opinions", Arrays.equals(new double[] { 80D, 30D }, visited.get(FIRST + 1)));
+		assertTrue("Visited block opinions", Arrays.equals(new double[] { 10D, 90D }, visited.get(FIRST + 3)));
+	}
+
+	/**
+	 * A block must keep its opinions when it grows.
+	 */
+	public void testBlockGrows() {
+		int people = 20;
+		for (int i = 0; i < people; i++) {
+			matrix.addPerson(FIRST + i, 1);
+			for (int j = 0; j < i; j++) {
+				matrix.put(FIRST + i, FIRST + j, i, j);
+			}
+		}
+
+		for (int i = 0; i < people; i++) {
+			for (int j = 0; j < i; j++) {
+				assertEquals("Opinion", i, matrix.get(FIRST + i, FIRST + j), 0D);
+				assertEquals("Opinion back", j, matrix.get(FIRST + j, FIRST + i), 0D);
+			}
+			assertEquals("Known", people - 1, matrix.getKnownPeople(FIRST + i).length);
+		}
+		assertEquals("Size", people * (people - 1) / 2, matrix.size());
+	}
+
+	/**
+	 * A person changing settlement must keep all its opinions, and its old slot
+	 * must come back free.
+	 */
+	public void testChangeSettlement() {
+		matrix.addPerson(FIRST, 1);
+		matrix.addPerson(FIRST + 1, 1);
+		matrix.addPerson(FIRST + 2, 2);
+		matrix.put(FIRST, FIRST + 1, 20D, 30D);
+		matrix.put(FIRST, FIRST + 2, 40D, 50D);
+
+		assertFalse("Same settlement", matrix.setSettlement(FIRST, 1));
+		assertTrue("Moved", matrix.setSettlement(FIRST, 2));
+		assertEquals("Left behind", 20D, matrix.get(FIRST, FIRST + 1), 0D);
+		assertEquals("Left behind back", 30D, matrix.get(FIRST + 1, FIRST), 0D);
+		assertEquals("Joined", 40D, matrix.get(FIRST, FIRST + 2), 0D);
+		assertEquals("Joined back", 50D, matrix.get(FIRST + 2, FIRST), 0D);
+		assertEquals("Size", 2, matrix.size());
+
+		// The new person takes the freed slot and must not inherit its opinions
+		matrix.addPerson(FIRST + 3, 1);
+		assertTrue("Fresh slot", Double.isNaN(matrix.get(FIRST + 3, FIRST + 1)));
+		assertTrue("Fresh slot back", Double.isNaN(matrix.get(FIRST + 1, FIRST + 3)));
+		assertTrue("Known", Arrays.equals(new int[] { FIRST }, matrix.getKnownPeople(FIRST + 1)));
+
+		assertTrue("Moved out", matrix.setSettlement(FIRST + 2, -1));
+		assertEquals("No settlement", 40D, matrix.get(FIRST, FIRST + 2), 0D);
+		assertFalse("Not added", matrix.setSettlement(FIRST + 10, 1));
+	}
+
+	/**
+	 * The matrix must give what a map of the pairs gives as people meet, change
+	 * their opinions and move between settlements.
+	 */
+	public void testMatchesMap() {
+		int people = 40;
+		Random random = new Random(42L);
+		Map<Long, double[]> expected = new HashMap<>();
+		for (int i = 0; i < people; i++) {
+			matrix.addPerson(FIRST + i, random.nextInt(5) - 1);
+		}
+
+		for (int op = 0; op < 5_000; op++) {
+			int a = FIRST + random.nextInt(people);
+			int b = FIRST + random.nextInt(people);
+			switch (random.nextInt(4)) {
+			case 0:
+				if (a != b) {
+					double opinion1 = random.nextInt(100);
+					double opinion2 = random.nextInt(100);
+					matrix.put(a, b, opinion1, opinion2);
+					expected.put(key(a, b), (a < b) ? new double[] { opinion1, opinion2 }
+							: new double[] { opinion2, opinion1 });
+				}
+				break;
+			case 1:
+				if (a != b) {
+					double opinion = random.nextInt(100);
+					matrix.set(a, b, opinion);
+					double[] pair = expected.get(key(a, b));
+					if (pair != null)
+						pair[(a < b) ? 0 : 1] = opinion;
+				}
+				break;
+			case 2:
+				matrix.setSettlement(a, random.nextInt(5) - 1);
+				break;
+			default:
+				if (a != b) {
+					double[] pair = expected.get(key(a, b));
+					double opinion = (pair == null) ? Double.NaN : pair[(a < b) ? 0 : 1];
+					assertEquals("Opinion", opinion, matrix.get(a, b), 0D);
+				}
+			}
+		}
+
+		for (int i = 0; i < people; i++) {
+			TreeSet<Integer> known = new TreeSet<>();
+			for (Long pairKey : expected.keySet()) {
+				int low = (int) (pairKey >>> 32);
+				int high = (int) pairKey.longValue();
+				if (low == FIRST + i)
+					known.add(high);
+				else if (high == FIRST + i)
+					known.add(low);
+			}
+			assertEquals("Known", known, toSet(matrix.getKnownPeople(FIRST + i)));
+		}
+		assertEquals("Size", expected.size(), matrix.size());
+	}
+
+	/**
+	 * The save of a settlement must be the opinions as floats, smaller than the
+	 * same opinions kept by pair, and must load back.
+	 */
+	public void testSerializedSize() throws Exception {
+		int people = 100;
+		Map<Long, float[]> pairs = new HashMap<>();
+		for (int i = 0; i < people; i++) {
+			matrix.addPerson(FIRST + i, 1);
+			for (int j = 0; j < i; j++) {
+				matrix.put(FIRST + i, FIRST + j, i, j);
+				pairs.put(key(FIRST + j, FIRST + i), new float[] { j, i });
+			}
+		}
+
+		byte[] bytes = serialize(matrix);
+		// 128 slots of 4 byte opinions, with room for the rest
+		assertTrue("Matrix size " + bytes.length, bytes.length < 128 * 128 * 4 + 4096);
+		assertTrue("Smaller than by pair", bytes.length * 2 < serialize((Serializable) pairs).length);
+
+		RelationshipMatrix loaded;
+		try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+			loaded = (RelationshipMatrix) in.readObject();
+		}
+		assertEquals("Loaded size", matrix.size(), loaded.size());
+		assertEquals("Loaded opinion", 99D, loaded.get(FIRST + 99, FIRST + 3), 0D);
+		assertTrue("Loaded person", loaded.hasPerson(FIRST + 99));
+	}
+
+	/**
+	 * Threads working on their own people must each see their own opinions
+	 * while the others use and leave the same blocks.
+	 */
+	public void testConcurrentSettlements() throws Exception {
+		int threads = 4;
+		int people = 12;
+		for (int t = 0; t < threads; t++) {
+			for (int i = 0; i < people; i++) {
+				matrix.addPerson(FIRST + t * people + i, t);
+			}
+		}
+
+		List<Map<Long, double[]>> expected = new ArrayList<>();
+		List<Thread> workers = new ArrayList<>();
+		AtomicReference<Throwable> failure = new AtomicReference<>();
+		for (int t = 0; t < threads; t++) {
+			int first = FIRST + t * people;
+			int home = t;
+			Map<Long, double[]> pairs = new HashMap<>();
+			expected.add(pairs);
+			Thread worker = new Thread(() -> {
+				Random random = new Random(home);
+				for (int op = 0; op < 20_000; op++) {
+					int a = first + random.nextInt(people);
+					int b = first + random.nextInt(people);
+					if (a == b)
+						continue;
+					switch (random.nextInt(4)) {
+					case 0:
+						double opinion1 = random.nextInt(100);
+						double opinion2 = random.nextInt(100);
+						matrix.put(a, b, opinion1, opinion2);
+						pairs.put(key(a, b), (a < b) ? new double[] { opinion1, opinion2 }
+								: new double[] { opinion2, opinion1 });
+						break;
+					case 1:
+						double opinion = random.nextInt(100);
+						matrix.set(a, b, opinion);
+						double[] pair = pairs.get(key(a, b));
+						if (pair != null)
+							pair[(a < b) ? 0 : 1] = opinion;
+						break;
+					case 2:
+						// Some move to a settlement all the threads share
+						matrix.setSettlement(a, random.nextBoolean() ? home : threads);
+						break;
+					default:
+						double[] known = pairs.get(key(a, b));
+						double value = (known == null) ? Double.NaN : known[(a < b) ? 0 : 1];
+						if (Double.compare(value, matrix.get(a, b)) != 0)
+							failure.compareAndSet(null, new AssertionError("Opinion of " + a + " of " + b));
+					}
+				}
+			});
+			worker.setUncaughtExceptionHandler((thread, e) -> failure.compareAndSet(null, e));
+			workers.add(worker);
+			worker.start();
+		}
+		for (Thread worker : workers) {
+			worker.join();
+		}
+
+		assertNull("Failure " + failure.get(), failure.get());
+		int size = 0;
+		for (Map<Long, double[]> pairs : expected) {
+			size += pairs.size();
+		}
+		assertEquals("Size", size, matrix.size());
+	}
+
+	private static byte[] serialize(Serializable object) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+			out.writeObject(object);
+		}
+		return bytes.toByteArray();
+	}
+
+	private static long key(int personID1, int personID2) {
+		long low = Math.min(personID1, personID2);
+		long high = Math.max(personID1, personID2);
+		return (low << 32) | high;
+	}
+
+	private static TreeSet<Integer> toSet(int[] ids) {
+		TreeSet<Integer> result = new TreeSet<>();
+		for (int id : ids) {
+			result.add(id);
+		}
+		return result;
+	}
+}
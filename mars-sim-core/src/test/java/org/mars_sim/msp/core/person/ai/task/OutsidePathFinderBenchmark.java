@@ -0,0 +1,265 @@
+/**
+ * Mars Simulation Project
+ * OutsidePathFinderBenchmark.java
+ * @version 3.1.2 2026-10-17
+ * @author agent
+ */
+package org.mars_sim.msp.core.person.ai.task;
+
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Area;
+import java.awt.geom.Line2D;
+import java.awt.geom.Path2D;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.mars_sim.msp.core.person.ai.task.OutsidePathFinderTest.Obstacle;
+
+/**
+ * Compares the time taken and the length of the paths found by the
+ * OutsidePathFinder with the A* search WalkOutside used to run, i.e. a linear
+ * scan of a Point2D open set with a java.awt.geom.Area collision check for
+ * every edge, on randomly laid out settlements. Run with
+ * <pre>
+ * java org.mars_sim.msp.core.person.ai.task.OutsidePathFinderBenchmark [settlements] [buildings] [walks]
+ * </pre>
+ */
+public class OutsidePathFinderBenchmark {
+
+	private static final double STEP = WalkOutside.NEIGHBOR_DISTANCE;
+
+	public static void main(String[] args) {
+		int settlements = (args.length > 0) ? Integer.parseInt(args[0]) : 20;
+		int buildings = (args.length > 1) ? Integer.parseInt(args[1]) : 40;
+		int walks = (args.length > 2) ? Integer.parseInt(args[2]) : 20;
+
+		Random random = new Random(42L);
+		long oldNanos = 0;
+		long newNanos = 0;
+		double oldLength = 0D;
+		double newLength = 0D;
+		int paths = 0;
+		int oldOnly = 0;
+		int newOnly = 0;
+		int blocked = 0;
+
+		for (int s = 0; s < settlements; s++) {
+			List<Obstacle> obstacles = createSettlement(random, buildings);
+			Area area = createArea(obstacles);
+
+			for (int w = 0; w < walks; w++) {
+				Point2D start = getFreeLocation(random, area);
+				Point2D end = getFreeLocation(random, area);
+				if (isLineFree(area, start, end)) {
+					// WalkOutside walks straight there without a search
+					continue;
+				}
+
+				long t0 = System.nanoTime();
+				List<Point2D> oldPath = new ReferencePathFinder(obstacles, area, start, end).findPath();
+				long t1 = System.nanoTime();
+				List<Point2D> newPath = new OutsidePathFinder(obstacles, start.getX(), start.getY(), end.getX(),
+						end.getY()).findPath();
+				long t2 = System.nanoTime();
+				oldNanos += t1 - t0;
+				newNanos += t2 - t1;
+
+				if (oldPath != null && newPath != null) {
+					paths++;
+					oldLength += getLength(oldPath);
+					newLength += getLength(newPath);
+					for (int i = 1; i < newPath.size(); i++) {
+						if (!isLineFree(area, newPath.get(i - 1), newPath.get(i))) {
+							blocked++;
+						}
+					}
+				} else if (oldPath != null) {
+					oldOnly++;
+				} else if (newPath != null) {
+					newOnly++;
+				}
+			}
+		}
+
+		System.out.println(String.format("Paths found by both : %d, by the old search only : %d, by the new one only : %d",
+				paths, oldOnly, newOnly));
+		System.out.println(String.format("Old search : %8.1f ms, mean path %6.1f m", oldNanos / 1e6,
+				oldLength / Math.max(1, paths)));
+		System.out.println(String.format("New search : %8.1f ms, mean path %6.1f m", newNanos / 1e6,
+				newLength / Math.max(1, paths)));
+		System.out.println("Segments of the new paths blocked by the Area check : " + blocked);
+	}
+
+	/**
+	 * Lays out buildings of random size and facing around the settlement center.
+	 */
+	private static List<Obstacle> createSettlement(Random random, int buildings) {
+		List<Obstacle> result = new ArrayList<>();
+		double radius = 10D * Math.sqrt(buildings);
+		for (int i = 0; i < buildings; i++) {
+			double x = (random.nextDouble() * 2D - 1D) * radius;
+			double y = (random.nextDouble() * 2D - 1D) * radius;
+			double width = 5D + random.nextDouble() * 10D;
+			double length = 5D + random.nextDouble() * 20D;
+			double facing = random.nextInt(4) * 90D + (random.nextBoolean() ? 0D : random.nextDouble() * 90D);
+			result.add(new Obstacle(x, y, width, length, facing));
+		}
+		return result;
+	}
+
+	private static Area createArea(List<Obstacle> obstacles) {
+		Area result = new Area();
+		for (Obstacle o : obstacles) {
+			Rectangle2D rect = new Rectangle2D.Double(o.getXLocation() - (o.getWidth() / 2D),
+					o.getYLocation() - (o.getLength() / 2D), o.getWidth(), o.getLength());
+			AffineTransform at = AffineTransform.getRotateInstance(Math.toRadians(o.getFacing()), rect.getCenterX(),
+					rect.getCenterY());
+			result.add(new Area(new Path2D.Double(rect, at)));
+		}
+		return result;
+	}
+
+	private static Point2D getFreeLocation(Random random, Area area) {
+		Rectangle2D bounds = area.getBounds2D();
+		while (true) {
+			double x = bounds.getMinX() + random.nextDouble() * bounds.getWidth();
+			double y = bounds.getMinY() + random.nextDouble() * bounds.getHeight();
+			if (!area.contains(x, y)) {
+				return new Point2D.Double(x, y);
+			}
+		}
+	}
+
+	/**
+	 * Checks a line as LocalAreaUtil.isLinePathCollisionFree does, with a 1 mm
+	 * wide rectangle.
+	 */
+	private static boolean isLineFree(Area area, Point2D a, Point2D b) {
+		Line2D line = new Line2D.Double(a, b);
+		double length = a.distance(b);
+		Rectangle2D lineRect = new Rectangle2D.Double((a.getX() + b.getX()) / 2D - .0005D,
+				(a.getY() + b.getY()) / 2D - length / 2D, .001D, length);
+		double facing = Math.atan2(line.getX1() - line.getX2(), line.getY2() - line.getY1());
+		AffineTransform at = AffineTransform.getRotateInstance(facing, lineRect.getCenterX(), lineRect.getCenterY());
+		Path2D path = new Path2D.Double(lineRect, at);
+		if (!path.getBounds2D().intersects(area.getBounds2D())) {
+			return true;
+		}
+		Area pathArea = new Area(path);
+		pathArea.intersect(area);
+		return pathArea.isEmpty();
+	}
+
+	private static double getLength(List<Point2D> path) {
+		double result = 0D;
+		for (int i = 1; i < path.size(); i++) {
+			result += path.get(i - 1).distance(path.get(i));
+		}
+		return result;
+	}
+
+	/**
+	 * The A* search as WalkOutside used to run it.
+	 */
+	private static class ReferencePathFinder {
+		private Area area;
+		private Point2D start;
+		private Point2D end;
+		private double[] limits;
+
+		private ReferencePathFinder(List<Obstacle> obstacles, Area area, Point2D start, Point2D end) {
+			this.area = area;
+			this.start = start;
+			this.end = end;
+			limits = OutsidePathFinder.getSearchLimits(obstacles, start.getX(), start.getY(), end.getX(), end.getY());
+		}
+
+		private List<Point2D> findPath() {
+			Set<Point2D> closedSet = new HashSet<>();
+			Set<Point2D> openSet = new HashSet<>();
+			openSet.add(start);
+			Map<Point2D, Point2D> cameFrom = new HashMap<>();
+
+			while (openSet.size() > 0) {
+				Point2D currentLoc = null;
+				double lowestFScore = Double.POSITIVE_INFINITY;
+				for (Point2D loc : openSet) {
+					double fScore = start.distance(loc) + loc.distance(end);
+					if (fScore < lowestFScore) {
+						currentLoc = loc;
+						lowestFScore = fScore;
+					}
+				}
+
+				if (isLineFree(area, currentLoc, end)) {
+					List<Point2D> path = new ArrayList<>();
+					path.add(end);
+					path.add(0, currentLoc);
+					Point2D loc = currentLoc;
+					while (cameFrom.containsKey(loc)) {
+						Point2D from = cameFrom.remove(loc);
+						path.add(0, from);
+						loc = from;
+					}
+					return optimizePath(path);
+				}
+
+				openSet.remove(currentLoc);
+				closedSet.add(currentLoc);
+
+				double currentGScore = start.distance(currentLoc);
+				for (Point2D neighborLoc : getNeighbors(currentLoc)) {
+					if (closedSet.contains(neighborLoc)) {
+						continue;
+					}
+					double tentativeGScore = currentGScore + STEP;
+					if ((!openSet.contains(neighborLoc) || (tentativeGScore < start.distance(neighborLoc)))
+							&& isWithinLimits(neighborLoc)) {
+						cameFrom.put(neighborLoc, currentLoc);
+						openSet.add(neighborLoc);
+					}
+				}
+			}
+			return null;
+		}
+
+		private Set<Point2D> getNeighbors(Point2D loc) {
+			Set<Point2D> result = new HashSet<>(8);
+			Point2D[] next = { new Point2D.Double(loc.getX(), loc.getY() + STEP),
+					new Point2D.Double(loc.getX() - STEP, loc.getY()),
+					new Point2D.Double(loc.getX(), loc.getY() - STEP),
+					new Point2D.Double(loc.getX() + STEP, loc.getY()) };
+			for (Point2D n : next) {
+				if (isLineFree(area, loc, n)) {
+					result.add(n);
+				}
+			}
+			return result;
+		}
+
+		private boolean isWithinLimits(Point2D loc) {
+			return loc.getX() <= limits[0] && loc.getX() >= limits[1] && loc.getY() <= limits[2]
+					&& loc.getY() >= limits[3];
+		}
+
+		private List<Point2D> optimizePath(List<Point2D> path) {
+			List<Point2D> result = new ArrayList<>(path);
+			int i = 1;
+			while (i < result.size() - 1) {
+				if (isLineFree(area, result.get(i - 1), result.get(i + 1))) {
+					result.remove(i);
+				} else {
+					i++;
+				}
+			}
+			return result;
+		}
+	}
+}
@@ -0,0 +1,90 @@
+package org.mars_sim.msp.core.person.ai.task;
+
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.mars_sim.msp.core.LocalBoundedObject;
+
+import junit.framework.TestCase;
+
+/**
+ * A unit test suite for the OutsidePathFinder class.
+ */
+public class OutsidePathFinderTest extends TestCase {
+
+	/**
+	 * A rectangle obstacle for the tests.
+	 */
+	static class Obstacle implements LocalBoundedObject {
+		private double x;
+		private double y;
+		private double width;
+		private double length;
+		private double facing;
+
+		Obstacle(double x, double y, double width, double length, double facing) {
+			this.x = x;
+			this.y = y;
+			this.width = width;
+			this.length = length;
+			this.facing = facing;
+		}
+
+		public double getXLocation() {
+			return x;
+		}
+
+		public double getYLocation() {
+			return y;
+		}
+
+		public double getWidth() {
+			return width;
+		}
+
+		public double getLength() {
+			return length;
+		}
+
+		public double getFacing() {
+			return facing;
+		}
+	}
+
+	/**
+	 * Check the line tests against a rotated obstacle.
+	 */
+	public void testIsLineFree() {
+		List<Obstacle> obstacles = new ArrayList<>();
+		// A 2 m x 20 m wall turned to lie along the X axis
+		obstacles.add(new Obstacle(0D, 0D, 2D, 20D, 90D));
+		OutsidePathFinder finder = new OutsidePathFinder(obstacles, 0D, -10D, 0D, 10D);
+
+		assertFalse(finder.isLineFree(0D, -10D, 0D, 10D));
+		assertFalse(finder.isLineFree(9D, -10D, 9D, 10D));
+		assertTrue(finder.isLineFree(11D, -10D, 11D, 10D));
+		assertTrue(finder.isLineFree(-20D, 2D, 20D, 2D));
+		assertFalse(finder.isLineFree(-20D, 0.5D, 20D, 0.5D));
+	}
+
+	/**
+	 * Check the path around a wall between start and destination.
+	 */
+	public void testFindPath() {
+		List<Obstacle> obstacles = new ArrayList<>();
+		obstacles.add(new Obstacle(0D, 0D, 2D, 20D, 90D));
+		OutsidePathFinder finder = new OutsidePathFinder(obstacles, 0D, -10D, 0D, 10D);
+
+		List<Point2D> path = finder.findPath();
+		assertNotNull(path);
+		assertTrue(path.size() > 2);
+		assertEquals(new Point2D.Double(0D, -10D), path.get(0));
+		assertEquals(new Point2D.Double(0D, 10D), path.get(path.size() - 1));
+		for (int i = 1; i < path.size(); i++) {
+			Point2D a = path.get(i - 1);
+			Point2D b = path.get(i);
+			assertTrue(finder.isLineFree(a.getX(), a.getY(), b.getX(), b.getY()));
+		}
+	}
+}
@@ -0,0 +1,61 @@
+package org.mars_sim.msp.core.person.ai.task.utils;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the Fenwick tree of task probability weights.
+ */
+public class TestTaskWeights extends TestCase {
+
+	/**
+	 * A task must be picked when the random number falls into its weight.
+	 */
+	public void testFind() {
+		TaskWeights weights = new TaskWeights(5);
+		assertEquals("No task", -1, weights.find(0D));
+
+		weights.set(0, 1D);
+		weights.set(2, 2D);
+		weights.set(4, 3D);
+		assertEquals("Total", 6D, weights.getTotal(), 0D);
+
+		assertEquals("First task", 0, weights.find(0D));
+		assertEquals("First task end", 0, weights.find(0.99D));
+		assertEquals("Middle task", 2, weights.find(1D));
+		assertEquals("Middle task end", 2, weights.find(2.99D));
+		assertEquals("Last task", 4, weights.find(3D));
+		assertEquals("Past the end", 4, weights.find(6D));
+	}
+
+	/**
+	 * Changing a weight must move the tasks after it.
+	 */
+	public void testSet() {
+		TaskWeights weights = new TaskWeights(3);
+		weights.set(0, 1D);
+		weights.set(1, 1D);
+		weights.set(2, 1D);
+
+		weights.set(1, 0D);
+		assertEquals("Total", 2D, weights.getTotal(), 0D);
+		assertEquals("Skips task without weight", 2, weights.find(1.5D));
+
+		weights.set(0, 4D);
+		assertEquals("Grown task", 0, weights.find(3.5D));
+		assertEquals("Moved task", 2, weights.find(4.5D));
+
+		weights.clear();
+		assertTrue("Cleared", weights.isEmpty());
+		assertEquals("Cleared weight", 0D, weights.get(0), 0D);
+	}
+
+	/**
+	 * The bucket of a time must be the number of its bits above 256 ns.
+	 */
+	public void testProfilerBucket() {
+		assertEquals(0, MetaTaskProfiler.getBucket(100));
+		assertEquals(1, MetaTaskProfiler.getBucket(300));
+		assertEquals(2, MetaTaskProfiler.getBucket(600));
+		assertEquals(MetaTaskProfiler.BUCKETS - 1, MetaTaskProfiler.getBucket(Long.MAX_VALUE));
+	}
+}
@@ -0,0 +1,137 @@
+package org.mars_sim.msp.core.resource;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the dense resource tables and caches used by the Inventory.
+ */
+public class TestResourceTable extends TestCase {
+
+	private static final int FIRST = ResourceUtil.FIRST_AMOUNT_RESOURCE_ID;
+
+	/**
+	 * A table must behave like the boxed map it replaces.
+	 */
+	public void testTableLikeMap() {
+		ResourceTable table = new ResourceTable(FIRST, 4, false);
+		assertEquals("Empty size", 0, table.size());
+		assertEquals("Missing value", 0D, table.get(FIRST + 2), 0D);
+		assertFalse(table.containsKey(FIRST + 2));
+
+		table.put(FIRST + 2, 0D);
+		assertTrue("Recorded", table.containsKey(FIRST + 2));
+		table.add(FIRST, 1.5D);
+		table.add(FIRST, 2.5D);
+		assertEquals("Added value", 4D, table.get(FIRST), 0D);
+		assertEquals("Size", 2, table.size());
+
+		// Beyond the expected size
+		table.put(FIRST + 100, 7D);
+		assertEquals("Grown value", 7D, table.get(FIRST + 100), 0D);
+		assertEquals("Kept value", 4D, table.get(FIRST), 0D);
+		assertEquals("Grown size", 3, table.size());
+
+		table.divideAll(2);
+		assertEquals("Divided value", 2D, table.get(FIRST), 0D);
+
+		table.clear();
+		assertEquals("Cleared size", 0, table.size());
+		assertEquals("Cleared value", 0D, table.get(FIRST + 100), 0D);
+	}
+
+	/**
+	 * Adds made at once from several threads must all be counted, also while
+	 * the table grows under a reader.
+	 */
+	public void testTableConcurrentAdds() throws InterruptedException {
+		final ResourceTable table = new ResourceTable(FIRST, 1, false);
+		final int adds = 100_000;
+
+		Thread[] threads = new Thread[4];
+		for (int t = 0; t < threads.length; t++) {
+			final int offset = t * 50;
+			threads[t] = new Thread(() -> {
+				for (int i = 0; i < adds; i++) {
+					table.add(FIRST, 1D);
+					// Grows the table while the others add
+					table.add(FIRST + offset + i % 50, 0D);
+				}
+			});
+			threads[t].start();
+		}
+		for (Thread t : threads) {
+			t.join();
+		}
+
+		assertEquals("Every add counted", (double) adds * threads.length, table.get(FIRST), 0D);
+		assertEquals("Size", 200, table.size());
+	}
+
+	/**
+	 * Counts must be divided as integers like a Map<Integer, Integer>.
+	 */
+	public void testIntegralDivide() {
+		ResourceTable table = new ResourceTable(ResourceUtil.FIRST_ITEM_RESOURCE_ID, 2, true);
+		table.add(ResourceUtil.FIRST_ITEM_RESOURCE_ID, 7);
+		table.divideAll(2);
+		assertEquals("Divided count", 3D, table.get(ResourceUtil.FIRST_ITEM_RESOURCE_ID), 0D);
+	}
+
+	/**
+	 * A cache value must only be clean once it has been set, and until it is
+	 * marked dirty again.
+	 */
+	public void testCacheDirtyBits() {
+		ResourceCache cache = new ResourceCache(FIRST, 70);
+		assertTrue("New value dirty", cache.isDirty(FIRST + 65));
+
+		cache.set(FIRST + 65, 3D);
+		cache.set(FIRST + 1, 5D);
+		assertFalse(cache.isDirty(FIRST + 65));
+		assertEquals("Cached value", 3D, cache.get(FIRST + 65), 0D);
+
+		cache.setDirty(FIRST + 65);
+		assertTrue("Marked dirty", cache.isDirty(FIRST + 65));
+		assertFalse(cache.isDirty(FIRST + 1));
+		assertEquals("Dirty value kept", 3D, cache.get(FIRST + 65), 0D);
+
+		cache.setAllDirty();
+		assertTrue("All dirty", cache.isDirty(FIRST + 1));
+
+		// An id never seen is dirty and can still be cached
+		assertTrue("Unknown id dirty", cache.isDirty(FIRST + 500));
+		cache.set(FIRST + 500, 1D);
+		assertFalse(cache.isDirty(FIRST + 500));
+		assertEquals("Grown value", 1D, cache.get(FIRST + 500), 0D);
+		assertEquals("Value kept on growing", 5D, cache.get(FIRST + 1), 0D);
+	}
+
+	/**
+	 * Adds made at once from several threads must all be counted.
+	 */
+	public void testCacheConcurrentAdds() throws InterruptedException {
+		final ResourceCache cache = new ResourceCache(FIRST, 4);
+		final int adds = 100_000;
+		cache.set(FIRST + 1, 0D);
+
+		Thread[] threads = new Thread[4];
+		for (int t = 0; t < threads.length; t++) {
+			threads[t] = new Thread(() -> {
+				for (int i = 0; i < adds; i++) {
+					cache.addIfClean(FIRST + 1, 1D);
+				}
+			});
+			threads[t].start();
+		}
+		for (Thread t : threads) {
+			t.join();
+		}
+
+		assertFalse(cache.isDirty(FIRST + 1));
+		assertEquals("Every add counted", (double) adds * threads.length, cache.get(FIRST + 1), 0D);
+
+		cache.setDirty(FIRST + 1);
+		cache.addIfClean(FIRST + 1, 1D);
+		assertEquals("Dirty value left alone", (double) adds * threads.length, cache.get(FIRST + 1), 0D);
+	}
+}
@@ -0,0 +1,129 @@
+/**
+ * Mars Simulation Project
+ * EnergyModelBenchmark.java
+ * @version 3.1.2 2026-10-17
+ * @author agent
+ */
+package org.mars_sim.msp.core.structure;
+
+import java.util.List;
+
+import org.mars_sim.msp.core.Simulation;
+import org.mars_sim.msp.core.SimulationConfig;
+import org.mars_sim.msp.core.structure.building.Building;
+import org.mars_sim.msp.core.structure.building.BuildingManager;
+import org.mars_sim.msp.core.structure.building.function.FunctionType;
+import org.mars_sim.msp.core.structure.building.function.ThermalGeneration;
+
+/**
+ * Compares the time taken to work out the totals of the power grid and the
+ * thermal system of a pulse with the EnergyModel with the walk over the
+ * buildings and their functions the PowerGrid and the ThermalSystem used to
+ * make, i.e. one pass per total over the lists of buildings by function. The
+ * buildings write their state in the model as it changes, so a pulse of the
+ * model is the solve alone. The buildings are those of the
+ * settlement templates, built on a mock settlement. Run with
+ * <pre>
+ * java org.mars_sim.msp.core.structure.EnergyModelBenchmark [pulses]
+ * </pre>
+ */
+public class EnergyModelBenchmark {
+
+	/** Keeps the totals not otherwise used from being optimized away. */
+	private static double sink;
+
+	public static void main(String[] args) {
+		int pulses = (args.length > 0) ? Integer.parseInt(args[0]) : 20_000;
+
+		SimulationConfig.instance().loadConfig();
+		Simulation.instance().testRun();
+
+		long pulseId = 0;
+		for (SettlementTemplate template : SimulationConfig.instance().getSettlementConfiguration()
+				.getSettlementTemplates()) {
+			Settlement settlement = new MockSettlement();
+			BuildingManager manager = settlement.getBuildingManager();
+			for (BuildingTemplate buildingTemplate : template.getBuildingTemplates()) {
+				manager.addBuilding(buildingTemplate, false);
+			}
+			EnergyModel model = manager.getEnergyModel();
+
+			// Warm up both before timing
+			for (int p = 0; p < pulses / 10; p++) {
+				walkPulse(manager);
+				model.update(manager.getBuildings(), pulseId++);
+			}
+
+			long t0 = System.nanoTime();
+			double[] walk = null;
+			for (int p = 0; p < pulses; p++) {
+				walk = walkPulse(manager);
+			}
+			long t1 = System.nanoTime();
+			for (int p = 0; p < pulses; p++) {
+				model.update(manager.getBuildings(), pulseId++);
+				sink += model.getGeneratedPower() + model.getFullPowerRequired() + model.getStoredEnergy()
+						+ model.getStorageCapacity() + model.getGeneratedHeat() + model.getThermalPower();
+			}
+			long t2 = System.nanoTime();
+
+			double diff = Math.abs(walk[0] - model.getGeneratedPower())
+					+ Math.abs(walk[1] - model.getFullPowerRequired() - model.getPoweredDownPowerRequired())
+					+ Math.abs(walk[2] - model.getStoredEnergy()) + Math.abs(walk[3] - model.getStorageCapacity())
+					+ Math.abs(walk[4] - model.getGeneratedHeat());
+
+			System.out.println(template.getTemplateName() + " (" + model.size() + " buildings)");
+			System.out.println("  Object walk  : " + Math.round((t1 - t0) / (double) pulses) + " ns per pulse");
+			System.out.println("  Energy model : " + Math.round((t2 - t1) / (double) pulses) + " ns per pulse");
+			System.out.println("  Speed up     : " + Math.round((t1 - t0) * 100D / (t2 - t1)) / 100D + "x");
+			System.out.println("  Totals difference : " + diff);
+		}
+		System.out.println(sink);
+	}
+
+	/**
+	 * The totals of the old power grid and thermal system: a walk over the
+	 * buildings, or the buildings of a function, for each of them.
+	 *
+	 * @return the power generated, the power required, the energy stored, the
+	 *         storage capacity and the heat generated.
+	 */
+	private static double[] walkPulse(BuildingManager manager) {
+		double generated = 0D;
+		for (Building b : manager.getBuildings(FunctionType.POWER_GENERATION)) {
+			generated += b.getPowerGeneration().getGeneratedPower();
+		}
+
+		double required = 0D;
+		for (Building b : manager.getBuildings()) {
+			required += b.getFullPowerRequired();
+			required += b.getPoweredDownPowerRequired();
+		}
+
+		double stored = 0D;
+		for (Building b : manager.getBuildings(FunctionType.POWER_STORAGE)) {
+			stored += b.getPowerStorage().getkWattHourStored();
+		}
+
+		double capacity = 0D;
+		for (Building b : manager.getBuildings(FunctionType.POWER_STORAGE)) {
+			capacity += b.getPowerStorage().getCurrentMaxCapacity();
+		}
+
+		double heat = 0D;
+		for (Building b : manager.getBuildings(FunctionType.THERMAL_GENERATION)) {
+			heat += b.getThermalGeneration().getGeneratedHeat();
+		}
+
+		double heatPower = 0D;
+		for (Building b : manager.getBuildings(FunctionType.POWER_GENERATION)) {
+			ThermalGeneration gen = b.getThermalGeneration();
+			if (gen == null)
+				break;
+			heatPower += gen.getGeneratedPower();
+		}
+
+		sink += heatPower;
+		return new double[] { generated, required, stored, capacity, heat };
+	}
+}
@@ -0,0 +1,178 @@
+package org.mars_sim.msp.core.structure;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.mars_sim.msp.core.Simulation;
+import org.mars_sim.msp.core.SimulationConfig;
+import org.mars_sim.msp.core.structure.building.Building;
+import org.mars_sim.msp.core.structure.building.MockBuilding;
+import org.mars_sim.msp.core.structure.building.function.PowerMode;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the battery charge and discharge and the load shedding of the energy
+ * model.
+ */
+public class TestEnergyModel extends TestCase {
+
+	private static final double TIME = 10D;
+	private static final double HOURS = TIME * PowerGrid.HOURS_PER_MILLISOL;
+
+	private static final double CAPACITY = 100D;
+	private static final double VOLTAGE = 375D;
+	private static final double RESISTANCE = 624D;
+	private static final double AMP_HOURS = 416D;
+
+	@Override
+	public void setUp() throws Exception {
+		SimulationConfig.instance().loadConfig();
+		Simulation.instance().testRun();
+	}
+
+	/**
+	 * The excess energy must go to the batteries in building order, and skip a
+	 * full one.
+	 */
+	public void testCharge() {
+		EnergyModel model = createBatteries(CAPACITY, 10D, 20D);
+		double first = EnergyModel.getChargeEnergy(10D, CAPACITY, VOLTAGE, RESISTANCE, AMP_HOURS, 1D, 100D, HOURS);
+		double second = EnergyModel.getChargeEnergy(20D, CAPACITY, VOLTAGE, RESISTANCE, AMP_HOURS, 1D, 100D - first,
+				HOURS);
+
+		double stored = model.charge(100D, TIME);
+
+		assertTrue("Charged", first > 0D && second > 0D);
+		assertEquals("Stored", first + second, stored, 1E-9);
+		assertEquals("Total", CAPACITY + 30D + stored, model.getStoredEnergy(), 1E-9);
+	}
+
+	/**
+	 * The excess energy must be bounded by what is offered.
+	 */
+	public void testChargeBoundedByExcess() {
+		EnergyModel model = createBatteries(CAPACITY, 10D, 20D);
+
+		double stored = model.charge(.001D, TIME);
+
+		assertEquals("Stored", .001D, stored, 1E-12);
+	}
+
+	/**
+	 * The discharge must stop once the energy needed is met.
+	 */
+	public void testDischargeStopsWhenMet() {
+		EnergyModel model = createBatteries(CAPACITY, 80D, 80D);
+		double needed = EnergyModel.getDischargeEnergy(80D, CAPACITY, VOLTAGE, RESISTANCE, AMP_HOURS, 1D, 1000D,
+				HOURS) / 2D;
+
+		double retrieved = model.discharge(needed, TIME);
+
+		assertEquals("Retrieved", needed, retrieved, 1E-9);
+		assertEquals("Total", CAPACITY + 160D - needed, model.getStoredEnergy(), 1E-9);
+	}
+
+	/**
+	 * The discharge must take what the batteries can give when they cannot
+	 * meet the need.
+	 */
+	public void testDischargeShort() {
+		EnergyModel model = createBatteries(CAPACITY, 5D, 0D);
+
+		double retrieved = model.discharge(1000D, TIME);
+
+		assertTrue("Short", retrieved > 0D && retrieved < 1000D);
+		assertEquals("Total", CAPACITY + 5D - retrieved, model.getStoredEnergy(), 1E-9);
+	}
+
+	/**
+	 * A small shortfall must only power down the first buildings not
+	 * generating a surplus.
+	 */
+	public void testShedPowerDown() {
+		Building[] buildings = new Building[3];
+		EnergyModel model = createLoads(buildings);
+
+		model.shed(5D, false);
+
+		assertEquals("Surplus", PowerMode.FULL_POWER, buildings[0].getPowerMode());
+		assertEquals("Powered down", PowerMode.POWER_DOWN, buildings[1].getPowerMode());
+		assertEquals("Left", PowerMode.FULL_POWER, buildings[2].getPowerMode());
+	}
+
+	/**
+	 * A large shortfall must turn off the buildings without life support before
+	 * the ones with it.
+	 */
+	public void testShedNoPower() {
+		Building[] buildings = new Building[3];
+		EnergyModel model = createLoads(buildings);
+
+		model.shed(21D, false);
+
+		assertEquals("Surplus", PowerMode.FULL_POWER, buildings[0].getPowerMode());
+		assertEquals("No life support", PowerMode.NO_POWER, buildings[1].getPowerMode());
+		assertEquals("Life support", PowerMode.POWER_DOWN, buildings[2].getPowerMode());
+
+		model.shed(100D, false);
+		assertEquals("Life support last", PowerMode.NO_POWER, buildings[2].getPowerMode());
+	}
+
+	/**
+	 * The slots must only be lined up with the buildings again once the model
+	 * has been told that the buildings have changed.
+	 */
+	public void testSyncOnlyWhenInvalidated() {
+		List<Building> buildings = new ArrayList<>();
+		buildings.add(new MockBuilding());
+		buildings.add(new MockBuilding());
+		EnergyModel model = new EnergyModel();
+
+		model.update(buildings, 1L);
+		assertEquals("Lined up on the first pulse", 2, model.size());
+
+		buildings.add(new MockBuilding());
+		model.update(buildings, 2L);
+		assertEquals("Not lined up again", 2, model.size());
+
+		model.invalidate();
+		model.update(buildings, 3L);
+		assertEquals("Lined up once invalidated", 3, model.size());
+	}
+
+	/**
+	 * Creates a model with a full battery then two batteries of the given
+	 * charges.
+	 */
+	private static EnergyModel createBatteries(double capacity, double stored1, double stored2) {
+		EnergyModel model = new EnergyModel();
+		model.resize(3);
+		double[] stored = { capacity, stored1, stored2 };
+		for (int i = 0; i < 3; i++) {
+			model.addStorageSlot(i);
+			model.setStorage(i, stored[i], capacity, VOLTAGE, RESISTANCE, AMP_HOURS, 1D);
+		}
+		model.solve(1L);
+		return model;
+	}
+
+	/**
+	 * Creates a model with a building generating a surplus, one without life
+	 * support and one with it. Powering down saves 10 kW each, turning off
+	 * another 2 kW.
+	 */
+	private static EnergyModel createLoads(Building[] buildings) {
+		EnergyModel model = new EnergyModel();
+		model.resize(buildings.length);
+		for (int i = 0; i < buildings.length; i++) {
+			buildings[i] = new MockBuilding();
+			buildings[i].setPowerMode(PowerMode.FULL_POWER);
+			model.setBuilding(i, buildings[i], i == 2);
+			model.setPowerRequired(i, 12D, 2D);
+		}
+		model.setGeneratedPower(0, 20D);
+		model.solve(1L);
+		return model;
+	}
+}
@@ -241,5 +241,12 @@ public class BuildingConnectorManagerTest extends TestCase {
         assertEquals(-10D, path3.getNextPathLocation().getXLocation(), SMALL_DELTA);
         assertEquals(1D, path3.getNextPathLocation().getYLocation(), SMALL_DELTA);
         assertTrue(path3.isEndOfPath());
+
+        assertTrue(manager.hasValidPath(building0, building1));
+
+        // The routes through building 2 are gone with its connections.
+        manager.removeAllConnectionsToBuilding(building2);
+        assertFalse(manager.hasValidPath(building0, building1));
+        assertNull(manager.determineShortestPath(building0, 2D, -1D, building1, -10D, 1D));
     }
 }
\ No newline at end of file
@@ -0,0 +1,117 @@
+package org.mars_sim.msp.core.structure.goods;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.mars_sim.msp.core.Inventory;
+import org.mars_sim.msp.core.Simulation;
+import org.mars_sim.msp.core.SimulationConfig;
+import org.mars_sim.msp.core.resource.ResourceUtil;
+import org.mars_sim.msp.core.structure.MockSettlement;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests that the goods values follow the inputs they are worked out from.
+ */
+public class TestGoodsManager extends TestCase {
+
+	private static final int PASSES = 30;
+	/** The relative drift allowed between an incremental and a full pass. */
+	private static final double DRIFT = 10D * GoodsManager.REVALUE_TOLERANCE;
+
+	private PopulatedSettlement settlement;
+
+	@Override
+	public void setUp() throws Exception {
+		SimulationConfig.instance().loadConfig();
+		Simulation.instance().testRun();
+		settlement = new PopulatedSettlement();
+	}
+
+	/**
+	 * A change in the population, with no change in the inventory, must re-value
+	 * the life support goods in the next pass rather than the next sol.
+	 */
+	public void testValueFollowsPopulation() {
+		GoodsManager goodsManager = new GoodsManager(settlement);
+		Good oxygen = GoodsUtil.getResourceGood(ResourceUtil.oxygenID);
+
+		settlement.citizens = 4;
+		goodsManager.timePassing(null);
+		goodsManager.timePassing(null);
+		double before = goodsManager.getGoodValuePerItem(oxygen);
+
+		settlement.citizens = 40;
+		goodsManager.timePassing(null);
+		double after = goodsManager.getGoodValuePerItem(oxygen);
+
+		assertTrue("Value follows the population", before != after);
+	}
+
+	/**
+	 * Re-valuing only the goods whose inputs changed must give the demands a
+	 * full pass gives, within the drift the tolerance allows, after random
+	 * changes to the inventory. Two settlements get the same changes, one is
+	 * re-valued incrementally and the other in full every pass.
+	 */
+	public void testIncrementalMatchesFullPass() {
+		PopulatedSettlement other = new PopulatedSettlement();
+		settlement.citizens = 8;
+		other.citizens = 8;
+		GoodsManager incremental = new GoodsManager(settlement);
+		GoodsManager full = new GoodsManager(other);
+
+		List<Good> amounts = new ArrayList<>();
+		List<Good> items = new ArrayList<>();
+		for (Good good : GoodsUtil.getGoodsList()) {
+			if (good.getCategory() == GoodType.AMOUNT_RESOURCE)
+				amounts.add(good);
+			else if (good.getCategory() == GoodType.ITEM_RESOURCE)
+				items.add(good);
+		}
+
+		Random random = new Random(24680L);
+		for (int pass = 0; pass < PASSES; pass++) {
+			// Change a few inputs every few passes and let the goods settle in between
+			if (pass % 5 == 1) {
+				for (int i = 0; i < 3; i++) {
+					int amountID = amounts.get(random.nextInt(amounts.size())).getID();
+					double amount = random.nextDouble() * 500D;
+					int itemID = items.get(random.nextInt(items.size())).getID();
+					int number = 1 + random.nextInt(20);
+					for (Inventory inv : new Inventory[] { settlement.getInventory(), other.getInventory() }) {
+						inv.addAmountResourceTypeCapacity(amountID, amount);
+						inv.storeAmountResource(amountID, amount, true);
+						inv.storeItemResources(itemID, number);
+					}
+				}
+			}
+
+			incremental.timePassing(null);
+			full.markAllGoodsDirty();
+			full.timePassing(null);
+
+			for (Good good : GoodsUtil.getGoodsList()) {
+				double expected = full.getGoodsDemandValue(good);
+				double actual = incremental.getGoodsDemandValue(good);
+				double drift = DRIFT * Math.max(Math.abs(expected), 1D);
+				assertEquals("Pass " + pass + " " + good.getName(), expected, actual, drift);
+			}
+		}
+	}
+
+	/**
+	 * A settlement whose number of citizens is set by the test.
+	 */
+	private static class PopulatedSettlement extends MockSettlement {
+
+		private int citizens;
+
+		@Override
+		public int getNumCitizens() {
+			return citizens;
+		}
+	}
+}
@@ -0,0 +1,71 @@
+package org.mars_sim.msp.core.time;
+
+import org.mars_sim.msp.core.Simulation;
+import org.mars_sim.msp.core.SimulationConfig;
+import org.mars_sim.msp.core.UnitManager;
+import org.mars_sim.msp.core.person.GenderType;
+import org.mars_sim.msp.core.person.Person;
+import org.mars_sim.msp.core.person.PhysicalCondition;
+import org.mars_sim.msp.core.structure.MockSettlement;
+import org.mars_sim.msp.core.structure.Settlement;
+import org.mars_sim.msp.core.structure.building.MockBuilding;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests that a pulse run through the unit manager advances the vitals of the
+ * people of a settlement.
+ */
+public class TestPhysiologyPulse extends TestCase {
+
+	private static final double TIME = 5D;
+
+	private Simulation sim;
+	private Settlement settlement;
+	private Person person;
+
+	@Override
+	public void setUp() throws Exception {
+		SimulationConfig.instance().loadConfig();
+		sim = Simulation.instance();
+		sim.testRun();
+
+		settlement = new MockSettlement();
+		sim.getUnitManager().addUnit(settlement);
+		new MockBuilding(settlement.getBuildingManager(), "Habitat");
+
+		person = Person.create("Test Person", settlement)
+				.setGender(GenderType.MALE)
+				.setCountry("USA")
+				.setSponsor("Mars Society (MS)")
+				.setSkill(null)
+				.setPersonality(null, null)
+				.setAttribute(null)
+				.build();
+		person.initialize();
+	}
+
+	/**
+	 * The hunger and thirst of a citizen must build up on every pulse.
+	 */
+	public void testVitalsAdvance() {
+		UnitManager unitManager = sim.getUnitManager();
+		PhysicalCondition condition = person.getPhysicalCondition();
+
+		for (long id = 1; id <= 3; id++) {
+			double hunger = condition.getHunger();
+			double thirst = condition.getThirst();
+
+			unitManager.timePassing(createPulse(id));
+
+			assertTrue("Hunger on pulse " + id, condition.getHunger() > hunger);
+			assertTrue("Thirst on pulse " + id, condition.getThirst() > thirst);
+		}
+		assertEquals("In the settlement kernel", 1, settlement.getPhysiology().size());
+	}
+
+	private ClockPulse createPulse(long id) {
+		MasterClock master = sim.getMasterClock();
+		return new ClockPulse(sim, id, TIME, master.getMarsClock(), master.getEarthClock(), master, false);
+	}
+}
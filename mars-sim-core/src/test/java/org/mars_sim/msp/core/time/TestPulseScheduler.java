@@ -0,0 +1,129 @@
+package org.mars_sim.msp.core.time;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.mars_sim.msp.core.time.PulseScheduler.Phase;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the phases and lanes of the PulseScheduler.
+ */
+public class TestPulseScheduler extends TestCase {
+
+	private static final int LANES = 12;
+	private static final int ITEMS = 50;
+
+	private PulseScheduler scheduler;
+
+	@Override
+	protected void setUp() throws Exception {
+		scheduler = new PulseScheduler(4, "test-pulse-");
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		scheduler.shutdown();
+	}
+
+	/**
+	 * Items of the same lane must run in the order they were added.
+	 */
+	public void testLaneOrder() {
+		List<List<Integer>> seen = new ArrayList<>();
+		for (int l = 0; l < LANES; l++) {
+			List<Integer> lane = Collections.synchronizedList(new ArrayList<>());
+			seen.add(lane);
+			for (int i = 0; i < ITEMS; i++) {
+				final int n = i;
+				scheduler.add(Phase.AGENTS, "lane" + l, p -> lane.add(n));
+			}
+		}
+
+		scheduler.runPulse(new ClockPulse(null, 1, 1D, null, null, null, false));
+
+		for (List<Integer> lane : seen) {
+			assertEquals("Items run", ITEMS, lane.size());
+			for (int i = 0; i < ITEMS; i++) {
+				assertEquals("Item order", i, lane.get(i).intValue());
+			}
+		}
+
+		assertEquals("Pulses recorded", 1, scheduler.getStats(Phase.AGENTS).getPulses());
+		assertEquals("Lanes recorded", (double) LANES, scheduler.getStats(Phase.AGENTS).getAverageLanes(), 0D);
+		assertEquals("Empty phase", 0, scheduler.getStats(Phase.BUILDINGS).getPulses());
+	}
+
+	/**
+	 * A phase must not start before every item of the previous one is done.
+	 */
+	public void testPhaseBarrier() {
+		AtomicInteger environmentDone = new AtomicInteger();
+		AtomicInteger early = new AtomicInteger();
+		for (int l = 0; l < LANES; l++) {
+			scheduler.add(Phase.ENVIRONMENT, l, p -> {
+				try {
+					Thread.sleep(2);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				environmentDone.incrementAndGet();
+				return true;
+			});
+			scheduler.add(Phase.BUILDINGS, l, p -> {
+				if (environmentDone.get() != LANES)
+					early.incrementAndGet();
+				return true;
+			});
+		}
+
+		scheduler.runPulse(new ClockPulse(null, 1, 1D, null, null, null, false));
+
+		assertEquals("Environment items run", LANES, environmentDone.get());
+		assertEquals("Buildings started early", 0, early.get());
+	}
+
+	/**
+	 * One long lane must show up as the ceiling of the phase.
+	 */
+	public void testSpeedupBound() {
+		scheduler.add(Phase.AGENTS, "long", p -> sleep(40));
+		for (int l = 0; l < 4; l++) {
+			scheduler.add(Phase.AGENTS, "short" + l, p -> sleep(2));
+		}
+
+		scheduler.runPulse(new ClockPulse(null, 1, 1D, null, null, null, false));
+
+		PulseScheduler.PhaseStats stats = scheduler.getStats(Phase.AGENTS);
+		assertTrue("Bound by the long lane : " + stats.getSpeedupBound(), stats.getSpeedupBound() < 2D);
+		assertTrue("Lane bound", stats.isLaneBound());
+		assertEquals("Empty phase", 1D, scheduler.getStats(Phase.MISSIONS).getSpeedupBound(), 0D);
+	}
+
+	private static boolean sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		return true;
+	}
+
+	/**
+	 * A failing item must not stop the rest of its lane.
+	 */
+	public void testFailingItem() {
+		AtomicInteger after = new AtomicInteger();
+		scheduler.add(Phase.MISSIONS, "lane", p -> {
+			throw new IllegalStateException("Expected by the test");
+		});
+		scheduler.add(Phase.MISSIONS, "lane", p -> after.incrementAndGet() > 0);
+
+		scheduler.runPulse(new ClockPulse(null, 1, 1D, null, null, null, false));
+
+		assertEquals("Item after the failure", 1, after.get());
+	}
+}
@@ -0,0 +1,125 @@
+package org.mars_sim.msp.core.tool;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.InputStream;
+import java.io.NotSerializableException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+public class TestChunkedSaveStream extends TestCase {
+
+	/**
+	 * Writes a few sections sharing one object graph through a tiny chunk size
+	 * and checks that they are read back intact.
+	 */
+	public void testRoundTrip() throws Exception {
+		List<Integer> shared = new ArrayList<>();
+		for (int i = 0; i < 500; i++)
+			shared.add(i);
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ChunkedSaveOutputStream chunkOut = new ChunkedSaveOutputStream(bytes, 64);
+		ObjectOutputStream oos = new ObjectOutputStream(chunkOut);
+		chunkOut.beginSection(0);
+		oos.writeObject("first");
+		oos.flush();
+		chunkOut.beginSection(1);
+		oos.writeObject(shared);
+		oos.flush();
+		chunkOut.beginSection(2);
+		oos.writeObject(shared);
+		oos.flush();
+		chunkOut.finish();
+		oos.close();
+
+		assertTrue("Stream split in several chunks", chunkOut.getNumChunks() > 3);
+
+		InputStream in = new BufferedInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+		assertTrue("Chunked header detected", ChunkedSaveInputStream.isChunked(in));
+		ChunkedSaveInputStream chunkIn = new ChunkedSaveInputStream(in);
+		ObjectInputStream ois = new ObjectInputStream(chunkIn);
+		assertEquals("first", ois.readObject());
+		Object list1 = ois.readObject();
+		assertEquals(shared, list1);
+		assertSame("Shared reference preserved across sections", list1, ois.readObject());
+		assertEquals(2, chunkIn.getSection());
+		assertEquals(-1, chunkIn.read());
+		ois.close();
+	}
+
+	/**
+	 * Checks that a plain object stream is not mistaken for a chunked one.
+	 */
+	public void testLegacyStream() throws Exception {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream oos = new ObjectOutputStream(bytes);
+		oos.writeObject("legacy");
+		oos.close();
+
+		InputStream in = new BufferedInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+		assertFalse(ChunkedSaveInputStream.isChunked(in));
+		assertEquals("legacy", new ObjectInputStream(in).readObject());
+	}
+
+	/**
+	 * Checks that a truncated file is reported instead of silently ending.
+	 */
+	public void testTruncated() throws Exception {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ChunkedSaveOutputStream chunkOut = new ChunkedSaveOutputStream(bytes, 16);
+		chunkOut.write(new byte[100]);
+		chunkOut.finish();
+		chunkOut.close();
+
+		byte[] data = bytes.toByteArray();
+		byte[] cut = new byte[data.length - 20];
+		System.arraycopy(data, 0, cut, 0, cut.length);
+
+		ChunkedSaveInputStream chunkIn = new ChunkedSaveInputStream(new ByteArrayInputStream(cut));
+		try {
+			while (chunkIn.read() >= 0) {
+				// drain
+			}
+			fail("Truncated stream not detected");
+		} catch (EOFException e) {
+			// expected
+		}
+	}
+
+	/**
+	 * Checks that a stream closed without being finished, e.g. after a failure
+	 * while serializing, is not read back as complete.
+	 */
+	public void testAborted() throws Exception {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ChunkedSaveOutputStream chunkOut = new ChunkedSaveOutputStream(bytes, 16);
+		ObjectOutputStream oos = new ObjectOutputStream(chunkOut);
+		chunkOut.beginSection(0);
+		oos.writeObject("partial");
+		try {
+			oos.writeObject(new Object());
+			fail("Object is not serializable");
+		} catch (NotSerializableException e) {
+			// expected
+		}
+		oos.close();
+		assertFalse(chunkOut.isFinished());
+
+		ChunkedSaveInputStream chunkIn = new ChunkedSaveInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+		try {
+			while (chunkIn.read() >= 0) {
+				// drain
+			}
+			fail("Aborted stream read back as complete");
+		} catch (EOFException e) {
+			// expected
+		}
+	}
+}
@@ -0,0 +1,110 @@
+package org.mars_sim.msp.core.tool;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.tukaani.xz.XZInputStream;
+
+import junit.framework.TestCase;
+
+public class TestParallelXZStream extends TestCase {
+
+	private static final int BLOCK_SIZE = 1000;
+	private static final int MEMORY_LIMIT = 64 * 1024;
+
+	private ForkJoinPool pool;
+	private File file;
+
+	@Override
+	public void setUp() throws Exception {
+		pool = new ForkJoinPool(4);
+		file = File.createTempFile("parallel", ".xz");
+		file.deleteOnExit();
+	}
+
+	@Override
+	public void tearDown() throws Exception {
+		pool.shutdown();
+		file.delete();
+	}
+
+	/**
+	 * Writes a file of many blocks in parallel and reads it back in parallel.
+	 */
+	public void testParallelRoundTrip() throws Exception {
+		byte[] data = createData(25_500);
+		write(data);
+
+		InputStream in = ParallelXZInputStream.open(file, MEMORY_LIMIT, pool);
+		assertTrue("Decoded in parallel", in instanceof ParallelXZInputStream);
+		assertTrue("Same content", Arrays.equals(data, readAll(in)));
+	}
+
+	/**
+	 * Checks that a file written in parallel can be read by a stock decoder.
+	 */
+	public void testStockDecoder() throws Exception {
+		byte[] data = createData(25_500);
+		write(data);
+
+		InputStream in = new XZInputStream(new BufferedInputStream(new FileInputStream(file)), MEMORY_LIMIT);
+		assertTrue("Same content", Arrays.equals(data, readAll(in)));
+	}
+
+	/**
+	 * Checks that a single block file is still read, sequentially.
+	 */
+	public void testSingleBlock() throws Exception {
+		byte[] data = createData(BLOCK_SIZE / 2);
+		write(data);
+
+		InputStream in = ParallelXZInputStream.open(file, MEMORY_LIMIT, pool);
+		assertFalse("Decoded sequentially", in instanceof ParallelXZInputStream);
+		assertTrue("Same content", Arrays.equals(data, readAll(in)));
+	}
+
+	/**
+	 * Gets some data that compresses a little, as a save file does.
+	 */
+	private static byte[] createData(int size) {
+		Random random = new Random(42);
+		byte[] result = new byte[size];
+		for (int i = 0; i < size; i++)
+			result[i] = (byte) ((random.nextInt(8) == 0) ? random.nextInt(256) : i % 17);
+		return result;
+	}
+
+	private void write(byte[] data) throws IOException {
+		try (OutputStream out = new ParallelXZOutputStream(new FileOutputStream(file), 1, BLOCK_SIZE, pool)) {
+			// Write in odd sized pieces so that the blocks are cut mid write
+			int off = 0;
+			while (off < data.length) {
+				int n = Math.min(333, data.length - off);
+				out.write(data, off, n);
+				off += n;
+			}
+		}
+	}
+
+	private static byte[] readAll(InputStream in) throws IOException {
+		ByteArrayOutputStream result = new ByteArrayOutputStream();
+		try {
+			byte[] buffer = new byte[777];
+			int n;
+			while ((n = in.read(buffer, 0, buffer.length)) >= 0)
+				result.write(buffer, 0, n);
+		} finally {
+			in.close();
+		}
+		return result.toByteArray();
+	}
+}
@@ -0,0 +1,129 @@
+package org.mars_sim.msp.core.tool;
+
+import java.math.BigInteger;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the SFMT jump ahead and the per unit random streams.
+ */
+public class TestRandomStream extends TestCase {
+
+	private static final int DRAWS = 2000;
+
+	@Override
+	protected void tearDown() throws Exception {
+		// Do not leave the reproducible mode on for the other tests
+		RandomUtil.clearReproducible();
+	}
+
+	/**
+	 * A jump must land where stepping the generator one value at a time does.
+	 */
+	public void testJumpMatchesStepping() {
+		for (int steps : new int[] {0, 1, 156, 1000}) {
+			SFMT19937j jumped = new SFMT19937j(4321);
+			SFMT19937j stepped = new SFMT19937j(4321);
+
+			jumped.jump(SFMT19937j.jumpPolynomial(BigInteger.valueOf(steps)));
+			// One step is one 128-bit word, i.e. four 32-bit values
+			for (int i = 0; i < 4 * steps; i++) {
+				stepped.nextBits();
+			}
+
+			for (int i = 0; i < DRAWS; i++) {
+				assertEquals("Value " + i + " after " + steps + " steps", stepped.nextBits(), jumped.nextBits());
+			}
+		}
+	}
+
+	/**
+	 * The same seed must give the same draws whichever order the streams are
+	 * used in, and a bound stream must not touch the other streams.
+	 */
+	public void testReproducibleStreams() {
+		RandomUtil.setReproducible(20201017L);
+		RandomStream first = RandomUtil.getStream(1);
+		RandomStream second = RandomUtil.getStream(2);
+		assertSame("Same stream", first, RandomUtil.getStream(1));
+
+		double[] a = new double[DRAWS];
+		RandomUtil.bindStream(second);
+		try {
+			for (int i = 0; i < DRAWS; i++) {
+				a[i] = RandomUtil.getRandomDouble(1D);
+			}
+		} finally {
+			RandomUtil.bindStream(null);
+		}
+
+		// Ask for the streams the other way round this time
+		RandomUtil.setReproducible(20201017L);
+		RandomStream again = RandomUtil.getStream(2);
+		RandomStream other = RandomUtil.getStream(1);
+		// Drawing from another stream in between must not matter
+		for (int i = 0; i < DRAWS; i++) {
+			other.nextDouble();
+		}
+		for (int i = 0; i < DRAWS; i++) {
+			assertEquals("Draw " + i, a[i], again.nextDouble(), 0D);
+		}
+	}
+
+	/**
+	 * A named stream must depend on the master seed and its name only, and not
+	 * be the stream of a unit.
+	 */
+	public void testNamedStreams() {
+		RandomUtil.setReproducible(42L);
+		RandomStream unit = RandomUtil.getStream(1);
+		RandomStream named = RandomUtil.getStream("missions");
+		assertSame("Same stream", named, RandomUtil.getStream("missions"));
+		double[] a = new double[DRAWS];
+		boolean differs = false;
+		for (int i = 0; i < DRAWS; i++) {
+			a[i] = named.nextDouble();
+			differs |= (a[i] != unit.nextDouble());
+		}
+		assertTrue("Apart from the unit stream", differs);
+
+		RandomUtil.setReproducible(42L);
+		RandomStream again = RandomUtil.getStream("missions");
+		for (int i = 0; i < DRAWS; i++) {
+			assertEquals("Draw " + i, a[i], again.nextDouble(), 0D);
+		}
+
+		RandomUtil.setReproducible(43L);
+		RandomStream reseeded = RandomUtil.getStream("missions");
+		differs = false;
+		for (int i = 0; i < DRAWS; i++) {
+			differs |= (a[i] != reseeded.nextDouble());
+		}
+		assertTrue("Follows the master seed", differs);
+	}
+
+	/**
+	 * Clearing the reproducible mode must give the shared generator back.
+	 */
+	public void testClearReproducible() {
+		RandomUtil.setReproducible(11L);
+		assertNotNull(RandomUtil.getStream(5));
+		RandomUtil.clearReproducible();
+		assertFalse(RandomUtil.isReproducible());
+		assertNull("No stream", RandomUtil.getStream(5));
+	}
+
+	/**
+	 * Bounded ints must stay within their bounds.
+	 */
+	public void testBounds() {
+		RandomUtil.setReproducible(7L);
+		RandomStream s = RandomUtil.getStream(3);
+		for (int i = 0; i < DRAWS; i++) {
+			int v = s.nextInt(7);
+			assertTrue("In range : " + v, v >= 0 && v < 7);
+			double d = s.nextDouble();
+			assertTrue("In range : " + d, d >= 0D && d < 1D);
+		}
+	}
+}
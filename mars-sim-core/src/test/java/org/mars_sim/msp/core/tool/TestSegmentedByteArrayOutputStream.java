@@ -0,0 +1,104 @@
+package org.mars_sim.msp.core.tool;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+public class TestSegmentedByteArrayOutputStream extends TestCase {
+
+	/**
+	 * Checks that the content spread over several segments is written out in
+	 * order.
+	 */
+	public void testWriteTo() throws Exception {
+		SegmentedByteArrayOutputStream snapshot = new SegmentedByteArrayOutputStream(7);
+		ByteArrayOutputStream expected = new ByteArrayOutputStream();
+		for (int i = 0; i < 50; i++) {
+			snapshot.write(i);
+			expected.write(i);
+		}
+		byte[] block = new byte[23];
+		for (int i = 0; i < block.length; i++)
+			block[i] = (byte) (100 + i);
+		snapshot.write(block, 3, 20);
+		expected.write(block, 3, 20);
+
+		assertEquals(70, snapshot.size());
+		ByteArrayOutputStream actual = new ByteArrayOutputStream();
+		snapshot.writeTo(actual);
+		assertTrue("Same content", Arrays.equals(expected.toByteArray(), actual.toByteArray()));
+
+		snapshot.reset();
+		assertEquals(0, snapshot.size());
+		actual.reset();
+		snapshot.writeTo(actual);
+		assertEquals(0, actual.size());
+	}
+
+	/**
+	 * Takes a snapshot of a few sections as a background save does, flushes it to
+	 * another stream and checks that the sections are read back intact.
+	 */
+	public void testSnapshotFlush() throws Exception {
+		List<String> shared = new ArrayList<>();
+		for (int i = 0; i < 300; i++)
+			shared.add("item " + i);
+
+		SegmentedByteArrayOutputStream snapshot = new SegmentedByteArrayOutputStream(32);
+		ChunkedSaveOutputStream chunkOut = new ChunkedSaveOutputStream(snapshot, 100);
+		ObjectOutputStream oos = new ObjectOutputStream(chunkOut);
+		chunkOut.beginSection(0);
+		oos.writeObject(shared);
+		oos.flush();
+		chunkOut.beginSection(1);
+		oos.writeObject(shared);
+		oos.flush();
+		chunkOut.finish();
+		oos.close();
+
+		// The snapshot is later flushed to the save file
+		ByteArrayOutputStream file = new ByteArrayOutputStream();
+		snapshot.writeTo(file);
+		assertEquals(snapshot.size(), file.size());
+
+		InputStream in = new BufferedInputStream(new ByteArrayInputStream(file.toByteArray()));
+		assertTrue(ChunkedSaveInputStream.isChunked(in));
+		ObjectInputStream ois = new ObjectInputStream(new ChunkedSaveInputStream(in));
+		Object first = ois.readObject();
+		assertEquals(shared, first);
+		assertSame(first, ois.readObject());
+		ois.close();
+	}
+
+	/**
+	 * Checks that a snapshot going over its limit fails instead of growing.
+	 */
+	public void testLimit() throws Exception {
+		SegmentedByteArrayOutputStream snapshot = new SegmentedByteArrayOutputStream(16, 40);
+		snapshot.write(new byte[30], 0, 30);
+		try {
+			snapshot.write(new byte[20], 0, 20);
+			fail("Limit not enforced");
+		} catch (SegmentedByteArrayOutputStream.LimitExceededException e) {
+			// expected
+		}
+		assertEquals(30, snapshot.size());
+
+		snapshot.write(new byte[10], 0, 10);
+		try {
+			snapshot.write(1);
+			fail("Limit not enforced");
+		} catch (SegmentedByteArrayOutputStream.LimitExceededException e) {
+			// expected
+		}
+		assertEquals(40, snapshot.size());
+	}
+}
@@ -15,6 +15,7 @@ import java.net.URISyntaxException;
 import java.util.Collection;
 import java.util.List;
 import java.util.concurrent.ExecutorService;
+import java.util.function.BooleanSupplier;
 import java.util.logging.Level;
 import java.util.logging.LogManager;
 import java.util.logging.Logger;
@@ -37,6 +38,7 @@ import org.mars_sim.msp.core.UnitManager;
 import org.mars_sim.msp.core.reportingAuthority.ReportingAuthorityType;
 import org.mars_sim.msp.core.structure.SettlementConfig;
 import org.mars_sim.msp.core.structure.SettlementTemplate;
+import org.mars_sim.msp.core.time.MasterClock;
 import org.mars_sim.msp.core.tool.RandomUtil;
 
 /**
@@ -61,6 +63,12 @@ public class MarsProjectHeadless {
 	
 	private static final String RESETADMIN = "resetadmin";
 	
+	private static final String SEED = "seed";
+
+	private static final String BATCH = "batch";
+
+	private static final String ENDSOL = "endsol";
+	
 	/** initialized logger for this class. */
 	private static final Logger logger = Logger.getLogger(MarsProjectHeadless.class.getName());
 	
@@ -74,6 +82,13 @@ public class MarsProjectHeadless {
 	private Simulation sim = Simulation.instance();
 	
 	private SimulationConfig simulationConfig = SimulationConfig.instance();
+
+	/** Run the clock as fast as possible with fixed pulses. */
+	private boolean batch = false;
+	/** The pulse length (millisols) in batch mode, or 0 for the configured max. */
+	private double batchPulse = 0D;
+	/** The last mission sol to simulate, or 0 to keep going. */
+	private int endSol = 0;
 	
 	/**
 	 * Constructor 1.
@@ -136,6 +151,12 @@ public class MarsProjectHeadless {
 								.desc("Run the remote console service").build());
 		options.addOption(Option.builder(RESETADMIN)
 				.desc("Reset teh internal admin password").build());
+		options.addOption(Option.builder(SEED).argName("master seed").hasArg()
+				.desc("Run reproducibly : every unit draws from its own random stream derived from this seed").build());
+		options.addOption(Option.builder(BATCH).argName("millisols per pulse").hasArg().optionalArg(true)
+				.desc("Run pulses back to back as fast as possible, default pulse is the max simulated pulse").build());
+		options.addOption(Option.builder(ENDSOL).argName("mission sol").hasArg()
+				.desc("Stop the simulation at the end of this mission sol and report the throughput").build());
 		options.addOption(Option.builder(DATADIR).argName("path to data directory").hasArg().optionalArg(false)
 				.desc("Path to the data directory for simulation files (defaults to user.home)").build());
 		
@@ -184,6 +205,19 @@ public class MarsProjectHeadless {
 			if (line.hasOption(RESETADMIN)) {
 				resetAdmin = true;
 			}
+			if (line.hasOption(SEED)) {
+				RandomUtil.setReproducible(Long.parseLong(line.getOptionValue(SEED)));
+			}
+			if (line.hasOption(BATCH)) {
+				batch = true;
+				String pulseValue = line.getOptionValue(BATCH);
+				if (pulseValue != null) {
+					batchPulse = Double.parseDouble(pulseValue);
+				}
+			}
+			if (line.hasOption(ENDSOL)) {
+				endSol = Integer.parseInt(line.getOptionValue(ENDSOL));
+			}
 		}
 		catch (ParseException e1) {
 			usage(e1.getMessage(), options);
@@ -462,12 +496,39 @@ public class MarsProjectHeadless {
 	
 		public void run() {
 //			logger.config("StartTask's run() is on " + Thread.currentThread().getName());
+			if (batch) {
+				setupBatchRun();
+			}
 			sim.startClock(autosaveDefault);
 			// Load the menu choice
 //			InteractiveTerm.loadTerminalMenu();
 		}
 	}
 	
+	/**
+	 * Sets the master clock to run fixed pulses back to back, stopping at the end
+	 * sol if there is one, and to report the throughput when the program exits.
+	 */
+	private void setupBatchRun() {
+		MasterClock clock = sim.getMasterClock();
+		double pulse = (batchPulse > 0D ? batchPulse : simulationConfig.getMaxSimulatedPulse());
+
+		BooleanSupplier endCondition = null;
+		if (endSol > 0) {
+			endCondition = () -> clock.getMarsClock().getMissionSol() > endSol;
+		}
+
+		clock.setBatchMode(pulse, endCondition, () -> {
+			sim.waitForBackgroundSave();
+			System.exit(0);
+		});
+
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> System.out.println(clock.getBatchReport()),
+				"batch-report"));
+		logger.config("Batch run of " + pulse + " msols per pulse"
+				+ (endSol > 0 ? " up to the end of sol " + endSol : ""));
+	}
+
 	/**
 	 * The starting method for the application
 	 *
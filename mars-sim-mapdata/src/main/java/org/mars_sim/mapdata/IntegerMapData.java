@@ -42,6 +42,7 @@
 
  	// Data members.
  	private int[][] pixels = null;
+ 	private MapRenderer renderer;
  	
  	/**
  	 * Constructor
@@ -53,6 +54,7 @@
  		try {
  			// Load data files
  			pixels = loadMapData(mapFileName);
+ 			renderer = new MapRenderer(this, mapFileName, IMAGE_WIDTH, IMAGE_HEIGHT);
  			
  		} catch (IOException e) {
  			logger.log(Level.SEVERE, "Could not find the map file.", e);
@@ -202,6 +204,19 @@
 
  	@Override
  	public Image getMapImage(double centerPhi, double centerTheta) {
+ 		return renderer.render(centerPhi, centerTheta, PIXEL_RHO);
+ 	}
+
+ 	/**
+ 	 * Generates the map image by projecting the map samples one by one onto the
+ 	 * image, as was done before the {@link MapRenderer}. This is kept to
+ 	 * benchmark the renderer against.
+ 	 * 
+ 	 * @param centerPhi   the phi center location of the map.
+ 	 * @param centerTheta the theta center location of the map.
+ 	 * @return The map image.
+ 	 */
+ 	BufferedImage getMapImageByPoints(double centerPhi, double centerTheta) {
 
  		// Create a new buffered image to draw the map on.
  		BufferedImage result = new BufferedImage(IMAGE_WIDTH, IMAGE_HEIGHT, BufferedImage.TYPE_4BYTE_ABGR);//BufferedImage.TYPE_INT_ARGB);
@@ -312,7 +327,7 @@
  	 * @param theta the theta location.
  	 * @return the RGB map color as an integer.
  	 */
- 	private int getRGBColorInt(double phi, double theta) {
+ 	int getRGBColorInt(double phi, double theta) {
  		// Make sure phi is between 0 and PI.
  		while (phi > Math.PI)
  			phi -= Math.PI;
@@ -18,11 +18,21 @@ import java.io.FileOutputStream;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.Arrays;
 import java.util.Objects;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
@@ -40,6 +50,9 @@ import me.lemire.integercompression.differential.SkippableIntegratedComposition;
 
 public class MEGDRMapReader {
 
+	/** default logger. */
+	private static Logger logger = Logger.getLogger(MEGDRMapReader.class.getName());
+
 	private static final String FILE = "/maps/megt90n000cb.img";
 	private static final String COMPRESSED = "720x1440_JavaFastPFOR_compressed";
 //	private static final String UNCOMPRESSED = "720x1440_uncompressed";
@@ -64,7 +77,17 @@ public class MEGDRMapReader {
 	
 	private static int COMPRESSED_N;
 	
-	private int[] elevation = new int[HEIGHT*WIDTH]; // has 1036800 values ; OR [720*2880] = 2073600 values
+	/** The elevation values on the heap, only set by {@link #loadElevation()}. */
+	private int[] elevation; // has 1036800 values ; OR [720*2880] = 2073600 values
+	
+	/** The elevation store, decoded once into the data directory in the native byte order. */
+	private static final String STORE = "megdr_" + HEIGHT + "x" + WIDTH + "_"
+			+ (ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN ? "le" : "be") + ".bin";
+	
+	private static String dataDir = System.getProperty("user.home") + File.separator + ".mars-sim";
+	
+	/** The elevation values, mapped from the store. Read without locking once set. */
+	private volatile ShortBuffer elevationBuffer;
 	
 	public static void main(String[] args) throws IOException {
 		new MEGDRMapReader().loadElevation();
@@ -283,6 +306,9 @@ public class MEGDRMapReader {
 		int minIndex = 0;
 		int maxIndex = 0;
 
+		if (elevation == null)
+			loadElevation();
+
 		for (int i = 0; i < elevation.length; i++)  {
 			if (max < elevation[i]) {
 				max = elevation[i];
@@ -302,6 +328,112 @@ public class MEGDRMapReader {
 		return elevation;
 	}
 	
+	/**
+	 * Sets the directory the elevation store is kept in.
+	 * 
+	 * @param newDir the data directory of the simulation.
+	 */
+	public static void setDataDir(String newDir) {
+		dataDir = newDir;
+	}
+	
+	/**
+	 * Gets the elevation at an index of the MEGDR dataset, i.e. row * WIDTH + column.
+	 * 
+	 * @param index the index.
+	 * @return the elevation (in m).
+	 */
+	public int getElevation(int index) {
+		return getElevationBuffer().get(index);
+	}
+	
+	/**
+	 * Gets the elevation values, mapped from the store in the data directory.
+	 * The store is written the first time from the dataset on the classpath.
+	 * The mapped values live outside of the heap and are shared through the
+	 * page cache by all the simulations running on the host. Only the first call
+	 * takes a lock.
+	 * 
+	 * @return the elevation values.
+	 */
+	public ShortBuffer getElevationBuffer() {
+		ShortBuffer buffer = elevationBuffer;
+		if (buffer == null) {
+			buffer = mapElevationBuffer();
+		}
+		return buffer;
+	}
+	
+	/**
+	 * Maps the elevation values, unless another thread has just done it.
+	 * 
+	 * @return the elevation values.
+	 */
+	private synchronized ShortBuffer mapElevationBuffer() {
+		if (elevationBuffer == null) {
+			Path path = Paths.get(dataDir, STORE);
+			try {
+				if (!Files.isRegularFile(path) || Files.size(path) != HEIGHT * WIDTH * 2L) {
+					writeElevationStore(path);
+				}
+				try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+					// The mapping stays valid once the channel is closed
+					MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+					elevationBuffer = map.order(ByteOrder.nativeOrder()).asShortBuffer();
+				}
+			} catch (IOException e) {
+				logger.log(Level.WARNING, "Could not map the elevation store " + path
+						+ ". Keeping the elevation data on the heap.", e);
+				int[] values = loadElevation();
+				short[] shorts = new short[values.length];
+				for (int i = 0; i < values.length; i++) {
+					shorts[i] = (short) values[i];
+				}
+				elevationBuffer = ShortBuffer.wrap(shorts);
+				elevation = null;
+			}
+		}
+		return elevationBuffer;
+	}
+	
+	/**
+	 * Decodes the dataset on the classpath, i.e. big endian 16-bit values, into
+	 * the elevation store. The store is written to a temporary file first so that
+	 * another simulation never maps a partial one.
+	 * 
+	 * @param path the path of the store.
+	 * @throws IOException
+	 */
+	private void writeElevationStore(Path path) throws IOException {
+		logger.config("Writing the elevation store " + path);
+		Files.createDirectories(path.getParent());
+		
+		byte[] bytes;
+		try (InputStream inputStream = MEGDRMapReader.class.getResourceAsStream(FILE)) {
+			if (inputStream == null)
+				throw new FileNotFoundException(FILE);
+			bytes = ByteStreams.toByteArray(inputStream);
+		}
+		if (bytes.length != HEIGHT * WIDTH * 2)
+			throw new IOException("Unexpected size of " + FILE + " : " + bytes.length + " bytes");
+
+		ByteBuffer store = ByteBuffer.allocate(bytes.length).order(ByteOrder.nativeOrder());
+		ByteBuffer source = ByteBuffer.wrap(bytes).order(ByteOrder.BIG_ENDIAN);
+		while (source.hasRemaining()) {
+			store.putShort(source.getShort());
+		}
+
+		Path temp = Files.createTempFile(path.getParent(), STORE, ".tmp");
+		try {
+			try (OutputStream stream = Files.newOutputStream(temp)) {
+				stream.write(store.array());
+			}
+			Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(temp);
+		}
+	}
+	
 	   /**
      * This method returns the byte array that represent the contents of 
      * {@code file}.
@@ -385,6 +517,8 @@ public class MEGDRMapReader {
     
     public void useJavaFastPFOR() {
 //        int ChunkSize = 8192 ; //16384; //32768; // size of each chunk, choose a multiple of 128
+        if (elevation == null)
+        	loadElevation();
         final int N = elevation.length;
 //        final int TotalSize = N; // some arbitrary number
         int[] data = elevation;
@@ -607,7 +741,7 @@ public class MEGDRMapReader {
     
     public int[] read2ByteArray(String filename) {
 
-    	int[] array = new int[elevation.length];
+    	int[] array = new int[HEIGHT * WIDTH];
 		InputStream inputStream = null;
 		try {
 			inputStream = new BufferedInputStream(new FileInputStream(filename));
@@ -90,7 +90,7 @@
  		if (index >= HEIGHT * WIDTH)
  			index = HEIGHT * WIDTH - 1;
  		
- 		return getElevationArray()[index];
+ 		return reader.getElevation(index);
  	}
  	
      /**
@@ -0,0 +1,232 @@
+/**
+ * Mars Simulation Project
+ * MapRenderer.java
+ * @version 3.1.2 2026-10-17
+ * @author agent
+ */
+
+package org.mars_sim.mapdata;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Renders the orthographic projection of an {@link IntegerMapData} globe. Each
+ * output pixel is projected back onto the globe and sampled, so that every
+ * pixel is computed exactly once. The image is split into square tiles that
+ * are rendered in parallel straight into the raster of the image, and the
+ * tiles are cached by map type, center and zoom so that going back to a
+ * center already seen, e.g. when switching between the navigator and the
+ * mission maps, costs only a copy.
+ */
+final class MapRenderer {
+
+	/** The size of a tile (pixels). */
+	static final int TILE_SIZE = 50;
+	/** The number of tiles kept in the cache, i.e. 16 full images of 300 x 300. */
+	private static final int MAX_CACHED_TILES = 16 * 36;
+
+	private static final double TWO_PI = Math.PI * 2D;
+
+	/** The tiles rendered lately, shared by all the map types. */
+	private static final Map<TileKey, int[]> tileCache = new LinkedHashMap<TileKey, int[]>(64, .75F, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<TileKey, int[]> eldest) {
+			return size() > MAX_CACHED_TILES;
+		}
+	};
+
+	private static long tileHits;
+	private static long tileMisses;
+
+	private final IntegerMapData mapData;
+	private final String mapType;
+	private final int width;
+	private final int height;
+	private final int tileColumns;
+	private final int tileRows;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param mapData the map data to sample.
+	 * @param mapType the name of the map type, for the tile cache.
+	 * @param width   the image width (pixels).
+	 * @param height  the image height (pixels).
+	 */
+	MapRenderer(IntegerMapData mapData, String mapType, int width, int height) {
+		this.mapData = mapData;
+		this.mapType = mapType;
+		this.width = width;
+		this.height = height;
+		tileColumns = (width + TILE_SIZE - 1) / TILE_SIZE;
+		tileRows = (height + TILE_SIZE - 1) / TILE_SIZE;
+	}
+
+	/**
+	 * Renders the map centered on a location.
+	 *
+	 * @param centerPhi   the phi center location of the map.
+	 * @param centerTheta the theta center location of the map.
+	 * @param rho         the radius of the globe (pixels), i.e. the zoom.
+	 * @return the map image.
+	 */
+	BufferedImage render(double centerPhi, double centerTheta, double rho) {
+		BufferedImage result = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+		int[] raster = ((DataBufferInt) result.getRaster().getDataBuffer()).getData();
+
+		IntStream.range(0, tileColumns * tileRows).parallel()
+				.forEach(tile -> renderTile(raster, tile, centerPhi, centerTheta, rho));
+
+		return result;
+	}
+
+	/**
+	 * Renders a tile into the raster, or copies it from the cache.
+	 */
+	private void renderTile(int[] raster, int tile, double centerPhi, double centerTheta, double rho) {
+		int x0 = (tile % tileColumns) * TILE_SIZE;
+		int y0 = (tile / tileColumns) * TILE_SIZE;
+		int tileWidth = Math.min(TILE_SIZE, width - x0);
+		int tileHeight = Math.min(TILE_SIZE, height - y0);
+
+		TileKey key = new TileKey(mapType, centerPhi, centerTheta, rho, tile);
+		int[] cached;
+		synchronized (tileCache) {
+			cached = tileCache.get(key);
+			if (cached != null)
+				tileHits++;
+			else
+				tileMisses++;
+		}
+		if (cached != null) {
+			for (int row = 0; row < tileHeight; row++) {
+				System.arraycopy(cached, row * tileWidth, raster, (y0 + row) * width + x0, tileWidth);
+			}
+			return;
+		}
+
+		int[] pixels = new int[tileWidth * tileHeight];
+		projectTile(pixels, x0, y0, tileWidth, tileHeight, centerPhi, centerTheta, rho);
+		for (int row = 0; row < tileHeight; row++) {
+			System.arraycopy(pixels, row * tileWidth, raster, (y0 + row) * width + x0, tileWidth);
+		}
+		synchronized (tileCache) {
+			tileCache.put(key, pixels);
+		}
+	}
+
+	/**
+	 * Projects the pixels of a tile back onto the globe, i.e. the inverse of
+	 * the orthographic projection of {@link IntegerMapData#findRectPosition},
+	 * and samples the map there. The pixels off the globe are left clear.
+	 */
+	private void projectTile(int[] pixels, int x0, int y0, int tileWidth, int tileHeight, double centerPhi,
+			double centerTheta, double rho) {
+		double sinCenterPhi = Math.sin(centerPhi);
+		double cosCenterPhi = Math.cos(centerPhi);
+		double halfWidth = width / 2;
+		double halfHeight = height / 2;
+
+		for (int row = 0; row < tileHeight; row++) {
+			// Up is north
+			double b = (halfHeight - (y0 + row)) / rho;
+			for (int col = 0; col < tileWidth; col++) {
+				double a = ((x0 + col) - halfWidth) / rho;
+				double r2 = (a * a) + (b * b);
+				if (r2 > 1D)
+					continue;
+
+				double cosC = Math.sqrt(1D - r2);
+				double cosPhi = (cosC * cosCenterPhi) + (b * sinCenterPhi);
+				double phi = Math.acos(Math.max(-1D, Math.min(1D, cosPhi)));
+				double theta = centerTheta + Math.atan2(a, (cosC * sinCenterPhi) - (b * cosCenterPhi));
+				if (theta < 0D)
+					theta += TWO_PI;
+				else if (theta > TWO_PI)
+					theta -= TWO_PI;
+
+				pixels[(row * tileWidth) + col] = mapData.getRGBColorInt(phi, theta);
+			}
+		}
+	}
+
+	/**
+	 * Gets the number of tiles copied from the cache.
+	 *
+	 * @return the number of tiles.
+	 */
+	static long getTileHits() {
+		synchronized (tileCache) {
+			return tileHits;
+		}
+	}
+
+	/**
+	 * Gets the number of tiles rendered.
+	 *
+	 * @return the number of tiles.
+	 */
+	static long getTileMisses() {
+		synchronized (tileCache) {
+			return tileMisses;
+		}
+	}
+
+	/**
+	 * Empties the tile cache and resets its counts.
+	 */
+	static void clearCache() {
+		synchronized (tileCache) {
+			tileCache.clear();
+			tileHits = 0;
+			tileMisses = 0;
+		}
+	}
+
+	/**
+	 * The map type, center, zoom and index of a tile.
+	 */
+	private static final class TileKey {
+
+		private final String mapType;
+		private final double centerPhi;
+		private final double centerTheta;
+		private final double rho;
+		private final int tile;
+
+		private TileKey(String mapType, double centerPhi, double centerTheta, double rho, int tile) {
+			this.mapType = mapType;
+			this.centerPhi = centerPhi;
+			this.centerTheta = centerTheta;
+			this.rho = rho;
+			this.tile = tile;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (!(obj instanceof TileKey))
+				return false;
+			TileKey other = (TileKey) obj;
+			return (tile == other.tile) && (Double.compare(centerPhi, other.centerPhi) == 0)
+					&& (Double.compare(centerTheta, other.centerTheta) == 0)
+					&& (Double.compare(rho, other.rho) == 0) && mapType.equals(other.mapType);
+		}
+
+		@Override
+		public int hashCode() {
+			int result = mapType.hashCode();
+			result = 31 * result + Double.hashCode(centerPhi);
+			result = 31 * result + Double.hashCode(centerTheta);
+			result = 31 * result + Double.hashCode(rho);
+			return 31 * result + tile;
+		}
+	}
+}
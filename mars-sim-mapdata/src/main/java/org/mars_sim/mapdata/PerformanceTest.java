@@ -15,6 +15,9 @@ import java.awt.image.PixelGrabber;
 import java.io.File;
 import java.io.IOException;
 import java.net.URL;
+import java.nio.ShortBuffer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 
 import javax.imageio.ImageIO;
 import javax.swing.ImageIcon;
@@ -31,6 +34,15 @@ public class PerformanceTest {
 	private static BufferedImage hugeImage;
 	
 	public static void main(String[] args) throws IOException {
+		if (args.length > 0 && "map".equals(args[0])) {
+			testMapImage();
+			return;
+		}
+		if (args.length > 0 && "elevation".equals(args[0])) {
+			testElevation(args.length > 1 && "heap".equals(args[1]));
+			return;
+		}
+		
 		hugeImage = ImageIO.read(imageMapURL);
 		int type = hugeImage.getType();
 		System.out.println("Type : " + type); // TYPE_4BYTE_ABGR : 6  , // TYPE_3BYTE_BGR : 5
@@ -106,6 +118,144 @@ public class PerformanceTest {
 		
 	}
 
+	/**
+	 * Compares the map image of the sample by sample projection with the one
+	 * of the {@link MapRenderer} over a series of centers, then the renderer
+	 * going back and forth between a few centers as the navigator and the
+	 * mission maps do. Run with the argument "map".
+	 */
+	public static void testMapImage() {
+		IntegerMapData mapData = new SurfaceMapData();
+		int centers = 36;
+		double[] phis = new double[centers];
+		double[] thetas = new double[centers];
+		for (int i = 0; i < centers; i++) {
+			phis[i] = Math.PI * (i + .5D) / centers;
+			thetas[i] = 2D * Math.PI * i / centers;
+		}
+
+		// Warm up both before timing
+		for (int i = 0; i < centers; i++) {
+			mapData.getMapImageByPoints(phis[i], thetas[i]);
+			new MapRenderer(mapData, "warm up", IntegerMapData.IMAGE_WIDTH, IntegerMapData.IMAGE_HEIGHT)
+					.render(phis[i], thetas[i], IntegerMapData.PIXEL_RHO);
+		}
+		MapRenderer.clearCache();
+
+		System.out.println("Testing getMapImageByPoints:");
+		long startTime = System.nanoTime();
+		BufferedImage[] oldImages = new BufferedImage[centers];
+		for (int i = 0; i < centers; i++) {
+			oldImages[i] = mapData.getMapImageByPoints(phis[i], thetas[i]);
+		}
+		long oldTime = System.nanoTime() - startTime;
+		System.out.println(String.format("%d images : %s", centers, toString(oldTime)));
+
+		System.out.println("Testing MapRenderer (cold):");
+		startTime = System.nanoTime();
+		BufferedImage[] newImages = new BufferedImage[centers];
+		for (int i = 0; i < centers; i++) {
+			newImages[i] = (BufferedImage) mapData.getMapImage(phis[i], thetas[i]);
+		}
+		long coldTime = System.nanoTime() - startTime;
+		System.out.println(String.format("%d images : %s", centers, toString(coldTime)));
+
+		System.out.println("Testing MapRenderer (recentering on the last 4):");
+		startTime = System.nanoTime();
+		for (int i = 0; i < centers; i++) {
+			int j = centers - 1 - (i % 4);
+			mapData.getMapImage(phis[j], thetas[j]);
+		}
+		long cachedTime = System.nanoTime() - startTime;
+		System.out.println(String.format("%d images : %s", centers, toString(cachedTime)));
+		System.out.println(String.format("Tile hits : %d   Tile misses : %d", MapRenderer.getTileHits(),
+				MapRenderer.getTileMisses()));
+
+		// Compare the pixels drawn by both
+		long drawn = 0;
+		long differ = 0;
+		long channelDiff = 0;
+		for (int i = 0; i < centers; i++) {
+			for (int y = 0; y < IntegerMapData.IMAGE_HEIGHT; y++) {
+				for (int x = 0; x < IntegerMapData.IMAGE_WIDTH; x++) {
+					int oldPixel = oldImages[i].getRGB(x, y);
+					if ((oldPixel >>> 24) == 0)
+						continue;
+					drawn++;
+					int newPixel = newImages[i].getRGB(x, y);
+					if (oldPixel != newPixel) {
+						differ++;
+						channelDiff += Math.abs((oldPixel >> 16 & 0xff) - (newPixel >> 16 & 0xff))
+								+ Math.abs((oldPixel >> 8 & 0xff) - (newPixel >> 8 & 0xff))
+								+ Math.abs((oldPixel & 0xff) - (newPixel & 0xff));
+					}
+				}
+			}
+		}
+		// Both sample the nearest map pixel but not always the same one
+		System.out.println(String.format("Pixels differing : %d of %d   Mean RGB difference : %.1f", differ, drawn,
+				(double) channelDiff / drawn));
+		System.out.println(String.format("Speed up (cold) : %.1fx   (cached) : %.1fx", (double) oldTime / coldTime,
+				(double) oldTime / cachedTime));
+	}
+
+	/**
+	 * Times the loading of the MEGDR elevation data, then reads every value and
+	 * reports the heap used and the resident set size of the process. Run with
+	 * the arguments "elevation heap" for the int[] decoded from the classpath,
+	 * or "elevation" for the mapped store, once in a fresh process each.
+	 * 
+	 * @param heap true to load the int[] rather than map the store.
+	 */
+	public static void testElevation(boolean heap) {
+		Runtime runtime = Runtime.getRuntime();
+		System.gc();
+		long usedBefore = runtime.totalMemory() - runtime.freeMemory();
+		String rssBefore = getResidentSetSize();
+
+		MEGDRMapReader reader = new MEGDRMapReader();
+		long sum = 0;
+		long startTime = System.nanoTime();
+		if (heap) {
+			int[] elevation = reader.loadElevation();
+			long loadTime = System.nanoTime() - startTime;
+			for (int i = 0; i < elevation.length; i++) {
+				sum += elevation[i];
+			}
+			System.out.println("Testing loadElevation : " + toString(loadTime));
+		}
+		else {
+			ShortBuffer elevation = reader.getElevationBuffer();
+			long loadTime = System.nanoTime() - startTime;
+			for (int i = 0; i < elevation.limit(); i++) {
+				sum += elevation.get(i);
+			}
+			System.out.println("Testing getElevationBuffer : " + toString(loadTime));
+		}
+
+		System.gc();
+		long usedAfter = runtime.totalMemory() - runtime.freeMemory();
+		System.out.println(String.format("Heap used : %d KB   RSS before : %s   RSS after : %s   (sum %d)",
+				(usedAfter - usedBefore) / 1024, rssBefore, getResidentSetSize(), sum));
+		// Keep the reader and its data reachable until measured
+		System.out.println("First elevation : " + reader.getElevation(0));
+	}
+
+	/**
+	 * Gets the resident set size of the process where /proc is available.
+	 */
+	private static String getResidentSetSize() {
+		try {
+			for (String line : Files.readAllLines(Paths.get("/proc/self/status"))) {
+				if (line.startsWith("VmRSS:"))
+					return line.substring(6).trim();
+			}
+		} catch (IOException e) {
+			// Not on Linux
+		}
+		return "n/a";
+	}
+
 	public static void printGrabberArray() {
 		
 		ImageIcon mapIcon = new ImageIcon(imageMapURL);
@@ -13,9 +13,11 @@ import org.mars_sim.msp.core.mars.MineralMap;
 
 import java.awt.*;
 import java.awt.image.MemoryImageSource;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -82,12 +84,21 @@ public class MineralMapLayer implements MapLayer {
 			java.util.Map<String, Color> mineralColors = getMineralColors();
 			updateMineralsDisplayed();
 
-			Coordinates location = new Coordinates(0D, 0D);
+			// Look up every other pixel in one pass over the mineral map
+			List<Coordinates> locations = new ArrayList<Coordinates>();
 			for (int x = 0; x < Map.MAP_VIS_WIDTH; x += 2) {
 				for (int y = 0; y < Map.MAP_VIS_HEIGHT; y += 2) {
+					Coordinates location = new Coordinates(0D, 0D);
 					mapCenter.convertRectToSpherical(x - centerX, y - centerY, rho, location);
-					java.util.Map<String, Double> mineralConcentrations = mineralMap
-							.getAllMineralConcentrations(location);
+					locations.add(location);
+				}
+			}
+			List<java.util.Map<String, Double>> allConcentrations = mineralMap.getAllMineralConcentrations(locations);
+
+			int site = 0;
+			for (int x = 0; x < Map.MAP_VIS_WIDTH; x += 2) {
+				for (int y = 0; y < Map.MAP_VIS_HEIGHT; y += 2) {
+					java.util.Map<String, Double> mineralConcentrations = allConcentrations.get(site++);
 					if (mineralConcentrations.size() > 0) {
 						Iterator<String> i = mineralConcentrations.keySet().iterator();
 						while (i.hasNext()) {
@@ -13,6 +13,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.Set;
 import java.util.logging.Logger;
 
 import javax.swing.SwingUtilities;
@@ -363,6 +364,16 @@ public class PersonTableModel extends UnitTableModel {
 
 	}
 
+	/**
+	 * Gets the unit event types the model shows.
+	 * 
+	 * @return the event types.
+	 */
+	@Override
+	protected Set<UnitEventType> getUnitEventTypes() {
+		return PersonTableUpdater.EVENT_COLUMN_MAPPING.keySet();
+	}
+
 	/**
 	 * Return the value of a Cell
 	 *
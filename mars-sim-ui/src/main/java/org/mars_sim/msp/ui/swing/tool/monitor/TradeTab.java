@@ -6,13 +6,18 @@
  */
 package org.mars_sim.msp.ui.swing.tool.monitor;
 
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseMotionAdapter;
+
 import javax.swing.SwingUtilities;
+import javax.swing.table.JTableHeader;
 import javax.swing.table.TableColumn;
 
 import org.mars_sim.msp.core.Simulation;
 import org.mars_sim.msp.core.UnitManagerEvent;
 import org.mars_sim.msp.core.UnitManagerEventType;
 import org.mars_sim.msp.core.UnitManagerListener;
+import org.mars_sim.msp.core.person.ai.mission.TradeMarket;
 import org.mars_sim.msp.core.structure.Settlement;
 import org.mars_sim.msp.ui.swing.NumberCellRenderer;
 
@@ -27,6 +32,10 @@ implements UnitManagerListener {
 	
 	/** The minimum number of decimal places to be displayed. */
 	private static final int NUM_DIGITS = 2;
+
+	private static final String BEST_TRADE = "Best trade : ";
+	private static final String NO_TRADE = "No trade found yet";
+	private static final String VP = " VP";
 			
 	/**
 	 * constructor.
@@ -39,10 +48,41 @@ implements UnitManagerListener {
 		// Override default cell renderer for formatting double values.
 		table.setDefaultRenderer(Double.class, new NumberCellRenderer(NUM_DIGITS, true));
 
+		// Show the best trade of a settlement in the tooltip of its columns.
+		final JTableHeader header = table.getTableHeader();
+		header.addMouseMotionListener(new MouseMotionAdapter() {
+			@Override
+			public void mouseMoved(MouseEvent e) {
+				int column = table.convertColumnIndexToModel(header.columnAtPoint(e.getPoint()));
+				header.setToolTipText(getBestTradeText(column));
+			}
+		});
+
 		// Add as unit manager listener.
 		Simulation.instance().getUnitManager().addUnitManagerListener(this);
 	}
 
+	/**
+	 * Gets the best trade of the settlement of a column, as last worked out by the
+	 * trade market.
+	 * @param column the model column.
+	 * @return the text, or null if not a settlement column.
+	 */
+	private String getBestTradeText(int column) {
+		if (column < 0)
+			return null;
+		Settlement settlement = ((TradeTableModel) getModel()).getSettlement(column);
+		if (settlement == null)
+			return null;
+
+		TradeMarket market = TradeMarket.getInstance();
+		Settlement tradingSettlement = market.getBestTradeSettlement(settlement);
+		if (tradingSettlement == null)
+			return NO_TRADE;
+		return BEST_TRADE + tradingSettlement.getName() + " (" + Math.round(market.getBestTradeProfit(settlement))
+				+ VP + ")";
+	}
+
 	@Override
 	public void unitManagerUpdate(UnitManagerEvent event) {
 
@@ -7,6 +7,7 @@
 package org.mars_sim.msp.ui.swing.tool.monitor;
 
 import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.Iterator;
 import java.util.List;
 
@@ -58,7 +59,7 @@ implements UnitListener, MonitorModel, UnitManagerListener {
 
 		// Add table as listener to each settlement.
 		Iterator<Settlement> i = settlements.iterator();
-		while (i.hasNext()) i.next().addUnitListener(this);
+		while (i.hasNext()) i.next().addUnitListener(this, EnumSet.of(UnitEventType.GOODS_VALUE_EVENT));
 
 		// Add as unit manager listener.
 		unitManager.addUnitManagerListener(this);
@@ -181,6 +182,17 @@ implements UnitListener, MonitorModel, UnitManagerListener {
 	}
 
 
+	/**
+	 * Gets the settlement of a column.
+	 * @param columnIndex Index of column.
+	 * @return the settlement, or null if not a settlement column.
+	 */
+	public Settlement getSettlement(int columnIndex) {
+		if (columnIndex < 2) return null;
+		int index = (columnIndex - 2) / 2;
+		return (index < settlements.size()) ? settlements.get(index) : null;
+	}
+
 	/**
 	 * Gets the good category name in the internationalized string
 	 * @param good
@@ -228,7 +240,7 @@ implements UnitListener, MonitorModel, UnitManagerListener {
 				// If settlement is new, add to settlement list.
 				if (!settlements.contains(settlement)) {
 					settlements.add(settlement);
-					settlement.addUnitListener(this);
+					settlement.addUnitListener(this, EnumSet.of(UnitEventType.GOODS_VALUE_EVENT));
 				}
 			}
 			else if (UnitManagerEventType.REMOVE_UNIT == event.getEventType()) {
@@ -8,6 +8,7 @@ package org.mars_sim.msp.ui.swing.tool.monitor;
 
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.Set;
 import java.util.concurrent.ConcurrentLinkedQueue;
 
 import javax.swing.SwingUtilities;
@@ -16,6 +17,7 @@ import javax.swing.table.AbstractTableModel;
 import org.mars_sim.msp.core.Msg;
 import org.mars_sim.msp.core.Simulation;
 import org.mars_sim.msp.core.Unit;
+import org.mars_sim.msp.core.UnitEventType;
 import org.mars_sim.msp.core.UnitListener;
 import org.mars_sim.msp.core.UnitManager;
 
@@ -76,7 +78,11 @@ abstract public class UnitTableModel extends AbstractTableModel implements Monit
 		if (!units.contains(newUnit)) {
 			units.add(newUnit);
 			refreshSize = true;
-			newUnit.addUnitListener(this);
+			Set<UnitEventType> eventTypes = getUnitEventTypes();
+			if (eventTypes != null)
+				newUnit.addUnitListener(this, eventTypes);
+			else
+				newUnit.addUnitListener(this);
 
 			// Inform listeners of new row
 			SwingUtilities.invokeLater(new Runnable() {
@@ -87,6 +93,15 @@ abstract public class UnitTableModel extends AbstractTableModel implements Monit
 		}
 	}
 
+	/**
+	 * Gets the unit event types the model shows.
+	 * 
+	 * @return the event types, or null for all.
+	 */
+	protected Set<UnitEventType> getUnitEventTypes() {
+		return null;
+	}
+
 	/**
 	 * Remove a unit from the model.
 	 * 